@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.annotation.behavior;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marker annotation a Processor implementation can use to indicate that its
+ * {@link org.apache.nifi.processor.Processor#onTrigger onTrigger} method spends
+ * most of its time blocked waiting on a remote system, such as a web server,
+ * database or message broker. When a Timer-Driven Processor uses this annotation,
+ * the framework runs its concurrent tasks on threads that are set aside for
+ * blocking Processors rather than on the shared Timer-Driven thread pool. This
+ * way, the user can give such a Processor many concurrent tasks without starving
+ * other Processors of threads and without having to enlarge the Timer-Driven
+ * thread pool for the whole flow.
+ *
+ * This annotation should not be used by Processors that are CPU-bound, as their
+ * concurrent tasks would then not be limited by the size of the Timer-Driven
+ * thread pool.
+ */
+@Documented
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface BlockingIO {
+
+}
@@ -40,6 +40,10 @@ public class ConnectionStatus implements Cloneable {
     private long outputBytes;
     private int maxQueuedCount;
     private long maxQueuedBytes;
+    private long swapInCount;
+    private long swapInMillis;
+    private long swapOutCount;
+    private long swapOutMillis;
 
     public String getId() {
         return id;
@@ -186,6 +190,50 @@ public class ConnectionStatus implements Cloneable {
         this.backPressureBytesThreshold = backPressureBytesThreshold;
     }
 
+    /**
+     * @return the number of swap files that have been swapped in for this connection since it was created
+     */
+    public long getSwapInCount() {
+        return swapInCount;
+    }
+
+    public void setSwapInCount(long swapInCount) {
+        this.swapInCount = swapInCount;
+    }
+
+    /**
+     * @return the total number of milliseconds that this connection has waited for swap files to be swapped in since it was created
+     */
+    public long getSwapInMillis() {
+        return swapInMillis;
+    }
+
+    public void setSwapInMillis(long swapInMillis) {
+        this.swapInMillis = swapInMillis;
+    }
+
+    /**
+     * @return the number of swap files that have been written for this connection since it was created
+     */
+    public long getSwapOutCount() {
+        return swapOutCount;
+    }
+
+    public void setSwapOutCount(long swapOutCount) {
+        this.swapOutCount = swapOutCount;
+    }
+
+    /**
+     * @return the total number of milliseconds spent writing swap files for this connection since it was created
+     */
+    public long getSwapOutMillis() {
+        return swapOutMillis;
+    }
+
+    public void setSwapOutMillis(long swapOutMillis) {
+        this.swapOutMillis = swapOutMillis;
+    }
+
     @Override
     public ConnectionStatus clone() {
         final ConnectionStatus clonedObj = new ConnectionStatus();
@@ -206,6 +254,10 @@ public class ConnectionStatus implements Cloneable {
         clonedObj.backPressureObjectThreshold = backPressureObjectThreshold;
         clonedObj.maxQueuedBytes = maxQueuedBytes;
         clonedObj.maxQueuedCount = maxQueuedCount;
+        clonedObj.swapInCount = swapInCount;
+        clonedObj.swapInMillis = swapInMillis;
+        clonedObj.swapOutCount = swapOutCount;
+        clonedObj.swapOutMillis = swapOutMillis;
         return clonedObj;
     }
 
@@ -246,6 +298,14 @@ public class ConnectionStatus implements Cloneable {
         builder.append(maxQueuedCount);
         builder.append(", maxQueueBytes=");
         builder.append(maxQueuedBytes);
+        builder.append(", swapInCount=");
+        builder.append(swapInCount);
+        builder.append(", swapInMillis=");
+        builder.append(swapInMillis);
+        builder.append(", swapOutCount=");
+        builder.append(swapOutCount);
+        builder.append(", swapOutMillis=");
+        builder.append(swapOutMillis);
         builder.append("]");
         return builder.toString();
     }
@@ -37,6 +37,7 @@ public class ProcessorStatus implements Cloneable {
     private long bytesWritten;
     private int invocations;
     private long processingNanos;
+    private long schedulingLatencyNanos;
     private int flowFilesRemoved;
     private long averageLineageDuration;
     private int activeThreadCount;
@@ -150,6 +151,18 @@ public class ProcessorStatus implements Cloneable {
         this.processingNanos = processingNanos;
     }
 
+    /**
+     * @return an upper bound for the 99th percentile of how long the Processor's tasks have waited to run after they were due to run,
+     *         since the Processor was last started, or 0 if this is not known
+     */
+    public long getSchedulingLatencyNanos() {
+        return schedulingLatencyNanos;
+    }
+
+    public void setSchedulingLatencyNanos(final long schedulingLatencyNanos) {
+        this.schedulingLatencyNanos = schedulingLatencyNanos;
+    }
+
     public long getAverageLineageDuration(final TimeUnit timeUnit) {
         return TimeUnit.MILLISECONDS.convert(averageLineageDuration, timeUnit);
     }
@@ -241,6 +254,7 @@ public class ProcessorStatus implements Cloneable {
         clonedObj.outputBytes = outputBytes;
         clonedObj.outputCount = outputCount;
         clonedObj.processingNanos = processingNanos;
+        clonedObj.schedulingLatencyNanos = schedulingLatencyNanos;
         clonedObj.averageLineageDuration = averageLineageDuration;
         clonedObj.flowFilesRemoved = flowFilesRemoved;
         clonedObj.runStatus = runStatus;
@@ -278,6 +292,8 @@ public class ProcessorStatus implements Cloneable {
         builder.append(invocations);
         builder.append(", processingNanos=");
         builder.append(processingNanos);
+        builder.append(", schedulingLatencyNanos=");
+        builder.append(schedulingLatencyNanos);
         builder.append(", activeThreadCount=");
         builder.append(activeThreadCount);
         builder.append(", counters=");
@@ -19,10 +19,12 @@ package org.apache.nifi.processor;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import org.apache.nifi.controller.queue.QueueSize;
@@ -31,6 +33,7 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.FileRegionCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -355,6 +358,38 @@ public interface ProcessSession {
      */
     FlowFile putAllAttributes(FlowFile flowFile, Map<String, String> attributes);
 
+    /**
+     * Updates the attributes of each of the given FlowFiles with the key/value
+     * pairs returned by the given function for that FlowFile. If the map
+     * returned for a FlowFile contains a key named {@code uuid}, that attribute
+     * will be ignored. If the function returns <code>null</code> or an empty
+     * map for a FlowFile, that FlowFile is left unchanged. This is equivalent
+     * to calling {@link #putAllAttributes(FlowFile, Map)} for each FlowFile but
+     * allows the session to do its bookkeeping once for the whole collection,
+     * which is considerably cheaper for a Processor that updates thousands of
+     * FlowFiles in a single session.
+     *
+     * @param flowFiles to update
+     * @param attributesFunction a function that returns the attributes to add
+     * to the given FlowFile
+     * @return the updated FlowFiles, in the same order as the given FlowFiles
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session and for
+     * the given FlowFile(s)
+     * @throws FlowFileHandlingException if any of the given FlowFiles is
+     * already transferred or removed or doesn't belong to this session.
+     * Automatic rollback will occur.
+     * @throws NullPointerException if an argument is null
+     */
+    default List<FlowFile> putAllAttributes(final Collection<FlowFile> flowFiles, final Function<FlowFile, Map<String, String>> attributesFunction) {
+        final List<FlowFile> updated = new ArrayList<>(flowFiles.size());
+        for (final FlowFile flowFile : flowFiles) {
+            final Map<String, String> attributes = attributesFunction.apply(flowFile);
+            updated.add(attributes == null || attributes.isEmpty() ? flowFile : putAllAttributes(flowFile, attributes));
+        }
+        return updated;
+    }
+
     /**
      * Removes the given FlowFile attribute with the given key. If the key is
      * named {@code uuid}, this method will return the same FlowFile without
@@ -480,7 +515,8 @@ public interface ProcessSession {
      * until the ownership of the session is migrated to another processor. If
      * ownership of the session is passed to a destination processor then that
      * destination processor will have immediate visibility of the transferred
-     * FlowFiles within the session.
+     * FlowFiles within the session. Transferring a collection of FlowFiles is
+     * considerably cheaper than transferring each of them individually.
      *
      * @param flowFiles to transfer
      * @param relationship to transfer to
@@ -612,6 +648,40 @@ public interface ProcessSession {
      */
     void read(FlowFile source, boolean allowSessionStreamManagement, InputStreamCallback reader) throws FlowFileAccessException;
 
+    /**
+     * Executes the given callback against the region of the file that holds the
+     * content of the given FlowFile, if the content is stored in a file. This
+     * allows content to be sent to a network or file channel by way of
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * without being copied through the heap. If the content cannot be accessed
+     * in this manner, or the FlowFile has no content, the callback is not invoked
+     * and <code>false</code> is returned, in which case the caller should fall back
+     * to {@link #read(FlowFile, InputStreamCallback)}.
+     *
+     * <i>Note</i>: The FileChannel provided to the given FileRegionCallback
+     * will not be accessible once this method has completed its execution.
+     *
+     * @param source flowfile to retrieve content of
+     * @param reader that will be called with the region of the file that holds the flowfile content
+     * @return <code>true</code> if the callback was invoked, <code>false</code> if the content
+     *             is not available as a region of a file
+     * @throws IllegalStateException if detected that this method is being
+     *             called from within a write callback of another method or while an OutputStream
+     *             is open for the given FlowFile in this session
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     *             transferred or removed or doesn't belong to this session. Automatic
+     *             rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     *             found. The FlowFile should no longer be referenced, will be internally
+     *             destroyed, and the session is automatically rolled back and what is left
+     *             of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing
+     *             FlowFile content
+     */
+    default boolean read(FlowFile source, FileRegionCallback reader) throws FlowFileAccessException {
+        return false;
+    }
+
     /**
      * Combines the content of all given source FlowFiles into a single given
      * destination FlowFile.
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * A callback that is given direct access to the region of a file that holds the
+ * content of a FlowFile, so that the content can be sent to a channel with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * rather than being copied through the heap.
+ */
+public interface FileRegionCallback {
+
+    /**
+     * Provides a read-only channel over the file that holds the FlowFile's
+     * content. The channel is managed by the framework and must not be closed
+     * or used after this method returns. Because the channel may be shared with
+     * other readers, only the methods that take an explicit position should be
+     * used.
+     *
+     * @param channel the channel to read from
+     * @param position the position within the channel at which the FlowFile's content begins
+     * @param length the number of bytes of content
+     * @throws IOException if issues reading from the channel
+     */
+    void process(FileChannel channel, long position, long length) throws IOException;
+
+}
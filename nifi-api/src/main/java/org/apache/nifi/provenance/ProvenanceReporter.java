@@ -45,6 +45,24 @@ public interface ProvenanceReporter {
      */
     void receive(FlowFile flowFile, String transitUri);
 
+    /**
+     * Emits a Provenance Event of type
+     * {@link ProvenanceEventType#RECEIVE RECEIVE} for each of the given
+     * FlowFiles, indicating that they were created from data received from an
+     * external source. This is equivalent to calling
+     * {@link #receive(FlowFile, String)} for each FlowFile but may be
+     * considerably cheaper for a large number of FlowFiles.
+     *
+     * @param flowFiles the FlowFiles that were received
+     * @param transitUri A URI that provides information about the System and
+     * Protocol information over which the transfer occurred.
+     */
+    default void receive(final Collection<FlowFile> flowFiles, final String transitUri) {
+        for (final FlowFile flowFile : flowFiles) {
+            receive(flowFile, transitUri);
+        }
+    }
+
     /**
      * Emits a Provenance Event of type
      * {@link ProvenanceEventType#RECEIVE RECEIVE} that indicates that the given
@@ -175,6 +193,23 @@ public interface ProvenanceReporter {
      */
     void send(FlowFile flowFile, String transitUri);
 
+    /**
+     * Emits a Provenance Event of type {@link ProvenanceEventType#SEND SEND}
+     * for each of the given FlowFiles, indicating that a copy of each was sent
+     * to an external destination. This is equivalent to calling
+     * {@link #send(FlowFile, String)} for each FlowFile but may be considerably
+     * cheaper for a large number of FlowFiles.
+     *
+     * @param flowFiles the FlowFiles that were sent
+     * @param transitUri A URI that provides information about the System and
+     * Protocol information over which the transfer occurred.
+     */
+    default void send(final Collection<FlowFile> flowFiles, final String transitUri) {
+        for (final FlowFile flowFile : flowFiles) {
+            send(flowFile, transitUri);
+        }
+    }
+
     /**
      * Emits a Provenance Event of type {@link ProvenanceEventType#SEND SEND}
      * that indicates that a copy of the given FlowFile was sent to an external
@@ -566,6 +601,23 @@ public interface ProvenanceReporter {
      */
     void route(FlowFile flowFile, Relationship relationship);
 
+    /**
+     * Emits a Provenance Event of type {@link ProvenanceEventType#ROUTE ROUTE}
+     * for each of the given FlowFiles, indicating that they were routed to the
+     * given {@link Relationship}. The same caveats apply as for
+     * {@link #route(FlowFile, Relationship)}. This is equivalent to calling
+     * that method for each FlowFile but may be considerably cheaper for a large
+     * number of FlowFiles.
+     *
+     * @param flowFiles the FlowFiles being routed
+     * @param relationship the Relationship to which the FlowFiles were routed
+     */
+    default void route(final Collection<FlowFile> flowFiles, final Relationship relationship) {
+        for (final FlowFile flowFile : flowFiles) {
+            route(flowFile, relationship);
+        }
+    }
+
     /**
      * Emits a Provenance Event of type {@link ProvenanceEventType#ROUTE ROUTE}
      * that indicates that the given FlowFile was routed to the given
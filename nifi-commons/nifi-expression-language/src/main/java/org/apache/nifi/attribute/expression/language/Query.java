@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.antlr.runtime.tree.Tree;
 import org.apache.nifi.attribute.expression.language.compile.CompiledExpression;
+import org.apache.nifi.attribute.expression.language.compile.DirectEvaluator;
 import org.apache.nifi.attribute.expression.language.compile.ExpressionCompiler;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
@@ -207,7 +208,19 @@ public class Query {
             return null;
         }
 
-        final String value = evaluated.toString();
+        return decorate(evaluated.toString(), decorator);
+    }
+
+    static String evaluateExpression(final DirectEvaluator directEvaluator, final Map<String, String> valueMap, final AttributeValueDecorator decorator) throws ProcessException {
+        final String evaluated = directEvaluator.evaluate(valueMap);
+        if (evaluated == null) {
+            return null;
+        }
+
+        return decorate(evaluated, decorator);
+    }
+
+    private static String decorate(final String value, final AttributeValueDecorator decorator) {
         final String escaped = value.replace("$$", "$");
         return decorator == null ? escaped : decorator.decorate(escaped);
     }
@@ -23,7 +23,14 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.nifi.attribute.expression.language.compile.CompiledExpression;
+import org.apache.nifi.attribute.expression.language.compile.DirectEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.GetStateVariableEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.MathEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.NowEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.OneUpSequenceEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.RandomNumberGeneratorEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.UuidEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.selection.AllAttributesEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.selection.AnyAttributeEvaluator;
@@ -40,6 +47,8 @@ public class StandardPreparedQuery implements PreparedQuery {
     private final List<String> queryStrings;
     private final Map<String, CompiledExpression> expressions;
     private volatile VariableImpact variableImpact;
+    private volatile Set<String> deterministicExpressions;
+    private final VariableResultCache variableResults = new VariableResultCache();
 
     public StandardPreparedQuery(final List<String> queryStrings, final Map<String, CompiledExpression> expressions) {
         this.queryStrings = queryStrings;
@@ -54,7 +63,15 @@ public class StandardPreparedQuery implements PreparedQuery {
             if (expression == null) {
                 sb.append(val);
             } else {
-                final String evaluated = Query.evaluateExpression(expression.getTree(), val, valMap, decorator, stateVariables);
+                final String evaluated;
+                if (stateVariables == null && valMap instanceof ValueLookup && ((ValueLookup) valMap).isVariablesOnly() && isDeterministic(val)) {
+                    // The result depends only on the variables that the Expression references, so it is evaluated again only if one of them has changed
+                    final String result = variableResults.get(val, valMap, variables -> evaluateExpression(expression, val, variables, null, null));
+                    evaluated = result == null || decorator == null ? result : decorator.decorate(result);
+                } else {
+                    evaluated = evaluateExpression(expression, val, valMap, decorator, stateVariables);
+                }
+
                 if (evaluated != null) {
                     sb.append(evaluated);
                 }
@@ -63,6 +80,36 @@ public class StandardPreparedQuery implements PreparedQuery {
         return sb.toString();
     }
 
+    private static String evaluateExpression(final CompiledExpression expression, final String queryText, final Map<String, String> valMap,
+        final AttributeValueDecorator decorator, final Map<String, String> stateVariables) {
+        // Expressions that can be evaluated directly do not need to build a new tree of Evaluators for each evaluation
+        final DirectEvaluator directEvaluator = expression.getDirectEvaluator();
+        return directEvaluator == null ? Query.evaluateExpression(expression.getTree(), queryText, valMap, decorator, stateVariables)
+            : Query.evaluateExpression(directEvaluator, valMap, decorator);
+    }
+
+    /**
+     * Determines whether the given Expression always returns the same result when evaluated against the same values, that is, whether
+     * it does not use a function such as now(), random() or getStateValue()
+     */
+    private boolean isDeterministic(final String queryText) {
+        Set<String> deterministic = this.deterministicExpressions;
+        if (deterministic == null) {
+            deterministic = new HashSet<>();
+            for (final Map.Entry<String, CompiledExpression> entry : expressions.entrySet()) {
+                final boolean nonDeterministic = entry.getValue().getAllEvaluators().stream().anyMatch(evaluator -> evaluator instanceof NowEvaluator
+                    || evaluator instanceof RandomNumberGeneratorEvaluator || evaluator instanceof MathEvaluator || evaluator instanceof UuidEvaluator
+                    || evaluator instanceof OneUpSequenceEvaluator || evaluator instanceof GetStateVariableEvaluator);
+                if (!nonDeterministic) {
+                    deterministic.add(entry.getKey());
+                }
+            }
+            this.deterministicExpressions = deterministic;
+        }
+
+        return deterministic.contains(queryText);
+    }
+
     @Override
     public String evaluateExpressions(final Map<String, String> valMap, final AttributeValueDecorator decorator)
             throws ProcessException {
@@ -64,6 +64,14 @@ final class ValueLookup implements Map<String, String> {
         this.registry = registry == null ? VariableRegistry.EMPTY_REGISTRY : registry;
     }
 
+    /**
+     * @return <code>true</code> if values are looked up only in the variable registry, that is, if there is no FlowFile and
+     *         there are no additional maps
+     */
+    boolean isVariablesOnly() {
+        return maps.isEmpty();
+    }
+
     static final Map<String, String> extractFlowFileProperties(final FlowFile flowFile) {
         final Map<String, String> flowFileProps = new HashMap<>();
         flowFileProps.put("flowFileId", String.valueOf(flowFile.getId()));
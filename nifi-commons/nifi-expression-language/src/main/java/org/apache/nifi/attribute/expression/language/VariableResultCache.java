@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.attribute.expression.language;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Caches the results of Expressions that are evaluated against variables only, such as the value of a Processor property
+ * that references a variable but not a FlowFile. Such an Expression is typically evaluated each time that the Processor
+ * is triggered, and its result changes only when a variable changes.
+ * </p>
+ *
+ * <p>
+ * Each result is cached along with the value of each variable that was looked up to compute it. A cached result is used
+ * only if each of those variables still has the same value, so a result is invalidated as soon as the variable registry
+ * is updated. An evaluation that enumerates the variables, rather than looking each one up by name, is not cached.
+ * </p>
+ */
+final class VariableResultCache {
+    private final ConcurrentMap<String, CachedResult> results = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the result of the given Expression, evaluating it only if it has not been evaluated against the current values of
+     * the variables that it references.
+     *
+     * @param expression the text of the Expression
+     * @param lookup the variables to evaluate the Expression against
+     * @param evaluation the function that evaluates the Expression against a map of variables
+     * @return the result of the Expression
+     */
+    String get(final String expression, final Map<String, String> lookup, final Function<Map<String, String>, String> evaluation) {
+        final CachedResult cached = results.get(expression);
+        if (cached != null && cached.isValid(lookup)) {
+            return cached.result;
+        }
+
+        final RecordingMap recordingMap = new RecordingMap(lookup);
+        final String result = evaluation.apply(recordingMap);
+        if (recordingMap.recordedAllLookups) {
+            results.put(expression, new CachedResult(result, recordingMap.lookedUp));
+        } else {
+            results.remove(expression);
+        }
+
+        return result;
+    }
+
+    private static class CachedResult {
+        private final String result;
+        private final Map<String, String> variables;
+
+        CachedResult(final String result, final Map<String, String> variables) {
+            this.result = result;
+            this.variables = variables;
+        }
+
+        boolean isValid(final Map<String, String> lookup) {
+            for (final Map.Entry<String, String> entry : variables.entrySet()) {
+                if (!Objects.equals(entry.getValue(), lookup.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A read-only view of a map that records each key that is looked up, along with its value. If anything other than looking up
+     * a key is done, the lookups that were recorded are not enough to tell whether the result of the evaluation is still valid.
+     */
+    private static class RecordingMap extends AbstractMap<String, String> {
+        private final Map<String, String> delegate;
+        private final Map<String, String> lookedUp = new LinkedHashMap<>();
+        private boolean recordedAllLookups = true;
+
+        RecordingMap(final Map<String, String> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String get(final Object key) {
+            if (key == null) {
+                return null;
+            }
+
+            final String value = delegate.get(key);
+            lookedUp.put(key.toString(), value);
+            return value;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            recordedAllLookups = false;
+            return delegate.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            recordedAllLookups = false;
+            return delegate.entrySet();
+        }
+    }
+}
@@ -27,12 +27,19 @@ public class CompiledExpression {
     private final Tree tree;
     private final String expression;
     private final Set<Evaluator<?>> allEvaluators;
+    private final DirectEvaluator directEvaluator;
 
     public CompiledExpression(final String expression, final Evaluator<?> rootEvaluator, final Tree tree, final Set<Evaluator<?>> allEvaluators) {
+        this(expression, rootEvaluator, tree, allEvaluators, null);
+    }
+
+    public CompiledExpression(final String expression, final Evaluator<?> rootEvaluator, final Tree tree, final Set<Evaluator<?>> allEvaluators,
+        final DirectEvaluator directEvaluator) {
         this.rootEvaluator = rootEvaluator;
         this.tree = tree;
         this.expression = expression;
         this.allEvaluators = allEvaluators;
+        this.directEvaluator = directEvaluator;
     }
 
     public Evaluator<?> getRootEvaluator() {
@@ -50,4 +57,12 @@ public class CompiledExpression {
     public Set<Evaluator<?>> getAllEvaluators() {
         return allEvaluators;
     }
+
+    /**
+     * @return an evaluator that evaluates this expression without building a new tree of Evaluators, or <code>null</code> if the
+     *         expression uses a feature that is not supported by the {@link DirectEvaluatorCompiler}
+     */
+    public DirectEvaluator getDirectEvaluator() {
+        return directEvaluator;
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.attribute.expression.language.compile;
+
+import java.util.Map;
+
+/**
+ * An Expression that has been compiled by the {@link DirectEvaluatorCompiler} so that it can be evaluated directly against
+ * a Map of attributes. Unlike an {@link org.apache.nifi.attribute.expression.language.evaluation.Evaluator Evaluator},
+ * a DirectEvaluator holds no state, so the same instance can be evaluated any number of times, from any number of threads,
+ * and evaluating it does not create a QueryResult for each function in the Expression.
+ */
+public interface DirectEvaluator {
+
+    /**
+     * Evaluates the Expression
+     *
+     * @param attributes the attributes to evaluate the Expression against
+     * @return the result of the Expression, converted to a String, or <code>null</code> if the Expression evaluates to <code>null</code>
+     */
+    String evaluate(Map<String, String> attributes);
+}
@@ -0,0 +1,740 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.attribute.expression.language.compile;
+
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.AND;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.APPEND;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.ATTRIBUTE_REFERENCE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.ATTR_NAME;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.CONTAINS;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.ENDS_WITH;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EQUALS;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EQUALS_IGNORE_CASE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EXPRESSION;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.FALSE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.HOSTNAME;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IF_ELSE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IN;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.INDEX_OF;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IP;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IS_EMPTY;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.IS_NULL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.LAST_INDEX_OF;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.LENGTH;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.NOT;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.NOT_NULL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.OR;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.PREPEND;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.REPLACE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.REPLACE_EMPTY;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.REPLACE_NULL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.STARTS_WITH;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.STRING_LITERAL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING_AFTER;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING_AFTER_LAST;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING_BEFORE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.SUBSTRING_BEFORE_LAST;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TO_LITERAL;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TO_LOWER;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TO_STRING;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TO_UPPER;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TRIM;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.TRUE;
+import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.WHOLE_NUMBER;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.Tree;
+import org.apache.nifi.attribute.expression.language.Query;
+import org.apache.nifi.attribute.expression.language.Query.Range;
+import org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionLexer;
+import org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser;
+import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.HostnameEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.IPEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
+import org.apache.nifi.expression.AttributeExpression.ResultType;
+
+/**
+ * <p>
+ * Compiles the syntax tree of an Expression into a {@link DirectEvaluator}. Each node of the tree becomes a small function
+ * that returns a String, a primitive boolean or a primitive long, and the functions are composed once, when the Expression
+ * is compiled. Evaluating the result therefore neither builds a new tree of Evaluators nor wraps each intermediate value in
+ * a QueryResult, and the JVM is free to inline the functions of a frequently evaluated Expression into one another.
+ * </p>
+ *
+ * <p>
+ * Nodes whose inputs are all constant, such as <code>${hostname():toUpper()}</code> or a function of literal arguments, are
+ * evaluated once, when the Expression is compiled, and replaced by their result.
+ * </p>
+ *
+ * <p>
+ * Only the functions that are most commonly used to route on and update attributes are supported. For any other Expression,
+ * including one that references multiple attributes or uses a function whose result depends on when it is called,
+ * {@link #compile(Tree)} returns <code>null</code> and the Expression must be evaluated by its Evaluators, as before. Each
+ * supported function returns exactly what its Evaluator returns for the same input.
+ * </p>
+ */
+public class DirectEvaluatorCompiler {
+
+    /**
+     * Compiles the given (valid) syntax tree
+     *
+     * @param tree the syntax tree of the Expression, as produced by {@link ExpressionCompiler}
+     * @return a DirectEvaluator for the Expression, or <code>null</code> if the Expression uses a feature that cannot be evaluated directly
+     */
+    public static DirectEvaluator compile(final Tree tree) {
+        final Node node = buildNode(tree);
+        return node == null ? null : node.asString();
+    }
+
+    private static Node buildNode(final Tree tree) {
+        switch (tree.getType()) {
+            case EXPRESSION: {
+                if (tree.getChildCount() == 0) {
+                    return null;
+                }
+
+                Node subject = buildNode(tree.getChild(0));
+                for (int i = 1; i < tree.getChildCount() && subject != null; i++) {
+                    final Tree functionTree = tree.getChild(i);
+                    final List<Node> args = new ArrayList<>();
+                    for (int j = 1; j < functionTree.getChildCount(); j++) {
+                        final Node arg = buildNode(functionTree.getChild(j));
+                        if (arg == null) {
+                            return null;
+                        }
+                        args.add(arg);
+                    }
+
+                    final Node function = buildFunction(functionTree.getChild(0), subject, args);
+                    final boolean constantInputs = subject.constant && args.stream().allMatch(arg -> arg.constant);
+                    subject = function != null && constantInputs ? fold(function) : function;
+                }
+                return subject;
+            }
+            case ATTRIBUTE_REFERENCE: {
+                final Node nameNode = buildNode(tree.getChild(0));
+                if (nameNode == null) {
+                    return null;
+                }
+
+                if (nameNode.constant) {
+                    final String attributeName = nameNode.asString().evaluate(Collections.emptyMap());
+                    return Node.ofString(attributes -> attributes.get(attributeName));
+                }
+
+                final DirectEvaluator name = nameNode.asString();
+                return Node.ofString(attributes -> attributes.get(name.evaluate(attributes)));
+            }
+            case ATTR_NAME:
+                return buildStringLiteral(tree.getChild(0).getText());
+            case STRING_LITERAL:
+                return buildStringLiteral(tree.getText());
+            case WHOLE_NUMBER:
+                return Node.ofConstant(Long.parseLong(tree.getText()));
+            case TRUE:
+                return Node.ofConstant(true);
+            case FALSE:
+                return Node.ofConstant(false);
+            case TO_LITERAL: {
+                final Node argNode = buildNode(tree.getChild(0));
+                if (argNode == null) {
+                    return null;
+                }
+
+                final DirectEvaluator arg = argNode.asString();
+                final Node literal = Node.ofString(attributes -> String.valueOf(arg.evaluate(attributes)));
+                return argNode.constant ? fold(literal) : literal;
+            }
+            case HOSTNAME:
+            case IP: {
+                // The host name and address are looked up when the Evaluator is created, so they are looked up once, when the Expression is compiled
+                try {
+                    final Evaluator<String> evaluator;
+                    if (tree.getType() == IP) {
+                        evaluator = new IPEvaluator();
+                    } else if (tree.getChildCount() == 0) {
+                        evaluator = new HostnameEvaluator(false);
+                    } else {
+                        evaluator = new HostnameEvaluator(tree.getChild(0).getType() == TRUE);
+                    }
+                    return Node.ofConstant(evaluator.evaluate(null).getValue());
+                } catch (final UnknownHostException e) {
+                    return null;
+                }
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Evaluates a node whose inputs are all constant, so that it is evaluated only once, when the Expression is compiled. If evaluating
+     * the node fails, it is not folded, so that evaluating the Expression fails as it otherwise would.
+     */
+    private static Node fold(final Node node) {
+        final Map<String, String> noAttributes = Collections.emptyMap();
+        try {
+            switch (node.resultType) {
+                case BOOLEAN:
+                    return Node.ofConstant(node.booleanFunction.test(noAttributes));
+                case WHOLE_NUMBER:
+                    return Node.ofConstant(node.wholeNumberFunction.applyAsLong(noAttributes));
+                default:
+                    return Node.ofConstant(node.stringFunction.evaluate(noAttributes));
+            }
+        } catch (final RuntimeException e) {
+            return node;
+        }
+    }
+
+    private static Node buildStringLiteral(final String literalValue) {
+        final List<Range> ranges = literalValue.length() < 2 ? null : Query.extractExpressionRanges(literalValue);
+        if (ranges == null || ranges.isEmpty()) {
+            return Node.ofConstant(new StringLiteralEvaluator(literalValue).evaluate(null).getValue());
+        }
+
+        final List<Node> parts = new ArrayList<>();
+        int lastIndex = 0;
+        for (final Range range : ranges) {
+            if (range.getStart() > lastIndex) {
+                parts.add(buildStringLiteral(literalValue.substring(lastIndex, range.getStart())));
+            }
+
+            final Node embedded = buildNode(parseTree(literalValue.substring(range.getStart(), range.getEnd() + 1)));
+            if (embedded == null) {
+                return null;
+            }
+            parts.add(embedded);
+            lastIndex = range.getEnd() + 1;
+        }
+
+        final Range lastRange = ranges.get(ranges.size() - 1);
+        if (lastRange.getEnd() + 1 < literalValue.length()) {
+            parts.add(buildStringLiteral(literalValue.substring(lastRange.getEnd() + 1)));
+        }
+
+        for (final Node part : parts) {
+            if (part == null) {
+                return null;
+            }
+        }
+
+        if (parts.size() == 1) {
+            final Node part = parts.get(0);
+            return part.constant ? fold(Node.ofString(part.asString())) : Node.ofString(part.asString());
+        }
+
+        // As with the chain of Append Evaluators that an embedded Expression is compiled into, a null part is treated as an empty String
+        final DirectEvaluator[] evaluators = parts.stream().map(Node::asString).toArray(DirectEvaluator[]::new);
+        final Node concatenation = Node.ofString(attributes -> {
+            final StringBuilder sb = new StringBuilder();
+            for (final DirectEvaluator evaluator : evaluators) {
+                final String value = evaluator.evaluate(attributes);
+                if (value != null) {
+                    sb.append(value);
+                }
+            }
+            return sb.toString();
+        });
+        return parts.stream().allMatch(part -> part.constant) ? fold(concatenation) : concatenation;
+    }
+
+    private static Tree parseTree(final String expression) {
+        final CharStream input = new ANTLRStringStream(expression);
+        final AttributeExpressionLexer lexer = new AttributeExpressionLexer(input);
+        final CommonTokenStream lexerTokenStream = new CommonTokenStream(lexer);
+
+        final AttributeExpressionParser parser = new AttributeExpressionParser(lexerTokenStream);
+        try {
+            final Tree ast = (Tree) parser.query().getTree();
+            return ast.getChild(0);
+        } catch (final RecognitionException e) {
+            // the Expression has already been validated by the ExpressionCompiler, so this is not expected
+            throw new IllegalStateException("Failed to parse embedded Expression " + expression, e);
+        }
+    }
+
+    private static Node buildFunction(final Tree tree, final Node subjectNode, final List<Node> args) {
+        final int argCount = args.size();
+
+        switch (tree.getType()) {
+            case TRIM: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? null : value.trim();
+                });
+            }
+            case TO_STRING:
+                return argCount != 0 ? null : Node.ofString(subjectNode.asString());
+            case TO_LOWER: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? null : value.toLowerCase();
+                });
+            }
+            case TO_UPPER: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? null : value.toUpperCase();
+                });
+            }
+            case SUBSTRING_BEFORE: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator before = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return "";
+                    }
+
+                    final String beforeValue = before.evaluate(attributes);
+                    if (beforeValue == null || beforeValue.isEmpty()) {
+                        return value;
+                    }
+
+                    final int index = value.indexOf(beforeValue);
+                    return index < 0 ? value : value.substring(0, index);
+                });
+            }
+            case SUBSTRING_BEFORE_LAST: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator before = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return "";
+                    }
+
+                    final int index = value.lastIndexOf(before.evaluate(attributes));
+                    return index < 0 ? value : value.substring(0, index);
+                });
+            }
+            case SUBSTRING_AFTER: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator after = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return "";
+                    }
+
+                    final String afterValue = after.evaluate(attributes);
+                    if (afterValue == null || afterValue.isEmpty()) {
+                        return value;
+                    }
+
+                    final int index = value.indexOf(afterValue);
+                    return index < 0 ? value : value.substring(index + afterValue.length());
+                });
+            }
+            case SUBSTRING_AFTER_LAST: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator after = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return "";
+                    }
+
+                    final String afterValue = after.evaluate(attributes);
+                    final int index = value.lastIndexOf(afterValue);
+                    return index < 0 || index >= value.length() ? value : value.substring(index + afterValue.length());
+                });
+            }
+            case REPLACE_NULL: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator replacement = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? replacement.evaluate(attributes) : value;
+                });
+            }
+            case REPLACE_EMPTY: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator replacement = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null || value.trim().isEmpty() ? replacement.evaluate(attributes) : value;
+                });
+            }
+            case REPLACE: {
+                if (argCount != 2) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator search = args.get(0).asString();
+                final DirectEvaluator replacement = args.get(1).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? null : value.replace(search.evaluate(attributes), replacement.evaluate(attributes));
+                });
+            }
+            case APPEND: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator append = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    final String appendValue = append.evaluate(attributes);
+                    return (value == null ? "" : value) + (appendValue == null ? "" : appendValue);
+                });
+            }
+            case PREPEND: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator prepend = args.get(0).asString();
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    final String prependValue = prepend.evaluate(attributes);
+                    return (prependValue == null ? "" : prependValue) + (value == null ? "" : value);
+                });
+            }
+            case SUBSTRING: {
+                // Arguments of any other type are converted to whole numbers by a cast Evaluator, which is not supported here
+                if (argCount < 1 || argCount > 2 || args.stream().anyMatch(arg -> arg.resultType != ResultType.WHOLE_NUMBER)) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final ToLongFunction<Map<String, String>> startIndex = args.get(0).wholeNumberFunction;
+                if (argCount == 1) {
+                    return Node.ofString(attributes -> {
+                        final String value = subject.evaluate(attributes);
+                        return value == null ? "" : value.substring((int) startIndex.applyAsLong(attributes));
+                    });
+                }
+
+                final ToLongFunction<Map<String, String>> endIndex = args.get(1).wholeNumberFunction;
+                return Node.ofString(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? "" : value.substring((int) startIndex.applyAsLong(attributes), (int) endIndex.applyAsLong(attributes));
+                });
+            }
+            case IS_NULL: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofBoolean(attributes -> subject.evaluate(attributes) == null);
+            }
+            case NOT_NULL: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofBoolean(attributes -> subject.evaluate(attributes) != null);
+            }
+            case IS_EMPTY: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofBoolean(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null || value.trim().isEmpty();
+                });
+            }
+            case STARTS_WITH: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator search = args.get(0).asString();
+                return Node.ofBoolean(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return false;
+                    }
+
+                    final String searchValue = search.evaluate(attributes);
+                    return searchValue != null && value.startsWith(searchValue);
+                });
+            }
+            case ENDS_WITH: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator search = args.get(0).asString();
+                return Node.ofBoolean(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return false;
+                    }
+
+                    final String searchValue = search.evaluate(attributes);
+                    return searchValue != null && value.endsWith(searchValue);
+                });
+            }
+            case CONTAINS: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator search = args.get(0).asString();
+                return Node.ofBoolean(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return false;
+                    }
+
+                    final String searchValue = search.evaluate(attributes);
+                    return searchValue != null && value.contains(searchValue);
+                });
+            }
+            case IN: {
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator[] candidates = args.stream().map(Node::asString).toArray(DirectEvaluator[]::new);
+                return Node.ofBoolean(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return false;
+                    }
+
+                    for (final DirectEvaluator candidate : candidates) {
+                        if (value.equals(candidate.evaluate(attributes))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                });
+            }
+            case EQUALS:
+                return argCount != 1 ? null : buildEquals(subjectNode, args.get(0));
+            case EQUALS_IGNORE_CASE: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator compareTo = args.get(0).asString();
+                return Node.ofBoolean(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    if (value == null) {
+                        return false;
+                    }
+
+                    final String compareToValue = compareTo.evaluate(attributes);
+                    return compareToValue != null && value.equalsIgnoreCase(compareToValue);
+                });
+            }
+            case LENGTH: {
+                final DirectEvaluator subject = subjectNode.asString();
+                return argCount != 0 ? null : Node.ofWholeNumber(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? 0L : value.length();
+                });
+            }
+            case INDEX_OF: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator search = args.get(0).asString();
+                return Node.ofWholeNumber(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? -1L : value.indexOf(search.evaluate(attributes));
+                });
+            }
+            case LAST_INDEX_OF: {
+                if (argCount != 1) {
+                    return null;
+                }
+
+                final DirectEvaluator subject = subjectNode.asString();
+                final DirectEvaluator search = args.get(0).asString();
+                return Node.ofWholeNumber(attributes -> {
+                    final String value = subject.evaluate(attributes);
+                    return value == null ? -1L : value.lastIndexOf(search.evaluate(attributes));
+                });
+            }
+            case AND: {
+                // A String is converted to a Boolean by a cast Evaluator, which may return null; this is not supported here
+                if (argCount != 1 || subjectNode.resultType != ResultType.BOOLEAN || args.get(0).resultType != ResultType.BOOLEAN) {
+                    return null;
+                }
+
+                final Predicate<Map<String, String>> subject = subjectNode.booleanFunction;
+                final Predicate<Map<String, String>> rhs = args.get(0).booleanFunction;
+                return Node.ofBoolean(attributes -> subject.test(attributes) && rhs.test(attributes));
+            }
+            case OR: {
+                if (argCount != 1 || subjectNode.resultType != ResultType.BOOLEAN || args.get(0).resultType != ResultType.BOOLEAN) {
+                    return null;
+                }
+
+                final Predicate<Map<String, String>> subject = subjectNode.booleanFunction;
+                final Predicate<Map<String, String>> rhs = args.get(0).booleanFunction;
+                return Node.ofBoolean(attributes -> subject.test(attributes) || rhs.test(attributes));
+            }
+            case NOT: {
+                if (argCount != 0 || subjectNode.resultType != ResultType.BOOLEAN) {
+                    return null;
+                }
+
+                final Predicate<Map<String, String>> subject = subjectNode.booleanFunction;
+                return Node.ofBoolean(attributes -> !subject.test(attributes));
+            }
+            case IF_ELSE: {
+                if (argCount != 2 || subjectNode.resultType != ResultType.BOOLEAN) {
+                    return null;
+                }
+
+                final Predicate<Map<String, String>> subject = subjectNode.booleanFunction;
+                final DirectEvaluator trueValue = args.get(0).asString();
+                final DirectEvaluator falseValue = args.get(1).asString();
+                return Node.ofString(attributes -> subject.test(attributes) ? trueValue.evaluate(attributes) : falseValue.evaluate(attributes));
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static Node buildEquals(final Node subjectNode, final Node compareToNode) {
+        if (subjectNode.resultType == compareToNode.resultType) {
+            switch (subjectNode.resultType) {
+                case BOOLEAN: {
+                    final Predicate<Map<String, String>> subject = subjectNode.booleanFunction;
+                    final Predicate<Map<String, String>> compareTo = compareToNode.booleanFunction;
+                    return Node.ofBoolean(attributes -> subject.test(attributes) == compareTo.test(attributes));
+                }
+                case WHOLE_NUMBER: {
+                    final ToLongFunction<Map<String, String>> subject = subjectNode.wholeNumberFunction;
+                    final ToLongFunction<Map<String, String>> compareTo = compareToNode.wholeNumberFunction;
+                    return Node.ofBoolean(attributes -> subject.applyAsLong(attributes) == compareTo.applyAsLong(attributes));
+                }
+                default:
+                    break;
+            }
+        }
+
+        // Values of different types are compared by their String representations, as the EqualsEvaluator does
+        final DirectEvaluator subject = subjectNode.asString();
+        final DirectEvaluator compareTo = compareToNode.asString();
+        return Node.ofBoolean(attributes -> {
+            final String value = subject.evaluate(attributes);
+            if (value == null) {
+                return false;
+            }
+
+            return value.equals(compareTo.evaluate(attributes));
+        });
+    }
+
+
+    /**
+     * A compiled node of the syntax tree. Exactly one of the functions is set, depending on the node's result type. A constant
+     * node does not depend on the attributes that it is evaluated against.
+     */
+    private static class Node {
+        private final ResultType resultType;
+        private final DirectEvaluator stringFunction;
+        private final Predicate<Map<String, String>> booleanFunction;
+        private final ToLongFunction<Map<String, String>> wholeNumberFunction;
+        private final boolean constant;
+
+        private Node(final ResultType resultType, final DirectEvaluator stringFunction, final Predicate<Map<String, String>> booleanFunction,
+            final ToLongFunction<Map<String, String>> wholeNumberFunction, final boolean constant) {
+            this.resultType = resultType;
+            this.stringFunction = stringFunction;
+            this.booleanFunction = booleanFunction;
+            this.wholeNumberFunction = wholeNumberFunction;
+            this.constant = constant;
+        }
+
+        static Node ofConstant(final String value) {
+            return new Node(ResultType.STRING, attributes -> value, null, null, true);
+        }
+
+        static Node ofConstant(final boolean value) {
+            return new Node(ResultType.BOOLEAN, null, attributes -> value, null, true);
+        }
+
+        static Node ofConstant(final long value) {
+            return new Node(ResultType.WHOLE_NUMBER, null, null, attributes -> value, true);
+        }
+
+        static Node ofString(final DirectEvaluator function) {
+            return new Node(ResultType.STRING, function, null, null, false);
+        }
+
+        static Node ofBoolean(final Predicate<Map<String, String>> function) {
+            return new Node(ResultType.BOOLEAN, null, function, null, false);
+        }
+
+        static Node ofWholeNumber(final ToLongFunction<Map<String, String>> function) {
+            return new Node(ResultType.WHOLE_NUMBER, null, null, function, false);
+        }
+
+        /**
+         * @return a function that returns the value of this node converted to a String, as the StringCastEvaluator would convert it
+         */
+        DirectEvaluator asString() {
+            switch (resultType) {
+                case BOOLEAN:
+                    return attributes -> String.valueOf(booleanFunction.test(attributes));
+                case WHOLE_NUMBER:
+                    return attributes -> String.valueOf(wholeNumberFunction.applyAsLong(attributes));
+                default:
+                    return stringFunction;
+            }
+        }
+    }
+}
@@ -237,7 +237,8 @@ public class ExpressionCompiler {
             final Set<Evaluator<?>> allEvaluators = new HashSet<>(evaluators);
             this.evaluators.clear();
 
-            return new CompiledExpression(expression, evaluator, tree, allEvaluators);
+            final DirectEvaluator directEvaluator = DirectEvaluatorCompiler.compile(tree);
+            return new CompiledExpression(expression, evaluator, tree, allEvaluators, directEvaluator);
         } catch (final AttributeExpressionLanguageParsingException e) {
             throw e;
         } catch (final Exception e) {
@@ -21,14 +21,17 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.nifi.attribute.expression.language.evaluation.DateEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.StringEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.StringQueryResult;
+import org.apache.nifi.attribute.expression.language.evaluation.util.BoundedValueCache;
 
 public class FormatEvaluator extends StringEvaluator {
+    private static final BoundedValueCache<String, AtomicReference<FormattedSecond>> RECENTLY_FORMATTED = new BoundedValueCache<>(100);
 
     private final DateEvaluator subject;
     private final Evaluator<String> format;
@@ -53,17 +56,35 @@ public class FormatEvaluator extends StringEvaluator {
             return null;
         }
 
+        final String tz = timeZone == null ? null : timeZone.evaluate(attributes).getValue();
+
+        // Unless the format includes milliseconds, every Date within the same second is formatted the same way. Dates such as
+        // now() are formatted many times per second, so the most recent result for each format is reused within that second.
+        if (format.indexOf('S') >= 0) {
+            return new StringQueryResult(format(subjectValue, format, tz));
+        }
+
+        final long second = Math.floorDiv(subjectValue.getTime(), 1000L);
+        final String key = tz == null ? format : format + '\u0000' + tz;
+        final AtomicReference<FormattedSecond> recentRef = RECENTLY_FORMATTED.get(key, k -> new AtomicReference<>());
+        final FormattedSecond recent = recentRef.get();
+        if (recent != null && recent.second == second) {
+            return new StringQueryResult(recent.formatted);
+        }
+
+        final String formatted = format(subjectValue, format, tz);
+        recentRef.set(new FormattedSecond(second, formatted));
+        return new StringQueryResult(formatted);
+    }
+
+    private static String format(final Date date, final String format, final String tz) {
         final SimpleDateFormat sdf = new SimpleDateFormat(format, Locale.US);
 
-        if(timeZone != null) {
-            final QueryResult<String> tzResult = timeZone.evaluate(attributes);
-            final String tz = tzResult.getValue();
-            if(tz != null && TimeZone.getTimeZone(tz) != null) {
-                sdf.setTimeZone(TimeZone.getTimeZone(tz));
-            }
+        if(tz != null && TimeZone.getTimeZone(tz) != null) {
+            sdf.setTimeZone(TimeZone.getTimeZone(tz));
         }
 
-        return new StringQueryResult(sdf.format(subjectValue));
+        return sdf.format(date);
     }
 
     @Override
@@ -71,4 +92,13 @@ public class FormatEvaluator extends StringEvaluator {
         return subject;
     }
 
+    private static class FormattedSecond {
+        private final long second;
+        private final String formatted;
+
+        FormattedSecond(final long second, final String formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+    }
 }
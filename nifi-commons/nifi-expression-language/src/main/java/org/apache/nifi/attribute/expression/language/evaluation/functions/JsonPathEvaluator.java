@@ -25,6 +25,7 @@ import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.StringEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.StringQueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.util.BoundedValueCache;
 import org.apache.nifi.attribute.expression.language.exception.AttributeExpressionLanguageException;
 
 import com.jayway.jsonpath.Configuration;
@@ -41,6 +42,12 @@ public class JsonPathEvaluator extends StringEvaluator {
     private static final Configuration STRICT_PROVIDER_CONFIGURATION = Configuration.builder().jsonProvider(new JacksonJsonProvider()).build();
     private static final JsonProvider JSON_PROVIDER = STRICT_PROVIDER_CONFIGURATION.jsonProvider();
 
+    // Evaluators are created for each evaluation, so compiled paths are shared. Parsed documents are shared as well, so that
+    // several expressions that read from the same (small) JSON attribute parse it only once.
+    private static final int MAX_CACHED_DOCUMENT_LENGTH = 8192;
+    private static final BoundedValueCache<String, JsonPath> COMPILED_PATHS = new BoundedValueCache<>(1000);
+    private static final BoundedValueCache<String, DocumentContext> PARSED_DOCUMENTS = new BoundedValueCache<>(64);
+
     private final Evaluator<String> subject;
     private final Evaluator<String> jsonPathExp;
     private final JsonPath precompiledJsonPathExp;
@@ -97,6 +104,14 @@ public class JsonPathEvaluator extends StringEvaluator {
     }
 
     static DocumentContext validateAndEstablishJsonContext(final String json) {
+        if (json.length() <= MAX_CACHED_DOCUMENT_LENGTH) {
+            return PARSED_DOCUMENTS.get(json, JsonPathEvaluator::parse);
+        }
+
+        return parse(json);
+    }
+
+    private static DocumentContext parse(final String json) {
         final DocumentContext ctx = JsonPath.using(STRICT_PROVIDER_CONFIGURATION).parse(json);
         return ctx;
     }
@@ -116,6 +131,11 @@ public class JsonPathEvaluator extends StringEvaluator {
     }
 
     static JsonPath compileJsonPathExpression(String exp) {
+        // a null expression cannot be used as a key; compiling it fails with the usual Exception
+        return exp == null ? compile(exp) : COMPILED_PATHS.get(exp, JsonPathEvaluator::compile);
+    }
+
+    private static JsonPath compile(final String exp) {
         try {
             return JsonPath.compile(exp);
         } catch (Exception e) {
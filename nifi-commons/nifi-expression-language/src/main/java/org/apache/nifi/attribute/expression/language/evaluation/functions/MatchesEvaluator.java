@@ -24,6 +24,7 @@ import org.apache.nifi.attribute.expression.language.evaluation.BooleanQueryResu
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.util.CompiledPatterns;
 
 public class MatchesEvaluator extends BooleanEvaluator {
 
@@ -39,7 +40,7 @@ public class MatchesEvaluator extends BooleanEvaluator {
         // if the search string is a literal, we don't need to evaluate it each time; we can just
         // pre-compile it. Otherwise, it must be compiled every time.
         if (search instanceof StringLiteralEvaluator) {
-            this.compiledPattern = Pattern.compile(search.evaluate(null).getValue());
+            this.compiledPattern = CompiledPatterns.compile(search.evaluate(null).getValue());
         } else {
             this.compiledPattern = null;
         }
@@ -53,7 +54,7 @@ public class MatchesEvaluator extends BooleanEvaluator {
         }
         final Pattern pattern;
         if (compiledPattern == null) {
-            pattern = Pattern.compile(search.evaluate(attributes).getValue());
+            pattern = CompiledPatterns.compile(search.evaluate(attributes).getValue());
         } else {
             pattern = compiledPattern;
         }
@@ -21,6 +21,7 @@ import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
 import org.apache.nifi.attribute.expression.language.evaluation.StringEvaluator;
 import org.apache.nifi.attribute.expression.language.evaluation.StringQueryResult;
+import org.apache.nifi.attribute.expression.language.evaluation.util.CompiledPatterns;
 
 public class ReplaceFirstEvaluator extends StringEvaluator {
 
@@ -43,7 +44,7 @@ public class ReplaceFirstEvaluator extends StringEvaluator {
         final String searchValue = search.evaluate(attributes).getValue();
         final String replacementValue = replacement.evaluate(attributes).getValue();
 
-        return new StringQueryResult(subjectValue.replaceFirst(searchValue, replacementValue));
+        return new StringQueryResult(CompiledPatterns.compile(searchValue).matcher(subjectValue).replaceFirst(replacementValue));
     }
 
     @Override
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.attribute.expression.language.evaluation.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A small, thread-safe cache of values that are expensive to compute, such as compiled regular expressions. Because
+ * Evaluators are created anew each time that an Expression is evaluated, values that an Evaluator computes once per
+ * instance are otherwise computed once per evaluation.
+ * </p>
+ *
+ * <p>
+ * Looking up a value does not require a lock. The cache holds at most the given number of values: when it is full, it is
+ * cleared before another value is added, which is cheap and, for the handful of distinct keys that a flow typically uses,
+ * happens rarely.
+ * </p>
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+public class BoundedValueCache<K, V> {
+    private final int maxSize;
+    private final ConcurrentMap<K, V> values = new ConcurrentHashMap<>();
+
+    public BoundedValueCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the value for the given key, computing it if it is not already cached. If the computation throws an
+     * Exception, the Exception is propagated and nothing is cached.
+     *
+     * @param key the key
+     * @param computation the function that computes the value for a key; must not return <code>null</code>
+     * @return the value for the given key
+     */
+    public V get(final K key, final Function<K, V> computation) {
+        final V cached = values.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final V computed = computation.apply(key);
+        if (values.size() >= maxSize) {
+            values.clear();
+        }
+        values.putIfAbsent(key, computed);
+        return computed;
+    }
+
+    /**
+     * @return the number of values currently cached
+     */
+    public int size() {
+        return values.size();
+    }
+}
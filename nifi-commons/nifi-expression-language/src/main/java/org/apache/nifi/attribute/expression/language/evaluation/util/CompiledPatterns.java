@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.attribute.expression.language.evaluation.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the regular expressions used by functions such as <code>replaceAll</code> and <code>matches</code>, reusing
+ * the Pattern that was compiled the last time that the same regular expression was used.
+ */
+public class CompiledPatterns {
+    private static final BoundedValueCache<String, Pattern> PATTERNS = new BoundedValueCache<>(1000);
+
+    /**
+     * @param regex the regular expression to compile
+     * @return the compiled regular expression, as {@link Pattern#compile(String)} would return
+     */
+    public static Pattern compile(final String regex) {
+        return PATTERNS.get(regex, Pattern::compile);
+    }
+}
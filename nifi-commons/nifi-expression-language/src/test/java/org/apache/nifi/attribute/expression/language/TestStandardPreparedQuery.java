@@ -18,19 +18,200 @@ package org.apache.nifi.attribute.expression.language;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.nifi.attribute.expression.language.compile.CompiledExpression;
+import org.apache.nifi.attribute.expression.language.compile.ExpressionCompiler;
+import org.apache.nifi.registry.VariableDescriptor;
+import org.apache.nifi.registry.VariableRegistry;
 import org.junit.Ignore;
 import org.junit.Test;
 
 public class TestStandardPreparedQuery {
 
+    // Expressions of the kind that are commonly used to route on, and to update, attributes and file names
+    private static final List<String> DIRECT_EXPRESSIONS = Arrays.asList(
+        "${filename}",
+        "${filename:toUpper()}",
+        "${filename:substringBeforeLast('.')}",
+        "${filename:substringAfterLast('.'):toLower()}",
+        "${filename:substringBefore('.'):append('-'):append(${uuid})}",
+        "${filename:substringAfter('.')}",
+        "${path:prepend('/data/'):append('/'):append(${filename})}",
+        "${mime.type:startsWith('text/')}",
+        "${mime.type:endsWith('json'):or(${mime.type:endsWith('xml')})}",
+        "${filename:contains('report'):and(${filename:endsWith('.csv')}):not()}",
+        "${kafka.topic:in('orders', 'payments', 'refunds')}",
+        "${http.method:equalsIgnoreCase('post')}",
+        "${http.method:equals('GET')}",
+        "${missing:isNull()}",
+        "${missing:notNull()}",
+        "${missing:isEmpty()}",
+        "${missing:replaceNull('default')}",
+        "${blank:replaceEmpty('default')}",
+        "${filename:length():equals(14)}",
+        "${filename:length()}",
+        "${filename:indexOf('_')}",
+        "${filename:lastIndexOf('.')}",
+        "${filename:substring(0, 6)}",
+        "${filename:substring(7)}",
+        "${filename:replace('_', '-')}",
+        "${filename:trim():toString()}",
+        "${mime.type:equals('text/csv'):ifElse('csv', 'other')}",
+        "${${attr.name}}",
+        "${'quoted name'}",
+        "${filename:equals('${other.name}')}",
+        "${literal.flag:equals(true)}",
+        "${missing:equals(${also.missing})}");
+
+    @Test
+    public void testDirectEvaluationMatchesEvaluators() {
+        final Map<String, String> attributes = createAttributes();
+        final Map<String, String> emptyAttributes = new HashMap<>();
+
+        for (final String expression : DIRECT_EXPRESSIONS) {
+            final CompiledExpression compiled = new ExpressionCompiler().compile(expression);
+            assertNotNull("Expected " + expression + " to be evaluated directly", compiled.getDirectEvaluator());
+
+            assertEquals(expression, Query.evaluateExpression(compiled.getTree(), expression, attributes, null, null),
+                Query.evaluateExpression(compiled.getDirectEvaluator(), attributes, null));
+
+            // substring() and lastIndexOf() fail for missing attributes regardless of how they are evaluated
+            if (!expression.contains("substring(") && !expression.contains("substringBeforeLast") && !expression.contains("substringAfterLast")) {
+                assertEquals(expression, Query.evaluateExpression(compiled.getTree(), expression, emptyAttributes, null, null),
+                    Query.evaluateExpression(compiled.getDirectEvaluator(), emptyAttributes, null));
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupportedExpressionsAreEvaluatedByEvaluators() {
+        final Map<String, String> attributes = createAttributes();
+
+        for (final String expression : Arrays.asList("${now():format('yyyy')}", "${filename:matches('report_.*')}", "${allAttributes('filename', 'path'):join(',')}",
+            "${filename:length():plus(1)}", "${literal.flag:and(true)}", "${filename:substring('0')}")) {
+            assertNull(expression, new ExpressionCompiler().compile(expression).getDirectEvaluator());
+        }
+
+        assertEquals("true", evaluate("${filename:matches('report_.*')}", attributes));
+        assertEquals("report_01.csv,in", evaluate("${allAttributes('filename', 'path'):join(',')}", attributes));
+        assertEquals("prefix report_01.csv!", evaluate("prefix ${filename:matches('report_.*'):ifElse(${filename}, 'none')}!", attributes));
+    }
+
+    @Test
+    public void testConstantSubExpressionsAreFolded() {
+        final Map<String, String> attributes = createAttributes();
+
+        for (final String expression : Arrays.asList("${hostname():toUpper()}", "${hostname(true):length()}", "${ip()}", "${literal('report'):append('_01'):equals('report_01')}",
+            "${filename:startsWith(${literal('rep'):toLower()})}", "${literal(${literal.flag})}", "${'${literal(\"nested\")}':toUpper()}")) {
+            final CompiledExpression compiled = new ExpressionCompiler().compile(expression);
+            assertNotNull("Expected " + expression + " to be evaluated directly", compiled.getDirectEvaluator());
+            assertEquals(expression, Query.evaluateExpression(compiled.getTree(), expression, attributes, null, null),
+                Query.evaluateExpression(compiled.getDirectEvaluator(), attributes, null));
+        }
+
+        // a constant sub-expression that fails must still fail when the Expression is evaluated
+        final CompiledExpression failing = new ExpressionCompiler().compile("${literal('abc'):substring(5)}");
+        assertNotNull(failing.getDirectEvaluator());
+        try {
+            failing.getDirectEvaluator().evaluate(attributes);
+            fail("Expected substring() of a short literal to fail");
+        } catch (final StringIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void testVariableOnlyResultsAreInvalidatedWhenVariablesChange() {
+        final Map<VariableDescriptor, String> variables = new HashMap<>();
+        variables.put(new VariableDescriptor("greeting"), "hello");
+        variables.put(new VariableDescriptor("name"), "world");
+        final VariableRegistry registry = () -> variables;
+
+        final PreparedQuery prepared = Query.prepare("${greeting:toUpper()}, ${name:matches('w.*'):ifElse(${name}, 'nobody')}!");
+        assertEquals("HELLO, world!", prepared.evaluateExpressions(new ValueLookup(registry, null), null));
+        assertEquals("HELLO, world!", prepared.evaluateExpressions(new ValueLookup(registry, null), null));
+        assertEquals("<HELLO>, <world>!", prepared.evaluateExpressions(new ValueLookup(registry, null), value -> "<" + value + ">"));
+
+        variables.put(new VariableDescriptor("name"), "wally");
+        assertEquals("HELLO, wally!", prepared.evaluateExpressions(new ValueLookup(registry, null), null));
+
+        variables.put(new VariableDescriptor("name"), "nemo");
+        variables.put(new VariableDescriptor("greeting"), "hi");
+        assertEquals("HI, nobody!", prepared.evaluateExpressions(new ValueLookup(registry, null), null));
+
+        // attributes of a FlowFile take precedence over variables, so results that are evaluated against attributes are never cached
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("greeting", "hey");
+        assertEquals("HEY, nobody!", prepared.evaluateExpressions(new ValueLookup(registry, null, attributes), null));
+        assertEquals("HI, nobody!", prepared.evaluateExpressions(new ValueLookup(registry, null), null));
+    }
+
+    @Test
+    public void testNonDeterministicResultsAreNotCached() {
+        final PreparedQuery prepared = Query.prepare("${random()}");
+        final Set<String> results = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(prepared.evaluateExpressions(new ValueLookup(VariableRegistry.EMPTY_REGISTRY, null), null));
+        }
+        assertTrue(results.size() > 1);
+    }
+
+    private Map<String, String> createAttributes() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "report_01.csv");
+        attributes.put("path", "in");
+        attributes.put("uuid", "d5f8c3a6-44a0-4ff7-9cbe-15d1a7ad8d32");
+        attributes.put("mime.type", "text/csv");
+        attributes.put("kafka.topic", "payments");
+        attributes.put("http.method", "POST");
+        attributes.put("blank", "  ");
+        attributes.put("attr.name", "path");
+        attributes.put("quoted name", "quoted");
+        attributes.put("other.name", "report_01.csv");
+        attributes.put("literal.flag", "true");
+        return attributes;
+    }
+
+    @Test
+    @Ignore("Intended for manual performance testing; should not be run in an automated environment")
+    public void testDirectEvaluationPerformance() {
+        final Map<String, String> attributes = createAttributes();
+        final int iterations = 1_000_000;
+
+        for (final String expression : DIRECT_EXPRESSIONS) {
+            final CompiledExpression compiled = new ExpressionCompiler().compile(expression);
+
+            for (int warmup = 0; warmup < 2; warmup++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    Query.evaluateExpression(compiled.getTree(), expression, attributes, null, null);
+                }
+                final long evaluatorNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    Query.evaluateExpression(compiled.getDirectEvaluator(), attributes, null);
+                }
+                final long directNanos = System.nanoTime() - start;
+
+                if (warmup == 1) {
+                    System.out.println(String.format("%-90s evaluators: %5d ns/op, direct: %4d ns/op", expression, evaluatorNanos / iterations, directNanos / iterations));
+                }
+            }
+        }
+    }
+
     @Test
     public void testSimpleReference() {
         final Map<String, String> attrs = new HashMap<>();
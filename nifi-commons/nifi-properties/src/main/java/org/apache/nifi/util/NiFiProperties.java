@@ -77,6 +77,8 @@ public abstract class NiFiProperties {
     public static final String PERSISTENT_STATE_DIRECTORY = "nifi.persistent.state.directory";
     public static final String BORED_YIELD_DURATION = "nifi.bored.yield.duration";
     public static final String PROCESSOR_SCHEDULING_TIMEOUT = "nifi.processor.scheduling.timeout";
+    public static final String PROCESSOR_BATCHING_ADAPTIVE = "nifi.processor.batching.adaptive";
+    public static final String PROCESSOR_BATCHING_LATENCY_TARGET = "nifi.processor.batching.latency.target";
 
     // content repository properties
     public static final String REPOSITORY_CONTENT_PREFIX = "nifi.content.repository.directory.";
@@ -96,8 +98,11 @@ public abstract class NiFiProperties {
     public static final String FLOWFILE_REPOSITORY_DIRECTORY = "nifi.flowfile.repository.directory";
     public static final String FLOWFILE_REPOSITORY_PARTITIONS = "nifi.flowfile.repository.partitions";
     public static final String FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL = "nifi.flowfile.repository.checkpoint.interval";
+    public static final String FLOWFILE_REPOSITORY_WAL_IMPLEMENTATION = "nifi.flowfile.repository.wal.implementation";
+    public static final String FLOWFILE_REPOSITORY_WAL_JOURNALS = "nifi.flowfile.repository.wal.journals";
     public static final String FLOWFILE_SWAP_MANAGER_IMPLEMENTATION = "nifi.swap.manager.implementation";
     public static final String QUEUE_SWAP_THRESHOLD = "nifi.queue.swap.threshold";
+    public static final String QUEUE_IMPLEMENTATION = "nifi.queue.implementation";
     public static final String SWAP_IN_THREADS = "nifi.swap.in.threads";
     public static final String SWAP_IN_PERIOD = "nifi.swap.in.period";
     public static final String SWAP_OUT_THREADS = "nifi.swap.out.threads";
@@ -230,9 +235,12 @@ public abstract class NiFiProperties {
     public static final String DEFAULT_NAR_LIBRARY_DIR = "./lib";
     public static final String DEFAULT_FLOWFILE_REPO_PARTITIONS = "256";
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "2 min";
+    public static final String DEFAULT_FLOWFILE_REPO_WAL_IMPLEMENTATION = "org.wali.MinimalLockingWriteAheadLog";
+    public static final String DEFAULT_FLOWFILE_REPO_WAL_JOURNALS = "4";
     public static final int DEFAULT_MAX_FLOWFILES_PER_CLAIM = 100;
     public static final String DEFAULT_MAX_APPENDABLE_CLAIM_SIZE = "1 MB";
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
+    public static final String DEFAULT_QUEUE_IMPLEMENTATION = "org.apache.nifi.controller.StandardFlowFileQueue";
     public static final String DEFAULT_SWAP_STORAGE_LOCATION = "./flowfile_repository/swap";
     public static final String DEFAULT_SWAP_IN_PERIOD = "1 sec";
     public static final String DEFAULT_SWAP_OUT_PERIOD = "5 sec";
@@ -242,6 +250,7 @@ public abstract class NiFiProperties {
     public static final String DEFAULT_PERSISTENT_STATE_DIRECTORY = "./conf/state";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
     public static final String DEFAULT_BORED_YIELD_DURATION = "10 millis";
+    public static final String DEFAULT_PROCESSOR_BATCHING_LATENCY_TARGET = "50 millis";
     public static final String DEFAULT_ZOOKEEPER_CONNECT_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_SESSION_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_ROOT_NODE = "/nifi";
@@ -337,6 +346,13 @@ public abstract class NiFiProperties {
         }
     }
 
+    /**
+     * @return the fully qualified class name of the FlowFileQueue implementation that new connections should use
+     */
+    public String getQueueImplementation() {
+        return getProperty(QUEUE_IMPLEMENTATION, DEFAULT_QUEUE_IMPLEMENTATION).trim();
+    }
+
     public Integer getIntegerProperty(final String propertyName, final Integer defaultValue) {
         final String value = getProperty(propertyName);
         if (value == null || value.trim().isEmpty()) {
@@ -496,6 +512,26 @@ public abstract class NiFiProperties {
         return Integer.parseInt(rawProperty);
     }
 
+    /**
+     * @return the fully qualified class name of the Write-Ahead Log implementation that the FlowFile Repository should use
+     */
+    public String getFlowFileRepositoryWalImplementation() {
+        return getProperty(FLOWFILE_REPOSITORY_WAL_IMPLEMENTATION, DEFAULT_FLOWFILE_REPO_WAL_IMPLEMENTATION).trim();
+    }
+
+    /**
+     * Returns the number of journals that should be used for the FlowFile
+     * Repository, if its Write-Ahead Log implementation uses journals rather
+     * than partitions
+     *
+     * @return the number of journals
+     */
+    public int getFlowFileRepositoryWalJournals() {
+        final String rawProperty = getProperty(FLOWFILE_REPOSITORY_WAL_JOURNALS,
+                DEFAULT_FLOWFILE_REPO_WAL_JOURNALS);
+        return Integer.parseInt(rawProperty.trim());
+    }
+
     /**
      * Returns the number of milliseconds between FlowFileRepository
      * checkpointing
@@ -1052,6 +1088,22 @@ public abstract class NiFiProperties {
         return getProperty(BORED_YIELD_DURATION, DEFAULT_BORED_YIELD_DURATION);
     }
 
+    /**
+     * @return <code>true</code> if the framework should decide how many times to trigger a Processor that supports batching
+     *         before committing its session, rather than using the Processor's run duration
+     */
+    public boolean isProcessorBatchingAdaptive() {
+        return Boolean.parseBoolean(getProperty(PROCESSOR_BATCHING_ADAPTIVE, "false").trim());
+    }
+
+    /**
+     * @return the longest that a batch should take, including committing the session, for a Processor whose batches are sized
+     *         adaptively and that does not have a run duration of its own
+     */
+    public String getProcessorBatchingLatencyTarget() {
+        return getProperty(PROCESSOR_BATCHING_LATENCY_TARGET, DEFAULT_PROCESSOR_BATCHING_LATENCY_TARGET);
+    }
+
     public File getStateManagementConfigFile() {
         return new File(getProperty(STATE_MANAGEMENT_CONFIG_FILE, DEFAULT_STATE_MANAGEMENT_CONFIG_FILE));
     }
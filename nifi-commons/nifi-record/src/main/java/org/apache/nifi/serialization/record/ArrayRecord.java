@@ -0,0 +1,548 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.nifi.serialization.SchemaValidationException;
+import org.apache.nifi.serialization.record.ArrayRecordLayout.Storage;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+
+/**
+ * <p>
+ * A Record whose values are held in arrays that are ordered like the fields of its schema, rather than in a Map that
+ * is keyed by field name. Values of INT, LONG, DOUBLE, and BOOLEAN fields are held as primitives, so that they are not
+ * boxed unless they are retrieved as Objects. The position of each field, and how each field's values are converted,
+ * is determined once per schema by an {@link ArrayRecordLayout}.
+ * </p>
+ *
+ * <p>
+ * An ArrayRecord is always type-checked: any value that is set is converted into the data type of its field. Fields
+ * that are not part of the schema are always dropped. Code that knows the schema of the Record may access values by
+ * the index of the field in the schema, using {@link #getValue(int)} and the primitive accessors such as
+ * {@link #getLong(int)}, in order to avoid looking up the field by name.
+ * </p>
+ */
+public class ArrayRecord implements Record {
+    // Marks that the value of a field that is held as a primitive has been set
+    private static final Object PRIMITIVE = new Object();
+
+    private ArrayRecordLayout layout;
+    private Object[] values;
+    private long[] primitives;
+    private Optional<SerializedForm> serializedForm;
+
+    public ArrayRecord(final ArrayRecordLayout layout) {
+        this(layout, null);
+    }
+
+    public ArrayRecord(final ArrayRecordLayout layout, final SerializedForm serializedForm) {
+        this.layout = Objects.requireNonNull(layout);
+        this.values = new Object[layout.getFieldCount()];
+        this.primitives = new long[layout.getFieldCount()];
+        this.serializedForm = Optional.ofNullable(serializedForm);
+    }
+
+    public ArrayRecordLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Ensures that every field of the schema that is not nullable has a value
+     *
+     * @throws SchemaValidationException if a field that is not nullable has no value
+     */
+    public void checkRequiredFields() {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null && !layout.getField(i).isNullable()) {
+                throw new SchemaValidationException("Field " + layout.getField(i).getFieldName() + " cannot be null");
+            }
+        }
+    }
+
+    @Override
+    public boolean isDropUnknownFields() {
+        return true;
+    }
+
+    @Override
+    public boolean isTypeChecked() {
+        return true;
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return layout.getSchema();
+    }
+
+    @Override
+    public Object[] getValues() {
+        final Object[] values = new Object[this.values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getValue(i);
+        }
+        return values;
+    }
+
+    private Object getExplicitValue(final int index) {
+        final Object value = values[index];
+        if (value != PRIMITIVE) {
+            return value;
+        }
+
+        final long primitive = primitives[index];
+        switch (layout.getStorage(index)) {
+            case INT:
+                return Integer.valueOf((int) primitive);
+            case LONG:
+                return Long.valueOf(primitive);
+            case DOUBLE:
+                return Double.valueOf(Double.longBitsToDouble(primitive));
+            case BOOLEAN:
+                return Boolean.valueOf(primitive != 0L);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param index the index of the field in the schema
+     * @return the value of the field, or the field's default value if the field has no value
+     */
+    public Object getValue(final int index) {
+        final Object value = getExplicitValue(index);
+        if (value != null) {
+            return value;
+        }
+
+        return layout.getField(index).getDefaultValue();
+    }
+
+    /**
+     * @param index the index of the field in the schema
+     * @return <code>true</code> if neither the field nor its default value is set
+     */
+    public boolean isNull(final int index) {
+        return values[index] == null && layout.getField(index).getDefaultValue() == null;
+    }
+
+    public int getInt(final int index) {
+        if (values[index] == PRIMITIVE && layout.getStorage(index) == Storage.INT) {
+            return (int) primitives[index];
+        }
+
+        return requireNonNull(DataTypeUtils.toInteger(getValue(index), getFieldName(index)), index);
+    }
+
+    public long getLong(final int index) {
+        if (values[index] == PRIMITIVE) {
+            final Storage storage = layout.getStorage(index);
+            if (storage == Storage.LONG || storage == Storage.INT) {
+                return primitives[index];
+            }
+        }
+
+        return requireNonNull(DataTypeUtils.toLong(getValue(index), getFieldName(index)), index);
+    }
+
+    public double getDouble(final int index) {
+        if (values[index] == PRIMITIVE && layout.getStorage(index) == Storage.DOUBLE) {
+            return Double.longBitsToDouble(primitives[index]);
+        }
+
+        return requireNonNull(DataTypeUtils.toDouble(getValue(index), getFieldName(index)), index);
+    }
+
+    public boolean getBoolean(final int index) {
+        if (values[index] == PRIMITIVE && layout.getStorage(index) == Storage.BOOLEAN) {
+            return primitives[index] != 0L;
+        }
+
+        return requireNonNull(DataTypeUtils.toBoolean(getValue(index), getFieldName(index)), index);
+    }
+
+    private <T> T requireNonNull(final T value, final int index) {
+        if (value == null) {
+            throw new IllegalTypeConversionException("Cannot convert value of field " + getFieldName(index) + " to a primitive because the field has no value");
+        }
+
+        return value;
+    }
+
+    private String getFieldName(final int index) {
+        return layout.getField(index).getFieldName();
+    }
+
+    @Override
+    public Object getValue(final String fieldName) {
+        final int index = layout.getIndex(fieldName);
+        return index < 0 ? null : getValue(index);
+    }
+
+    @Override
+    public Object getValue(final RecordField field) {
+        int index = layout.getIndex(field.getFieldName());
+        if (index < 0) {
+            for (final String alias : field.getAliases()) {
+                index = layout.getIndex(alias);
+                if (index >= 0) {
+                    break;
+                }
+            }
+        }
+
+        final Object explicitValue = index < 0 ? null : getExplicitValue(index);
+        if (explicitValue != null) {
+            return explicitValue;
+        }
+
+        final Object defaultValue = field.getDefaultValue();
+        if (defaultValue != null) {
+            return defaultValue;
+        }
+
+        return index < 0 ? null : layout.getField(index).getDefaultValue();
+    }
+
+    @Override
+    public String getAsString(final String fieldName) {
+        final int index = layout.getIndex(fieldName);
+        if (index < 0) {
+            return null;
+        }
+
+        return convertToString(getValue(index), layout.getField(index).getDataType().getFormat());
+    }
+
+    @Override
+    public String getAsString(final String fieldName, final String format) {
+        return convertToString(getValue(fieldName), format);
+    }
+
+    @Override
+    public String getAsString(final RecordField field, final String format) {
+        return convertToString(getValue(field), format);
+    }
+
+    private String convertToString(final Object value, final String format) {
+        if (value == null) {
+            return null;
+        }
+
+        return DataTypeUtils.toString(value, format);
+    }
+
+    @Override
+    public Long getAsLong(final String fieldName) {
+        return DataTypeUtils.toLong(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Integer getAsInt(final String fieldName) {
+        return DataTypeUtils.toInteger(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Double getAsDouble(final String fieldName) {
+        return DataTypeUtils.toDouble(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Float getAsFloat(final String fieldName) {
+        return DataTypeUtils.toFloat(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Record getAsRecord(final String fieldName, final RecordSchema schema) {
+        return DataTypeUtils.toRecord(getValue(fieldName), schema, fieldName);
+    }
+
+    @Override
+    public Boolean getAsBoolean(final String fieldName) {
+        return DataTypeUtils.toBoolean(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Date getAsDate(final String fieldName, final String format) {
+        return DataTypeUtils.toDate(getValue(fieldName), () -> DataTypeUtils.getDateFormat(format), fieldName);
+    }
+
+    @Override
+    public Object[] getAsArray(final String fieldName) {
+        return DataTypeUtils.toArray(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Optional<SerializedForm> getSerializedForm() {
+        return serializedForm;
+    }
+
+    @Override
+    public void setValue(final String fieldName, final Object value) {
+        final int index = layout.getIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        setValue(index, value);
+    }
+
+    /**
+     * Updates the value of the field at the given index, converting the value into the field's data type
+     *
+     * @param index the index of the field in the schema
+     * @param value the new value, or <code>null</code> to clear the field
+     */
+    public void setValue(final int index, final Object value) {
+        if (value == null) {
+            if (values[index] != null) {
+                values[index] = null;
+                serializedForm = Optional.empty();
+            }
+            return;
+        }
+
+        switch (layout.getStorage(index)) {
+            case INT:
+                setInt(index, value instanceof Integer ? (Integer) value : DataTypeUtils.toInteger(value, getFieldName(index)));
+                return;
+            case LONG:
+                setLong(index, value instanceof Long ? (Long) value : DataTypeUtils.toLong(value, getFieldName(index)));
+                return;
+            case DOUBLE:
+                setDouble(index, value instanceof Double ? (Double) value : DataTypeUtils.toDouble(value, getFieldName(index)));
+                return;
+            case BOOLEAN:
+                setBoolean(index, value instanceof Boolean ? (Boolean) value : DataTypeUtils.toBoolean(value, getFieldName(index)));
+                return;
+            default:
+                final Object coerced = layout.convert(index, value);
+                if (!Objects.equals(coerced, values[index])) {
+                    values[index] = coerced;
+                    serializedForm = Optional.empty();
+                }
+        }
+    }
+
+    public void setInt(final int index, final int value) {
+        if (layout.getStorage(index) != Storage.INT && layout.getStorage(index) != Storage.LONG) {
+            setValue(index, Integer.valueOf(value));
+            return;
+        }
+
+        setPrimitive(index, value);
+    }
+
+    public void setLong(final int index, final long value) {
+        if (layout.getStorage(index) != Storage.LONG) {
+            setValue(index, Long.valueOf(value));
+            return;
+        }
+
+        setPrimitive(index, value);
+    }
+
+    public void setDouble(final int index, final double value) {
+        if (layout.getStorage(index) != Storage.DOUBLE) {
+            setValue(index, Double.valueOf(value));
+            return;
+        }
+
+        setPrimitive(index, Double.doubleToLongBits(value));
+    }
+
+    public void setBoolean(final int index, final boolean value) {
+        if (layout.getStorage(index) != Storage.BOOLEAN) {
+            setValue(index, Boolean.valueOf(value));
+            return;
+        }
+
+        setPrimitive(index, value ? 1L : 0L);
+    }
+
+    private void setPrimitive(final int index, final long value) {
+        if (values[index] == PRIMITIVE && primitives[index] == value) {
+            return;
+        }
+
+        values[index] = PRIMITIVE;
+        primitives[index] = value;
+        serializedForm = Optional.empty();
+    }
+
+    @Override
+    public void setArrayValue(final String fieldName, final int arrayIndex, final Object value) {
+        final int index = layout.getIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        final DataType dataType = layout.getField(index).getDataType();
+        if (dataType.getFieldType() != RecordFieldType.ARRAY) {
+            throw new IllegalTypeConversionException("Cannot set the value of an array index on Record because the field '" + fieldName
+                + "' is of type '" + dataType + "' and cannot be coerced into an ARRAY type");
+        }
+
+        final Object arrayObject = values[index];
+        if (!(arrayObject instanceof Object[])) {
+            return;
+        }
+
+        final Object[] array = (Object[]) arrayObject;
+        if (arrayIndex >= array.length) {
+            return;
+        }
+
+        final DataType elementType = ((ArrayDataType) dataType).getElementType();
+        final Object coerced = DataTypeUtils.convertType(value, elementType, fieldName);
+
+        if (!Objects.equals(coerced, array[arrayIndex])) {
+            array[arrayIndex] = coerced;
+            serializedForm = Optional.empty();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setMapValue(final String fieldName, final String mapKey, final Object value) {
+        final int index = layout.getIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        final DataType dataType = layout.getField(index).getDataType();
+        if (dataType.getFieldType() != RecordFieldType.MAP) {
+            throw new IllegalTypeConversionException("Cannot set the value of map entry on Record because the field '" + fieldName
+                + "' is of type '" + dataType + "' and cannot be coerced into an MAP type");
+        }
+
+        Object mapObject = values[index];
+        if (mapObject == null) {
+            mapObject = new HashMap<String, Object>();
+            values[index] = mapObject;
+        }
+        if (!(mapObject instanceof Map)) {
+            return;
+        }
+
+        final Map<String, Object> map = (Map<String, Object>) mapObject;
+        final DataType valueDataType = ((MapDataType) dataType).getValueType();
+        final Object coerced = DataTypeUtils.convertType(value, valueDataType, fieldName);
+
+        final Object replaced = map.put(mapKey, coerced);
+        if (replaced == null || !replaced.equals(coerced)) {
+            serializedForm = Optional.empty();
+        }
+    }
+
+    /**
+     * Merges the given schema into this Record's schema. Because the values of an ArrayRecord are laid out according to
+     * its schema, this moves the values into a new layout for the merged schema.
+     */
+    @Override
+    public void incorporateSchema(final RecordSchema other) {
+        final RecordSchema merged = DataTypeUtils.merge(getSchema(), other);
+        final ArrayRecordLayout previousLayout = layout;
+        final Object[] previousValues = getExplicitValues();
+
+        layout = new ArrayRecordLayout(merged);
+        values = new Object[layout.getFieldCount()];
+        primitives = new long[layout.getFieldCount()];
+
+        final Optional<SerializedForm> previousSerializedForm = serializedForm;
+        for (int i = 0; i < previousValues.length; i++) {
+            if (previousValues[i] != null) {
+                setValue(previousLayout.getField(i).getFieldName(), previousValues[i]);
+            }
+        }
+        serializedForm = previousSerializedForm;
+    }
+
+    private Object[] getExplicitValues() {
+        final Object[] explicitValues = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            explicitValues[i] = getExplicitValue(i);
+        }
+        return explicitValues;
+    }
+
+    @Override
+    public Set<String> getRawFieldNames() {
+        final Set<String> fieldNames = new LinkedHashSet<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                fieldNames.add(getFieldName(i));
+            }
+        }
+        return fieldNames;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 31 + 7 * getSchema().hashCode();
+        for (int i = 0; i < values.length; i++) {
+            hash = 41 * hash + Objects.hashCode(getExplicitValue(i));
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof ArrayRecord)) {
+            return false;
+        }
+        final ArrayRecord other = (ArrayRecord) obj;
+        if (!getSchema().equals(other.getSchema())) {
+            return false;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (!Objects.equals(getExplicitValue(i), other.getExplicitValue(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        final Map<String, Object> explicitValues = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                explicitValues.put(getFieldName(i), getExplicitValue(i));
+            }
+        }
+        return "ArrayRecord[" + explicitValues + "]";
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+
+/**
+ * <p>
+ * Describes how the fields of a {@link RecordSchema} are laid out in an {@link ArrayRecord}: the position of each field
+ * (by name and by alias), whether the field's values are held as primitives, and what type a value must already have
+ * in order to be stored without being converted. All of this is determined once for a schema, so that a Record Reader
+ * that creates many Records with the same schema should create a single layout and use it for each of them.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and thread-safe.
+ * </p>
+ */
+public class ArrayRecordLayout {
+
+    /**
+     * How the values of a field are held in an {@link ArrayRecord}
+     */
+    enum Storage {
+        OBJECT,
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN;
+    }
+
+    private final RecordSchema schema;
+    private final RecordField[] fields;
+    private final Storage[] storage;
+    private final Class<?>[] storedTypes;
+    private final Map<String, Integer> indices;
+
+    public ArrayRecordLayout(final RecordSchema schema) {
+        this.schema = Objects.requireNonNull(schema);
+
+        final List<RecordField> schemaFields = schema.getFields();
+        final int fieldCount = schemaFields.size();
+        this.fields = schemaFields.toArray(new RecordField[fieldCount]);
+        this.storage = new Storage[fieldCount];
+        this.storedTypes = new Class<?>[fieldCount];
+        this.indices = new HashMap<>(fieldCount * 2);
+
+        for (int i = 0; i < fieldCount; i++) {
+            final DataType dataType = fields[i].getDataType();
+            storage[i] = getStorage(dataType);
+            storedTypes[i] = getConvertedType(dataType);
+            indices.put(fields[i].getFieldName(), i);
+        }
+
+        // A field name always takes precedence over an alias of another field
+        for (int i = 0; i < fieldCount; i++) {
+            for (final String alias : fields[i].getAliases()) {
+                indices.putIfAbsent(alias, i);
+            }
+        }
+    }
+
+    private static Storage getStorage(final DataType dataType) {
+        switch (dataType.getFieldType()) {
+            case INT:
+                return Storage.INT;
+            case LONG:
+                return Storage.LONG;
+            case DOUBLE:
+                return Storage.DOUBLE;
+            case BOOLEAN:
+                return Storage.BOOLEAN;
+            default:
+                return Storage.OBJECT;
+        }
+    }
+
+    /**
+     * Returns the type that a value of the given data type is converted into by
+     * {@link DataTypeUtils#convertType(Object, DataType, String)}, if converting a value that already has that type
+     * returns the value unchanged; otherwise returns <code>null</code>, meaning that every value must be converted.
+     */
+    static Class<?> getConvertedType(final DataType dataType) {
+        switch (dataType.getFieldType()) {
+            case STRING:
+                return String.class;
+            case BOOLEAN:
+                return Boolean.class;
+            case INT:
+                return Integer.class;
+            case LONG:
+                return Long.class;
+            case DOUBLE:
+                return Double.class;
+            case BYTE:
+                return Byte.class;
+            case CHAR:
+                return Character.class;
+            case SHORT:
+                return Short.class;
+            case BIGINT:
+                return BigInteger.class;
+            case FLOAT:
+                return Float.class;
+            case DATE:
+                return Date.class;
+            case TIME:
+                return Time.class;
+            case TIMESTAMP:
+                return Timestamp.class;
+            case RECORD:
+                return Record.class;
+            case ARRAY:
+                return Object[].class;
+            default:
+                return null;
+        }
+    }
+
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+    public RecordField getField(final int index) {
+        return fields[index];
+    }
+
+    /**
+     * @param fieldName the name or an alias of a field
+     * @return the index of the field with the given name or alias, or <code>-1</code> if the schema has no such field
+     */
+    public int getIndex(final String fieldName) {
+        final Integer index = indices.get(fieldName);
+        return index == null ? -1 : index.intValue();
+    }
+
+    Storage getStorage(final int index) {
+        return storage[index];
+    }
+
+    /**
+     * Converts the given value into the data type of the field at the given index, unless it already has that type
+     */
+    Object convert(final int index, final Object value) {
+        final Class<?> storedType = storedTypes[index];
+        if (storedType != null && storedType.isInstance(value)) {
+            return value;
+        }
+
+        final RecordField field = fields[index];
+        return DataTypeUtils.convertType(value, field.getDataType(), field.getFieldName());
+    }
+
+    @Override
+    public String toString() {
+        return "ArrayRecordLayout[" + schema + "]";
+    }
+}
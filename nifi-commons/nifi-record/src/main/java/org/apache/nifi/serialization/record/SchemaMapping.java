@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.text.DateFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+
+/**
+ * <p>
+ * A plan for converting Records of one schema (the input schema) into the fields of another schema (the output schema),
+ * as a Record Writer does when it writes a Record using the writer's schema. For each field of the output schema, the
+ * field of the input schema that it is read from is resolved once, along with the type that a value must already have
+ * in order to be written without being converted, so that converting a Record does not need to look up any field by
+ * name.
+ * </p>
+ *
+ * <p>
+ * The values returned by {@link #getValue(Record, int)} are the same as those returned by
+ * {@link Record#getValue(RecordField)} for the corresponding output field, and the values returned by
+ * {@link #convert(Object, int, Supplier, Supplier, Supplier)} are the same as those returned by
+ * {@link DataTypeUtils#convertType(Object, DataType, Supplier, Supplier, Supplier, String)}.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and thread-safe. See {@link SchemaMappingCache} for reusing mappings across Records.
+ * </p>
+ */
+public class SchemaMapping {
+    private final RecordSchema inputSchema;
+    private final RecordSchema outputSchema;
+    private final RecordField[] outputFields;
+    private final DataType[] outputTypes;
+    private final Class<?>[] convertedTypes;
+    private final int[] inputIndices;
+
+    public SchemaMapping(final RecordSchema inputSchema, final RecordSchema outputSchema) {
+        this.inputSchema = Objects.requireNonNull(inputSchema);
+        this.outputSchema = Objects.requireNonNull(outputSchema);
+
+        final List<RecordField> fields = outputSchema.getFields();
+        final int fieldCount = fields.size();
+        this.outputFields = fields.toArray(new RecordField[fieldCount]);
+        this.outputTypes = new DataType[fieldCount];
+        this.convertedTypes = new Class<?>[fieldCount];
+        this.inputIndices = new int[fieldCount];
+
+        final List<RecordField> inputFields = inputSchema.getFields();
+        for (int i = 0; i < fieldCount; i++) {
+            final RecordField outputField = outputFields[i];
+            outputTypes[i] = outputField.getDataType();
+            convertedTypes[i] = ArrayRecordLayout.getConvertedType(outputTypes[i]);
+
+            // An input field can be read directly only if doing so cannot skip a default value of the output field
+            final RecordField inputField = outputField.getDefaultValue() == null ? resolveInputField(outputField) : null;
+            inputIndices[i] = inputField == null ? -1 : inputFields.indexOf(inputField);
+        }
+    }
+
+    private RecordField resolveInputField(final RecordField outputField) {
+        Optional<RecordField> resolved = inputSchema.getField(outputField.getFieldName());
+        if (resolved.isPresent()) {
+            return resolved.get();
+        }
+
+        for (final String alias : outputField.getAliases()) {
+            resolved = inputSchema.getField(alias);
+            if (resolved.isPresent()) {
+                return resolved.get();
+            }
+        }
+
+        return null;
+    }
+
+    public RecordSchema getInputSchema() {
+        return inputSchema;
+    }
+
+    public RecordSchema getOutputSchema() {
+        return outputSchema;
+    }
+
+    public int getFieldCount() {
+        return outputFields.length;
+    }
+
+    public RecordField getOutputField(final int index) {
+        return outputFields[index];
+    }
+
+    public DataType getOutputDataType(final int index) {
+        return outputTypes[index];
+    }
+
+    /**
+     * @param record a Record that has the input schema
+     * @param index the index of a field in the output schema
+     * @return the value of the output field, as given by {@link Record#getValue(RecordField)}
+     */
+    public Object getValue(final Record record, final int index) {
+        final int inputIndex = inputIndices[index];
+        if (inputIndex >= 0 && record instanceof ArrayRecord && record.getSchema() == inputSchema) {
+            return ((ArrayRecord) record).getValue(inputIndex);
+        }
+
+        return record.getValue(outputFields[index]);
+    }
+
+    /**
+     * @param index the index of a field in the output schema
+     * @param value a value of the field
+     * @return <code>true</code> if the value already has the data type of the output field, so that converting it
+     *         would return the value unchanged
+     */
+    public boolean isConverted(final int index, final Object value) {
+        final Class<?> convertedType = convertedTypes[index];
+        return convertedType != null && convertedType.isInstance(value);
+    }
+
+    /**
+     * Converts the given value into the data type of the output field at the given index
+     */
+    public Object convert(final Object value, final int index, final Supplier<DateFormat> dateFormat, final Supplier<DateFormat> timeFormat,
+        final Supplier<DateFormat> timestampFormat) {
+
+        if (value == null || isConverted(index, value)) {
+            return value;
+        }
+
+        return DataTypeUtils.convertType(value, outputTypes[index], dateFormat, timeFormat, timestampFormat, outputFields[index].getFieldName());
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaMapping[input=" + inputSchema + ", output=" + outputSchema + "]";
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Caches {@link SchemaMapping}s by their input and output schema, so that a Record Writer creates a mapping only once
+ * for each schema of the Records that it writes, rather than once for each Record.
+ * </p>
+ *
+ * <p>
+ * Schemas are compared by identity rather than by {@link Object#equals(Object) equals}, because the Records that are
+ * read from a single FlowFile share a single schema object, and because computing the hash code of a schema requires
+ * visiting each of its fields. The most recently used mapping is checked first, as consecutive Records nearly always
+ * have the same schema.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe. Each Record Writer is expected to have its own cache.
+ * </p>
+ */
+public class SchemaMappingCache {
+    private static final int MAX_CACHED_MAPPINGS = 64;
+
+    private final Map<SchemaPair, SchemaMapping> mappings = new HashMap<>();
+    private SchemaMapping lastMapping;
+
+    public SchemaMapping getMapping(final RecordSchema inputSchema, final RecordSchema outputSchema) {
+        final SchemaMapping last = lastMapping;
+        if (last != null && last.getInputSchema() == inputSchema && last.getOutputSchema() == outputSchema) {
+            return last;
+        }
+
+        final SchemaPair key = new SchemaPair(inputSchema, outputSchema);
+        SchemaMapping mapping = mappings.get(key);
+        if (mapping == null) {
+            if (mappings.size() >= MAX_CACHED_MAPPINGS) {
+                mappings.clear();
+            }
+
+            mapping = new SchemaMapping(inputSchema, outputSchema);
+            mappings.put(key, mapping);
+        }
+
+        lastMapping = mapping;
+        return mapping;
+    }
+
+    private static class SchemaPair {
+        private final RecordSchema input;
+        private final RecordSchema output;
+
+        SchemaPair(final RecordSchema input, final RecordSchema output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(input) + System.identityHashCode(output);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof SchemaPair)) {
+                return false;
+            }
+
+            final SchemaPair other = (SchemaPair) obj;
+            return input == other.input && output == other.output;
+        }
+    }
+}
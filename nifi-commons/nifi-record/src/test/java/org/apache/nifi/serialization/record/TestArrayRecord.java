@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.nifi.serialization.SchemaValidationException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestArrayRecord {
+
+    private RecordSchema createSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("age", RecordFieldType.INT.getDataType(), Collections.singleton("years")));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("id", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("active", RecordFieldType.BOOLEAN.getDataType(), (Object) Boolean.TRUE));
+        return new SimpleRecordSchema(fields);
+    }
+
+    @Test
+    public void testValuesAreConvertedToFieldTypes() {
+        final ArrayRecordLayout layout = new ArrayRecordLayout(createSchema());
+        final ArrayRecord record = new ArrayRecord(layout);
+
+        record.setValue("name", "John");
+        record.setValue("age", "42");
+        record.setValue("balance", 12);
+        record.setValue("id", 48);
+        record.setValue("active", "false");
+
+        assertEquals("John", record.getValue("name"));
+        assertEquals(42, record.getValue("age"));
+        assertEquals(12.0D, record.getValue("balance"));
+        assertEquals(48L, record.getValue("id"));
+        assertEquals(Boolean.FALSE, record.getValue("active"));
+
+        assertEquals(42, record.getInt(1));
+        assertEquals(12.0D, record.getDouble(2), 0.0D);
+        assertEquals(48L, record.getLong(3));
+        assertEquals(42L, record.getLong(1));
+        assertFalse(record.getBoolean(4));
+        assertArrayEquals(new Object[] {"John", 42, 12.0D, 48L, false}, record.getValues());
+    }
+
+    @Test
+    public void testAccessByIndexAndAlias() {
+        final ArrayRecordLayout layout = new ArrayRecordLayout(createSchema());
+        assertEquals(1, layout.getIndex("age"));
+        assertEquals(1, layout.getIndex("years"));
+        assertEquals(-1, layout.getIndex("unknown"));
+
+        final ArrayRecord record = new ArrayRecord(layout);
+        record.setInt(layout.getIndex("years"), 30);
+        record.setValue("unknown", "dropped");
+
+        assertEquals(30, record.getValue("age"));
+        assertEquals(30, record.getValue(new RecordField("other", RecordFieldType.INT.getDataType(), Collections.singleton("years"))));
+        assertNull(record.getValue("unknown"));
+        assertEquals(Collections.singleton("age"), record.getRawFieldNames());
+    }
+
+    @Test
+    public void testDefaultValuesAndNulls() {
+        final ArrayRecord record = new ArrayRecord(new ArrayRecordLayout(createSchema()));
+
+        assertNull(record.getValue("name"));
+        assertTrue(record.isNull(0));
+        assertEquals(Boolean.TRUE, record.getValue("active"));
+        assertTrue(record.getBoolean(4));
+        assertFalse(record.isNull(4));
+
+        record.setLong(3, 5L);
+        record.setValue(3, null);
+        assertNull(record.getValue("id"));
+
+        try {
+            record.getLong(3);
+            Assert.fail("Was able to get a primitive value for a field without a value");
+        } catch (final IllegalTypeConversionException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = SchemaValidationException.class)
+    public void testRequiredFieldWithoutValue() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("required", RecordFieldType.STRING.getDataType(), false));
+        final ArrayRecord record = new ArrayRecord(new ArrayRecordLayout(new SimpleRecordSchema(fields)));
+        record.checkRequiredFields();
+    }
+
+    @Test
+    public void testSerializedFormIsClearedOnlyWhenValueChanges() {
+        final ArrayRecordLayout layout = new ArrayRecordLayout(createSchema());
+        final ArrayRecord record = new ArrayRecord(layout, SerializedForm.of("{}", "application/json"));
+        assertTrue(record.getSerializedForm().isPresent());
+
+        final ArrayRecord withId = new ArrayRecord(layout, SerializedForm.of("{}", "application/json"));
+        withId.setLong(3, 5L);
+        assertEquals(Optional.empty(), withId.getSerializedForm());
+
+        record.setValue("name", null);
+        assertTrue(record.getSerializedForm().isPresent());
+    }
+
+    @Test
+    public void testIncorporateSchemaKeepsValues() {
+        final ArrayRecord record = new ArrayRecord(new ArrayRecordLayout(createSchema()));
+        record.setValue("name", "John");
+        record.setInt(1, 42);
+
+        final RecordSchema additional = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("age", RecordFieldType.INT.getDataType()),
+            new RecordField("city", RecordFieldType.STRING.getDataType())));
+        record.incorporateSchema(additional);
+
+        assertEquals(6, record.getSchema().getFieldCount());
+        assertEquals("John", record.getValue("name"));
+        assertEquals(42, record.getValue("age"));
+
+        record.setValue("city", "Paris");
+        assertEquals("Paris", record.getValue("city"));
+    }
+
+    @Test
+    public void testEquality() {
+        final ArrayRecordLayout layout = new ArrayRecordLayout(createSchema());
+        final ArrayRecord first = new ArrayRecord(layout);
+        final ArrayRecord second = new ArrayRecord(layout);
+
+        first.setValue("balance", 1.5D);
+        second.setDouble(2, 1.5D);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        second.setValue("name", "other");
+        assertNotEquals(first, second);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.junit.Test;
+
+public class TestSchemaMapping {
+
+    private RecordSchema createInputSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("age", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("zip", RecordFieldType.STRING.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private RecordSchema createOutputSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("age", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("zipCode", RecordFieldType.STRING.getDataType(), Collections.singleton("zip")));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType(), "USA"));
+        return new SimpleRecordSchema(fields);
+    }
+
+    @Test
+    public void testValuesMatchRecordLookups() {
+        final RecordSchema inputSchema = createInputSchema();
+        final RecordSchema outputSchema = createOutputSchema();
+        final SchemaMapping mapping = new SchemaMapping(inputSchema, outputSchema);
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("name", "John");
+        values.put("age", 42);
+        values.put("zip", "11111");
+        final Record mapRecord = new MapRecord(inputSchema, values);
+
+        final ArrayRecord arrayRecord = new ArrayRecord(new ArrayRecordLayout(inputSchema));
+        arrayRecord.setValue("name", "John");
+        arrayRecord.setValue("age", 42);
+        arrayRecord.setValue("zip", "11111");
+
+        assertEquals(3, mapping.getFieldCount());
+        for (final Record record : new Record[] {mapRecord, arrayRecord}) {
+            for (int i = 0; i < mapping.getFieldCount(); i++) {
+                assertEquals(record.getValue(outputSchema.getField(i)), mapping.getValue(record, i));
+            }
+        }
+
+        assertEquals(42, mapping.getValue(arrayRecord, 0));
+        assertEquals("11111", mapping.getValue(arrayRecord, 1));
+        assertEquals("USA", mapping.getValue(arrayRecord, 2));
+    }
+
+    @Test
+    public void testConvert() {
+        final SchemaMapping mapping = new SchemaMapping(createInputSchema(), createOutputSchema());
+
+        assertFalse(mapping.isConverted(0, 42));
+        assertEquals(42L, mapping.convert(42, 0, null, null, null));
+        assertTrue(mapping.isConverted(0, 42L));
+        assertTrue(mapping.isConverted(1, "11111"));
+        assertNull(mapping.convert(null, 1, null, null, null));
+    }
+
+    @Test
+    public void testCacheComparesSchemasByIdentity() {
+        final RecordSchema inputSchema = createInputSchema();
+        final RecordSchema outputSchema = createOutputSchema();
+        final SchemaMappingCache cache = new SchemaMappingCache();
+
+        final SchemaMapping mapping = cache.getMapping(inputSchema, outputSchema);
+        assertSame(inputSchema, mapping.getInputSchema());
+        assertSame(outputSchema, mapping.getOutputSchema());
+        assertSame(mapping, cache.getMapping(inputSchema, outputSchema));
+
+        final SchemaMapping other = cache.getMapping(createInputSchema(), outputSchema);
+        assertNotSame(mapping, other);
+        assertSame(mapping, cache.getMapping(inputSchema, outputSchema));
+    }
+}
@@ -19,8 +19,6 @@ package org.apache.nifi.remote;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.remote.codec.FlowFileCodec;
 import org.apache.nifi.remote.exception.ProtocolException;
-import org.apache.nifi.remote.io.CompressionInputStream;
-import org.apache.nifi.remote.io.CompressionOutputStream;
 import org.apache.nifi.remote.protocol.CommunicationsSession;
 import org.apache.nifi.remote.protocol.DataPacket;
 import org.apache.nifi.remote.protocol.Response;
@@ -56,6 +54,7 @@ public abstract class AbstractTransaction implements Transaction {
     protected boolean dataAvailable = false;
     private final long creationNanoTime = System.nanoTime();
     private int transfers = 0;
+    private int framesSent = 0;
     private long contentBytes = 0;
 
     public AbstractTransaction(final Peer peer, final TransferDirection direction, final boolean useCompression,
@@ -70,11 +69,20 @@ public abstract class AbstractTransaction implements Transaction {
         this.protocolVersion = protocolVersion;
         this.penaltyMillis = penaltyMillis;
         this.destinationId = destinationId;
+        codec.reset();
     }
 
     protected void close() throws IOException {
     }
 
+    /**
+     * Called when the transaction has been completed successfully, before the completion is returned to the caller.
+     *
+     * @param completion the completion of the transaction
+     */
+    protected void onComplete(final TransactionCompletion completion) {
+    }
+
     @Override
     public void send(final byte[] content, final Map<String, String> attributes) throws IOException {
         send(new StandardDataPacket(attributes, new ByteArrayInputStream(content), content.length));
@@ -120,8 +128,8 @@ public abstract class AbstractTransaction implements Transaction {
                     return null;
                 }
 
-                // if we have already received a packet, check if another is available.
-                if (transfers > 0) {
+                // if we have already received a packet, check if another is available, unless it is in the batch frame that was last received.
+                if (transfers > 0 && !codec.hasBufferedPackets()) {
                     // Determine if Peer will send us data or has no data to send us
                     final Response dataAvailableCode = readTransactionResponse();
                     switch (dataAvailableCode.getCode()) {
@@ -145,7 +153,7 @@ public abstract class AbstractTransaction implements Transaction {
 
                 logger.debug("{} Receiving data from {}", this, peer);
                 final InputStream is = peer.getCommunicationsSession().getInput().getInputStream();
-                final InputStream dataIn = compress ? new CompressionInputStream(is) : is;
+                final InputStream dataIn = compress ? codec.getBlockCompressor().decompress(is) : is;
                 final DataPacket packet = codec.decode(new CheckedInputStream(dataIn, crc));
 
                 if (packet == null) {
@@ -230,6 +238,10 @@ public abstract class AbstractTransaction implements Transaction {
 
                     state = TransactionState.TRANSACTION_CONFIRMED;
                 } else {
+                    if (codec.hasBufferedPackets()) {
+                        sendFrame(null);
+                    }
+
                     logger.debug("{} Sent FINISH_TRANSACTION indicator to {}", this, peer);
                     writeTransactionResponse(ResponseCode.FINISH_TRANSACTION);
 
@@ -282,7 +294,9 @@ public abstract class AbstractTransaction implements Transaction {
                 if (direction == TransferDirection.RECEIVE) {
                     if (transfers == 0) {
                         state = TransactionState.TRANSACTION_COMPLETED;
-                        return new ClientTransactionCompletion(false, 0, 0L, System.nanoTime() - creationNanoTime);
+                        final TransactionCompletion completion = new ClientTransactionCompletion(false, 0, 0L, System.nanoTime() - creationNanoTime);
+                        onComplete(completion);
+                        return completion;
                     }
 
                     // Confirm that we received the data and the peer can now discard it
@@ -310,7 +324,9 @@ public abstract class AbstractTransaction implements Transaction {
                     state = TransactionState.TRANSACTION_COMPLETED;
                 }
 
-                return new ClientTransactionCompletion(backoff, transfers, contentBytes, System.nanoTime() - creationNanoTime);
+                final TransactionCompletion completion = new ClientTransactionCompletion(backoff, transfers, contentBytes, System.nanoTime() - creationNanoTime);
+                onComplete(completion);
+                return completion;
             } catch (final IOException ioe) {
                 throw new IOException("Failed to complete transaction with " + peer + " due to " + ioe, ioe);
             }
@@ -356,23 +372,13 @@ public abstract class AbstractTransaction implements Transaction {
                     throw new IllegalStateException("Attempting to send data to " + peer + " but started a RECEIVE Transaction");
                 }
 
-                if (transfers > 0) {
-                    writeTransactionResponse(ResponseCode.CONTINUE_TRANSACTION);
-                }
-
-                logger.debug("{} Sending data to {}", this, peer);
-
-                final OutputStream os = peer.getCommunicationsSession().getOutput().getOutputStream();
-                final OutputStream dataOut = compress ? new CompressionOutputStream(os) : os;
-                final OutputStream out = new CheckedOutputStream(dataOut, crc);
-
-                codec.encode(dataPacket, out);
-
-                // need to close the CompressionOutputStream in order to force it write out any remaining bytes.
-                // Otherwise, do NOT close it because we don't want to close the underlying stream
-                // (CompressionOutputStream will not close the underlying stream when it's closed)
-                if (compress) {
-                    out.close();
+                if (!codec.buffer(dataPacket)) {
+                    if (codec.hasBufferedPackets()) {
+                        sendFrame(null);
+                    }
+                    if (!codec.buffer(dataPacket)) {
+                        sendFrame(dataPacket);
+                    }
                 }
 
                 transfers++;
@@ -386,4 +392,37 @@ public abstract class AbstractTransaction implements Transaction {
             throw e;
         }
     }
+
+    /**
+     * Writes the given DataPacket to the peer or, if it is <code>null</code>, the DataPackets that the codec has buffered.
+     *
+     * @param dataPacket the DataPacket to write, or <code>null</code> to write the codec's batch frame
+     * @throws IOException if unable to write to the peer
+     */
+    private void sendFrame(final DataPacket dataPacket) throws IOException {
+        if (framesSent > 0) {
+            writeTransactionResponse(ResponseCode.CONTINUE_TRANSACTION);
+        }
+
+        logger.debug("{} Sending data to {}", this, peer);
+
+        final OutputStream os = peer.getCommunicationsSession().getOutput().getOutputStream();
+        final OutputStream dataOut = compress ? codec.getBlockCompressor().compress(os) : os;
+        final OutputStream out = new CheckedOutputStream(dataOut, crc);
+
+        if (dataPacket == null) {
+            codec.flush(out);
+        } else {
+            codec.encode(dataPacket, out);
+        }
+
+        // need to close the compressing stream in order to force it write out any remaining bytes.
+        // Otherwise, do NOT close it because we don't want to close the underlying stream
+        // (the BlockCompressor's stream will not close the underlying stream when it's closed)
+        if (compress) {
+            out.close();
+        }
+
+        framesSent++;
+    }
 }
@@ -20,6 +20,7 @@ import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.remote.Peer;
 import org.apache.nifi.remote.PeerDescription;
 import org.apache.nifi.remote.PeerStatus;
+import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.util.PeerStatusCache;
 import org.apache.nifi.stream.io.BufferedOutputStream;
@@ -45,6 +46,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -61,6 +63,12 @@ public class PeerSelector {
 
     private static final long PEER_REFRESH_PERIOD = 60000L;
 
+    // weight given to the most recent transaction when updating the performance of a peer
+    private static final double PERFORMANCE_SMOOTHING_FACTOR = 0.2D;
+
+    // the number of bytes that a transaction's fixed costs are equivalent to, so that small transactions are compared by latency
+    private static final long TRANSACTION_OVERHEAD_BYTES = 64 * 1024L;
+
     private final ReentrantLock peerRefreshLock = new ReentrantLock();
     private volatile List<PeerStatus> peerStatuses;
     private volatile Set<PeerStatus> lastFetchedQueryablePeers;
@@ -73,6 +81,7 @@ public class PeerSelector {
 
     private final PeerStatusProvider peerStatusProvider;
     private final ConcurrentMap<PeerDescription, Long> peerTimeoutExpirations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PeerDescription, PeerPerformance> peerPerformances = new ConcurrentHashMap<>();
 
     static class SystemTime {
         long currentTimeMillis() {
@@ -248,6 +257,82 @@ public class PeerSelector {
 
     public void clear() {
         peerTimeoutExpirations.clear();
+        peerPerformances.clear();
+    }
+
+    /**
+     * Updates the performance of the peer that a transaction was completed with, which is used to choose between peers
+     * when selecting the peer for the next transaction.
+     *
+     * @param peer the peer
+     * @param completion the completion of the transaction
+     */
+    public void recordTransaction(final Peer peer, final TransactionCompletion completion) {
+        recordTransaction(peer.getDescription(), completion.getBytesTransferred(), completion.getDuration(TimeUnit.NANOSECONDS));
+    }
+
+    public void recordTransaction(final PeerDescription peerDescription, final long bytesTransferred, final long durationNanos) {
+        final PeerPerformance performance = peerPerformances.computeIfAbsent(peerDescription, description -> new PeerPerformance());
+        performance.update(bytesTransferred, durationNanos, systemTime.currentTimeMillis());
+    }
+
+    /**
+     * @return the estimated cost of a transaction with the given peer, in nanoseconds per byte, or -1 if there is no recent
+     * information about the peer's performance
+     */
+    double getTransactionCost(final PeerStatus peerStatus) {
+        final PeerPerformance performance = peerPerformances.get(peerStatus.getPeerDescription());
+        if (performance == null) {
+            return -1D;
+        }
+        return performance.getCost(systemTime.currentTimeMillis() - PEER_REFRESH_PERIOD);
+    }
+
+    /**
+     * Chooses between the given peer and another one picked at random, preferring the peer whose recent transactions have
+     * performed better. Peers are picked from the weighted destination list, so the distribution by queued FlowFiles is retained.
+     * A peer without recent transactions is preferred, so that information about its performance is collected.
+     */
+    private PeerStatus chooseBetterPerforming(final PeerStatus peerStatus, final List<PeerStatus> peerList) {
+        final double cost = getTransactionCost(peerStatus);
+        if (cost < 0D || peerList.size() < 2) {
+            return peerStatus;
+        }
+
+        final PeerStatus alternative = peerList.get(ThreadLocalRandom.current().nextInt(peerList.size()));
+        if (alternative.equals(peerStatus) || isPenalized(alternative)) {
+            return peerStatus;
+        }
+
+        final double alternativeCost = getTransactionCost(alternative);
+        return alternativeCost < cost ? alternative : peerStatus;
+    }
+
+    /**
+     * The smoothed latency and size of the recent transactions with a peer.
+     */
+    private static class PeerPerformance {
+        private double averageNanos;
+        private double averageBytes;
+        private long lastUpdated = -1L;
+
+        synchronized void update(final long bytesTransferred, final long durationNanos, final long timestamp) {
+            if (lastUpdated < 0L) {
+                averageNanos = durationNanos;
+                averageBytes = bytesTransferred;
+            } else {
+                averageNanos += PERFORMANCE_SMOOTHING_FACTOR * (durationNanos - averageNanos);
+                averageBytes += PERFORMANCE_SMOOTHING_FACTOR * (bytesTransferred - averageBytes);
+            }
+            lastUpdated = timestamp;
+        }
+
+        synchronized double getCost(final long staleBefore) {
+            if (lastUpdated < staleBefore) {
+                return -1D;
+            }
+            return averageNanos / (averageBytes + TRANSACTION_OVERHEAD_BYTES);
+        }
     }
 
     private boolean isPeerRefreshNeeded(final List<PeerStatus> peerList) {
@@ -302,7 +387,7 @@ public class PeerSelector {
             if (isPenalized(peerStatus)) {
                 logger.debug("{} {} is penalized; will not communicate with this peer", this, peerStatus);
             } else {
-                return peerStatus;
+                return chooseBetterPerforming(peerStatus, peerList);
             }
         }
 
@@ -21,6 +21,7 @@ import org.apache.nifi.remote.Peer;
 import org.apache.nifi.remote.PeerDescription;
 import org.apache.nifi.remote.PeerStatus;
 import org.apache.nifi.remote.Transaction;
+import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.client.AbstractSiteToSiteClient;
 import org.apache.nifi.remote.client.PeerSelector;
@@ -33,6 +34,7 @@ import org.apache.nifi.remote.exception.UnknownPortException;
 import org.apache.nifi.remote.io.http.HttpCommunicationsSession;
 import org.apache.nifi.remote.protocol.CommunicationsSession;
 import org.apache.nifi.remote.protocol.http.HttpClientTransaction;
+import org.apache.nifi.remote.util.SiteToSiteHttpClientPool;
 import org.apache.nifi.remote.util.SiteToSiteRestApiClient;
 import org.apache.nifi.web.api.dto.remote.PeerDTO;
 import org.slf4j.Logger;
@@ -56,6 +58,7 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
 
     private final ScheduledExecutorService taskExecutor;
     private final PeerSelector peerSelector;
+    private final SiteToSiteHttpClientPool clientPool;
     private final Set<HttpClientTransaction> activeTransactions = Collections.synchronizedSet(new HashSet<>());
 
     public HttpClient(final SiteToSiteClientConfig config) {
@@ -64,6 +67,8 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
         peerSelector = new PeerSelector(this, config.getPeerPersistenceFile());
         peerSelector.setEventReporter(config.getEventReporter());
 
+        clientPool = new SiteToSiteHttpClientPool(config.getSslContext(), config.getIdleConnectionExpiration(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+
         taskExecutor = Executors.newScheduledThreadPool(1, new ThreadFactory() {
             private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
 
@@ -149,7 +154,7 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
                 }
             }
 
-            final SiteToSiteRestApiClient apiClient = new SiteToSiteRestApiClient(config.getSslContext(), config.getHttpProxy(), config.getEventReporter());
+            final SiteToSiteRestApiClient apiClient = new SiteToSiteRestApiClient(config.getSslContext(), config.getHttpProxy(), config.getEventReporter(), clientPool);
 
             apiClient.setBaseUrl(peer.getUrl());
             apiClient.setConnectTimeoutMillis(timeoutMillis);
@@ -195,6 +200,11 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
                         activeTransactions.remove(this);
                     }
                 }
+
+                @Override
+                protected void onComplete(final TransactionCompletion completion) {
+                    peerSelector.recordTransaction(peer, completion);
+                }
             };
 
             try {
@@ -229,5 +239,7 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
         for (final HttpClientTransaction transaction : activeTransactions) {
             transaction.getCommunicant().getCommunicationsSession().interrupt();
         }
+
+        clientPool.close();
     }
 }
@@ -22,6 +22,7 @@ import org.apache.nifi.remote.PeerDescription;
 import org.apache.nifi.remote.PeerStatus;
 import org.apache.nifi.remote.RemoteDestination;
 import org.apache.nifi.remote.RemoteResourceInitiator;
+import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.client.PeerSelector;
 import org.apache.nifi.remote.client.PeerStatusProvider;
@@ -345,6 +346,16 @@ public class EndpointConnectionPool implements PeerStatusProvider {
         }
     }
 
+    /**
+     * Records the completion of a transaction with the given peer, so that peers are selected based on how they are performing.
+     *
+     * @param peer the peer that the transaction was with
+     * @param completion the completion of the transaction
+     */
+    public void recordTransaction(final Peer peer, final TransactionCompletion completion) {
+        peerSelector.recordTransaction(peer, completion);
+    }
+
     private void cleanup(final SocketClientProtocol protocol, final Peer peer) {
         if (protocol != null && peer != null) {
             try {
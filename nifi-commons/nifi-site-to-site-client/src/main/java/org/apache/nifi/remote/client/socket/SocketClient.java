@@ -150,7 +150,9 @@ public class SocketClient extends AbstractSiteToSiteClient {
             @Override
             public TransactionCompletion complete() throws IOException {
                 try {
-                    return transaction.complete();
+                    final TransactionCompletion completion = transaction.complete();
+                    pool.recordTransaction(connectionState.getPeer(), completion);
+                    return completion;
                 } finally {
                     final EndpointConnection state = connectionStateRef.get();
                     if (state != null) {
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * Compresses each frame that a {@link FlowFileCodec} writes as a separate block, when compression is enabled for a
+ * transfer. The BlockCompressor to use is agreed upon by the peers when they negotiate the FlowFileCodec. Peers that
+ * do not negotiate a BlockCompressor use {@link BlockCompressors#DEFLATE}.
+ * </p>
+ */
+public interface BlockCompressor {
+
+    /**
+     * @return the name that identifies this BlockCompressor to the peer
+     */
+    String getName();
+
+    /**
+     * Returns a stream that compresses the data written to it as a single block and writes the compressed block to the
+     * given stream. Closing the returned stream writes the remainder of the block but does not close the given stream.
+     *
+     * @param out the stream to write the compressed block to
+     * @return a stream to write the data of the block to
+     * @throws IOException if unable to write to the given stream
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Returns a stream that reads a single block, as written by {@link #compress(OutputStream)}, from the given stream
+     * and decompresses it. Closing the returned stream does not close the given stream.
+     *
+     * @param in the stream to read the compressed block from
+     * @return a stream to read the data of the block from
+     * @throws IOException if unable to read from the given stream
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
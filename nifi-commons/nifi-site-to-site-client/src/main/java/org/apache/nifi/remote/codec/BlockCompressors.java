@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.nifi.remote.exception.ProtocolException;
+
+/**
+ * The {@link BlockCompressor}s that are available for Site-to-Site transfers, and the means by which peers agree on one of them.
+ */
+public final class BlockCompressors {
+
+    public static final BlockCompressor DEFLATE = new DeflateBlockCompressor();
+
+    // in order of preference. Every peer supports DEFLATE, so it is used whenever the peers have no other BlockCompressor in common
+    private static final List<BlockCompressor> SUPPORTED = Collections.unmodifiableList(Arrays.asList(DEFLATE));
+
+    private static final int MAX_PROPOSED_NAMES = 64;
+
+    private BlockCompressors() {
+    }
+
+    /**
+     * @return the names of the BlockCompressors that are supported, in order of preference
+     */
+    public static List<String> getSupportedNames() {
+        final List<String> names = new ArrayList<>(SUPPORTED.size());
+        for (final BlockCompressor compressor : SUPPORTED) {
+            names.add(compressor.getName());
+        }
+        return names;
+    }
+
+    /**
+     * @param name the name of a BlockCompressor
+     * @return the BlockCompressor with the given name, or <code>null</code> if it is not supported
+     */
+    public static BlockCompressor forName(final String name) {
+        for (final BlockCompressor compressor : SUPPORTED) {
+            if (compressor.getName().equals(name)) {
+                return compressor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param proposedNames the names of the BlockCompressors that the peer supports, in the peer's order of preference
+     * @return the first of the proposed BlockCompressors that is supported, or {@link #DEFLATE} if none of them is
+     */
+    public static BlockCompressor select(final Collection<String> proposedNames) {
+        for (final String name : proposedNames) {
+            final BlockCompressor compressor = forName(name.trim());
+            if (compressor != null) {
+                return compressor;
+            }
+        }
+        return DEFLATE;
+    }
+
+    /**
+     * Sends the names of the supported BlockCompressors to the peer and reads the name of the BlockCompressor that the peer selected
+     * via {@link #receiveProposal(DataInputStream, DataOutputStream)}
+     *
+     * @param in the stream to read the peer's selection from
+     * @param out the stream to write the proposal to
+     * @return the BlockCompressor that the peer selected
+     * @throws IOException if unable to communicate with the peer
+     * @throws ProtocolException if the peer selected a BlockCompressor that was not proposed
+     */
+    public static BlockCompressor propose(final DataInputStream in, final DataOutputStream out) throws IOException {
+        final List<String> names = getSupportedNames();
+        out.writeInt(names.size());
+        for (final String name : names) {
+            out.writeUTF(name);
+        }
+        out.flush();
+
+        final String selected = in.readUTF();
+        final BlockCompressor compressor = forName(selected);
+        if (compressor == null) {
+            throw new ProtocolException("Peer selected Block Compressor " + selected + ", which was not proposed");
+        }
+        return compressor;
+    }
+
+    /**
+     * Reads the names of the BlockCompressors that the peer proposed via {@link #propose(DataInputStream, DataOutputStream)}, and
+     * sends the name of the BlockCompressor that is selected from them
+     *
+     * @param in the stream to read the proposal from
+     * @param out the stream to write the selection to
+     * @return the BlockCompressor that was selected
+     * @throws IOException if unable to communicate with the peer
+     * @throws ProtocolException if the proposal is malformed
+     */
+    public static BlockCompressor receiveProposal(final DataInputStream in, final DataOutputStream out) throws IOException {
+        final int numNames = in.readInt();
+        if (numNames < 0 || numNames > MAX_PROPOSED_NAMES) {
+            throw new ProtocolException("Peer proposed " + numNames + " Block Compressors but no more than " + MAX_PROPOSED_NAMES + " may be proposed");
+        }
+
+        final List<String> names = new ArrayList<>(numNames);
+        for (int i = 0; i < numNames; i++) {
+            names.add(in.readUTF());
+        }
+
+        final BlockCompressor compressor = select(names);
+        out.writeUTF(compressor.getName());
+        out.flush();
+        return compressor;
+    }
+}
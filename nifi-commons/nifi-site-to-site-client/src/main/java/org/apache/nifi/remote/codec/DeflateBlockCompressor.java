@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.nifi.remote.io.CompressionInputStream;
+import org.apache.nifi.remote.io.CompressionOutputStream;
+
+/**
+ * A {@link BlockCompressor} that compresses blocks using the Deflate algorithm, in the format that is written by
+ * {@link CompressionOutputStream}. This is the format in which every version of Site-to-Site compresses data.
+ */
+public class DeflateBlockCompressor implements BlockCompressor {
+
+    public static final String NAME = "DEFLATE";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public OutputStream compress(final OutputStream out) {
+        return new CompressionOutputStream(out);
+    }
+
+    @Override
+    public InputStream decompress(final InputStream in) {
+        return new CompressionInputStream(in);
+    }
+
+    @Override
+    public String toString() {
+        return "DeflateBlockCompressor";
+    }
+}
@@ -69,4 +69,77 @@ public interface FlowFileCodec extends VersionedRemoteResource {
      * @throws TransmissionDisabledException if a user terminates the connection
      */
     DataPacket decode(InputStream stream) throws IOException, ProtocolException, TransmissionDisabledException;
+
+    /**
+     * Encodes a DataPacket and its content into a batch frame that is held by
+     * the codec until {@link #flush(OutputStream)} is called, rather than
+     * writing it to a stream immediately. Codecs that do not batch DataPackets
+     * always return <code>false</code>.
+     *
+     * @param dataPacket the data to serialize
+     *
+     * @return <code>true</code> if the DataPacket was added to the batch frame,
+     * <code>false</code> if the DataPacket must instead be written via
+     * {@link #encode(DataPacket, OutputStream)}, or after the current batch
+     * frame has been flushed if the frame is full
+     *
+     * @throws IOException if unable to read the DataPacket's content
+     */
+    default boolean buffer(DataPacket dataPacket) throws IOException {
+        return false;
+    }
+
+    /**
+     * Writes the DataPackets that have been added to the batch frame via
+     * {@link #buffer(DataPacket)} to the output as a single frame. Does nothing
+     * if no DataPackets have been buffered.
+     *
+     * @param outStream the stream to write the frame to
+     *
+     * @throws IOException if there is a communications issue
+     * @throws TransmissionDisabledException if a user terminates the connection
+     */
+    default void flush(OutputStream outStream) throws IOException, TransmissionDisabledException {
+    }
+
+    /**
+     * Returns whether the codec holds DataPackets that have been buffered but
+     * not yet flushed or, when decoding, DataPackets that have been read from a
+     * batch frame but not yet returned by {@link #decode(InputStream)}. While
+     * this is the case, no transaction response precedes the next DataPacket.
+     *
+     * @return <code>true</code> if DataPackets are held by the codec
+     */
+    default boolean hasBufferedPackets() {
+        return false;
+    }
+
+    /**
+     * Returns the BlockCompressor that compresses each frame written by this
+     * codec when compression is enabled for the transfer. Unless another
+     * BlockCompressor has been negotiated with the peer, this is
+     * {@link BlockCompressors#DEFLATE}.
+     *
+     * @return the BlockCompressor to compress frames with
+     */
+    default BlockCompressor getBlockCompressor() {
+        return BlockCompressors.DEFLATE;
+    }
+
+    /**
+     * Sets the BlockCompressor that was negotiated with the peer. Codecs that
+     * only support {@link BlockCompressors#DEFLATE} ignore this.
+     *
+     * @param blockCompressor the BlockCompressor to compress frames with
+     */
+    default void setBlockCompressor(BlockCompressor blockCompressor) {
+    }
+
+    /**
+     * Discards any DataPackets and encoding state held from a previous
+     * transaction. Must be called by both peers at the start of each
+     * transaction.
+     */
+    default void reset() {
+    }
 }
@@ -16,15 +16,25 @@
  */
 package org.apache.nifi.remote.codec;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
@@ -33,16 +43,70 @@ import org.apache.nifi.remote.protocol.DataPacket;
 import org.apache.nifi.remote.util.StandardDataPacket;
 import org.apache.nifi.stream.io.StreamUtils;
 
+/**
+ * <p>
+ * Version 1 of the codec writes each DataPacket as its attributes followed by its content.
+ * </p>
+ *
+ * <p>
+ * Version 2 writes a stream of frames. DataPackets whose content is no larger than {@link #MAX_BATCHED_CONTENT_SIZE} are
+ * buffered and written together as a single batch frame, which is protected by one CRC32 checksum and, when compression is
+ * enabled for the port, compressed as one block. Larger DataPackets are written as stream frames so that their content is
+ * never held in memory. Attribute keys are dictionary-encoded: the first time a key is transferred within a transaction it is
+ * written in full and assigned the next index of the dictionary, after which only its index is written. Peers that use
+ * version 2 also negotiate the {@link BlockCompressor} that compresses each frame.
+ * </p>
+ */
 public class StandardFlowFileCodec implements FlowFileCodec {
 
     public static final int MAX_NUM_ATTRIBUTES = 25000;
 
     public static final String DEFAULT_FLOWFILE_PATH = "./";
 
+    /**
+     * The version of the codec that writes batch frames
+     */
+    public static final int BATCH_FRAME_VERSION = 2;
+
+    static final int MAX_BATCHED_CONTENT_SIZE = 1024;
+    static final int MAX_BATCHED_ATTRIBUTES_SIZE = 4 * 1024;
+    static final int MAX_BATCH_FRAME_SIZE = 64 * 1024;
+
+    // A DataPacket is only added to a frame that holds fewer than MAX_BATCH_FRAME_SIZE bytes, so no frame can be larger than
+    // that plus one DataPacket: its encoded attributes, the variable-length integer holding its content size, and its content
+    static final int MAX_DECODED_FRAME_SIZE = MAX_BATCH_FRAME_SIZE + MAX_BATCHED_ATTRIBUTES_SIZE + 5 + MAX_BATCHED_CONTENT_SIZE;
+    static final int MAX_DICTIONARY_SIZE = 4096;
+
+    private static final int FRAME_TYPE_BATCH = 1;
+    private static final int FRAME_TYPE_STREAM = 2;
+
+    // The keys that every dictionary starts with. This list is part of the wire format, so keys may only ever be appended to it.
+    private static final List<String> PREDEFINED_KEYS = Collections.unmodifiableList(Arrays.asList(
+        "uuid", "filename", "path", "absolute.path", "mime.type", "priority", "discard.reason", "alternate.identifier",
+        "fragment.identifier", "fragment.index", "fragment.count", "segment.original.filename", "s2s.host", "s2s.address"));
+
     private final VersionNegotiator versionNegotiator;
+    private BlockCompressor blockCompressor = BlockCompressors.DEFLATE;
+
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> keyIndices = new HashMap<>();
+
+    private final ByteArrayOutputStream frameBuffer = new ByteArrayOutputStream();
+    private final CRC32 frameChecksum = new CRC32();
+    private final DataOutputStream frameOut = new DataOutputStream(new CheckedOutputStream(frameBuffer, frameChecksum));
+    private int bufferedPacketCount = 0;
+
+    private final ByteArrayOutputStream packetBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream packetOut = new DataOutputStream(packetBuffer);
+
+    private final Queue<DataPacket> decodedPackets = new ArrayDeque<>();
 
     public StandardFlowFileCodec() {
-        versionNegotiator = new StandardVersionNegotiator(1);
+        versionNegotiator = new StandardVersionNegotiator(BATCH_FRAME_VERSION, 1);
+
+        // Batch frames are only written once the version that supports them has been negotiated with the peer
+        versionNegotiator.setVersion(1);
+        reset();
     }
 
     @Override
@@ -50,10 +114,15 @@ public class StandardFlowFileCodec implements FlowFileCodec {
         final DataOutputStream out = new DataOutputStream(encodedOut);
 
         final Map<String, String> attributes = dataPacket.getAttributes();
-        out.writeInt(attributes.size());
-        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
-            writeString(entry.getKey(), out);
-            writeString(entry.getValue(), out);
+        if (isBatchFrameVersion()) {
+            out.write(FRAME_TYPE_STREAM);
+            writeAttributes(attributes, out);
+        } else {
+            out.writeInt(attributes.size());
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                writeString(entry.getKey(), out);
+                writeString(entry.getValue(), out);
+            }
         }
 
         out.writeLong(dataPacket.getSize());
@@ -63,8 +132,61 @@ public class StandardFlowFileCodec implements FlowFileCodec {
         encodedOut.flush();
     }
 
+    @Override
+    public boolean buffer(final DataPacket dataPacket) throws IOException {
+        if (!isBatchFrameVersion() || dataPacket.getSize() > MAX_BATCHED_CONTENT_SIZE || frameBuffer.size() >= MAX_BATCH_FRAME_SIZE) {
+            return false;
+        }
+
+        // The DataPacket is encoded on its own first so that neither a DataPacket whose attributes are too large to be batched
+        // nor a failure while reading its content leaves a partially encoded DataPacket or its attribute keys behind
+        final int keyCount = keys.size();
+        packetBuffer.reset();
+        try {
+            writeAttributes(dataPacket.getAttributes(), packetOut);
+            if (packetBuffer.size() > MAX_BATCHED_ATTRIBUTES_SIZE) {
+                removeKeys(keyCount);
+                packetBuffer.reset();
+                return false;
+            }
+
+            writeVarInt((int) dataPacket.getSize(), packetOut);
+            StreamUtils.copy(dataPacket.getData(), packetOut, dataPacket.getSize());
+        } catch (final IOException e) {
+            removeKeys(keyCount);
+            packetBuffer.reset();
+            throw e;
+        }
+
+        packetBuffer.writeTo(frameOut);
+        packetBuffer.reset();
+        bufferedPacketCount++;
+        return true;
+    }
+
+    @Override
+    public void flush(final OutputStream encodedOut) throws IOException {
+        if (bufferedPacketCount == 0) {
+            return;
+        }
+
+        final DataOutputStream out = new DataOutputStream(encodedOut);
+        out.write(FRAME_TYPE_BATCH);
+        writeVarInt(bufferedPacketCount, out);
+        writeVarInt(frameBuffer.size(), out);
+        out.writeInt((int) frameChecksum.getValue());
+        frameBuffer.writeTo(out);
+        out.flush();
+
+        clearFrame();
+    }
+
     @Override
     public DataPacket decode(final InputStream stream) throws IOException, ProtocolException {
+        if (isBatchFrameVersion()) {
+            return decodeFrame(stream);
+        }
+
         final DataInputStream in = new DataInputStream(stream);
 
         final int numAttributes;
@@ -93,6 +215,151 @@ public class StandardFlowFileCodec implements FlowFileCodec {
         return new StandardDataPacket(attributes, stream, numBytes);
     }
 
+    private DataPacket decodeFrame(final InputStream stream) throws IOException, ProtocolException {
+        if (!decodedPackets.isEmpty()) {
+            return decodedPackets.poll();
+        }
+
+        final int frameType = stream.read();
+        if (frameType < 0) {
+            // we're out of data.
+            return null;
+        }
+
+        final DataInputStream in = new DataInputStream(stream);
+        switch (frameType) {
+            case FRAME_TYPE_STREAM: {
+                final Map<String, String> attributes = readAttributes(in);
+                final long numBytes = in.readLong();
+                return new StandardDataPacket(attributes, stream, numBytes);
+            }
+            case FRAME_TYPE_BATCH: {
+                final int packetCount = readVarInt(in);
+                final int frameSize = readVarInt(in);
+                final int checksum = in.readInt();
+                // This is checked before the frame is allocated, as a frame size that is not properly formed could otherwise result in
+                // an OutOfMemoryError
+                if (frameSize > MAX_DECODED_FRAME_SIZE) {
+                    throw new ProtocolException("Received batch frame of " + frameSize + " bytes but batch frames may not exceed " + MAX_DECODED_FRAME_SIZE + " bytes");
+                }
+                if (packetCount < 1 || packetCount > frameSize) {
+                    throw new ProtocolException("Received batch frame of " + frameSize + " bytes claiming to hold " + packetCount + " FlowFiles");
+                }
+
+                final byte[] frame = new byte[frameSize];
+                StreamUtils.fillBuffer(in, frame, true);
+
+                final CRC32 crc = new CRC32();
+                crc.update(frame);
+                if ((int) crc.getValue() != checksum) {
+                    throw new ProtocolException("Received batch frame with CRC32 Checksum " + (checksum & 0xFFFFFFFFL)
+                        + " but calculated CRC32 Checksum as " + crc.getValue());
+                }
+
+                final DataInputStream frameIn = new DataInputStream(new ByteArrayInputStream(frame));
+                for (int i = 0; i < packetCount; i++) {
+                    final Map<String, String> attributes = readAttributes(frameIn);
+                    final int numBytes = readVarInt(frameIn);
+                    if (numBytes > MAX_BATCHED_CONTENT_SIZE) {
+                        throw new ProtocolException("Batched FlowFile exceeds maximum content size with a size of " + numBytes + " bytes");
+                    }
+
+                    final byte[] content = new byte[numBytes];
+                    StreamUtils.fillBuffer(frameIn, content, true);
+                    decodedPackets.add(new StandardDataPacket(attributes, new ByteArrayInputStream(content), numBytes));
+                }
+
+                return decodedPackets.poll();
+            }
+            default:
+                throw new ProtocolException("Received unknown frame type " + frameType);
+        }
+    }
+
+    @Override
+    public boolean hasBufferedPackets() {
+        return bufferedPacketCount > 0 || !decodedPackets.isEmpty();
+    }
+
+    @Override
+    public void reset() {
+        keys.clear();
+        keyIndices.clear();
+        for (final String key : PREDEFINED_KEYS) {
+            addKey(key);
+        }
+
+        clearFrame();
+        packetBuffer.reset();
+        decodedPackets.clear();
+    }
+
+    private boolean isBatchFrameVersion() {
+        return versionNegotiator.getVersion() >= BATCH_FRAME_VERSION;
+    }
+
+    private void clearFrame() {
+        frameBuffer.reset();
+        frameChecksum.reset();
+        bufferedPacketCount = 0;
+    }
+
+    private void addKey(final String key) {
+        // Both peers stop adding keys at the same point, after which keys that are not in the dictionary are always written in full
+        if (keys.size() < MAX_DICTIONARY_SIZE) {
+            keyIndices.put(key, keys.size());
+            keys.add(key);
+        }
+    }
+
+    private void removeKeys(final int keyCount) {
+        while (keys.size() > keyCount) {
+            keyIndices.remove(keys.remove(keys.size() - 1));
+        }
+    }
+
+    private void writeAttributes(final Map<String, String> attributes, final DataOutputStream out) throws IOException {
+        writeVarInt(attributes.size(), out);
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            final String key = entry.getKey();
+            final Integer keyIndex = keyIndices.get(key);
+            if (keyIndex == null) {
+                writeVarInt(0, out);
+                writeVarString(key, out);
+                addKey(key);
+            } else {
+                writeVarInt(keyIndex + 1, out);
+            }
+
+            writeVarString(entry.getValue(), out);
+        }
+    }
+
+    private Map<String, String> readAttributes(final DataInputStream in) throws IOException {
+        final int numAttributes = readVarInt(in);
+        if (numAttributes > MAX_NUM_ATTRIBUTES) {
+            throw new ProtocolException("FlowFile exceeds maximum number of attributes with a total of " + numAttributes);
+        }
+
+        final Map<String, String> attributes = new HashMap<>(numAttributes);
+        for (int i = 0; i < numAttributes; i++) {
+            final int keyReference = readVarInt(in);
+            final String key;
+            if (keyReference == 0) {
+                key = readVarString(in);
+                addKey(key);
+            } else if (keyReference <= keys.size()) {
+                key = keys.get(keyReference - 1);
+            } else {
+                throw new ProtocolException("Received reference to attribute key " + keyReference + " but only " + keys.size() + " keys are known");
+            }
+
+            attributes.put(key, readVarString(in));
+        }
+
+        return attributes;
+    }
+
     private void writeString(final String val, final DataOutputStream out) throws IOException {
         final byte[] bytes = val.getBytes("UTF-8");
         out.writeInt(bytes.length);
@@ -106,6 +373,57 @@ public class StandardFlowFileCodec implements FlowFileCodec {
         return new String(bytes, "UTF-8");
     }
 
+    private void writeVarString(final String val, final DataOutputStream out) throws IOException {
+        final byte[] bytes = val.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private String readVarString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[readVarInt(in)];
+        StreamUtils.fillBuffer(in, bytes, true);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(final int value, final OutputStream out) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private static int readVarInt(final InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new ProtocolException("Received negative length " + value);
+                }
+                return value;
+            }
+        }
+
+        throw new ProtocolException("Received malformed variable-length integer");
+    }
+
+    @Override
+    public BlockCompressor getBlockCompressor() {
+        return blockCompressor;
+    }
+
+    @Override
+    public void setBlockCompressor(final BlockCompressor blockCompressor) {
+        this.blockCompressor = blockCompressor;
+    }
+
     @Override
     public List<Integer> getSupportedVersions() {
         return versionNegotiator.getSupportedVersions();
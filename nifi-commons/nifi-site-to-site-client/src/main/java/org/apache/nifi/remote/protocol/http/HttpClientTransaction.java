@@ -47,6 +47,10 @@ public class HttpClientTransaction extends AbstractTransaction {
     public void initialize(SiteToSiteRestApiClient apiUtil, String transactionUrl) throws IOException {
         this.transactionUrl = transactionUrl;
         this.apiClient = apiUtil;
+        if (apiUtil.getFlowFileCodecVersion() > 1) {
+            codec.getVersionNegotiator().setVersion(apiUtil.getFlowFileCodecVersion());
+            codec.setBlockCompressor(apiUtil.getBlockCompressor());
+        }
         if(TransferDirection.RECEIVE.equals(direction)){
             dataAvailable = apiUtil.openConnectionForReceive(transactionUrl, peer);
         } else {
@@ -25,6 +25,8 @@ public class HttpHeaders {
     public static final String ACCEPT_ENCODING = "Accept-Encoding";
     public static final String CONTENT_ENCODING = "Content-Encoding";
     public static final String PROTOCOL_VERSION = "x-nifi-site-to-site-protocol-version";
+    public static final String FLOWFILE_CODEC_VERSION = "x-nifi-site-to-site-flowfile-codec-version";
+    public static final String BLOCK_COMPRESSOR = "x-nifi-site-to-site-block-compressor";
     public static final String SERVER_SIDE_TRANSACTION_TTL = "x-nifi-site-to-site-server-transaction-ttl";
     public static final String HANDSHAKE_PROPERTY_USE_COMPRESSION = "x-nifi-site-to-site-use-compression";
     public static final String HANDSHAKE_PROPERTY_REQUEST_EXPIRATION = "x-nifi-site-to-site-request-expiration";
@@ -26,6 +26,7 @@ import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.Transaction;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.VersionNegotiator;
+import org.apache.nifi.remote.codec.BlockCompressors;
 import org.apache.nifi.remote.codec.FlowFileCodec;
 import org.apache.nifi.remote.codec.StandardFlowFileCodec;
 import org.apache.nifi.remote.exception.HandshakeException;
@@ -52,7 +53,7 @@ import java.util.concurrent.TimeUnit;
 public class SocketClientProtocol implements ClientProtocol {
 
     // Version 6 added to support Zero-Master Clustering, which was introduced in NiFi 1.0.0
-    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(6, 5, 4, 3, 2, 1);
+    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(7, 6, 5, 4, 3, 2, 1);
 
     private RemoteDestination destination;
     private boolean useCompression = false;
@@ -250,11 +251,21 @@ public class SocketClientProtocol implements ClientProtocol {
         RequestType.NEGOTIATE_FLOWFILE_CODEC.writeRequestType(dos);
 
         FlowFileCodec codec = new StandardFlowFileCodec();
+        if (versionNegotiator.getVersion() >= 7) {
+            // peers that speak version 7 of the protocol know the version of the codec that writes batch frames
+            codec.getVersionNegotiator().setVersion(StandardFlowFileCodec.BATCH_FRAME_VERSION);
+        }
+
         try {
             codec = (FlowFileCodec) RemoteResourceInitiator.initiateResourceNegotiation(codec, dis, dos);
         } catch (HandshakeException e) {
             throw new ProtocolException(e.toString());
         }
+
+        if (codec.getVersionNegotiator().getVersion() >= StandardFlowFileCodec.BATCH_FRAME_VERSION) {
+            // peers that use the version of the codec that writes batch frames also negotiate how the frames are compressed
+            codec.setBlockCompressor(BlockCompressors.propose(dis, dos));
+        }
         logger.debug("{} negotiated FlowFileCodec {} with {}", new Object[]{this, codec, commsSession});
 
         return codec;
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+
+/**
+ * <p>
+ * Holds the HTTP connections that {@link SiteToSiteRestApiClient}s use to communicate with the nodes of a remote NiFi instance,
+ * so that the transactions of a Site-to-Site client share long-lived, kept-alive connections to each peer rather than each
+ * transaction establishing (and, if secure, handshaking) connections of its own.
+ * </p>
+ *
+ * <p>
+ * Because the data of a transaction is streamed in the body of a single request, a transaction that sends data holds
+ * a connection for as long as it is sending, and sends it from one of the threads provided by {@link #getSenderExecutor()}.
+ * Consecutive transactions reuse the connection; concurrent transactions use up to {@link #MAX_CONNECTIONS_PER_PEER}
+ * connections per peer.
+ * </p>
+ */
+public class SiteToSiteHttpClientPool implements Closeable {
+
+    public static final int MAX_CONNECTIONS_PER_PEER = 100;
+    private static final int MAX_CONNECTIONS = 1000;
+
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService senderExecutor;
+
+    /**
+     * @param sslContext the SSLContext to use for secure connections, or <code>null</code> if connections are not secure
+     * @param idleExpiration how long a connection may remain idle before it is closed
+     * @param timeUnit the unit of the idle expiration
+     */
+    public SiteToSiteHttpClientPool(final SSLContext sslContext, final long idleExpiration, final TimeUnit timeUnit) {
+        final HttpClientBuilder clientBuilder = HttpClients.custom();
+
+        if (sslContext != null) {
+            clientBuilder.setSslcontext(sslContext);
+            clientBuilder.addInterceptorFirst(SiteToSiteRestApiClient.createHttpsResponseInterceptor());
+        }
+
+        // The connections are shared by all transactions of the client, which communicate with the same identity, so the state
+        // of a connection (such as the principal of a TLS session) must not prevent a connection from being reused.
+        httpClient = clientBuilder
+            .setMaxConnPerRoute(MAX_CONNECTIONS_PER_PEER)
+            .setMaxConnTotal(MAX_CONNECTIONS)
+            .disableConnectionState()
+            .evictExpiredConnections()
+            .evictIdleConnections(idleExpiration, timeUnit)
+            .build();
+
+        senderExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = defaultFactory.newThread(r);
+                thread.setName("Http Site-to-Site Sender");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    ExecutorService getSenderExecutor() {
+        return senderExecutor;
+    }
+
+    @Override
+    public void close() throws IOException {
+        senderExecutor.shutdownNow();
+        httpClient.close();
+    }
+}
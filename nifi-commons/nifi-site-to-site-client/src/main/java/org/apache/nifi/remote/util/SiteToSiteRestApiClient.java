@@ -52,6 +52,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
@@ -86,9 +87,12 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.conn.ManagedHttpClientConnection;
 import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -108,6 +112,10 @@ import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.remote.Peer;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.client.http.TransportProtocolVersionNegotiator;
+import org.apache.nifi.remote.codec.BlockCompressor;
+import org.apache.nifi.remote.codec.BlockCompressors;
+import org.apache.nifi.remote.codec.DeflateBlockCompressor;
+import org.apache.nifi.remote.codec.StandardFlowFileCodec;
 import org.apache.nifi.remote.exception.HandshakeException;
 import org.apache.nifi.remote.exception.PortNotRunningException;
 import org.apache.nifi.remote.exception.ProtocolException;
@@ -149,6 +157,7 @@ public class SiteToSiteRestApiClient implements Closeable {
     private static final int RESPONSE_CODE_NOT_FOUND = 404;
 
     private static final Logger logger = LoggerFactory.getLogger(SiteToSiteRestApiClient.class);
+    private static final String API_CLIENT_ATTRIBUTE = "nifi.site-to-site.api-client";
 
     private String baseUrl;
     protected final SSLContext sslContext;
@@ -160,6 +169,7 @@ public class SiteToSiteRestApiClient implements Closeable {
     private CredentialsProvider credentialsProvider;
     private CloseableHttpClient httpClient;
     private CloseableHttpAsyncClient httpAsyncClient;
+    private final SiteToSiteHttpClientPool clientPool;
 
     private boolean compress = false;
     private InetAddress localAddress = null;
@@ -169,6 +179,10 @@ public class SiteToSiteRestApiClient implements Closeable {
     private long batchSize = 0;
     private long batchDurationMillis = 0;
     private TransportProtocolVersionNegotiator transportProtocolVersionNegotiator = new TransportProtocolVersionNegotiator(1);
+    // Proposed to the server when a transaction is initiated, then replaced by the version that the server confirms
+    private int flowFileCodecVersion = StandardFlowFileCodec.BATCH_FRAME_VERSION;
+    // The names of the Block Compressors that are proposed to the server, in order of preference, then replaced by the one that the server selects
+    private String blockCompressorNames = String.join(",", BlockCompressors.getSupportedNames());
 
     private String trustedPeerDn;
     private final ScheduledExecutorService ttlExtendTaskExecutor;
@@ -179,14 +193,31 @@ public class SiteToSiteRestApiClient implements Closeable {
     private int readTimeoutMillis;
     private static final Pattern HTTP_ABS_URL = Pattern.compile("^https?://.+$");
 
-    private Future<HttpResponse> postResult;
+    private Future<? extends HttpResponse> postResult;
     private CountDownLatch transferDataLatch = new CountDownLatch(1);
+    private volatile CloseableHttpResponse receiveResponse;
+    private volatile HttpPost sendRequest;
 
 
     public SiteToSiteRestApiClient(final SSLContext sslContext, final HttpProxy proxy, final EventReporter eventReporter) {
+        this(sslContext, proxy, eventReporter, null);
+    }
+
+    /**
+     * Creates a client that issues its requests over the connections of the given pool, if one is given, rather than over connections of its own.
+     * The pool is not used if the proxy requires authentication, as the way that a transaction authenticates with the proxy depends on
+     * connections that are not shared.
+     *
+     * @param sslContext the SSLContext to use for secure connections
+     * @param proxy the proxy to communicate through, if any
+     * @param eventReporter the EventReporter to report events to
+     * @param clientPool the pool of connections to use, if any
+     */
+    public SiteToSiteRestApiClient(final SSLContext sslContext, final HttpProxy proxy, final EventReporter eventReporter, final SiteToSiteHttpClientPool clientPool) {
         this.sslContext = sslContext;
         this.proxy = proxy;
         this.eventReporter = eventReporter;
+        this.clientPool = shouldCheckProxyAuth() ? null : clientPool;
 
         ttlExtendTaskExecutor = Executors.newScheduledThreadPool(1, new ThreadFactory() {
             private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
@@ -204,11 +235,35 @@ public class SiteToSiteRestApiClient implements Closeable {
     @Override
     public void close() throws IOException {
         stopExtendingTtl();
-        closeSilently(httpClient);
-        closeSilently(httpAsyncClient);
+
+        if (clientPool == null) {
+            closeSilently(httpClient);
+            closeSilently(httpAsyncClient);
+        } else {
+            // the connections are shared with other transactions, so only abort the requests of this one that are still in progress
+            closeSilently(receiveResponse);
+            final Future<? extends HttpResponse> sendResult = postResult;
+            if (sendResult != null && !sendResult.isDone()) {
+                sendRequest.abort();
+                sendResult.cancel(true);
+            }
+        }
+    }
+
+    private boolean isPooled() {
+        return clientPool != null;
+    }
+
+    private HttpContext createHttpContext() {
+        final HttpContext httpContext = HttpClientContext.create();
+        httpContext.setAttribute(API_CLIENT_ATTRIBUTE, this);
+        return httpContext;
     }
 
     private CloseableHttpClient getHttpClient() {
+        if (isPooled()) {
+            return clientPool.getHttpClient();
+        }
         if (httpClient == null) {
             setupClient();
         }
@@ -270,7 +325,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         if (sslContext != null) {
             clientBuilder.setSslcontext(sslContext);
-            clientBuilder.addInterceptorFirst(new HttpsResponseInterceptor());
+            clientBuilder.addInterceptorFirst(createHttpsResponseInterceptor());
         }
 
         httpClient = clientBuilder
@@ -282,16 +337,28 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         if (sslContext != null) {
             clientBuilder.setSSLContext(sslContext);
-            clientBuilder.addInterceptorFirst(new HttpsResponseInterceptor());
+            clientBuilder.addInterceptorFirst(createHttpsResponseInterceptor());
         }
 
         httpAsyncClient = clientBuilder.setDefaultCredentialsProvider(getCredentialsProvider()).build();
         httpAsyncClient.start();
     }
 
-    private class HttpsResponseInterceptor implements HttpResponseInterceptor {
+    /**
+     * @return an interceptor that captures the DN of the peer's certificate for the client that issued each request
+     */
+    static HttpResponseInterceptor createHttpsResponseInterceptor() {
+        return new HttpsResponseInterceptor();
+    }
+
+    private static class HttpsResponseInterceptor implements HttpResponseInterceptor {
         @Override
         public void process(final HttpResponse response, final HttpContext httpContext) throws HttpException, IOException {
+            final SiteToSiteRestApiClient apiClient = (SiteToSiteRestApiClient) httpContext.getAttribute(API_CLIENT_ATTRIBUTE);
+            if (apiClient == null) {
+                return;
+            }
+
             final HttpCoreContext coreContext = HttpCoreContext.adapt(httpContext);
             final HttpInetConnection conn = coreContext.getConnection(HttpInetConnection.class);
             if (!conn.isOpen()) {
@@ -316,11 +383,11 @@ public class SiteToSiteRestApiClient implements Closeable {
 
                 try {
                     final X509Certificate cert = CertificateUtils.convertAbstractX509Certificate(certChain[0]);
-                    trustedPeerDn = cert.getSubjectDN().getName().trim();
+                    apiClient.trustedPeerDn = cert.getSubjectDN().getName().trim();
                 } catch (final CertificateException e) {
                     final String msg = "Could not extract subject DN from SSL session peer certificate";
                     logger.warn(msg);
-                    eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, msg);
+                    apiClient.eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, msg);
                     throw new SSLPeerUnverifiedException(msg);
                 }
             }
@@ -408,7 +475,7 @@ public class SiteToSiteRestApiClient implements Closeable {
         setHandshakeProperties(post);
 
         final HttpResponse response;
-        if (TransferDirection.RECEIVE.equals(direction)) {
+        if (TransferDirection.RECEIVE.equals(direction) || isPooled()) {
             response = initiateTransactionForReceive(post);
         } else {
             response = initiateTransactionForSend(post);
@@ -439,6 +506,19 @@ public class SiteToSiteRestApiClient implements Closeable {
                     throw new ProtocolException("Server didn't return " + HttpHeaders.SERVER_SIDE_TRANSACTION_TTL);
                 }
                 serverTransactionTtl = Integer.parseInt(serverTransactionTtlHeader.getValue());
+
+                // Servers that do not support batch frames do not return the header, and only support the first version of the codec
+                final Header flowFileCodecVersionHeader = response.getFirstHeader(HttpHeaders.FLOWFILE_CODEC_VERSION);
+                flowFileCodecVersion = flowFileCodecVersionHeader == null ? 1 : Integer.parseInt(flowFileCodecVersionHeader.getValue());
+                logger.debug("Finished FlowFile codec version negotiation, flowFileCodecVersion={}", flowFileCodecVersion);
+
+                // Servers that do not return the header compress data using the Deflate algorithm, as every version of Site-to-Site does
+                final Header blockCompressorHeader = response.getFirstHeader(HttpHeaders.BLOCK_COMPRESSOR);
+                blockCompressorNames = blockCompressorHeader == null ? DeflateBlockCompressor.NAME : blockCompressorHeader.getValue();
+                if (BlockCompressors.forName(blockCompressorNames) == null) {
+                    throw new ProtocolException("Server selected Block Compressor " + blockCompressorNames + ", which was not proposed");
+                }
+                logger.debug("Finished Block Compressor negotiation, blockCompressor={}", blockCompressorNames);
                 break;
 
             default:
@@ -453,13 +533,13 @@ public class SiteToSiteRestApiClient implements Closeable {
     }
 
     /**
-     * Initiate a transaction for receiving data.
+     * Initiate a transaction for receiving data, or for sending data over pooled connections.
      * @param post a POST request to establish transaction
      * @return POST request response
      * @throws IOException thrown if the post request failed
      */
     private HttpResponse initiateTransactionForReceive(final HttpPost post) throws IOException {
-        return getHttpClient().execute(post);
+        return getHttpClient().execute(post, createHttpContext());
     }
 
     /**
@@ -512,7 +592,7 @@ public class SiteToSiteRestApiClient implements Closeable {
         if (shouldCheckProxyAuth()) {
             final CloseableHttpAsyncClient asyncClient = getHttpAsyncClient();
             final HttpGet get = createGetControllerRequest();
-            final Future<HttpResponse> getResult = asyncClient.execute(get, null);
+            final Future<HttpResponse> getResult = asyncClient.execute(get, createHttpContext(), null);
             try {
                 final HttpResponse getResponse = getResult.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
                 logger.debug("Proxy auth check has done. getResponse={}", getResponse.getStatusLine());
@@ -575,7 +655,7 @@ public class SiteToSiteRestApiClient implements Closeable {
             }
         };
 
-        final Future<HttpResponse> responseFuture = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), null);
+        final Future<HttpResponse> responseFuture = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), createHttpContext(), null);
         final HttpResponse response;
         try {
             response = responseFuture.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
@@ -639,7 +719,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(get);
 
-        final CloseableHttpResponse response = getHttpClient().execute(get);
+        final CloseableHttpResponse response = getHttpClient().execute(get, createHttpContext());
         final int responseCode = response.getStatusLine().getStatusCode();
         logger.debug("responseCode={}", responseCode);
 
@@ -674,6 +754,7 @@ public class SiteToSiteRestApiClient implements Closeable {
                     };
                     ((HttpInput) peer.getCommunicationsSession().getInput()).setInputStream(streamCapture);
 
+                    receiveResponse = response;
                     startExtendingTtl(transactionUrl, httpIn, response);
                     keepItOpen = true;
                     return true;
@@ -705,6 +786,11 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(post);
 
+        if (isPooled()) {
+            openPooledConnectionForSend(transactionUrl, post, commSession);
+            return;
+        }
+
         final CountDownLatch initConnectionLatch = new CountDownLatch(1);
 
         final URI requestUri = post.getURI();
@@ -845,7 +931,7 @@ public class SiteToSiteRestApiClient implements Closeable {
             }
         };
 
-        postResult = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), null);
+        postResult = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), createHttpContext(), null);
 
         try {
             // Need to wait the post request actually started so that we can write to its output stream.
@@ -863,6 +949,40 @@ public class SiteToSiteRestApiClient implements Closeable {
 
     }
 
+    /**
+     * Streams the data of a transaction in the body of a request over the pooled connections. The request is executed on a sender
+     * thread of the pool, which reads the data packets as the Site-to-Site client thread writes them, until the output is closed.
+     */
+    private void openPooledConnectionForSend(final String transactionUrl, final HttpPost post, final CommunicationsSession commSession) throws IOException {
+        final PipedOutputStream outputStream = new PipedOutputStream();
+        final PipedInputStream inputStream = new PipedInputStream(outputStream, DATA_PACKET_CHANNEL_READ_BUFFER_SIZE);
+
+        final InputStreamEntity entity = new InputStreamEntity(inputStream, ContentType.APPLICATION_OCTET_STREAM);
+        entity.setChunked(true);
+        post.setEntity(entity);
+
+        logger.debug("sending data to {} has started...", post.getURI());
+        ((HttpOutput) commSession.getOutput()).setOutputStream(outputStream);
+
+        final HttpContext httpContext = createHttpContext();
+        sendRequest = post;
+        try {
+            postResult = clientPool.getSenderExecutor().submit(() -> {
+                try {
+                    return getHttpClient().execute(post, httpContext);
+                } finally {
+                    // if the request ended before all of the data was read, ensure the Site-to-Site client thread is not left blocked writing it
+                    closeSilently(inputStream);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            closeSilently(outputStream);
+            throw new IOException("Unable to send data to " + post.getURI() + " because the Site-to-Site client has been closed", e);
+        }
+
+        startExtendingTtl(transactionUrl, outputStream, null);
+    }
+
     public void finishTransferFlowFiles(final CommunicationsSession commSession) throws IOException {
 
         if (postResult == null) {
@@ -875,12 +995,15 @@ public class SiteToSiteRestApiClient implements Closeable {
         commSession.getOutput().getOutputStream().close();
         logger.debug("{} FinishTransferFlowFiles no more data can be sent", this);
 
-        try {
-            if (!transferDataLatch.await(requestExpirationMillis, TimeUnit.MILLISECONDS)) {
-                throw new IOException("Awaiting transferDataLatch has been timeout.");
+        // when the data is sent over pooled connections, the request itself completes once all of the data has been sent
+        if (!isPooled()) {
+            try {
+                if (!transferDataLatch.await(requestExpirationMillis, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("Awaiting transferDataLatch has been timeout.");
+                }
+            } catch (final InterruptedException e) {
+                throw new IOException("Awaiting transferDataLatch has been interrupted.", e);
             }
-        } catch (final InterruptedException e) {
-            throw new IOException("Awaiting transferDataLatch has been interrupted.", e);
         }
 
         stopExtendingTtl();
@@ -895,19 +1018,26 @@ public class SiteToSiteRestApiClient implements Closeable {
             throw new IOException(e);
         }
 
-        final int responseCode = response.getStatusLine().getStatusCode();
-        switch (responseCode) {
-            case RESPONSE_CODE_ACCEPTED:
-                final String receivedChecksum = EntityUtils.toString(response.getEntity());
-                ((HttpInput) commSession.getInput()).setInputStream(new ByteArrayInputStream(receivedChecksum.getBytes()));
-                ((HttpCommunicationsSession) commSession).setChecksum(receivedChecksum);
-                logger.debug("receivedChecksum={}", receivedChecksum);
-                break;
+        try {
+            final int responseCode = response.getStatusLine().getStatusCode();
+            switch (responseCode) {
+                case RESPONSE_CODE_ACCEPTED:
+                    final String receivedChecksum = EntityUtils.toString(response.getEntity());
+                    ((HttpInput) commSession.getInput()).setInputStream(new ByteArrayInputStream(receivedChecksum.getBytes()));
+                    ((HttpCommunicationsSession) commSession).setChecksum(receivedChecksum);
+                    logger.debug("receivedChecksum={}", receivedChecksum);
+                    break;
 
-            default:
-                try (InputStream content = response.getEntity().getContent()) {
-                    throw handleErrResponse(responseCode, content);
-                }
+                default:
+                    try (InputStream content = response.getEntity().getContent()) {
+                        throw handleErrResponse(responseCode, content);
+                    }
+            }
+        } finally {
+            // release the connection of a pooled request so that it can be reused
+            if (response instanceof Closeable) {
+                closeSilently((Closeable) response);
+            }
         }
     }
 
@@ -919,7 +1049,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         logger.debug("Starting extending TTL thread...");
 
-        extendingApiClient = new SiteToSiteRestApiClient(sslContext, proxy, EventReporter.NO_OP);
+        extendingApiClient = new SiteToSiteRestApiClient(sslContext, proxy, EventReporter.NO_OP, clientPool);
         extendingApiClient.transportProtocolVersionNegotiator = this.transportProtocolVersionNegotiator;
         extendingApiClient.connectTimeoutMillis = this.connectTimeoutMillis;
         extendingApiClient.readTimeoutMillis = this.readTimeoutMillis;
@@ -967,7 +1097,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(put);
 
-        try (final CloseableHttpResponse response = getHttpClient().execute(put)) {
+        try (final CloseableHttpResponse response = getHttpClient().execute(put, createHttpContext())) {
             final int responseCode = response.getStatusLine().getStatusCode();
             logger.debug("extendTransaction responseCode={}", responseCode);
 
@@ -1060,6 +1190,9 @@ public class SiteToSiteRestApiClient implements Closeable {
     }
 
     private void setHandshakeProperties(final HttpRequestBase httpRequest) {
+        httpRequest.setHeader(HttpHeaders.FLOWFILE_CODEC_VERSION, String.valueOf(flowFileCodecVersion));
+        httpRequest.setHeader(HttpHeaders.BLOCK_COMPRESSOR, blockCompressorNames);
+
         if (compress) {
             httpRequest.setHeader(HANDSHAKE_PROPERTY_USE_COMPRESSION, "true");
         }
@@ -1134,7 +1267,7 @@ public class SiteToSiteRestApiClient implements Closeable {
             Arrays.stream(get.getAllHeaders()).forEach(h -> logger.debug("REQ| {}", h));
         }
 
-        try (final CloseableHttpResponse response = httpClient.execute(get)) {
+        try (final CloseableHttpResponse response = httpClient.execute(get, createHttpContext())) {
             if (logger.isTraceEnabled()) {
                 Arrays.stream(response.getAllHeaders()).forEach(h -> logger.debug("RES| {}", h));
             }
@@ -1382,6 +1515,18 @@ public class SiteToSiteRestApiClient implements Closeable {
         return transportProtocolVersionNegotiator.getTransactionProtocolVersion();
     }
 
+    public int getFlowFileCodecVersion() {
+        return flowFileCodecVersion;
+    }
+
+    /**
+     * @return the Block Compressor that the server selected when the transaction was initiated
+     */
+    public BlockCompressor getBlockCompressor() {
+        final BlockCompressor blockCompressor = BlockCompressors.forName(blockCompressorNames);
+        return blockCompressor == null ? BlockCompressors.DEFLATE : blockCompressor;
+    }
+
     public String getTrustedPeerDn() {
         return this.trustedPeerDn;
     }
@@ -1403,7 +1548,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(delete);
 
-        try (CloseableHttpResponse response = getHttpClient().execute(delete)) {
+        try (CloseableHttpResponse response = getHttpClient().execute(delete, createHttpContext())) {
             final int responseCode = response.getStatusLine().getStatusCode();
             logger.debug("commitReceivingFlowFiles responseCode={}", responseCode);
 
@@ -1433,7 +1578,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(delete);
 
-        try (CloseableHttpResponse response = getHttpClient().execute(delete)) {
+        try (CloseableHttpResponse response = getHttpClient().execute(delete, createHttpContext())) {
             final int responseCode = response.getStatusLine().getStatusCode();
             logger.debug("commitTransferFlowFiles responseCode={}", responseCode);
 
@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -252,4 +253,50 @@ public class TestPeerSelector {
         peerStatus = peerSelector.getNextPeerStatus(TransferDirection.RECEIVE);
         assertEquals("Node1 should be returned since node 1 is the only available node.", bootstrapNode, peerStatus.getPeerDescription());
     }
+
+    @Test
+    public void testPeerSelectionUsesTransactionPerformance() throws IOException {
+        final Set<PeerStatus> peerStatuses = new HashSet<>();
+        final PeerDescription slowNode = new PeerDescription("SlowNode", 1111, true);
+        final PeerDescription fastNode = new PeerDescription("FastNode", 2222, true);
+        peerStatuses.add(new PeerStatus(slowNode, 10, true));
+        peerStatuses.add(new PeerStatus(fastNode, 10, true));
+
+        final PeerStatusProvider peerStatusProvider = Mockito.mock(PeerStatusProvider.class);
+        doReturn(slowNode).when(peerStatusProvider).getBootstrapPeerDescription();
+        doReturn(peerStatuses).when(peerStatusProvider).fetchRemotePeerStatuses(any(PeerDescription.class));
+
+        final PeerSelector peerSelector = new PeerSelector(peerStatusProvider, null);
+        final UnitTestSystemTime systemTime = new UnitTestSystemTime();
+        peerSelector.setSystemTime(systemTime);
+        peerSelector.refreshPeers();
+
+        // Without any transactions, the peers are selected evenly
+        final Map<PeerDescription, Integer> counts = countSelections(peerSelector, 1000);
+        assertTrue("Peers should be selected evenly", Math.abs(counts.get(slowNode) - counts.get(fastNode)) < 50);
+
+        // Both peers transfer the same amount of data, but the slow node takes ten times as long to do so
+        peerSelector.recordTransaction(slowNode, 1024L, TimeUnit.MILLISECONDS.toNanos(100));
+        peerSelector.recordTransaction(fastNode, 1024L, TimeUnit.MILLISECONDS.toNanos(10));
+
+        final Map<PeerDescription, Integer> performanceCounts = countSelections(peerSelector, 1000);
+        logger.info("performanceCounts={}", performanceCounts);
+        assertTrue("FastNode should be selected more often", performanceCounts.get(fastNode) > 600);
+        assertTrue("SlowNode should still be selected", performanceCounts.get(slowNode) > 0);
+
+        // Once the information is stale, the peers are selected evenly again
+        systemTime.offset += TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES) + 1;
+        peerSelector.refreshPeers();
+        final Map<PeerDescription, Integer> staleCounts = countSelections(peerSelector, 1000);
+        assertTrue("Peers should be selected evenly", Math.abs(staleCounts.get(slowNode) - staleCounts.get(fastNode)) < 50);
+    }
+
+    private Map<PeerDescription, Integer> countSelections(final PeerSelector peerSelector, final int selections) {
+        final Map<PeerDescription, Integer> counts = new HashMap<>();
+        for (int i = 0; i < selections; i++) {
+            final PeerStatus peerStatus = peerSelector.getNextPeerStatus(TransferDirection.SEND);
+            counts.merge(peerStatus.getPeerDescription(), 1, Integer::sum);
+        }
+        return counts;
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.nifi.remote.exception.ProtocolException;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Test;
+
+public class TestBlockCompressors {
+
+    private static DataInputStream toInput(final ByteArrayOutputStream baos) {
+        return new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    public void testNegotiation() throws IOException {
+        // the client's proposal is written before the server's selection can be read, so record the selection up front
+        final ByteArrayOutputStream selection = new ByteArrayOutputStream();
+        new DataOutputStream(selection).writeUTF(DeflateBlockCompressor.NAME);
+
+        final ByteArrayOutputStream proposal = new ByteArrayOutputStream();
+        final BlockCompressor clientCompressor = BlockCompressors.propose(toInput(selection), new DataOutputStream(proposal));
+
+        final ByteArrayOutputStream serverSelection = new ByteArrayOutputStream();
+        final BlockCompressor serverCompressor = BlockCompressors.receiveProposal(toInput(proposal), new DataOutputStream(serverSelection));
+
+        assertSame(BlockCompressors.DEFLATE, clientCompressor);
+        assertSame(BlockCompressors.DEFLATE, serverCompressor);
+        assertArrayEquals(selection.toByteArray(), serverSelection.toByteArray());
+    }
+
+    @Test
+    public void testReceiveProposalWithoutSupportedCompressor() throws IOException {
+        final ByteArrayOutputStream proposal = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(proposal);
+        dos.writeInt(2);
+        dos.writeUTF("ZSTD");
+        dos.writeUTF("LZ4");
+
+        final ByteArrayOutputStream selection = new ByteArrayOutputStream();
+        assertSame(BlockCompressors.DEFLATE, BlockCompressors.receiveProposal(toInput(proposal), new DataOutputStream(selection)));
+        assertEquals(DeflateBlockCompressor.NAME, toInput(selection).readUTF());
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testReceiveProposalWithTooManyNames() throws IOException {
+        final ByteArrayOutputStream proposal = new ByteArrayOutputStream();
+        new DataOutputStream(proposal).writeInt(Integer.MAX_VALUE);
+
+        BlockCompressors.receiveProposal(toInput(proposal), new DataOutputStream(new ByteArrayOutputStream()));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void testProposeRejectsUnproposedSelection() throws IOException {
+        final ByteArrayOutputStream selection = new ByteArrayOutputStream();
+        new DataOutputStream(selection).writeUTF("ZSTD");
+
+        BlockCompressors.propose(toInput(selection), new DataOutputStream(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testSelect() {
+        assertSame(BlockCompressors.DEFLATE, BlockCompressors.select(Arrays.asList("ZSTD", " DEFLATE ")));
+        assertSame(BlockCompressors.DEFLATE, BlockCompressors.select(Arrays.asList("ZSTD")));
+        assertSame(BlockCompressors.DEFLATE, BlockCompressors.forName(DeflateBlockCompressor.NAME));
+        assertNull(BlockCompressors.forName("ZSTD"));
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"event\"}\n");
+        }
+        final byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final OutputStream out = BlockCompressors.DEFLATE.compress(compressed)) {
+            out.write(data);
+        }
+
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (final InputStream in = BlockCompressors.DEFLATE.decompress(new ByteArrayInputStream(compressed.toByteArray()))) {
+            StreamUtils.copy(in, decompressed);
+        }
+
+        assertArrayEquals(data, decompressed.toByteArray());
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.codec;
+
+import static org.apache.nifi.remote.protocol.SiteToSiteTestUtils.readContents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.nifi.remote.exception.ProtocolException;
+import org.apache.nifi.remote.protocol.DataPacket;
+import org.apache.nifi.remote.util.StandardDataPacket;
+import org.junit.Test;
+
+public class TestStandardFlowFileCodec {
+
+    private static StandardFlowFileCodec createBatchFrameCodec() {
+        final StandardFlowFileCodec codec = new StandardFlowFileCodec();
+        codec.getVersionNegotiator().setVersion(StandardFlowFileCodec.BATCH_FRAME_VERSION);
+        return codec;
+    }
+
+    private static DataPacket createDataPacket(final int index, final String contents) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", "00000000-0000-0000-0000-" + String.format("%012d", index));
+        attributes.put("filename", "file-" + index + ".json");
+        attributes.put("kafka.topic", "events");
+        attributes.put("kafka.partition", String.valueOf(index % 4));
+
+        final byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+        return new StandardDataPacket(attributes, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private static String createContents(final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    private static void assertDataPacketEquals(final DataPacket expected, final String expectedContents, final DataPacket actual) throws IOException {
+        assertEquals(expected.getAttributes(), actual.getAttributes());
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expectedContents, readContents(actual));
+    }
+
+    @Test
+    public void testFirstVersionDoesNotBuffer() throws IOException {
+        final StandardFlowFileCodec codec = new StandardFlowFileCodec();
+        assertEquals(1, codec.getVersionNegotiator().getVersion());
+        assertFalse(codec.buffer(createDataPacket(0, "small")));
+        assertFalse(codec.hasBufferedPackets());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.flush(out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void testBatchFrameRoundTrip() throws IOException {
+        final StandardFlowFileCodec encoder = createBatchFrameCodec();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(encoder.buffer(createDataPacket(i, "contents " + i)));
+        }
+        assertTrue(encoder.hasBufferedPackets());
+
+        // Content that is too large to be batched is written in a frame of its own once the batch frame has been flushed
+        final String largeContents = createContents(StandardFlowFileCodec.MAX_BATCHED_CONTENT_SIZE + 1);
+        assertFalse(encoder.buffer(createDataPacket(10, largeContents)));
+        encoder.flush(out);
+        assertFalse(encoder.hasBufferedPackets());
+        encoder.encode(createDataPacket(10, largeContents), out);
+
+        final StandardFlowFileCodec decoder = createBatchFrameCodec();
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (int i = 0; i < 10; i++) {
+            assertDataPacketEquals(createDataPacket(i, "contents " + i), "contents " + i, decoder.decode(in));
+            assertEquals(i < 9, decoder.hasBufferedPackets());
+        }
+        assertDataPacketEquals(createDataPacket(10, largeContents), largeContents, decoder.decode(in));
+        assertNull(decoder.decode(in));
+    }
+
+    @Test
+    public void testBatchFrameIsSmallerThanFirstVersion() throws IOException {
+        final StandardFlowFileCodec firstVersion = new StandardFlowFileCodec();
+        final ByteArrayOutputStream firstVersionOut = new ByteArrayOutputStream();
+        final StandardFlowFileCodec batchFrameVersion = createBatchFrameCodec();
+        final ByteArrayOutputStream batchFrameOut = new ByteArrayOutputStream();
+
+        for (int i = 0; i < 100; i++) {
+            firstVersion.encode(createDataPacket(i, "{\"id\":" + i + "}"), firstVersionOut);
+            assertTrue(batchFrameVersion.buffer(createDataPacket(i, "{\"id\":" + i + "}")));
+        }
+        batchFrameVersion.flush(batchFrameOut);
+
+        // The framing of each FlowFile and the attribute keys that are repeated by every FlowFile make up much of the first version
+        assertTrue(batchFrameOut.size() < firstVersionOut.size() * 3 / 5);
+    }
+
+    @Test
+    public void testAttributeKeysAreSentOncePerTransaction() throws IOException {
+        final StandardFlowFileCodec encoder = createBatchFrameCodec();
+
+        final ByteArrayOutputStream firstFrame = new ByteArrayOutputStream();
+        encoder.buffer(createDataPacket(0, "contents"));
+        encoder.flush(firstFrame);
+
+        final ByteArrayOutputStream secondFrame = new ByteArrayOutputStream();
+        encoder.buffer(createDataPacket(1, "contents"));
+        encoder.flush(secondFrame);
+        assertEquals(firstFrame.size() - "kafka.topic".length() - "kafka.partition".length() - 2, secondFrame.size());
+
+        // A new transaction must send the keys again
+        encoder.reset();
+        final ByteArrayOutputStream thirdFrame = new ByteArrayOutputStream();
+        encoder.buffer(createDataPacket(2, "contents"));
+        encoder.flush(thirdFrame);
+        assertEquals(firstFrame.size(), thirdFrame.size());
+
+        final StandardFlowFileCodec decoder = createBatchFrameCodec();
+        assertDataPacketEquals(createDataPacket(0, "contents"), "contents", decoder.decode(new ByteArrayInputStream(firstFrame.toByteArray())));
+        assertDataPacketEquals(createDataPacket(1, "contents"), "contents", decoder.decode(new ByteArrayInputStream(secondFrame.toByteArray())));
+        decoder.reset();
+        assertDataPacketEquals(createDataPacket(2, "contents"), "contents", decoder.decode(new ByteArrayInputStream(thirdFrame.toByteArray())));
+    }
+
+    @Test
+    public void testBatchFrameIsFull() throws IOException {
+        final StandardFlowFileCodec encoder = createBatchFrameCodec();
+        final String contents = createContents(StandardFlowFileCodec.MAX_BATCHED_CONTENT_SIZE);
+
+        int buffered = 0;
+        while (encoder.buffer(createDataPacket(buffered, contents))) {
+            buffered++;
+        }
+        // Each DataPacket is larger than its content, and the frame may be exceeded by the last DataPacket that is added to it
+        assertTrue(buffered > 1);
+        assertTrue(buffered <= StandardFlowFileCodec.MAX_BATCH_FRAME_SIZE / StandardFlowFileCodec.MAX_BATCHED_CONTENT_SIZE);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.flush(out);
+        assertTrue(encoder.buffer(createDataPacket(buffered, contents)));
+    }
+
+    @Test
+    public void testCorruptBatchFrameIsRejected() throws IOException {
+        final StandardFlowFileCodec encoder = createBatchFrameCodec();
+        encoder.buffer(createDataPacket(0, "contents"));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.flush(out);
+
+        final byte[] frame = out.toByteArray();
+        frame[frame.length - 1] ^= 1;
+
+        try {
+            createBatchFrameCodec().decode(new ByteArrayInputStream(frame));
+            fail("Expected corrupt batch frame to be rejected");
+        } catch (final ProtocolException e) {
+            assertTrue(e.getMessage().contains("CRC32"));
+        }
+    }
+
+    @Test
+    public void testOversizedBatchFrameIsRejectedBeforeAllocation() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(1); // batch frame
+        out.write(1); // one FlowFile
+        out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}); // frame size of Integer.MAX_VALUE
+        out.write(new byte[4]); // checksum
+
+        try {
+            createBatchFrameCodec().decode(new ByteArrayInputStream(out.toByteArray()));
+            fail("Expected oversized batch frame to be rejected");
+        } catch (final ProtocolException e) {
+            assertTrue(e.getMessage().contains(String.valueOf(Integer.MAX_VALUE)));
+        }
+    }
+
+    @Test
+    public void testLargeAttributesAreNotBatched() throws IOException {
+        final StandardFlowFileCodec encoder = createBatchFrameCodec();
+        final DataPacket dataPacket = createDataPacket(0, "contents");
+        dataPacket.getAttributes().put("large.key", createContents(StandardFlowFileCodec.MAX_BATCHED_ATTRIBUTES_SIZE));
+        assertFalse(encoder.buffer(dataPacket));
+        assertFalse(encoder.hasBufferedPackets());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(dataPacket, out);
+
+        // The rejected DataPacket must not have added its keys to the dictionary, or the peers would no longer agree on it
+        final StandardFlowFileCodec decoder = createBatchFrameCodec();
+        assertDataPacketEquals(dataPacket, "contents", decoder.decode(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void testFailedBufferLeavesFrameIntact() throws IOException {
+        final StandardFlowFileCodec encoder = createBatchFrameCodec();
+        assertTrue(encoder.buffer(createDataPacket(0, "contents")));
+
+        // A DataPacket whose content ends before its size is reached fails partway through being copied
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("truncated.key", "value");
+        final DataPacket truncated = new StandardDataPacket(attributes, new ByteArrayInputStream(new byte[10]), 100);
+        try {
+            encoder.buffer(truncated);
+            fail("Expected buffering of truncated DataPacket to fail");
+        } catch (final EOFException expected) {
+        }
+
+        assertTrue(encoder.buffer(createDataPacket(1, "contents")));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.flush(out);
+
+        final StandardFlowFileCodec decoder = createBatchFrameCodec();
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertDataPacketEquals(createDataPacket(0, "contents"), "contents", decoder.decode(in));
+        assertDataPacketEquals(createDataPacket(1, "contents"), "contents", decoder.decode(in));
+        assertNull(decoder.decode(in));
+    }
+}
@@ -39,6 +39,8 @@ import org.slf4j.LoggerFactory;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 import static org.apache.nifi.remote.protocol.SiteToSiteTestUtils.createDataPacket;
 import static org.apache.nifi.remote.protocol.SiteToSiteTestUtils.execReceiveOneFlowFile;
@@ -52,6 +54,8 @@ import static org.apache.nifi.remote.protocol.SiteToSiteTestUtils.execSendWithIn
 import static org.apache.nifi.remote.protocol.SiteToSiteTestUtils.execSendZeroFlowFile;
 import static org.apache.nifi.remote.protocol.SiteToSiteTestUtils.readContents;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -61,6 +65,11 @@ public class TestSocketClientTransaction {
     private FlowFileCodec codec = new StandardFlowFileCodec();
 
     private SocketClientTransaction getClientTransaction(ByteArrayInputStream bis, ByteArrayOutputStream bos, TransferDirection direction) throws IOException {
+        return getClientTransaction(bis, bos, direction, codec);
+    }
+
+    private SocketClientTransaction getClientTransaction(ByteArrayInputStream bis, ByteArrayOutputStream bos, TransferDirection direction,
+                                                         FlowFileCodec codec) throws IOException {
         PeerDescription description = null;
         String peerUrl = "";
         SocketChannelCommunicationsSession commsSession = mock(SocketChannelCommunicationsSession.class);
@@ -163,6 +172,38 @@ public class TestSocketClientTransaction {
         assertEquals(-1, sentByClient.read());
     }
 
+    @Test
+    public void testReceiveTwoFlowFilesInBatchFrame() throws IOException {
+
+        ByteArrayOutputStream serverResponseBos = new ByteArrayOutputStream();
+        DataOutputStream serverResponse = new DataOutputStream(serverResponseBos);
+        ResponseCode.MORE_DATA.writeResponse(serverResponse);
+        FlowFileCodec serverCodec = createBatchFrameCodec();
+        assertTrue(serverCodec.buffer(createDataPacket("contents on server 1")));
+        assertTrue(serverCodec.buffer(createDataPacket("contents on server 2")));
+        CRC32 crc = new CRC32();
+        serverCodec.flush(new CheckedOutputStream(serverResponse, crc));
+        ResponseCode.FINISH_TRANSACTION.writeResponse(serverResponse);
+        ResponseCode.CONFIRM_TRANSACTION.writeResponse(serverResponse, "Checksum has been verified at server.");
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(serverResponseBos.toByteArray());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        SocketClientTransaction transaction = getClientTransaction(bis, bos, TransferDirection.RECEIVE, createBatchFrameCodec());
+
+        execReceiveTwoFlowFiles(transaction);
+
+        // Verify what client has sent.
+        DataInputStream sentByClient = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(RequestType.RECEIVE_FLOWFILES, RequestType.readRequestType(sentByClient));
+        Response confirmResponse = Response.read(sentByClient);
+        assertEquals(ResponseCode.CONFIRM_TRANSACTION, confirmResponse.getCode());
+        assertEquals("Checksum should be calculated at client", String.valueOf(crc.getValue()), confirmResponse.getMessage());
+        Response completeResponse = Response.read(sentByClient);
+        assertEquals(ResponseCode.TRANSACTION_FINISHED, completeResponse.getCode());
+        assertEquals(-1, sentByClient.read());
+    }
+
     @Test
     public void testReceiveWithInvalidChecksum() throws IOException {
 
@@ -269,6 +310,50 @@ public class TestSocketClientTransaction {
         assertEquals(-1, sentByClient.read());
     }
 
+    @Test
+    public void testSendTwoFlowFilesInBatchFrame() throws IOException {
+
+        FlowFileCodec expectedCodec = createBatchFrameCodec();
+        expectedCodec.buffer(createDataPacket("contents on client 1"));
+        expectedCodec.buffer(createDataPacket("contents on client 2"));
+        CRC32 crc = new CRC32();
+        expectedCodec.flush(new CheckedOutputStream(new ByteArrayOutputStream(), crc));
+
+        ByteArrayOutputStream serverResponseBos = new ByteArrayOutputStream();
+        DataOutputStream serverResponse = new DataOutputStream(serverResponseBos);
+        ResponseCode.CONFIRM_TRANSACTION.writeResponse(serverResponse, String.valueOf(crc.getValue()));
+        ResponseCode.TRANSACTION_FINISHED.writeResponse(serverResponse);
+
+        ByteArrayInputStream bis = new ByteArrayInputStream(serverResponseBos.toByteArray());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        SocketClientTransaction transaction = getClientTransaction(bis, bos, TransferDirection.SEND, createBatchFrameCodec());
+
+        execSendTwoFlowFiles(transaction);
+
+        // Verify what client has sent. Both FlowFiles are sent in a single frame, without a CONTINUE_TRANSACTION between them.
+        DataInputStream sentByClient = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(RequestType.SEND_FLOWFILES, RequestType.readRequestType(sentByClient));
+        FlowFileCodec serverCodec = createBatchFrameCodec();
+        DataPacket packetByClient = serverCodec.decode(sentByClient);
+        assertEquals("contents on client 1", readContents(packetByClient));
+        assertTrue(serverCodec.hasBufferedPackets());
+        packetByClient = serverCodec.decode(sentByClient);
+        assertEquals("contents on client 2", readContents(packetByClient));
+        assertFalse(serverCodec.hasBufferedPackets());
+        Response endOfDataResponse = Response.read(sentByClient);
+        assertEquals(ResponseCode.FINISH_TRANSACTION, endOfDataResponse.getCode());
+        Response confirmResponse = Response.read(sentByClient);
+        assertEquals(ResponseCode.CONFIRM_TRANSACTION, confirmResponse.getCode());
+        assertEquals(-1, sentByClient.read());
+    }
+
+    private FlowFileCodec createBatchFrameCodec() {
+        FlowFileCodec codec = new StandardFlowFileCodec();
+        codec.getVersionNegotiator().setVersion(StandardFlowFileCodec.BATCH_FRAME_VERSION);
+        return codec;
+    }
+
     @Test
     public void testSendWithInvalidChecksum() throws IOException {
 
@@ -16,11 +16,13 @@
  */
 package org.apache.nifi.remote.io.socket;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.TimeUnit;
 
@@ -102,6 +104,47 @@ public class SocketChannelOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Transfers the given number of bytes, starting at the given position of the given FileChannel, to the underlying
+     * SocketChannel. This allows the operating system to send the bytes directly from the file, without copying them
+     * into the heap. The position of the FileChannel is not modified.
+     *
+     * @param source the FileChannel to transfer bytes from
+     * @param position the position within the FileChannel of the first byte to transfer
+     * @param count the number of bytes to transfer
+     * @return the number of bytes transferred
+     * @throws java.io.EOFException if the FileChannel ends before the given number of bytes have been transferred
+     * @throws IOException if unable to write to the socket
+     */
+    public long transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        final int timeoutMillis = this.timeout;
+        long maxTime = System.currentTimeMillis() + timeoutMillis;
+        long transferred = 0L;
+        while (transferred < count) {
+            final long bytesWritten = source.transferTo(position + transferred, count - transferred, channel);
+            if (bytesWritten == 0) {
+                if (position + transferred >= source.size()) {
+                    throw new EOFException("Expected to transfer " + count + " bytes but only " + transferred + " bytes were available");
+                }
+                if (System.currentTimeMillis() > maxTime) {
+                    throw new SocketTimeoutException("Timed out writing to socket");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(CHANNEL_FULL_WAIT_NANOS);
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt(); // set the interrupt status
+                    throw new ClosedByInterruptException(); // simulate an interrupted blocked write operation
+                }
+            } else {
+                transferred += bytesWritten;
+                maxTime = System.currentTimeMillis() + timeoutMillis;
+            }
+        }
+
+        return transferred;
+    }
+
     /**
      * Closes the underlying SocketChannel
      *
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.io.socket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Test;
+
+public class TestSocketChannelOutputStream {
+
+    @Test
+    public void testTransferFrom() throws IOException {
+        // Larger than a typical socket send buffer, so that the transfer has to wait for the reader
+        final byte[] data = new byte[4 * 1024 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        final Path file = createFile("testTransferFrom", data);
+        try (final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+
+            try (final SocketChannel clientChannel = SocketChannel.open(server.getLocalAddress());
+                final SocketChannel serverChannel = server.accept();
+                final SocketChannelOutputStream out = new SocketChannelOutputStream(clientChannel);
+                final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+                final byte[] received = new byte[data.length - 100];
+                final Thread reader = new Thread(() -> {
+                    try (final InputStream in = serverChannel.socket().getInputStream()) {
+                        StreamUtils.fillBuffer(in, received);
+                    } catch (final IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                reader.start();
+
+                assertEquals(received.length, out.transferFrom(fileChannel, 100, received.length));
+                assertEquals(0L, fileChannel.position());
+
+                reader.join();
+                assertArrayEquals(Arrays.copyOfRange(data, 100, data.length), received);
+            } catch (final InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTransferFromPastEndOfFile() throws IOException {
+        final Path file = createFile("testTransferFromPastEndOfFile", "hello".getBytes(StandardCharsets.UTF_8));
+        try (final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+
+            try (final SocketChannel clientChannel = SocketChannel.open(server.getLocalAddress());
+                final Socket serverSocket = server.accept().socket();
+                final SocketChannelOutputStream out = new SocketChannelOutputStream(clientChannel);
+                final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+                out.transferFrom(fileChannel, 0, 10);
+            }
+        }
+    }
+
+    private Path createFile(final String name, final byte[] data) throws IOException {
+        final Path file = new File("target/" + name).toPath();
+        Files.write(file, data);
+        return file;
+    }
+}
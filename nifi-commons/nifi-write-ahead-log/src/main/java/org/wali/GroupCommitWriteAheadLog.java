@@ -0,0 +1,1217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wali;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A Write-Ahead Log that is intended to scale to a very large number of records and a large number of updating threads.
+ * Like {@link MinimalLockingWriteAheadLog}, this implementation is ONLY appropriate if it can be guaranteed that only a
+ * single thread will ever issue updates for a given Record at any one time. It differs from MinimalLockingWriteAheadLog
+ * in the following ways:
+ * </p>
+ *
+ * <ul>
+ * <li>
+ * Because updates are group-committed, only a small number of journals is needed, rather than one partition per updating
+ * thread. Each journal is written through a memory-mapped file, so that appending a transaction is a memory copy rather
+ * than a system call.
+ * </li>
+ * <li>
+ * Updates that require a sync are group-committed: while one thread is syncing a journal to disk, any other threads that
+ * need that journal to be synced wait, and the next sync covers all of their transactions at once. As a result, the number
+ * of syncs that are performed is bounded by how fast the disk can sync, rather than by the number of updates.
+ * </li>
+ * <li>
+ * A checkpoint holds the lock that prevents updates only for as long as it takes to roll over the journals and to take a
+ * shallow copy of the records and swap locations. The snapshot is then serialized from that copy while updates continue,
+ * so it reflects exactly the transactions up to the rollover, and recovery always restores a prefix of the transactions.
+ * </li>
+ * </ul>
+ *
+ * <p>
+ * On recovery, if the repository was last written by {@link MinimalLockingWriteAheadLog}, the records are recovered from
+ * that format, a checkpoint is written in this format, and the old partitions and snapshot are removed.
+ * </p>
+ *
+ * @param <T> type of record this WAL is for
+ */
+public final class GroupCommitWriteAheadLog<T> implements WriteAheadRepository<T> {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriteAheadLog.class);
+
+    static final String JOURNAL_DIRECTORY_PREFIX = "journal-";
+    private static final String SNAPSHOT_FILENAME = "checkpoint";
+    private static final String PARTIAL_SNAPSHOT_FILENAME = "checkpoint.partial";
+    private static final String LOCK_FILENAME = "group-commit-wali.lock";
+
+    private static final String LEGACY_PARTITION_PREFIX = "partition-";
+    private static final String LEGACY_SNAPSHOT_FILENAME = "snapshot";
+    private static final String LEGACY_PARTIAL_SNAPSHOT_FILENAME = "snapshot.partial";
+    private static final String LEGACY_LOCK_FILENAME = "wali.lock";
+
+    static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final byte RECORD_FOLLOWS = 1;
+    private static final byte END_OF_RECORDS = 0;
+
+    private final SortedSet<Path> paths;
+    private final Path basePath;
+    private final Path snapshotPath;
+    private final Path partialPath;
+
+    private final SerDeFactory<T> serdeFactory;
+    private final SyncListener syncListener;
+    private final FileChannel lockChannel;
+    private final AtomicLong transactionIdGenerator = new AtomicLong(0L);
+
+    private final Journal<T>[] journals;
+    private final AtomicLong journalIndex = new AtomicLong(0L);
+    private final AtomicInteger numberBlackListedJournals = new AtomicInteger(0);
+    private final ConcurrentMap<Object, T> recordMap = new ConcurrentHashMap<>();
+    private final Map<Object, T> unmodifiableRecordMap = Collections.unmodifiableMap(recordMap);
+    private final Set<String> externalLocations = ConcurrentHashMap.newKeySet();
+    private final Set<String> recoveredExternalLocations = new CopyOnWriteArraySet<>();
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Lock readLock = rwLock.readLock(); // required to update a journal
+    private final Lock writeLock = rwLock.writeLock(); // required to roll over the journals
+
+    private volatile boolean updated = false;
+    private volatile boolean recovered = false;
+
+    public GroupCommitWriteAheadLog(final Path path, final int journalCount, final SerDe<T> serde, final SyncListener syncListener) throws IOException {
+        this(new TreeSet<>(Collections.singleton(path)), journalCount, new SingletonSerDeFactory<T>(serde), syncListener);
+    }
+
+    public GroupCommitWriteAheadLog(final SortedSet<Path> paths, final int journalCount, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(paths, journalCount, serdeFactory, syncListener, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param paths a sorted set of Paths to use for the journals and the snapshot. The journals are spread across the paths,
+     *            and the snapshot is always written to the first path specified.
+     * @param journalCount the number of journals to use. Because each journal is synced by one thread at a time, this
+     *            should be large enough that the storage is kept busy, but it need not be close to the number of threads
+     *            that are expected to update the repository simultaneously
+     * @param serdeFactory the factory for the serializer/deserializer for records
+     * @param syncListener the listener, or <code>null</code> if no listener is to be notified
+     * @param segmentSize the number of bytes of a journal that are mapped into memory at once
+     * @throws IOException if unable to initialize due to IO issue
+     */
+    @SuppressWarnings("unchecked")
+    GroupCommitWriteAheadLog(final SortedSet<Path> paths, final int journalCount, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+        final int segmentSize) throws IOException {
+        requireNonNull(paths);
+        requireNonNull(serdeFactory);
+
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("Paths must be non-empty");
+        }
+
+        for (final Path path : paths) {
+            if (!Files.exists(path)) {
+                Files.createDirectories(path);
+            }
+
+            final File file = path.toFile();
+            if (!file.isDirectory()) {
+                throw new IOException("Path given [" + path + "] is not a directory");
+            }
+            if (!file.canWrite()) {
+                throw new IOException("Path given [" + path + "] is not writable");
+            }
+            if (!file.canRead()) {
+                throw new IOException("Path given [" + path + "] is not readable");
+            }
+            if (!file.canExecute()) {
+                throw new IOException("Path given [" + path + "] is not executable");
+            }
+        }
+
+        this.paths = paths;
+        this.serdeFactory = serdeFactory;
+        this.syncListener = syncListener;
+        this.basePath = paths.first();
+        this.snapshotPath = basePath.resolve(SNAPSHOT_FILENAME);
+        this.partialPath = basePath.resolve(PARTIAL_SNAPSHOT_FILENAME);
+
+        final Path lockPath = basePath.resolve(LOCK_FILENAME);
+        lockChannel = new FileOutputStream(lockPath.toFile()).getChannel();
+        lockChannel.lock();
+
+        int resolvedJournalCount = Math.max(1, journalCount);
+        final int existingJournals = countDirectories(JOURNAL_DIRECTORY_PREFIX);
+        if (existingJournals != 0 && existingJournals != resolvedJournalCount) {
+            logger.warn("Constructing GroupCommitWriteAheadLog with journalCount={}, but the repository currently has "
+                + "{} journals; ignoring argument and proceeding with {} journals",
+                new Object[] {journalCount, existingJournals, existingJournals});
+            resolvedJournalCount = existingJournals;
+        }
+
+        journals = new Journal[resolvedJournalCount];
+        Iterator<Path> pathIterator = paths.iterator();
+        for (int i = 0; i < resolvedJournalCount; i++) {
+            // If we're out of paths, create a new iterator to start over.
+            if (!pathIterator.hasNext()) {
+                pathIterator = paths.iterator();
+            }
+
+            final Path journalDirectory = pathIterator.next().resolve(JOURNAL_DIRECTORY_PREFIX + i);
+            journals[i] = new Journal<>(journalDirectory, serdeFactory, i, getVersion(), segmentSize);
+        }
+    }
+
+    @Override
+    public int update(final Collection<T> records, final boolean forceSync) throws IOException {
+        if (!recovered) {
+            throw new IllegalStateException("Cannot update repository until record recovery has been performed");
+        }
+
+        if (records.isEmpty()) {
+            return -1;
+        }
+
+        updated = true;
+        readLock.lock();
+        try {
+            while (true) {
+                if (numberBlackListedJournals.get() >= journals.length) {
+                    throw new IOException("All Journals have been blacklisted due to "
+                        + "failures when attempting to update. If the Write-Ahead Log is able to perform a checkpoint, "
+                        + "this issue may resolve itself. Otherwise, manual intervention will be required.");
+                }
+
+                final int resolvedIdx = (int) (journalIndex.getAndIncrement() % journals.length);
+                final Journal<T> journal = journals[resolvedIdx];
+                if (journal.isBlackListed()) {
+                    continue;
+                }
+
+                if (logger.isTraceEnabled()) {
+                    for (final T record : records) {
+                        logger.trace("{} performing update: {}", journal, record);
+                    }
+                }
+
+                // Serialize outside of any lock, so that many threads can prepare their transactions concurrently.
+                final byte[] transaction = journal.serialize(records, unmodifiableRecordMap);
+
+                try {
+                    final long sequence = journal.append(transaction, transactionIdGenerator);
+                    if (forceSync) {
+                        journal.sync(sequence);
+                    }
+                } catch (final Throwable t) {
+                    if (journal.blackList()) {
+                        numberBlackListedJournals.incrementAndGet();
+                    }
+                    throw t;
+                }
+
+                if (forceSync && syncListener != null) {
+                    syncListener.onSync(resolvedIdx);
+                }
+
+                updateRecordMap(records);
+                return resolvedIdx;
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void updateRecordMap(final Collection<T> records) {
+        for (final T record : records) {
+            final UpdateType updateType = serdeFactory.getUpdateType(record);
+            final Object recordIdentifier = serdeFactory.getRecordIdentifier(record);
+
+            if (updateType == UpdateType.DELETE) {
+                recordMap.remove(recordIdentifier);
+            } else if (updateType == UpdateType.SWAP_OUT) {
+                final String newLocation = serdeFactory.getLocation(record);
+                if (newLocation == null) {
+                    logger.error("Received Record (ID=" + recordIdentifier + ") with UpdateType of SWAP_OUT but "
+                        + "no indicator of where the Record is to be Swapped Out to; these records may be "
+                        + "lost when the repository is restored!");
+                } else {
+                    recordMap.remove(recordIdentifier);
+                    externalLocations.add(newLocation);
+                }
+            } else if (updateType == UpdateType.SWAP_IN) {
+                final String newLocation = serdeFactory.getLocation(record);
+                if (newLocation == null) {
+                    logger.error("Received Record (ID=" + recordIdentifier + ") with UpdateType of SWAP_IN but no "
+                        + "indicator of where the Record is to be Swapped In from; these records may be duplicated "
+                        + "when the repository is restored!");
+                } else {
+                    externalLocations.remove(newLocation);
+                }
+                recordMap.put(recordIdentifier, record);
+            } else {
+                recordMap.put(recordIdentifier, record);
+            }
+        }
+    }
+
+    @Override
+    public Collection<T> recoverRecords() throws IOException {
+        if (updated) {
+            throw new IllegalStateException("Cannot recover records after updating the repository; must call recoverRecords first");
+        }
+
+        final long recoverStart = System.nanoTime();
+        final boolean recoveredLegacyFormat;
+        writeLock.lock();
+        try {
+            recoveredLegacyFormat = !Files.exists(snapshotPath) && !Files.exists(partialPath) && isLegacyFormatPresent();
+            if (recoveredLegacyFormat) {
+                recoverFromLegacyFormat();
+
+                // Any journals that exist were created by an earlier attempt to recover the old format that did not complete,
+                // so they cannot contain any transactions. They will be removed by the checkpoint.
+                for (final Journal<T> journal : journals) {
+                    journal.discardRecoveryFiles();
+                }
+            } else {
+                Long maxTransactionId = recoverFromSnapshot();
+                recoverFromEdits(maxTransactionId);
+
+                for (final Journal<T> journal : journals) {
+                    final long transactionId = journal.getMaxRecoveredTransactionId();
+                    if (maxTransactionId == null || transactionId > maxTransactionId) {
+                        maxTransactionId = transactionId;
+                    }
+                }
+
+                transactionIdGenerator.set(maxTransactionId + 1);
+            }
+
+            for (final Journal<T> journal : journals) {
+                journal.endRecovery();
+            }
+
+            externalLocations.addAll(recoveredExternalLocations);
+            logger.info("{} finished recovering records. Performing Checkpoint to ensure proper state of Journals before updates", this);
+        } finally {
+            writeLock.unlock();
+        }
+
+        final long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoverStart);
+        logger.info("Successfully recovered {} records in {} milliseconds", recordMap.size(), recoveryMillis);
+        checkpoint();
+
+        // The checkpoint now holds everything that was in the old format, so it is safe to remove it.
+        // If we fail before this point, the old format will be recovered again on restart.
+        deleteLegacyFormat();
+
+        recovered = true;
+        return recordMap.values();
+    }
+
+    @Override
+    public Set<String> getRecoveredSwapLocations() throws IOException {
+        return recoveredExternalLocations;
+    }
+
+    private boolean isLegacyFormatPresent() {
+        if (Files.exists(basePath.resolve(LEGACY_SNAPSHOT_FILENAME)) || Files.exists(basePath.resolve(LEGACY_PARTIAL_SNAPSHOT_FILENAME))) {
+            return true;
+        }
+
+        return countDirectories(LEGACY_PARTITION_PREFIX) > 0;
+    }
+
+    private int countDirectories(final String namePrefix) {
+        int count = 0;
+        for (final Path path : paths) {
+            final File[] children = path.toFile().listFiles();
+            if (children == null) {
+                continue;
+            }
+
+            for (final File child : children) {
+                if (child.isDirectory() && child.getName().startsWith(namePrefix)) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private void recoverFromLegacyFormat() throws IOException {
+        final int partitionCount = Math.max(1, countDirectories(LEGACY_PARTITION_PREFIX));
+        logger.info("{} found a Write-Ahead Log that was written by {} with {} partitions; recovering records from it",
+            new Object[] {this, MinimalLockingWriteAheadLog.class.getSimpleName(), partitionCount});
+
+        final MinimalLockingWriteAheadLog<T> legacyLog = new MinimalLockingWriteAheadLog<>(paths, partitionCount, serdeFactory, null);
+        try {
+            for (final T record : legacyLog.recoverRecords()) {
+                recordMap.put(serdeFactory.getRecordIdentifier(record), record);
+            }
+            recoveredExternalLocations.addAll(legacyLog.getRecoveredSwapLocations());
+        } finally {
+            legacyLog.shutdown();
+        }
+    }
+
+    private void deleteLegacyFormat() throws IOException {
+        Files.deleteIfExists(basePath.resolve(LEGACY_SNAPSHOT_FILENAME));
+        Files.deleteIfExists(basePath.resolve(LEGACY_PARTIAL_SNAPSHOT_FILENAME));
+        Files.deleteIfExists(basePath.resolve(LEGACY_LOCK_FILENAME));
+
+        for (final Path path : paths) {
+            final File[] children = path.toFile().listFiles();
+            if (children == null) {
+                continue;
+            }
+
+            for (final File child : children) {
+                if (child.isDirectory() && child.getName().startsWith(LEGACY_PARTITION_PREFIX)) {
+                    final File[] journalFiles = child.listFiles();
+                    if (journalFiles != null) {
+                        for (final File journalFile : journalFiles) {
+                            Files.deleteIfExists(journalFile.toPath());
+                        }
+                    }
+                    Files.deleteIfExists(child.toPath());
+                }
+            }
+        }
+    }
+
+    private Long recoverFromSnapshot() throws IOException {
+        final boolean partialExists = Files.exists(partialPath);
+        final boolean snapshotExists = Files.exists(snapshotPath);
+
+        if (!partialExists && !snapshotExists) {
+            return null;
+        }
+
+        if (partialExists && snapshotExists) {
+            // both files exist -- assume we failed while checkpointing. Delete the partial file
+            Files.delete(partialPath);
+        } else if (partialExists) {
+            // partial exists but snapshot does not -- we must have completed creating the partial, deleted the snapshot
+            // but crashed before renaming the partial to the snapshot. Just rename partial to snapshot
+            Files.move(partialPath, snapshotPath);
+        }
+
+        if (Files.size(snapshotPath) == 0) {
+            logger.warn("{} Found 0-byte Snapshot file; skipping Snapshot file in recovery", this);
+            return null;
+        }
+
+        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath, StandardOpenOption.READ)))) {
+            final String waliImplementationClass = dataIn.readUTF();
+            final int waliImplementationVersion = dataIn.readInt();
+
+            if (!waliImplementationClass.equals(GroupCommitWriteAheadLog.class.getName())) {
+                throw new IOException("Write-Ahead Log located at " + snapshotPath + " was written using the "
+                    + waliImplementationClass + " class; cannot restore using " + getClass().getName());
+            }
+
+            if (waliImplementationVersion > getVersion()) {
+                throw new IOException("Write-Ahead Log located at " + snapshotPath + " was written using version "
+                    + waliImplementationVersion + " of the " + waliImplementationClass + " class; cannot restore using Version " + getVersion());
+            }
+
+            final String serdeEncoding = dataIn.readUTF();
+            final int serdeVersion = dataIn.readInt();
+            final long maxTransactionId = dataIn.readLong();
+
+            final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+            serde.readHeader(dataIn);
+
+            int numRecords = 0;
+            while (dataIn.readByte() == RECORD_FOLLOWS) {
+                final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                if (record == null) {
+                    throw new EOFException();
+                }
+
+                final UpdateType updateType = serde.getUpdateType(record);
+                if (updateType == UpdateType.DELETE) {
+                    logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
+                    continue;
+                }
+
+                logger.trace("Recovered from snapshot: {}", record);
+                recordMap.put(serde.getRecordIdentifier(record), record);
+                numRecords++;
+            }
+
+            final int numSwapRecords = dataIn.readInt();
+            for (int i = 0; i < numSwapRecords; i++) {
+                recoveredExternalLocations.add(dataIn.readUTF());
+            }
+
+            logger.debug("{} restored {} Records and {} Swap Files from Snapshot, ending with Transaction ID {}",
+                new Object[] {this, numRecords, numSwapRecords, maxTransactionId});
+            return maxTransactionId;
+        }
+    }
+
+    /**
+     * Replays, in order of Transaction ID, all of the transactions from all of the Journals that are not already reflected in the snapshot.
+     *
+     * @param maxTransactionIdRestored the max Transaction ID that was restored from the snapshot, or <code>null</code> if there was no snapshot
+     * @throws IOException if unable to recover from the journals
+     */
+    private void recoverFromEdits(final Long maxTransactionIdRestored) throws IOException {
+        final Map<Object, T> updateMap = new HashMap<>();
+        final Map<Object, T> ignorableMap = new HashMap<>();
+        final Set<String> ignorableSwapLocations = new HashSet<>();
+
+        final SortedMap<Long, Journal<T>> transactionMap = new TreeMap<>();
+        for (final Journal<T> journal : journals) {
+            Long transactionId;
+            boolean keepTransaction;
+            do {
+                transactionId = journal.getNextRecoverableTransactionId();
+
+                keepTransaction = transactionId == null || maxTransactionIdRestored == null || transactionId > maxTransactionIdRestored;
+                if (keepTransaction && transactionId != null) {
+                    transactionMap.put(transactionId, journal);
+                } else if (transactionId != null) {
+                    // skip the transaction, because our snapshot already contained it.
+                    try {
+                        journal.recoverNextTransaction(ignorableMap, updateMap, ignorableSwapLocations);
+                    } catch (final EOFException e) {
+                        logger.error("{} unexpectedly reached End of File while reading from {} for Transaction {}; assuming crash and ignoring this transaction.",
+                            new Object[] {this, journal, transactionId});
+                    }
+                }
+            } while (!keepTransaction);
+        }
+
+        while (!transactionMap.isEmpty()) {
+            final Map.Entry<Long, Journal<T>> firstEntry = transactionMap.entrySet().iterator().next();
+            final Long firstTransactionId = firstEntry.getKey();
+            final Journal<T> nextJournal = firstEntry.getValue();
+
+            try {
+                updateMap.clear();
+                final Set<Object> idsRemoved = nextJournal.recoverNextTransaction(unmodifiableRecordMap, updateMap, recoveredExternalLocations);
+                recordMap.putAll(updateMap);
+                for (final Object id : idsRemoved) {
+                    recordMap.remove(id);
+                }
+            } catch (final EOFException e) {
+                logger.error("{} unexpectedly reached End-of-File when reading from {} for Transaction ID {}; assuming crash and ignoring this transaction",
+                    new Object[] {this, nextJournal, firstTransactionId});
+            }
+
+            transactionMap.remove(firstTransactionId);
+
+            Long subsequentTransactionId = null;
+            try {
+                subsequentTransactionId = nextJournal.getNextRecoverableTransactionId();
+            } catch (final IOException e) {
+                logger.error("{} unexpectedly found End-of-File when reading from {} for Transaction ID {}; assuming crash and ignoring this transaction",
+                    new Object[] {this, nextJournal, firstTransactionId});
+            }
+
+            if (subsequentTransactionId != null) {
+                transactionMap.put(subsequentTransactionId, nextJournal);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int checkpoint() throws IOException {
+        final long startNanos = System.nanoTime();
+        final List<JournalFile> rolledOver = new ArrayList<>();
+        final long maxTransactionId;
+        final List<T> records;
+        final List<String> swapLocations;
+
+        final long stopTheWorldStart;
+        writeLock.lock();
+        try {
+            stopTheWorldStart = System.nanoTime();
+
+            // Every transaction that is written after this point has a Transaction ID greater than maxTransactionId and goes
+            // to the new journals. The snapshot must reflect exactly the transactions before it, so that it never contains
+            // the effects of a transaction that is then lost from the tail of a new journal; so the records and swap locations
+            // are copied while updates are blocked. Serializing them is potentially expensive, so that is done after unlocking.
+            maxTransactionId = transactionIdGenerator.get() - 1;
+            for (final Journal<T> journal : journals) {
+                try {
+                    final JournalFile oldFile = journal.rollover();
+                    if (oldFile != null) {
+                        rolledOver.add(oldFile);
+                    }
+                } catch (final Throwable t) {
+                    if (journal.blackList()) {
+                        numberBlackListedJournals.incrementAndGet();
+                    }
+                    throw t;
+                }
+            }
+
+            records = new ArrayList<>(recordMap.values());
+            swapLocations = new ArrayList<>(externalLocations);
+        } finally {
+            writeLock.unlock();
+        }
+
+        final long stopTheWorldNanos = System.nanoTime() - stopTheWorldStart;
+
+        // Sync and close the old journal files outside of the lock, because syncing may be expensive. The snapshot must not
+        // replace the old journals until they are synced, so we fail the checkpoint if any of them cannot be closed.
+        IOException failure = null;
+        for (final JournalFile journalFile : rolledOver) {
+            try {
+                journalFile.close();
+            } catch (final IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        if (syncListener != null) {
+            syncListener.onGlobalSync();
+        }
+
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+        try (final FileOutputStream fileOut = new FileOutputStream(partialPath.toFile());
+            final DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+
+            dataOut.writeUTF(GroupCommitWriteAheadLog.class.getName());
+            dataOut.writeInt(getVersion());
+            dataOut.writeUTF(serde.getClass().getName());
+            dataOut.writeInt(serde.getVersion());
+            dataOut.writeLong(maxTransactionId);
+            serde.writeHeader(dataOut);
+
+            for (final T record : records) {
+                logger.trace("Checkpointing {}", record);
+                dataOut.writeByte(RECORD_FOLLOWS);
+                serde.serializeRecord(record, dataOut);
+            }
+            dataOut.writeByte(END_OF_RECORDS);
+
+            dataOut.writeInt(swapLocations.size());
+            for (final String swapLocation : swapLocations) {
+                dataOut.writeUTF(swapLocation);
+            }
+
+            dataOut.flush();
+            fileOut.getFD().sync();
+        }
+
+        // delete the snapshot, if it exists, and rename the .partial to snapshot
+        Files.deleteIfExists(snapshotPath);
+        Files.move(partialPath, snapshotPath);
+
+        // clear all of the journals that were rolled over
+        final long clearStart = System.nanoTime();
+        for (final Journal<T> journal : journals) {
+            journal.clearOld();
+        }
+        final long clearMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - clearStart);
+        numberBlackListedJournals.set(0);
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        final long stopTheWorldMillis = TimeUnit.NANOSECONDS.toMillis(stopTheWorldNanos);
+        logger.info("{} checkpointed with {} Records and {} Swap Files in {} milliseconds (Stop-the-world "
+            + "time = {} milliseconds, Clear Edit Logs time = {} millis), max Transaction ID {}",
+            new Object[] {this, records.size(), swapLocations.size(), millis, stopTheWorldMillis, clearMillis, maxTransactionId});
+
+        return records.size();
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        writeLock.lock();
+        try {
+            for (final Journal<T> journal : journals) {
+                journal.close();
+            }
+        } finally {
+            writeLock.unlock();
+            lockChannel.close();
+        }
+    }
+
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCommitWriteAheadLog[" + basePath + "]";
+    }
+
+    /**
+     * A single journal file, which is appended to through a memory-mapped region of the file. The file is extended, and the region
+     * re-mapped, a segment at a time. Space for each segment is written out before it is mapped, so that running out of disk space
+     * results in an IOException rather than a fault when the mapped memory is written to.
+     */
+    private static class JournalFile {
+        private static final int ZERO_FILL_CHUNK_SIZE = 64 * 1024;
+
+        private final Path path;
+        private final FileChannel channel;
+        private final int segmentSize;
+
+        // guarded by the owning Journal
+        private MappedByteBuffer buffer;
+        private long bufferStart = 0L;
+
+        JournalFile(final Path path, final int segmentSize) throws IOException {
+            this.path = path;
+            this.segmentSize = segmentSize;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void append(final byte[] data) throws IOException {
+            if (buffer == null || buffer.remaining() < data.length) {
+                remap(data.length);
+            }
+
+            buffer.put(data);
+        }
+
+        private void remap(final int required) throws IOException {
+            final long position;
+            if (buffer == null) {
+                position = 0L;
+            } else {
+                // Anything that was written to the old region must be on disk before we stop tracking it
+                buffer.force();
+                position = bufferStart + buffer.position();
+            }
+
+            final long size = Math.max(segmentSize, required);
+            reserve(position + size);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+            bufferStart = position;
+        }
+
+        private void reserve(final long length) throws IOException {
+            final ByteBuffer zeros = ByteBuffer.allocate(ZERO_FILL_CHUNK_SIZE);
+            long position = channel.size();
+            while (position < length) {
+                zeros.clear();
+                zeros.limit((int) Math.min(zeros.capacity(), length - position));
+                position += channel.write(zeros, position);
+            }
+        }
+
+        MappedByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        /**
+         * Syncs the journal and releases the file. The file is truncated to the data that was written, if the Operating System allows a
+         * file to be truncated while it is mapped; otherwise, the remainder of the file is left filled with NUL bytes, which recovery ignores.
+         */
+        void close() throws IOException {
+            try {
+                if (buffer != null) {
+                    buffer.force();
+
+                    final long length = bufferStart + buffer.position();
+                    buffer = null;
+                    try {
+                        channel.truncate(length);
+                    } catch (final IOException ioe) {
+                        logger.debug("Unable to truncate journal {} to {} bytes; its trailing NUL bytes will be skipped on recovery", path, length, ioe);
+                    }
+                }
+            } finally {
+                channel.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+
+    /**
+     * Represents one of the journals of this repository, which maps directly to a directory of .journal files, only the newest of
+     * which is written to. Any number of threads may append to the journal at once.
+     *
+     * @param <S> type of record held in the journal
+     */
+    private static class Journal<S> {
+        public static final String JOURNAL_EXTENSION = ".journal";
+        private static final Pattern JOURNAL_FILENAME_PATTERN = Pattern.compile("\\d+\\.journal");
+        private static final int NUL_BYTE = 0;
+
+        private static final byte TRANSACTION_START = 1;
+        private static final byte TRANSACTION_CONTINUE = 1;
+        private static final byte TRANSACTION_COMMIT = 2;
+
+        private final Path directory;
+        private final SerDeFactory<S> serdeFactory;
+        private final int writeAheadLogVersion;
+        private final int segmentSize;
+        private final String description;
+
+        private volatile SerDe<S> serde;
+        private volatile boolean blackListed = false;
+
+        // guarded by 'this'
+        private JournalFile currentFile;
+        private long appendSequence = 0L;
+        private boolean closed = false;
+
+        // guarded by syncLock; volatile so that a thread whose transaction has already been synced need not wait for the lock
+        private final Object syncLock = new Object();
+        private volatile long syncedSequence = 0L;
+
+        private final List<Path> recoveryFiles;
+        private DataInputStream recoveryIn;
+        private int recoveryVersion;
+        private long maxTransactionId = -1L;
+
+        Journal(final Path directory, final SerDeFactory<S> serdeFactory, final int journalIndex, final int writeAheadLogVersion, final int segmentSize) throws IOException {
+            this.directory = directory;
+            this.serdeFactory = serdeFactory;
+            this.writeAheadLogVersion = writeAheadLogVersion;
+            this.segmentSize = segmentSize;
+            this.description = "Journal-" + journalIndex;
+
+            final File file = directory.toFile();
+            if (!file.exists() && !file.mkdirs()) {
+                throw new IOException("Could not create directory " + file.getAbsolutePath());
+            }
+
+            this.recoveryFiles = new ArrayList<>(getJournalPaths());
+        }
+
+        boolean isBlackListed() {
+            return blackListed;
+        }
+
+        /**
+         * @return <code>true</code> if this journal was not already blacklisted
+         */
+        boolean blackList() {
+            final boolean wasBlackListed = blackListed;
+            blackListed = true;
+            logger.debug("Blacklisted {}", this);
+            return !wasBlackListed;
+        }
+
+        byte[] serialize(final Collection<S> records, final Map<Object, S> recordMap) throws IOException {
+            final SerDe<S> currentSerde = serde;
+            try (final ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+                final DataOutputStream out = new DataOutputStream(baos)) {
+
+                out.writeByte(TRANSACTION_START);
+                out.writeLong(0L); // placeholder for the Transaction ID, which is not assigned until the transaction is appended
+
+                final int numEditsToSerialize = records.size();
+                int editsSerialized = 0;
+                for (final S record : records) {
+                    final Object recordId = currentSerde.getRecordIdentifier(record);
+                    final S previousVersion = recordMap.get(recordId);
+
+                    currentSerde.serializeEdit(previousVersion, record, out);
+                    if (++editsSerialized < numEditsToSerialize) {
+                        out.write(TRANSACTION_CONTINUE);
+                    } else {
+                        out.write(TRANSACTION_COMMIT);
+                    }
+                }
+
+                out.flush();
+                return baos.toByteArray();
+            }
+        }
+
+        /**
+         * Assigns the next Transaction ID to the given transaction and appends it to the journal
+         *
+         * @return the sequence number of the transaction within this journal, to be passed to {@link #sync(long)}
+         */
+        synchronized long append(final byte[] transaction, final AtomicLong transactionIdGenerator) throws IOException {
+            if (closed) {
+                throw new IllegalStateException(this + " is closed");
+            }
+
+            // Transaction IDs are assigned while holding the lock so that they are always increasing within a journal.
+            ByteBuffer.wrap(transaction).putLong(1, transactionIdGenerator.getAndIncrement());
+            currentFile.append(transaction);
+            return ++appendSequence;
+        }
+
+        /**
+         * Ensures that the transaction with the given sequence number has been synced to disk. If another thread is already syncing
+         * the journal, this waits for it to finish and then syncs everything that has been appended in the meantime in a single sync,
+         * unless the other thread's sync already covered the given transaction.
+         */
+        void sync(final long sequence) throws IOException {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+
+            synchronized (syncLock) {
+                if (syncedSequence >= sequence) {
+                    return;
+                }
+
+                final MappedByteBuffer toSync;
+                final long syncingSequence;
+                synchronized (this) {
+                    toSync = currentFile.getBuffer();
+                    syncingSequence = appendSequence;
+                }
+
+                toSync.force();
+                syncedSequence = syncingSequence;
+            }
+        }
+
+        /**
+         * Begins writing to a new journal file. Must be called while no updates are in progress.
+         *
+         * @return the journal file that was previously being written to, which the caller is responsible for closing, or <code>null</code>
+         *         if there was none
+         */
+        synchronized JournalFile rollover() throws IOException {
+            final JournalFile oldFile = currentFile;
+            currentFile = null;
+            currentFile = createJournalFile();
+            blackListed = false;
+            return oldFile;
+        }
+
+        private JournalFile createJournalFile() throws IOException {
+            final SerDe<S> newSerde = serdeFactory.createSerDe(null);
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final DataOutputStream header = new DataOutputStream(baos);
+            header.writeUTF(GroupCommitWriteAheadLog.class.getName());
+            header.writeInt(writeAheadLogVersion);
+            header.writeUTF(newSerde.getClass().getName());
+            header.writeInt(newSerde.getVersion());
+            newSerde.writeHeader(header);
+            header.flush();
+
+            final JournalFile journalFile = new JournalFile(getNewJournalPath(), segmentSize);
+            try {
+                journalFile.append(baos.toByteArray());
+            } catch (final IOException ioe) {
+                try {
+                    journalFile.close();
+                } catch (final IOException closeException) {
+                    ioe.addSuppressed(closeException);
+                }
+                throw ioe;
+            }
+
+            serde = newSerde;
+            return journalFile;
+        }
+
+        synchronized void close() throws IOException {
+            closed = true;
+            if (currentFile != null) {
+                currentFile.close();
+                currentFile = null;
+            }
+        }
+
+        /**
+         * Deletes all journal files other than the one currently being written to
+         */
+        synchronized void clearOld() {
+            final Path currentPath = currentFile == null ? null : currentFile.path;
+            for (final Path path : getJournalPaths()) {
+                if (!path.equals(currentPath)) {
+                    path.toFile().delete();
+                }
+            }
+        }
+
+        private long getJournalIndex(final Path path) {
+            final String filename = path.toFile().getName();
+            return Long.parseLong(filename.substring(0, filename.indexOf('.')));
+        }
+
+        private Path getNewJournalPath() {
+            final List<Path> journalPaths = getJournalPaths();
+            final long newIndex = journalPaths.isEmpty() ? 1 : getJournalIndex(journalPaths.get(journalPaths.size() - 1)) + 1;
+            return directory.resolve(newIndex + JOURNAL_EXTENSION);
+        }
+
+        private List<Path> getJournalPaths() {
+            final List<Path> journalPaths = new ArrayList<>();
+            final File[] files = directory.toFile().listFiles();
+            if (files == null) {
+                return journalPaths;
+            }
+
+            for (final File file : files) {
+                if (file.isFile() && JOURNAL_FILENAME_PATTERN.matcher(file.getName()).matches()) {
+                    journalPaths.add(file.toPath());
+                }
+            }
+
+            // Sort journal files by the numeric portion of the filename
+            Collections.sort(journalPaths, new Comparator<Path>() {
+                @Override
+                public int compare(final Path o1, final Path o2) {
+                    return Long.compare(getJournalIndex(o1), getJournalIndex(o2));
+                }
+            });
+
+            return journalPaths;
+        }
+
+        private DataInputStream getRecoveryStream() throws IOException {
+            if (recoveryIn != null) {
+                return recoveryIn;
+            }
+
+            while (!recoveryFiles.isEmpty()) {
+                final Path nextRecoveryPath = recoveryFiles.remove(0);
+                logger.debug("{} recovering from {}", this, nextRecoveryPath);
+
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(nextRecoveryPath)));
+                final int waliVersion;
+                final String serdeEncoding;
+                try {
+                    final String waliImplementationClass = in.readUTF();
+                    if (!GroupCommitWriteAheadLog.class.getName().equals(waliImplementationClass)) {
+                        logger.warn("Found file {}, but it was not in the expected format; will ignore this file", nextRecoveryPath);
+                        in.close();
+                        continue;
+                    }
+
+                    waliVersion = in.readInt();
+                    serdeEncoding = in.readUTF();
+                    recoveryVersion = in.readInt();
+                } catch (final IOException ioe) {
+                    logger.warn("Failed to recover data from Write-Ahead Log for {} because the header information could not be read properly. "
+                        + "This often is the result of the file not being fully written out before the application is restarted. This file will be ignored.", nextRecoveryPath);
+                    in.close();
+                    continue;
+                }
+
+                if (waliVersion > writeAheadLogVersion) {
+                    in.close();
+                    throw new IOException("Cannot recover from file " + nextRecoveryPath + " because it was written using "
+                        + "WALI version " + waliVersion + ", but the version used to restore it is only " + writeAheadLogVersion);
+                }
+
+                serde = serdeFactory.createSerDe(serdeEncoding);
+                serde.readHeader(in);
+
+                recoveryIn = in;
+                return recoveryIn;
+            }
+
+            return null;
+        }
+
+        private void finishRecoveryFile() throws IOException {
+            if (recoveryIn != null) {
+                recoveryIn.close();
+                recoveryIn = null;
+            }
+        }
+
+        Long getNextRecoverableTransactionId() throws IOException {
+            while (true) {
+                final DataInputStream in = getRecoveryStream();
+                if (in == null) {
+                    return null;
+                }
+
+                // A NUL byte where a transaction should begin is the space that was reserved for the journal but never written to.
+                final int marker = in.read();
+                if (marker == -1 || marker == NUL_BYTE) {
+                    finishRecoveryFile();
+                    continue;
+                }
+
+                if (marker != TRANSACTION_START) {
+                    throw new IOException("Write-Ahead Log for " + this + " is corrupt: expected the start of a transaction but found byte " + marker);
+                }
+
+                final long transactionId;
+                try {
+                    transactionId = in.readLong();
+                } catch (final EOFException e) {
+                    finishRecoveryFile();
+                    continue;
+                }
+
+                maxTransactionId = Math.max(maxTransactionId, transactionId);
+                return transactionId;
+            }
+        }
+
+        Set<Object> recoverNextTransaction(final Map<Object, S> currentRecordMap, final Map<Object, S> updatedRecordMap, final Set<String> swapLocations) throws IOException {
+            final Set<Object> idsRemoved = new HashSet<>();
+
+            int transactionFlag;
+            do {
+                final S record;
+                try {
+                    record = serde.deserializeEdit(recoveryIn, currentRecordMap, recoveryVersion);
+                } catch (final EOFException eof) {
+                    finishRecoveryFile();
+                    throw eof;
+                } catch (final Exception e) {
+                    // See MinimalLockingWriteAheadLog for why a transaction that cannot be read is only skipped when it is followed
+                    // by nothing but NUL bytes, which is the result of losing power before the transaction was synced to disk.
+                    if (remainingBytesAllNul(recoveryIn)) {
+                        finishRecoveryFile();
+                        final EOFException eof = new EOFException("Failed to recover data from Write-Ahead Log Journal because encountered trailing NUL bytes. "
+                            + "This will sometimes happen after a sudden power loss. The rest of this journal file will be skipped for recovery purposes.");
+                        eof.addSuppressed(e);
+                        throw eof;
+                    } else {
+                        throw e;
+                    }
+                }
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug("{} Recovering Transaction {}: {}", new Object[] {this, maxTransactionId, record});
+                }
+
+                final Object recordId = serde.getRecordIdentifier(record);
+                final UpdateType updateType = serde.getUpdateType(record);
+                if (updateType == UpdateType.DELETE) {
+                    updatedRecordMap.remove(recordId);
+                    idsRemoved.add(recordId);
+                } else if (updateType == UpdateType.SWAP_IN) {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocations.remove(location);
+                        updatedRecordMap.put(recordId, record);
+                        idsRemoved.remove(recordId);
+                    }
+                } else if (updateType == UpdateType.SWAP_OUT) {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocations.add(location);
+                        updatedRecordMap.remove(recordId);
+                        idsRemoved.add(recordId);
+                    }
+                } else {
+                    updatedRecordMap.put(recordId, record);
+                    idsRemoved.remove(recordId);
+                }
+
+                transactionFlag = recoveryIn.read();
+                if (transactionFlag == -1) {
+                    finishRecoveryFile();
+                    throw new EOFException("Reached End-of-File before the end of the transaction");
+                }
+            } while (transactionFlag != TRANSACTION_COMMIT);
+
+            return idsRemoved;
+        }
+
+        private boolean remainingBytesAllNul(final InputStream in) throws IOException {
+            int nextByte;
+            while ((nextByte = in.read()) != -1) {
+                if (nextByte != NUL_BYTE) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        void discardRecoveryFiles() {
+            recoveryFiles.clear();
+        }
+
+        /**
+         * Must be called after recovery has finished, before any updates are appended
+         */
+        synchronized void endRecovery() throws IOException {
+            finishRecoveryFile();
+            if (!recoveryFiles.isEmpty()) {
+                throw new IllegalStateException("Signaled to end recovery, but there are more recovery files for Journal in directory " + directory);
+            }
+
+            currentFile = createJournalFile();
+        }
+
+        long getMaxRecoveredTransactionId() {
+            return maxTransactionId;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wali;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class TestGroupCommitWriteAheadLog {
+
+    @Test
+    public void testWriteAndRecover() throws IOException, InterruptedException {
+        final Path path = createDirectory("target/group-commit-repo");
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new GroupCommitWriteAheadLog<>(path, 4, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final List<Thread> threads = new ArrayList<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < 8; i++) {
+            final int startIndex = i * 1_000_000;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < 5000; j++) {
+                        final DummyRecord record = new DummyRecord(String.valueOf(startIndex + j), UpdateType.CREATE);
+                        record.setProperty("A", "B");
+                        repo.update(Collections.singleton(record), j % 100 == 0);
+                    }
+                } catch (final Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(null, failure.get());
+        repo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new GroupCommitWriteAheadLog<>(path, 4, serde, null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(40000, recoveredRecords.size());
+        for (final DummyRecord record : recoveredRecords) {
+            assertEquals("B", record.getProperty("A"));
+        }
+        recoverRepo.shutdown();
+    }
+
+    @Test
+    public void testUpdatesAndDeletesAcrossMultipleJournals() throws IOException {
+        final SortedSet<Path> paths = new TreeSet<>();
+        paths.add(createDirectory("target/group-commit-repo-multi/1"));
+        paths.add(createDirectory("target/group-commit-repo-multi/2"));
+        paths.add(createDirectory("target/group-commit-repo-multi/3"));
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new GroupCommitWriteAheadLog<>(paths, 3, new SingletonSerDeFactory<>(serde), null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        for (int i = 0; i < 100; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("version", "1");
+            repo.update(Collections.singleton(record), false);
+        }
+
+        // Update every record again, so that its last change is usually in a different journal than its first
+        for (int i = 0; i < 100; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.UPDATE);
+            record.setProperty("version", "2");
+            repo.update(Collections.singleton(record), false);
+        }
+
+        for (int i = 0; i < 100; i += 2) {
+            repo.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.DELETE)), false);
+        }
+        repo.shutdown();
+
+        int journalIndex = 0;
+        for (final Path path : paths) {
+            assertTrue(Files.exists(path.resolve(GroupCommitWriteAheadLog.JOURNAL_DIRECTORY_PREFIX + journalIndex++)));
+        }
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new GroupCommitWriteAheadLog<>(paths, 3, new SingletonSerDeFactory<>(serde), null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(50, recoveredRecords.size());
+        for (final DummyRecord record : recoveredRecords) {
+            assertEquals(1, Integer.parseInt(record.getId()) % 2);
+            assertEquals("2", record.getProperty("version"));
+        }
+        recoverRepo.shutdown();
+    }
+
+    @Test
+    public void testUpdatesContinueWhileCheckpointing() throws IOException, InterruptedException {
+        final Path path = createDirectory("target/group-commit-repo-concurrent-checkpoint");
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new GroupCommitWriteAheadLog<>(path, 4, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final int numThreads = 4;
+        final int updatesPerThread = 20000;
+        final AtomicBoolean updating = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Each thread owns 100 records and sets the 'count' property of each to the number of times that it has updated it
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            final int threadIndex = i;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < updatesPerThread; j++) {
+                        final String id = threadIndex + "-" + (j % 100);
+                        final DummyRecord record = new DummyRecord(id, j < 100 ? UpdateType.CREATE : UpdateType.UPDATE);
+                        record.setProperty("count", String.valueOf(j / 100 + 1));
+                        repo.update(Collections.singleton(record), false);
+                    }
+                } catch (final Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+
+        final Thread checkpointThread = new Thread(() -> {
+            try {
+                while (updating.get()) {
+                    repo.checkpoint();
+                }
+            } catch (final Throwable t) {
+                failure.set(t);
+            }
+        });
+
+        checkpointThread.start();
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        updating.set(false);
+        checkpointThread.join();
+        assertEquals(null, failure.get());
+        repo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new GroupCommitWriteAheadLog<>(path, 4, serde, null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(numThreads * 100, recoveredRecords.size());
+        for (final DummyRecord record : recoveredRecords) {
+            assertEquals(String.valueOf(updatesPerThread / 100), record.getProperty("count"));
+        }
+        recoverRepo.shutdown();
+    }
+
+    @Test
+    public void testRecoverWithoutShutdownIgnoresIncompleteTransaction() throws IOException {
+        final Path path = createDirectory("target/group-commit-repo-crash");
+        final Path copyPath = createDirectory("target/group-commit-repo-crash-copy");
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new GroupCommitWriteAheadLog<>(path, 1, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("A", "B");
+            repo.update(Collections.singleton(record), true);
+        }
+
+        // Copy the repository while it is still open, as it would be found after a sudden loss of power. The journal will not have
+        // been truncated, so it is followed by the NUL bytes of the space reserved for it.
+        copyRecursively(path.toFile(), copyPath.toFile());
+        repo.shutdown();
+
+        final File journalDir = copyPath.resolve(GroupCommitWriteAheadLog.JOURNAL_DIRECTORY_PREFIX + 0).toFile();
+        final File[] journalFiles = journalDir.listFiles();
+        assertNotNull(journalFiles);
+        assertEquals(1, journalFiles.length);
+
+        // Cut off the last few bytes of the final transaction, leaving the rest of the reserved space in place.
+        final byte[] journalBytes = Files.readAllBytes(journalFiles[0].toPath());
+        int dataLength = journalBytes.length;
+        while (dataLength > 0 && journalBytes[dataLength - 1] == 0) {
+            dataLength--;
+        }
+        assertTrue(dataLength < journalBytes.length);
+        try (final RandomAccessFile raf = new RandomAccessFile(journalFiles[0], "rw")) {
+            raf.seek(dataLength - 3);
+            raf.write(new byte[3]);
+        }
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new GroupCommitWriteAheadLog<>(copyPath, 1, serde, null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(9, recoveredRecords.size());
+        for (final DummyRecord record : recoveredRecords) {
+            assertFalse("9".equals(record.getId()));
+        }
+        recoverRepo.shutdown();
+    }
+
+    @Test(timeout = 60000)
+    public void testCheckpointDoesNotIncludeTransactionLostFromNewJournal() throws Exception {
+        final Path path = createDirectory("target/group-commit-repo-checkpoint-crash");
+        final Path copyPath = createDirectory("target/group-commit-repo-checkpoint-crash-copy");
+
+        // Once armed, the serde blocks the checkpoint when it starts to write the snapshot
+        final AtomicBoolean blockSnapshot = new AtomicBoolean(false);
+        final CountDownLatch snapshotStarted = new CountDownLatch(1);
+        final CountDownLatch releaseSnapshot = new CountDownLatch(1);
+        final DummyRecordSerde serde = new DummyRecordSerde() {
+            @Override
+            public void serializeRecord(final DummyRecord record, final DataOutputStream out) throws IOException {
+                if (blockSnapshot.compareAndSet(true, false)) {
+                    snapshotStarted.countDown();
+                    try {
+                        releaseSnapshot.await();
+                    } catch (final InterruptedException ie) {
+                        throw new IOException(ie);
+                    }
+                }
+
+                super.serializeRecord(record, out);
+            }
+        };
+
+        final WriteAheadRepository<DummyRecord> repo = new GroupCommitWriteAheadLog<>(path, 1, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final List<DummyRecord> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            created.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE).setProperty("version", "1"));
+        }
+        repo.update(created, true);
+
+        blockSnapshot.set(true);
+        final ExecutorService checkpointExecutor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> checkpointFuture = checkpointExecutor.submit(repo::checkpoint);
+            snapshotStarted.await();
+
+            // Update every record in a single transaction while the snapshot is being written. This transaction goes to the new journal.
+            final List<DummyRecord> updated = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                updated.add(new DummyRecord(String.valueOf(i), UpdateType.UPDATE).setProperty("version", "2"));
+            }
+            repo.update(updated, true);
+
+            releaseSnapshot.countDown();
+            assertEquals(100, checkpointFuture.get().intValue());
+        } finally {
+            checkpointExecutor.shutdownNow();
+        }
+
+        // Copy the repository as it would be found after a sudden loss of power, and drop the tail of the new journal, so that
+        // the transaction that was written during the checkpoint is incomplete.
+        copyRecursively(path.toFile(), copyPath.toFile());
+        repo.shutdown();
+
+        final File journalDir = copyPath.resolve(GroupCommitWriteAheadLog.JOURNAL_DIRECTORY_PREFIX + 0).toFile();
+        final File[] journalFiles = journalDir.listFiles();
+        assertNotNull(journalFiles);
+        assertEquals(1, journalFiles.length);
+
+        final byte[] journalBytes = Files.readAllBytes(journalFiles[0].toPath());
+        int dataLength = journalBytes.length;
+        while (dataLength > 0 && journalBytes[dataLength - 1] == 0) {
+            dataLength--;
+        }
+        try (final RandomAccessFile raf = new RandomAccessFile(journalFiles[0], "rw")) {
+            raf.seek(dataLength - 3);
+            raf.write(new byte[3]);
+        }
+
+        // The snapshot must not contain any of the updates from the lost transaction
+        final WriteAheadRepository<DummyRecord> recoverRepo = new GroupCommitWriteAheadLog<>(copyPath, 1, new DummyRecordSerde(), null);
+        final Collection<DummyRecord> recoveredRecords = recoverRepo.recoverRecords();
+        assertEquals(100, recoveredRecords.size());
+        for (final DummyRecord record : recoveredRecords) {
+            assertEquals("1", record.getProperty("version"));
+        }
+        recoverRepo.shutdown();
+    }
+
+    @Test
+    public void testRecoverFromMinimalLockingWriteAheadLog() throws IOException {
+        final Path path = createDirectory("target/group-commit-repo-legacy");
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> legacyRepo = new MinimalLockingWriteAheadLog<>(path, 4, serde, null);
+        assertTrue(legacyRepo.recoverRecords().isEmpty());
+
+        for (int i = 0; i < 20; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("A", "B");
+            legacyRepo.update(Collections.singleton(record), false);
+        }
+        legacyRepo.checkpoint();
+
+        // Some records are only in the snapshot and some only in the partitions' journals
+        for (int i = 0; i < 5; i++) {
+            legacyRepo.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.DELETE)), false);
+        }
+        legacyRepo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> repo = new GroupCommitWriteAheadLog<>(path, 4, serde, null);
+        final Collection<DummyRecord> recoveredRecords = repo.recoverRecords();
+        assertEquals(15, recoveredRecords.size());
+
+        assertFalse(Files.exists(path.resolve("snapshot")));
+        assertFalse(Files.exists(path.resolve("partition-0")));
+
+        final DummyRecord record = new DummyRecord("100", UpdateType.CREATE);
+        record.setProperty("A", "C");
+        repo.update(Collections.singleton(record), true);
+        repo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> recoverRepo = new GroupCommitWriteAheadLog<>(path, 4, serde, null);
+        final Map<String, DummyRecord> recoveredById = new HashMap<>();
+        for (final DummyRecord recovered : recoverRepo.recoverRecords()) {
+            recoveredById.put(recovered.getId(), recovered);
+        }
+        assertEquals(16, recoveredById.size());
+        assertEquals("C", recoveredById.get("100").getProperty("A"));
+        assertEquals("B", recoveredById.get("19").getProperty("A"));
+        recoverRepo.shutdown();
+    }
+
+    @Test
+    @Ignore("Intended for manual performance testing; compares update throughput and commit latency against MinimalLockingWriteAheadLog")
+    public void testUpdatePerformance() throws IOException, InterruptedException {
+        final int numThreads = 16;
+        final int updatesPerThread = 5000;
+        final int journalCount = 4;
+        final int preloadedRecords = 1_000_000;
+
+        for (int iteration = 0; iteration < 2; iteration++) {
+            final String label = iteration == 0 ? " (warmup)" : "";
+            for (final boolean checkpointing : new boolean[] {false, true}) {
+                final Path minimalLockingPath = createDirectory("target/minimal-locking-repo-perf");
+                final WriteAheadRepository<DummyRecord> minimalLocking = new MinimalLockingWriteAheadLog<>(minimalLockingPath, numThreads, new DummyRecordSerde(), null);
+                minimalLocking.recoverRecords();
+                final String minimalLockingResults = runUpdates(minimalLocking, numThreads, updatesPerThread, checkpointing ? preloadedRecords : 0);
+                minimalLocking.shutdown();
+
+                final Path groupCommitPath = createDirectory("target/group-commit-repo-perf");
+                final WriteAheadRepository<DummyRecord> groupCommit = new GroupCommitWriteAheadLog<>(groupCommitPath, journalCount, new DummyRecordSerde(), null);
+                groupCommit.recoverRecords();
+                final String groupCommitResults = runUpdates(groupCommit, numThreads, updatesPerThread, checkpointing ? preloadedRecords : 0);
+                groupCommit.shutdown();
+
+                System.out.println("MinimalLockingWriteAheadLog with " + numThreads + " partitions" + label + ": " + minimalLockingResults);
+                System.out.println("GroupCommitWriteAheadLog with " + journalCount + " journals" + label + ": " + groupCommitResults);
+            }
+        }
+    }
+
+    /**
+     * Performs synced updates from many threads and reports the throughput and commit latency. If <code>preloadedRecords</code> is positive,
+     * the repository is first loaded with that many records and is checkpointed continually while the updates are performed.
+     */
+    private String runUpdates(final WriteAheadRepository<DummyRecord> repo, final int numThreads, final int updatesPerThread, final int preloadedRecords)
+            throws IOException, InterruptedException {
+        for (int i = 0; i < preloadedRecords; i++) {
+            final DummyRecord record = new DummyRecord("preloaded-" + i, UpdateType.CREATE);
+            record.setProperty("A", "B");
+            repo.update(Collections.singleton(record), false);
+        }
+
+        final AtomicBoolean updating = new AtomicBoolean(true);
+        final Thread checkpointThread = new Thread(() -> {
+            try {
+                while (updating.get()) {
+                    repo.checkpoint();
+                }
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        final long[][] latencies = new long[numThreads][updatesPerThread];
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < updatesPerThread; j++) {
+                    final DummyRecord record = new DummyRecord(threadIndex + "-" + j, UpdateType.CREATE);
+                    record.setProperty("A", "B");
+
+                    final long start = System.nanoTime();
+                    try {
+                        repo.update(Collections.singleton(record), true);
+                    } catch (final IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    latencies[threadIndex][j] = System.nanoTime() - start;
+                }
+            });
+        }
+
+        if (preloadedRecords > 0) {
+            checkpointThread.start();
+        }
+
+        final long start = System.nanoTime();
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final long nanos = System.nanoTime() - start;
+
+        updating.set(false);
+        if (preloadedRecords > 0) {
+            checkpointThread.join();
+        }
+
+        final long[] allLatencies = new long[numThreads * updatesPerThread];
+        for (int i = 0; i < numThreads; i++) {
+            System.arraycopy(latencies[i], 0, allLatencies, i * updatesPerThread, updatesPerThread);
+        }
+        Arrays.sort(allLatencies);
+
+        final long updatesPerSecond = allLatencies.length * TimeUnit.SECONDS.toNanos(1) / nanos;
+        final long p50Micros = TimeUnit.NANOSECONDS.toMicros(allLatencies[allLatencies.length / 2]);
+        final long p99Micros = TimeUnit.NANOSECONDS.toMicros(allLatencies[(int) (allLatencies.length * 0.99)]);
+        final long maxMicros = TimeUnit.NANOSECONDS.toMicros(allLatencies[allLatencies.length - 1]);
+        return updatesPerSecond + " synced updates/sec using " + numThreads + " threads"
+            + (preloadedRecords > 0 ? " while checkpointing " + preloadedRecords + " records" : "")
+            + "; commit latency p50 = " + p50Micros + " micros, p99 = " + p99Micros + " micros, max = " + maxMicros + " micros";
+    }
+
+    private Path createDirectory(final String name) throws IOException {
+        final Path path = Paths.get(name);
+        deleteRecursively(path.toFile());
+        Files.createDirectories(path);
+        return path;
+    }
+
+    private void copyRecursively(final File source, final File destination) throws IOException {
+        final File[] children = source.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        for (final File child : children) {
+            final File copy = new File(destination, child.getName());
+            if (child.isDirectory()) {
+                Files.createDirectories(copy.toPath());
+                copyRecursively(child, copy);
+            } else if (!child.getName().endsWith(".lock")) {
+                Files.copy(child.toPath(), copy.toPath());
+            }
+        }
+    }
+
+    private void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        file.delete();
+    }
+}
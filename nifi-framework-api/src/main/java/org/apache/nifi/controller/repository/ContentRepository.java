@@ -19,6 +19,7 @@ package org.apache.nifi.controller.repository;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Set;
@@ -242,6 +243,23 @@ public interface ContentRepository {
      */
     InputStream read(ContentClaim claim) throws IOException;
 
+    /**
+     * Opens a read-only FileChannel over the file that holds the content of the
+     * given claim, so that the content can be transferred to another channel
+     * without being copied through the heap. The content of the claim begins at
+     * position {@link ContentClaim#getOffset()} within the channel. The caller is
+     * responsible for closing the channel.
+     *
+     * @param claim to read from
+     * @return a FileChannel over the file that holds the content of the given claim,
+     *         or <code>null</code> if the repository does not store content in files,
+     *         in which case {@link #read(ContentClaim)} must be used instead
+     * @throws IOException if unable to open the channel
+     */
+    default FileChannel openChannel(ContentClaim claim) throws IOException {
+        return null;
+    }
+
     /**
      * Obtains an OutputStream to the content for the given claim.
      *
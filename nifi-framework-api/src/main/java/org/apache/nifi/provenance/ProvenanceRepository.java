@@ -27,6 +27,7 @@ import org.apache.nifi.provenance.search.SearchableField;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public interface ProvenanceRepository extends ProvenanceEventRepository {
 
@@ -181,4 +182,21 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      * {@link ProvenanceRepository#submitQuery(Query, NiFiUser)} method
      */
     List<SearchableField> getSearchableAttributes();
+
+    /**
+     * @param timeUnit the unit of time to return the lag in
+     * @return the amount of time that the oldest event that has been stored but is not yet searchable has been waiting to be indexed,
+     *         0 if all stored events are searchable, or -1 if the repository does not keep track of how far indexing lags behind storage
+     */
+    default long getIndexingLag(TimeUnit timeUnit) {
+        return -1L;
+    }
+
+    /**
+     * @return the number of events that have been stored and are waiting to be indexed, or -1 if the repository does not keep track
+     *         of the events that are waiting to be indexed
+     */
+    default int getQueuedEventCount() {
+        return -1;
+    }
 }
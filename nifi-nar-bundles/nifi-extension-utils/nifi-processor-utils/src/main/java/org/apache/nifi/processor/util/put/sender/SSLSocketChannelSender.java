@@ -22,8 +22,11 @@ import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannel;
 import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannelOutputStream;
 
 import javax.net.ssl.SSLContext;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * Sends messages over an SSLSocketChannel.
@@ -79,4 +82,24 @@ public class SSLSocketChannelSender extends SocketChannelSender {
         return sslOutputStream;
     }
 
+    @Override
+    public long transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        // the bytes have to be encrypted before they are written to the socket, so they cannot be sent directly from the file
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long transferred = 0L;
+        while (transferred < count) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), count - transferred));
+            final int bytesRead = source.read(buffer, position + transferred);
+            if (bytesRead < 0) {
+                throw new EOFException("Expected to transfer " + count + " bytes but only " + transferred + " bytes were available");
+            }
+
+            sslOutputStream.write(buffer.array(), 0, bytesRead);
+            transferred += bytesRead;
+        }
+
+        return transferred;
+    }
+
 }
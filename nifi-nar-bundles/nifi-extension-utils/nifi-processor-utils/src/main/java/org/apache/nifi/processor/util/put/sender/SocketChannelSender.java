@@ -26,6 +26,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
 import java.net.StandardSocketOptions;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 
 /**
@@ -127,6 +128,21 @@ public class SocketChannelSender extends ChannelSender {
         };
     }
 
+    /**
+     * Sends the given region of the given FileChannel directly to the socket, without copying it into the heap.
+     *
+     * @param source the FileChannel to send bytes from
+     * @param position the position within the FileChannel of the first byte to send
+     * @param count the number of bytes to send
+     * @return the number of bytes sent
+     * @throws IOException if unable to send the bytes
+     */
+    public long transferFrom(final FileChannel source, final long position, final long count) throws IOException {
+        final long transferred = socketChannelOutput.transferFrom(source, position, count);
+        updateLastUsed();
+        return transferred;
+    }
+
     private void updateLastUsed() {
         this.lastUsed = System.currentTimeMillis();
     }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.avro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+/**
+ * Converts Records of a given schema into Avro Records of a given Avro schema. This produces the same Avro Records as
+ * {@link AvroTypeUtil#createAvroRecord(Record, Schema)}, but the Avro field that each field of the Record is written to,
+ * and the Avro fields that are populated with their default values, are resolved only once rather than for every Record.
+ * This class is immutable and thread-safe.
+ */
+public class AvroRecordConverter {
+    private final RecordSchema recordSchema;
+    private final Schema avroSchema;
+    private final RecordField[] recordFields;
+    private final Field[] avroFields;
+    private final List<Field> defaultedFields = new ArrayList<>();
+
+    public AvroRecordConverter(final RecordSchema recordSchema, final Schema avroSchema) {
+        this.recordSchema = Objects.requireNonNull(recordSchema);
+        this.avroSchema = Objects.requireNonNull(avroSchema);
+
+        final List<RecordField> fields = recordSchema.getFields();
+        this.recordFields = fields.toArray(new RecordField[fields.size()]);
+        this.avroFields = new Field[recordFields.length];
+        for (int i = 0; i < recordFields.length; i++) {
+            avroFields[i] = avroSchema.getField(recordFields[i].getFieldName());
+        }
+
+        // Avro fields that are not in the RecordSchema are populated with their default values
+        for (final Field field : avroSchema.getFields()) {
+            if (!recordSchema.getField(field.name()).isPresent() && field.defaultVal() != null) {
+                defaultedFields.add(field);
+            }
+        }
+    }
+
+    public RecordSchema getRecordSchema() {
+        return recordSchema;
+    }
+
+    public Schema getAvroSchema() {
+        return avroSchema;
+    }
+
+    /**
+     * @param record a Record whose schema is the RecordSchema of this converter
+     * @return an Avro Record that has the Avro schema of this converter
+     */
+    public GenericRecord convert(final Record record) {
+        final GenericRecord rec = new GenericData.Record(avroSchema);
+        final boolean indexed = record instanceof ArrayRecord && record.getSchema() == recordSchema;
+
+        for (int i = 0; i < recordFields.length; i++) {
+            final Field field = avroFields[i];
+            if (field == null) {
+                continue;
+            }
+
+            final RecordField recordField = recordFields[i];
+            final Object rawValue = indexed ? ((ArrayRecord) record).getValue(i) : record.getValue(recordField);
+            rec.put(field.pos(), AvroTypeUtil.convertToAvroObject(rawValue, field.schema(), recordField.getFieldName()));
+        }
+
+        for (final Field field : defaultedFields) {
+            if (rec.get(field.pos()) == null) {
+                rec.put(field.pos(), field.defaultVal());
+            }
+        }
+
+        return rec;
+    }
+}
@@ -48,6 +48,8 @@ import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.specific.SpecificRecord;
 import org.apache.avro.util.Utf8;
 import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.ArrayRecordLayout;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
@@ -454,7 +456,7 @@ public class AvroTypeUtil {
     }
 
     @SuppressWarnings("unchecked")
-    private static Object convertToAvroObject(final Object rawValue, final Schema fieldSchema, final String fieldName) {
+    static Object convertToAvroObject(final Object rawValue, final Schema fieldSchema, final String fieldName) {
         if (rawValue == null) {
             return null;
         }
@@ -601,25 +603,8 @@ public class AvroTypeUtil {
         final Map<String, Object> values = new HashMap<>(recordSchema.getFieldCount());
 
         for (final RecordField recordField : recordSchema.getFields()) {
-            Object value = avroRecord.get(recordField.getFieldName());
-            if (value == null) {
-                for (final String alias : recordField.getAliases()) {
-                    value = avroRecord.get(alias);
-                    if (value != null) {
-                        break;
-                    }
-                }
-            }
-
             final String fieldName = recordField.getFieldName();
-            final Field avroField = avroRecord.getSchema().getField(fieldName);
-            if (avroField == null) {
-                values.put(fieldName, null);
-                continue;
-            }
-
-            final Schema fieldSchema = avroField.schema();
-            final Object rawValue = normalizeValue(value, fieldSchema, fieldName);
+            final Object rawValue = getNormalizedValue(avroRecord, recordField);
 
             final DataType desiredType = recordField.getDataType();
             final Object coercedValue = DataTypeUtils.convertType(rawValue, desiredType, fieldName);
@@ -630,6 +615,47 @@ public class AvroTypeUtil {
         return values;
     }
 
+    /**
+     * Converts the given Avro Record into an {@link ArrayRecord} with the given layout. The values are the same as those of
+     * {@link #convertAvroRecordToMap(GenericRecord, RecordSchema)}, but values of primitive fields are not boxed.
+     *
+     * @param avroRecord the Avro Record to convert
+     * @param layout the layout of the schema that the Record should have
+     * @return a type-checked Record that has the schema of the given layout
+     */
+    public static ArrayRecord convertAvroRecord(final GenericRecord avroRecord, final ArrayRecordLayout layout) {
+        final ArrayRecord record = new ArrayRecord(layout);
+
+        for (int i = 0; i < layout.getFieldCount(); i++) {
+            final Object rawValue = getNormalizedValue(avroRecord, layout.getField(i));
+            if (rawValue != null) {
+                record.setValue(i, rawValue);
+            }
+        }
+
+        return record;
+    }
+
+    private static Object getNormalizedValue(final GenericRecord avroRecord, final RecordField recordField) {
+        final String fieldName = recordField.getFieldName();
+        final Field avroField = avroRecord.getSchema().getField(fieldName);
+        if (avroField == null) {
+            return null;
+        }
+
+        Object value = avroRecord.get(fieldName);
+        if (value == null) {
+            for (final String alias : recordField.getAliases()) {
+                value = avroRecord.get(alias);
+                if (value != null) {
+                    break;
+                }
+            }
+        }
+
+        return normalizeValue(value, avroField.schema(), fieldName);
+    }
+
     /**
      * Convert value of a nullable union field.
      * @param originalValue original value
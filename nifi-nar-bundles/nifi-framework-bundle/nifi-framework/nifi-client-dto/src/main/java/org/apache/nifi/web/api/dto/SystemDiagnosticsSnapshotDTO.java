@@ -60,6 +60,9 @@ public class SystemDiagnosticsSnapshotDTO implements Cloneable {
 
     private String uptime;
 
+    private Long provenanceIndexingLagMillis;
+    private Integer provenanceQueuedEventCount;
+
     private StorageUsageDTO flowFileRepositoryStorageUsage;
     private Set<StorageUsageDTO> contentRepositoryStorageUsage;
     private Set<GarbageCollectionDTO> garbageCollection;
@@ -326,6 +329,27 @@ public class SystemDiagnosticsSnapshotDTO implements Cloneable {
         this.uptime = uptime;
     }
 
+    @ApiModelProperty("The number of milliseconds that the oldest Provenance Event that has been stored but is not yet searchable has been waiting "
+        + "to be indexed, or 0 if all stored events are searchable. Not set if the Provenance Repository does not keep track of how far "
+        + "indexing lags behind storage. When clustered, the largest lag of any node.")
+    public Long getProvenanceIndexingLagMillis() {
+        return provenanceIndexingLagMillis;
+    }
+
+    public void setProvenanceIndexingLagMillis(Long provenanceIndexingLagMillis) {
+        this.provenanceIndexingLagMillis = provenanceIndexingLagMillis;
+    }
+
+    @ApiModelProperty("The number of Provenance Events that have been stored and are waiting to be indexed. Not set if the Provenance Repository "
+        + "does not keep track of the events that are waiting to be indexed.")
+    public Integer getProvenanceQueuedEventCount() {
+        return provenanceQueuedEventCount;
+    }
+
+    public void setProvenanceQueuedEventCount(Integer provenanceQueuedEventCount) {
+        this.provenanceQueuedEventCount = provenanceQueuedEventCount;
+    }
+
     @Override
     public SystemDiagnosticsSnapshotDTO clone() {
         final SystemDiagnosticsSnapshotDTO other = new SystemDiagnosticsSnapshotDTO();
@@ -370,6 +394,8 @@ public class SystemDiagnosticsSnapshotDTO implements Cloneable {
         other.setVersionInfo(getVersionInfo().clone());
 
         other.setUptime(getUptime());
+        other.setProvenanceIndexingLagMillis(getProvenanceIndexingLagMillis());
+        other.setProvenanceQueuedEventCount(getProvenanceQueuedEventCount());
 
         return other;
     }
@@ -50,6 +50,7 @@ public class ProcessorStatusSnapshotDTO implements Cloneable {
     private String tasks;
     private String tasksDuration;
     private Integer activeThreadCount = 0;
+    private Long schedulingLatencyNanos = 0L;
 
     /* getters / setters */
     /**
@@ -175,6 +176,20 @@ public class ProcessorStatusSnapshotDTO implements Cloneable {
         this.activeThreadCount = threadCount;
     }
 
+    /**
+     * @return upper bound for the 99th percentile of how long the tasks of this Processor have waited to run after they were due to run
+     */
+    @ApiModelProperty("An upper bound, in nanoseconds, for the 99th percentile of how long the processor's tasks have waited to run after they were due "
+        + "to run, since the processor was last started. 0 if the processor is not running or its scheduling strategy does not keep track of this. "
+        + "When clustered, the largest value of any node.")
+    public Long getSchedulingLatencyNanos() {
+        return schedulingLatencyNanos;
+    }
+
+    public void setSchedulingLatencyNanos(Long schedulingLatencyNanos) {
+        this.schedulingLatencyNanos = schedulingLatencyNanos;
+    }
+
     /**
      * @return number of task this connectable has had over the last 5 minutes
      */
@@ -290,6 +305,7 @@ public class ProcessorStatusSnapshotDTO implements Cloneable {
         other.setTasksDuration(getTasksDuration());
         other.setTasksDurationNanos(getTasksDurationNanos());
         other.setActiveThreadCount(getActiveThreadCount());
+        other.setSchedulingLatencyNanos(getSchedulingLatencyNanos());
         other.setInput(getInput());
         other.setOutput(getOutput());
         other.setRead(getRead());
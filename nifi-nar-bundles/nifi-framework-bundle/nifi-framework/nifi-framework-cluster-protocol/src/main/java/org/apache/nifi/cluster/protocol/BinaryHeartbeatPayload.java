@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.nifi.cluster.coordination.node.DisconnectionCode;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionState;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+
+/**
+ * <p>
+ * The binary encoding of a {@link HeartbeatPayload}. An encoded payload consists of:
+ * </p>
+ *
+ * <ul>
+ * <li>A 4-byte magic header followed by a 1-byte encoding version</li>
+ * <li>The sequence number of the payload (8 bytes)</li>
+ * <li>The sequence number of the payload that this payload is a delta against, or -1 if the payload is complete (8 bytes)</li>
+ * <li>A bit mask indicating which fields follow (1 byte)</li>
+ * <li>The value of each field whose bit is set, in the order of the bits</li>
+ * </ul>
+ *
+ * <p>
+ * Fields that are omitted from a delta have the same value as in the payload that the delta is against.
+ * </p>
+ */
+final class BinaryHeartbeatPayload {
+
+    private static final byte[] MAGIC_HEADER = new byte[] {'N', 'H', 'B', 'P'};
+
+    static final int ACTIVE_THREAD_COUNT = 1;
+    static final int TOTAL_FLOWFILE_COUNT = 1 << 1;
+    static final int TOTAL_FLOWFILE_BYTES = 1 << 2;
+    static final int SYSTEM_START_TIME = 1 << 3;
+    static final int CLUSTER_STATUS = 1 << 4;
+    static final int ALL_FIELDS = ACTIVE_THREAD_COUNT | TOTAL_FLOWFILE_COUNT | TOTAL_FLOWFILE_BYTES | SYSTEM_START_TIME | CLUSTER_STATUS;
+
+    static final long NO_SEQUENCE = -1L;
+
+    private final long sequence;
+    private final long baseSequence;
+    private final int fields;
+    private final HeartbeatPayload payload;
+
+    private BinaryHeartbeatPayload(final long sequence, final long baseSequence, final int fields, final HeartbeatPayload payload) {
+        this.sequence = sequence;
+        this.baseSequence = baseSequence;
+        this.fields = fields;
+        this.payload = payload;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    boolean isPresent(final int field) {
+        return (fields & field) != 0;
+    }
+
+    /**
+     * @return a payload whose fields are populated only if they are present in the encoded form
+     */
+    HeartbeatPayload getPayload() {
+        return payload;
+    }
+
+    static boolean isBinary(final byte[] bytes) {
+        if (bytes == null || bytes.length < MAGIC_HEADER.length + 1) {
+            return false;
+        }
+
+        for (int i = 0; i < MAGIC_HEADER.length; i++) {
+            if (bytes[i] != MAGIC_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] write(final long sequence, final long baseSequence, final int fields, final HeartbeatPayload payload, final byte[] clusterStatus) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(64 + (clusterStatus == null ? 0 : clusterStatus.length));
+        try (final DataOutputStream out = new DataOutputStream(baos)) {
+            out.write(MAGIC_HEADER);
+            out.writeByte(HeartbeatPayload.BINARY_ENCODING_VERSION);
+            out.writeLong(sequence);
+            out.writeLong(baseSequence);
+            out.writeByte(fields);
+
+            if ((fields & ACTIVE_THREAD_COUNT) != 0) {
+                out.writeInt(payload.getActiveThreadCount());
+            }
+            if ((fields & TOTAL_FLOWFILE_COUNT) != 0) {
+                out.writeLong(payload.getTotalFlowFileCount());
+            }
+            if ((fields & TOTAL_FLOWFILE_BYTES) != 0) {
+                out.writeLong(payload.getTotalFlowFileBytes());
+            }
+            if ((fields & SYSTEM_START_TIME) != 0) {
+                out.writeLong(payload.getSystemStartTime());
+            }
+            if ((fields & CLUSTER_STATUS) != 0) {
+                out.write(clusterStatus);
+            }
+        } catch (final IOException ioe) {
+            // cannot happen when writing to a ByteArrayOutputStream
+            throw new ProtocolException(ioe);
+        }
+
+        return baos.toByteArray();
+    }
+
+    static BinaryHeartbeatPayload read(final byte[] bytes) throws ProtocolException {
+        if (!isBinary(bytes)) {
+            throw new ProtocolException("Heartbeat payload is not binary-encoded");
+        }
+
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            in.skipBytes(MAGIC_HEADER.length);
+            final int version = in.readUnsignedByte();
+            if (version > HeartbeatPayload.BINARY_ENCODING_VERSION) {
+                throw new ProtocolException("Heartbeat payload is encoded using version " + version + " but only versions up to "
+                    + HeartbeatPayload.BINARY_ENCODING_VERSION + " are supported");
+            }
+
+            final long sequence = in.readLong();
+            final long baseSequence = in.readLong();
+            final int fields = in.readUnsignedByte();
+
+            final HeartbeatPayload payload = new HeartbeatPayload();
+            if ((fields & ACTIVE_THREAD_COUNT) != 0) {
+                payload.setActiveThreadCount(in.readInt());
+            }
+            if ((fields & TOTAL_FLOWFILE_COUNT) != 0) {
+                payload.setTotalFlowFileCount(in.readLong());
+            }
+            if ((fields & TOTAL_FLOWFILE_BYTES) != 0) {
+                payload.setTotalFlowFileBytes(in.readLong());
+            }
+            if ((fields & SYSTEM_START_TIME) != 0) {
+                payload.setSystemStartTime(in.readLong());
+            }
+            if ((fields & CLUSTER_STATUS) != 0) {
+                payload.setClusterStatus(readClusterStatus(in));
+            }
+
+            return new BinaryHeartbeatPayload(sequence, baseSequence, fields, payload);
+        } catch (final IOException ioe) {
+            throw new ProtocolException("Failed to read binary-encoded heartbeat payload", ioe);
+        }
+    }
+
+    /**
+     * Encodes the given cluster status on its own, so that it can be compared against the cluster status
+     * of an earlier payload without comparing each {@link NodeConnectionStatus} field by field.
+     */
+    static byte[] writeClusterStatus(final List<NodeConnectionStatus> clusterStatus) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(clusterStatus == null ? 4 : 128 * clusterStatus.size());
+        try (final DataOutputStream out = new DataOutputStream(baos)) {
+            if (clusterStatus == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(clusterStatus.size());
+                for (final NodeConnectionStatus status : clusterStatus) {
+                    writeNodeConnectionStatus(status, out);
+                }
+            }
+        } catch (final IOException ioe) {
+            // cannot happen when writing to a ByteArrayOutputStream
+            throw new ProtocolException(ioe);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private static List<NodeConnectionStatus> readClusterStatus(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+
+        final List<NodeConnectionStatus> clusterStatus = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            clusterStatus.add(readNodeConnectionStatus(in));
+        }
+        return clusterStatus;
+    }
+
+    private static void writeNodeConnectionStatus(final NodeConnectionStatus status, final DataOutputStream out) throws IOException {
+        out.writeLong(status.getUpdateIdentifier());
+        writeNodeIdentifier(status.getNodeIdentifier(), out);
+        writeString(status.getState() == null ? null : status.getState().name(), out);
+        writeString(status.getDisconnectCode() == null ? null : status.getDisconnectCode().name(), out);
+        writeString(status.getDisconnectReason(), out);
+        writeLong(status.getConnectionRequestTime(), out);
+    }
+
+    private static NodeConnectionStatus readNodeConnectionStatus(final DataInputStream in) throws IOException {
+        final long updateId = in.readLong();
+        final NodeIdentifier nodeId = readNodeIdentifier(in);
+        final String state = readString(in);
+        final String disconnectCode = readString(in);
+        final String disconnectReason = readString(in);
+        final Long connectionRequestTime = readLong(in);
+
+        return new NodeConnectionStatus(updateId, nodeId, state == null ? null : NodeConnectionState.valueOf(state),
+            disconnectCode == null ? null : DisconnectionCode.valueOf(disconnectCode), disconnectReason, connectionRequestTime);
+    }
+
+    private static void writeNodeIdentifier(final NodeIdentifier nodeId, final DataOutputStream out) throws IOException {
+        writeString(nodeId.getId(), out);
+        writeString(nodeId.getApiAddress(), out);
+        out.writeInt(nodeId.getApiPort());
+        writeString(nodeId.getSocketAddress(), out);
+        out.writeInt(nodeId.getSocketPort());
+        writeString(nodeId.getSiteToSiteAddress(), out);
+        writeInteger(nodeId.getSiteToSitePort(), out);
+        writeInteger(nodeId.getSiteToSiteHttpApiPort(), out);
+        out.writeBoolean(nodeId.isSiteToSiteSecure());
+        writeString(nodeId.getDN(), out);
+    }
+
+    private static NodeIdentifier readNodeIdentifier(final DataInputStream in) throws IOException {
+        final String id = readString(in);
+        final String apiAddress = readString(in);
+        final int apiPort = in.readInt();
+        final String socketAddress = readString(in);
+        final int socketPort = in.readInt();
+        final String siteToSiteAddress = readString(in);
+        final Integer siteToSitePort = readInteger(in);
+        final Integer siteToSiteHttpApiPort = readInteger(in);
+        final boolean siteToSiteSecure = in.readBoolean();
+        final String dn = readString(in);
+
+        return new NodeIdentifier(id, apiAddress, apiPort, socketAddress, socketPort, siteToSiteAddress, siteToSitePort, siteToSiteHttpApiPort, siteToSiteSecure, dn);
+    }
+
+    private static void writeString(final String value, final DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(final Integer value, final DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeLong(final Long value, final DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
@@ -37,6 +37,13 @@ import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
 @XmlRootElement
 public class HeartbeatPayload {
 
+    /**
+     * The version of the binary encoding that is produced by {@link HeartbeatPayloadEncoder} and understood by
+     * {@link HeartbeatPayloadDecoder}. A payload is binary-encoded only once the Cluster Coordinator has indicated
+     * that it supports this version; until then, payloads are marshalled as XML.
+     */
+    public static final int BINARY_ENCODING_VERSION = 1;
+
     private static final JAXBContext JAXB_CONTEXT;
 
     static {
@@ -117,7 +124,23 @@ public class HeartbeatPayload {
         }
     }
 
+    /**
+     * Unmarshals a payload that was marshalled either as XML or as a complete (non-delta) binary-encoded payload.
+     * Payloads that are delta-encoded must be decoded using a {@link HeartbeatPayloadDecoder}.
+     *
+     * @param bytes the marshalled payload
+     * @return the payload
+     * @throws ProtocolException if the payload cannot be unmarshalled
+     */
     public static HeartbeatPayload unmarshal(final byte[] bytes) throws ProtocolException {
+        if (BinaryHeartbeatPayload.isBinary(bytes)) {
+            final BinaryHeartbeatPayload binaryPayload = BinaryHeartbeatPayload.read(bytes);
+            if (binaryPayload.getBaseSequence() != BinaryHeartbeatPayload.NO_SEQUENCE) {
+                throw new ProtocolException("Heartbeat payload is a delta against an earlier payload and cannot be unmarshalled on its own");
+            }
+            return binaryPayload.getPayload();
+        }
+
         try {
             final Unmarshaller unmarshaller = JAXB_CONTEXT.createUnmarshaller();
             return (HeartbeatPayload) unmarshaller.unmarshal(new ByteArrayInputStream(bytes));
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.protocol;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Decodes the heartbeat payloads that are received from the nodes in the cluster, whether they are marshalled as XML or
+ * binary-encoded by a {@link HeartbeatPayloadEncoder}. The most recent payload that was received from each node is retained
+ * so that delta-encoded payloads can be resolved against it.
+ * </p>
+ *
+ * <p>
+ * If a delta-encoded payload is received that cannot be resolved, because no payload has been received from the node since
+ * it was last forgotten or because it is a delta against a payload other than the one that was most recently received from
+ * the node, it is dropped and not acknowledged. This causes the node to send its next payload in full.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public class HeartbeatPayloadDecoder {
+    private final ConcurrentMap<NodeIdentifier, DecodedPayload> latestPayloads = new ConcurrentHashMap<>();
+
+    /**
+     * @param nodeId the identifier of the node that sent the payload
+     * @param bytes the payload
+     * @return the decoded payload, whose {@link DecodedPayload#getPayload() payload} is <code>null</code> if it was a delta
+     *         that could not be resolved
+     * @throws ProtocolException if the payload cannot be decoded
+     */
+    public DecodedPayload decode(final NodeIdentifier nodeId, final byte[] bytes) throws ProtocolException {
+        if (!BinaryHeartbeatPayload.isBinary(bytes)) {
+            latestPayloads.remove(nodeId);
+            return new DecodedPayload(HeartbeatPayload.unmarshal(bytes), BinaryHeartbeatPayload.NO_SEQUENCE);
+        }
+
+        final BinaryHeartbeatPayload binaryPayload = BinaryHeartbeatPayload.read(bytes);
+        final long baseSequence = binaryPayload.getBaseSequence();
+        if (baseSequence == BinaryHeartbeatPayload.NO_SEQUENCE) {
+            final DecodedPayload decoded = new DecodedPayload(binaryPayload.getPayload(), binaryPayload.getSequence());
+            latestPayloads.put(nodeId, decoded);
+            return decoded;
+        }
+
+        // The fields that are absent from a delta that cannot be resolved are unknown, so they must not be reported as their defaults
+        final DecodedPayload latest = latestPayloads.get(nodeId);
+        if (latest == null || latest.getSequence() != baseSequence) {
+            return new DecodedPayload(null, BinaryHeartbeatPayload.NO_SEQUENCE);
+        }
+
+        final HeartbeatPayload payload = merge(binaryPayload, latest.getPayload());
+        final DecodedPayload decoded = new DecodedPayload(payload, binaryPayload.getSequence());
+        latestPayloads.put(nodeId, decoded);
+        return decoded;
+    }
+
+    private HeartbeatPayload merge(final BinaryHeartbeatPayload delta, final HeartbeatPayload base) {
+        final HeartbeatPayload payload = delta.getPayload();
+        if (!delta.isPresent(BinaryHeartbeatPayload.ACTIVE_THREAD_COUNT)) {
+            payload.setActiveThreadCount(base.getActiveThreadCount());
+        }
+        if (!delta.isPresent(BinaryHeartbeatPayload.TOTAL_FLOWFILE_COUNT)) {
+            payload.setTotalFlowFileCount(base.getTotalFlowFileCount());
+        }
+        if (!delta.isPresent(BinaryHeartbeatPayload.TOTAL_FLOWFILE_BYTES)) {
+            payload.setTotalFlowFileBytes(base.getTotalFlowFileBytes());
+        }
+        if (!delta.isPresent(BinaryHeartbeatPayload.SYSTEM_START_TIME)) {
+            payload.setSystemStartTime(base.getSystemStartTime());
+        }
+        if (!delta.isPresent(BinaryHeartbeatPayload.CLUSTER_STATUS)) {
+            payload.setClusterStatus(base.getClusterStatus());
+        }
+        return payload;
+    }
+
+    /**
+     * Forgets the most recent payload of the given node
+     *
+     * @param nodeId the identifier of the node
+     */
+    public void remove(final NodeIdentifier nodeId) {
+        latestPayloads.remove(nodeId);
+    }
+
+    /**
+     * Forgets the most recent payload of every node
+     */
+    public void clear() {
+        latestPayloads.clear();
+    }
+
+    public static class DecodedPayload {
+        private final HeartbeatPayload payload;
+        private final long sequence;
+
+        private DecodedPayload(final HeartbeatPayload payload, final long sequence) {
+            this.payload = payload;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return the payload, or <code>null</code> if the payload was a delta that could not be resolved
+         */
+        public HeartbeatPayload getPayload() {
+            return payload;
+        }
+
+        /**
+         * @return the sequence number that should be acknowledged to the node, or -1 if the payload should not be
+         *         acknowledged because it was marshalled as XML or could not be fully resolved
+         */
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
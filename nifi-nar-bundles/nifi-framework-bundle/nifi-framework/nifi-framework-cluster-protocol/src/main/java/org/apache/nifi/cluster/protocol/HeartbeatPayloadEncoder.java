@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.protocol;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Encodes the heartbeat payloads of a single node using the binary encoding. Each payload is assigned a sequence number.
+ * Once the Cluster Coordinator has acknowledged a payload by its sequence number, subsequent payloads are encoded as deltas
+ * against it, containing only the fields whose values have changed. If the Cluster Coordinator does not acknowledge a payload,
+ * or indicates that it was unable to resolve a delta, the next payload is encoded in full.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public class HeartbeatPayloadEncoder {
+    private static final int MAX_UNACKNOWLEDGED_PAYLOADS = 8;
+
+    private final Map<Long, SentPayload> unacknowledged = new LinkedHashMap<>();
+    private SentPayload acknowledged;
+    private long nextSequence = 0L;
+
+    /**
+     * Encodes the given payload, as a delta against the most recently acknowledged payload if there is one.
+     *
+     * @param payload the payload to encode
+     * @return the encoded payload
+     */
+    public synchronized byte[] encode(final HeartbeatPayload payload) {
+        final SentPayload sent = new SentPayload(nextSequence++, payload);
+
+        final SentPayload base = acknowledged;
+        final int fields = base == null ? BinaryHeartbeatPayload.ALL_FIELDS : sent.getChangedFields(base);
+        final long baseSequence = base == null ? BinaryHeartbeatPayload.NO_SEQUENCE : base.sequence;
+        final byte[] encoded = BinaryHeartbeatPayload.write(sent.sequence, baseSequence, fields, payload, sent.clusterStatus);
+
+        unacknowledged.put(sent.sequence, sent);
+        if (unacknowledged.size() > MAX_UNACKNOWLEDGED_PAYLOADS) {
+            final Iterator<Long> itr = unacknowledged.keySet().iterator();
+            itr.next();
+            itr.remove();
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Indicates that the Cluster Coordinator has acknowledged the payload with the given sequence number, so that
+     * subsequent payloads may be encoded as deltas against it. A negative sequence number indicates that the Cluster
+     * Coordinator did not resolve the last payload that it received, so the next payload will be encoded in full.
+     *
+     * @param sequence the sequence number of the acknowledged payload
+     */
+    public synchronized void acknowledge(final long sequence) {
+        final SentPayload sent = sequence < 0 ? null : unacknowledged.get(sequence);
+        acknowledged = sent;
+        if (sent == null) {
+            unacknowledged.clear();
+            return;
+        }
+
+        // Any payload that was sent before the acknowledged one can no longer be acknowledged
+        unacknowledged.keySet().removeIf(unacknowledgedSequence -> unacknowledgedSequence <= sequence);
+    }
+
+    /**
+     * Forgets all payloads that have been sent, so that the next payload is encoded in full. This should be called
+     * whenever heartbeats start being sent to a different Cluster Coordinator.
+     */
+    public synchronized void reset() {
+        acknowledged = null;
+        unacknowledged.clear();
+    }
+
+    private static class SentPayload {
+        private final long sequence;
+        private final int activeThreadCount;
+        private final long totalFlowFileCount;
+        private final long totalFlowFileBytes;
+        private final long systemStartTime;
+        private final byte[] clusterStatus;
+
+        SentPayload(final long sequence, final HeartbeatPayload payload) {
+            this.sequence = sequence;
+            this.activeThreadCount = payload.getActiveThreadCount();
+            this.totalFlowFileCount = payload.getTotalFlowFileCount();
+            this.totalFlowFileBytes = payload.getTotalFlowFileBytes();
+            this.systemStartTime = payload.getSystemStartTime();
+            this.clusterStatus = BinaryHeartbeatPayload.writeClusterStatus(payload.getClusterStatus());
+        }
+
+        int getChangedFields(final SentPayload base) {
+            int fields = 0;
+            if (activeThreadCount != base.activeThreadCount) {
+                fields |= BinaryHeartbeatPayload.ACTIVE_THREAD_COUNT;
+            }
+            if (totalFlowFileCount != base.totalFlowFileCount) {
+                fields |= BinaryHeartbeatPayload.TOTAL_FLOWFILE_COUNT;
+            }
+            if (totalFlowFileBytes != base.totalFlowFileBytes) {
+                fields |= BinaryHeartbeatPayload.TOTAL_FLOWFILE_BYTES;
+            }
+            if (systemStartTime != base.systemStartTime) {
+                fields |= BinaryHeartbeatPayload.SYSTEM_START_TIME;
+            }
+            if (!Arrays.equals(clusterStatus, base.clusterStatus)) {
+                fields |= BinaryHeartbeatPayload.CLUSTER_STATUS;
+            }
+            return fields;
+        }
+    }
+}
@@ -29,6 +29,9 @@ public class HeartbeatResponseMessage extends ProtocolMessage {
 
     private List<NodeConnectionStatus> updatedNodeStatuses = new ArrayList<>();
     private String flowElectionMessage = null;
+    private Integer heartbeatPayloadVersion = null;
+    private Long acknowledgedPayloadSequence = null;
+    private boolean fullPayloadRequested = false;
 
     @Override
     public MessageType getType() {
@@ -50,4 +53,41 @@ public class HeartbeatResponseMessage extends ProtocolMessage {
     public void setFlowElectionMessage(String flowElectionMessage) {
         this.flowElectionMessage = flowElectionMessage;
     }
+
+    /**
+     * @return the highest version of the binary heartbeat payload encoding that the Cluster Coordinator supports,
+     *         or <code>null</code> if the Cluster Coordinator supports only XML payloads
+     */
+    public Integer getHeartbeatPayloadVersion() {
+        return heartbeatPayloadVersion;
+    }
+
+    public void setHeartbeatPayloadVersion(final Integer heartbeatPayloadVersion) {
+        this.heartbeatPayloadVersion = heartbeatPayloadVersion;
+    }
+
+    /**
+     * @return the sequence number of the binary-encoded heartbeat payload that the Cluster Coordinator received and
+     *         will resolve the next delta-encoded payload against, or <code>null</code> if there is no such payload
+     */
+    public Long getAcknowledgedPayloadSequence() {
+        return acknowledgedPayloadSequence;
+    }
+
+    public void setAcknowledgedPayloadSequence(final Long acknowledgedPayloadSequence) {
+        this.acknowledgedPayloadSequence = acknowledgedPayloadSequence;
+    }
+
+    /**
+     * @return <code>true</code> if the Cluster Coordinator could not resolve the delta-encoded payload that it received and has
+     *         no earlier heartbeat from the node, so the node should send its payload again, in full, without waiting for its
+     *         next heartbeat
+     */
+    public boolean isFullPayloadRequested() {
+        return fullPayloadRequested;
+    }
+
+    public void setFullPayloadRequested(final boolean fullPayloadRequested) {
+        this.fullPayloadRequested = fullPayloadRequested;
+    }
 }
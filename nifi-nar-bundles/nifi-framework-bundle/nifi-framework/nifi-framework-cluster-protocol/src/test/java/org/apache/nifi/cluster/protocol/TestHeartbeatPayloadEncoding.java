@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.cluster.coordination.node.DisconnectionCode;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionState;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+import org.apache.nifi.cluster.protocol.HeartbeatPayloadDecoder.DecodedPayload;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class TestHeartbeatPayloadEncoding {
+    private final NodeIdentifier nodeId = createNodeId(1);
+
+    private static NodeIdentifier createNodeId(final int index) {
+        return new NodeIdentifier("node-" + index, "host-" + index, 8080, "host-" + index, 8081, null, 8082, null, false, "CN=host-" + index);
+    }
+
+    private static List<NodeConnectionStatus> createClusterStatus(final int nodeCount) {
+        final List<NodeConnectionStatus> clusterStatus = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            clusterStatus.add(new NodeConnectionStatus(i, createNodeId(i), NodeConnectionState.CONNECTED, null, null, null));
+        }
+        return clusterStatus;
+    }
+
+    private static HeartbeatPayload createPayload(final int activeThreads, final long flowFileCount, final List<NodeConnectionStatus> clusterStatus) {
+        final HeartbeatPayload payload = new HeartbeatPayload();
+        payload.setActiveThreadCount(activeThreads);
+        payload.setTotalFlowFileCount(flowFileCount);
+        payload.setTotalFlowFileBytes(flowFileCount * 1024L);
+        payload.setSystemStartTime(1500000000000L);
+        payload.setClusterStatus(clusterStatus);
+        return payload;
+    }
+
+    private static void assertPayloadEquals(final HeartbeatPayload expected, final HeartbeatPayload actual) {
+        assertEquals(expected.getActiveThreadCount(), actual.getActiveThreadCount());
+        assertEquals(expected.getTotalFlowFileCount(), actual.getTotalFlowFileCount());
+        assertEquals(expected.getTotalFlowFileBytes(), actual.getTotalFlowFileBytes());
+        assertEquals(expected.getSystemStartTime(), actual.getSystemStartTime());
+
+        final List<NodeConnectionStatus> expectedStatus = expected.getClusterStatus();
+        final List<NodeConnectionStatus> actualStatus = actual.getClusterStatus();
+        assertEquals(expectedStatus.size(), actualStatus.size());
+        for (int i = 0; i < expectedStatus.size(); i++) {
+            final NodeConnectionStatus expectedNodeStatus = expectedStatus.get(i);
+            final NodeConnectionStatus actualNodeStatus = actualStatus.get(i);
+            assertEquals(expectedNodeStatus, actualNodeStatus);
+            assertEquals(expectedNodeStatus.getUpdateIdentifier(), actualNodeStatus.getUpdateIdentifier());
+            assertEquals(expectedNodeStatus.getDisconnectCode(), actualNodeStatus.getDisconnectCode());
+            assertEquals(expectedNodeStatus.getDisconnectReason(), actualNodeStatus.getDisconnectReason());
+            assertEquals(expectedNodeStatus.getConnectionRequestTime(), actualNodeStatus.getConnectionRequestTime());
+            assertEquals(expectedNodeStatus.getNodeIdentifier().getDN(), actualNodeStatus.getNodeIdentifier().getDN());
+            assertEquals(expectedNodeStatus.getNodeIdentifier().getSiteToSitePort(), actualNodeStatus.getNodeIdentifier().getSiteToSitePort());
+            assertNull(actualNodeStatus.getNodeIdentifier().getSiteToSiteHttpApiPort());
+        }
+    }
+
+    @Test
+    public void testDeltaAgainstAcknowledgedPayload() {
+        final HeartbeatPayloadEncoder encoder = new HeartbeatPayloadEncoder();
+        final HeartbeatPayloadDecoder decoder = new HeartbeatPayloadDecoder();
+
+        final List<NodeConnectionStatus> clusterStatus = createClusterStatus(3);
+        clusterStatus.add(new NodeConnectionStatus(createNodeId(3), DisconnectionCode.LACK_OF_HEARTBEAT, "No heartbeat"));
+
+        final HeartbeatPayload first = createPayload(4, 100L, clusterStatus);
+        final byte[] firstBytes = encoder.encode(first);
+        final DecodedPayload firstDecoded = decoder.decode(nodeId, firstBytes);
+        assertPayloadEquals(first, firstDecoded.getPayload());
+        assertPayloadEquals(first, HeartbeatPayload.unmarshal(firstBytes));
+        encoder.acknowledge(firstDecoded.getSequence());
+
+        // Only the thread and FlowFile counts change, so the cluster status should not be sent again
+        final HeartbeatPayload second = createPayload(5, 200L, new ArrayList<>(clusterStatus));
+        final byte[] secondBytes = encoder.encode(second);
+        assertTrue(secondBytes.length < 64);
+        assertTrue(secondBytes.length < firstBytes.length);
+
+        final DecodedPayload secondDecoded = decoder.decode(nodeId, secondBytes);
+        assertEquals(firstDecoded.getSequence() + 1, secondDecoded.getSequence());
+        assertPayloadEquals(second, secondDecoded.getPayload());
+        encoder.acknowledge(secondDecoded.getSequence());
+
+        // A change to the cluster status is sent
+        final List<NodeConnectionStatus> updatedStatus = new ArrayList<>(clusterStatus);
+        updatedStatus.set(3, new NodeConnectionStatus(createNodeId(3), NodeConnectionState.CONNECTING));
+        final HeartbeatPayload third = createPayload(5, 200L, updatedStatus);
+        final DecodedPayload thirdDecoded = decoder.decode(nodeId, encoder.encode(third));
+        assertPayloadEquals(third, thirdDecoded.getPayload());
+    }
+
+    @Test
+    public void testUnresolvedDeltaIsNotAcknowledged() {
+        final HeartbeatPayloadEncoder encoder = new HeartbeatPayloadEncoder();
+        final HeartbeatPayloadDecoder decoder = new HeartbeatPayloadDecoder();
+
+        final HeartbeatPayload first = createPayload(4, 100L, createClusterStatus(3));
+        encoder.acknowledge(decoder.decode(nodeId, encoder.encode(first)).getSequence());
+
+        // The acknowledgement of the second payload is lost, so the third is a delta against a payload the coordinator has replaced
+        final HeartbeatPayload second = createPayload(5, 200L, createClusterStatus(3));
+        assertTrue(decoder.decode(nodeId, encoder.encode(second)).getSequence() >= 0);
+        final HeartbeatPayload third = createPayload(6, 200L, createClusterStatus(3));
+        final DecodedPayload thirdDecoded = decoder.decode(nodeId, encoder.encode(third));
+        assertEquals(-1L, thirdDecoded.getSequence());
+        assertNull(thirdDecoded.getPayload());
+        encoder.acknowledge(thirdDecoded.getSequence());
+
+        // The next payload must then be complete
+        final HeartbeatPayload fourth = createPayload(7, 300L, createClusterStatus(3));
+        final DecodedPayload fourthDecoded = decoder.decode(nodeId, encoder.encode(fourth));
+        assertTrue(fourthDecoded.getSequence() >= 0);
+        assertPayloadEquals(fourth, fourthDecoded.getPayload());
+    }
+
+    @Test
+    public void testDeltaWithoutBaseIsNotAcknowledged() {
+        final HeartbeatPayloadEncoder encoder = new HeartbeatPayloadEncoder();
+        final HeartbeatPayloadDecoder decoder = new HeartbeatPayloadDecoder();
+
+        final HeartbeatPayload first = createPayload(4, 100L, createClusterStatus(3));
+        encoder.acknowledge(decoder.decode(nodeId, encoder.encode(first)).getSequence());
+
+        // The Cluster Coordinator forgets the node's payload, as happens when heartbeats are purged or a new coordinator is elected.
+        // The delta that follows holds only the active thread count, and none of the fields it omits may be reported as defaults.
+        decoder.clear();
+        final HeartbeatPayload second = createPayload(5, 100L, createClusterStatus(3));
+        final DecodedPayload secondDecoded = decoder.decode(nodeId, encoder.encode(second));
+        assertEquals(-1L, secondDecoded.getSequence());
+        assertNull(secondDecoded.getPayload());
+        encoder.acknowledge(secondDecoded.getSequence());
+
+        final HeartbeatPayload third = createPayload(6, 300L, createClusterStatus(3));
+        final DecodedPayload thirdDecoded = decoder.decode(nodeId, encoder.encode(third));
+        assertTrue(thirdDecoded.getSequence() >= 0);
+        assertPayloadEquals(third, thirdDecoded.getPayload());
+    }
+
+    @Test
+    public void testDecodeXml() {
+        final HeartbeatPayloadDecoder decoder = new HeartbeatPayloadDecoder();
+        final HeartbeatPayload payload = createPayload(4, 100L, createClusterStatus(3));
+
+        final DecodedPayload decoded = decoder.decode(nodeId, payload.marshal());
+        assertEquals(-1L, decoded.getSequence());
+        assertEquals(4, decoded.getPayload().getActiveThreadCount());
+        assertEquals(100L, decoded.getPayload().getTotalFlowFileCount());
+        assertEquals(3, decoded.getPayload().getClusterStatus().size());
+    }
+
+    @Test
+    @Ignore("Intended only for local performance testing before/after making changes")
+    public void testPerformance() {
+        final int heartbeatCount = 10_000;
+        final List<NodeConnectionStatus> clusterStatus = createClusterStatus(20);
+
+        for (int j = 0; j < 5; j++) {
+            long xmlBytes = 0L;
+            long start = System.nanoTime();
+            for (int i = 0; i < heartbeatCount; i++) {
+                final byte[] bytes = createPayload(i % 50, i, clusterStatus).marshal();
+                xmlBytes += bytes.length;
+                HeartbeatPayload.unmarshal(bytes);
+            }
+            final long xmlNanos = System.nanoTime() - start;
+
+            final HeartbeatPayloadEncoder encoder = new HeartbeatPayloadEncoder();
+            final HeartbeatPayloadDecoder decoder = new HeartbeatPayloadDecoder();
+            long binaryBytes = 0L;
+            start = System.nanoTime();
+            for (int i = 0; i < heartbeatCount; i++) {
+                final byte[] bytes = encoder.encode(createPayload(i % 50, i, clusterStatus));
+                binaryBytes += bytes.length;
+                encoder.acknowledge(decoder.decode(nodeId, bytes).getSequence());
+            }
+            final long binaryNanos = System.nanoTime() - start;
+
+            System.out.println("XML: " + TimeUnit.NANOSECONDS.toMicros(xmlNanos) / heartbeatCount + " micros and " + xmlBytes / heartbeatCount
+                + " bytes per heartbeat; Binary: " + TimeUnit.NANOSECONDS.toMicros(binaryNanos) / heartbeatCount + " micros and "
+                + binaryBytes / heartbeatCount + " bytes per heartbeat");
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
 import org.apache.nifi.cluster.coordination.node.NodeWorkload;
 import org.apache.nifi.cluster.protocol.Heartbeat;
 import org.apache.nifi.cluster.protocol.HeartbeatPayload;
+import org.apache.nifi.cluster.protocol.HeartbeatPayloadDecoder;
+import org.apache.nifi.cluster.protocol.HeartbeatPayloadDecoder.DecodedPayload;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.cluster.protocol.ProtocolException;
 import org.apache.nifi.cluster.protocol.ProtocolHandler;
@@ -60,6 +62,7 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
 
     private final String heartbeatAddress;
     private final ConcurrentMap<NodeIdentifier, NodeHeartbeat> heartbeatMessages = new ConcurrentHashMap<>();
+    private final HeartbeatPayloadDecoder payloadDecoder = new HeartbeatPayloadDecoder();
 
     private volatile long purgeTimestamp = System.currentTimeMillis();
 
@@ -113,6 +116,7 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
         // that if we go the required amount of time without receiving a heartbeat, we do know to mark the node
         // as disconnected.
         heartbeatMessages.clear();
+        payloadDecoder.clear();
         for (final NodeIdentifier nodeId : clusterCoordinator.getNodeIdentifiers()) {
             final NodeHeartbeat heartbeat = new StandardNodeHeartbeat(nodeId, System.currentTimeMillis(),
                     clusterCoordinator.getConnectionStatus(nodeId), 0, 0L, 0, System.currentTimeMillis());
@@ -133,12 +137,14 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
     public synchronized void removeHeartbeat(final NodeIdentifier nodeId) {
         logger.debug("Deleting heartbeat for node {}", nodeId);
         heartbeatMessages.remove(nodeId);
+        payloadDecoder.remove(nodeId);
     }
 
     @Override
     public synchronized void purgeHeartbeats() {
         logger.debug("Purging old heartbeats");
         heartbeatMessages.clear();
+        payloadDecoder.clear();
         purgeTimestamp = System.currentTimeMillis();
     }
 
@@ -166,7 +172,12 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
         final NodeIdentifier nodeId = heartbeat.getNodeIdentifier();
         final NodeConnectionStatus connectionStatus = heartbeat.getConnectionStatus();
         final byte[] payloadBytes = heartbeat.getPayload();
-        final HeartbeatPayload payload = HeartbeatPayload.unmarshal(payloadBytes);
+        final DecodedPayload decodedPayload = payloadDecoder.decode(nodeId, payloadBytes);
+        final HeartbeatPayload payload = decodedPayload.getPayload();
+        if (payload == null) {
+            return handleUnresolvedHeartbeat(nodeId, connectionStatus, decodedPayload.getSequence());
+        }
+
         final int activeThreadCount = payload.getActiveThreadCount();
         final int flowFileCount = (int) payload.getTotalFlowFileCount();
         final long flowFileBytes = payload.getTotalFlowFileBytes();
@@ -188,6 +199,38 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
         final HeartbeatResponseMessage responseMessage = new HeartbeatResponseMessage();
         responseMessage.setUpdatedNodeStatuses(updatedStatuses);
 
+        // Let the node know that it may send binary-encoded payloads, and which of its payloads it may send deltas against
+        responseMessage.setHeartbeatPayloadVersion(HeartbeatPayload.BINARY_ENCODING_VERSION);
+        responseMessage.setAcknowledgedPayloadSequence(decodedPayload.getSequence());
+
+        if (!getClusterCoordinator().isFlowElectionComplete()) {
+            responseMessage.setFlowElectionMessage(getClusterCoordinator().getFlowElectionStatus());
+        }
+
+        return responseMessage;
+    }
+
+    private ProtocolMessage handleUnresolvedHeartbeat(final NodeIdentifier nodeId, final NodeConnectionStatus connectionStatus, final long acknowledgedSequence) {
+        // The node sent a delta against a payload that we no longer have, so its workload and view of the cluster are unknown.
+        // Keep the workload of its previous heartbeat, if there is one, and ask the node to send its next payload in full. If there
+        // is no previous heartbeat, we know nothing of the node's workload, so ask the node to send the payload in full right away.
+        final NodeHeartbeat previousHeartbeat = heartbeatMessages.get(nodeId);
+        if (previousHeartbeat != null) {
+            final NodeHeartbeat nodeHeartbeat = new StandardNodeHeartbeat(nodeId, System.currentTimeMillis(), connectionStatus,
+                    previousHeartbeat.getFlowFileCount(), previousHeartbeat.getFlowFileBytes(), previousHeartbeat.getActiveThreadCount(),
+                    previousHeartbeat.getSystemStartTime());
+            heartbeatMessages.put(nodeId, nodeHeartbeat);
+            logger.debug("Received heartbeat from {} that could not be resolved; requesting its next heartbeat in full", nodeId);
+        } else {
+            logger.debug("Received heartbeat from {} that could not be resolved and have no previous heartbeat from it; requesting the payload in full", nodeId);
+        }
+
+        final HeartbeatResponseMessage responseMessage = new HeartbeatResponseMessage();
+        responseMessage.setUpdatedNodeStatuses(Collections.emptyList());
+        responseMessage.setHeartbeatPayloadVersion(HeartbeatPayload.BINARY_ENCODING_VERSION);
+        responseMessage.setAcknowledgedPayloadSequence(acknowledgedSequence);
+        responseMessage.setFullPayloadRequested(previousHeartbeat == null);
+
         if (!getClusterCoordinator().isFlowElectionComplete()) {
             responseMessage.setFlowElectionMessage(getClusterCoordinator().getFlowElectionStatus());
         }
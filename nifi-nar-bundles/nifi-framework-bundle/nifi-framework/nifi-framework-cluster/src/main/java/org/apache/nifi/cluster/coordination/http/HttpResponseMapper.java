@@ -43,6 +43,31 @@ public interface HttpResponseMapper {
      */
     NodeResponse mapResponses(URI uri, String httpMethod, Set<NodeResponse> nodeResponses, boolean merge);
 
+    /**
+     * Maps the responses from all nodes in the cluster to a single NodeResponse object that
+     * is appropriate to respond with, using the given merge into which each successful response
+     * has already been added, if the responses are to be merged
+     *
+     * @param uri the URI of the web request that was made
+     * @param httpMethod the HTTP Method that was used when making the request
+     * @param nodeResponses the responses received from the individual nodes
+     * @param incrementalMerge the merge into which each successful response has been added as it was received,
+     *            or <code>null</code> if the responses have not been merged incrementally
+     *
+     * @return a single NodeResponse that represents the response that should be returned to the user/client
+     */
+    NodeResponse mapResponses(URI uri, String httpMethod, Set<NodeResponse> nodeResponses, boolean merge, IncrementalResponseMerge incrementalMerge);
+
+    /**
+     * Creates a merge into which the successful responses for the given URI & HTTP method can be added as they
+     * are received, if the responses for the endpoint can be merged incrementally
+     *
+     * @param uri the URI of the request
+     * @param httpMethod the HTTP Method of the request
+     * @return a new IncrementalResponseMerge, or <code>null</code> if the responses for the endpoint cannot be merged incrementally
+     */
+    IncrementalResponseMerge createIncrementalMerge(URI uri, String httpMethod);
+
     /**
      * Returns a subset (or equal set) of the given Node Responses, such that all of those returned are the responses
      * that indicate that the node was unable to fulfill the request
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.coordination.http;
+
+import java.net.URI;
+
+/**
+ * <p>
+ * An EndpointResponseMerger that is able to merge the responses from nodes one at a time, as each response
+ * is received, rather than requiring the responses from all nodes to be held until every node has responded.
+ * </p>
+ *
+ * <p>
+ * Implementations of this interface MUST be Thread-Safe.
+ * </p>
+ */
+public interface IncrementalEndpointResponseMerger extends EndpointResponseMerger {
+
+    /**
+     * Creates a new merge into which the responses for a single request can be added as they are received
+     *
+     * @param uri the URI of the endpoint
+     * @param method the HTTP Method used to interact with the endpoint
+     *
+     * @return a new IncrementalResponseMerge for the request
+     */
+    IncrementalResponseMerge createIncrementalMerge(URI uri, String method);
+
+}
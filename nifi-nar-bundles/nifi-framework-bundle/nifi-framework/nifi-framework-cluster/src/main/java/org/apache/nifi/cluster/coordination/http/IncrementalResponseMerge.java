@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.coordination.http;
+
+import java.util.Set;
+
+import org.apache.nifi.cluster.manager.NodeResponse;
+
+/**
+ * <p>
+ * The state of merging the responses to a single replicated request. Each successful response is added as soon
+ * as it is received, at which point its content is consumed and merged, so that only the merged result is retained.
+ * </p>
+ *
+ * <p>
+ * Implementations of this interface MUST be Thread-Safe, as responses from different nodes may be added concurrently.
+ * </p>
+ */
+public interface IncrementalResponseMerge {
+
+    /**
+     * Consumes the content of the given successful response and merges it into the result
+     *
+     * @param nodeResponse a successful response from a node
+     */
+    void add(NodeResponse nodeResponse);
+
+    /**
+     * Provides the result of merging all of the responses that have been added
+     *
+     * @param successfulResponses the responses from nodes that were successful in handling the request, all of which have been added
+     * @param problematicResponses the responses from nodes that were not successful in handling the request
+     *
+     * @return a NodeResponse that is appropriate to return to the client/user
+     */
+    NodeResponse complete(Set<NodeResponse> successfulResponses, Set<NodeResponse> problematicResponses);
+
+}
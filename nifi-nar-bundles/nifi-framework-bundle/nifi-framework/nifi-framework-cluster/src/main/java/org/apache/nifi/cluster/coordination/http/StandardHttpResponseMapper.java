@@ -158,6 +158,12 @@ public class StandardHttpResponseMapper implements HttpResponseMapper {
 
     @Override
     public NodeResponse mapResponses(final URI uri, final String httpMethod, final Set<NodeResponse> nodeResponses, final boolean merge) {
+        return mapResponses(uri, httpMethod, nodeResponses, merge, null);
+    }
+
+    @Override
+    public NodeResponse mapResponses(final URI uri, final String httpMethod, final Set<NodeResponse> nodeResponses, final boolean merge,
+                                     final IncrementalResponseMerge incrementalMerge) {
         final boolean hasSuccess = hasSuccessfulResponse(nodeResponses);
         if (!hasSuccess) {
             // If we have a response that is a 3xx, 4xx, or 5xx, then we want to choose that.
@@ -193,6 +199,11 @@ public class StandardHttpResponseMapper implements HttpResponseMapper {
             return clientResponse;
         }
 
+        // The content of each successful response has already been consumed by the incremental merge
+        if (incrementalMerge != null) {
+            return incrementalMerge.complete(successResponses, problematicResponses);
+        }
+
         EndpointResponseMerger merger = getEndpointResponseMerger(uri, httpMethod);
         if (merger == null) {
             return clientResponse;
@@ -216,6 +227,16 @@ public class StandardHttpResponseMapper implements HttpResponseMapper {
         }
     }
 
+    @Override
+    public IncrementalResponseMerge createIncrementalMerge(final URI uri, final String httpMethod) {
+        final EndpointResponseMerger merger = getEndpointResponseMerger(uri, httpMethod);
+        if (merger instanceof IncrementalEndpointResponseMerger) {
+            return ((IncrementalEndpointResponseMerger) merger).createIncrementalMerge(uri, httpMethod);
+        }
+
+        return null;
+    }
+
     @Override
     public boolean isResponseInterpreted(final URI uri, final String httpMethod) {
         return getEndpointResponseMerger(uri, httpMethod) != null;
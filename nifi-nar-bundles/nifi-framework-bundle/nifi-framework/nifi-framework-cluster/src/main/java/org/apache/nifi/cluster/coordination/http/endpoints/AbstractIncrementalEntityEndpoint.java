@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.coordination.http.endpoints;
+
+import org.apache.nifi.cluster.coordination.http.IncrementalEndpointResponseMerger;
+import org.apache.nifi.cluster.coordination.http.IncrementalResponseMerge;
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.entity.Entity;
+import org.apache.nifi.web.util.EntityTags;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Merges the responses for an endpoint that returns a single entity, one response at a time. The entity from the first node to be
+ * merged is used as the merged entity, and the entity from each subsequent node is merged into it and then discarded. If every node
+ * tagged its entity, the merged entity is tagged with a combination of those tags, as it only changes when one of them does.
+ */
+public abstract class AbstractIncrementalEntityEndpoint<EntityType extends Entity> implements IncrementalEndpointResponseMerger {
+    @Override
+    public final NodeResponse merge(final URI uri, final String method, final Set<NodeResponse> successfulResponses, final Set<NodeResponse> problematicResponses, final NodeResponse clientResponse) {
+        final IncrementalResponseMerge merge = createIncrementalMerge(uri, method);
+
+        merge.add(clientResponse);
+        for (final NodeResponse nodeResponse : successfulResponses) {
+            if (nodeResponse != clientResponse) {
+                merge.add(nodeResponse);
+            }
+        }
+
+        return merge.complete(successfulResponses, problematicResponses);
+    }
+
+    @Override
+    public final IncrementalResponseMerge createIncrementalMerge(final URI uri, final String method) {
+        if (!canHandle(uri, method)) {
+            throw new IllegalArgumentException("Cannot use Endpoint Mapper of type " + getClass().getSimpleName() + " to map responses for URI " + uri + ", HTTP Method " + method);
+        }
+
+        return new EntityMerge();
+    }
+
+    /**
+     * @return the class that represents the type of Entity that is expected by this response mapper
+     */
+    protected abstract Class<EntityType> getEntityClass();
+
+    /**
+     * Prepares the entity from the first node to be merged, so that the entities from all other nodes can be merged into it
+     *
+     * @param clientEntity the Entity that the responses from all other nodes will be merged into
+     * @param clientNodeId the identifier of the node that the Entity was received from
+     */
+    protected abstract void initializeMergedEntity(EntityType clientEntity, NodeIdentifier clientNodeId);
+
+    /**
+     * Merges the entity from a single node into the merged entity
+     *
+     * @param clientEntity the Entity to merge the response into
+     * @param nodeEntity the Entity received from the node
+     * @param nodeId the identifier of the node that the Entity was received from
+     */
+    protected abstract void mergeResponse(EntityType clientEntity, EntityType nodeEntity, NodeIdentifier nodeId);
+
+    private class EntityMerge implements IncrementalResponseMerge {
+        private NodeResponse clientResponse;
+        private EntityType clientEntity;
+        private RuntimeException failure;
+        private final Map<String, String> entityTags = new TreeMap<>();
+        private boolean untagged = false;
+
+        @Override
+        public void add(final NodeResponse nodeResponse) {
+            final EntityType nodeEntity;
+            try {
+                // read the entity before obtaining the lock so that responses received at the same time are deserialized concurrently
+                nodeEntity = nodeResponse.getClientResponse().getEntity(getEntityClass());
+            } catch (final RuntimeException e) {
+                synchronized (this) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                final EntityTag entityTag = nodeResponse.getClientResponse().getEntityTag();
+                if (entityTag == null) {
+                    untagged = true;
+                } else {
+                    entityTags.put(nodeResponse.getNodeId().getId(), entityTag.getValue());
+                }
+
+                try {
+                    if (clientEntity == null) {
+                        initializeMergedEntity(nodeEntity, nodeResponse.getNodeId());
+                        clientResponse = nodeResponse;
+                        clientEntity = nodeEntity;
+                    } else {
+                        mergeResponse(clientEntity, nodeEntity, nodeResponse.getNodeId());
+                    }
+                } catch (final RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public synchronized NodeResponse complete(final Set<NodeResponse> successfulResponses, final Set<NodeResponse> problematicResponses) {
+            if (failure != null) {
+                throw failure;
+            }
+
+            if (clientEntity == null) {
+                throw new IllegalStateException("Cannot merge responses because no successful response was received");
+            }
+
+            // the tag of the node whose response the merged entity is returned with does not identify the merged entity
+            final MultivaluedMap<String, String> headers = clientResponse.getClientResponse().getHeaders();
+            headers.remove(HttpHeaders.ETAG);
+            if (!untagged) {
+                headers.putSingle(HttpHeaders.ETAG, "\"" + combineEntityTags() + "\"");
+            }
+
+            return new NodeResponse(clientResponse, clientEntity);
+        }
+
+        private String combineEntityTags() {
+            final List<String> combined = new ArrayList<>(entityTags.size());
+            for (final Map.Entry<String, String> entry : entityTags.entrySet()) {
+                combined.add(entry.getKey() + "=" + entry.getValue());
+            }
+            return EntityTags.generate(combined);
+        }
+    }
+}
@@ -18,7 +18,6 @@
 package org.apache.nifi.cluster.coordination.http.endpoints;
 
 import org.apache.nifi.cluster.manager.ComponentEntityStatusMerger;
-import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.manager.StatusMerger;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.web.api.dto.status.ConnectionStatusDTO;
@@ -27,11 +26,9 @@ import org.apache.nifi.web.api.entity.ConnectionStatusEntity;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.Set;
 import java.util.regex.Pattern;
 
-public class ConnectionStatusEndpointMerger extends AbstractSingleEntityEndpoint<ConnectionStatusEntity> implements ComponentEntityStatusMerger<ConnectionStatusDTO> {
+public class ConnectionStatusEndpointMerger extends AbstractIncrementalEntityEndpoint<ConnectionStatusEntity> implements ComponentEntityStatusMerger<ConnectionStatusDTO> {
     public static final Pattern CONNECTION_STATUS_URI_PATTERN = Pattern.compile("/nifi-api/flow/connections/[a-f0-9\\-]{36}/status");
 
     @Override
@@ -45,36 +42,22 @@ public class ConnectionStatusEndpointMerger extends AbstractSingleEntityEndpoint
     }
 
     @Override
-    protected void mergeResponses(ConnectionStatusEntity clientEntity, Map<NodeIdentifier, ConnectionStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
-                                  Set<NodeResponse> problematicResponses) {
+    protected void initializeMergedEntity(final ConnectionStatusEntity clientEntity, final NodeIdentifier clientNodeId) {
         final ConnectionStatusDTO mergedConnectionStatus = clientEntity.getConnectionStatus();
         mergedConnectionStatus.setNodeSnapshots(new ArrayList<>());
 
-        final NodeIdentifier selectedNodeId = entityMap.entrySet().stream()
-                .filter(e -> e.getValue() == clientEntity)
-                .map(e -> e.getKey())
-                .findFirst()
-                .orElse(null);
-
         final NodeConnectionStatusSnapshotDTO selectedNodeSnapshot = new NodeConnectionStatusSnapshotDTO();
         selectedNodeSnapshot.setStatusSnapshot(mergedConnectionStatus.getAggregateSnapshot().clone());
-        selectedNodeSnapshot.setAddress(selectedNodeId.getApiAddress());
-        selectedNodeSnapshot.setApiPort(selectedNodeId.getApiPort());
-        selectedNodeSnapshot.setNodeId(selectedNodeId.getId());
+        selectedNodeSnapshot.setAddress(clientNodeId.getApiAddress());
+        selectedNodeSnapshot.setApiPort(clientNodeId.getApiPort());
+        selectedNodeSnapshot.setNodeId(clientNodeId.getId());
 
         mergedConnectionStatus.getNodeSnapshots().add(selectedNodeSnapshot);
+    }
 
-        // merge the other nodes
-        for (final Map.Entry<NodeIdentifier, ConnectionStatusEntity> entry : entityMap.entrySet()) {
-            final NodeIdentifier nodeId = entry.getKey();
-            final ConnectionStatusEntity nodeConnectionStatusEntity = entry.getValue();
-            final ConnectionStatusDTO nodeConnectionStatus = nodeConnectionStatusEntity.getConnectionStatus();
-            if (nodeConnectionStatus == mergedConnectionStatus) {
-                continue;
-            }
-
-            mergeStatus(mergedConnectionStatus, clientEntity.getCanRead(), nodeConnectionStatus, nodeConnectionStatusEntity.getCanRead(), nodeId);
-        }
+    @Override
+    protected void mergeResponse(final ConnectionStatusEntity clientEntity, final ConnectionStatusEntity nodeEntity, final NodeIdentifier nodeId) {
+        mergeStatus(clientEntity.getConnectionStatus(), clientEntity.getCanRead(), nodeEntity.getConnectionStatus(), nodeEntity.getCanRead(), nodeId);
     }
 
     @Override
@@ -18,7 +18,6 @@
 package org.apache.nifi.cluster.coordination.http.endpoints;
 
 import org.apache.nifi.cluster.manager.ComponentEntityStatusMerger;
-import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.manager.StatusMerger;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.web.api.dto.status.NodeProcessGroupStatusSnapshotDTO;
@@ -27,11 +26,9 @@ import org.apache.nifi.web.api.entity.ProcessGroupStatusEntity;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.Set;
 import java.util.regex.Pattern;
 
-public class GroupStatusEndpointMerger extends AbstractSingleEntityEndpoint<ProcessGroupStatusEntity> implements ComponentEntityStatusMerger<ProcessGroupStatusDTO> {
+public class GroupStatusEndpointMerger extends AbstractIncrementalEntityEndpoint<ProcessGroupStatusEntity> implements ComponentEntityStatusMerger<ProcessGroupStatusDTO> {
     public static final Pattern GROUP_STATUS_URI_PATTERN = Pattern.compile("/nifi-api/flow/process-groups/(?:(?:root)|(?:[a-f0-9\\-]{36}))/status");
 
     @Override
@@ -45,35 +42,22 @@ public class GroupStatusEndpointMerger extends AbstractSingleEntityEndpoint<Proc
     }
 
     @Override
-    protected void mergeResponses(ProcessGroupStatusEntity clientEntity, Map<NodeIdentifier, ProcessGroupStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
-                                  Set<NodeResponse> problematicResponses) {
+    protected void initializeMergedEntity(final ProcessGroupStatusEntity clientEntity, final NodeIdentifier clientNodeId) {
         final ProcessGroupStatusDTO mergedProcessGroupStatus = clientEntity.getProcessGroupStatus();
         mergedProcessGroupStatus.setNodeSnapshots(new ArrayList<>());
 
-        final NodeIdentifier selectedNodeId = entityMap.entrySet().stream()
-                .filter(e -> e.getValue() == clientEntity)
-                .map(e -> e.getKey())
-                .findFirst()
-                .orElse(null);
-
         final NodeProcessGroupStatusSnapshotDTO selectedNodeSnapshot = new NodeProcessGroupStatusSnapshotDTO();
         selectedNodeSnapshot.setStatusSnapshot(mergedProcessGroupStatus.getAggregateSnapshot().clone());
-        selectedNodeSnapshot.setAddress(selectedNodeId.getApiAddress());
-        selectedNodeSnapshot.setApiPort(selectedNodeId.getApiPort());
-        selectedNodeSnapshot.setNodeId(selectedNodeId.getId());
+        selectedNodeSnapshot.setAddress(clientNodeId.getApiAddress());
+        selectedNodeSnapshot.setApiPort(clientNodeId.getApiPort());
+        selectedNodeSnapshot.setNodeId(clientNodeId.getId());
 
         mergedProcessGroupStatus.getNodeSnapshots().add(selectedNodeSnapshot);
+    }
 
-        for (final Map.Entry<NodeIdentifier, ProcessGroupStatusEntity> entry : entityMap.entrySet()) {
-            final NodeIdentifier nodeId = entry.getKey();
-            final ProcessGroupStatusEntity nodeProcessGroupStatusEntity = entry.getValue();
-            final ProcessGroupStatusDTO nodeProcessGroupStatus = nodeProcessGroupStatusEntity.getProcessGroupStatus();
-            if (nodeProcessGroupStatus == mergedProcessGroupStatus) {
-                continue;
-            }
-
-            mergeStatus(mergedProcessGroupStatus, clientEntity.getCanRead(), nodeProcessGroupStatus, nodeProcessGroupStatusEntity.getCanRead(), nodeId);
-        }
+    @Override
+    protected void mergeResponse(final ProcessGroupStatusEntity clientEntity, final ProcessGroupStatusEntity nodeEntity, final NodeIdentifier nodeId) {
+        mergeStatus(clientEntity.getProcessGroupStatus(), clientEntity.getCanRead(), nodeEntity.getProcessGroupStatus(), nodeEntity.getCanRead(), nodeId);
     }
 
     @Override
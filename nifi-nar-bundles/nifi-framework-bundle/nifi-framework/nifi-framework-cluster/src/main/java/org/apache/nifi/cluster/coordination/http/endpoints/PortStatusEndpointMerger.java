@@ -18,7 +18,6 @@
 package org.apache.nifi.cluster.coordination.http.endpoints;
 
 import org.apache.nifi.cluster.manager.ComponentEntityStatusMerger;
-import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.manager.StatusMerger;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.web.api.dto.status.NodePortStatusSnapshotDTO;
@@ -27,11 +26,9 @@ import org.apache.nifi.web.api.entity.PortStatusEntity;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.Set;
 import java.util.regex.Pattern;
 
-public class PortStatusEndpointMerger extends AbstractSingleEntityEndpoint<PortStatusEntity> implements ComponentEntityStatusMerger<PortStatusDTO> {
+public class PortStatusEndpointMerger extends AbstractIncrementalEntityEndpoint<PortStatusEntity> implements ComponentEntityStatusMerger<PortStatusDTO> {
     public static final Pattern INPUT_PORT_STATUS_URI_PATTERN = Pattern.compile("/nifi-api/flow/input-ports/[a-f0-9\\-]{36}/status");
     public static final Pattern OUTPUT_PORT_STATUS_URI_PATTERN = Pattern.compile("/nifi-api/flow/output-ports/[a-f0-9\\-]{36}/status");
 
@@ -46,38 +43,22 @@ public class PortStatusEndpointMerger extends AbstractSingleEntityEndpoint<PortS
     }
 
     @Override
-    protected void mergeResponses(PortStatusEntity clientEntity, Map<NodeIdentifier, PortStatusEntity> entityMap, Set<NodeResponse> successfulResponses, Set<NodeResponse> problematicResponses) {
+    protected void initializeMergedEntity(final PortStatusEntity clientEntity, final NodeIdentifier clientNodeId) {
         final PortStatusDTO mergedPortStatus = clientEntity.getPortStatus();
         mergedPortStatus.setNodeSnapshots(new ArrayList<>());
 
-        final NodeIdentifier selectedNodeId = entityMap.entrySet().stream()
-                .filter(e -> e.getValue() == clientEntity)
-                .map(e -> e.getKey())
-                .findFirst()
-                .orElse(null);
-
-        if (selectedNodeId == null) {
-            throw new IllegalArgumentException("Attempted to merge Status request but could not find the appropriate Node Identifier");
-        }
         final NodePortStatusSnapshotDTO selectedNodeSnapshot = new NodePortStatusSnapshotDTO();
         selectedNodeSnapshot.setStatusSnapshot(mergedPortStatus.getAggregateSnapshot().clone());
-        selectedNodeSnapshot.setAddress(selectedNodeId.getApiAddress());
-        selectedNodeSnapshot.setApiPort(selectedNodeId.getApiPort());
-        selectedNodeSnapshot.setNodeId(selectedNodeId.getId());
+        selectedNodeSnapshot.setAddress(clientNodeId.getApiAddress());
+        selectedNodeSnapshot.setApiPort(clientNodeId.getApiPort());
+        selectedNodeSnapshot.setNodeId(clientNodeId.getId());
 
         mergedPortStatus.getNodeSnapshots().add(selectedNodeSnapshot);
+    }
 
-        // merge the other nodes
-        for (final Map.Entry<NodeIdentifier, PortStatusEntity> entry : entityMap.entrySet()) {
-            final NodeIdentifier nodeId = entry.getKey();
-            final PortStatusEntity nodePortStatusEntity = entry.getValue();
-            final PortStatusDTO nodePortStatus = nodePortStatusEntity.getPortStatus();
-            if (nodePortStatus == mergedPortStatus) {
-                continue;
-            }
-
-            mergeStatus(mergedPortStatus, clientEntity.getCanRead(), nodePortStatus, nodePortStatusEntity.getCanRead(), nodeId);
-        }
+    @Override
+    protected void mergeResponse(final PortStatusEntity clientEntity, final PortStatusEntity nodeEntity, final NodeIdentifier nodeId) {
+        mergeStatus(clientEntity.getPortStatus(), clientEntity.getCanRead(), nodeEntity.getPortStatus(), nodeEntity.getCanRead(), nodeId);
     }
 
     @Override
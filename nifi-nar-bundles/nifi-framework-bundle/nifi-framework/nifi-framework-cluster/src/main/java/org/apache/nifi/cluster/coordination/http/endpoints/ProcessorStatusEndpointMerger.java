@@ -18,7 +18,6 @@
 package org.apache.nifi.cluster.coordination.http.endpoints;
 
 import org.apache.nifi.cluster.manager.ComponentEntityStatusMerger;
-import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.manager.StatusMerger;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.web.api.dto.status.NodeProcessorStatusSnapshotDTO;
@@ -27,11 +26,9 @@ import org.apache.nifi.web.api.entity.ProcessorStatusEntity;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.Set;
 import java.util.regex.Pattern;
 
-public class ProcessorStatusEndpointMerger extends AbstractSingleEntityEndpoint<ProcessorStatusEntity> implements ComponentEntityStatusMerger<ProcessorStatusDTO> {
+public class ProcessorStatusEndpointMerger extends AbstractIncrementalEntityEndpoint<ProcessorStatusEntity> implements ComponentEntityStatusMerger<ProcessorStatusDTO> {
     public static final Pattern PROCESSOR_STATUS_URI_PATTERN = Pattern.compile("/nifi-api/flow/processors/[a-f0-9\\-]{36}/status");
 
     @Override
@@ -45,36 +42,22 @@ public class ProcessorStatusEndpointMerger extends AbstractSingleEntityEndpoint<
     }
 
     @Override
-    protected void mergeResponses(ProcessorStatusEntity clientEntity, Map<NodeIdentifier, ProcessorStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
-                                  Set<NodeResponse> problematicResponses) {
+    protected void initializeMergedEntity(final ProcessorStatusEntity clientEntity, final NodeIdentifier clientNodeId) {
         final ProcessorStatusDTO mergedProcessorStatus = clientEntity.getProcessorStatus();
         mergedProcessorStatus.setNodeSnapshots(new ArrayList<>());
 
-        final NodeIdentifier selectedNodeId = entityMap.entrySet().stream()
-                .filter(e -> e.getValue() == clientEntity)
-                .map(e -> e.getKey())
-                .findFirst()
-                .orElse(null);
-
         final NodeProcessorStatusSnapshotDTO selectedNodeSnapshot = new NodeProcessorStatusSnapshotDTO();
         selectedNodeSnapshot.setStatusSnapshot(mergedProcessorStatus.getAggregateSnapshot().clone());
-        selectedNodeSnapshot.setAddress(selectedNodeId.getApiAddress());
-        selectedNodeSnapshot.setApiPort(selectedNodeId.getApiPort());
-        selectedNodeSnapshot.setNodeId(selectedNodeId.getId());
+        selectedNodeSnapshot.setAddress(clientNodeId.getApiAddress());
+        selectedNodeSnapshot.setApiPort(clientNodeId.getApiPort());
+        selectedNodeSnapshot.setNodeId(clientNodeId.getId());
 
         mergedProcessorStatus.getNodeSnapshots().add(selectedNodeSnapshot);
+    }
 
-        // merge the other nodes
-        for (final Map.Entry<NodeIdentifier, ProcessorStatusEntity> entry : entityMap.entrySet()) {
-            final NodeIdentifier nodeId = entry.getKey();
-            final ProcessorStatusEntity nodeProcessorStatusEntity = entry.getValue();
-            final ProcessorStatusDTO nodeProcessorStatus = nodeProcessorStatusEntity.getProcessorStatus();
-            if (nodeProcessorStatus == mergedProcessorStatus) {
-                continue;
-            }
-
-            mergeStatus(mergedProcessorStatus, clientEntity.getCanRead(), nodeProcessorStatus, nodeProcessorStatusEntity.getCanRead(), nodeId);
-        }
+    @Override
+    protected void mergeResponse(final ProcessorStatusEntity clientEntity, final ProcessorStatusEntity nodeEntity, final NodeIdentifier nodeId) {
+        mergeStatus(clientEntity.getProcessorStatus(), clientEntity.getCanRead(), nodeEntity.getProcessorStatus(), nodeEntity.getCanRead(), nodeId);
     }
 
     @Override
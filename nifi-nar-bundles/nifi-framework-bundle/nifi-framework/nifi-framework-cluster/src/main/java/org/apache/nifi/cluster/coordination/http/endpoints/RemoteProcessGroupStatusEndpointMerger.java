@@ -18,7 +18,6 @@
 package org.apache.nifi.cluster.coordination.http.endpoints;
 
 import org.apache.nifi.cluster.manager.ComponentEntityStatusMerger;
-import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.manager.StatusMerger;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.web.api.dto.status.NodeRemoteProcessGroupStatusSnapshotDTO;
@@ -27,11 +26,9 @@ import org.apache.nifi.web.api.entity.RemoteProcessGroupStatusEntity;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.Set;
 import java.util.regex.Pattern;
 
-public class RemoteProcessGroupStatusEndpointMerger extends AbstractSingleEntityEndpoint<RemoteProcessGroupStatusEntity> implements ComponentEntityStatusMerger<RemoteProcessGroupStatusDTO> {
+public class RemoteProcessGroupStatusEndpointMerger extends AbstractIncrementalEntityEndpoint<RemoteProcessGroupStatusEntity> implements ComponentEntityStatusMerger<RemoteProcessGroupStatusDTO> {
     public static final Pattern REMOTE_PROCESS_GROUP_STATUS_URI_PATTERN = Pattern.compile("/nifi-api/flow/remote-process-groups/[a-f0-9\\-]{36}/status");
 
     @Override
@@ -45,36 +42,22 @@ public class RemoteProcessGroupStatusEndpointMerger extends AbstractSingleEntity
     }
 
     @Override
-    protected void mergeResponses(RemoteProcessGroupStatusEntity clientEntity, Map<NodeIdentifier, RemoteProcessGroupStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
-                                  Set<NodeResponse> problematicResponses) {
+    protected void initializeMergedEntity(final RemoteProcessGroupStatusEntity clientEntity, final NodeIdentifier clientNodeId) {
         final RemoteProcessGroupStatusDTO mergedRemoteProcessGroupStatus = clientEntity.getRemoteProcessGroupStatus();
         mergedRemoteProcessGroupStatus.setNodeSnapshots(new ArrayList<>());
 
-        final NodeIdentifier selectedNodeId = entityMap.entrySet().stream()
-                .filter(e -> e.getValue() == clientEntity)
-                .map(e -> e.getKey())
-                .findFirst()
-                .orElse(null);
-
         final NodeRemoteProcessGroupStatusSnapshotDTO selectedNodeSnapshot = new NodeRemoteProcessGroupStatusSnapshotDTO();
         selectedNodeSnapshot.setStatusSnapshot(mergedRemoteProcessGroupStatus.getAggregateSnapshot().clone());
-        selectedNodeSnapshot.setAddress(selectedNodeId.getApiAddress());
-        selectedNodeSnapshot.setApiPort(selectedNodeId.getApiPort());
-        selectedNodeSnapshot.setNodeId(selectedNodeId.getId());
+        selectedNodeSnapshot.setAddress(clientNodeId.getApiAddress());
+        selectedNodeSnapshot.setApiPort(clientNodeId.getApiPort());
+        selectedNodeSnapshot.setNodeId(clientNodeId.getId());
 
         mergedRemoteProcessGroupStatus.getNodeSnapshots().add(selectedNodeSnapshot);
+    }
 
-        // merge the other nodes
-        for (final Map.Entry<NodeIdentifier, RemoteProcessGroupStatusEntity> entry : entityMap.entrySet()) {
-            final NodeIdentifier nodeId = entry.getKey();
-            final RemoteProcessGroupStatusEntity nodeRemoteProcessGroupStatusEntity = entry.getValue();
-            final RemoteProcessGroupStatusDTO nodeRemoteProcessGroupStatus = nodeRemoteProcessGroupStatusEntity.getRemoteProcessGroupStatus();
-            if (nodeRemoteProcessGroupStatus == mergedRemoteProcessGroupStatus) {
-                continue;
-            }
-
-            mergeStatus(mergedRemoteProcessGroupStatus, clientEntity.getCanRead(), nodeRemoteProcessGroupStatus, nodeRemoteProcessGroupStatusEntity.getCanRead(), nodeId);
-        }
+    @Override
+    protected void mergeResponse(final RemoteProcessGroupStatusEntity clientEntity, final RemoteProcessGroupStatusEntity nodeEntity, final NodeIdentifier nodeId) {
+        mergeStatus(clientEntity.getRemoteProcessGroupStatus(), clientEntity.getCanRead(), nodeEntity.getRemoteProcessGroupStatus(), nodeEntity.getCanRead(), nodeId);
     }
 
     @Override
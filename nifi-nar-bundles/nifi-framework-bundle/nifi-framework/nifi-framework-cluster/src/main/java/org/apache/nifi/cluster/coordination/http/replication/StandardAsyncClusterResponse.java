@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.nifi.cluster.coordination.http.HttpResponseMapper;
+import org.apache.nifi.cluster.coordination.http.IncrementalResponseMerge;
 import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.slf4j.Logger;
@@ -52,6 +53,7 @@ public class StandardAsyncClusterResponse implements AsyncClusterResponse {
     private final long creationTimeNanos;
     private final boolean merge;
     private final AtomicInteger responseBufferLeft;
+    private final IncrementalResponseMerge incrementalMerge;
 
     private final Map<NodeIdentifier, ResponseHolder> responseMap = new HashMap<>();
     private final AtomicInteger requestsCompleted = new AtomicInteger(0);
@@ -92,6 +94,18 @@ public class StandardAsyncClusterResponse implements AsyncClusterResponse {
         this.completionCallback = completionCallback;
         this.completedResultFetchedCallback = completedResultFetchedCallback;
         this.responseBufferLeft = new AtomicInteger(responseBufferSize);
+
+        // If the responses can be merged as they are received, there is no need to hold onto the content of each response
+        // until all nodes have responded
+        this.incrementalMerge = merge ? responseMapper.createIncrementalMerge(uri, method) : null;
+    }
+
+    /**
+     * @return <code>true</code> if the content of each successful response is consumed and merged as soon as the response
+     *         is received, <code>false</code> if the content is retained until all nodes have responded
+     */
+    public boolean isMergedIncrementally() {
+        return incrementalMerge != null;
     }
 
     public boolean requestBuffer(final int size) {
@@ -216,7 +230,7 @@ public class StandardAsyncClusterResponse implements AsyncClusterResponse {
             .collect(Collectors.toSet());
 
         final long start = System.nanoTime();
-        mergedResponse = responseMapper.mapResponses(uri, method, nodeResponses, merge);
+        mergedResponse = responseMapper.mapResponses(uri, method, nodeResponses, merge, incrementalMerge);
         final long nanos = System.nanoTime() - start;
         addTiming("Map/Merge Responses", "All Nodes", nanos);
 
@@ -284,6 +298,17 @@ public class StandardAsyncClusterResponse implements AsyncClusterResponse {
             throw new IllegalStateException("Node " + nodeResponse.getNodeId() + " is not known for this request");
         }
 
+        if (incrementalMerge != null && !nodeResponse.hasThrowable() && nodeResponse.is2xx()) {
+            final long start = System.nanoTime();
+            try {
+                incrementalMerge.add(nodeResponse);
+            } catch (final RuntimeException e) {
+                // the failure is retained by the merge and surfaced when the merged response is obtained
+                logger.debug("Failed to merge response from {} for {}", nodeResponse.getNodeId(), id, e);
+            }
+            addTiming("Merge Response", nodeResponse.getNodeId().toString(), System.nanoTime() - start);
+        }
+
         responseHolder.setResponse(nodeResponse);
         final int completedCount = requestsCompleted.incrementAndGet();
 
@@ -84,6 +84,7 @@ import com.sun.jersey.core.util.MultivaluedMapImpl;
 public class ThreadPoolRequestReplicator implements RequestReplicator {
 
     private static final Logger logger = LoggerFactory.getLogger(ThreadPoolRequestReplicator.class);
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
 
     private final Client client; // the client to use for issuing requests
     private final int connectionTimeoutMs; // connection timeout per node request
@@ -260,6 +261,9 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
         updatedHeaders.put(RequestReplicator.CLUSTER_ID_GENERATION_SEED_HEADER, ComponentIdGenerator.generateId().toString());
         if (indicateReplicated) {
             updatedHeaders.put(RequestReplicator.REPLICATION_INDICATOR_HEADER, "true");
+
+            // the responses are merged, so each node must return its entity rather than indicating that the client's copy is current
+            updatedHeaders.keySet().removeIf(IF_NONE_MATCH_HEADER::equalsIgnoreCase);
         }
 
         // include the proxied entities header
@@ -639,7 +643,7 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
         final long nanos = System.nanoTime() - startNanos;
         clusterResponse.addTiming("Perform HTTP Request", nodeId.toString(), nanos);
         final NodeResponse nodeResponse = new NodeResponse(nodeId, method, uri, clientResponse, System.nanoTime() - startNanos, requestId);
-        if (nodeResponse.is2xx()) {
+        if (nodeResponse.is2xx() && !clusterResponse.isMergedIncrementally()) {
             final int length = nodeResponse.getClientResponse().getLength();
             if (length > 0) {
                 final boolean canBufferResponse = clusterResponse.requestBuffer(length);
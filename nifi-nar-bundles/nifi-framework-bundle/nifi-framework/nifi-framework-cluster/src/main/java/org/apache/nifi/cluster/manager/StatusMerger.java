@@ -412,6 +412,7 @@ public class StatusMerger {
         target.setTaskCount(target.getTaskCount() + toMerge.getTaskCount());
         target.setTasksDurationNanos(target.getTasksDurationNanos() + toMerge.getTasksDurationNanos());
         target.setActiveThreadCount(target.getActiveThreadCount() + toMerge.getActiveThreadCount());
+        target.setSchedulingLatencyNanos(Math.max(target.getSchedulingLatencyNanos(), toMerge.getSchedulingLatencyNanos()));
         updatePrettyPrintedFields(target);
     }
 
@@ -607,6 +608,20 @@ public class StatusMerger {
         target.setUsedHeapBytes(target.getUsedHeapBytes() + toMerge.getUsedHeapBytes());
         target.setUsedNonHeapBytes(target.getUsedNonHeapBytes() + toMerge.getUsedNonHeapBytes());
 
+        // the cluster lags as far behind as its slowest node; nodes whose repository does not report these values are ignored
+        final Long indexingLag = target.getProvenanceIndexingLagMillis();
+        final Long toMergeIndexingLag = toMerge.getProvenanceIndexingLagMillis();
+        if (indexingLag == null || (toMergeIndexingLag != null && toMergeIndexingLag > indexingLag)) {
+            target.setProvenanceIndexingLagMillis(toMergeIndexingLag);
+        }
+        final Integer queuedEventCount = target.getProvenanceQueuedEventCount();
+        final Integer toMergeQueuedEventCount = toMerge.getProvenanceQueuedEventCount();
+        if (queuedEventCount == null) {
+            target.setProvenanceQueuedEventCount(toMergeQueuedEventCount);
+        } else if (toMergeQueuedEventCount != null) {
+            target.setProvenanceQueuedEventCount(queuedEventCount + toMergeQueuedEventCount);
+        }
+
         merge(target.getContentRepositoryStorageUsage(), toMerge.getContentRepositoryStorageUsage());
         merge(target.getFlowFileRepositoryStorageUsage(), toMerge.getFlowFileRepositoryStorageUsage());
         mergeGarbageCollection(target.getGarbageCollection(), toMerge.getGarbageCollection());
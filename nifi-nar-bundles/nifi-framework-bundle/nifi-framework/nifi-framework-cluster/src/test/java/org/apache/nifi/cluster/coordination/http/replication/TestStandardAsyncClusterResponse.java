@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.coordination.http.replication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.nifi.cluster.coordination.http.StandardHttpResponseMapper;
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.web.api.dto.status.NodeProcessGroupStatusSnapshotDTO;
+import org.apache.nifi.web.api.dto.status.ProcessGroupStatusDTO;
+import org.apache.nifi.web.api.dto.status.ProcessGroupStatusSnapshotDTO;
+import org.apache.nifi.web.api.entity.ProcessGroupStatusEntity;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.sun.jersey.api.client.ClientResponse;
+
+public class TestStandardAsyncClusterResponse {
+    private static final URI GROUP_STATUS_URI = URI.create("http://localhost:8080/nifi-api/flow/process-groups/root/status");
+
+    private NodeIdentifier createNodeId(final int index) {
+        return new NodeIdentifier("node-" + index, "localhost", 8000 + index, "localhost", 9000 + index, "localhost", 10000 + index, 11000 + index, false);
+    }
+
+    private ClientResponse createClientResponse(final int flowFilesQueued) {
+        final ProcessGroupStatusSnapshotDTO snapshot = new ProcessGroupStatusSnapshotDTO();
+        snapshot.setId("root");
+        snapshot.setName("NiFi Flow");
+        snapshot.setFlowFilesQueued(flowFilesQueued);
+        snapshot.setBytesQueued(flowFilesQueued * 10L);
+
+        final ProcessGroupStatusDTO status = new ProcessGroupStatusDTO();
+        status.setId("root");
+        status.setName("NiFi Flow");
+        status.setAggregateSnapshot(snapshot);
+
+        final ProcessGroupStatusEntity entity = new ProcessGroupStatusEntity();
+        entity.setProcessGroupStatus(status);
+        entity.setCanRead(true);
+
+        final ClientResponse clientResponse = Mockito.mock(ClientResponse.class);
+        Mockito.when(clientResponse.getStatus()).thenReturn(200);
+        Mockito.when(clientResponse.getEntity(ProcessGroupStatusEntity.class)).thenReturn(entity);
+        return clientResponse;
+    }
+
+    @Test
+    public void testResponsesMergedAsReceived() {
+        final Set<NodeIdentifier> nodeIds = new LinkedHashSet<>();
+        for (int i = 0; i < 3; i++) {
+            nodeIds.add(createNodeId(i));
+        }
+
+        final StandardHttpResponseMapper responseMapper = new StandardHttpResponseMapper(NiFiProperties.createBasicNiFiProperties(null, null));
+        final StandardAsyncClusterResponse clusterResponse = new StandardAsyncClusterResponse("request-1", GROUP_STATUS_URI, "GET", nodeIds,
+            responseMapper, null, null, true);
+        assertTrue(clusterResponse.isMergedIncrementally());
+
+        int flowFilesQueued = 0;
+        for (final NodeIdentifier nodeId : nodeIds) {
+            final ClientResponse clientResponse = createClientResponse(nodeId.getApiPort());
+            flowFilesQueued += nodeId.getApiPort();
+
+            clusterResponse.add(new NodeResponse(nodeId, "GET", GROUP_STATUS_URI, clientResponse, 1000L, "request-1"));
+
+            // the response is consumed as soon as it is received, rather than once all nodes have responded
+            Mockito.verify(clientResponse, Mockito.times(1)).getEntity(ProcessGroupStatusEntity.class);
+        }
+
+        final NodeResponse mergedResponse = clusterResponse.getMergedResponse();
+        final ProcessGroupStatusDTO mergedStatus = ((ProcessGroupStatusEntity) mergedResponse.getUpdatedEntity()).getProcessGroupStatus();
+        assertEquals(flowFilesQueued, mergedStatus.getAggregateSnapshot().getFlowFilesQueued().intValue());
+        assertEquals(flowFilesQueued * 10L, mergedStatus.getAggregateSnapshot().getBytesQueued().longValue());
+
+        final List<NodeProcessGroupStatusSnapshotDTO> nodeSnapshots = mergedStatus.getNodeSnapshots();
+        assertEquals(3, nodeSnapshots.size());
+        assertEquals(nodeIds.stream().map(NodeIdentifier::getId).collect(Collectors.toSet()),
+            nodeSnapshots.stream().map(NodeProcessGroupStatusSnapshotDTO::getNodeId).collect(Collectors.toSet()));
+        for (final NodeProcessGroupStatusSnapshotDTO nodeSnapshot : nodeSnapshots) {
+            assertEquals(nodeSnapshot.getApiPort().intValue(), nodeSnapshot.getStatusSnapshot().getFlowFilesQueued().intValue());
+        }
+    }
+
+    @Test
+    public void testResponsesNotMergedIncrementallyWithoutMerging() {
+        final Set<NodeIdentifier> nodeIds = new LinkedHashSet<>();
+        nodeIds.add(createNodeId(0));
+        nodeIds.add(createNodeId(1));
+
+        final StandardHttpResponseMapper responseMapper = new StandardHttpResponseMapper(NiFiProperties.createBasicNiFiProperties(null, null));
+        assertFalse(new StandardAsyncClusterResponse("request-2", GROUP_STATUS_URI, "GET", nodeIds, responseMapper, null, null, false).isMergedIncrementally());
+
+        final URI flowUri = URI.create("http://localhost:8080/nifi-api/flow/process-groups/root");
+        assertFalse(new StandardAsyncClusterResponse("request-3", flowUri, "GET", nodeIds, responseMapper, null, null, true).isMergedIncrementally());
+    }
+}
@@ -66,6 +66,12 @@ public abstract class ProcessorNode extends AbstractConfiguredComponent implemen
 
     public abstract boolean isHighThroughputSupported();
 
+    /**
+     * @return <code>true</code> if the Processor has the {@link org.apache.nifi.annotation.behavior.BlockingIO BlockingIO} annotation,
+     *         in which case its Timer-Driven tasks are run on threads that are set aside for blocking Processors
+     */
+    public abstract boolean isBlockingIO();
+
     public abstract Requirement getInputRequirement();
 
     @Override
@@ -28,6 +28,8 @@ import org.apache.nifi.authorization.RequestAction;
 import org.apache.nifi.authorization.Resource;
 import org.apache.nifi.authorization.resource.Authorizable;
 import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.controller.ConcurrentFlowFileQueue;
+import org.apache.nifi.controller.LockableFlowFileQueue;
 import org.apache.nifi.controller.ProcessScheduler;
 import org.apache.nifi.controller.StandardFlowFileQueue;
 import org.apache.nifi.controller.queue.FlowFileQueue;
@@ -35,6 +37,7 @@ import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.repository.FlowFileSwapManager;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.SwapExecutor;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.processor.FlowFileFilter;
@@ -68,7 +71,7 @@ public final class StandardConnection implements Connection {
     private final Connectable source;
     private final AtomicReference<Connectable> destination;
     private final AtomicReference<Collection<Relationship>> relationships;
-    private final StandardFlowFileQueue flowFileQueue;
+    private final LockableFlowFileQueue flowFileQueue;
     private final AtomicInteger labelIndex = new AtomicInteger(1);
     private final AtomicLong zIndex = new AtomicLong(0L);
     private final ProcessScheduler scheduler;
@@ -83,8 +86,13 @@ public final class StandardConnection implements Connection {
         destination = new AtomicReference<>(builder.destination);
         relationships = new AtomicReference<>(Collections.unmodifiableCollection(builder.relationships));
         scheduler = builder.scheduler;
-        flowFileQueue = new StandardFlowFileQueue(id, this, builder.flowFileRepository, builder.provenanceRepository, builder.resourceClaimManager,
-                scheduler, builder.swapManager, builder.eventReporter, builder.queueSwapThreshold);
+        if (ConcurrentFlowFileQueue.class.getName().equals(builder.queueImplementation)) {
+            flowFileQueue = new ConcurrentFlowFileQueue(id, this, builder.flowFileRepository, builder.provenanceRepository, builder.resourceClaimManager,
+                    scheduler, builder.swapManager, builder.eventReporter, builder.queueSwapThreshold, builder.swapExecutor);
+        } else {
+            flowFileQueue = new StandardFlowFileQueue(id, this, builder.flowFileRepository, builder.provenanceRepository, builder.resourceClaimManager,
+                    scheduler, builder.swapManager, builder.eventReporter, builder.queueSwapThreshold, builder.swapExecutor);
+        }
         hashCode = new HashCodeBuilder(7, 67).append(id).toHashCode();
     }
 
@@ -378,11 +386,13 @@ public final class StandardConnection implements Connection {
         private Connectable destination;
         private Collection<Relationship> relationships;
         private FlowFileSwapManager swapManager;
+        private SwapExecutor swapExecutor;
         private EventReporter eventReporter;
         private FlowFileRepository flowFileRepository;
         private ProvenanceEventRepository provenanceRepository;
         private ResourceClaimManager resourceClaimManager;
         private int queueSwapThreshold;
+        private String queueImplementation = StandardFlowFileQueue.class.getName();
 
         public Builder(final ProcessScheduler scheduler) {
             this.scheduler = scheduler;
@@ -434,6 +444,16 @@ public final class StandardConnection implements Connection {
             return this;
         }
 
+        /**
+         * @param swapExecutor the executor to use for reading and writing swap files in the background, or <code>null</code>
+         *            if swap files should be read and written by the threads that interact with the queue
+         * @return this
+         */
+        public Builder swapExecutor(final SwapExecutor swapExecutor) {
+            this.swapExecutor = swapExecutor;
+            return this;
+        }
+
         public Builder eventReporter(final EventReporter eventReporter) {
             this.eventReporter = eventReporter;
             return this;
@@ -459,6 +479,16 @@ public final class StandardConnection implements Connection {
             return this;
         }
 
+        /**
+         * @param queueImplementation the fully qualified class name of the FlowFileQueue to use for this connection; either
+         *            {@link StandardFlowFileQueue} or {@link ConcurrentFlowFileQueue}
+         * @return this
+         */
+        public Builder queueImplementation(final String queueImplementation) {
+            this.queueImplementation = queueImplementation;
+            return this;
+        }
+
         public StandardConnection build() {
             if (source == null) {
                 throw new IllegalStateException("Cannot build a Connection without a Source");
@@ -478,6 +508,9 @@ public final class StandardConnection implements Connection {
             if (resourceClaimManager == null) {
                 throw new IllegalStateException("Cannot build a Connection without a Resource Claim Manager");
             }
+            if (!StandardFlowFileQueue.class.getName().equals(queueImplementation) && !ConcurrentFlowFileQueue.class.getName().equals(queueImplementation)) {
+                throw new IllegalStateException("Cannot build a Connection with unknown FlowFile Queue implementation " + queueImplementation);
+            }
 
             if (relationships == null) {
                 relationships = new ArrayList<>();
@@ -0,0 +1,668 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.SwapExecutor;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.processor.FlowFileFilter.FlowFileFilterResult;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * A FlowFileQueue that does not serialize producers and consumers behind a single queue-wide lock.
+ * </p>
+ *
+ * <p>
+ * When no prioritizers are configured, the FlowFiles that are available for processing are held in a
+ * lock-free {@link ConcurrentLinkedDeque} and are handed out in the order in which they were enqueued;
+ * FlowFiles that are penalized are parked in a separate queue until their penalty expires. When prioritizers
+ * are configured, the FlowFiles are spread across a number of independently locked {@link PriorityQueue}
+ * stripes. Each stripe publishes its head, and a poll merges the published heads in order to choose the stripe
+ * from which to take the next FlowFile, so that only one stripe needs to be locked per operation.
+ * </p>
+ *
+ * <p>
+ * Swapping, dropping, listing and the size of the queue are handled by {@link AbstractFlowFileQueue}, exactly as for
+ * {@link StandardFlowFileQueue}. The swap queue and the list of swap files are guarded by a lock that is acquired
+ * only when the queue is swapping, when the queue has to be viewed as a whole (dropping, polling with a filter,
+ * changing prioritizers), or when the queue is explicitly locked.
+ * </p>
+ */
+public class ConcurrentFlowFileQueue extends AbstractFlowFileQueue {
+
+    private static final int PRIORITY_STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private volatile ActiveQueue activeQueue = new FifoActiveQueue();
+    private volatile List<FlowFilePrioritizer> priorities = Collections.emptyList();
+
+    // guards the swap queue and swap files; see AbstractFlowFileQueue
+    private final ReentrantLock swapLock = new ReentrantLock();
+
+    public ConcurrentFlowFileQueue(final String identifier, final Connection connection, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
+        final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter, final int swapThreshold) {
+        this(identifier, connection, flowFileRepo, provRepo, resourceClaimManager, scheduler, swapManager, eventReporter, swapThreshold, null);
+    }
+
+    public ConcurrentFlowFileQueue(final String identifier, final Connection connection, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
+        final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter, final int swapThreshold,
+        final SwapExecutor swapExecutor) {
+        super(identifier, connection, flowFileRepo, provRepo, resourceClaimManager, scheduler, swapManager, eventReporter, swapThreshold, swapExecutor);
+    }
+
+    @Override
+    public List<FlowFilePrioritizer> getPriorities() {
+        return Collections.unmodifiableList(priorities);
+    }
+
+    @Override
+    public void setPriorities(final List<FlowFilePrioritizer> newPriorities) {
+        swapLock.lock();
+        try {
+            final List<FlowFilePrioritizer> updatedPriorities = new ArrayList<>(newPriorities);
+            final ActiveQueue previousQueue = activeQueue;
+            final ActiveQueue updatedQueue = updatedPriorities.isEmpty() ? new FifoActiveQueue() : new StripedActiveQueue(updatedPriorities, PRIORITY_STRIPES);
+
+            // Publish the new queue before draining the previous one. Any thread that added a FlowFile to the previous
+            // queue after we drained it will notice that the queue has been replaced and move the FlowFile over itself.
+            activeQueue = updatedQueue;
+            priorities = updatedPriorities;
+
+            final List<FlowFileRecord> existing = new ArrayList<>();
+            previousQueue.drainTo(existing);
+            updatedQueue.offerAll(existing);
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+
+    @Override
+    protected boolean isArrivalOrdered() {
+        return priorities.isEmpty();
+    }
+
+    @Override
+    protected void enqueue(final Collection<FlowFileRecord> flowFiles, final int numFiles, final long bytes) {
+        if (!putOnSwapQueue(flowFiles, numFiles, bytes)) {
+            adjustSize(numFiles, bytes, 0, 0L, 0, 0, 0L);
+            offerToActiveQueue(flowFiles);
+        }
+    }
+
+    /**
+     * Adds the given FlowFiles to the swap queue if the queue is already in swap mode or if adding the FlowFiles to the
+     * active queue would exceed the swap threshold. The swap lock is only obtained if one of these conditions appears to hold.
+     *
+     * @return <code>true</code> if the FlowFiles were added to the swap queue, <code>false</code> if the caller must add them to the active queue
+     */
+    private boolean putOnSwapQueue(final Collection<FlowFileRecord> files, final int numFiles, final long bytes) {
+        if (!isSwapRequired(numFiles)) {
+            return false;
+        }
+
+        swapLock.lock();
+        try {
+            if (!isSwapRequired(numFiles)) {
+                return false;
+            }
+
+            addToSwapQueue(files, numFiles, bytes);
+            return true;
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the given FlowFiles to the active queue. If the active queue is replaced (because the prioritizers were changed)
+     * while the FlowFiles are being added, the FlowFiles that were left behind in the replaced queue are moved to its replacement.
+     */
+    private void offerToActiveQueue(final Collection<FlowFileRecord> files) {
+        ActiveQueue queue = activeQueue;
+        queue.offerAll(files);
+
+        ActiveQueue current;
+        while ((current = activeQueue) != queue) {
+            final List<FlowFileRecord> stranded = new ArrayList<>();
+            queue.drainTo(stranded);
+            current.offerAll(stranded);
+            queue = current;
+        }
+    }
+
+    @Override
+    public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords) {
+        migrateSwapToActiveIfNecessary();
+
+        final long expirationMillis = getExpirationMillis();
+        int expiredCount = 0;
+        long expiredBytes = 0L;
+
+        FlowFileRecord flowFile;
+        while ((flowFile = activeQueue.poll()) != null) {
+            if (!isLaterThan(getExpirationDate(flowFile, expirationMillis))) {
+                break;
+            }
+
+            expiredRecords.add(flowFile);
+            expiredCount++;
+            expiredBytes += flowFile.getSize();
+            if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                flowFile = null;
+                break;
+            }
+        }
+
+        if (flowFile == null) {
+            if (expiredCount > 0) {
+                adjustSize(-expiredCount, -expiredBytes, 0, 0L, 0, 0, 0L);
+            }
+        } else {
+            adjustSize(-expiredCount - 1, -expiredBytes - flowFile.getSize(), 0, 0L, 0, 1, flowFile.getSize());
+        }
+
+        return flowFile;
+    }
+
+    @Override
+    public List<FlowFileRecord> poll(final int maxResults, final Set<FlowFileRecord> expiredRecords) {
+        migrateSwapToActiveIfNecessary();
+
+        final List<FlowFileRecord> records = new ArrayList<>(Math.min(1024, maxResults));
+        final long expirationMillis = getExpirationMillis();
+        int expiredCount = 0;
+        long expiredBytes = 0L;
+        long polledBytes = 0L;
+
+        FlowFileRecord flowFile;
+        while (records.size() < maxResults && (flowFile = activeQueue.poll()) != null) {
+            if (isLaterThan(getExpirationDate(flowFile, expirationMillis))) {
+                expiredRecords.add(flowFile);
+                expiredCount++;
+                expiredBytes += flowFile.getSize();
+                if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                    break;
+                }
+            } else {
+                records.add(flowFile);
+                polledBytes += flowFile.getSize();
+            }
+        }
+
+        if (expiredCount > 0 || !records.isEmpty()) {
+            adjustSize(-expiredCount - records.size(), -expiredBytes - polledBytes, 0, 0L, 0, records.size(), polledBytes);
+        }
+
+        return records;
+    }
+
+    @Override
+    public List<FlowFileRecord> poll(final FlowFileFilter filter, final Set<FlowFileRecord> expiredRecords) {
+        int expiredCount = 0;
+        long expiredBytes = 0L;
+        long selectedBytes = 0L;
+
+        swapLock.lock();
+        try {
+            migrateSwapToActive();
+
+            final long expirationMillis = getExpirationMillis();
+            final ActiveQueue queue = activeQueue;
+
+            final List<FlowFileRecord> selectedFlowFiles = new ArrayList<>();
+            final List<FlowFileRecord> unselected = new ArrayList<>();
+
+            FlowFileRecord flowFile;
+            while ((flowFile = queue.poll()) != null) {
+                final boolean isExpired = isLaterThan(getExpirationDate(flowFile, expirationMillis));
+                if (isExpired) {
+                    expiredRecords.add(flowFile);
+                    expiredCount++;
+                    expiredBytes += flowFile.getSize();
+
+                    if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                        break;
+                    } else {
+                        continue;
+                    }
+                }
+
+                final FlowFileFilterResult result = filter.filter(flowFile);
+                if (result.isAccept()) {
+                    selectedBytes += flowFile.getSize();
+                    selectedFlowFiles.add(flowFile);
+                } else {
+                    unselected.add(flowFile);
+                }
+
+                if (!result.isContinue()) {
+                    break;
+                }
+            }
+
+            queue.requeue(unselected);
+            adjustSize(-expiredCount - selectedFlowFiles.size(), -expiredBytes - selectedBytes, 0, 0L, 0, selectedFlowFiles.size(), selectedBytes);
+
+            return selectedFlowFiles;
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    /**
+     * Obtains the swap lock and migrates FlowFiles from the swap queue or from swap files into the active queue, if the
+     * current size of the queue indicates that this is necessary. The size is checked before the lock is obtained, so
+     * that in the common case of a queue that has nothing swapped, a poll never touches the lock.
+     */
+    private void migrateSwapToActiveIfNecessary() {
+        final FlowFileQueueSize queueSize = getFlowFileQueueSize();
+        if (queueSize.swappedCount == 0) {
+            return;
+        }
+
+        final int activeQueueSize = queueSize.activeQueueCount;
+        if (activeQueueSize > 0 && activeQueueSize > getSwapThreshold() - SWAP_RECORD_POLL_SIZE / 2) {
+            return;
+        }
+
+        // While there are still FlowFiles on the active queue, there is no need to wait for another thread that is already swapping.
+        if (activeQueueSize > 0) {
+            if (!swapLock.tryLock()) {
+                return;
+            }
+        } else {
+            swapLock.lock();
+        }
+
+        try {
+            migrateSwapToActive();
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    @Override
+    protected void addToActiveQueue(final Collection<FlowFileRecord> flowFiles) {
+        offerToActiveQueue(flowFiles);
+    }
+
+    @Override
+    protected void drainActiveQueue(final Collection<FlowFileRecord> destination) {
+        activeQueue.drainTo(destination);
+    }
+
+    /**
+     * The snapshot is returned in the order in which the FlowFiles will be polled, and taking it does not require the swap lock.
+     */
+    @Override
+    protected List<FlowFileRecord> getActiveQueueSnapshot() {
+        return activeQueue.snapshot();
+    }
+
+    /**
+     * Lock the queue so that other threads are unable to swap, drop, or reorganize
+     * the queue. Threads that put FlowFiles to or poll FlowFiles from the active
+     * queue are not blocked.
+     */
+    @Override
+    public void lock() {
+        swapLock.lock();
+    }
+
+    /**
+     * Unlock the queue
+     */
+    @Override
+    public void unlock() {
+        swapLock.unlock();
+    }
+
+    /**
+     * The in-memory portion of the queue that holds the FlowFiles that are available to be polled.
+     * Implementations must be safe for concurrent use without external synchronization.
+     */
+    private interface ActiveQueue {
+
+        void offerAll(Collection<FlowFileRecord> flowFiles);
+
+        /**
+         * @return the next FlowFile, or <code>null</code> if the queue is empty or every FlowFile in the queue is penalized
+         */
+        FlowFileRecord poll();
+
+        /**
+         * Places FlowFiles that were polled, but not consumed, back at the position from which they were polled
+         */
+        void requeue(List<FlowFileRecord> flowFiles);
+
+        void drainTo(Collection<FlowFileRecord> destination);
+
+        /**
+         * @return a copy of the FlowFiles in the queue, in the order in which they would be polled
+         */
+        List<FlowFileRecord> snapshot();
+    }
+
+    private static final Comparator<FlowFileRecord> PENALTY_EXPIRATION_COMPARATOR = new Comparator<FlowFileRecord>() {
+        @Override
+        public int compare(final FlowFileRecord f1, final FlowFileRecord f2) {
+            final int penaltyComparison = Long.compare(f1.getPenaltyExpirationMillis(), f2.getPenaltyExpirationMillis());
+            return penaltyComparison == 0 ? Long.compare(f1.getId(), f2.getId()) : penaltyComparison;
+        }
+    };
+
+    /**
+     * Hands FlowFiles out in the order in which they were added, using a lock-free deque. Penalized FlowFiles
+     * are moved aside into a separate queue that is ordered by penalty expiration; they are handed out again
+     * as soon as their penalty has expired, ahead of the FlowFiles that arrived after them.
+     */
+    private static class FifoActiveQueue implements ActiveQueue {
+        private final ConcurrentLinkedDeque<FlowFileRecord> ready = new ConcurrentLinkedDeque<>();
+
+        // guarded by synchronizing on penalized
+        private final PriorityQueue<FlowFileRecord> penalized = new PriorityQueue<>(11, PENALTY_EXPIRATION_COMPARATOR);
+        private volatile int penalizedCount = 0;
+
+        @Override
+        public void offerAll(final Collection<FlowFileRecord> flowFiles) {
+            for (final FlowFileRecord flowFile : flowFiles) {
+                if (flowFile.isPenalized()) {
+                    penalize(flowFile);
+                } else {
+                    ready.offerLast(flowFile);
+                }
+            }
+        }
+
+        @Override
+        public FlowFileRecord poll() {
+            if (penalizedCount > 0) {
+                final FlowFileRecord penaltyExpired = pollPenaltyExpired();
+                if (penaltyExpired != null) {
+                    return penaltyExpired;
+                }
+            }
+
+            FlowFileRecord flowFile;
+            while ((flowFile = ready.pollFirst()) != null) {
+                if (!flowFile.isPenalized()) {
+                    return flowFile;
+                }
+
+                penalize(flowFile);
+            }
+
+            return null;
+        }
+
+        private void penalize(final FlowFileRecord flowFile) {
+            synchronized (penalized) {
+                penalized.add(flowFile);
+                penalizedCount = penalized.size();
+            }
+        }
+
+        private FlowFileRecord pollPenaltyExpired() {
+            synchronized (penalized) {
+                final FlowFileRecord head = penalized.peek();
+                if (head == null || head.isPenalized()) {
+                    return null;
+                }
+
+                penalized.poll();
+                penalizedCount = penalized.size();
+                return head;
+            }
+        }
+
+        @Override
+        public void requeue(final List<FlowFileRecord> flowFiles) {
+            for (int i = flowFiles.size() - 1; i >= 0; i--) {
+                final FlowFileRecord flowFile = flowFiles.get(i);
+                if (flowFile.isPenalized()) {
+                    penalize(flowFile);
+                } else {
+                    ready.offerFirst(flowFile);
+                }
+            }
+        }
+
+        @Override
+        public void drainTo(final Collection<FlowFileRecord> destination) {
+            FlowFileRecord flowFile;
+            while ((flowFile = ready.pollFirst()) != null) {
+                destination.add(flowFile);
+            }
+
+            synchronized (penalized) {
+                destination.addAll(penalized);
+                penalized.clear();
+                penalizedCount = 0;
+            }
+        }
+
+        @Override
+        public List<FlowFileRecord> snapshot() {
+            final List<FlowFileRecord> snapshot = new ArrayList<>(ready);
+            final List<FlowFileRecord> penalizedSnapshot;
+            synchronized (penalized) {
+                penalizedSnapshot = new ArrayList<>(penalized);
+            }
+
+            Collections.sort(penalizedSnapshot, PENALTY_EXPIRATION_COMPARATOR);
+            snapshot.addAll(penalizedSnapshot);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Spreads FlowFiles across a number of independently locked priority queues. Each stripe publishes the FlowFile at
+     * its head through a volatile field whenever the stripe is modified, so a poll can choose the stripe holding the
+     * highest-priority FlowFile without locking any of the other stripes.
+     */
+    private static class StripedActiveQueue implements ActiveQueue {
+        private static final int MAX_POLL_ATTEMPTS = 4;
+
+        private final Comparator<FlowFileRecord> comparator;
+        private final Stripe[] stripes;
+        private final int stripeMask;
+
+        StripedActiveQueue(final List<FlowFilePrioritizer> prioritizers, final int stripeCount) {
+            this.comparator = new Prioritizer(prioritizers);
+            this.stripes = new Stripe[stripeCount];
+            this.stripeMask = stripeCount - 1;
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Stripe(comparator);
+            }
+        }
+
+        private Stripe getStripeForCurrentThread() {
+            return stripes[(int) (Thread.currentThread().getId() & stripeMask)];
+        }
+
+        @Override
+        public void offerAll(final Collection<FlowFileRecord> flowFiles) {
+            if (flowFiles.isEmpty()) {
+                return;
+            }
+
+            final Stripe stripe = getStripeForCurrentThread();
+            stripe.lock.lock();
+            try {
+                stripe.queue.addAll(flowFiles);
+                stripe.publishHead();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        @Override
+        public FlowFileRecord poll() {
+            for (int attempt = 0; attempt < MAX_POLL_ATTEMPTS; attempt++) {
+                final Stripe best = findStripeWithHighestPriorityHead();
+                if (best == null) {
+                    return null;
+                }
+
+                final FlowFileRecord expectedHead = best.head;
+                if (expectedHead == null) {
+                    continue;
+                }
+
+                best.lock.lock();
+                try {
+                    // If another thread changed the head of the stripe since we merged the published heads, our choice
+                    // may no longer be the best; try again.
+                    final FlowFileRecord head = best.queue.peek();
+                    if (head == null || head != expectedHead) {
+                        continue;
+                    }
+
+                    if (head.isPenalized()) {
+                        return null;
+                    }
+
+                    best.queue.poll();
+                    best.publishHead();
+                    return head;
+                } finally {
+                    best.lock.unlock();
+                }
+            }
+
+            return pollWithAllStripesLocked();
+        }
+
+        /**
+         * Merges the heads of the stripes with every stripe locked, so that no head can change while the best one is chosen.
+         * This is used only when the heads keep changing between the merge and the poll. Stripes are always locked in index
+         * order, and every other operation locks no more than one stripe at a time, so this cannot deadlock.
+         */
+        private FlowFileRecord pollWithAllStripesLocked() {
+            for (final Stripe stripe : stripes) {
+                stripe.lock.lock();
+            }
+
+            try {
+                Stripe best = null;
+                FlowFileRecord bestHead = null;
+                for (final Stripe stripe : stripes) {
+                    final FlowFileRecord head = stripe.queue.peek();
+                    if (head != null && (bestHead == null || comparator.compare(head, bestHead) < 0)) {
+                        best = stripe;
+                        bestHead = head;
+                    }
+                }
+
+                if (best == null || bestHead.isPenalized()) {
+                    return null;
+                }
+
+                best.queue.poll();
+                best.publishHead();
+                return bestHead;
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    stripes[i].lock.unlock();
+                }
+            }
+        }
+
+        private Stripe findStripeWithHighestPriorityHead() {
+            Stripe best = null;
+            FlowFileRecord bestHead = null;
+            for (final Stripe stripe : stripes) {
+                final FlowFileRecord head = stripe.head;
+                if (head != null && (bestHead == null || comparator.compare(head, bestHead) < 0)) {
+                    best = stripe;
+                    bestHead = head;
+                }
+            }
+
+            return best;
+        }
+
+        @Override
+        public void requeue(final List<FlowFileRecord> flowFiles) {
+            offerAll(flowFiles);
+        }
+
+        @Override
+        public void drainTo(final Collection<FlowFileRecord> destination) {
+            for (final Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    destination.addAll(stripe.queue);
+                    stripe.queue.clear();
+                    stripe.publishHead();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+
+        @Override
+        public List<FlowFileRecord> snapshot() {
+            final List<FlowFileRecord> snapshot = new ArrayList<>();
+            for (final Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    snapshot.addAll(stripe.queue);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+
+            Collections.sort(snapshot, comparator);
+            return snapshot;
+        }
+    }
+
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<FlowFileRecord> queue;
+        private volatile FlowFileRecord head;
+
+        Stripe(final Comparator<FlowFileRecord> comparator) {
+            this.queue = new PriorityQueue<>(20, comparator);
+        }
+
+        // must be called with the lock held
+        void publishHead() {
+            head = queue.peek();
+        }
+    }
+
+
+}
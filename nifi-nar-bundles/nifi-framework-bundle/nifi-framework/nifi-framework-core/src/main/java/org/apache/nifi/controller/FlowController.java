@@ -76,12 +76,10 @@ import org.apache.nifi.cluster.coordination.node.DisconnectionCode;
 import org.apache.nifi.cluster.coordination.node.NodeConnectionState;
 import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
 import org.apache.nifi.cluster.protocol.DataFlow;
-import org.apache.nifi.cluster.protocol.Heartbeat;
 import org.apache.nifi.cluster.protocol.HeartbeatPayload;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.cluster.protocol.NodeProtocolSender;
 import org.apache.nifi.cluster.protocol.UnknownServiceAddressException;
-import org.apache.nifi.cluster.protocol.message.HeartbeatMessage;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.state.StateManagerProvider;
 import org.apache.nifi.connectable.Connectable;
@@ -134,6 +132,7 @@ import org.apache.nifi.controller.scheduling.EventDrivenSchedulingAgent;
 import org.apache.nifi.controller.scheduling.ProcessContextFactory;
 import org.apache.nifi.controller.scheduling.QuartzSchedulingAgent;
 import org.apache.nifi.controller.scheduling.StandardProcessScheduler;
+import org.apache.nifi.controller.scheduling.LatencyHistogram;
 import org.apache.nifi.controller.scheduling.TimerDrivenSchedulingAgent;
 import org.apache.nifi.controller.serialization.FlowSerializationException;
 import org.apache.nifi.controller.serialization.FlowSerializer;
@@ -153,9 +152,13 @@ import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.controller.status.RemoteProcessGroupStatus;
 import org.apache.nifi.controller.status.RunStatus;
+import org.apache.nifi.controller.status.StatusSnapshotCache;
 import org.apache.nifi.controller.status.TransmissionStatus;
+import org.apache.nifi.controller.status.VersionedStatus;
 import org.apache.nifi.controller.status.history.ComponentStatusRepository;
 import org.apache.nifi.controller.status.history.StatusHistoryUtil;
+import org.apache.nifi.controller.swap.SwapExecutor;
+import org.apache.nifi.controller.swap.SwapMetrics;
 import org.apache.nifi.controller.tasks.ExpireFlowFiles;
 import org.apache.nifi.diagnostics.SystemDiagnostics;
 import org.apache.nifi.diagnostics.SystemDiagnosticsFactory;
@@ -268,6 +271,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
     public static final String GRACEFUL_SHUTDOWN_PERIOD = "nifi.flowcontroller.graceful.shutdown.seconds";
     public static final long DEFAULT_GRACEFUL_SHUTDOWN_SECONDS = 10;
     public static final int METRICS_RESERVOIR_SIZE = 288; // 1 day worth of 5-minute captures
+    public static final long STATUS_SNAPSHOT_REFRESH_SECONDS = 5;
 
     public static final String ROOT_GROUP_ID_ALIAS = "root";
     public static final String DEFAULT_ROOT_GROUP_NAME = "NiFi Flow";
@@ -283,7 +287,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
 
     private final ContentRepository contentRepository;
     private final FlowFileRepository flowFileRepository;
+    private final SwapExecutor swapExecutor;
     private final FlowFileEventRepository flowFileEventRepository;
+    private final StatusSnapshotCache statusSnapshotCache;
     private final ProvenanceRepository provenanceRepository;
     private final BulletinRepository bulletinRepository;
     private final StandardProcessScheduler processScheduler;
@@ -473,7 +479,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
 
         final FlowFileRepository flowFileRepo = createFlowFileRepository(nifiProperties, resourceClaimManager);
         flowFileRepository = flowFileRepo;
+        swapExecutor = new SwapExecutor(nifiProperties.getSwapInThreads(), nifiProperties.getSwapOutThreads());
         flowFileEventRepository = flowFileEventRepo;
+        statusSnapshotCache = new StatusSnapshotCache(STATUS_SNAPSHOT_REFRESH_SECONDS, TimeUnit.SECONDS, this::getProcessorStats);
         counterRepositoryRef = new AtomicReference<>(new StandardCounterRepository());
 
         bulletinRepository = bulletinRepo;
@@ -953,7 +961,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
                 .source(requireNonNull(source))
                 .destination(destination)
                 .swapManager(swapManager)
+                .swapExecutor(swapExecutor)
                 .queueSwapThreshold(nifiProperties.getQueueSwapThreshold())
+                .queueImplementation(nifiProperties.getQueueImplementation())
                 .eventReporter(eventReporter)
                 .resourceClaimManager(resourceClaimManager)
                 .flowFileRepository(flowFileRepository)
@@ -1482,6 +1492,16 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
                 LOG.info("Interrupted while waiting for controller termination.");
             }
 
+            // allow any swap files that are being written to complete before the FlowFile Repository is closed
+            swapExecutor.shutdown();
+            try {
+                if (!swapExecutor.awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS)) {
+                    LOG.warn("Swap files are still being written after {} seconds; will not wait any longer", gracefulShutdownSeconds / 2);
+                }
+            } catch (final InterruptedException ie) {
+                LOG.info("Interrupted while waiting for swap files to be written.");
+            }
+
             try {
                 flowFileRepository.close();
             } catch (final Throwable t) {
@@ -1684,7 +1704,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
 
     public SystemDiagnostics getSystemDiagnostics() {
         final SystemDiagnosticsFactory factory = new SystemDiagnosticsFactory();
-        return factory.create(flowFileRepository, contentRepository);
+        return factory.create(flowFileRepository, contentRepository, provenanceRepository);
     }
 
     //
@@ -2485,13 +2505,36 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
     /**
      * Returns the status for components in the specified group. This request is
      * made by the specified user so the results will be filtered accordingly.
+     * The status is served from a snapshot that is shared by all requests made
+     * by the same user until the snapshot is refreshed, so it must not be modified.
      *
      * @param groupId group id
      * @param user user making request
      * @return the component status
      */
     public ProcessGroupStatus getGroupStatus(final String groupId, final NiFiUser user) {
-        return getGroupStatus(groupId, getProcessorStats(), user);
+        return getVersionedGroupStatus(groupId, user).getStatus();
+    }
+
+    /**
+     * Returns the status for components in the specified group, as filtered for the
+     * specified user, along with the version of the status snapshot that it was served
+     * from. A status that was computed without being retained by the snapshot has no version.
+     *
+     * @param groupId group id
+     * @param user user making request
+     * @return the component status, along with the version of the snapshot it was served from
+     */
+    public VersionedStatus<ProcessGroupStatus> getVersionedGroupStatus(final String groupId, final NiFiUser user) {
+        return statusSnapshotCache.getVersionedGroupStatus(groupId, user, statusReport -> getGroupStatus(groupId, statusReport, user));
+    }
+
+    /**
+     * Discards the status snapshot that user requests for status are served from, so that
+     * the next request reflects any changes that have been made to the flow.
+     */
+    public void invalidateStatusSnapshot() {
+        statusSnapshotCache.invalidate();
     }
 
     /**
@@ -2658,7 +2701,16 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
                 connStatus.setName(conn.getIdentifier());
             }
 
-            final QueueSize queueSize = conn.getFlowFileQueue().size();
+            final FlowFileQueue flowFileQueue = conn.getFlowFileQueue();
+            if (flowFileQueue instanceof LockableFlowFileQueue) {
+                final SwapMetrics swapMetrics = ((LockableFlowFileQueue) flowFileQueue).getSwapMetrics();
+                connStatus.setSwapInCount(swapMetrics.getSwapInCount());
+                connStatus.setSwapInMillis(swapMetrics.getSwapInTime(TimeUnit.MILLISECONDS));
+                connStatus.setSwapOutCount(swapMetrics.getSwapOutCount());
+                connStatus.setSwapOutMillis(swapMetrics.getSwapOutTime(TimeUnit.MILLISECONDS));
+            }
+
+            final QueueSize queueSize = flowFileQueue.size();
             final int connectionQueuedCount = queueSize.getObjectCount();
             final long connectionQueuedBytes = queueSize.getByteCount();
             if (connectionQueuedCount > 0) {
@@ -2978,6 +3030,11 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
 
         status.setActiveThreadCount(processScheduler.getActiveThreadCount(procNode));
 
+        final LatencyHistogram schedulingLatency = processScheduler.getSchedulingLatency(procNode);
+        if (schedulingLatency != null) {
+            status.setSchedulingLatencyNanos(schedulingLatency.getPercentile(99, TimeUnit.NANOSECONDS));
+        }
+
         return status;
     }
 
@@ -4332,13 +4389,20 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
                     return;
                 }
 
-                final HeartbeatMessage message = createHeartbeatMessage();
-                if (message == null) {
+                final NodeIdentifier nodeId = getNodeId();
+                if (nodeId == null) {
+                    LOG.warn("Cannot send heartbeat because node's identifier is not known at this time");
+                    return;
+                }
+
+                final HeartbeatPayload payload = createHeartbeatPayload();
+                if (payload == null) {
                     LOG.debug("No heartbeat to send");
                     return;
                 }
 
-                heartbeater.send(message);
+                // the heartbeater encodes the payload itself, in whichever form the Cluster Coordinator supports
+                heartbeater.send(nodeId, connectionStatus, payload);
             } catch (final UnknownServiceAddressException usae) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(usae.getMessage());
@@ -4352,7 +4416,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
         }
     }
 
-    HeartbeatMessage createHeartbeatMessage() {
+    HeartbeatPayload createHeartbeatPayload() {
         try {
             HeartbeatBean bean = heartbeatBeanRef.get();
             if (bean == null) {
@@ -4374,20 +4438,9 @@ public class FlowController implements EventAccess, ControllerServiceProvider, R
             hbPayload.setTotalFlowFileBytes(queueSize.getByteCount());
             hbPayload.setClusterStatus(clusterCoordinator.getConnectionStatuses());
 
-            // create heartbeat message
-            final NodeIdentifier nodeId = getNodeId();
-            if (nodeId == null) {
-                LOG.warn("Cannot create Heartbeat Message because node's identifier is not known at this time");
-                return null;
-            }
-
-            final Heartbeat heartbeat = new Heartbeat(nodeId, connectionStatus, hbPayload.marshal());
-            final HeartbeatMessage message = new HeartbeatMessage();
-            message.setHeartbeat(heartbeat);
-
             LOG.debug("Generated heartbeat");
 
-            return message;
+            return hbPayload;
         } catch (final Throwable ex) {
             LOG.warn("Failed to create heartbeat due to: " + ex, ex);
             return null;
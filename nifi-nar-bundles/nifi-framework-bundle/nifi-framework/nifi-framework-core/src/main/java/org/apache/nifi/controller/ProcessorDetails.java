@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.controller;
 
+import org.apache.nifi.annotation.behavior.BlockingIO;
 import org.apache.nifi.annotation.behavior.EventDriven;
 import org.apache.nifi.annotation.behavior.InputRequirement;
 import org.apache.nifi.annotation.behavior.SideEffectFree;
@@ -40,6 +41,7 @@ public class ProcessorDetails {
     private final boolean triggerWhenAnyDestinationAvailable;
     private final boolean eventDrivenSupported;
     private final boolean batchSupported;
+    private final boolean blockingIO;
     private final InputRequirement.Requirement inputRequirement;
     private final ComponentLog componentLog;
     private final BundleCoordinate bundleCoordinate;
@@ -56,6 +58,7 @@ public class ProcessorDetails {
         this.triggeredSerially = procClass.isAnnotationPresent(TriggerSerially.class);
         this.triggerWhenAnyDestinationAvailable = procClass.isAnnotationPresent(TriggerWhenAnyDestinationAvailable.class);
         this.eventDrivenSupported = procClass.isAnnotationPresent(EventDriven.class) && !triggeredSerially && !triggerWhenEmpty;
+        this.blockingIO = procClass.isAnnotationPresent(BlockingIO.class);
 
         final boolean inputRequirementPresent = procClass.isAnnotationPresent(InputRequirement.class);
         if (inputRequirementPresent) {
@@ -97,6 +100,10 @@ public class ProcessorDetails {
         return batchSupported;
     }
 
+    public boolean isBlockingIO() {
+        return blockingIO;
+    }
+
     public InputRequirement.Requirement getInputRequirement() {
         return inputRequirement;
     }
@@ -43,6 +43,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.nifi.annotation.behavior.BlockingIO;
 import org.apache.nifi.annotation.behavior.InputRequirement.Requirement;
 import org.apache.nifi.annotation.behavior.Restricted;
 import org.apache.nifi.annotation.behavior.SideEffectFree;
@@ -324,6 +325,15 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
         return processorRef.get().isBatchSupported();
     }
 
+    /**
+     * @return true if the processor has the {@link BlockingIO} annotation,
+     *         false otherwise.
+     */
+    @Override
+    public boolean isBlockingIO() {
+        return processorRef.get().isBlockingIO();
+    }
+
     /**
      * @return true if the processor has the
      *         {@link TriggerWhenAnyDestinationAvailable} annotation, false
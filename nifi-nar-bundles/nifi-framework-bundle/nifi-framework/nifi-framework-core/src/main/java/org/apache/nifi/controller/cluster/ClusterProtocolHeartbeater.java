@@ -28,7 +28,9 @@ import java.util.stream.Collectors;
 import org.apache.nifi.cluster.coordination.ClusterCoordinator;
 import org.apache.nifi.cluster.coordination.node.ClusterRoles;
 import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+import org.apache.nifi.cluster.protocol.Heartbeat;
 import org.apache.nifi.cluster.protocol.HeartbeatPayload;
+import org.apache.nifi.cluster.protocol.HeartbeatPayloadEncoder;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.cluster.protocol.NodeProtocolSender;
 import org.apache.nifi.cluster.protocol.ProtocolException;
@@ -51,6 +53,12 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
     private final NodeProtocolSender protocolSender;
     private final LeaderElectionManager electionManager;
     private final ClusterCoordinator clusterCoordinator;
+    private final HeartbeatPayloadEncoder payloadEncoder = new HeartbeatPayloadEncoder();
+
+    // the address of the Cluster Coordinator that the last heartbeat was sent to, and the version of the binary
+    // payload encoding that it supports, or null if it has not indicated that it supports the binary encoding
+    private String lastHeartbeatAddress;
+    private Integer coordinatorPayloadVersion;
 
     public ClusterProtocolHeartbeater(final NodeProtocolSender protocolSender, final ClusterCoordinator clusterCoordinator, final LeaderElectionManager electionManager) {
         this.protocolSender = protocolSender;
@@ -69,14 +77,25 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
     }
 
     @Override
-    public synchronized void send(final HeartbeatMessage heartbeatMessage) throws IOException {
+    public synchronized void send(final NodeIdentifier nodeId, final NodeConnectionStatus connectionStatus, final HeartbeatPayload payload) throws IOException {
         final long sendStart = System.nanoTime();
 
         final String heartbeatAddress = getHeartbeatAddress();
-        final HeartbeatResponseMessage responseMessage = protocolSender.heartbeat(heartbeatMessage, heartbeatAddress);
+        if (!heartbeatAddress.equals(lastHeartbeatAddress)) {
+            // A different Cluster Coordinator knows nothing of the payloads that we have sent before
+            payloadEncoder.reset();
+            coordinatorPayloadVersion = null;
+            lastHeartbeatAddress = heartbeatAddress;
+        }
+
+        HeartbeatResponseMessage responseMessage = sendHeartbeat(nodeId, connectionStatus, payload, heartbeatAddress);
+        if (responseMessage.isFullPayloadRequested()) {
+            // The Cluster Coordinator could not resolve the delta and has no earlier heartbeat from us, so it knows nothing of our
+            // workload. The encoder has already forgotten the acknowledged payload, so this sends the payload in full.
+            logger.debug("Cluster Coordinator at {} requested the heartbeat payload in full; sending it again", heartbeatAddress);
+            responseMessage = sendHeartbeat(nodeId, connectionStatus, payload, heartbeatAddress);
+        }
 
-        final byte[] payloadBytes = heartbeatMessage.getHeartbeat().getPayload();
-        final HeartbeatPayload payload = HeartbeatPayload.unmarshal(payloadBytes);
         final List<NodeConnectionStatus> nodeStatusList = payload.getClusterStatus();
         final Map<NodeIdentifier, Long> updateIdMap = nodeStatusList.stream().collect(
                 Collectors.toMap(status -> status.getNodeIdentifier(), status -> status.getUpdateIdentifier()));
@@ -84,8 +103,7 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
         final List<NodeConnectionStatus> updatedStatuses = responseMessage.getUpdatedNodeStatuses();
         if (updatedStatuses != null) {
             for (final NodeConnectionStatus updatedStatus : updatedStatuses) {
-                final NodeIdentifier nodeId = updatedStatus.getNodeIdentifier();
-                final Long updateId = updateIdMap.get(nodeId);
+                final Long updateId = updateIdMap.get(updatedStatus.getNodeIdentifier());
 
                 final boolean updated = clusterCoordinator.resetNodeStatus(updatedStatus, updateId == null ? -1L : updateId);
                 if (updated) {
@@ -104,14 +122,40 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
         final String flowElectionMessage = responseMessage.getFlowElectionMessage();
         final String formattedElectionMessage = flowElectionMessage == null ? "" : "; " + flowElectionMessage;
 
-        logger.info("Heartbeat created at {} and sent to {} at {}; send took {} millis{}",
-            dateFormatter.format(new Date(heartbeatMessage.getHeartbeat().getCreatedTimestamp())),
+        logger.info("Heartbeat sent to {} at {}; send took {} millis{}",
             heartbeatAddress,
             dateFormatter.format(new Date()),
             sendMillis,
             formattedElectionMessage);
     }
 
+    private HeartbeatResponseMessage sendHeartbeat(final NodeIdentifier nodeId, final NodeConnectionStatus connectionStatus, final HeartbeatPayload payload,
+                                                   final String heartbeatAddress) {
+        // Until the Cluster Coordinator indicates that it supports the binary encoding, marshal the payload as XML
+        final boolean binaryEncoded = coordinatorPayloadVersion != null && coordinatorPayloadVersion >= HeartbeatPayload.BINARY_ENCODING_VERSION;
+        final byte[] payloadBytes = binaryEncoded ? payloadEncoder.encode(payload) : payload.marshal();
+
+        final HeartbeatMessage heartbeatMessage = new HeartbeatMessage();
+        heartbeatMessage.setHeartbeat(new Heartbeat(nodeId, connectionStatus, payloadBytes));
+
+        final HeartbeatResponseMessage responseMessage;
+        try {
+            responseMessage = protocolSender.heartbeat(heartbeatMessage, heartbeatAddress);
+        } catch (final RuntimeException e) {
+            // We cannot know whether or not the Cluster Coordinator received the payload, so send the next one in full
+            payloadEncoder.reset();
+            throw e;
+        }
+
+        coordinatorPayloadVersion = responseMessage.getHeartbeatPayloadVersion();
+        if (binaryEncoded) {
+            final Long acknowledgedSequence = responseMessage.getAcknowledgedPayloadSequence();
+            payloadEncoder.acknowledge(acknowledgedSequence == null ? -1L : acknowledgedSequence);
+        }
+
+        return responseMessage;
+    }
+
     @Override
     public void close() throws IOException {
     }
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import org.apache.nifi.controller.queue.QueueSize;
@@ -31,6 +32,7 @@ import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.io.FileRegionCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -142,6 +144,11 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             return session.putAllAttributes(flowFile, attributes);
         }
 
+        @Override
+        public List<FlowFile> putAllAttributes(Collection<FlowFile> flowFiles, Function<FlowFile, Map<String, String>> attributesFunction) {
+            return session.putAllAttributes(flowFiles, attributesFunction);
+        }
+
         @Override
         public FlowFile removeAttribute(FlowFile flowFile, String key) {
             return session.removeAttribute(flowFile, key);
@@ -197,6 +204,11 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             session.read(source, allowSessionStreamManagement, reader);
         }
 
+        @Override
+        public boolean read(FlowFile source, FileRegionCallback reader) {
+            return session.read(source, reader);
+        }
+
         @Override
         public InputStream read(FlowFile flowFile) {
             return session.read(flowFile);
@@ -17,12 +17,15 @@
 package org.apache.nifi.controller.repository;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -739,9 +742,10 @@ public class FileSystemRepository implements ContentRepository {
             return 0L;
         }
 
-        try (final InputStream in = read(claim);
+        final long claimSize = size(claim);
+        try (final FileChannel in = openChannel(claim);
                 final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
-            final long copied = StreamUtils.copy(in, fos);
+            final long copied = transfer(claim, in, claim.getOffset(), claimSize, fos.getChannel());
             if (alwaysSync) {
                 fos.getFD().sync();
             }
@@ -767,13 +771,13 @@ public class FileSystemRepository implements ContentRepository {
             throw new IllegalArgumentException("Offset of " + offset + " exceeds claim size of " + claimSize);
 
         }
+        if (offset + length > claimSize) {
+            throw new EOFException("Cannot copy " + length + " bytes starting at offset " + offset + " from " + claim + " because its size is only " + claimSize + " bytes");
+        }
 
-        try (final InputStream in = read(claim);
+        try (final FileChannel in = openChannel(claim);
                 final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
-            if (offset > 0) {
-                StreamUtils.skip(in, offset);
-            }
-            StreamUtils.copy(in, fos, length);
+            transfer(claim, in, claim.getOffset() + offset, length, fos.getChannel());
             if (alwaysSync) {
                 fos.getFD().sync();
             }
@@ -856,6 +860,38 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    @Override
+    public FileChannel openChannel(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return null;
+        }
+
+        final Path path = getPath(claim, true);
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (final NoSuchFileException nsfe) {
+            throw new ContentNotFoundException(claim, nsfe);
+        }
+    }
+
+    /**
+     * Copies the given number of bytes from the given position of the source channel to the destination channel. Because both
+     * channels are backed by files, this allows the operating system to copy the data without it passing through the heap.
+     */
+    private static long transfer(final ContentClaim claim, final FileChannel source, final long position, final long length, final WritableByteChannel destination)
+        throws IOException {
+        long transferred = 0L;
+        while (transferred < length) {
+            final long count = source.transferTo(position + transferred, length - transferred, destination);
+            if (count <= 0) {
+                throw new EOFException("Expected " + length + " bytes for " + claim + " but only " + transferred + " bytes were available");
+            }
+            transferred += count;
+        }
+
+        return transferred;
+    }
+
     @Override
     public OutputStream write(final ContentClaim claim) throws IOException {
         return write(claim, false);
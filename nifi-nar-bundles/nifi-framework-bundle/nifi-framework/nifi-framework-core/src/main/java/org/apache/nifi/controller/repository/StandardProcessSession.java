@@ -23,6 +23,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -40,6 +41,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -67,6 +69,7 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.FileRegionCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -1628,6 +1631,14 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
     }
 
+    /**
+     * @return the number of FlowFiles that this session has pulled from the incoming queues of its component since it was last
+     *         committed or rolled back, including those that belong to checkpoints that have not yet been committed
+     */
+    public int getFlowFilesIn() {
+        return flowFilesIn + (checkpoint == null ? 0 : checkpoint.flowFilesIn);
+    }
+
     @Override
     public QueueSize getQueueSize() {
         int flowFileCount = 0;
@@ -1760,7 +1771,23 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     public FlowFile putAllAttributes(FlowFile flowFile, final Map<String, String> attributes) {
         flowFile = validateRecordState(flowFile);
         final StandardRepositoryRecord record = records.get(flowFile);
+        return putAllAttributes(record, attributes);
+    }
+
+    @Override
+    public List<FlowFile> putAllAttributes(final Collection<FlowFile> flowFiles, final Function<FlowFile, Map<String, String>> attributesFunction) {
+        final List<StandardRepositoryRecord> validated = validateRecords(flowFiles);
 
+        final List<FlowFile> updated = new ArrayList<>(validated.size());
+        for (final StandardRepositoryRecord record : validated) {
+            final FlowFileRecord current = record.getCurrent();
+            final Map<String, String> attributes = attributesFunction.apply(current);
+            updated.add(attributes == null || attributes.isEmpty() ? current : putAllAttributes(record, attributes));
+        }
+        return updated;
+    }
+
+    private FlowFileRecord putAllAttributes(final StandardRepositoryRecord record, final Map<String, String> attributes) {
         final Map<String, String> updatedAttributes;
         if (attributes.containsKey(CoreAttributes.UUID.key())) {
             updatedAttributes = new HashMap<>(attributes);
@@ -1843,8 +1870,12 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     }
 
     private void updateLastQueuedDate(final StandardRepositoryRecord record) {
+        updateLastQueuedDate(record, System.currentTimeMillis(), enqueuedIndex.getAndIncrement());
+    }
+
+    private void updateLastQueuedDate(final StandardRepositoryRecord record, final long lastQueueDate, final long queueDateIndex) {
         final FlowFileRecord newFile = new StandardFlowFileRecord.Builder().fromFlowFile(record.getCurrent())
-            .lastQueued(System.currentTimeMillis(), enqueuedIndex.getAndIncrement()).build();
+            .lastQueued(lastQueueDate, queueDateIndex).build();
         record.setWorking(newFile);
     }
 
@@ -1897,8 +1928,8 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     }
 
     @Override
-    public void transfer(Collection<FlowFile> flowFiles, final Relationship relationship) {
-        flowFiles = validateRecordState(flowFiles);
+    public void transfer(final Collection<FlowFile> flowFiles, final Relationship relationship) {
+        final List<StandardRepositoryRecord> validated = validateRecords(flowFiles);
 
         boolean autoTerminated = false;
         boolean selfRelationship = false;
@@ -1915,20 +1946,23 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
 
         final int multiplier = Math.max(1, numDestinations);
 
+        // All of the FlowFiles are queued at the same time, in the order given, so the clock is read only once
+        // and the queue date indices are claimed all at once.
+        final long lastQueueDate = System.currentTimeMillis();
+        long queueDateIndex = enqueuedIndex.getAndAdd(validated.size());
+
         long contentSize = 0L;
-        for (final FlowFile flowFile : flowFiles) {
-            final StandardRepositoryRecord record = records.get(flowFile);
+        for (final StandardRepositoryRecord record : validated) {
             record.setTransferRelationship(relationship);
-            updateLastQueuedDate(record);
-
-            contentSize += flowFile.getSize();
+            contentSize += record.getCurrent().getSize();
+            updateLastQueuedDate(record, lastQueueDate, queueDateIndex++);
         }
 
         if (autoTerminated) {
-            removedCount += multiplier * flowFiles.size();
+            removedCount += multiplier * validated.size();
             removedBytes += multiplier * contentSize;
         } else if (!selfRelationship) {
-            flowFilesOut += multiplier * flowFiles.size();
+            flowFilesOut += multiplier * validated.size();
             contentSizeOut += multiplier * contentSize;
         }
     }
@@ -2198,6 +2232,48 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
     }
 
+    @Override
+    public boolean read(FlowFile source, final FileRegionCallback reader) {
+        source = validateRecordState(source, true);
+        final StandardRepositoryRecord record = records.get(source);
+        final ContentClaim claim = record.getCurrentClaim();
+
+        // If there's no content, there is no file region to provide.
+        if (claim == null || source.getSize() == 0L) {
+            return false;
+        }
+
+        final FileChannel channel;
+        try {
+            ensureNotAppending(claim);
+            claimCache.flush(claim);
+            channel = context.getContentRepository().openChannel(claim);
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+            return false;
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        if (channel == null) {
+            return false;
+        }
+
+        try (final FileChannel fileChannel = channel) {
+            incrementReadCount(source);
+            try {
+                reader.process(fileChannel, claim.getOffset() + record.getCurrentClaimOffset(), source.getSize());
+            } finally {
+                decrementReadCount(source);
+            }
+
+            bytesRead += source.getSize();
+            return true;
+        } catch (final IOException ex) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ex.toString(), ex);
+        }
+    }
+
     @Override
     public InputStream read(FlowFile source) {
         source = validateRecordState(source, true);
@@ -3055,6 +3131,10 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     }
 
     private FlowFile validateRecordState(final FlowFile flowFile, final boolean allowRecursiveRead) {
+        return validateRecord(flowFile, allowRecursiveRead).getCurrent();
+    }
+
+    private StandardRepositoryRecord validateRecord(final FlowFile flowFile, final boolean allowRecursiveRead) {
         if (!allowRecursiveRead && readRecursionSet.containsKey(flowFile)) {
             throw new IllegalStateException(flowFile + " already in use for an active callback or an InputStream created by ProcessSession.read(FlowFile) has not been closed");
         }
@@ -3076,7 +3156,7 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
             throw new FlowFileHandlingException(flowFile + " has already been marked for removal");
         }
 
-        return record.getCurrent();
+        return record;
     }
 
     private List<FlowFile> validateRecordState(final Collection<FlowFile> flowFiles) {
@@ -3087,6 +3167,18 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         return current;
     }
 
+    /**
+     * Validates each of the given FlowFiles, as {@link #validateRecordState(FlowFile)} does, before any of them is changed, and returns
+     * their records so that the records need not be looked up again
+     */
+    private List<StandardRepositoryRecord> validateRecords(final Collection<FlowFile> flowFiles) {
+        final List<StandardRepositoryRecord> validated = new ArrayList<>(flowFiles.size());
+        for (final FlowFile flowFile : flowFiles) {
+            validated.add(validateRecord(flowFile, false));
+        }
+        return validated;
+    }
+
     /**
      * Checks if a FlowFile is known in this session.
      *
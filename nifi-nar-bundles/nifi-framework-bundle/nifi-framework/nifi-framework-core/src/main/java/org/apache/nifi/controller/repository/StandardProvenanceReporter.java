@@ -16,9 +16,11 @@
  */
 package org.apache.nifi.controller.repository;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.nifi.flowfile.FlowFile;
@@ -146,6 +148,22 @@ public class StandardProvenanceReporter implements ProvenanceReporter {
         }
     }
 
+    @Override
+    public void receive(final Collection<FlowFile> flowFiles, final String transitUri) {
+        flowFiles.forEach(this::verifyFlowFileKnown);
+
+        for (final FlowFile flowFile : flowFiles) {
+            try {
+                events.add(build(flowFile, ProvenanceEventType.RECEIVE).setTransitUri(transitUri).setEventDuration(-1L).build());
+            } catch (final Exception e) {
+                logger.error("Failed to generate Provenance Event due to " + e);
+                if (logger.isDebugEnabled()) {
+                    logger.error("", e);
+                }
+            }
+        }
+    }
+
     @Override
     public void fetch(final FlowFile flowFile, final String transitUri) {
         fetch(flowFile, transitUri, -1L);
@@ -224,6 +242,28 @@ public class StandardProvenanceReporter implements ProvenanceReporter {
         }
     }
 
+    @Override
+    public void send(final Collection<FlowFile> flowFiles, final String transitUri) {
+        // As with send(FlowFile, String), the events are registered immediately; they are registered all at once so that the
+        // repository has to synchronize only once for all of them.
+        final List<ProvenanceEventRecord> records = new ArrayList<>(flowFiles.size());
+        for (final FlowFile flowFile : flowFiles) {
+            try {
+                final ProvenanceEventRecord record = build(flowFile, ProvenanceEventType.SEND).setTransitUri(transitUri).setEventDuration(-1L).build();
+                records.add(eventEnricher == null ? record : eventEnricher.enrich(record, flowFile));
+            } catch (final Exception e) {
+                logger.error("Failed to generate Provenance Event due to " + e);
+                if (logger.isDebugEnabled()) {
+                    logger.error("", e);
+                }
+            }
+        }
+
+        if (!records.isEmpty()) {
+            repository.registerEvents(records);
+        }
+    }
+
     @Override
     public void send(final FlowFile flowFile, final String transitUri, final boolean force) {
         send(flowFile, transitUri, -1L, true);
@@ -469,6 +509,22 @@ public class StandardProvenanceReporter implements ProvenanceReporter {
         }
     }
 
+    @Override
+    public void route(final Collection<FlowFile> flowFiles, final Relationship relationship) {
+        flowFiles.forEach(this::verifyFlowFileKnown);
+
+        for (final FlowFile flowFile : flowFiles) {
+            try {
+                events.add(build(flowFile, ProvenanceEventType.ROUTE).setRelationship(relationship).setEventDuration(-1L).build());
+            } catch (final Exception e) {
+                logger.error("Failed to generate Provenance Event due to " + e);
+                if (logger.isDebugEnabled()) {
+                    logger.error("", e);
+                }
+            }
+        }
+    }
+
     @Override
     public void create(final FlowFile flowFile) {
         create(flowFile, null);
@@ -49,6 +49,7 @@ import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wali.GroupCommitWriteAheadLog;
 import org.wali.MinimalLockingWriteAheadLog;
 import org.wali.SyncListener;
 import org.wali.WriteAheadRepository;
@@ -88,6 +89,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private final long checkpointDelayMillis;
     private final SortedSet<Path> flowFileRepositoryPaths = new TreeSet<>();
     private final int numPartitions;
+    private final String walImplementation;
+    private final int numJournals;
     private final ScheduledExecutorService checkpointExecutor;
 
     // effectively final
@@ -125,6 +128,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         alwaysSync = false;
         checkpointDelayMillis = 0l;
         numPartitions = 0;
+        walImplementation = null;
+        numJournals = 0;
         checkpointExecutor = null;
     }
 
@@ -140,6 +145,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         }
 
         numPartitions = nifiProperties.getFlowFileRepositoryPartitions();
+        walImplementation = nifiProperties.getFlowFileRepositoryWalImplementation();
+        numJournals = nifiProperties.getFlowFileRepositoryWalJournals();
         checkpointDelayMillis = FormatUtils.getTimeDuration(nifiProperties.getFlowFileRepositoryCheckpointInterval(), TimeUnit.MILLISECONDS);
 
         checkpointExecutor = Executors.newSingleThreadScheduledExecutor();
@@ -158,8 +165,16 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // backup and then the data deleted from the normal location; then can move backup to normal location and
         // delete backup. On restore, if no files exist in partition's directory, would have to check backup directory
         serdeFactory = new RepositoryRecordSerdeFactory(claimManager);
-        wal = new MinimalLockingWriteAheadLog<>(flowFileRepositoryPaths, numPartitions, serdeFactory, this);
-        logger.info("Initialized FlowFile Repository using {} partitions", numPartitions);
+        if (GroupCommitWriteAheadLog.class.getName().equals(walImplementation)) {
+            wal = new GroupCommitWriteAheadLog<>(flowFileRepositoryPaths, numJournals, serdeFactory, this);
+            logger.info("Initialized FlowFile Repository using {} journals", numJournals);
+        } else if (MinimalLockingWriteAheadLog.class.getName().equals(walImplementation)) {
+            wal = new MinimalLockingWriteAheadLog<>(flowFileRepositoryPaths, numPartitions, serdeFactory, this);
+            logger.info("Initialized FlowFile Repository using {} partitions", numPartitions);
+        } else {
+            throw new IOException("Cannot create FlowFile Repository because the configured Write-Ahead Log implementation '" + walImplementation + "' is not supported; "
+                + "must be one of " + MinimalLockingWriteAheadLog.class.getName() + " or " + GroupCommitWriteAheadLog.class.getName());
+        }
     }
 
     @Override
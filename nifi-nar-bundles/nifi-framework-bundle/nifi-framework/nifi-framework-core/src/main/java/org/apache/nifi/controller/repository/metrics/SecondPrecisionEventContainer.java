@@ -1,5 +1,5 @@
 /*
-e * Licensed to the Apache Software Foundation (ASF) under one or more
+ * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
  * this work for additional information regarding copyright ownership.
  * The ASF licenses this file to You under the Apache License, Version 2.0
@@ -14,31 +14,139 @@ e * Licensed to the Apache Software Foundation (ASF) under one or more
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.apache.nifi.controller.repository.metrics;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 import org.apache.nifi.controller.repository.FlowFileEvent;
 
+/**
+ * <p>
+ * Keeps the sum of the events for a component for each second of the last N minutes. Each second is kept in a bin,
+ * and the bins are reused in a round-robin fashion. The values of all bins are held in a single array of longs that
+ * is allocated up front, so adding an event does not create any objects, unless the event has counters. Each bin
+ * records which second it holds values for, and the first event for a new second clears the values that the bin held
+ * for the previous round.
+ * </p>
+ *
+ * <p>
+ * Neither adding events nor generating reports requires a lock. A report that is generated while events are being
+ * added may include only some of the values of an event that is being added at that moment.
+ * </p>
+ */
 public class SecondPrecisionEventContainer implements EventContainer {
+    private static final int FLOWFILES_IN = 0;
+    private static final int FLOWFILES_OUT = 1;
+    private static final int FLOWFILES_REMOVED = 2;
+    private static final int FLOWFILES_RECEIVED = 3;
+    private static final int FLOWFILES_SENT = 4;
+    private static final int CONTENT_SIZE_IN = 5;
+    private static final int CONTENT_SIZE_OUT = 6;
+    private static final int CONTENT_SIZE_REMOVED = 7;
+    private static final int BYTES_READ = 8;
+    private static final int BYTES_WRITTEN = 9;
+    private static final int BYTES_RECEIVED = 10;
+    private static final int BYTES_SENT = 11;
+    private static final int PROCESSING_NANOS = 12;
+    private static final int AGGREGATE_LINEAGE_MILLIS = 13;
+    private static final int INVOCATIONS = 14;
+    private static final int VALUES_PER_BIN = 15;
+
+    private static final long UNUSED = -1L;
+    private static final long RESETTING = Long.MIN_VALUE;
+
     private final int numBins;
-    private final EventSum[] sums;
+    private final AtomicLongArray values;
+    private final AtomicLongArray binSeconds;
+    private final AtomicReferenceArray<ConcurrentMap<String, Long>> counters;
 
     public SecondPrecisionEventContainer(final int numMinutes) {
         numBins = 1 + numMinutes * 60;
-        sums = new EventSum[numBins];
+        values = new AtomicLongArray(numBins * VALUES_PER_BIN);
+        binSeconds = new AtomicLongArray(numBins);
+        counters = new AtomicReferenceArray<>(numBins);
 
         for (int i = 0; i < numBins; i++) {
-            sums[i] = new EventSum();
+            binSeconds.set(i, UNUSED);
         }
     }
 
     @Override
     public void addEvent(final FlowFileEvent event) {
-        final int second = (int) (System.currentTimeMillis() / 1000);
-        final int binIdx = second % numBins;
-        final EventSum sum = sums[binIdx];
+        final long second = System.currentTimeMillis() / 1000;
+        final int binIdx = (int) (second % numBins);
+        claimBin(binIdx, second);
+
+        final int offset = binIdx * VALUES_PER_BIN;
+        add(offset + FLOWFILES_IN, event.getFlowFilesIn());
+        add(offset + FLOWFILES_OUT, event.getFlowFilesOut());
+        add(offset + FLOWFILES_REMOVED, event.getFlowFilesRemoved());
+        add(offset + FLOWFILES_RECEIVED, event.getFlowFilesReceived());
+        add(offset + FLOWFILES_SENT, event.getFlowFilesSent());
+        add(offset + CONTENT_SIZE_IN, event.getContentSizeIn());
+        add(offset + CONTENT_SIZE_OUT, event.getContentSizeOut());
+        add(offset + CONTENT_SIZE_REMOVED, event.getContentSizeRemoved());
+        add(offset + BYTES_READ, event.getBytesRead());
+        add(offset + BYTES_WRITTEN, event.getBytesWritten());
+        add(offset + BYTES_RECEIVED, event.getBytesReceived());
+        add(offset + BYTES_SENT, event.getBytesSent());
+        add(offset + PROCESSING_NANOS, event.getProcessingNanoseconds());
+        add(offset + AGGREGATE_LINEAGE_MILLIS, event.getAggregateLineageMillis());
+        add(offset + INVOCATIONS, event.getInvocations());
 
-        sum.addOrReset(event);
+        final Map<String, Long> eventCounters = event.getCounters();
+        if (eventCounters != null && !eventCounters.isEmpty()) {
+            ConcurrentMap<String, Long> binCounters = counters.get(binIdx);
+            if (binCounters == null) {
+                counters.compareAndSet(binIdx, null, new ConcurrentHashMap<>());
+                binCounters = counters.get(binIdx);
+            }
+
+            for (final Map.Entry<String, Long> entry : eventCounters.entrySet()) {
+                binCounters.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+    }
+
+    private void add(final int index, final long delta) {
+        if (delta != 0L) {
+            values.addAndGet(index, delta);
+        }
+    }
+
+    /**
+     * Ensures that the given bin holds the values for the given second, clearing the values that it holds for an earlier second if necessary
+     */
+    private void claimBin(final int binIdx, final long second) {
+        while (true) {
+            final long binSecond = binSeconds.get(binIdx);
+            if (binSecond == RESETTING) {
+                // another thread is clearing the bin; it takes only a moment.
+                continue;
+            }
+
+            // If the bin already holds a later second, the clock has moved backward. We just add to the later second rather than losing the event.
+            if (binSecond >= second) {
+                return;
+            }
+
+            if (binSeconds.compareAndSet(binIdx, binSecond, RESETTING)) {
+                final int offset = binIdx * VALUES_PER_BIN;
+                for (int i = 0; i < VALUES_PER_BIN; i++) {
+                    values.set(offset + i, 0L);
+                }
+                counters.set(binIdx, null);
+
+                binSeconds.set(binIdx, second);
+                return;
+            }
+        }
     }
 
     @Override
@@ -48,22 +156,48 @@ public class SecondPrecisionEventContainer implements EventContainer {
 
     @Override
     public FlowFileEvent generateReport(final String componentId, final long sinceEpochMillis) {
-        final EventSumValue eventSumValue = new EventSumValue();
-        final long second = sinceEpochMillis / 1000;
-        final int startBinIdx = (int) (second % numBins);
+        final long sinceSecond = sinceEpochMillis / 1000;
+        final long[] totals = new long[VALUES_PER_BIN];
+        final Map<String, Long> counterTotals = new HashMap<>();
 
-        for (int i = 0; i < numBins; i++) {
-            int binIdx = (startBinIdx + i) % numBins;
-            final EventSum sum = sums[binIdx];
+        for (int binIdx = 0; binIdx < numBins; binIdx++) {
+            // Bins that are unused or are being cleared have a negative second, so they are skipped here as well.
+            final long binSecond = binSeconds.get(binIdx);
+            if (binSecond < sinceSecond) {
+                continue;
+            }
+
+            final int offset = binIdx * VALUES_PER_BIN;
+            for (int i = 0; i < VALUES_PER_BIN; i++) {
+                totals[i] += values.get(offset + i);
+            }
 
-            final EventSumValue sumValue = sum.getValue();
-            if (sumValue.getTimestamp() >= sinceEpochMillis) {
-                eventSumValue.add(sumValue);
+            final Map<String, Long> binCounters = counters.get(binIdx);
+            if (binCounters != null) {
+                for (final Map.Entry<String, Long> entry : binCounters.entrySet()) {
+                    counterTotals.merge(entry.getKey(), entry.getValue(), Long::sum);
+                }
             }
         }
 
-        final FlowFileEvent flowFileEvent = eventSumValue.toFlowFileEvent(componentId);
-        return flowFileEvent;
+        final StandardFlowFileEvent event = new StandardFlowFileEvent(componentId);
+        event.setFlowFilesIn((int) totals[FLOWFILES_IN]);
+        event.setFlowFilesOut((int) totals[FLOWFILES_OUT]);
+        event.setFlowFilesRemoved((int) totals[FLOWFILES_REMOVED]);
+        event.setFlowFilesReceived((int) totals[FLOWFILES_RECEIVED]);
+        event.setFlowFilesSent((int) totals[FLOWFILES_SENT]);
+        event.setContentSizeIn(totals[CONTENT_SIZE_IN]);
+        event.setContentSizeOut(totals[CONTENT_SIZE_OUT]);
+        event.setContentSizeRemoved(totals[CONTENT_SIZE_REMOVED]);
+        event.setBytesRead(totals[BYTES_READ]);
+        event.setBytesWritten(totals[BYTES_WRITTEN]);
+        event.setBytesReceived(totals[BYTES_RECEIVED]);
+        event.setBytesSent(totals[BYTES_SENT]);
+        event.setProcessingNanos(totals[PROCESSING_NANOS]);
+        event.setAggregateLineageMillis(totals[AGGREGATE_LINEAGE_MILLIS]);
+        event.setInvocations((int) totals[INVOCATIONS]);
+        event.setCounters(Collections.unmodifiableMap(counterTotals));
+        return event;
     }
 
 }
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Decides how long a Processor that supports batching should keep being triggered with the same session before that
+ * session is committed, so that the cost of committing, most of which is updating the FlowFile Repository, is spread
+ * across as many FlowFiles as the Processor's latency target allows.
+ * </p>
+ *
+ * <p>
+ * After each batch, the batch duration is adjusted based on how long the batch took, including the commit, and on how
+ * many FlowFiles are still queued for the Processor:
+ * </p>
+ * <ul>
+ * <li>If the batch took longer than the latency target, the batch duration is halved.</li>
+ * <li>If no more FlowFiles are queued than the batch processed, there is no backlog to catch up with, so the batch
+ * duration is halved as well, and data is not held back while the Processor waits for more.</li>
+ * <li>Otherwise, if committing took a significant part of the batch, the batch duration is doubled, up to the latency
+ * target less the time that committing takes.</li>
+ * </ul>
+ * <p>
+ * A batch duration of 0 means that the session is committed after each time that the Processor is triggered. The batch
+ * duration starts at 0, so a Processor that is not under load is not batched at all.
+ * </p>
+ */
+public class AdaptiveBatchSizer {
+    static final long MIN_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    // Batching is worthwhile only while committing takes at least this fraction of the time spent on a batch
+    private static final int SIGNIFICANT_COMMIT_FRACTION = 10;
+
+    private final long latencyTargetNanos;
+    private final AtomicLong batchNanos = new AtomicLong(0L);
+
+    public AdaptiveBatchSizer(final long latencyTarget, final TimeUnit timeUnit) {
+        this.latencyTargetNanos = timeUnit.toNanos(latencyTarget);
+    }
+
+    public long getLatencyTarget(final TimeUnit timeUnit) {
+        return timeUnit.convert(latencyTargetNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the time unit to return the duration in
+     * @return how long the Processor should keep being triggered before the session is committed, or 0 if the session
+     *         should be committed after each time that the Processor is triggered
+     */
+    public long getBatchDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(batchNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adjusts the batch duration based on a batch that has been completed
+     *
+     * @param triggerNanos the number of nanoseconds that were spent triggering the Processor
+     * @param commitNanos the number of nanoseconds that committing the session took
+     * @param flowFilesProcessed the number of FlowFiles that the Processor pulled from its incoming queues during the batch
+     * @param flowFilesQueued the number of FlowFiles that are queued for the Processor after the session was committed
+     */
+    public void onBatchCompleted(final long triggerNanos, final long commitNanos, final int flowFilesProcessed, final long flowFilesQueued) {
+        final long current = batchNanos.get();
+        final long updated;
+
+        if (triggerNanos + commitNanos > latencyTargetNanos || flowFilesQueued <= flowFilesProcessed) {
+            updated = shrink(current);
+        } else if (commitNanos * SIGNIFICANT_COMMIT_FRACTION >= triggerNanos + commitNanos) {
+            updated = Math.min(Math.max(MIN_BATCH_NANOS, current * 2), Math.max(0L, latencyTargetNanos - commitNanos));
+        } else {
+            updated = current;
+        }
+
+        // Concurrent tasks may complete batches at the same time; if one of them has already adjusted the duration, its adjustment stands.
+        batchNanos.compareAndSet(current, updated);
+    }
+
+    private static long shrink(final long nanos) {
+        final long halved = nanos / 2;
+        return halved < MIN_BATCH_NANOS ? 0L : halved;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveBatchSizer[latencyTarget=" + getLatencyTarget(TimeUnit.MILLISECONDS) + " millis, batchDuration=" + getBatchDuration(TimeUnit.MILLISECONDS) + " millis]";
+    }
+}
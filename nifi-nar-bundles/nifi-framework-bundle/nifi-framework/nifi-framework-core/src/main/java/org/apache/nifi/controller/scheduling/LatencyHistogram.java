@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies whose buckets are powers of two microseconds: the first bucket holds latencies of less than
+ * 1 microsecond, and bucket <code>i</code> holds latencies of at least 2<sup>i-1</sup> and less than 2<sup>i</sup> microseconds.
+ * Recording a latency does not require a lock or create any objects, so it is cheap enough to do for every task that is run.
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong(0L);
+    private final AtomicLong totalNanos = new AtomicLong(0L);
+    private final AtomicLong maxNanos = new AtomicLong(0L);
+
+    public void record(final long latency, final TimeUnit timeUnit) {
+        final long nanos = Math.max(0L, timeUnit.toNanos(latency));
+        final long micros = nanos / 1000L;
+        final int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return the number of latencies that have been recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMean(final TimeUnit timeUnit) {
+        final long recorded = count.get();
+        return recorded == 0 ? 0L : timeUnit.convert(totalNanos.get() / recorded, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns an upper bound for the given percentile of the latencies that have been recorded. Because the buckets are powers
+     * of two, the value returned may be up to twice the actual percentile.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @param timeUnit the time unit to return the value in
+     * @return an upper bound for the given percentile, or 0 if no latencies have been recorded
+     */
+    public long getPercentile(final double percentile, final TimeUnit timeUnit) {
+        final long[] counts = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0L) {
+            return 0L;
+        }
+
+        final long threshold = (long) Math.ceil(total * Math.min(100D, Math.max(0D, percentile)) / 100D);
+        long seen = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= threshold && counts[i] > 0) {
+                final long upperBoundNanos = i == BUCKET_COUNT - 1 ? maxNanos.get() : (1L << i) * 1000L;
+                return timeUnit.convert(Math.min(upperBoundNanos, maxNanos.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return getMax(timeUnit);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=" + getCount() + ", mean=" + getMean(TimeUnit.MICROSECONDS) + " micros, p50=" + getPercentile(50, TimeUnit.MICROSECONDS)
+            + " micros, p99=" + getPercentile(99, TimeUnit.MICROSECONDS) + " micros, max=" + getMax(TimeUnit.MICROSECONDS) + " micros]";
+    }
+}
@@ -151,6 +151,19 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         return getSchedulingAgent(connectable.getSchedulingStrategy());
     }
 
+    /**
+     * @param connectable the component
+     * @return a histogram of how long the tasks of the given component have waited to run after they were due to run, or <code>null</code>
+     *         if the component is not scheduled to run or its Scheduling Strategy does not keep track of this
+     */
+    public LatencyHistogram getSchedulingLatency(final Connectable connectable) {
+        final SchedulingAgent agent = getSchedulingAgent(connectable);
+        if (agent instanceof TimerDrivenSchedulingAgent) {
+            return ((TimerDrivenSchedulingAgent) agent).getSchedulingLatency(connectable);
+        }
+        return null;
+    }
+
     @Override
     public void shutdown() {
         for (final SchedulingAgent schedulingAgent : strategyAgentMap.values()) {
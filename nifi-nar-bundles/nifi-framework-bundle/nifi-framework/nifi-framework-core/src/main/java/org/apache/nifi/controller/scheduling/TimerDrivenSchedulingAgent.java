@@ -20,7 +20,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.nifi.components.state.StateManager;
@@ -46,11 +49,22 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
     private static final Logger logger = LoggerFactory.getLogger(TimerDrivenSchedulingAgent.class);
     private final long noWorkYieldNanos;
+    private final boolean adaptiveBatching;
+    private final long defaultBatchLatencyTargetNanos;
 
     private final FlowController flowController;
     private final ProcessContextFactory contextFactory;
     private final StringEncryptor encryptor;
 
+    private final ConcurrentMap<String, List<TimerDrivenTask>> tasksByComponent = new ConcurrentHashMap<>();
+
+    // Processors that are annotated as performing blocking I/O run on their own engine, which has a thread for each of their concurrent tasks,
+    // up to the maximum number of Timer-Driven threads. The engine is not created until the first of these processors is scheduled.
+    private final Object blockingEngineLock = new Object();
+    private FlowEngine blockingEngine; // guarded by blockingEngineLock
+    private int blockingThreadCount = 0; // guarded by blockingEngineLock
+    private final ConcurrentMap<String, LatencyHistogram> schedulingLatencies = new ConcurrentHashMap<>();
+
     private volatile String adminYieldDuration = "1 sec";
 
     public TimerDrivenSchedulingAgent(
@@ -70,6 +84,28 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         } catch (final IllegalArgumentException e) {
             throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
         }
+
+        adaptiveBatching = nifiProperties.isProcessorBatchingAdaptive();
+        final String batchLatencyTarget = nifiProperties.getProcessorBatchingLatencyTarget();
+        try {
+            defaultBatchLatencyTargetNanos = FormatUtils.getTimeDuration(batchLatencyTarget, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.PROCESSOR_BATCHING_LATENCY_TARGET
+                + " property is set to an invalid time duration: " + batchLatencyTarget);
+        }
+    }
+
+    /**
+     * Creates the AdaptiveBatchSizer that is shared by the tasks of the given Processor, if its batches are to be sized adaptively. The
+     * Processor's run duration, if it has one, is its latency target; otherwise, the default latency target is used.
+     */
+    private AdaptiveBatchSizer createBatchSizer(final ProcessorNode procNode) {
+        if (!adaptiveBatching || !procNode.isHighThroughputSupported()) {
+            return null;
+        }
+
+        final long runDurationNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+        return new AdaptiveBatchSizer(runDurationNanos > 0L ? runDurationNanos : defaultBatchLatencyTargetNanos, TimeUnit.NANOSECONDS);
     }
 
     private StateManager getStateManager(final String componentId) {
@@ -79,6 +115,12 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
     @Override
     public void shutdown() {
         flowEngine.shutdown();
+
+        synchronized (blockingEngineLock) {
+            if (blockingEngine != null) {
+                blockingEngine.shutdown();
+            }
+        }
     }
 
     @Override
@@ -96,8 +138,19 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
     @Override
     public void doSchedule(final Connectable connectable, final ScheduleState scheduleState) {
+        final LatencyHistogram schedulingLatency = new LatencyHistogram();
+        final List<TimerDrivenTask> tasks = new ArrayList<>();
+
+        final boolean blockingIO = connectable.getConnectableType() == ConnectableType.PROCESSOR && ((ProcessorNode) connectable).isBlockingIO();
+        final FlowEngine engine;
+        if (blockingIO) {
+            engine = adjustBlockingThreadCount(connectable.getMaxConcurrentTasks());
+        } else {
+            engine = flowEngine;
+        }
 
         final List<ScheduledFuture<?>> futures = new ArrayList<>();
+        final AdaptiveBatchSizer batchSizer = connectable.getConnectableType() == ConnectableType.PROCESSOR ? createBatchSizer((ProcessorNode) connectable) : null;
         for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
             final Callable<Boolean> continuallyRunTask;
             final ProcessContext processContext;
@@ -107,7 +160,7 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
                 final ProcessorNode procNode = (ProcessorNode) connectable;
                 final StandardProcessContext standardProcContext = new StandardProcessContext(procNode, flowController, encryptor, getStateManager(connectable.getIdentifier()));
                 final ContinuallyRunProcessorTask runnableTask = new ContinuallyRunProcessorTask(this, procNode, flowController,
-                        contextFactory, scheduleState, standardProcContext);
+                        contextFactory, scheduleState, standardProcContext, batchSizer);
 
                 continuallyRunTask = runnableTask;
                 processContext = standardProcContext;
@@ -116,90 +169,47 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
                 continuallyRunTask = new ContinuallyRunConnectableTask(contextFactory, connectable, scheduleState, processContext);
             }
 
-            final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
-
-            final Runnable yieldDetectionRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    // Call the continually run task. It will return a boolean indicating whether or not we should yield
-                    // based on a lack of work for to do for the component.
-                    final boolean shouldYield;
-                    try {
-                        shouldYield = continuallyRunTask.call();
-                    } catch (final RuntimeException re) {
-                        throw re;
-                    } catch (final Exception e) {
-                        throw new ProcessException(e);
-                    }
-
-                    // If the component is yielded, cancel its future and re-submit it to run again
-                    // after the yield has expired.
-                    final long newYieldExpiration = connectable.getYieldExpiration();
-                    final long now = System.currentTimeMillis();
-                    if (newYieldExpiration > now) {
-                        final long yieldMillis = newYieldExpiration - now;
-                        final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
-                        final ScheduledFuture<?> scheduledFuture = futureRef.get();
-                        if (scheduledFuture == null) {
-                            return;
-                        }
-
-                        // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
-                        // an accurate accounting of which futures are outstanding; we must then also update the futureRef
-                        // so that we can do this again the next time that the component is yielded.
-                        if (scheduledFuture.cancel(false)) {
-                            final long yieldNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(scheduleMillis), TimeUnit.MILLISECONDS.toNanos(yieldMillis));
-
-                            synchronized (scheduleState) {
-                                if (scheduleState.isScheduled()) {
-                                    final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, yieldNanos,
-                                            connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-
-                                    scheduleState.replaceFuture(scheduledFuture, newFuture);
-                                    futureRef.set(newFuture);
-                                }
-                            }
-                        }
-                    } else if (noWorkYieldNanos > 0L && shouldYield) {
-                        // Component itself didn't yield but there was no work to do, so the framework will choose
-                        // to yield the component automatically for a short period of time.
-                        final ScheduledFuture<?> scheduledFuture = futureRef.get();
-                        if (scheduledFuture == null) {
-                            return;
-                        }
-
-                        // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
-                        // an accurate accounting of which futures are outstanding; we must then also update the futureRef
-                        // so that we can do this again the next time that the component is yielded.
-                        if (scheduledFuture.cancel(false)) {
-                            synchronized (scheduleState) {
-                                if (scheduleState.isScheduled()) {
-                                    final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, noWorkYieldNanos,
-                                            connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-
-                                    scheduleState.replaceFuture(scheduledFuture, newFuture);
-                                    futureRef.set(newFuture);
-                                }
-                            }
-                        }
-                    }
-                }
-            };
+            final TimerDrivenTask task = new TimerDrivenTask(connectable, scheduleState, continuallyRunTask, engine, schedulingLatency);
 
             // Schedule the task to run
-            final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(yieldDetectionRunnable, 0L,
+            final ScheduledFuture<?> future = engine.scheduleWithFixedDelay(task, 0L,
                     connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
 
             // now that we have the future, set the atomic reference so that if the component is yielded we
             // are able to then cancel this future.
-            futureRef.set(future);
+            task.futureRef.set(future);
 
             // Keep track of the futures so that we can update the ScheduleState.
             futures.add(future);
+            tasks.add(task);
         }
 
         scheduleState.setFutures(futures);
-        logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        tasksByComponent.put(connectable.getIdentifier(), tasks);
+        schedulingLatencies.put(connectable.getIdentifier(), schedulingLatency);
+        logger.info("Scheduled {} to run with {} threads{}", connectable, connectable.getMaxConcurrentTasks(), blockingIO ? " dedicated to blocking I/O" : "");
+    }
+
+    private FlowEngine adjustBlockingThreadCount(final int delta) {
+        synchronized (blockingEngineLock) {
+            if (blockingEngine == null) {
+                blockingEngine = new FlowEngine(1, "Blocking I/O Process");
+            }
+
+            blockingThreadCount += delta;
+            final int maxThreadCount = flowController.getMaxTimerDrivenThreadCount();
+            blockingEngine.setCorePoolSize(Math.max(1, Math.min(blockingThreadCount, maxThreadCount)));
+            return blockingEngine;
+        }
+    }
+
+    /**
+     * @return the number of concurrent tasks of processors that perform blocking I/O that are currently scheduled to run
+     */
+    int getBlockingThreadCount() {
+        synchronized (blockingEngineLock) {
+            return blockingThreadCount;
+        }
     }
 
     @Override
@@ -209,7 +219,14 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
             future.cancel(false);
         }
 
+        final List<TimerDrivenTask> tasks = tasksByComponent.remove(connectable.getIdentifier());
+        if (tasks != null && !tasks.isEmpty() && tasks.get(0).engine != flowEngine) {
+            adjustBlockingThreadCount(-tasks.size());
+        }
+
+        final LatencyHistogram schedulingLatency = schedulingLatencies.remove(connectable.getIdentifier());
         logger.info("Stopped scheduling {} to run", connectable);
+        logger.debug("Scheduling latency of {} while it was scheduled: {}", connectable, schedulingLatency);
     }
 
     @Override
@@ -237,12 +254,186 @@ public class TimerDrivenSchedulingAgent extends AbstractSchedulingAgent {
         return FormatUtils.getTimeDuration(adminYieldDuration, timeUnit);
     }
 
+    /**
+     * Wakes any task of the given component that is waiting because it recently found no work to do. The FlowFile Queues
+     * call this when FlowFiles are added, so that a component with incoming connections does not have to wait for the
+     * bored yield duration to elapse before it processes data that has arrived.
+     */
     @Override
     public void onEvent(final Connectable connectable) {
+        final List<TimerDrivenTask> tasks = tasksByComponent.get(connectable.getIdentifier());
+        if (tasks == null) {
+            return;
+        }
+
+        for (final TimerDrivenTask task : tasks) {
+            if (task.wakeUp()) {
+                // one task is enough to process the data that was just added.
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns a histogram of how long the tasks of the given component waited to run after they were due to run.
+     * A task is due to run once its scheduling period, yield or bored yield has elapsed, or as soon as data arrives
+     * while it is waiting due to a lack of work.
+     *
+     * @param connectable the component
+     * @return a histogram of the scheduling latency of the component, or <code>null</code> if the component is not scheduled to run
+     */
+    public LatencyHistogram getSchedulingLatency(final Connectable connectable) {
+        return schedulingLatencies.get(connectable.getIdentifier());
     }
 
     @Override
     public void setMaxThreadCount(final int maxThreads) {
     }
 
+
+    /**
+     * Runs one of a component's concurrent tasks and then determines when it should run next. If the component is yielded,
+     * the task is rescheduled to run once the yield has expired. If the component had no work to do, the task is rescheduled
+     * to run once the bored yield duration has elapsed; if the component has incoming connections, the task is also woken as
+     * soon as data is added to one of them.
+     */
+    private class TimerDrivenTask implements Runnable {
+        private final Connectable connectable;
+        private final ScheduleState scheduleState;
+        private final Callable<Boolean> continuallyRunTask;
+        private final FlowEngine engine;
+        private final LatencyHistogram schedulingLatency;
+        private final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
+        private final AtomicBoolean idle = new AtomicBoolean(false);
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private volatile long dueNanos = System.nanoTime();
+
+        TimerDrivenTask(final Connectable connectable, final ScheduleState scheduleState, final Callable<Boolean> continuallyRunTask,
+            final FlowEngine engine, final LatencyHistogram schedulingLatency) {
+            this.connectable = connectable;
+            this.scheduleState = scheduleState;
+            this.continuallyRunTask = continuallyRunTask;
+            this.engine = engine;
+            this.schedulingLatency = schedulingLatency;
+        }
+
+        @Override
+        public void run() {
+            idle.set(false);
+
+            // If this task was woken while its previous future was already running, both futures may fire at once.
+            // Only one of them should run the component.
+            if (!running.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                schedulingLatency.record(System.nanoTime() - dueNanos, TimeUnit.NANOSECONDS);
+                runAndReschedule();
+            } finally {
+                running.set(false);
+            }
+        }
+
+        private void runAndReschedule() {
+            // Call the continually run task. It will return a boolean indicating whether or not we should yield
+            // based on a lack of work for to do for the component.
+            final boolean shouldYield;
+            try {
+                shouldYield = continuallyRunTask.call();
+            } catch (final RuntimeException re) {
+                throw re;
+            } catch (final Exception e) {
+                throw new ProcessException(e);
+            } finally {
+                // The task is scheduled with a fixed delay, so its next run is due one scheduling period after this run ends
+                dueNanos = System.nanoTime() + connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+            }
+
+            // If the component is yielded, cancel its future and re-submit it to run again
+            // after the yield has expired.
+            final long newYieldExpiration = connectable.getYieldExpiration();
+            final long now = System.currentTimeMillis();
+            if (newYieldExpiration > now) {
+                final long yieldMillis = newYieldExpiration - now;
+                final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
+                final ScheduledFuture<?> scheduledFuture = futureRef.get();
+                if (scheduledFuture == null) {
+                    return;
+                }
+
+                // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
+                // an accurate accounting of which futures are outstanding; we must then also update the futureRef
+                // so that we can do this again the next time that the component is yielded.
+                if (scheduledFuture.cancel(false)) {
+                    final long yieldNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(scheduleMillis), TimeUnit.MILLISECONDS.toNanos(yieldMillis));
+
+                    synchronized (scheduleState) {
+                        if (scheduleState.isScheduled()) {
+                            final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, yieldNanos,
+                                    connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+                            scheduleState.replaceFuture(scheduledFuture, newFuture);
+                            futureRef.set(newFuture);
+                            dueNanos = System.nanoTime() + yieldNanos;
+                        }
+                    }
+                }
+            } else if (noWorkYieldNanos > 0L && shouldYield) {
+                // Component itself didn't yield but there was no work to do, so the framework will choose
+                // to yield the component automatically for a short period of time.
+                final ScheduledFuture<?> scheduledFuture = futureRef.get();
+                if (scheduledFuture == null) {
+                    return;
+                }
+
+                // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
+                // an accurate accounting of which futures are outstanding; we must then also update the futureRef
+                // so that we can do this again the next time that the component is yielded.
+                if (scheduledFuture.cancel(false)) {
+                    synchronized (scheduleState) {
+                        if (scheduleState.isScheduled()) {
+                            final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, noWorkYieldNanos,
+                                    connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+                            scheduleState.replaceFuture(scheduledFuture, newFuture);
+                            futureRef.set(newFuture);
+                            dueNanos = System.nanoTime() + noWorkYieldNanos;
+
+                            // Source components are never woken, as no data arrives for them; they simply wait for the bored yield to elapse.
+                            if (connectable.hasIncomingConnection()) {
+                                idle.set(true);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Causes this task to run immediately, if it is waiting because the component had no work to do
+         *
+         * @return <code>true</code> if the task was woken, <code>false</code> if it was not waiting due to a lack of work
+         */
+        boolean wakeUp() {
+            if (!idle.compareAndSet(true, false)) {
+                return false;
+            }
+
+            synchronized (scheduleState) {
+                final ScheduledFuture<?> idleFuture = futureRef.get();
+                if (!scheduleState.isScheduled() || idleFuture == null || !idleFuture.cancel(false)) {
+                    return false;
+                }
+
+                dueNanos = System.nanoTime();
+                final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, 0L,
+                        connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+                scheduleState.replaceFuture(idleFuture, newFuture);
+                futureRef.set(newFuture);
+                return true;
+            }
+        }
+    }
 }
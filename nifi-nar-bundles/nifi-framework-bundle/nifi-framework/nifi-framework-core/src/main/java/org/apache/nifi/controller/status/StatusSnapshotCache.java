@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.controller.repository.RepositoryStatusReport;
+
+/**
+ * <p>
+ * Caches the status of the flow so that it is computed at most once per refresh interval, rather than once per request.
+ * Each time the cache is refreshed, a new, versioned snapshot is created that holds the {@link RepositoryStatusReport}
+ * for the interval, along with the status of each Process Group that has been requested during the interval, as
+ * filtered for each user that requested it.
+ * </p>
+ *
+ * <p>
+ * The status objects that are returned are shared between requests and must not be modified. Every status that is
+ * retained by a snapshot is returned for each request made while the snapshot is current, so the version of the
+ * snapshot identifies the status that a client was given.
+ * </p>
+ */
+public class StatusSnapshotCache {
+
+    // limits the number of component statuses, across all of the Process Group statuses, that are retained per snapshot,
+    // as each Process Group status may describe the entire flow
+    private static final long MAX_CACHED_COMPONENT_STATUSES = 50_000L;
+
+    private final long refreshNanos;
+    private final Supplier<RepositoryStatusReport> statusReportSupplier;
+    private final Object refreshMonitor = new Object();
+
+    private volatile Snapshot snapshot;
+    private long lastVersion; // guarded by refreshMonitor
+
+    /**
+     * @param refreshInterval how long a snapshot may be used before it is refreshed
+     * @param timeUnit the unit of the refresh interval
+     * @param statusReportSupplier computes the status report for a new snapshot
+     */
+    public StatusSnapshotCache(final long refreshInterval, final TimeUnit timeUnit, final Supplier<RepositoryStatusReport> statusReportSupplier) {
+        this.refreshNanos = timeUnit.toNanos(refreshInterval);
+        this.statusReportSupplier = statusReportSupplier;
+
+        // start from the current time so that versions are not repeated after a restart
+        this.lastVersion = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the status report of the current snapshot
+     */
+    public RepositoryStatusReport getStatusReport() {
+        return getSnapshot().getStatusReport();
+    }
+
+    /**
+     * @return the version of the current snapshot, which is incremented each time the snapshot is refreshed or invalidated
+     */
+    public long getVersion() {
+        return getSnapshot().getVersion();
+    }
+
+    /**
+     * Returns the status of the given Process Group, as filtered for the given user. If the status has already been computed
+     * for the user during the current snapshot, the same status is returned; otherwise, it is computed from the status report
+     * of the current snapshot.
+     *
+     * @param groupId the id of the Process Group
+     * @param user the user whose permissions the status is filtered by
+     * @param computeStatus computes the status of the Process Group for the user from the given status report
+     * @return the status of the Process Group, or <code>null</code> if the status could not be computed
+     */
+    public ProcessGroupStatus getGroupStatus(final String groupId, final NiFiUser user, final Function<RepositoryStatusReport, ProcessGroupStatus> computeStatus) {
+        return getVersionedGroupStatus(groupId, user, computeStatus).getStatus();
+    }
+
+    /**
+     * Returns the status of the given Process Group, as filtered for the given user, along with the version of the snapshot that
+     * it was served from. A status that is not retained by the snapshot, because no user was given or because the snapshot
+     * already retains as many component statuses as it may, is computed for each request and has no version.
+     *
+     * @param groupId the id of the Process Group
+     * @param user the user whose permissions the status is filtered by
+     * @param computeStatus computes the status of the Process Group for the user from the given status report
+     * @return the status of the Process Group, which is <code>null</code> if the status could not be computed
+     */
+    public VersionedStatus<ProcessGroupStatus> getVersionedGroupStatus(final String groupId, final NiFiUser user,
+                                                                       final Function<RepositoryStatusReport, ProcessGroupStatus> computeStatus) {
+        final Snapshot currentSnapshot = getSnapshot();
+        if (user == null) {
+            return new VersionedStatus<>(computeStatus.apply(currentSnapshot.getStatusReport()), null);
+        }
+
+        final GroupStatusKey key = new GroupStatusKey(groupId, user);
+        final ProcessGroupStatus cachedStatus = currentSnapshot.groupStatuses.get(key);
+        if (cachedStatus != null) {
+            return new VersionedStatus<>(cachedStatus, currentSnapshot.getVersion());
+        }
+
+        final ProcessGroupStatus status = computeStatus.apply(currentSnapshot.getStatusReport());
+        if (status == null) {
+            return new VersionedStatus<>(null, null);
+        }
+
+        final long componentCount = countComponentStatuses(status);
+        if (currentSnapshot.cachedComponentCount.addAndGet(componentCount) > MAX_CACHED_COMPONENT_STATUSES) {
+            currentSnapshot.cachedComponentCount.addAndGet(-componentCount);
+            return new VersionedStatus<>(status, null);
+        }
+
+        final ProcessGroupStatus existingStatus = currentSnapshot.groupStatuses.putIfAbsent(key, status);
+        if (existingStatus != null) {
+            currentSnapshot.cachedComponentCount.addAndGet(-componentCount);
+            return new VersionedStatus<>(existingStatus, currentSnapshot.getVersion());
+        }
+        return new VersionedStatus<>(status, currentSnapshot.getVersion());
+    }
+
+    private static long countComponentStatuses(final ProcessGroupStatus status) {
+        long count = 1L + status.getProcessorStatus().size() + status.getConnectionStatus().size() + status.getInputPortStatus().size()
+            + status.getOutputPortStatus().size() + status.getRemoteProcessGroupStatus().size();
+        for (final ProcessGroupStatus childStatus : status.getProcessGroupStatus()) {
+            count += countComponentStatuses(childStatus);
+        }
+        return count;
+    }
+
+    /**
+     * Discards the current snapshot so that the next request computes a new one. This should be called when the
+     * flow is modified, so that the status returned for the modification reflects it.
+     */
+    public void invalidate() {
+        synchronized (refreshMonitor) {
+            snapshot = null;
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        final Snapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null && !currentSnapshot.isExpired(refreshNanos)) {
+            return currentSnapshot;
+        }
+
+        // only one thread computes a new snapshot; any other thread that needs it waits for it rather than computing it again
+        synchronized (refreshMonitor) {
+            final Snapshot latestSnapshot = snapshot;
+            if (latestSnapshot != null && !latestSnapshot.isExpired(refreshNanos)) {
+                return latestSnapshot;
+            }
+
+            final Snapshot refreshedSnapshot = new Snapshot(++lastVersion, statusReportSupplier.get(), System.nanoTime());
+            snapshot = refreshedSnapshot;
+            return refreshedSnapshot;
+        }
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final RepositoryStatusReport statusReport;
+        private final long createdNanos;
+        private final ConcurrentMap<GroupStatusKey, ProcessGroupStatus> groupStatuses = new ConcurrentHashMap<>();
+        private final AtomicLong cachedComponentCount = new AtomicLong(0L);
+
+        Snapshot(final long version, final RepositoryStatusReport statusReport, final long createdNanos) {
+            this.version = version;
+            this.statusReport = statusReport;
+            this.createdNanos = createdNanos;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        RepositoryStatusReport getStatusReport() {
+            return statusReport;
+        }
+
+        boolean isExpired(final long refreshNanos) {
+            return System.nanoTime() - createdNanos > refreshNanos;
+        }
+    }
+
+    /**
+     * Identifies the status of a Process Group as filtered for a user. Every attribute of the user and of the
+     * proxies in its chain is included, as any of them may be considered when authorizing the user.
+     */
+    private static class GroupStatusKey {
+        private final String groupId;
+        private final List<Object> userAttributes = new ArrayList<>();
+
+        GroupStatusKey(final String groupId, final NiFiUser user) {
+            this.groupId = groupId;
+
+            NiFiUser chainedUser = user;
+            while (chainedUser != null) {
+                final Set<String> groups = chainedUser.getGroups();
+                userAttributes.add(chainedUser.getIdentity());
+                userAttributes.add(chainedUser.isAnonymous());
+                userAttributes.add(chainedUser.getClientAddress());
+                userAttributes.add(groups == null ? null : new TreeSet<>(groups));
+                chainedUser = chainedUser.getChain();
+            }
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof GroupStatusKey)) {
+                return false;
+            }
+
+            final GroupStatusKey other = (GroupStatusKey) obj;
+            return groupId.equals(other.groupId) && userAttributes.equals(other.userAttributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * groupId.hashCode() + userAttributes.hashCode();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status;
+
+/**
+ * A status along with the version of the {@link StatusSnapshotCache} snapshot that it was served from, if any.
+ *
+ * @param <T> the type of status
+ */
+public class VersionedStatus<T> {
+
+    private final T status;
+    private final Long snapshotVersion;
+
+    /**
+     * @param status the status
+     * @param snapshotVersion the version of the snapshot that the status was served from, or <code>null</code> if the
+     *            status was computed without being retained by a snapshot
+     */
+    public VersionedStatus(final T status, final Long snapshotVersion) {
+        this.status = status;
+        this.snapshotVersion = snapshotVersion;
+    }
+
+    /**
+     * @return the status
+     */
+    public T getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the version of the snapshot that the status was served from. Every request that is served while the
+     * snapshot is current receives the same status, so the version identifies the status. A status that was not
+     * retained by a snapshot has no version, as it may differ each time it is computed.
+     *
+     * @return the version of the snapshot that the status was served from, or <code>null</code> if it was not served from a snapshot
+     */
+    public Long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+}
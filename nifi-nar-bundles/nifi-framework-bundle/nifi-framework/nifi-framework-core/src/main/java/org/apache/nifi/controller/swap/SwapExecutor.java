@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Provides the threads that are used to read and write swap files in the background, on behalf of all of the
+ * FlowFile Queues on a node. The number of threads, and the number of swap operations that may be waiting for
+ * a thread, bound the amount of swap I/O that may be outstanding at any one time, so that a large number of
+ * queues swapping at once cannot saturate the disk that holds the swap files.
+ * </p>
+ *
+ * <p>
+ * When that budget is exhausted, a task is rejected rather than queued, and the caller is expected to perform
+ * the I/O itself, as it would if no SwapExecutor were configured.
+ * </p>
+ */
+public class SwapExecutor {
+    private final ThreadPoolExecutor swapInExecutor;
+    private final ThreadPoolExecutor swapOutExecutor;
+
+    /**
+     * @param swapInThreads the number of threads to use for reading swap files; if not positive, swap files are always read by the thread that needs them
+     * @param swapOutThreads the number of threads to use for writing swap files; if not positive, swap files are always written by the thread that fills the queue
+     */
+    public SwapExecutor(final int swapInThreads, final int swapOutThreads) {
+        this.swapInExecutor = createExecutor(swapInThreads, "Swap In");
+        this.swapOutExecutor = createExecutor(swapOutThreads, "Swap Out");
+    }
+
+    private static ThreadPoolExecutor createExecutor(final int threads, final String threadNamePrefix) {
+        if (threads < 1) {
+            return null;
+        }
+
+        final AtomicInteger threadIndex = new AtomicInteger(0);
+        final ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName(threadNamePrefix + " Thread-" + threadIndex.incrementAndGet());
+                return t;
+            }
+        };
+
+        // Allow at most one task per thread to wait, so that the outstanding I/O is bounded by twice the number of threads.
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(threads), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Submits a task that reads a swap file
+     *
+     * @param task the task to run
+     * @return a Future for the result of the task, or <code>null</code> if the task could not be accepted because the swap-in budget is exhausted
+     */
+    public <T> Future<T> submitSwapIn(final Callable<T> task) {
+        return submit(swapInExecutor, task);
+    }
+
+    /**
+     * Submits a task that writes a swap file
+     *
+     * @param task the task to run
+     * @return a Future for the result of the task, or <code>null</code> if the task could not be accepted because the swap-out budget is exhausted
+     */
+    public <T> Future<T> submitSwapOut(final Callable<T> task) {
+        return submit(swapOutExecutor, task);
+    }
+
+    private static <T> Future<T> submit(final ThreadPoolExecutor executor, final Callable<T> task) {
+        if (executor == null) {
+            return null;
+        }
+
+        try {
+            return executor.submit(task);
+        } catch (final RejectedExecutionException ree) {
+            return null;
+        }
+    }
+
+    /**
+     * Stops accepting new tasks. Swap files that are currently being written or read are allowed to complete.
+     */
+    public void shutdown() {
+        if (swapInExecutor != null) {
+            swapInExecutor.shutdown();
+        }
+        if (swapOutExecutor != null) {
+            swapOutExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Waits for all swap files that were being read or written at the time of {@link #shutdown()} to complete
+     *
+     * @param timeout the maximum amount of time to wait
+     * @param timeUnit the unit of the timeout
+     * @return <code>true</code> if all swap files completed, <code>false</code> if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        if (swapInExecutor != null && !swapInExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        return swapOutExecutor == null || swapOutExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+}
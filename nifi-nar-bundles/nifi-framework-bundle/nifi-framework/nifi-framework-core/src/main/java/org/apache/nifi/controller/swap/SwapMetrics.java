@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative timings of the swap files that have been read and written on behalf of a single FlowFile Queue.
+ * Swap-in latency is the time that the queue had to wait for a swap file to become available, so a swap file
+ * that was prefetched in the background contributes only the time that remained when it was needed.
+ */
+public class SwapMetrics {
+    private final AtomicLong swapInCount = new AtomicLong(0L);
+    private final AtomicLong swapInNanos = new AtomicLong(0L);
+    private final AtomicLong swapOutCount = new AtomicLong(0L);
+    private final AtomicLong swapOutNanos = new AtomicLong(0L);
+    private final AtomicLong prefetchHitCount = new AtomicLong(0L);
+
+    public void recordSwapIn(final long nanos, final boolean prefetched) {
+        swapInCount.incrementAndGet();
+        swapInNanos.addAndGet(nanos);
+        if (prefetched) {
+            prefetchHitCount.incrementAndGet();
+        }
+    }
+
+    public void recordSwapOut(final long nanos) {
+        swapOutCount.incrementAndGet();
+        swapOutNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @return the number of swap files that have been swapped in
+     */
+    public long getSwapInCount() {
+        return swapInCount.get();
+    }
+
+    /**
+     * @return the number of swap files that had already been read in the background by the time that they were swapped in
+     */
+    public long getPrefetchHitCount() {
+        return prefetchHitCount.get();
+    }
+
+    /**
+     * @return the total amount of time that the queue has waited for swap files to be swapped in
+     */
+    public long getSwapInTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(swapInNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of swap files that have been written
+     */
+    public long getSwapOutCount() {
+        return swapOutCount.get();
+    }
+
+    /**
+     * @return the total amount of time spent writing swap files, whether on a background thread or not
+     */
+    public long getSwapOutTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(swapOutNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "SwapMetrics[swapIns=" + getSwapInCount() + ", prefetchHits=" + getPrefetchHitCount() + ", swapInMillis=" + getSwapInTime(TimeUnit.MILLISECONDS)
+            + ", swapOuts=" + getSwapOutCount() + ", swapOutMillis=" + getSwapOutTime(TimeUnit.MILLISECONDS) + "]";
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.SwapContents;
+
+/**
+ * <p>
+ * Moves swap file I/O for a single FlowFile Queue off of the threads that put FlowFiles to and poll FlowFiles
+ * from the queue. Swap files are written by a {@link SwapExecutor}, and the next swap file to be swapped in
+ * can be read by the SwapExecutor before the queue needs it. If no SwapExecutor is provided, or its budget is
+ * exhausted, the I/O is performed on the calling thread, exactly as the queue would do without a pipeline.
+ * </p>
+ *
+ * <p>
+ * Swap files that are written in the background complete in an order that is not known in advance, but
+ * {@link #pollCompletedSwapOuts()} always hands them back in the order in which they were submitted, so that the
+ * queue is able to swap them back in in the same order that the FlowFiles were swapped out.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe. It is expected to be accessed only while the owning queue holds its lock.
+ * </p>
+ */
+public class SwapPipeline {
+    private final FlowFileSwapManager swapManager;
+    private final FlowFileQueue flowFileQueue;
+    private final SwapExecutor executor;
+    private final SwapMetrics metrics = new SwapMetrics();
+
+    private final Deque<PendingSwapOut> pendingSwapOuts = new ArrayDeque<>();
+    private String prefetchLocation;
+    private Future<SwapContents> prefetchFuture;
+
+    public SwapPipeline(final FlowFileSwapManager swapManager, final FlowFileQueue flowFileQueue, final SwapExecutor executor) {
+        this.swapManager = swapManager;
+        this.flowFileQueue = flowFileQueue;
+        this.executor = executor;
+    }
+
+    public SwapMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Begins reading the given swap file in the background, if it is not already being read and the swap-in budget allows.
+     * Only a single swap file is prefetched at a time, so this should be called with the next swap file that the queue will swap in.
+     *
+     * @param swapLocation the location of the next swap file to be swapped in
+     */
+    public void prefetch(final String swapLocation) {
+        if (executor == null || prefetchFuture != null) {
+            return;
+        }
+
+        final Future<SwapContents> future = executor.submitSwapIn(new Callable<SwapContents>() {
+            @Override
+            public SwapContents call() throws IOException {
+                return swapManager.swapIn(swapLocation, flowFileQueue);
+            }
+        });
+
+        if (future != null) {
+            prefetchLocation = swapLocation;
+            prefetchFuture = future;
+        }
+    }
+
+    /**
+     * @param swapLocation the location of a swap file
+     * @return <code>true</code> if the given swap file is currently being read in the background, <code>false</code> if the
+     *         swap file has already been read or if it is not being prefetched
+     */
+    public boolean isPrefetchInProgress(final String swapLocation) {
+        return prefetchFuture != null && swapLocation.equals(prefetchLocation) && !prefetchFuture.isDone();
+    }
+
+    /**
+     * Swaps in the FlowFiles from the given swap file. If the swap file has been prefetched, the prefetched contents are returned,
+     * waiting for the prefetch to complete if necessary; otherwise, the swap file is read on the calling thread.
+     *
+     * @param swapLocation the location of the swap file
+     * @return the contents of the swap file
+     * @throws IOException if unable to read the swap file
+     */
+    public SwapContents swapIn(final String swapLocation) throws IOException {
+        final long start = System.nanoTime();
+
+        if (prefetchFuture != null && swapLocation.equals(prefetchLocation)) {
+            final SwapContents contents = getPrefetchedContents();
+            metrics.recordSwapIn(System.nanoTime() - start, true);
+            return contents;
+        }
+
+        final SwapContents contents = swapManager.swapIn(swapLocation, flowFileQueue);
+        metrics.recordSwapIn(System.nanoTime() - start, false);
+        return contents;
+    }
+
+    private SwapContents getPrefetchedContents() throws IOException {
+        final SwapContents contents;
+        try {
+            contents = prefetchFuture.get();
+        } catch (final InterruptedException ie) {
+            // Leave the prefetch in place; the swap file may already have been consumed, so it must not be read again.
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Swap File " + prefetchLocation + " to be swapped in");
+        } catch (final ExecutionException ee) {
+            clearPrefetch();
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Failed to swap in FlowFiles from Swap File " + prefetchLocation, cause);
+        }
+
+        clearPrefetch();
+        return contents;
+    }
+
+    private void clearPrefetch() {
+        prefetchFuture = null;
+        prefetchLocation = null;
+    }
+
+    /**
+     * Writes the given FlowFiles to a new swap file. If the swap-out budget allows, the swap file is written in the background;
+     * otherwise, it is written on the calling thread. In either case, the outcome is made available via {@link #pollCompletedSwapOuts()}.
+     *
+     * @param toSwap the FlowFiles to swap out
+     * @return <code>false</code> if the swap file was written on the calling thread and could not be written, <code>true</code> otherwise
+     */
+    public boolean swapOut(final List<FlowFileRecord> toSwap) {
+        final PendingSwapOut pending = new PendingSwapOut(toSwap);
+        final Future<String> future = executor == null ? null : executor.submitSwapOut(pending);
+
+        if (future == null) {
+            pending.run();
+            pendingSwapOuts.add(pending);
+            return pending.failure == null;
+        }
+
+        pending.future = future;
+        pendingSwapOuts.add(pending);
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if there are any swap outs that have not yet been returned by {@link #pollCompletedSwapOuts()}
+     */
+    public boolean hasPendingSwapOuts() {
+        return !pendingSwapOuts.isEmpty();
+    }
+
+    /**
+     * Returns the swap outs that have completed, in the order in which they were submitted. A swap out that has completed is not
+     * returned until all of the swap outs that were submitted before it have also completed.
+     *
+     * @return the completed swap outs, in the order that they were submitted
+     */
+    public List<CompletedSwapOut> pollCompletedSwapOuts() {
+        if (pendingSwapOuts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<CompletedSwapOut> completed = new ArrayList<>();
+        PendingSwapOut pending;
+        while ((pending = pendingSwapOuts.peekFirst()) != null && pending.isDone()) {
+            pendingSwapOuts.pollFirst();
+            completed.add(pending.toCompletedSwapOut());
+        }
+
+        return completed;
+    }
+
+    /**
+     * Waits for all swap outs that have been submitted to complete
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitPendingSwapOuts() throws InterruptedException {
+        for (final PendingSwapOut pending : pendingSwapOuts) {
+            pending.await();
+        }
+    }
+
+    /**
+     * Waits for the oldest swap out that has been submitted to complete, so that it will be returned by the next call to
+     * {@link #pollCompletedSwapOuts()}
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitOldestSwapOut() throws InterruptedException {
+        final PendingSwapOut oldest = pendingSwapOuts.peekFirst();
+        if (oldest != null) {
+            oldest.await();
+        }
+    }
+
+    /**
+     * If the oldest pending swap out has not yet started writing its swap file, it is abandoned and its FlowFiles are returned,
+     * so that they can be placed directly back onto the active queue without ever touching the disk.
+     *
+     * @return the FlowFiles of the oldest pending swap out, or <code>null</code> if there is no pending swap out or it has already started
+     */
+    public List<FlowFileRecord> reclaimOldestSwapOut() {
+        final PendingSwapOut oldest = pendingSwapOuts.peekFirst();
+        if (oldest == null || !oldest.claimed.compareAndSet(false, true)) {
+            return null;
+        }
+
+        pendingSwapOuts.pollFirst();
+        oldest.future.cancel(false);
+        return oldest.flowFiles;
+    }
+
+    /**
+     * The outcome of writing a swap file
+     */
+    public static class CompletedSwapOut {
+        private final List<FlowFileRecord> flowFiles;
+        private final String swapLocation;
+        private final Throwable failure;
+
+        private CompletedSwapOut(final List<FlowFileRecord> flowFiles, final String swapLocation, final Throwable failure) {
+            this.flowFiles = flowFiles;
+            this.swapLocation = swapLocation;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the FlowFiles that were to be swapped out
+         */
+        public List<FlowFileRecord> getFlowFiles() {
+            return flowFiles;
+        }
+
+        /**
+         * @return the location of the swap file, or <code>null</code> if the swap file could not be written
+         */
+        public String getSwapLocation() {
+            return swapLocation;
+        }
+
+        /**
+         * @return the reason that the swap file could not be written, or <code>null</code> if it was written successfully
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    private class PendingSwapOut implements Callable<String> {
+        private final List<FlowFileRecord> flowFiles;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile Future<String> future;
+
+        // written only by the thread that writes the swap file; read only after the write has completed
+        private String swapLocation;
+        private Throwable failure;
+        private boolean done;
+
+        PendingSwapOut(final List<FlowFileRecord> flowFiles) {
+            this.flowFiles = flowFiles;
+        }
+
+        @Override
+        public String call() {
+            run();
+            return swapLocation;
+        }
+
+        void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return; // reclaimed by the queue before it was started
+            }
+
+            final long start = System.nanoTime();
+            try {
+                swapLocation = swapManager.swapOut(flowFiles, flowFileQueue);
+                metrics.recordSwapOut(System.nanoTime() - start);
+            } catch (final Throwable t) {
+                failure = t;
+            }
+
+            done = true;
+        }
+
+        boolean isDone() {
+            return future == null ? done : future.isDone();
+        }
+
+        void await() throws InterruptedException {
+            if (future == null) {
+                return;
+            }
+
+            try {
+                future.get();
+            } catch (final ExecutionException ee) {
+                // cannot happen, as call() does not throw; the failure is recorded in the 'failure' field
+            }
+        }
+
+        CompletedSwapOut toCompletedSwapOut() {
+            return new CompletedSwapOut(flowFiles, swapLocation, failure);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.nifi.controller.repository.ProcessContext;
 import org.apache.nifi.controller.repository.StandardProcessSession;
 import org.apache.nifi.controller.repository.StandardProcessSessionFactory;
 import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.apache.nifi.controller.scheduling.AdaptiveBatchSizer;
 import org.apache.nifi.controller.scheduling.ProcessContextFactory;
 import org.apache.nifi.controller.scheduling.ScheduleState;
 import org.apache.nifi.controller.scheduling.SchedulingAgent;
@@ -55,12 +56,24 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
     private final StandardProcessContext processContext;
     private final FlowController flowController;
     private final int numRelationships;
+    private final AdaptiveBatchSizer batchSizer;
 
     public ContinuallyRunProcessorTask(final SchedulingAgent schedulingAgent, final ProcessorNode procNode,
             final FlowController flowController, final ProcessContextFactory contextFactory, final ScheduleState scheduleState,
             final StandardProcessContext processContext) {
+        this(schedulingAgent, procNode, flowController, contextFactory, scheduleState, processContext, null);
+    }
+
+    /**
+     * @param batchSizer if not <code>null</code>, decides how long the Processor is triggered with the same session, in place of the
+     *            Processor's run duration; it should be shared by all of the tasks that are scheduled for the Processor
+     */
+    public ContinuallyRunProcessorTask(final SchedulingAgent schedulingAgent, final ProcessorNode procNode,
+            final FlowController flowController, final ProcessContextFactory contextFactory, final ScheduleState scheduleState,
+            final StandardProcessContext processContext, final AdaptiveBatchSizer batchSizer) {
 
         this.schedulingAgent = schedulingAgent;
+        this.batchSizer = batchSizer;
         this.procNode = procNode;
         this.scheduleState = scheduleState;
         this.numRelationships = procNode.getRelationships().size();
@@ -92,6 +105,12 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
             .anyMatch(queue -> queue.isFull());
     }
 
+    private long getQueuedFlowFileCount() {
+        return procNode.getIncomingConnections().stream()
+            .mapToLong(con -> con.getFlowFileQueue().size().getObjectCount())
+            .sum();
+    }
+
     @Override
     public Boolean call() {
         // make sure processor is not yielded
@@ -120,11 +139,12 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
             }
         }
 
-        final long batchNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+        final long batchNanos = batchSizer == null ? procNode.getRunDuration(TimeUnit.NANOSECONDS) : batchSizer.getBatchDuration(TimeUnit.NANOSECONDS);
         final ProcessSessionFactory sessionFactory;
         final StandardProcessSession rawSession;
         final boolean batch;
-        if (procNode.isHighThroughputSupported() && batchNanos > 0L) {
+        // When batches are sized adaptively, the session is committed by this task even if the batch duration is 0, so that the commit can be timed
+        if (batchSizer != null || (procNode.isHighThroughputSupported() && batchNanos > 0L)) {
             rawSession = new StandardProcessSession(context);
             sessionFactory = new BatchingSessionFactory(rawSession);
             batch = true;
@@ -140,6 +160,8 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
         final long finishIfBackpressureEngaged = startNanos + (batchNanos / 25L);
         final long finishNanos = startNanos + batchNanos;
         int invocationCount = 0;
+        int flowFilesIn = 0;
+        long commitNanos = 0L;
         try {
             try (final AutoCloseable ncl = NarCloseable.withComponentNarLoader(procNode.getProcessor().getClass(), procNode.getIdentifier())) {
                 boolean shouldRun = true;
@@ -189,6 +211,8 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
         } finally {
             try {
                 if (batch) {
+                    flowFilesIn = rawSession.getFlowFilesIn();
+                    final long commitStart = System.nanoTime();
                     try {
                         rawSession.commit();
                     } catch (final Exception e) {
@@ -201,9 +225,13 @@ public class ContinuallyRunProcessorTask implements Callable<Boolean> {
                             procLog.error("Failed to roll back session {} due to {}", new Object[] { rawSession, e.toString() }, e);
                         }
                     }
+                    commitNanos = System.nanoTime() - commitStart;
                 }
 
                 final long processingNanos = System.nanoTime() - startNanos;
+                if (batchSizer != null) {
+                    batchSizer.onBatchCompleted(processingNanos - commitNanos, commitNanos, flowFilesIn, getQueuedFlowFileCount());
+                }
 
                 try {
                     final StandardFlowFileEvent procEvent = new StandardFlowFileEvent(procNode.getIdentifier());
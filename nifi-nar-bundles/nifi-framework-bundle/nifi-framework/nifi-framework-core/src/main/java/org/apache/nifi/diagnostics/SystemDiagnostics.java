@@ -45,6 +45,9 @@ public class SystemDiagnostics implements Cloneable {
     private Map<String, StorageUsage> contentRepositoryStorageUsage;
     private Map<String, GarbageCollection> garbageCollection;
 
+    private long provenanceIndexingLagMillis = -1L;
+    private int provenanceQueuedEventCount = -1;
+
     private long creationTimestamp;
 
     public void setTotalNonHeap(final long totalNonHeap) {
@@ -191,6 +194,22 @@ public class SystemDiagnostics implements Cloneable {
         this.uptime = uptime;
     }
 
+    public long getProvenanceIndexingLagMillis() {
+        return provenanceIndexingLagMillis;
+    }
+
+    public void setProvenanceIndexingLagMillis(long provenanceIndexingLagMillis) {
+        this.provenanceIndexingLagMillis = provenanceIndexingLagMillis;
+    }
+
+    public int getProvenanceQueuedEventCount() {
+        return provenanceQueuedEventCount;
+    }
+
+    public void setProvenanceQueuedEventCount(int provenanceQueuedEventCount) {
+        this.provenanceQueuedEventCount = provenanceQueuedEventCount;
+    }
+
     @Override
     public SystemDiagnostics clone() {
         final SystemDiagnostics clonedObj = new SystemDiagnostics();
@@ -223,6 +242,8 @@ public class SystemDiagnostics implements Cloneable {
         clonedObj.usedNonHeap = usedNonHeap;
         clonedObj.creationTimestamp = creationTimestamp;
         clonedObj.uptime = uptime;
+        clonedObj.provenanceIndexingLagMillis = provenanceIndexingLagMillis;
+        clonedObj.provenanceQueuedEventCount = provenanceQueuedEventCount;
 
         return clonedObj;
     }
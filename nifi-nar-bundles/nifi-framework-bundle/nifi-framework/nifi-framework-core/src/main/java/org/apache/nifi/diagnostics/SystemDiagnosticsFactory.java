@@ -29,9 +29,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.provenance.ProvenanceRepository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +46,7 @@ public class SystemDiagnosticsFactory {
 
     private final Logger logger = LoggerFactory.getLogger(SystemDiagnosticsFactory.class);
 
-    public SystemDiagnostics create(final FlowFileRepository flowFileRepo, final ContentRepository contentRepo) {
+    public SystemDiagnostics create(final FlowFileRepository flowFileRepo, final ContentRepository contentRepo, final ProvenanceRepository provenanceRepo) {
         final SystemDiagnostics systemDiagnostics = new SystemDiagnostics();
 
         final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
@@ -119,6 +121,10 @@ public class SystemDiagnosticsFactory {
         }
         systemDiagnostics.setContentRepositoryStorageUsage(fileRepositoryUsage);
 
+        // get how far provenance indexing lags behind storage, if the repository keeps track of it
+        systemDiagnostics.setProvenanceIndexingLagMillis(provenanceRepo.getIndexingLag(TimeUnit.MILLISECONDS));
+        systemDiagnostics.setProvenanceQueuedEventCount(provenanceRepo.getQueuedEventCount());
+
         // get the garbage collection statistics
         final Map<String, GarbageCollection> garbageCollection = new LinkedHashMap<>(garbageCollectors.size());
         for (final GarbageCollectorMXBean garbageCollector : garbageCollectors) {
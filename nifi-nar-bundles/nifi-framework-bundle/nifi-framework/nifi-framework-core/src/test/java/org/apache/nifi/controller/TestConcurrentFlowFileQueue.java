@@ -0,0 +1,587 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.queue.DropFlowFileState;
+import org.apache.nifi.controller.queue.DropFlowFileStatus;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.ListFlowFileState;
+import org.apache.nifi.controller.queue.ListFlowFileStatus;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.StandardSwapContents;
+import org.apache.nifi.controller.swap.StandardSwapSummary;
+import org.apache.nifi.controller.swap.SwapExecutor;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.scheduling.SchedulingStrategy;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestConcurrentFlowFileQueue {
+    private static final AtomicLong idGenerator = new AtomicLong(0L);
+
+    private InMemorySwapManager swapManager;
+    private ConcurrentFlowFileQueue queue;
+
+    private Connection connection;
+    private FlowFileRepository flowFileRepo;
+    private ProvenanceEventRepository provRepo;
+    private ResourceClaimManager claimManager;
+    private ProcessScheduler scheduler;
+
+    @Before
+    public void setup() {
+        // Mockito serializes and records every invocation of a mock, which would dominate the concurrent tests, so use simple proxies instead.
+        final Connectable connectable = createProxy(Connectable.class, Collections.<String, Object> singletonMap("getSchedulingStrategy", SchedulingStrategy.TIMER_DRIVEN));
+        final Map<String, Object> connectionValues = new HashMap<>();
+        connectionValues.put("getSource", connectable);
+        connectionValues.put("getDestination", connectable);
+        connectionValues.put("getIdentifier", "connection-id");
+        connection = createProxy(Connection.class, connectionValues);
+
+        scheduler = Mockito.mock(ProcessScheduler.class);
+        swapManager = new InMemorySwapManager();
+
+        flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        provRepo = Mockito.mock(ProvenanceEventRepository.class);
+        claimManager = Mockito.mock(ResourceClaimManager.class);
+        Mockito.when(provRepo.eventBuilder()).thenReturn(new StandardProvenanceEventRecord.Builder());
+
+        queue = new ConcurrentFlowFileQueue("id", connection, flowFileRepo, provRepo, claimManager, scheduler, swapManager, null, 10000);
+        idGenerator.set(0L);
+    }
+
+    private static <T> T createProxy(final Class<T> type, final Map<String, Object> returnValues) {
+        final Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName() + "Proxy";
+                    default:
+                        break;
+                }
+
+                final Object value = returnValues.get(method.getName());
+                if (value == null && method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                return value;
+            }
+        });
+
+        return type.cast(proxy);
+    }
+
+    private static FlowFileRecord createFlowFile(final long size) {
+        final long id = idGenerator.getAndIncrement();
+        return new StandardFlowFileRecord.Builder()
+            .id(id)
+            .size(size)
+            .entryDate(System.currentTimeMillis())
+            .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+            .build();
+    }
+
+    private static FlowFileRecord createPenalizedFlowFile(final long penaltyExpiration) {
+        final long id = idGenerator.getAndIncrement();
+        return new StandardFlowFileRecord.Builder()
+            .id(id)
+            .size(1L)
+            .entryDate(System.currentTimeMillis())
+            .penaltyExpirationTime(penaltyExpiration)
+            .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+            .build();
+    }
+
+    @Test
+    public void testFifoOrder() {
+        for (int i = 0; i < 100; i++) {
+            queue.put(createFlowFile(1L));
+        }
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, queue.poll(expired).getId());
+        }
+
+        assertNull(queue.poll(expired));
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    public void testPenalizedFlowFilesPolledLast() {
+        queue.put(createPenalizedFlowFile(System.currentTimeMillis() + 60000L));
+        queue.put(createFlowFile(1L));
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        final FlowFileRecord polled = queue.poll(expired);
+        assertNotNull(polled);
+        assertEquals(1L, polled.getId());
+
+        assertNull(queue.poll(expired));
+        assertFalse(queue.isActiveQueueEmpty());
+        assertEquals(1, queue.getActiveQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testPenaltyExpiredFlowFileBecomesAvailable() throws InterruptedException {
+        queue.put(createPenalizedFlowFile(System.currentTimeMillis() + 50L));
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        assertNull(queue.poll(expired));
+
+        Thread.sleep(100L);
+        final FlowFileRecord polled = queue.poll(expired);
+        assertNotNull(polled);
+        assertEquals(0L, polled.getId());
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        queue.setFlowFileExpiration("1 ms");
+
+        for (int i = 0; i < 100; i++) {
+            queue.put(createFlowFile(1L));
+        }
+
+        Thread.sleep(100L);
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>(100);
+        assertNull(queue.poll(expiredRecords));
+        assertEquals(100, expiredRecords.size());
+        assertEquals(0, queue.getActiveQueueSize().getObjectCount());
+        assertEquals(0, queue.getUnacknowledgedQueueSize().getObjectCount());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testBackPressure() {
+        queue.setBackPressureObjectThreshold(10);
+
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.isActiveQueueEmpty());
+        assertFalse(queue.isFull());
+
+        for (int i = 0; i < 9; i++) {
+            queue.put(createFlowFile(1L));
+            assertFalse(queue.isFull());
+        }
+
+        queue.put(createFlowFile(1L));
+        assertTrue(queue.isFull());
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        final FlowFileRecord polled = queue.poll(expiredRecords);
+        assertNotNull(polled);
+
+        // queue is still full because FlowFile has not yet been acknowledged.
+        assertTrue(queue.isFull());
+        queue.acknowledge(polled);
+        assertFalse(queue.isFull());
+        assertFalse(queue.isActiveQueueEmpty());
+    }
+
+    @Test
+    public void testPrioritizedOrder() {
+        queue.setPriorities(Collections.singletonList(new FlowFileSizePrioritizer()));
+
+        for (int i = 1; i <= 1000; i++) {
+            queue.put(createFlowFile(1000 - i));
+        }
+
+        final List<FlowFileRecord> polled = queue.poll(Integer.MAX_VALUE, new HashSet<>());
+        assertEquals(1000, polled.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, polled.get(i).getSize());
+        }
+    }
+
+    @Test
+    public void testChangingPrioritiesKeepsFlowFiles() {
+        for (int i = 0; i < 500; i++) {
+            queue.put(createFlowFile(500 - i));
+        }
+
+        queue.setPriorities(Collections.singletonList(new FlowFileSizePrioritizer()));
+        assertEquals(500, queue.getActiveQueueSize().getObjectCount());
+        assertEquals(1L, queue.poll(new HashSet<>()).getSize());
+
+        queue.setPriorities(Collections.emptyList());
+        final List<FlowFileRecord> remaining = queue.poll(Integer.MAX_VALUE, new HashSet<>());
+        assertEquals(499, remaining.size());
+        assertEquals(0, queue.getActiveQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testSwapOutOccurs() {
+        for (int i = 0; i < 20000; i++) {
+            queue.put(createFlowFile(1L));
+        }
+
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(20000, queue.size().getObjectCount());
+        assertEquals(20000, queue.size().getByteCount());
+        assertEquals(10000, queue.getActiveQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testSwapInPreservesOrder() {
+        for (int i = 0; i < 25000; i++) {
+            queue.put(createFlowFile(1L));
+        }
+
+        assertEquals(1, swapManager.swappedOut.size());
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        for (int i = 0; i < 25000; i++) {
+            final FlowFileRecord flowFile = queue.poll(expired);
+            assertNotNull("Null FlowFile when i = " + i, flowFile);
+            assertEquals(i, flowFile.getId());
+            queue.acknowledge(flowFile);
+        }
+
+        assertEquals(1, swapManager.swapInCalledCount);
+        assertTrue(swapManager.swappedOut.isEmpty());
+        assertNull(queue.poll(expired));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testBackgroundSwapPreservesOrder() {
+        final SwapExecutor swapExecutor = new SwapExecutor(1, 1);
+        try {
+            queue = new ConcurrentFlowFileQueue("id", connection, flowFileRepo, provRepo, claimManager, scheduler, swapManager, null, 10000, swapExecutor);
+            for (int i = 0; i < 55000; i++) {
+                queue.put(createFlowFile(1L));
+            }
+
+            assertEquals(55000, queue.size().getObjectCount());
+
+            final Set<FlowFileRecord> expired = new HashSet<>();
+            int polled = 0;
+            while (polled < 55000) {
+                // if the next swap file is still being written, the queue waits for it rather than returning nothing
+                final FlowFileRecord flowFile = queue.poll(expired);
+                assertNotNull(flowFile);
+                assertEquals(polled, flowFile.getId());
+                queue.acknowledge(flowFile);
+                polled++;
+            }
+
+            assertTrue(queue.isEmpty());
+            assertTrue(swapManager.swappedOut.isEmpty());
+            assertEquals(swapManager.swapInCalledCount, queue.getSwapMetrics().getSwapInCount());
+        } finally {
+            swapExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLowestPrioritySwappedOutFirst() {
+        queue.setPriorities(Collections.singletonList(new FlowFileSizePrioritizer()));
+
+        final long maxSize = 20000;
+        for (int i = 1; i <= 20000; i++) {
+            queue.put(createFlowFile(maxSize - i));
+        }
+
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(20000, queue.size().getObjectCount());
+        assertEquals(10000, queue.getActiveQueueSize().getObjectCount());
+
+        final List<FlowFileRecord> flowFiles = queue.poll(Integer.MAX_VALUE, new HashSet<>());
+        assertEquals(10000, flowFiles.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, flowFiles.get(i).getSize());
+        }
+    }
+
+    @Test
+    public void testPollWithFilterRetainsUnselectedOrder() {
+        for (int i = 0; i < 10; i++) {
+            queue.put(createFlowFile(i));
+        }
+
+        final List<FlowFileRecord> selected = queue.poll(new FlowFileFilter() {
+            @Override
+            public FlowFileFilterResult filter(final FlowFile flowFile) {
+                return flowFile.getSize() % 2 == 0 ? FlowFileFilterResult.ACCEPT_AND_CONTINUE : FlowFileFilterResult.REJECT_AND_CONTINUE;
+            }
+        }, new HashSet<>());
+
+        assertEquals(5, selected.size());
+        assertEquals(5, queue.getUnacknowledgedQueueSize().getObjectCount());
+        assertEquals(5, queue.getActiveQueueSize().getObjectCount());
+
+        final List<FlowFileRecord> remaining = queue.poll(10, new HashSet<>());
+        assertEquals(5, remaining.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i * 2 + 1, remaining.get(i).getSize());
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testDropSwappedFlowFiles() throws InterruptedException {
+        for (int i = 1; i <= 30000; i++) {
+            queue.put(createFlowFile(1L));
+        }
+
+        assertEquals(2, swapManager.swappedOut.size());
+        final DropFlowFileStatus status = queue.dropFlowFiles("1", "Unit Test");
+        while (status.getState() != DropFlowFileState.COMPLETE) {
+            Thread.sleep(100L);
+        }
+
+        assertEquals(0, queue.size().getObjectCount());
+        assertEquals(0, queue.size().getByteCount());
+        assertEquals(0, swapManager.swappedOut.size());
+        assertEquals(2, swapManager.swapInCalledCount);
+    }
+
+    @Test(timeout = 5000)
+    public void testListFlowFiles() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            queue.put(createFlowFile(1L));
+        }
+
+        final ListFlowFileStatus status = queue.listFlowFiles(UUID.randomUUID().toString(), 10);
+        while (status.getState() != ListFlowFileState.COMPLETE) {
+            Thread.sleep(100L);
+        }
+
+        assertEquals(10, status.getFlowFileSummaries().size());
+        assertEquals(1, status.getFlowFileSummaries().get(0).getPosition());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentPutAndPollKeepsExactCounts() throws InterruptedException {
+        runConcurrentPutAndPoll(queue, 8, 50000);
+
+        final QueueSize size = queue.size();
+        assertEquals(0, size.getObjectCount());
+        assertEquals(0L, size.getByteCount());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentPutAndPollWithPrioritizersKeepsExactCounts() throws InterruptedException {
+        queue.setPriorities(Collections.singletonList(new FlowFileSizePrioritizer()));
+        runConcurrentPutAndPoll(queue, 8, 50000);
+
+        final QueueSize size = queue.size();
+        assertEquals(0, size.getObjectCount());
+        assertEquals(0L, size.getByteCount());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @Ignore("Intended for manual performance testing; compares put/poll throughput against StandardFlowFileQueue")
+    public void testThroughputComparedToStandardFlowFileQueue() throws InterruptedException {
+        final int flowFilesPerThread = 200_000;
+        for (final int threadCount : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+            for (int iteration = 0; iteration < 3; iteration++) {
+                final StandardFlowFileQueue standardQueue = new StandardFlowFileQueue("standard", connection, flowFileRepo, provRepo, claimManager, scheduler,
+                    swapManager, null, Integer.MAX_VALUE);
+                final long standardNanos = runConcurrentPutAndPoll(standardQueue, threadCount, flowFilesPerThread);
+
+                final ConcurrentFlowFileQueue concurrentQueue = new ConcurrentFlowFileQueue("concurrent", connection, flowFileRepo, provRepo, claimManager, scheduler,
+                    swapManager, null, Integer.MAX_VALUE);
+                final long concurrentNanos = runConcurrentPutAndPoll(concurrentQueue, threadCount, flowFilesPerThread);
+
+                final long totalOps = 2L * threadCount * flowFilesPerThread;
+                System.out.printf("%d threads: StandardFlowFileQueue %,d ops/sec; ConcurrentFlowFileQueue %,d ops/sec%n", threadCount,
+                    totalOps * TimeUnit.SECONDS.toNanos(1) / standardNanos, totalOps * TimeUnit.SECONDS.toNanos(1) / concurrentNanos);
+            }
+        }
+    }
+
+    /**
+     * Starts the given number of producer threads and the same number of consumer threads. Each producer puts the given
+     * number of FlowFiles onto the queue and the consumers poll and acknowledge FlowFiles until all have been consumed.
+     *
+     * @return the number of nanoseconds that it took for all FlowFiles to be consumed
+     */
+    private long runConcurrentPutAndPoll(final FlowFileQueue flowFileQueue, final int threadCount, final int flowFilesPerThread) throws InterruptedException {
+        final FlowFileRecord[][] flowFiles = new FlowFileRecord[threadCount][flowFilesPerThread];
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < flowFilesPerThread; i++) {
+                flowFiles[t][i] = createFlowFile(i % 1024);
+            }
+        }
+
+        final int totalFlowFiles = threadCount * flowFilesPerThread;
+        final AtomicInteger consumed = new AtomicInteger(0);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            final FlowFileRecord[] toPut = flowFiles[t];
+            threads.add(new Thread(() -> {
+                awaitQuietly(startLatch);
+                for (final FlowFileRecord flowFile : toPut) {
+                    flowFileQueue.put(flowFile);
+                }
+            }));
+
+            threads.add(new Thread(() -> {
+                awaitQuietly(startLatch);
+                final Set<FlowFileRecord> expired = new HashSet<>();
+                while (consumed.get() < totalFlowFiles) {
+                    final FlowFileRecord flowFile = flowFileQueue.poll(expired);
+                    if (flowFile != null) {
+                        flowFileQueue.acknowledge(flowFile);
+                        consumed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        final long start = System.nanoTime();
+        startLatch.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private static class InMemorySwapManager implements FlowFileSwapManager {
+        private final Map<String, List<FlowFileRecord>> swappedOut = Collections.synchronizedMap(new LinkedHashMap<>());
+        private volatile int swapOutCalledCount = 0;
+        private volatile int swapInCalledCount = 0;
+
+        @Override
+        public void initialize(final SwapManagerInitializationContext initializationContext) {
+        }
+
+        @Override
+        public String swapOut(final List<FlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue) throws IOException {
+            swapOutCalledCount++;
+            final String location = UUID.randomUUID().toString();
+            swappedOut.put(location, new ArrayList<>(flowFiles));
+            return location;
+        }
+
+        @Override
+        public SwapContents peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            return new StandardSwapContents(getSwapSummary(swapLocation), swappedOut.get(swapLocation));
+        }
+
+        @Override
+        public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            swapInCalledCount++;
+            final SwapSummary summary = getSwapSummary(swapLocation);
+            return new StandardSwapContents(summary, swappedOut.remove(swapLocation));
+        }
+
+        @Override
+        public List<String> recoverSwapLocations(final FlowFileQueue flowFileQueue) throws IOException {
+            return new ArrayList<>(swappedOut.keySet());
+        }
+
+        @Override
+        public SwapSummary getSwapSummary(final String swapLocation) throws IOException {
+            final List<FlowFileRecord> flowFiles = swappedOut.get(swapLocation);
+            if (flowFiles == null) {
+                return StandardSwapSummary.EMPTY_SUMMARY;
+            }
+
+            long size = 0L;
+            Long max = null;
+            for (final FlowFileRecord flowFile : flowFiles) {
+                size += flowFile.getSize();
+                if (max == null || flowFile.getId() > max) {
+                    max = flowFile.getId();
+                }
+            }
+
+            return new StandardSwapSummary(new QueueSize(flowFiles.size(), size), max, Collections.<ResourceClaim> emptyList());
+        }
+
+        @Override
+        public void purge() {
+            swappedOut.clear();
+        }
+    }
+
+    private static class FlowFileSizePrioritizer implements FlowFilePrioritizer {
+        @Override
+        public int compare(final FlowFile o1, final FlowFile o2) {
+            return Long.compare(o1.getSize(), o2.getSize());
+        }
+    }
+}
@@ -33,6 +33,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.nifi.connectable.Connectable;
@@ -55,6 +63,7 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.swap.StandardSwapContents;
 import org.apache.nifi.controller.swap.StandardSwapSummary;
+import org.apache.nifi.controller.swap.SwapExecutor;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
@@ -389,6 +398,112 @@ public class TestStandardFlowFileQueue {
         queue.poll(exp);
     }
 
+    @Test(timeout = 60000)
+    public void testBackgroundSwapPreservesOrder() {
+        final SwapExecutor swapExecutor = new SwapExecutor(1, 1);
+        try {
+            queue = new StandardFlowFileQueue("id", connection, flowFileRepo, provRepo, claimManager, scheduler, swapManager, null, 10000, swapExecutor);
+
+            final List<FlowFileRecord> flowFiles = new ArrayList<>();
+            for (int i = 0; i < 55000; i++) {
+                final FlowFileRecord flowFile = new TestFlowFile();
+                flowFiles.add(flowFile);
+                queue.put(flowFile);
+            }
+
+            assertEquals(55000, queue.size().getObjectCount());
+
+            final Set<FlowFileRecord> exp = new HashSet<>();
+            int polled = 0;
+            while (polled < 55000) {
+                // if the next swap file is still being written, the queue waits for it rather than returning nothing
+                final FlowFileRecord flowFile = queue.poll(exp);
+                assertNotNull(flowFile);
+                assertEquals(flowFiles.get(polled).getId(), flowFile.getId());
+                queue.acknowledge(flowFile);
+                polled++;
+            }
+
+            assertTrue(queue.isEmpty());
+            assertTrue(swapManager.swappedOut.isEmpty());
+            assertEquals(swapManager.swapInCalledCount, queue.getSwapMetrics().getSwapInCount());
+        } finally {
+            swapExecutor.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testPollWaitsForSwapFileBeingWritten() throws Exception {
+        final CountDownLatch swapOutStarted = new CountDownLatch(1);
+        final CountDownLatch releaseSwapOut = new CountDownLatch(1);
+        final TestSwapManager stalledSwapManager = new TestSwapManager() {
+            @Override
+            public String swapOut(final List<FlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue) throws IOException {
+                swapOutStarted.countDown();
+                try {
+                    releaseSwapOut.await();
+                } catch (final InterruptedException ie) {
+                    throw new IOException(ie);
+                }
+
+                return super.swapOut(flowFiles, flowFileQueue);
+            }
+        };
+
+        final SwapExecutor swapExecutor = new SwapExecutor(1, 1);
+        final ExecutorService pollExecutor = Executors.newSingleThreadExecutor();
+        try {
+            queue = new StandardFlowFileQueue("id", connection, flowFileRepo, provRepo, claimManager, scheduler, stalledSwapManager, null, 10000, swapExecutor);
+
+            final List<FlowFileRecord> flowFiles = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                final FlowFileRecord flowFile = new TestFlowFile();
+                flowFiles.add(flowFile);
+                queue.put(flowFile);
+            }
+
+            // the swap file is now being written, so it can no longer be taken back
+            swapOutStarted.await();
+
+            final Set<FlowFileRecord> exp = new HashSet<>();
+            for (int i = 0; i < 10000; i++) {
+                final FlowFileRecord flowFile = queue.poll(exp);
+                assertNotNull(flowFile);
+                assertEquals(flowFiles.get(i).getId(), flowFile.getId());
+                queue.acknowledge(flowFile);
+            }
+
+            assertEquals(0, queue.getActiveQueueSize().getObjectCount());
+            assertEquals(10000, queue.size().getObjectCount());
+
+            final Future<FlowFileRecord> pollFuture = pollExecutor.submit(new Callable<FlowFileRecord>() {
+                @Override
+                public FlowFileRecord call() {
+                    return queue.poll(exp);
+                }
+            });
+
+            try {
+                pollFuture.get(100, TimeUnit.MILLISECONDS);
+                Assert.fail("Poll returned while the swap file was still being written");
+            } catch (final TimeoutException te) {
+                // expected
+            }
+
+            releaseSwapOut.countDown();
+
+            final FlowFileRecord flowFile = pollFuture.get();
+            assertNotNull(flowFile);
+            assertEquals(flowFiles.get(10000).getId(), flowFile.getId());
+            assertEquals(1, stalledSwapManager.swapInCalledCount);
+            assertEquals(9999, queue.getActiveQueueSize().getObjectCount());
+        } finally {
+            releaseSwapOut.countDown();
+            pollExecutor.shutdownNow();
+            swapExecutor.shutdown();
+        }
+    }
+
     @Test
     public void testSwapInWhenThresholdIsLessThanSwapSize() {
         // create a queue where the swap threshold is less than 10k
@@ -641,9 +756,9 @@ public class TestStandardFlowFileQueue {
 
 
     private class TestSwapManager implements FlowFileSwapManager {
-        private final Map<String, List<FlowFileRecord>> swappedOut = new HashMap<>();
-        int swapOutCalledCount = 0;
-        int swapInCalledCount = 0;
+        private final Map<String, List<FlowFileRecord>> swappedOut = new ConcurrentHashMap<>();
+        volatile int swapOutCalledCount = 0;
+        volatile int swapInCalledCount = 0;
 
         private int incompleteSwapFileRecordsToInclude = -1;
 
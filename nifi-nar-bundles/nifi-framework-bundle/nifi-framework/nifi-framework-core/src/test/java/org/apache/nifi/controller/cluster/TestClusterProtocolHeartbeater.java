@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.nifi.cluster.coordination.ClusterCoordinator;
+import org.apache.nifi.cluster.coordination.node.ClusterRoles;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionState;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+import org.apache.nifi.cluster.protocol.HeartbeatPayload;
+import org.apache.nifi.cluster.protocol.HeartbeatPayloadDecoder;
+import org.apache.nifi.cluster.protocol.HeartbeatPayloadDecoder.DecodedPayload;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.cluster.protocol.NodeProtocolSender;
+import org.apache.nifi.cluster.protocol.message.HeartbeatMessage;
+import org.apache.nifi.cluster.protocol.message.HeartbeatResponseMessage;
+import org.apache.nifi.controller.leader.election.LeaderElectionManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestClusterProtocolHeartbeater {
+    private final NodeIdentifier nodeId = new NodeIdentifier("node-1", "localhost", 8080, "localhost", 8081, null, 8082, null, false, "CN=localhost");
+    private final NodeConnectionStatus connectionStatus = new NodeConnectionStatus(nodeId, NodeConnectionState.CONNECTED);
+
+    // stands in for the Cluster Coordinator, which decodes the payloads as ClusterProtocolHeartbeatMonitor does
+    private final HeartbeatPayloadDecoder decoder = new HeartbeatPayloadDecoder();
+    private final List<DecodedPayload> decodedPayloads = new ArrayList<>();
+    private boolean heartbeatReceived = false;
+
+    private ClusterProtocolHeartbeater heartbeater;
+
+    @Before
+    public void setup() {
+        final NodeProtocolSender protocolSender = mock(NodeProtocolSender.class);
+        when(protocolSender.heartbeat(any(HeartbeatMessage.class), anyString())).thenAnswer(invocation -> {
+            final HeartbeatMessage message = invocation.getArgumentAt(0, HeartbeatMessage.class);
+            final DecodedPayload decoded = decoder.decode(nodeId, message.getHeartbeat().getPayload());
+            decodedPayloads.add(decoded);
+
+            final HeartbeatResponseMessage response = new HeartbeatResponseMessage();
+            response.setUpdatedNodeStatuses(Collections.emptyList());
+            response.setHeartbeatPayloadVersion(HeartbeatPayload.BINARY_ENCODING_VERSION);
+            response.setAcknowledgedPayloadSequence(decoded.getSequence());
+            response.setFullPayloadRequested(decoded.getPayload() == null && !heartbeatReceived);
+            heartbeatReceived |= decoded.getPayload() != null;
+            return response;
+        });
+
+        final LeaderElectionManager electionManager = mock(LeaderElectionManager.class);
+        when(electionManager.getLeader(ClusterRoles.CLUSTER_COORDINATOR)).thenReturn("localhost:8082");
+
+        heartbeater = new ClusterProtocolHeartbeater(protocolSender, mock(ClusterCoordinator.class), electionManager);
+    }
+
+    private HeartbeatPayload createPayload(final int activeThreadCount) {
+        final HeartbeatPayload payload = new HeartbeatPayload();
+        payload.setActiveThreadCount(activeThreadCount);
+        payload.setTotalFlowFileCount(10L);
+        payload.setTotalFlowFileBytes(10240L);
+        payload.setSystemStartTime(1500000000000L);
+        payload.setClusterStatus(Collections.singletonList(connectionStatus));
+        return payload;
+    }
+
+    @Test
+    public void testSendsPayloadInFullWhenRequested() throws Exception {
+        // the first payload is sent as XML, and the next in full because nothing has been acknowledged yet
+        heartbeater.send(nodeId, connectionStatus, createPayload(1));
+        heartbeater.send(nodeId, connectionStatus, createPayload(2));
+        assertEquals(2, decodedPayloads.size());
+        assertEquals(2, decodedPayloads.get(1).getPayload().getActiveThreadCount());
+
+        // the Cluster Coordinator forgets everything about the node, as it does when it restarts
+        decoder.clear();
+        heartbeatReceived = false;
+
+        // the delta cannot be resolved, so the payload is sent again in full within the same heartbeat
+        heartbeater.send(nodeId, connectionStatus, createPayload(3));
+        assertEquals(4, decodedPayloads.size());
+        assertNull(decodedPayloads.get(2).getPayload());
+        assertNotNull(decodedPayloads.get(3).getPayload());
+        assertEquals(3, decodedPayloads.get(3).getPayload().getActiveThreadCount());
+
+        // subsequent heartbeats are deltas against the payload that was sent in full
+        heartbeater.send(nodeId, connectionStatus, createPayload(4));
+        assertEquals(5, decodedPayloads.size());
+        assertEquals(4, decodedPayloads.get(4).getPayload().getActiveThreadCount());
+        assertEquals(10L, decodedPayloads.get(4).getPayload().getTotalFlowFileCount());
+    }
+
+    @Test
+    public void testUnresolvedDeltaIsNotResentWhenCoordinatorHasPreviousHeartbeat() throws Exception {
+        heartbeater.send(nodeId, connectionStatus, createPayload(1));
+        heartbeater.send(nodeId, connectionStatus, createPayload(2));
+
+        // the Cluster Coordinator forgets the payload but still has the node's previous heartbeat
+        decoder.clear();
+
+        heartbeater.send(nodeId, connectionStatus, createPayload(3));
+        assertEquals(3, decodedPayloads.size());
+        assertNull(decodedPayloads.get(2).getPayload());
+
+        // the next payload is sent in full
+        heartbeater.send(nodeId, connectionStatus, createPayload(4));
+        assertEquals(4, decodedPayloads.size());
+        assertNotNull(decodedPayloads.get(3).getPayload());
+        assertEquals(4, decodedPayloads.get(3).getPayload().getActiveThreadCount());
+    }
+}
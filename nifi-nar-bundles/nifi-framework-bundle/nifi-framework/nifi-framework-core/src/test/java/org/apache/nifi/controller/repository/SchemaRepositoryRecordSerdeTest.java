@@ -244,6 +244,42 @@ public class SchemaRepositoryRecordSerdeTest {
         assertEquals(SWAP_IN, repositoryRecord.getType());
     }
 
+    @Test
+    public void testRoundTripFlowFileDerivedFromParent() throws IOException {
+        schemaRepositoryRecordSerde.writeHeader(dataOutputStream);
+
+        final Map<String, String> parentAttributes = new HashMap<>();
+        parentAttributes.put("uuid", "11111111-1111-1111-1111-111111111111");
+        parentAttributes.put("filename", "parent.txt");
+        parentAttributes.put("removed", "value");
+        final FlowFileRecord parent = new StandardFlowFileRecord.Builder().addAttributes(parentAttributes).build();
+
+        // the child shares the parent's attributes and records its changes separately until it is built
+        final FlowFileRecord child = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(parent)
+            .addAttribute("uuid", "22222222-2222-2222-2222-222222222222")
+            .addAttribute("fragment.index", "1")
+            .removeAttributes("removed")
+            .build();
+
+        final StandardRepositoryRecord record = new StandardRepositoryRecord(flowFileQueue);
+        record.setWorking(child);
+        schemaRepositoryRecordSerde.serializeRecord(record, dataOutputStream);
+
+        DataInputStream dataInputStream = createDataInputStream();
+        schemaRepositoryRecordSerde.readHeader(dataInputStream);
+        RepositoryRecord repositoryRecord = schemaRepositoryRecordSerde.deserializeRecord(dataInputStream, 2);
+
+        final Map<String, String> expectedAttributes = new HashMap<>();
+        expectedAttributes.put("uuid", "22222222-2222-2222-2222-222222222222");
+        expectedAttributes.put("filename", "parent.txt");
+        expectedAttributes.put("fragment.index", "1");
+        assertEquals(expectedAttributes, repositoryRecord.getCurrent().getAttributes());
+        assertEquals(child.getAttributes(), repositoryRecord.getCurrent().getAttributes());
+        assertEquals(child.getAttributes().hashCode(), repositoryRecord.getCurrent().getAttributes().hashCode());
+        assertEquals(parentAttributes, parent.getAttributes());
+    }
+
     private DataInputStream createDataInputStream() throws IOException {
         dataOutputStream.flush();
         return new DataInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
@@ -30,6 +30,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -396,6 +398,45 @@ public class TestFileSystemRepository {
         assertTrue(Arrays.equals(doubleExpected, Files.readAllBytes(outPath)));
     }
 
+    @Test
+    public void testExportToFileWithOffset() throws IOException {
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write("hello, world".getBytes());
+        }
+
+        final Path outPath = new File("target/testExportToFileWithOffset").toPath();
+        Files.deleteIfExists(outPath);
+
+        assertEquals(5L, repository.exportTo(claim, outPath, false, 7L, 5L));
+        assertEquals("world", new String(Files.readAllBytes(outPath)));
+    }
+
+    @Test
+    public void testOpenChannel() throws IOException {
+        final ContentClaim first = repository.create(true);
+        try (final OutputStream out = repository.write(first)) {
+            out.write("hello".getBytes());
+        }
+
+        final ContentClaim second = repository.create(true);
+        try (final OutputStream out = repository.write(second)) {
+            out.write("world".getBytes());
+        }
+
+        try (final FileChannel channel = repository.openChannel(second)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(5);
+            assertEquals(5, channel.read(buffer, second.getOffset()));
+            assertEquals("world", new String(buffer.array()));
+        }
+    }
+
+    @Test(expected = ContentNotFoundException.class)
+    public void testOpenChannelWithNoContent() throws IOException {
+        final ContentClaim claim = new StandardContentClaim(new StandardResourceClaim(claimManager, "container1", "section 1", "1", false), 0L);
+        repository.openChannel(claim).close();
+    }
+
     @Test
     public void testSize() throws IOException {
         final ContentClaim claim = repository.create(true);
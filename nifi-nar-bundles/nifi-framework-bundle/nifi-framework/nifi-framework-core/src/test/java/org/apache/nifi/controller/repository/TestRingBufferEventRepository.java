@@ -26,6 +26,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+
 public class TestRingBufferEventRepository {
 
     @Test
@@ -49,11 +51,51 @@ public class TestRingBufferEventRepository {
         repo.close();
     }
 
+    @Test
+    public void testReportSumsEventsPerComponent() throws IOException {
+        final RingBufferEventRepository repo = new RingBufferEventRepository(5);
+        for (int i = 0; i < 1000; i++) {
+            repo.updateRepository(generateEvent());
+        }
+        for (int i = 0; i < 10; i++) {
+            repo.updateRepository(generateEvent("XYZ", Collections.singletonMap("Records Processed", 5L)));
+        }
+
+        final StandardRepositoryStatusReport report = repo.reportTransferEvents(System.currentTimeMillis() - 60000);
+        assertEquals(2, report.getReportEntries().size());
+
+        final FlowFileEvent abc = report.getReportEntry("ABC");
+        assertEquals(1000, abc.getFlowFilesIn());
+        assertEquals(1000, abc.getFlowFilesOut());
+        assertEquals(1000, abc.getFlowFilesRemoved());
+        assertEquals(1000, abc.getInvocations());
+        assertEquals(1000 * 1024L * 1024L, abc.getContentSizeOut());
+        assertEquals(1000 * 234782L, abc.getProcessingNanoseconds());
+        assertEquals(1000 * 783L, abc.getAggregateLineageMillis());
+        assertEquals(0, abc.getFlowFilesReceived());
+        assertEquals(Collections.emptyMap(), abc.getCounters());
+
+        final FlowFileEvent xyz = report.getReportEntry("XYZ");
+        assertEquals(10, xyz.getFlowFilesIn());
+        assertEquals(10 * 1024L, xyz.getBytesRead());
+        assertEquals(Collections.singletonMap("Records Processed", 50L), xyz.getCounters());
+
+        // Events are not reported if they occurred before the given time.
+        final StandardRepositoryStatusReport futureReport = repo.reportTransferEvents(System.currentTimeMillis() + 5000);
+        assertEquals(0, futureReport.getReportEntry("ABC").getFlowFilesIn());
+        assertEquals(Collections.emptyMap(), futureReport.getReportEntry("XYZ").getCounters());
+        repo.close();
+    }
+
     private FlowFileEvent generateEvent() {
+        return generateEvent("ABC", Collections.emptyMap());
+    }
+
+    private FlowFileEvent generateEvent(final String componentId, final Map<String, Long> counters) {
         return new FlowFileEvent() {
             @Override
             public String getComponentIdentifier() {
-                return "ABC";
+                return componentId;
             }
 
             @Override
@@ -138,7 +180,7 @@ public class TestRingBufferEventRepository {
 
             @Override
             public Map<String, Long> getCounters() {
-                return Collections.emptyMap();
+                return counters;
             }
         };
     }
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertFalse;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.junit.Test;
 
@@ -57,4 +58,76 @@ public class TestStandardFlowFileRecord {
         assertEquals(addAttributeMapCopy, addAttribute.getAttributes());
     }
 
+    @Test
+    public void testAttributeValueChangeDoesNotAffectOriginal() {
+        final String originalUuid = UUID.randomUUID().toString();
+        final FlowFileRecord original = new StandardFlowFileRecord.Builder()
+            .addAttribute("uuid", originalUuid)
+            .addAttribute("abc", "xyz")
+            .build();
+        final Map<String, String> originalAttributes = new HashMap<>(original.getAttributes());
+
+        // a clone changes only the value of an existing attribute
+        final String cloneUuid = UUID.randomUUID().toString();
+        final FlowFileRecord clone = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(original)
+            .addAttribute("uuid", cloneUuid)
+            .build();
+
+        assertEquals(cloneUuid, clone.getAttribute("uuid"));
+        assertEquals("xyz", clone.getAttribute("abc"));
+        assertEquals(originalAttributes, original.getAttributes());
+
+        final FlowFileRecord updatedClone = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(clone)
+            .addAttribute("abc", "123")
+            .build();
+
+        assertEquals("123", updatedClone.getAttribute("abc"));
+        assertEquals("xyz", clone.getAttribute("abc"));
+        assertEquals(originalAttributes, original.getAttributes());
+    }
+
+    @Test
+    public void testRemoveAttributes() {
+        final FlowFileRecord original = new StandardFlowFileRecord.Builder()
+            .addAttribute("uuid", UUID.randomUUID().toString())
+            .addAttribute("a.1", "1")
+            .addAttribute("a.2", "2")
+            .addAttribute("b", "3")
+            .build();
+        final Map<String, String> originalAttributes = new HashMap<>(original.getAttributes());
+
+        final FlowFileRecord removed = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(original)
+            .addAttribute("a.3", "added")
+            .removeAttributes(Pattern.compile("a\\..*"))
+            .removeAttributes("uuid")
+            .build();
+
+        assertEquals(originalAttributes.get("uuid"), removed.getAttribute("uuid"));
+        assertEquals("3", removed.getAttribute("b"));
+        assertEquals(2, removed.getAttributes().size());
+        assertEquals(originalAttributes, original.getAttributes());
+
+        // an attribute that is removed and then added again is kept
+        final FlowFileRecord readded = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(original)
+            .removeAttributes("b")
+            .addAttribute("b", "4")
+            .build();
+
+        assertEquals("4", readded.getAttribute("b"));
+        assertEquals("3", original.getAttribute("b"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAttributesUnmodifiable() {
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+            .addAttribute("abc", "xyz")
+            .build();
+
+        flowFile.getAttributes().put("abc", "123");
+    }
+
 }
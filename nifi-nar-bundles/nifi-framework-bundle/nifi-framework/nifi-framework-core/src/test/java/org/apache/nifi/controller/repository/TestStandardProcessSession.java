@@ -19,6 +19,7 @@ package org.apache.nifi.controller.repository;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.notNull;
@@ -37,9 +38,13 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -49,8 +54,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -1134,6 +1141,162 @@ public class TestStandardProcessSession {
         }
     }
 
+    @Test
+    @Ignore("Intended for manual performance testing; reports the heap retained per FlowFile when splitting a FlowFile")
+    public void testHeapPerFlowFile() {
+        final int splitCount = 100_000;
+
+        FlowFile parent = session.create();
+        parent = session.putAttribute(parent, CoreAttributes.MIME_TYPE.key(), "text/plain");
+        parent = session.putAttribute(parent, "source.host", "localhost");
+        parent = session.putAttribute(parent, "source.directory", "/data/incoming");
+        parent = session.putAttribute(parent, "fragment.identifier", UUID.randomUUID().toString());
+
+        final List<FlowFile> retained = new ArrayList<>(splitCount * 2);
+        final long usedBefore = getUsedHeap();
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < splitCount; i++) {
+            FlowFile child = session.create(parent);
+            child = session.putAttribute(child, "fragment.index", String.valueOf(i));
+            child = session.putAttribute(child, "fragment.count", String.valueOf(splitCount));
+            child = session.putAttribute(child, "segment.original.filename", parent.getAttribute(CoreAttributes.FILENAME.key()));
+            retained.add(child);
+
+            FlowFile clone = session.clone(child);
+            clone = session.putAttribute(clone, "split.role", "clone");
+            retained.add(clone);
+        }
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Roll back so that only the FlowFiles themselves, and not the session's records of them, remain reachable
+        session.rollback();
+        final long usedAfter = getUsedHeap();
+
+        System.out.println("Created " + retained.size() + " FlowFiles in " + millis + " millis, retaining "
+            + (usedAfter - usedBefore) / retained.size() + " bytes of heap per FlowFile");
+        assertEquals(splitCount * 2, retained.size());
+    }
+
+    private long getUsedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void testBulkPutAllAttributesAndTransfer() throws IOException {
+        final List<FlowFile> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            created.add(session.create());
+        }
+
+        final AtomicInteger index = new AtomicInteger(0);
+        final List<FlowFile> updated = session.putAllAttributes(created, flowFile -> {
+            final int i = index.getAndIncrement();
+            if (i == 1) {
+                return null;
+            }
+
+            final Map<String, String> attributes = new HashMap<>();
+            attributes.put("index", String.valueOf(i));
+            attributes.put(CoreAttributes.UUID.key(), "not-a-uuid");
+            return attributes;
+        });
+
+        assertEquals(3, updated.size());
+        assertEquals("0", updated.get(0).getAttribute("index"));
+        assertNull(updated.get(1).getAttribute("index"));
+        assertEquals("2", updated.get(2).getAttribute("index"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(created.get(i).getAttribute(CoreAttributes.UUID.key()), updated.get(i).getAttribute(CoreAttributes.UUID.key()));
+        }
+
+        final Relationship relationship = new Relationship.Builder().name("A").build();
+        session.transfer(updated, relationship);
+        session.getProvenanceReporter().route(updated, relationship);
+        session.commit();
+
+        final List<FlowFile> queued = new StandardProcessSession(context).get(10);
+        assertEquals(3, queued.size());
+        assertEquals(3, queued.stream().map(FlowFile::getQueueDateIndex).distinct().count());
+        assertEquals(1, queued.stream().map(FlowFile::getLastQueueDate).distinct().count());
+        assertEquals(3, provenanceRepo.getEvents(0L, 1000).stream().filter(event -> event.getEventType() == ProvenanceEventType.ROUTE).count());
+    }
+
+    @Test
+    public void testBulkSendRegistersEventsImmediately() throws IOException {
+        final List<FlowFile> created = Arrays.asList(session.create(), session.create());
+        session.getProvenanceReporter().send(created, "nifi://unit-test");
+
+        final List<ProvenanceEventRecord> events = provenanceRepo.getEvents(0L, 1000);
+        assertEquals(2, events.size());
+        for (final ProvenanceEventRecord event : events) {
+            assertEquals(ProvenanceEventType.SEND, event.getEventType());
+            assertEquals("nifi://unit-test", event.getTransitUri());
+        }
+    }
+
+    @Test
+    @Ignore("Intended for manual performance testing; should not be run in an automated environment")
+    public void testBulkUpdatePerformance() {
+        final int flowFilesPerSession = 10_000;
+        final int iterations = 20;
+        final Relationship relationship = new Relationship.Builder().name("A").build();
+
+        // The mock Connectable that the other tests use records each invocation, which would dominate the timings
+        final Connectable stubConnectable = Mockito.mock(Connectable.class, Mockito.withSettings().stubOnly());
+        final Set<Connection> connections = Collections.singleton(createConnection());
+        final ProcessGroup procGroup = connectable.getProcessGroup();
+        when(stubConnectable.getIdentifier()).thenReturn("connectable-1");
+        when(stubConnectable.getProcessGroup()).thenReturn(procGroup);
+        when(stubConnectable.getConnectableType()).thenReturn(ConnectableType.INPUT_PORT);
+        when(stubConnectable.getComponentType()).thenReturn("Unit Test Component");
+        when(stubConnectable.getConnections(Mockito.any(Relationship.class))).thenReturn(connections);
+        final ProcessContext stubContext = new ProcessContext(stubConnectable, new AtomicLong(0L), contentRepo, flowFileRepo,
+            Mockito.mock(FlowFileEventRepository.class), Mockito.mock(CounterRepository.class), provenanceRepo);
+        session = new StandardProcessSession(stubContext);
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("kafka.topic", "payments");
+        attributes.put("kafka.partition", "3");
+
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long individualNanos = 0L;
+            long bulkNanos = 0L;
+
+            for (int i = 0; i < iterations; i++) {
+                final List<FlowFile> individual = createFlowFiles(flowFilesPerSession);
+                long start = System.nanoTime();
+                for (FlowFile flowFile : individual) {
+                    flowFile = session.putAllAttributes(flowFile, attributes);
+                    session.transfer(flowFile, relationship);
+                }
+                individualNanos += System.nanoTime() - start;
+                session.rollback();
+
+                final List<FlowFile> bulk = createFlowFiles(flowFilesPerSession);
+                start = System.nanoTime();
+                session.transfer(session.putAllAttributes(bulk, flowFile -> attributes), relationship);
+                bulkNanos += System.nanoTime() - start;
+                session.rollback();
+            }
+
+            final long flowFiles = (long) iterations * flowFilesPerSession;
+            System.out.println("Individual calls: " + individualNanos / flowFiles + " nanos per FlowFile; bulk calls: " + bulkNanos / flowFiles + " nanos per FlowFile");
+        }
+    }
+
+    private List<FlowFile> createFlowFiles(final int count) {
+        final List<FlowFile> flowFiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            flowFiles.add(session.create());
+        }
+        return flowFiles;
+    }
+
     @Test
     public void testMissingFlowFileExceptionThrownWhenUnableToReadDataStreamCallback() {
         final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
@@ -1474,6 +1637,33 @@ public class TestStandardProcessSession {
         assertEquals(ProvenanceEventType.ATTRIBUTES_MODIFIED, event.getEventType());
     }
 
+    @Test
+    public void testReadFileRegion() throws IOException {
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write("hello, world".getBytes());
+            }
+        });
+
+        final FlowFile world = session.clone(flowFile, 7, 5);
+        final ByteBuffer buffer = ByteBuffer.allocate(16);
+        final boolean invoked = session.read(world, (channel, position, length) -> {
+            assertEquals(5L, length);
+            channel.read(buffer, position);
+        });
+
+        assertTrue(invoked);
+        assertEquals("world", new String(buffer.array(), 0, 5));
+
+        final FlowFile empty = session.create();
+        assertFalse(session.read(empty, (channel, position, length) -> Assert.fail("Callback should not be invoked for a FlowFile with no content")));
+
+        session.remove(Arrays.asList(flowFile, world, empty));
+        session.commit();
+    }
+
     @Test
     public void testReadFromInputStream() throws IOException {
         FlowFile flowFile = session.create();
@@ -2045,6 +2235,15 @@ public class TestStandardProcessSession {
             }
         }
 
+        @Override
+        public FileChannel openChannel(final ContentClaim claim) throws IOException {
+            try {
+                return FileChannel.open(getPath(claim), StandardOpenOption.READ);
+            } catch (final NoSuchFileException nsfe) {
+                throw new ContentNotFoundException(claim, nsfe);
+            }
+        }
+
         @Override
         public OutputStream write(final ContentClaim claim) throws IOException {
             final Path path = getPath(claim);
@@ -53,6 +53,7 @@ import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.controller.swap.StandardSwapContents;
 import org.apache.nifi.controller.swap.StandardSwapSummary;
+import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
 import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.util.MockFlowFile;
@@ -67,6 +68,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.wali.GroupCommitWriteAheadLog;
 import org.wali.MinimalLockingWriteAheadLog;
 import org.wali.WriteAheadRepository;
 
@@ -493,6 +495,73 @@ public class TestWriteAheadFlowFileRepository {
         repo2.close();
     }
 
+    @Test
+    public void testRestartAfterSwitchingToGroupCommitWriteAheadLog() throws IOException {
+        final Path path = Paths.get("target/test-repo");
+        if (Files.exists(path)) {
+            FileUtils.deleteFile(path.toFile(), true);
+        }
+
+        final TestQueueProvider queueProvider = new TestQueueProvider();
+        final List<FlowFileRecord> flowFileCollection = new ArrayList<>();
+
+        final Connection connection = Mockito.mock(Connection.class);
+        when(connection.getIdentifier()).thenReturn("1234");
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getIdentifier()).thenReturn("1234");
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                flowFileCollection.add((FlowFileRecord) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(queue).put(any(FlowFileRecord.class));
+
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        queueProvider.addConnection(connection);
+
+        // Write a FlowFile using the default Write-Ahead Log
+        final WriteAheadFlowFileRepository repo = new WriteAheadFlowFileRepository(NiFiProperties.createBasicNiFiProperties(null, null));
+        repo.initialize(new StandardResourceClaimManager());
+        repo.loadFlowFiles(queueProvider, 0L);
+
+        final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder().id(1L).addAttribute("abc", "xyz").size(0L).build();
+        final StandardRepositoryRecord record = new StandardRepositoryRecord(null);
+        record.setWorking(flowFileRecord);
+        record.setDestination(connection.getFlowFileQueue());
+        repo.updateRepository(Collections.singletonList(record));
+        repo.close();
+
+        // Recover it using the GroupCommitWriteAheadLog and update it
+        final Map<String, String> groupCommitProperties = new HashMap<>();
+        groupCommitProperties.put(NiFiProperties.FLOWFILE_REPOSITORY_WAL_IMPLEMENTATION, GroupCommitWriteAheadLog.class.getName());
+        groupCommitProperties.put(NiFiProperties.FLOWFILE_REPOSITORY_WAL_JOURNALS, "2");
+
+        final WriteAheadFlowFileRepository repo2 = new WriteAheadFlowFileRepository(NiFiProperties.createBasicNiFiProperties(null, groupCommitProperties));
+        repo2.initialize(new StandardResourceClaimManager());
+        repo2.loadFlowFiles(queueProvider, 0L);
+        assertEquals(1, flowFileCollection.size());
+        assertEquals("xyz", flowFileCollection.get(0).getAttribute("abc"));
+
+        record.setWorking(new StandardFlowFileRecord.Builder().fromFlowFile(flowFileRecord).addAttribute("hello", "world").build());
+        repo2.updateRepository(Collections.singletonList(record));
+        repo2.close();
+
+        flowFileCollection.clear();
+        final WriteAheadFlowFileRepository repo3 = new WriteAheadFlowFileRepository(NiFiProperties.createBasicNiFiProperties(null, groupCommitProperties));
+        repo3.initialize(new StandardResourceClaimManager());
+        repo3.loadFlowFiles(queueProvider, 0L);
+
+        assertEquals(1, flowFileCollection.size());
+        final FlowFile flowFile = flowFileCollection.get(0);
+        assertEquals(1L, flowFile.getId());
+        assertEquals("xyz", flowFile.getAttribute("abc"));
+        assertEquals("world", flowFile.getAttribute("hello"));
+
+        repo3.close();
+    }
+
     private static class TestQueueProvider implements QueueProvider {
 
         private List<Connection> connectionList = new ArrayList<>();
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestAdaptiveBatchSizer {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    @Test
+    public void testStartsUnbatched() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, TimeUnit.MILLISECONDS);
+        assertEquals(50L, sizer.getLatencyTarget(TimeUnit.MILLISECONDS));
+        assertEquals(0L, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testGrowsUnderLoadUpToLatencyTarget() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, TimeUnit.MILLISECONDS);
+
+        // committing takes as long as triggering the processor, and thousands of FlowFiles are queued
+        long expected = MILLIS;
+        for (int i = 0; i < 5; i++) {
+            sizer.onBatchCompleted(MILLIS, MILLIS, 10, 10_000);
+            assertEquals(expected, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+            expected *= 2;
+        }
+
+        // 32 millis would leave no room for a commit of 20 millis within the target
+        sizer.onBatchCompleted(16 * MILLIS, 20 * MILLIS, 100, 10_000);
+        assertEquals(30 * MILLIS, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testShrinksWhenLatencyTargetIsMissed() {
+        final AdaptiveBatchSizer sizer = grownTo(16 * MILLIS);
+
+        sizer.onBatchCompleted(40 * MILLIS, 20 * MILLIS, 100, 10_000);
+        assertEquals(8 * MILLIS, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testShrinksWhenQueueIsSmall() {
+        final AdaptiveBatchSizer sizer = grownTo(4 * MILLIS);
+
+        sizer.onBatchCompleted(MILLIS, MILLIS, 10, 10);
+        assertEquals(2 * MILLIS, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+        sizer.onBatchCompleted(MILLIS, MILLIS, 10, 0);
+        assertEquals(MILLIS, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+
+        // less than a millisecond is not worth batching for
+        sizer.onBatchCompleted(MILLIS, MILLIS, 10, 0);
+        assertEquals(0L, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testDoesNotGrowWhenCommitIsCheap() {
+        final AdaptiveBatchSizer sizer = grownTo(2 * MILLIS);
+
+        sizer.onBatchCompleted(10 * MILLIS, MILLIS / 10, 100, 10_000);
+        assertEquals(2 * MILLIS, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    private AdaptiveBatchSizer grownTo(final long batchNanos) {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, TimeUnit.MILLISECONDS);
+        while (sizer.getBatchDuration(TimeUnit.NANOSECONDS) < batchNanos) {
+            sizer.onBatchCompleted(MILLIS, MILLIS, 10, 10_000);
+        }
+        assertEquals(batchNanos, sizer.getBatchDuration(TimeUnit.NANOSECONDS));
+        return sizer;
+    }
+}
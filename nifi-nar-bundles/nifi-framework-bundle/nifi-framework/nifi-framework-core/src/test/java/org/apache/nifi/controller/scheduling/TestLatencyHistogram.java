@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestLatencyHistogram {
+
+    @Test
+    public void testEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMean(TimeUnit.NANOSECONDS));
+        assertEquals(0L, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertEquals(0L, histogram.getPercentile(99, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100, TimeUnit.MICROSECONDS);
+        }
+        histogram.record(50, TimeUnit.MILLISECONDS);
+
+        assertEquals(100L, histogram.getCount());
+        assertEquals(50L, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertEquals(599L, histogram.getMean(TimeUnit.MICROSECONDS));
+
+        // 100 micros falls into the bucket of [64, 128) micros
+        assertEquals(128L, histogram.getPercentile(50, TimeUnit.MICROSECONDS));
+        assertEquals(128L, histogram.getPercentile(99, TimeUnit.MICROSECONDS));
+
+        // the upper bound of the bucket is larger than the largest value recorded, so the largest value is used instead.
+        assertEquals(50L, histogram.getPercentile(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testNegativeLatencyIsRecordedAsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5, TimeUnit.MILLISECONDS);
+
+        assertEquals(1L, histogram.getCount());
+        assertEquals(0L, histogram.getMax(TimeUnit.NANOSECONDS));
+        assertTrue(histogram.getPercentile(50, TimeUnit.NANOSECONDS) <= 1000L);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.connectable.Funnel;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSessionFactory;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestTimerDrivenSchedulingAgent {
+
+    private ProcessContextFactory contextFactory;
+    private TimerDrivenSchedulingAgent agent;
+
+    @Before
+    public void setup() {
+        // A bored yield that is longer than any of the tests means that a task that found no work only runs again if it is woken
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.BORED_YIELD_DURATION, "1 min");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, properties);
+
+        final FlowController flowController = Mockito.mock(FlowController.class);
+        Mockito.when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        Mockito.when(flowController.getMaxTimerDrivenThreadCount()).thenReturn(10);
+
+        final org.apache.nifi.controller.repository.ProcessContext repositoryContext = Mockito.mock(org.apache.nifi.controller.repository.ProcessContext.class);
+        Mockito.when(repositoryContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
+        contextFactory = Mockito.mock(ProcessContextFactory.class);
+        Mockito.when(contextFactory.newProcessContext(Mockito.any(Connectable.class), Mockito.any(AtomicLong.class))).thenReturn(repositoryContext);
+
+        agent = new TimerDrivenSchedulingAgent(flowController, new FlowEngine(2, "Timer-Driven Process"), contextFactory, null, nifiProperties);
+    }
+
+    @After
+    public void teardown() {
+        agent.shutdown();
+    }
+
+    private static Funnel createFunnel(final FlowFileQueue incomingQueue, final long schedulingPeriodMillis) {
+        final Connection incomingConnection = Mockito.mock(Connection.class);
+        Mockito.when(incomingConnection.getFlowFileQueue()).thenReturn(incomingQueue);
+
+        final Funnel funnel = Mockito.mock(Funnel.class);
+        Mockito.when(funnel.getIdentifier()).thenReturn("funnel");
+        Mockito.when(funnel.getConnectableType()).thenReturn(ConnectableType.FUNNEL);
+        Mockito.when(funnel.getMaxConcurrentTasks()).thenReturn(1);
+        Mockito.when(funnel.getSchedulingPeriod(Mockito.any(TimeUnit.class)))
+            .thenAnswer(invocation -> invocation.getArgumentAt(0, TimeUnit.class).convert(schedulingPeriodMillis, TimeUnit.MILLISECONDS));
+        Mockito.when(funnel.hasIncomingConnection()).thenReturn(true);
+        Mockito.when(funnel.getIncomingConnections()).thenReturn(Collections.singletonList(incomingConnection));
+        Mockito.when(funnel.getConnections()).thenReturn(Collections.singleton(Mockito.mock(Connection.class)));
+        Mockito.when(funnel.getRelationships()).thenReturn(Collections.emptyList());
+        return funnel;
+    }
+
+    @Test(timeout = 20000)
+    public void testIdleTaskIsWokenWhenDataArrives() throws InterruptedException {
+        final AtomicBoolean dataQueued = new AtomicBoolean(false);
+        final CountDownLatch checkedForData = new CountDownLatch(1);
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.isActiveQueueEmpty()).thenAnswer(invocation -> {
+            final boolean empty = !dataQueued.get();
+            checkedForData.countDown();
+            return empty;
+        });
+        final Funnel funnel = createFunnel(queue, 1L);
+
+        final CountDownLatch triggered = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            triggered.countDown();
+            return null;
+        }).when(funnel).onTrigger(Mockito.any(ProcessContext.class), Mockito.any(ProcessSessionFactory.class));
+
+        agent.doSchedule(funnel, new DummyScheduleState(true));
+
+        // The funnel finds no work and waits for the bored yield to elapse
+        checkedForData.await();
+        dataQueued.set(true);
+
+        // The task may not have started waiting yet when data first arrives, so keep signaling until it has been woken
+        while (!triggered.await(10L, TimeUnit.MILLISECONDS)) {
+            agent.onEvent(funnel);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSchedulingLatencyExcludesRunDuration() throws InterruptedException {
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.isActiveQueueEmpty()).thenReturn(false);
+        final Funnel funnel = createFunnel(queue, 10L);
+
+        final CountDownLatch triggered = new CountDownLatch(5);
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(200L);
+            triggered.countDown();
+            return null;
+        }).when(funnel).onTrigger(Mockito.any(ProcessContext.class), Mockito.any(ProcessSessionFactory.class));
+
+        final ScheduleState scheduleState = new DummyScheduleState(true);
+        agent.doSchedule(funnel, scheduleState);
+        triggered.await();
+
+        // Each run is due 10 milliseconds after the previous run ends, so the 200 milliseconds that the funnel runs for
+        // must not be counted as time spent waiting to run
+        final LatencyHistogram schedulingLatency = agent.getSchedulingLatency(funnel);
+        assertTrue(schedulingLatency.getCount() >= 5);
+        assertTrue("Mean scheduling latency was " + schedulingLatency, schedulingLatency.getMean(TimeUnit.MILLISECONDS) < 100L);
+
+        agent.doUnschedule(funnel, scheduleState);
+        assertNull(agent.getSchedulingLatency(funnel));
+    }
+
+    @Test(timeout = 20000)
+    public void testBlockingProcessorRunsOnBlockingEngine() throws InterruptedException {
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        Mockito.when(procNode.getIdentifier()).thenReturn("blocking");
+        Mockito.when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        Mockito.when(procNode.isBlockingIO()).thenReturn(true);
+        Mockito.when(procNode.getMaxConcurrentTasks()).thenReturn(2);
+        Mockito.when(procNode.getSchedulingPeriod(Mockito.any(TimeUnit.class)))
+            .thenAnswer(invocation -> invocation.getArgumentAt(0, TimeUnit.class).convert(10L, TimeUnit.MILLISECONDS));
+        Mockito.when(procNode.getProcessor()).thenReturn(Mockito.mock(Processor.class));
+
+        final BlockingQueue<String> threadNames = new LinkedBlockingQueue<>();
+        Mockito.doAnswer(invocation -> {
+            threadNames.offer(Thread.currentThread().getName());
+            return null;
+        }).when(procNode).onTrigger(Mockito.any(ProcessContext.class), Mockito.any(ProcessSessionFactory.class));
+
+        final ScheduleState scheduleState = new DummyScheduleState(true);
+        agent.doSchedule(procNode, scheduleState);
+        assertEquals(2, agent.getBlockingThreadCount());
+        assertTrue(threadNames.take().startsWith("Blocking I/O Process"));
+
+        agent.doUnschedule(procNode, scheduleState);
+        assertEquals(0, agent.getBlockingThreadCount());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.authorization.user.StandardNiFiUser;
+import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.apache.nifi.controller.repository.StandardRepositoryStatusReport;
+import org.junit.Test;
+
+public class TestStatusSnapshotCache {
+
+    private final AtomicInteger reportCount = new AtomicInteger(0);
+    private final AtomicInteger statusCount = new AtomicInteger(0);
+
+    private RepositoryStatusReport createReport() {
+        reportCount.incrementAndGet();
+        return new StandardRepositoryStatusReport();
+    }
+
+    private Function<RepositoryStatusReport, ProcessGroupStatus> computeStatus(final String groupId) {
+        return statusReport -> {
+            statusCount.incrementAndGet();
+            final ProcessGroupStatus status = new ProcessGroupStatus();
+            status.setId(groupId);
+            return status;
+        };
+    }
+
+    @Test
+    public void testStatusSharedWithinSnapshot() {
+        final StatusSnapshotCache cache = new StatusSnapshotCache(1, TimeUnit.HOURS, this::createReport);
+        final NiFiUser user = new StandardNiFiUser.Builder().identity("user-1").build();
+
+        final ProcessGroupStatus status = cache.getGroupStatus("group-1", user, computeStatus("group-1"));
+        final long version = cache.getVersion();
+        assertSame(status, cache.getGroupStatus("group-1", new StandardNiFiUser.Builder().identity("user-1").build(), computeStatus("group-1")));
+        assertSame(cache.getStatusReport(), cache.getStatusReport());
+        assertEquals(1, reportCount.get());
+        assertEquals(1, statusCount.get());
+
+        // a different group, user, or proxy must not be served the same status
+        assertEquals("group-2", cache.getGroupStatus("group-2", user, computeStatus("group-2")).getId());
+        assertNotSame(status, cache.getGroupStatus("group-1", new StandardNiFiUser.Builder().identity("user-2").build(), computeStatus("group-1")));
+        assertNotSame(status, cache.getGroupStatus("group-1", new StandardNiFiUser.Builder().identity("user-1").groups(Collections.singleton("admins")).build(),
+            computeStatus("group-1")));
+        assertNotSame(status, cache.getGroupStatus("group-1", new StandardNiFiUser.Builder().identity("user-1").chain(user).build(), computeStatus("group-1")));
+        assertEquals(5, statusCount.get());
+        assertEquals(1, reportCount.get());
+        assertEquals(version, cache.getVersion());
+    }
+
+    @Test
+    public void testLargeStatusNotCached() {
+        final StatusSnapshotCache cache = new StatusSnapshotCache(1, TimeUnit.HOURS, this::createReport);
+        final NiFiUser user = new StandardNiFiUser.Builder().identity("user-1").build();
+
+        final Function<RepositoryStatusReport, ProcessGroupStatus> computeLargeStatus = statusReport -> {
+            statusCount.incrementAndGet();
+            final ProcessGroupStatus status = new ProcessGroupStatus();
+            status.setId("group-1");
+            status.setProcessorStatus(Collections.nCopies(100_000, new ProcessorStatus()));
+            return status;
+        };
+
+        // a status that describes more components than may be retained is computed for every request, so it is not identified by the snapshot
+        final VersionedStatus<ProcessGroupStatus> largeStatus = cache.getVersionedGroupStatus("group-1", user, computeLargeStatus);
+        assertNull(largeStatus.getSnapshotVersion());
+        assertNotSame(largeStatus.getStatus(), cache.getGroupStatus("group-1", user, computeLargeStatus));
+        assertEquals(2, statusCount.get());
+
+        // and does not prevent smaller statuses from being retained
+        final VersionedStatus<ProcessGroupStatus> status = cache.getVersionedGroupStatus("group-2", user, computeStatus("group-2"));
+        assertEquals(Long.valueOf(cache.getVersion()), status.getSnapshotVersion());
+        assertSame(status.getStatus(), cache.getGroupStatus("group-2", user, computeStatus("group-2")));
+        assertEquals(1, reportCount.get());
+
+        // nor is a status that is not filtered for a user
+        assertNull(cache.getVersionedGroupStatus("group-2", null, computeStatus("group-2")).getSnapshotVersion());
+    }
+
+    @Test
+    public void testSnapshotRefreshed() throws InterruptedException {
+        final StatusSnapshotCache cache = new StatusSnapshotCache(10, TimeUnit.MILLISECONDS, this::createReport);
+        final NiFiUser user = new StandardNiFiUser.Builder().identity("user-1").build();
+
+        final ProcessGroupStatus status = cache.getGroupStatus("group-1", user, computeStatus("group-1"));
+        final long version = cache.getVersion();
+
+        Thread.sleep(20L);
+        assertNotSame(status, cache.getGroupStatus("group-1", user, computeStatus("group-1")));
+        assertEquals(version + 1, cache.getVersion());
+        assertEquals(2, reportCount.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final StatusSnapshotCache cache = new StatusSnapshotCache(1, TimeUnit.HOURS, this::createReport);
+        final NiFiUser user = new StandardNiFiUser.Builder().identity("user-1").build();
+
+        final ProcessGroupStatus status = cache.getGroupStatus("group-1", user, computeStatus("group-1"));
+        final long version = cache.getVersion();
+
+        cache.invalidate();
+        assertNotSame(status, cache.getGroupStatus("group-1", user, computeStatus("group-1")));
+        assertEquals(version + 1, cache.getVersion());
+        assertEquals(2, reportCount.get());
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.SwapPipeline.CompletedSwapOut;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestSwapPipeline {
+    private InMemorySwapManager swapManager;
+    private FlowFileQueue flowFileQueue;
+    private ResourceClaimManager claimManager;
+    private SwapExecutor swapExecutor;
+
+    @Before
+    public void setup() {
+        MockFlowFile.resetIdGenerator();
+        swapManager = new InMemorySwapManager();
+        flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+        claimManager = Mockito.mock(ResourceClaimManager.class);
+    }
+
+    @After
+    public void cleanup() {
+        if (swapExecutor != null) {
+            swapExecutor.shutdown();
+        }
+        swapManager.releaseBlockedSwapOut();
+    }
+
+    private List<FlowFileRecord> createFlowFiles(final int count) {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            flowFiles.add(new MockFlowFile(Collections.<String, String> emptyMap(), 10L, claimManager));
+        }
+        return flowFiles;
+    }
+
+    @Test
+    public void testSwapOutWithoutExecutorIsPerformedOnCallingThread() {
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, null);
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+
+        assertTrue(pipeline.swapOut(flowFiles));
+        assertEquals(Thread.currentThread().getName(), swapManager.lastSwapOutThreadName);
+
+        final List<CompletedSwapOut> completed = pipeline.pollCompletedSwapOuts();
+        assertEquals(1, completed.size());
+        assertNotNull(completed.get(0).getSwapLocation());
+        assertNull(completed.get(0).getFailure());
+        assertEquals(flowFiles, swapManager.swappedOut.get(completed.get(0).getSwapLocation()));
+        assertFalse(pipeline.hasPendingSwapOuts());
+        assertEquals(1L, pipeline.getMetrics().getSwapOutCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testCompletedSwapOutsReturnedInSubmissionOrder() throws InterruptedException {
+        swapExecutor = new SwapExecutor(1, 2);
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+
+        swapManager.blockNextSwapOut();
+        final List<FlowFileRecord> first = createFlowFiles(10);
+        final List<FlowFileRecord> second = createFlowFiles(10);
+        assertTrue(pipeline.swapOut(first));
+        swapManager.awaitBlockedSwapOut();
+        assertTrue(pipeline.swapOut(second));
+
+        // the second swap file can be written while the first is blocked, but must not be returned before it
+        while (swapManager.swapOutCount.get() < 1) {
+            Thread.sleep(10L);
+        }
+        assertTrue(pipeline.pollCompletedSwapOuts().isEmpty());
+        assertTrue(pipeline.hasPendingSwapOuts());
+
+        swapManager.releaseBlockedSwapOut();
+        pipeline.awaitPendingSwapOuts();
+
+        final List<CompletedSwapOut> completed = pipeline.pollCompletedSwapOuts();
+        assertEquals(2, completed.size());
+        assertSame(first, completed.get(0).getFlowFiles());
+        assertSame(second, completed.get(1).getFlowFiles());
+        assertEquals(first, swapManager.swappedOut.get(completed.get(0).getSwapLocation()));
+        assertEquals(second, swapManager.swappedOut.get(completed.get(1).getSwapLocation()));
+        assertFalse(pipeline.hasPendingSwapOuts());
+    }
+
+    @Test(timeout = 10000)
+    public void testReclaimSwapOutThatHasNotStarted() throws InterruptedException {
+        swapExecutor = new SwapExecutor(1, 1);
+        final SwapPipeline busyPipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+
+        // occupy the only swap-out thread
+        swapManager.blockNextSwapOut();
+        assertTrue(busyPipeline.swapOut(createFlowFiles(10)));
+        swapManager.awaitBlockedSwapOut();
+        assertNull(busyPipeline.reclaimOldestSwapOut());
+
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+        assertTrue(pipeline.swapOut(flowFiles));
+        assertSame(flowFiles, pipeline.reclaimOldestSwapOut());
+        assertFalse(pipeline.hasPendingSwapOuts());
+
+        swapManager.releaseBlockedSwapOut();
+        busyPipeline.awaitPendingSwapOuts();
+        swapExecutor.shutdown();
+        assertTrue(swapExecutor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // only the swap file that was not reclaimed should have been written
+        assertEquals(1, swapManager.swapOutCount.get());
+        assertEquals(1, swapManager.swappedOut.size());
+    }
+
+    @Test(timeout = 10000)
+    public void testSwapOutOnCallingThreadWhenBudgetExhausted() throws InterruptedException {
+        swapExecutor = new SwapExecutor(1, 1);
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+
+        swapManager.blockNextSwapOut();
+        final List<FlowFileRecord> first = createFlowFiles(10);
+        final List<FlowFileRecord> second = createFlowFiles(10);
+        final List<FlowFileRecord> third = createFlowFiles(10);
+        assertTrue(pipeline.swapOut(first)); // running
+        swapManager.awaitBlockedSwapOut();
+        assertTrue(pipeline.swapOut(second)); // waiting for the thread
+        assertTrue(pipeline.swapOut(third)); // no room; written by this thread
+        assertEquals(Thread.currentThread().getName(), swapManager.lastSwapOutThreadName);
+
+        assertTrue(pipeline.pollCompletedSwapOuts().isEmpty());
+
+        swapManager.releaseBlockedSwapOut();
+        pipeline.awaitPendingSwapOuts();
+
+        final List<CompletedSwapOut> completed = pipeline.pollCompletedSwapOuts();
+        assertEquals(3, completed.size());
+        assertSame(first, completed.get(0).getFlowFiles());
+        assertSame(second, completed.get(1).getFlowFiles());
+        assertSame(third, completed.get(2).getFlowFiles());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedSwapOutReturnsFlowFiles() throws InterruptedException {
+        swapExecutor = new SwapExecutor(1, 1);
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+        swapManager.swapOutFailure = new IOException("Intentional failure for unit test");
+
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+        assertTrue(pipeline.swapOut(flowFiles));
+        pipeline.awaitPendingSwapOuts();
+
+        final List<CompletedSwapOut> completed = pipeline.pollCompletedSwapOuts();
+        assertEquals(1, completed.size());
+        assertNull(completed.get(0).getSwapLocation());
+        assertSame(swapManager.swapOutFailure, completed.get(0).getFailure());
+        assertSame(flowFiles, completed.get(0).getFlowFiles());
+        assertEquals(0L, pipeline.getMetrics().getSwapOutCount());
+    }
+
+    @Test
+    public void testFailedSwapOutWithoutExecutor() {
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, null);
+        swapManager.swapOutFailure = new IOException("Intentional failure for unit test");
+
+        assertFalse(pipeline.swapOut(createFlowFiles(10)));
+        final List<CompletedSwapOut> completed = pipeline.pollCompletedSwapOuts();
+        assertEquals(1, completed.size());
+        assertNotNull(completed.get(0).getFailure());
+    }
+
+    @Test(timeout = 10000)
+    public void testPrefetchedSwapFileIsNotReadAgain() throws IOException, InterruptedException {
+        swapExecutor = new SwapExecutor(1, 1);
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+        final String swapLocation = swapManager.swapOut(flowFiles, flowFileQueue);
+
+        pipeline.prefetch(swapLocation);
+        while (pipeline.isPrefetchInProgress(swapLocation)) {
+            Thread.sleep(10L);
+        }
+        assertEquals(1, swapManager.swapInCount.get());
+
+        final SwapContents contents = pipeline.swapIn(swapLocation);
+        assertEquals(flowFiles, contents.getFlowFiles());
+        assertEquals(1, swapManager.swapInCount.get());
+        assertEquals(1L, pipeline.getMetrics().getSwapInCount());
+        assertEquals(1L, pipeline.getMetrics().getPrefetchHitCount());
+    }
+
+    @Test
+    public void testSwapInWithoutPrefetch() throws IOException {
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, null);
+
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+        final String swapLocation = swapManager.swapOut(flowFiles, flowFileQueue);
+
+        pipeline.prefetch(swapLocation); // no executor, so nothing happens
+        assertFalse(pipeline.isPrefetchInProgress(swapLocation));
+        assertEquals(0, swapManager.swapInCount.get());
+
+        assertEquals(flowFiles, pipeline.swapIn(swapLocation).getFlowFiles());
+        assertEquals(1L, pipeline.getMetrics().getSwapInCount());
+        assertEquals(0L, pipeline.getMetrics().getPrefetchHitCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testPrefetchFailureIsThrownOnSwapIn() throws InterruptedException {
+        swapExecutor = new SwapExecutor(1, 1);
+        final SwapPipeline pipeline = new SwapPipeline(swapManager, flowFileQueue, swapExecutor);
+
+        pipeline.prefetch("does-not-exist");
+        try {
+            pipeline.swapIn("does-not-exist");
+            fail("Expected IOException");
+        } catch (final IOException expected) {
+        }
+
+        // once the failure has been reported, the swap file may be read again
+        assertFalse(pipeline.isPrefetchInProgress("does-not-exist"));
+    }
+
+    private static class InMemorySwapManager implements FlowFileSwapManager {
+        private final Map<String, List<FlowFileRecord>> swappedOut = new ConcurrentHashMap<>();
+        private final AtomicInteger swapOutCount = new AtomicInteger(0);
+        private final AtomicInteger swapInCount = new AtomicInteger(0);
+
+        private volatile IOException swapOutFailure;
+        private volatile String lastSwapOutThreadName;
+        private final AtomicBoolean blockNext = new AtomicBoolean(false);
+        private volatile CountDownLatch blockedLatch;
+        private volatile CountDownLatch releaseLatch;
+
+        void blockNextSwapOut() {
+            blockedLatch = new CountDownLatch(1);
+            releaseLatch = new CountDownLatch(1);
+            blockNext.set(true);
+        }
+
+        void awaitBlockedSwapOut() throws InterruptedException {
+            blockedLatch.await();
+        }
+
+        void releaseBlockedSwapOut() {
+            if (releaseLatch != null) {
+                releaseLatch.countDown();
+            }
+        }
+
+        @Override
+        public void initialize(final SwapManagerInitializationContext initializationContext) {
+        }
+
+        @Override
+        public String swapOut(final List<FlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue) throws IOException {
+            lastSwapOutThreadName = Thread.currentThread().getName();
+
+            if (blockNext.compareAndSet(true, false)) {
+                blockedLatch.countDown();
+                try {
+                    releaseLatch.await();
+                } catch (final InterruptedException ie) {
+                    throw new IOException(ie);
+                }
+            }
+
+            if (swapOutFailure != null) {
+                throw swapOutFailure;
+            }
+
+            final String location = UUID.randomUUID().toString();
+            swappedOut.put(location, new ArrayList<>(flowFiles));
+            swapOutCount.incrementAndGet();
+            return location;
+        }
+
+        @Override
+        public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            swapInCount.incrementAndGet();
+            final SwapContents contents = peek(swapLocation, flowFileQueue);
+            swappedOut.remove(swapLocation);
+            return contents;
+        }
+
+        @Override
+        public SwapContents peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+            final List<FlowFileRecord> flowFiles = swappedOut.get(swapLocation);
+            if (flowFiles == null) {
+                throw new IOException("No Swap File " + swapLocation);
+            }
+            return new StandardSwapContents(getSwapSummary(swapLocation), flowFiles);
+        }
+
+        @Override
+        public List<String> recoverSwapLocations(final FlowFileQueue flowFileQueue) {
+            return new ArrayList<>(swappedOut.keySet());
+        }
+
+        @Override
+        public SwapSummary getSwapSummary(final String swapLocation) {
+            final List<FlowFileRecord> flowFiles = swappedOut.get(swapLocation);
+            if (flowFiles == null) {
+                return StandardSwapSummary.EMPTY_SUMMARY;
+            }
+
+            long bytes = 0L;
+            for (final FlowFileRecord flowFile : flowFiles) {
+                bytes += flowFile.getSize();
+            }
+            return new StandardSwapSummary(new QueueSize(flowFiles.size(), bytes), null, Collections.<ResourceClaim> emptyList());
+        }
+
+        @Override
+        public void purge() {
+            swappedOut.clear();
+        }
+    }
+}
@@ -20,11 +20,38 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
 import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.ProcessorNode;
 import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.ContentRepository;
+import org.apache.nifi.controller.repository.CounterRepository;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.ProcessContext;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.scheduling.AdaptiveBatchSizer;
+import org.apache.nifi.controller.scheduling.DummyScheduleState;
+import org.apache.nifi.controller.scheduling.ProcessContextFactory;
+import org.apache.nifi.controller.scheduling.SchedulingAgent;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessSessionFactory;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.StandardProcessContext;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
 import org.apache.nifi.util.NiFiProperties;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -78,4 +105,50 @@ public class TestContinuallyRunProcessorTask {
         assertTrue(ContinuallyRunProcessorTask.isWorkToDo(procNode));
     }
 
+    @Test
+    public void testBatchSizerIsGivenFlowFilesProcessed() {
+        System.setProperty(NiFiProperties.PROPERTIES_FILE_PATH, TestContinuallyRunProcessorTask.class.getResource("/conf/nifi.properties").getFile());
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            flowFiles.add(new StandardFlowFileRecord.Builder().id(i).addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString()).build());
+        }
+
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.isActiveQueueEmpty()).thenReturn(false);
+        when(flowFileQueue.size()).thenReturn(new QueueSize(500, 0L));
+
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        final Connection connection = Mockito.mock(Connection.class);
+        when(connection.getSource()).thenReturn(Mockito.mock(ProcessorNode.class));
+        when(connection.getDestination()).thenReturn(procNode);
+        when(connection.getFlowFileQueue()).thenReturn(flowFileQueue);
+        when(connection.poll(Mockito.any(FlowFileFilter.class), Mockito.anySetOf(FlowFileRecord.class))).thenReturn(flowFiles);
+
+        when(procNode.getIdentifier()).thenReturn("processor-1");
+        when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        when(procNode.getProcessor()).thenReturn(Mockito.mock(Processor.class));
+        when(procNode.hasIncomingConnection()).thenReturn(true);
+        when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+
+        // The Processor handles all of the FlowFiles that it is given in a single invocation
+        Mockito.doAnswer(invocation -> {
+            final ProcessSession session = invocation.getArgumentAt(1, ProcessSessionFactory.class).createSession();
+            session.transfer(session.get(100), Relationship.SELF);
+            return null;
+        }).when(procNode).onTrigger(Mockito.any(org.apache.nifi.processor.ProcessContext.class), Mockito.any(ProcessSessionFactory.class));
+
+        final ProcessContext context = new ProcessContext(procNode, new AtomicLong(0L), Mockito.mock(ContentRepository.class), Mockito.mock(FlowFileRepository.class),
+            Mockito.mock(FlowFileEventRepository.class), Mockito.mock(CounterRepository.class), Mockito.mock(ProvenanceEventRepository.class));
+        final ProcessContextFactory contextFactory = Mockito.mock(ProcessContextFactory.class);
+        when(contextFactory.newProcessContext(Mockito.any(Connectable.class), Mockito.any(AtomicLong.class))).thenReturn(context);
+
+        final AdaptiveBatchSizer batchSizer = Mockito.mock(AdaptiveBatchSizer.class);
+        final ContinuallyRunProcessorTask task = new ContinuallyRunProcessorTask(Mockito.mock(SchedulingAgent.class), procNode, Mockito.mock(FlowController.class),
+            contextFactory, new DummyScheduleState(true), new StandardProcessContext(procNode, null, null, null), batchSizer);
+        assertFalse(task.call());
+
+        // The batch is sized by the number of FlowFiles that it processed, not by the number of times that the Processor was triggered
+        Mockito.verify(batchSizer).onBatchCompleted(Mockito.anyLong(), Mockito.anyLong(), Mockito.eq(100), Mockito.eq(500L));
+    }
 }
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * An immutable Map of FlowFile attributes that stores its keys and values in two flat arrays rather than in
+ * a hash table, so that each FlowFile pays for two array slots per attribute instead of a hash table entry.
+ * Keys are kept sorted, and lookups are performed with a binary search.
+ * </p>
+ *
+ * <p>
+ * FlowFiles that are split from the same parent typically have the same attribute names and many of the same
+ * values. To take advantage of this, the array of keys is shared between all maps that have the same set of
+ * keys, and short keys and values are interned, so that each distinct String is held only once. Interning is
+ * performed with fixed-size caches in which a new String simply replaces whatever String previously occupied
+ * its slot, so that attribute values that are unique to each FlowFile, such as a UUID, cannot cause the caches
+ * to grow without bound.
+ * </p>
+ *
+ * <b>Immutable - Thread Safe</b>
+ */
+public final class CompactAttributeMap extends AbstractMap<String, String> {
+    private static final String[] EMPTY_ARRAY = new String[0];
+    public static final CompactAttributeMap EMPTY = new CompactAttributeMap(EMPTY_ARRAY, EMPTY_ARRAY);
+
+    private static final int MAX_INTERNED_LENGTH = 64;
+    private static final AtomicReferenceArray<String> STRING_CACHE = new AtomicReferenceArray<>(8192);
+    private static final AtomicReferenceArray<String[]> KEY_SET_CACHE = new AtomicReferenceArray<>(1024);
+
+    private final String[] keys;
+    private final String[] values;
+
+    private CompactAttributeMap(final String[] keys, final String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Creates a CompactAttributeMap that contains the same mappings as the given Map. Any mapping whose key or value is <code>null</code> is ignored.
+     *
+     * @param attributes the attributes to copy
+     * @return a CompactAttributeMap with the same attributes as the given Map
+     */
+    public static CompactAttributeMap copyOf(final Map<String, String> attributes) {
+        if (attributes instanceof CompactAttributeMap) {
+            return (CompactAttributeMap) attributes;
+        }
+        if (attributes == null || attributes.isEmpty()) {
+            return EMPTY;
+        }
+
+        final TreeMap<String, String> sorted = new TreeMap<>();
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                sorted.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return create(sorted);
+    }
+
+    /**
+     * Creates a CompactAttributeMap that contains the mappings of the given base Map, updated with the given changes. If the changes only replace
+     * the values of existing attributes, the returned map shares its keys with the base map.
+     *
+     * @param base the attributes to start from, or <code>null</code> to start from no attributes
+     * @param changes a mapping of attribute name to its new value, or to <code>null</code> if the attribute is to be removed; may be <code>null</code>
+     * @return a CompactAttributeMap with the given changes applied to the base attributes
+     */
+    public static CompactAttributeMap copyOf(final Map<String, String> base, final Map<String, String> changes) {
+        final CompactAttributeMap compactBase = copyOf(base);
+        if (changes == null || changes.isEmpty()) {
+            return compactBase;
+        }
+
+        return compactBase.apply(changes);
+    }
+
+    private CompactAttributeMap apply(final Map<String, String> changes) {
+        // Most changes update the values of attributes that already exist, such as a clone receiving a new UUID.
+        // In that case, only the values need to be copied, and the keys can be shared with this map.
+        String[] updatedValues = null;
+        for (final Map.Entry<String, String> change : changes.entrySet()) {
+            final String value = change.getValue();
+            final int index = indexOf(change.getKey());
+            if (index < 0 || value == null) {
+                return applyStructuralChanges(changes);
+            }
+
+            if (!value.equals(values[index])) {
+                if (updatedValues == null) {
+                    updatedValues = values.clone();
+                }
+                updatedValues[index] = intern(value);
+            }
+        }
+
+        return updatedValues == null ? this : new CompactAttributeMap(keys, updatedValues);
+    }
+
+    private CompactAttributeMap applyStructuralChanges(final Map<String, String> changes) {
+        final TreeMap<String, String> sorted = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            sorted.put(keys[i], values[i]);
+        }
+
+        for (final Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                sorted.remove(change.getKey());
+            } else {
+                sorted.put(change.getKey(), change.getValue());
+            }
+        }
+
+        return create(sorted);
+    }
+
+    private static CompactAttributeMap create(final TreeMap<String, String> sorted) {
+        if (sorted.isEmpty()) {
+            return EMPTY;
+        }
+
+        final String[] keys = new String[sorted.size()];
+        final String[] values = new String[sorted.size()];
+        int i = 0;
+        for (final Map.Entry<String, String> entry : sorted.entrySet()) {
+            keys[i] = intern(entry.getKey());
+            values[i] = intern(entry.getValue());
+            i++;
+        }
+
+        return new CompactAttributeMap(internKeys(keys), values);
+    }
+
+    private static String intern(final String value) {
+        if (value.length() > MAX_INTERNED_LENGTH) {
+            return value;
+        }
+
+        final int slot = value.hashCode() & (STRING_CACHE.length() - 1);
+        final String cached = STRING_CACHE.get(slot);
+        if (value.equals(cached)) {
+            return cached;
+        }
+
+        STRING_CACHE.lazySet(slot, value);
+        return value;
+    }
+
+    private static String[] internKeys(final String[] keys) {
+        final int slot = Arrays.hashCode(keys) & (KEY_SET_CACHE.length() - 1);
+        final String[] cached = KEY_SET_CACHE.get(slot);
+        if (Arrays.equals(keys, cached)) {
+            return cached;
+        }
+
+        KEY_SET_CACHE.lazySet(slot, keys);
+        return keys;
+    }
+
+    private int indexOf(final Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+
+        return Arrays.binarySearch(keys, (String) key);
+    }
+
+    @Override
+    public String get(final Object key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<Map.Entry<String, String>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if (index >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+
+                        final Map.Entry<String, String> entry = new AbstractMap.SimpleImmutableEntry<>(keys[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+}
@@ -16,10 +16,9 @@
  */
 package org.apache.nifi.controller.repository;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -49,7 +48,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
     private final long lineageStartIndex;
     private final long size;
     private final long penaltyExpirationMs;
-    private final Map<String, String> attributes;
+    private final CompactAttributeMap attributes;
     private final ContentClaim claim;
     private final long claimOffset;
     private final long lastQueueDate;
@@ -57,7 +56,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     private StandardFlowFileRecord(final Builder builder) {
         this.id = builder.bId;
-        this.attributes = builder.bAttributes == null ? Collections.emptyMap() : builder.bAttributes;
+        this.attributes = CompactAttributeMap.copyOf(builder.bAttributes, builder.bAttributeChanges);
         this.entryDate = builder.bEntryDate;
         this.lineageStartDate = builder.bLineageStartDate;
         this.lineageStartIndex = builder.bLineageStartIndex;
@@ -106,7 +105,8 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     @Override
     public Map<String, String> getAttributes() {
-        return Collections.unmodifiableMap(this.attributes);
+        // CompactAttributeMap is immutable, so there is no need to wrap it in an unmodifiable Map
+        return this.attributes;
     }
 
     @Override
@@ -173,7 +173,6 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         private long bEntryDate = System.currentTimeMillis();
         private long bLineageStartDate = bEntryDate;
         private long bLineageStartIndex = 0L;
-        private final Set<String> bLineageIdentifiers = new HashSet<>();
         private long bPenaltyExpirationMs = -1L;
         private long bSize = 0L;
         private ContentClaim bClaim = null;
@@ -181,7 +180,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         private long bLastQueueDate = System.currentTimeMillis();
         private long bQueueDateIndex = 0L;
         private Map<String, String> bAttributes;
-        private boolean bAttributesCopied = false;
+        private Map<String, String> bAttributeChanges;
 
         public Builder id(final long id) {
             bId = id;
@@ -211,37 +210,38 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             return this;
         }
 
-        private Map<String, String> initializeAttributes() {
-            if (bAttributes == null) {
-                bAttributes = new HashMap<>();
-                bAttributesCopied = true;
-            } else if (!bAttributesCopied) {
-                bAttributes = new HashMap<>(bAttributes);
-                bAttributesCopied = true;
+        /**
+         * The attributes that the builder started with are never modified, so that they can be shared with the FlowFile that they
+         * came from. Instead, changes are recorded separately, with a value of <code>null</code> indicating that the attribute is
+         * to be removed, and are applied when the FlowFile is built.
+         */
+        private Map<String, String> initializeAttributeChanges() {
+            if (bAttributeChanges == null) {
+                bAttributeChanges = new HashMap<>();
             }
 
-            return bAttributes;
+            return bAttributeChanges;
         }
 
         public Builder addAttribute(final String key, final String value) {
             if (key != null && value != null) {
-                initializeAttributes().put(FlowFile.KeyValidator.validateKey(key), value);
+                initializeAttributeChanges().put(FlowFile.KeyValidator.validateKey(key), value);
             }
             return this;
         }
 
         public Builder addAttributes(final Map<String, String> attributes) {
-            final Map<String, String> initializedAttributes = initializeAttributes();
-
             if (null != attributes) {
                 for (final String key : attributes.keySet()) {
                     FlowFile.KeyValidator.validateKey(key);
                 }
+
+                final Map<String, String> attributeChanges = initializeAttributeChanges();
                 for (final Map.Entry<String, String> entry : attributes.entrySet()) {
                     final String key = entry.getKey();
                     final String value = entry.getValue();
                     if (key != null && value != null) {
-                        initializedAttributes.put(key, value);
+                        attributeChanges.put(key, value);
                     }
                 }
             }
@@ -251,11 +251,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         public Builder removeAttributes(final String... keys) {
             if (keys != null) {
                 for (final String key : keys) {
-                    if (CoreAttributes.UUID.key().equals(key)) {
-                        continue;
-                    }
-
-                    initializeAttributes().remove(key);
+                    removeAttribute(key);
                 }
             }
             return this;
@@ -264,11 +260,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         public Builder removeAttributes(final Set<String> keys) {
             if (keys != null) {
                 for (final String key : keys) {
-                    if (CoreAttributes.UUID.key().equals(key)) {
-                        continue;
-                    }
-
-                    initializeAttributes().remove(key);
+                    removeAttribute(key);
                 }
             }
             return this;
@@ -276,22 +268,35 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
         public Builder removeAttributes(final Pattern keyPattern) {
             if (keyPattern != null) {
-                final Iterator<String> iterator = initializeAttributes().keySet().iterator();
-                while (iterator.hasNext()) {
-                    final String key = iterator.next();
-
-                    if (CoreAttributes.UUID.key().equals(key)) {
-                        continue;
-                    }
+                final List<String> candidateKeys = new ArrayList<>();
+                if (bAttributes != null) {
+                    candidateKeys.addAll(bAttributes.keySet());
+                }
+                if (bAttributeChanges != null) {
+                    candidateKeys.addAll(bAttributeChanges.keySet());
+                }
 
+                for (final String key : candidateKeys) {
                     if (keyPattern.matcher(key).matches()) {
-                        iterator.remove();
+                        removeAttribute(key);
                     }
                 }
             }
             return this;
         }
 
+        private void removeAttribute(final String key) {
+            if (key == null || CoreAttributes.UUID.key().equals(key)) {
+                return;
+            }
+
+            if (bAttributes != null && bAttributes.containsKey(key)) {
+                initializeAttributeChanges().put(key, null);
+            } else if (bAttributeChanges != null) {
+                bAttributeChanges.remove(key);
+            }
+        }
+
         public Builder contentClaim(final ContentClaim claim) {
             this.bClaim = claim;
             return this;
@@ -316,16 +321,15 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             bEntryDate = specFlowFile.getEntryDate();
             bLineageStartDate = specFlowFile.getLineageStartDate();
             bLineageStartIndex = specFlowFile.getLineageStartIndex();
-            bLineageIdentifiers.clear();
             bPenaltyExpirationMs = specFlowFile.getPenaltyExpirationMillis();
             bSize = specFlowFile.getSize();
-            // If this is a StandardFlowFileRecord, access the attributes map directly. Do not use the
-            // getAttributes() method, because that will wrap the original in an UnmodifiableMap. As a result,
-            // a Processor that continually calls session.append() for instance will have a FlowFile whose attributes
-            // Map is wrapped thousands of times until it hits a StackOverflowError. We want the getter to return
-            // UnmodifiableMap, though, so that Processors cannot directly modify that Map.
+            // If this is a StandardFlowFileRecord, share its attributes map directly. The map is immutable, and the changes
+            // that are made through this builder are applied to a copy when the FlowFile is built, so that FlowFiles whose
+            // attributes have not changed do not each hold their own copy. Any other Map is copied when the FlowFile is built,
+            // so that a Processor that continually calls session.append(), for instance, cannot cause the Map to be wrapped
+            // repeatedly until it hits a StackOverflowError.
             bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes : specFlowFile.getAttributes();
-            bAttributesCopied = false;
+            bAttributeChanges = null;
             bClaim = specFlowFile.getContentClaim();
             bClaimOffset = specFlowFile.getContentClaimOffset();
             bLastQueueDate = specFlowFile.getLastQueueDate();
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class TestCompactAttributeMap {
+
+    @Test
+    public void testMatchesHashMap() {
+        final Random random = new Random(42L);
+        final List<String> keyPool = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keyPool.add("key-" + i);
+        }
+
+        Map<String, String> oracle = new HashMap<>();
+        CompactAttributeMap map = CompactAttributeMap.EMPTY;
+        for (int i = 0; i < 5000; i++) {
+            final Map<String, String> changes = new HashMap<>();
+            final int numChanges = 1 + random.nextInt(3);
+            for (int j = 0; j < numChanges; j++) {
+                final String key = keyPool.get(random.nextInt(keyPool.size()));
+                final String value = random.nextInt(4) == 0 ? null : randomValue(random);
+                changes.put(key, value);
+            }
+
+            final Map<String, String> expected = new HashMap<>(oracle);
+            for (final Map.Entry<String, String> change : changes.entrySet()) {
+                if (change.getValue() == null) {
+                    expected.remove(change.getKey());
+                } else {
+                    expected.put(change.getKey(), change.getValue());
+                }
+            }
+
+            final CompactAttributeMap updated = CompactAttributeMap.copyOf(map, changes);
+            assertMatches(expected, updated, keyPool);
+
+            // the map that the changes were applied to is unaffected
+            assertMatches(oracle, map, keyPool);
+
+            oracle = expected;
+            map = updated;
+        }
+    }
+
+    private String randomValue(final Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return "value-" + random.nextInt(10);
+            case 1:
+                return UUID.randomUUID().toString();
+            default:
+                // longer than any String that is interned
+                final StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 100; i++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+                return sb.toString();
+        }
+    }
+
+    private void assertMatches(final Map<String, String> expected, final CompactAttributeMap actual, final List<String> candidateKeys) {
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertEquals(expected.entrySet(), actual.entrySet());
+
+        for (final String key : candidateKeys) {
+            assertEquals(expected.get(key), actual.get(key));
+            assertEquals(expected.containsKey(key), actual.containsKey(key));
+        }
+
+        // entries are iterated in order of their keys
+        assertEquals(new ArrayList<>(new TreeMap<>(expected).keySet()), new ArrayList<>(actual.keySet()));
+    }
+
+    @Test
+    public void testCopyOf() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("b", "2");
+        attributes.put("a", "1");
+        attributes.put("null-value", null);
+        attributes.put(null, "null-key");
+
+        final CompactAttributeMap map = CompactAttributeMap.copyOf(attributes);
+        assertEquals(2, map.size());
+        assertEquals("1", map.get("a"));
+        assertEquals("2", map.get("b"));
+        assertFalse(map.containsKey("null-value"));
+        assertFalse(map.containsKey(null));
+        assertNull(map.get(1));
+
+        assertSame(map, CompactAttributeMap.copyOf(map));
+        assertSame(CompactAttributeMap.EMPTY, CompactAttributeMap.copyOf(null));
+        assertSame(CompactAttributeMap.EMPTY, CompactAttributeMap.copyOf(Collections.emptyMap()));
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", UUID.randomUUID().toString());
+        attributes.put("filename", "file.txt");
+        final CompactAttributeMap original = CompactAttributeMap.copyOf(attributes);
+
+        // changing only the value of an existing attribute
+        final String newUuid = UUID.randomUUID().toString();
+        final CompactAttributeMap newValue = CompactAttributeMap.copyOf(original, Collections.singletonMap("uuid", newUuid));
+        assertEquals(newUuid, newValue.get("uuid"));
+        assertEquals("file.txt", newValue.get("filename"));
+        assertEquals(attributes, original);
+
+        // adding an attribute
+        final CompactAttributeMap added = CompactAttributeMap.copyOf(original, Collections.singletonMap("path", "/"));
+        assertEquals(3, added.size());
+        assertEquals("/", added.get("path"));
+        assertEquals(attributes, original);
+
+        // removing an attribute
+        final CompactAttributeMap removed = CompactAttributeMap.copyOf(added, Collections.singletonMap("filename", null));
+        assertEquals(2, removed.size());
+        assertFalse(removed.containsKey("filename"));
+        assertEquals("file.txt", added.get("filename"));
+        assertEquals(attributes, original);
+
+        // removing every attribute
+        final Map<String, String> removeAll = new HashMap<>();
+        removeAll.put("uuid", null);
+        removeAll.put("filename", null);
+        assertSame(CompactAttributeMap.EMPTY, CompactAttributeMap.copyOf(original, removeAll));
+
+        // changes that do not change anything
+        assertSame(original, CompactAttributeMap.copyOf(original, Collections.singletonMap("filename", "file.txt")));
+        assertSame(original, CompactAttributeMap.copyOf(original, Collections.emptyMap()));
+        assertSame(original, CompactAttributeMap.copyOf(original, null));
+    }
+
+    @Test
+    public void testImmutable() {
+        final CompactAttributeMap map = CompactAttributeMap.copyOf(Collections.singletonMap("a", "1"));
+
+        try {
+            map.put("b", "2");
+            fail("Was able to add an attribute");
+        } catch (final UnsupportedOperationException expected) {
+        }
+
+        try {
+            map.remove("a");
+            fail("Was able to remove an attribute");
+        } catch (final UnsupportedOperationException expected) {
+        }
+
+        try {
+            map.entrySet().iterator().next().setValue("2");
+            fail("Was able to change an attribute");
+        } catch (final UnsupportedOperationException expected) {
+        }
+
+        final Iterator<Map.Entry<String, String>> itr = map.entrySet().iterator();
+        itr.next();
+        try {
+            itr.remove();
+            fail("Was able to remove an attribute using the iterator");
+        } catch (final UnsupportedOperationException expected) {
+        }
+
+        assertEquals(Collections.singletonMap("a", "1"), map);
+    }
+
+    @Test
+    public void testInternCachesFull() {
+        // Create far more distinct short Strings and distinct sets of keys than the caches have slots, so that every slot
+        // is replaced many times. The caches only determine which String instances are shared, so every map must still
+        // hold exactly its own attributes.
+        final int numMaps = 20000;
+        final List<Map<String, String>> expected = new ArrayList<>(numMaps);
+        final List<CompactAttributeMap> maps = new ArrayList<>(numMaps);
+        for (int i = 0; i < numMaps; i++) {
+            final Map<String, String> attributes = new HashMap<>();
+            attributes.put("common", "shared-value");
+            attributes.put("key-" + i, "value-" + i);
+            attributes.put("other-key-" + (i % 3000), String.valueOf(i));
+
+            expected.add(attributes);
+            maps.add(CompactAttributeMap.copyOf(attributes));
+        }
+
+        for (int i = 0; i < numMaps; i++) {
+            assertEquals(expected.get(i), maps.get(i));
+        }
+
+        // maps with the same attributes are equal whether or not their Strings were shared
+        for (int i = 0; i < numMaps; i += 997) {
+            final CompactAttributeMap copy = CompactAttributeMap.copyOf(new HashMap<>(expected.get(i)));
+            assertEquals(maps.get(i), copy);
+            assertEquals(maps.get(i).hashCode(), copy.hashCode());
+        }
+
+        assertTrue(maps.get(0).containsKey("key-0"));
+        assertFalse(maps.get(0).containsKey("key-1"));
+    }
+}
@@ -33,8 +33,6 @@ import org.apache.nifi.remote.cluster.NodeInformant;
 import org.apache.nifi.remote.codec.FlowFileCodec;
 import org.apache.nifi.remote.exception.HandshakeException;
 import org.apache.nifi.remote.exception.ProtocolException;
-import org.apache.nifi.remote.io.CompressionInputStream;
-import org.apache.nifi.remote.io.CompressionOutputStream;
 import org.apache.nifi.remote.util.StandardDataPacket;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.StopWatch;
@@ -53,6 +51,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedInputStream;
 import java.util.zip.CheckedOutputStream;
@@ -238,19 +237,16 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
         long bytesSent = 0L;
         final Set<FlowFile> flowFilesSent = new HashSet<>();
         final CRC32 crc = new CRC32();
+        final AtomicInteger framesSent = new AtomicInteger(0);
+        codec.reset();
 
         // send data until we reach some batch size
         boolean continueTransaction = true;
         final long startNanos = System.nanoTime();
         String calculatedCRC = "";
-        OutputStream os = new DataOutputStream(commsSession.getOutput().getOutputStream());
         while (continueTransaction) {
-            final boolean useGzip = handshakeProperties.isUseGzip();
-            final OutputStream flowFileOutputStream = useGzip ? new CompressionOutputStream(os) : os;
             logger.debug("{} Sending {} to {}", new Object[]{this, flowFile, peer});
 
-            final CheckedOutputStream checkedOutputStream = new CheckedOutputStream(flowFileOutputStream, crc);
-
             final StopWatch transferWatch = new StopWatch(true);
 
             final FlowFile toSend = flowFile;
@@ -258,19 +254,23 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
                 @Override
                 public void process(final InputStream in) throws IOException {
                     final DataPacket dataPacket = new StandardDataPacket(toSend.getAttributes(), in, toSend.getSize());
-                    codec.encode(dataPacket, checkedOutputStream);
+                    if (codec.buffer(dataPacket)) {
+                        return;
+                    }
+
+                    if (codec.hasBufferedPackets()) {
+                        sendFrame(peer, codec, null, crc, framesSent);
+                        if (codec.buffer(dataPacket)) {
+                            return;
+                        }
+                    }
+
+                    sendFrame(peer, codec, dataPacket, crc, framesSent);
                 }
             });
 
             final long transmissionMillis = transferWatch.getElapsed(TimeUnit.MILLISECONDS);
 
-            // need to close the CompressionOutputStream in order to force it write out any remaining bytes.
-            // Otherwise, do NOT close it because we don't want to close the underlying stream
-            // (CompressionOutputStream will not close the underlying stream when it's closed)
-            if (useGzip) {
-                checkedOutputStream.close();
-            }
-
             flowFilesSent.add(flowFile);
             bytesSent += flowFile.getSize();
 
@@ -306,13 +306,14 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
             }
 
             continueTransaction = (flowFile != null);
-            if (continueTransaction) {
-                logger.debug("{} Sending ContinueTransaction indicator to {}", this, peer);
-                writeTransactionResponse(true, ResponseCode.CONTINUE_TRANSACTION, commsSession);
-            } else {
+            if (!continueTransaction) {
+                if (codec.hasBufferedPackets()) {
+                    sendFrame(peer, codec, null, crc, framesSent);
+                }
+
                 logger.debug("{} Sending FinishTransaction indicator to {}", this, peer);
                 writeTransactionResponse(true, ResponseCode.FINISH_TRANSACTION, commsSession);
-                calculatedCRC = String.valueOf(checkedOutputStream.getChecksum().getValue());
+                calculatedCRC = String.valueOf(crc.getValue());
             }
         }
 
@@ -321,6 +322,36 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
 
     }
 
+    /**
+     * Writes the given DataPacket to the peer or, if it is <code>null</code>, the DataPackets that the codec has buffered.
+     * Every frame but the first is preceded by a Continue Transaction indicator.
+     */
+    private void sendFrame(final Peer peer, final FlowFileCodec codec, final DataPacket dataPacket, final CRC32 crc, final AtomicInteger framesSent) throws IOException {
+        final CommunicationsSession commsSession = peer.getCommunicationsSession();
+        if (framesSent.getAndIncrement() > 0) {
+            logger.debug("{} Sending ContinueTransaction indicator to {}", this, peer);
+            writeTransactionResponse(true, ResponseCode.CONTINUE_TRANSACTION, commsSession);
+        }
+
+        final OutputStream os = new DataOutputStream(commsSession.getOutput().getOutputStream());
+        final boolean useGzip = handshakeProperties.isUseGzip();
+        final OutputStream flowFileOutputStream = useGzip ? codec.getBlockCompressor().compress(os) : os;
+        final CheckedOutputStream checkedOutputStream = new CheckedOutputStream(flowFileOutputStream, crc);
+
+        if (dataPacket == null) {
+            codec.flush(checkedOutputStream);
+        } else {
+            codec.encode(dataPacket, checkedOutputStream);
+        }
+
+        // need to close the compressing stream in order to force it write out any remaining bytes.
+        // Otherwise, do NOT close it because we don't want to close the underlying stream
+        // (the BlockCompressor's stream will not close the underlying stream when it's closed)
+        if (useGzip) {
+            checkedOutputStream.close();
+        }
+    }
+
     protected String createTransitUri(Peer peer, String sourceFlowFileIdentifier) {
         return peer.createTransitUri(sourceFlowFileIdentifier);
     }
@@ -434,9 +465,10 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
         final Set<FlowFile> flowFilesReceived = new HashSet<>();
         long bytesReceived = 0L;
         boolean continueTransaction = true;
+        codec.reset();
         while (continueTransaction) {
             final long startNanos = System.nanoTime();
-            final InputStream flowFileInputStream = handshakeProperties.isUseGzip() ? new CompressionInputStream(dis) : dis;
+            final InputStream flowFileInputStream = handshakeProperties.isUseGzip() ? codec.getBlockCompressor().decompress(dis) : dis;
             final CheckedInputStream checkedInputStream = new CheckedInputStream(flowFileInputStream, crc);
 
             final DataPacket dataPacket = codec.decode(checkedInputStream);
@@ -450,7 +482,7 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
             flowFile = session.putAllAttributes(flowFile, dataPacket.getAttributes());
 
             if (handshakeProperties.isUseGzip()) {
-                // Close CompressionInputStream to free acquired memory, without closing underlying stream.
+                // Close the decompressing stream to free acquired memory, without closing underlying stream.
                 checkedInputStream.close();
             }
 
@@ -475,6 +507,11 @@ public abstract class AbstractFlowFileServerProtocol implements ServerProtocol {
             flowFilesReceived.add(flowFile);
             bytesReceived += flowFile.getSize();
 
+            if (codec.hasBufferedPackets()) {
+                // the rest of the batch frame has already been read, and the peer sends no indicator within a frame
+                continue;
+            }
+
             final Response transactionResponse = readTransactionResponse(false, commsSession);
             switch (transactionResponse.getCode()) {
                 case CONTINUE_TRANSACTION:
@@ -31,7 +31,9 @@ import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
 import org.apache.nifi.remote.cluster.ClusterNodeInformation;
 import org.apache.nifi.remote.cluster.NodeInformation;
+import org.apache.nifi.remote.codec.BlockCompressors;
 import org.apache.nifi.remote.codec.FlowFileCodec;
+import org.apache.nifi.remote.codec.StandardFlowFileCodec;
 import org.apache.nifi.remote.exception.HandshakeException;
 import org.apache.nifi.remote.exception.ProtocolException;
 import org.apache.nifi.remote.protocol.AbstractFlowFileServerProtocol;
@@ -45,7 +47,7 @@ public class SocketFlowFileServerProtocol extends AbstractFlowFileServerProtocol
     public static final String RESOURCE_NAME = "SocketFlowFileProtocol";
 
     // Version 6 added to support Zero-Master Clustering, which was introduced in NiFi 1.0.0
-    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(6, 5, 4, 3, 2, 1);
+    private final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(7, 6, 5, 4, 3, 2, 1);
 
     @Override
     protected HandshakeProperties doHandshake(Peer peer) throws IOException, HandshakeException {
@@ -126,6 +128,10 @@ public class SocketFlowFileServerProtocol extends AbstractFlowFileServerProtocol
         // Negotiate the FlowFileCodec to use.
         try {
             negotiatedFlowFileCodec = RemoteResourceFactory.receiveCodecNegotiation(dis, dos);
+            if (negotiatedFlowFileCodec.getVersionNegotiator().getVersion() >= StandardFlowFileCodec.BATCH_FRAME_VERSION) {
+                // peers that use the version of the codec that writes batch frames also negotiate how the frames are compressed
+                negotiatedFlowFileCodec.setBlockCompressor(BlockCompressors.receiveProposal(dis, dos));
+            }
             logger.debug("{} Negotiated Codec {} with {}", new Object[]{this, negotiatedFlowFileCodec, peer});
             return negotiatedFlowFileCodec;
         } catch (final HandshakeException e) {
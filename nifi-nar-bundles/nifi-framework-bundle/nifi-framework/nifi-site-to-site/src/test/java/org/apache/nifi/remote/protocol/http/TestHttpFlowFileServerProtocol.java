@@ -596,5 +596,43 @@ public class TestHttpFlowFileServerProtocol {
         }
     }
 
+    @Test
+    public void testReceiveTwoFilesInBatchFrame() throws Exception {
+        final String transactionId = "testReceiveTwoFilesInBatchFrame";
+        final HttpFlowFileServerProtocol serverProtocol = getDefaultHttpFlowFileServerProtocol();
+        final Peer peer = getDefaultPeer(transactionId);
+        final HttpServerCommunicationsSession commsSession = (HttpServerCommunicationsSession) peer.getCommunicationsSession();
+        commsSession.setUserDn("unit-test");
+        commsSession.setDataTransferUrl("https://remote-host:8443/nifi-api/input-ports/port-id/transactions/" + transactionId + "/flow-files");
+
+        serverProtocol.handshake(peer);
+        assertTrue(serverProtocol.isHandshakeSuccessful());
+
+        setupMockProcessSession();
+
+        // Emulate a Site-to-Site client that sends both dataPackets in a single batch frame.
+        final FlowFileCodec negotiatedCodec = serverProtocol.negotiateCodec(peer);
+        negotiatedCodec.getVersionNegotiator().setVersion(StandardFlowFileCodec.BATCH_FRAME_VERSION);
+        final FlowFileCodec clientCodec = new StandardFlowFileCodec();
+        clientCodec.getVersionNegotiator().setVersion(StandardFlowFileCodec.BATCH_FRAME_VERSION);
+        assertTrue(clientCodec.buffer(createClientDataPacket()));
+        assertTrue(clientCodec.buffer(createClientDataPacket()));
+        final ByteArrayOutputStream testDataOs = new ByteArrayOutputStream();
+        clientCodec.flush(testDataOs);
+        ((HttpInput) commsSession.getInput()).setInputStream(new ByteArrayInputStream(testDataOs.toByteArray()));
 
+        final int flowFileReceived = serverProtocol.receiveFlowFiles(peer, processContext, processSession, negotiatedCodec);
+        assertEquals(2, flowFileReceived);
+
+        commsSession.setResponseCode(ResponseCode.CONFIRM_TRANSACTION);
+        assertEquals(2, serverProtocol.commitReceiveTransaction(peer));
+
+        final List<MockFlowFile> flowFiles = processSession.getFlowFilesForRelationship(Relationship.ANONYMOUS);
+        assertEquals(2, flowFiles.size());
+        for (final MockFlowFile flowFile : flowFiles) {
+            flowFile.assertAttributeEquals("client-attr-1", "client-attr-1-value");
+            flowFile.assertAttributeEquals("client-attr-2", "client-attr-2-value");
+            flowFile.assertContentEquals("Content from client.");
+        }
+    }
 }
@@ -29,6 +29,7 @@ import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.controller.ScheduledState;
 import org.apache.nifi.controller.repository.claim.ContentDirection;
 import org.apache.nifi.controller.service.ControllerServiceState;
+import org.apache.nifi.controller.status.VersionedStatus;
 import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.web.api.dto.AccessPolicyDTO;
 import org.apache.nifi.web.api.dto.AffectedComponentDTO;
@@ -303,6 +304,17 @@ public interface NiFiServiceFacade {
      */
     ProcessGroupStatusEntity getProcessGroupStatus(String groupId, boolean recursive);
 
+    /**
+     * Returns the process group status along with the version of the snapshot that it was served from. The
+     * status does not change while the version remains the same. A status that was not served from a snapshot
+     * has no version.
+     *
+     * @param groupId group
+     * @param recursive whether the status of descendant groups is included
+     * @return The process group status, along with the version of the snapshot it was served from
+     */
+    VersionedStatus<ProcessGroupStatusEntity> getVersionedProcessGroupStatus(String groupId, boolean recursive);
+
     /**
      * Gets the process group status history.
      *
@@ -100,6 +100,7 @@ import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.controller.service.ControllerServiceReference;
 import org.apache.nifi.controller.service.ControllerServiceState;
 import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.VersionedStatus;
 import org.apache.nifi.diagnostics.SystemDiagnostics;
 import org.apache.nifi.events.BulletinFactory;
 import org.apache.nifi.groups.ProcessGroup;
@@ -1063,7 +1064,11 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
 
     @Override
     public DropRequestDTO deleteFlowFileDropRequest(final String connectionId, final String dropRequestId) {
-        return dtoFactory.createDropRequestDTO(connectionDAO.deleteFlowFileDropRequest(connectionId, dropRequestId));
+        final DropRequestDTO dropRequest = dtoFactory.createDropRequestDTO(connectionDAO.deleteFlowFileDropRequest(connectionId, dropRequestId));
+
+        // the request is deleted once the queue has been emptied, so ensure the status reflects all of the FlowFiles that were dropped
+        controllerFacade.invalidateStatusSnapshot();
+        return dropRequest;
     }
 
     @Override
@@ -1446,7 +1451,11 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
 
     @Override
     public DropRequestDTO createFlowFileDropRequest(final String connectionId, final String dropRequestId) {
-        return dtoFactory.createDropRequestDTO(connectionDAO.createFlowFileDropRequest(connectionId, dropRequestId));
+        final DropRequestDTO dropRequest = dtoFactory.createDropRequestDTO(connectionDAO.createFlowFileDropRequest(connectionId, dropRequestId));
+
+        // ensure the status reflects the FlowFiles that have been dropped
+        controllerFacade.invalidateStatusSnapshot();
+        return dropRequest;
     }
 
     @Override
@@ -1551,6 +1560,10 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         final String creator = NiFiUserUtils.getNiFiUserIdentity();
 
         final AccessPolicy newAccessPolicy = accessPolicyDAO.createAccessPolicy(accessPolicyDTO);
+
+        // the status of the flow is filtered by the policies that apply to each user, so ensure the status reflects the new policy
+        controllerFacade.invalidateStatusSnapshot();
+
         final ComponentReferenceEntity componentReference = createComponentReferenceEntity(newAccessPolicy.getResource());
         final AccessPolicyDTO newAccessPolicyDto = dtoFactory.createAccessPolicyDto(newAccessPolicy,
                 newAccessPolicy.getGroups().stream().map(mapUserGroupIdToTenantEntity()).collect(Collectors.toSet()),
@@ -1568,6 +1581,10 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
     public UserEntity createUser(final Revision revision, final UserDTO userDTO) {
         final String creator = NiFiUserUtils.getNiFiUserIdentity();
         final User newUser = userDAO.createUser(userDTO);
+
+        // ensure the status is filtered by the policies that apply to the new user
+        controllerFacade.invalidateStatusSnapshot();
+
         final Set<TenantEntity> tenantEntities = userGroupDAO.getUserGroupsForUser(newUser.getIdentifier()).stream()
                 .map(g -> g.getIdentifier()).map(mapUserGroupIdToTenantEntity()).collect(Collectors.toSet());
         final Set<AccessPolicySummaryEntity> policyEntities = userGroupDAO.getAccessPoliciesForUser(newUser.getIdentifier()).stream()
@@ -1615,6 +1632,10 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
     public UserGroupEntity createUserGroup(final Revision revision, final UserGroupDTO userGroupDTO) {
         final String creator = NiFiUserUtils.getNiFiUserIdentity();
         final Group newUserGroup = userGroupDAO.createUserGroup(userGroupDTO);
+
+        // ensure the status is filtered by the policies that apply to the members of the new group
+        controllerFacade.invalidateStatusSnapshot();
+
         final Set<TenantEntity> tenantEntities = newUserGroup.getUsers().stream().map(mapUserIdToTenantEntity()).collect(Collectors.toSet());
         final Set<AccessPolicySummaryEntity> policyEntities = userGroupDAO.getAccessPoliciesForUserGroup(newUserGroup.getIdentifier()).stream()
                 .map(ap -> createAccessPolicySummaryEntity(ap)).collect(Collectors.toSet());
@@ -2348,9 +2369,15 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
 
     @Override
     public ProcessGroupStatusEntity getProcessGroupStatus(final String groupId, final boolean recursive) {
+        return getVersionedProcessGroupStatus(groupId, recursive).getStatus();
+    }
+
+    @Override
+    public VersionedStatus<ProcessGroupStatusEntity> getVersionedProcessGroupStatus(final String groupId, final boolean recursive) {
         final ProcessGroup processGroup = processGroupDAO.getProcessGroup(groupId);
         final PermissionsDTO permissions = dtoFactory.createPermissionsDto(processGroup);
-        final ProcessGroupStatusDTO dto = dtoFactory.createProcessGroupStatusDto(processGroup, controllerFacade.getProcessGroupStatus(groupId));
+        final VersionedStatus<ProcessGroupStatus> groupStatus = controllerFacade.getVersionedProcessGroupStatus(groupId);
+        final ProcessGroupStatusDTO dto = dtoFactory.createProcessGroupStatusDto(processGroup, groupStatus.getStatus());
 
         // prune the response as necessary
         if (!recursive) {
@@ -2362,7 +2389,7 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
             }
         }
 
-        return entityFactory.createProcessGroupStatusEntity(dto, permissions);
+        return new VersionedStatus<>(entityFactory.createProcessGroupStatusEntity(dto, permissions), groupStatus.getSnapshotVersion());
     }
 
     private void pruneChildGroups(final ProcessGroupStatusSnapshotDTO snapshot) {
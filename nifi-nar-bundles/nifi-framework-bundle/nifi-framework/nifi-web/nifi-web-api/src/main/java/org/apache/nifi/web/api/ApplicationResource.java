@@ -43,6 +43,9 @@ import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.remote.HttpRemoteSiteListener;
 import org.apache.nifi.remote.VersionNegotiator;
+import org.apache.nifi.remote.codec.BlockCompressor;
+import org.apache.nifi.remote.codec.BlockCompressors;
+import org.apache.nifi.remote.codec.StandardFlowFileCodec;
 import org.apache.nifi.remote.exception.BadRequestException;
 import org.apache.nifi.remote.exception.HandshakeException;
 import org.apache.nifi.remote.exception.NotAuthorizedException;
@@ -58,6 +61,7 @@ import org.apache.nifi.web.api.entity.Entity;
 import org.apache.nifi.web.api.entity.TransactionResultEntity;
 import org.apache.nifi.web.security.ProxiedEntitiesUtils;
 import org.apache.nifi.web.security.util.CacheKey;
+import org.apache.nifi.web.util.EntityTags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +69,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
@@ -75,6 +80,7 @@ import javax.ws.rs.core.UriInfo;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -212,6 +218,68 @@ public abstract class ApplicationResource {
         return response.cacheControl(cacheControl);
     }
 
+    /**
+     * Edit the response headers to indicate that the response may only be used after revalidating it.
+     *
+     * @param response response
+     * @return builder
+     */
+    protected ResponseBuilder revalidate(final ResponseBuilder response) {
+        final CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoCache(true);
+        return response.cacheControl(cacheControl);
+    }
+
+    /**
+     * Generates an entity tag from the specified values, such as the version of the data that an entity was created from and the
+     * parameters of the request, so that requests for the same version of the same entity have equal tags.
+     *
+     * @param values The values that identify the entity
+     * @return the entity tag
+     */
+    protected EntityTag generateEntityTag(final Object... values) {
+        return new EntityTag(EntityTags.generate(Arrays.asList(values)));
+    }
+
+    /**
+     * Generates a response for the specified entity with the specified entity tag. If the request indicates that the client already
+     * holds a representation with the same tag, a Not Modified response with no content is generated instead. Either way, the client
+     * must revalidate the response before reusing it.
+     *
+     * @param entityTag The entity tag
+     * @param entity The entity
+     * @return The response to be built
+     */
+    protected ResponseBuilder generateRevalidatedResponse(final EntityTag entityTag, final Object entity) {
+        final ResponseBuilder response = isNotModified(entityTag) ? Response.notModified() : Response.ok(entity);
+        return revalidate(response.tag(entityTag));
+    }
+
+    private boolean isNotModified(final EntityTag entityTag) {
+        final String ifNoneMatch = httpServletRequest.getHeader(javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate)) {
+                return true;
+            }
+
+            // weak comparison is used for GET requests
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("\"" + entityTag.getValue() + "\"")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     protected String generateUuid() {
         final Optional<String> seed = getIdGenerationSeed();
         UUID uuid;
@@ -1119,6 +1187,44 @@ public abstract class ApplicationResource {
         return protocolVersion;
     }
 
+    /**
+     * Returns the version of the FlowFile codec to transfer FlowFiles with, which is the highest version that is supported by both this instance
+     * and the client, or <code>null</code> if the client did not propose a version, in which case the first version of the codec is used.
+     */
+    protected Integer negotiateFlowFileCodecVersion(final HttpServletRequest req) throws BadRequestException {
+        final String codecVersionStr = req.getHeader(HttpHeaders.FLOWFILE_CODEC_VERSION);
+        if (isEmpty(codecVersionStr)) {
+            return null;
+        }
+
+        final int requestedCodecVersion;
+        try {
+            requestedCodecVersion = Integer.parseInt(codecVersionStr);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Specified FlowFile codec version was not in a valid number format: " + codecVersionStr);
+        }
+
+        final Integer codecVersion = new StandardFlowFileCodec().getVersionNegotiator().getPreferredVersion(requestedCodecVersion);
+        if (codecVersion == null) {
+            throw new BadRequestException("Specified FlowFile codec version is not supported: " + codecVersionStr);
+        }
+        return codecVersion;
+    }
+
+    /**
+     * Returns the Block Compressor that compresses the data of the transaction when compression is enabled, which is the first of the Block Compressors
+     * proposed by the client that this instance supports, or <code>null</code> if the client did not propose any, in which case data is compressed
+     * using the Deflate algorithm.
+     */
+    protected BlockCompressor negotiateBlockCompressor(final HttpServletRequest req) {
+        final String blockCompressorNames = req.getHeader(HttpHeaders.BLOCK_COMPRESSOR);
+        if (isEmpty(blockCompressorNames)) {
+            return null;
+        }
+
+        return BlockCompressors.select(Arrays.asList(blockCompressorNames.split(",")));
+    }
+
     protected Response.ResponseBuilder setCommonHeaders(final Response.ResponseBuilder builder, final Integer transportProtocolVersion, final HttpRemoteSiteListener transactionManager) {
         return builder.header(HttpHeaders.PROTOCOL_VERSION, transportProtocolVersion)
                 .header(HttpHeaders.SERVER_SIDE_TRANSACTION_TTL, transactionManager.getTransactionTtlSec());
@@ -1226,13 +1332,20 @@ public abstract class ApplicationResource {
         }
 
         public Response locationResponse(UriInfo uriInfo, String portType, String portId, String transactionId, Object entity,
-                                         Integer protocolVersion, final HttpRemoteSiteListener transactionManager) {
+                                         Integer protocolVersion, Integer flowFileCodecVersion, BlockCompressor blockCompressor,
+                                         final HttpRemoteSiteListener transactionManager) {
 
             String path = "/data-transfer/" + portType + "/" + portId + "/transactions/" + transactionId;
             URI location = uriInfo.getBaseUriBuilder().path(path).build();
-            return noCache(setCommonHeaders(Response.created(location), protocolVersion, transactionManager)
-                    .header(LOCATION_URI_INTENT_NAME, LOCATION_URI_INTENT_VALUE))
-                    .entity(entity).build();
+            final Response.ResponseBuilder builder = setCommonHeaders(Response.created(location), protocolVersion, transactionManager)
+                    .header(LOCATION_URI_INTENT_NAME, LOCATION_URI_INTENT_VALUE);
+            if (flowFileCodecVersion != null) {
+                builder.header(HttpHeaders.FLOWFILE_CODEC_VERSION, flowFileCodecVersion);
+            }
+            if (blockCompressor != null) {
+                builder.header(HttpHeaders.BLOCK_COMPRESSOR, blockCompressor.getName());
+            }
+            return noCache(builder).entity(entity).build();
         }
 
     }
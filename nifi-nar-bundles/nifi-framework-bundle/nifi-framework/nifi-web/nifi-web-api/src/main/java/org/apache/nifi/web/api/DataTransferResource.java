@@ -37,6 +37,7 @@ import org.apache.nifi.remote.PeerDescription;
 import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
 import org.apache.nifi.remote.client.http.TransportProtocolVersionNegotiator;
+import org.apache.nifi.remote.codec.BlockCompressor;
 import org.apache.nifi.remote.exception.BadRequestException;
 import org.apache.nifi.remote.exception.HandshakeException;
 import org.apache.nifi.remote.exception.NotAuthorizedException;
@@ -206,13 +207,14 @@ public class DataTransferResource extends ApplicationResource {
 
         try {
             // Execute handshake.
-            initiateServerProtocol(req, peer, transportProtocolVersion);
+            initiateServerProtocol(req, peer, transportProtocolVersion, validationResult.flowFileCodecVersion, validationResult.blockCompressor);
 
             TransactionResultEntity entity = new TransactionResultEntity();
             entity.setResponseCode(ResponseCode.PROPERTIES_OK.getCode());
             entity.setMessage("Handshake properties are valid, and port is running. A transaction is created:" + transactionId);
 
-            return responseCreator.locationResponse(uriInfo, portType, portId, transactionId, entity, transportProtocolVersion, transactionManager);
+            return responseCreator.locationResponse(uriInfo, portType, portId, transactionId, entity, transportProtocolVersion,
+                    validationResult.flowFileCodecVersion, validationResult.blockCompressor, transactionManager);
 
         } catch (HandshakeException e) {
             transactionManager.cancelTransaction(transactionId);
@@ -273,7 +275,7 @@ public class DataTransferResource extends ApplicationResource {
         final int transportProtocolVersion = validationResult.transportProtocolVersion;
 
         try {
-            HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion);
+            HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion, validationResult.flowFileCodecVersion, validationResult.blockCompressor);
             int numOfFlowFiles = serverProtocol.getPort().receiveFlowFiles(peer, serverProtocol);
             logger.debug("finished receiving flow files, numOfFlowFiles={}", numOfFlowFiles);
             if (numOfFlowFiles < 1) {
@@ -298,7 +300,8 @@ public class DataTransferResource extends ApplicationResource {
     }
 
     private HttpFlowFileServerProtocol initiateServerProtocol(final HttpServletRequest req, final Peer peer,
-                                                              final Integer transportProtocolVersion) throws IOException {
+                                                              final Integer transportProtocolVersion, final Integer flowFileCodecVersion,
+                                                              final BlockCompressor blockCompressor) throws IOException {
         // Switch transaction protocol version based on transport protocol version.
         TransportProtocolVersionNegotiator negotiatedTransportProtocolVersion = new TransportProtocolVersionNegotiator(transportProtocolVersion);
         VersionNegotiator versionNegotiator = new StandardVersionNegotiator(negotiatedTransportProtocolVersion.getTransactionProtocolVersion());
@@ -307,6 +310,12 @@ public class DataTransferResource extends ApplicationResource {
         ((HttpCommunicationsSession)peer.getCommunicationsSession()).setDataTransferUrl(dataTransferUrl);
 
         HttpFlowFileServerProtocol serverProtocol = getHttpFlowFileServerProtocol(versionNegotiator);
+        if (flowFileCodecVersion != null) {
+            serverProtocol.getPreNegotiatedCodec().getVersionNegotiator().setVersion(flowFileCodecVersion);
+        }
+        if (blockCompressor != null) {
+            serverProtocol.getPreNegotiatedCodec().setBlockCompressor(blockCompressor);
+        }
         HttpRemoteSiteListener.getInstance(nifiProperties).setupServerProtocol(serverProtocol);
         serverProtocol.handshake(peer);
         return serverProtocol;
@@ -438,7 +447,7 @@ public class DataTransferResource extends ApplicationResource {
 
         final TransactionResultEntity entity = new TransactionResultEntity();
         try {
-            HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion);
+            HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion, validationResult.flowFileCodecVersion, validationResult.blockCompressor);
 
             String inputErrMessage = null;
             if (responseCode == null) {
@@ -543,7 +552,7 @@ public class DataTransferResource extends ApplicationResource {
 
         final TransactionResultEntity entity = new TransactionResultEntity();
         try {
-            HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion);
+            HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion, validationResult.flowFileCodecVersion, validationResult.blockCompressor);
             HttpServerCommunicationsSession commsSession = (HttpServerCommunicationsSession) peer.getCommunicationsSession();
             // Pass the response code sent from the client.
             String inputErrMessage = null;
@@ -655,7 +664,7 @@ public class DataTransferResource extends ApplicationResource {
         final Peer peer = constructPeer(req, inputStream, tempBos, portId, transactionId);
         final int transportProtocolVersion = validationResult.transportProtocolVersion;
         try {
-            final HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion);
+            final HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion, validationResult.flowFileCodecVersion, validationResult.blockCompressor);
 
             StreamingOutput flowFileContent = new StreamingOutput() {
                 @Override
@@ -792,7 +801,7 @@ public class DataTransferResource extends ApplicationResource {
 
         try {
             // Do handshake
-            initiateServerProtocol(req, peer, transportProtocolVersion);
+            initiateServerProtocol(req, peer, transportProtocolVersion, validationResult.flowFileCodecVersion, validationResult.blockCompressor);
             transactionManager.extendTransaction(transactionId);
 
             final TransactionResultEntity entity = new TransactionResultEntity();
@@ -811,6 +820,8 @@ public class DataTransferResource extends ApplicationResource {
 
     private class ValidateRequestResult {
         private Integer transportProtocolVersion;
+        private Integer flowFileCodecVersion;
+        private BlockCompressor blockCompressor;
         private Response errResponse;
     }
 
@@ -827,6 +838,8 @@ public class DataTransferResource extends ApplicationResource {
 
         try {
             result.transportProtocolVersion = negotiateTransportProtocolVersion(req, transportProtocolVersionNegotiator);
+            result.flowFileCodecVersion = negotiateFlowFileCodecVersion(req);
+            result.blockCompressor = negotiateBlockCompressor(req);
         } catch (BadRequestException e) {
             result.errResponse = responseCreator.badRequestResponse(e);
             return result;
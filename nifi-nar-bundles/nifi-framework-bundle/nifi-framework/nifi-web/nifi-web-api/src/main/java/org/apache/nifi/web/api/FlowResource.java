@@ -38,6 +38,7 @@ import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.controller.ScheduledState;
 import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.controller.service.ControllerServiceState;
+import org.apache.nifi.controller.status.VersionedStatus;
 import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.nar.NarClassLoaders;
 import org.apache.nifi.util.NiFiProperties;
@@ -111,6 +112,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
@@ -1770,8 +1772,17 @@ public class FlowResource extends ApplicationResource {
                 final ProcessGroupStatusEntity entity = (ProcessGroupStatusEntity) nodeResponse.getUpdatedEntity();
 
                 // ensure there is an updated entity (result of merging) and prune the response as necessary
-                if (entity != null && !nodewise) {
-                    entity.getProcessGroupStatus().setNodeSnapshots(null);
+                if (entity != null) {
+                    if (!nodewise) {
+                        entity.getProcessGroupStatus().setNodeSnapshots(null);
+                    }
+
+                    // the merged response is tagged with a combination of the tags of the node responses, when every node tagged its response
+                    final EntityTag entityTag = nodeResponse.getClientResponse().getEntityTag();
+                    if (entityTag == null) {
+                        return generateOkResponse(entity).build();
+                    }
+                    return generateRevalidatedResponse(entityTag, entity).build();
                 }
 
                 return nodeResponse.getResponse();
@@ -1780,9 +1791,17 @@ public class FlowResource extends ApplicationResource {
             }
         }
 
-        // get the status
-        final ProcessGroupStatusEntity entity = serviceFacade.getProcessGroupStatus(groupId, recursive);
-        return generateOkResponse(entity).build();
+        // the status does not change while the snapshot it is served from is current, so a client that polls for the status receives
+        // a Not Modified response until the snapshot changes. a status that was not served from a snapshot may differ for every request
+        final VersionedStatus<ProcessGroupStatusEntity> versionedStatus = serviceFacade.getVersionedProcessGroupStatus(groupId, recursive);
+        final ProcessGroupStatusEntity entity = versionedStatus.getStatus();
+        if (versionedStatus.getSnapshotVersion() == null) {
+            return generateOkResponse(entity).build();
+        }
+
+        final EntityTag entityTag = generateEntityTag(versionedStatus.getSnapshotVersion(), groupId, recursive, nodewise,
+            NiFiUserUtils.buildProxiedEntitiesChain(NiFiUserUtils.getNiFiUser()));
+        return generateRevalidatedResponse(entityTag, entity).build();
     }
 
     /**
@@ -1108,6 +1108,7 @@ public final class DtoFactory {
         snapshot.setRunStatus(procStatus.getRunStatus().toString());
 
         snapshot.setActiveThreadCount(procStatus.getActiveThreadCount());
+        snapshot.setSchedulingLatencyNanos(procStatus.getSchedulingLatencyNanos());
         snapshot.setType(procStatus.getType());
 
         StatusMerger.updatePrettyPrintedFields(snapshot);
@@ -2720,6 +2721,14 @@ public final class DtoFactory {
         // uptime
         snapshot.setUptime(FormatUtils.formatHoursMinutesSeconds(sysDiagnostics.getUptime(), TimeUnit.MILLISECONDS));
 
+        // provenance indexing
+        if (sysDiagnostics.getProvenanceIndexingLagMillis() >= 0) {
+            snapshot.setProvenanceIndexingLagMillis(sysDiagnostics.getProvenanceIndexingLagMillis());
+        }
+        if (sysDiagnostics.getProvenanceQueuedEventCount() >= 0) {
+            snapshot.setProvenanceQueuedEventCount(sysDiagnostics.getProvenanceQueuedEventCount());
+        }
+
         return dto;
     }
 
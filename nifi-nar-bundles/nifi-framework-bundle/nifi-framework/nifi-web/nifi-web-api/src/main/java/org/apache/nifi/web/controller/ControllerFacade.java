@@ -57,6 +57,7 @@ import org.apache.nifi.controller.status.PortStatus;
 import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.controller.status.RemoteProcessGroupStatus;
+import org.apache.nifi.controller.status.VersionedStatus;
 import org.apache.nifi.controller.status.history.ComponentStatusRepository;
 import org.apache.nifi.diagnostics.SystemDiagnostics;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
@@ -596,14 +597,33 @@ public class ControllerFacade implements Authorizable {
      * @return the status for the specified process group
      */
     public ProcessGroupStatus getProcessGroupStatus(final String groupId) {
-        final ProcessGroupStatus processGroupStatus = flowController.getGroupStatus(groupId, NiFiUserUtils.getNiFiUser());
-        if (processGroupStatus == null) {
+        return getVersionedProcessGroupStatus(groupId).getStatus();
+    }
+
+    /**
+     * Gets the status for the specified process group, along with the version of the
+     * snapshot that it was served from, if it was retained by the snapshot.
+     *
+     * @param groupId group id
+     * @return the status for the specified process group
+     */
+    public VersionedStatus<ProcessGroupStatus> getVersionedProcessGroupStatus(final String groupId) {
+        final VersionedStatus<ProcessGroupStatus> processGroupStatus = flowController.getVersionedGroupStatus(groupId, NiFiUserUtils.getNiFiUser());
+        if (processGroupStatus.getStatus() == null) {
             throw new ResourceNotFoundException(String.format("Unable to locate group with id '%s'.", groupId));
         }
 
         return processGroupStatus;
     }
 
+    /**
+     * Discards the snapshot that the status of process groups is served from, so that the
+     * next request for status reflects changes that have been made to the flow or its queues.
+     */
+    public void invalidateStatusSnapshot() {
+        flowController.invalidateStatusSnapshot();
+    }
+
     /**
      * Gets the status for the specified processor.
      *
@@ -760,6 +780,9 @@ public class ControllerFacade implements Authorizable {
         // save the flow controller
         final long writeDelaySeconds = FormatUtils.getTimeDuration(properties.getFlowServiceWriteDelay(), TimeUnit.SECONDS);
         flowService.saveFlowChanges(TimeUnit.SECONDS, writeDelaySeconds);
+
+        // ensure the status returned for the changes reflects them
+        invalidateStatusSnapshot();
     }
 
     /**
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web.api;
+
+import org.apache.nifi.controller.status.VersionedStatus;
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.web.NiFiServiceFacade;
+import org.apache.nifi.web.api.entity.ProcessGroupStatusEntity;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestFlowResource {
+
+    @Test
+    public void testProcessGroupStatusNotModified() throws Exception {
+        final NiFiServiceFacade serviceFacade = mock(NiFiServiceFacade.class);
+        when(serviceFacade.getVersionedProcessGroupStatus(eq("root"), anyBoolean())).thenReturn(new VersionedStatus<>(new ProcessGroupStatusEntity(), 1L));
+
+        final Response response = getProcessGroupStatus(serviceFacade, false, null);
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getEntity());
+        final EntityTag entityTag = (EntityTag) response.getMetadata().getFirst(HttpHeaders.ETAG);
+        assertNotNull(entityTag);
+
+        // the client already holds the status from the current snapshot
+        final Response notModifiedResponse = getProcessGroupStatus(serviceFacade, false, "\"" + entityTag.getValue() + "\"");
+        assertEquals(304, notModifiedResponse.getStatus());
+        assertNull(notModifiedResponse.getEntity());
+        assertEquals(entityTag, notModifiedResponse.getMetadata().getFirst(HttpHeaders.ETAG));
+
+        // the status of the group's descendants is a different entity
+        assertEquals(200, getProcessGroupStatus(serviceFacade, true, "\"" + entityTag.getValue() + "\"").getStatus());
+
+        // the status may have changed once the snapshot has
+        when(serviceFacade.getVersionedProcessGroupStatus(eq("root"), anyBoolean())).thenReturn(new VersionedStatus<>(new ProcessGroupStatusEntity(), 2L));
+        final Response modifiedResponse = getProcessGroupStatus(serviceFacade, false, "\"" + entityTag.getValue() + "\"");
+        assertEquals(200, modifiedResponse.getStatus());
+        assertNotEquals(entityTag, modifiedResponse.getMetadata().getFirst(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void testProcessGroupStatusNotFromSnapshot() throws Exception {
+        final NiFiServiceFacade serviceFacade = mock(NiFiServiceFacade.class);
+        when(serviceFacade.getVersionedProcessGroupStatus(eq("root"), anyBoolean())).thenReturn(new VersionedStatus<>(new ProcessGroupStatusEntity(), 1L));
+        final EntityTag entityTag = (EntityTag) getProcessGroupStatus(serviceFacade, false, null).getMetadata().getFirst(HttpHeaders.ETAG);
+        assertNotNull(entityTag);
+
+        // a status that was computed without being retained by the snapshot may differ for every request, so it is never tagged
+        when(serviceFacade.getVersionedProcessGroupStatus(eq("root"), anyBoolean())).thenReturn(new VersionedStatus<>(new ProcessGroupStatusEntity(), null));
+        final Response response = getProcessGroupStatus(serviceFacade, false, "\"" + entityTag.getValue() + "\"");
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getEntity());
+        assertNull(response.getMetadata().getFirst(HttpHeaders.ETAG));
+    }
+
+    private Response getProcessGroupStatus(final NiFiServiceFacade serviceFacade, final boolean recursive, final String ifNoneMatch) throws Exception {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+
+        final FlowResource resource = new FlowResource();
+        resource.setProperties(NiFiProperties.createBasicNiFiProperties(null, null));
+        resource.setServiceFacade(serviceFacade);
+
+        final Field requestField = ApplicationResource.class.getDeclaredField("httpServletRequest");
+        requestField.setAccessible(true);
+        requestField.set(resource, request);
+
+        return resource.getProcessGroupStatus(recursive, false, null, "root");
+    }
+}
@@ -39,6 +39,7 @@ public class RepositoryConfiguration {
 
     public static final String CONCURRENT_MERGE_THREADS = "nifi.provenance.repository.concurrent.merge.threads";
     public static final String WARM_CACHE_FREQUENCY = "nifi.provenance.repository.warm.cache.frequency";
+    public static final String INDEX_QUEUE_SIZE = "nifi.provenance.repository.index.queue.size";
 
     private final Map<String, File> storageDirectories = new LinkedHashMap<>();
     private long recordLifeMillis = TimeUnit.MILLISECONDS.convert(24, TimeUnit.HOURS);
@@ -61,8 +62,10 @@ public class RepositoryConfiguration {
     private List<SearchableField> searchableAttributes = new ArrayList<>();
     private boolean compress = true;
     private boolean alwaysSync = false;
+    private boolean writeEventColumns = false;
     private int queryThreadPoolSize = 2;
     private int indexThreadPoolSize = 1;
+    private int indexQueueSize = 1000;
     private boolean allowRollover = true;
     private int concurrentMergeThreads = 4;
     private Integer warmCacheFrequencyMinutes = null;
@@ -258,6 +261,21 @@ public class RepositoryConfiguration {
         this.indexThreadPoolSize = indexThreadPoolSize;
     }
 
+    /**
+     * @return the maximum number of events that may be waiting to be indexed. Once this many events are waiting,
+     *         storing further events will block until the indexing threads catch up
+     */
+    public int getIndexQueueSize() {
+        return indexQueueSize;
+    }
+
+    public void setIndexQueueSize(final int indexQueueSize) {
+        if (indexQueueSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.indexQueueSize = indexQueueSize;
+    }
+
     public void setConcurrentMergeThreads(final int mergeThreads) {
         this.concurrentMergeThreads = mergeThreads;
     }
@@ -342,6 +360,24 @@ public class RepositoryConfiguration {
         this.alwaysSync = alwaysSync;
     }
 
+    /**
+     * @return <code>true</code> if the repository will write a columnar summary of the events alongside each event file
+     */
+    public boolean isWriteEventColumns() {
+        return writeEventColumns;
+    }
+
+    /**
+     * Configures whether or not the Repository should write a columnar summary of the Event ID, timestamp, Event Type,
+     * Component ID and FlowFile UUID of each event alongside each event file. This allows queries on those fields
+     * to be answered without decompressing and deserializing the events themselves.
+     *
+     * @param writeEventColumns whether or not to write a columnar summary of the events
+     */
+    public void setWriteEventColumns(final boolean writeEventColumns) {
+        this.writeEventColumns = writeEventColumns;
+    }
+
     /**
      * @return the maximum number of characters to include in any attribute. If an attribute in a Provenance
      *         Event has more than this number of characters, it will be truncated when the event is retrieved.
@@ -430,6 +466,7 @@ public class RepositoryConfiguration {
         final int indexThreads = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_INDEX_THREAD_POOL_SIZE, 2);
         final int journalCount = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_JOURNAL_COUNT, 16);
         final int concurrentMergeThreads = nifiProperties.getIntegerProperty(CONCURRENT_MERGE_THREADS, 2);
+        final int indexQueueSize = nifiProperties.getIntegerProperty(INDEX_QUEUE_SIZE, 1000);
         final String warmCacheFrequency = nifiProperties.getProperty(WARM_CACHE_FREQUENCY);
 
         final long storageMillis = FormatUtils.getTimeDuration(storageTime, TimeUnit.MILLISECONDS);
@@ -442,6 +479,7 @@ public class RepositoryConfiguration {
         final String indexedAttrString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
         final Boolean alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.provenance.repository.always.sync", "false"));
+        final boolean writeEventColumns = Boolean.parseBoolean(nifiProperties.getProperty("nifi.provenance.repository.columnar.event.files", "false"));
 
         final int defaultMaxAttrChars = 65536;
         final String maxAttrLength = nifiProperties.getProperty("nifi.provenance.repository.max.attribute.length", String.valueOf(defaultMaxAttrChars));
@@ -479,6 +517,7 @@ public class RepositoryConfiguration {
         config.setMaxStorageCapacity(maxStorageBytes);
         config.setQueryThreadPoolSize(queryThreads);
         config.setIndexThreadPoolSize(indexThreads);
+        config.setIndexQueueSize(indexQueueSize);
         config.setJournalCount(journalCount);
         config.setMaxAttributeChars(maxAttrChars);
         config.setConcurrentMergeThreads(concurrentMergeThreads);
@@ -491,6 +530,7 @@ public class RepositoryConfiguration {
         }
 
         config.setAlwaysSync(alwaysSync);
+        config.setWriteEventColumns(writeEventColumns);
 
         config.setDebugFrequency(nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_REPO_DEBUG_FREQUENCY, config.getDebugFrequency()));
 
@@ -501,6 +541,9 @@ public class RepositoryConfiguration {
             config.setKeyId(nifiProperties.getProperty(NiFiProperties.PROVENANCE_REPO_ENCRYPTION_KEY_ID));
             config.setKeyProviderImplementation(nifiProperties.getProperty(NiFiProperties.PROVENANCE_REPO_ENCRYPTION_KEY_PROVIDER_IMPLEMENTATION_CLASS));
             config.setKeyProviderLocation(nifiProperties.getProperty(NiFiProperties.PROVENANCE_REPO_ENCRYPTION_KEY_PROVIDER_LOCATION));
+
+            // the columnar summaries are not encrypted, so they must not be written for an encrypted repository
+            config.setWriteEventColumns(false);
         }
 
         return config;
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.nifi.authorization.Authorizer;
 import org.apache.nifi.authorization.RequestAction;
 import org.apache.nifi.authorization.resource.Authorizable;
@@ -240,6 +241,16 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         return new UserEventAuthorizer(authorizer, resourceFactory, user);
     }
 
+    @Override
+    public long getIndexingLag(final TimeUnit timeUnit) {
+        return eventIndex.getIndexingLag(timeUnit);
+    }
+
+    @Override
+    public int getQueuedEventCount() {
+        return eventIndex.getQueuedEventCount();
+    }
+
     @Override
     public ProvenanceEventRepository getProvenanceEventRepository() {
         return this;
@@ -20,6 +20,7 @@ package org.apache.nifi.provenance.index;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
@@ -157,4 +158,18 @@ public interface EventIndex extends Closeable {
      * @throws IOException if unable to commit the changes
      */
     void commitChanges(String partitionName) throws IOException;
+
+    /**
+     * Indicates how far indexing is behind storage. This is the amount of time that has elapsed since the oldest event that has been
+     * given to the Event Index but is not yet searchable was stored, or 0 if every event that has been given to the Event Index is searchable.
+     *
+     * @param timeUnit the unit of time to return the lag in
+     * @return the amount of time that the oldest event that is not yet searchable has been waiting to be indexed
+     */
+    long getIndexingLag(TimeUnit timeUnit);
+
+    /**
+     * @return the number of events that have been given to the Event Index and are waiting to be indexed
+     */
+    int getQueuedEventCount();
 }
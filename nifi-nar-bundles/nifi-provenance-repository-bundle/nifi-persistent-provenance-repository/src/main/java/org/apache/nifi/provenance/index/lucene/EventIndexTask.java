@@ -43,10 +43,12 @@ public class EventIndexTask implements Runnable {
     private static final String EVENT_CATEGORY = "Provenance Repository";
     public static final int MAX_DOCUMENTS_PER_THREAD = 100;
     public static final int DEFAULT_MAX_EVENTS_PER_COMMIT = 1_000_000;
+    private static final long NOTHING_IN_FLIGHT = Long.MIN_VALUE;
 
     private final BlockingQueue<StoredDocument> documentQueue;
     private final IndexManager indexManager;
     private volatile boolean shutdown = false;
+    private volatile long oldestInFlightNanos = NOTHING_IN_FLIGHT;
 
     private final IndexDirectoryManager directoryManager;
     private final EventReporter eventReporter;
@@ -65,6 +67,15 @@ public class EventIndexTask implements Runnable {
         this.shutdown = true;
     }
 
+    /**
+     * @return the value of {@link System#nanoTime()} when the oldest document that this task has taken from the queue,
+     *         but not yet finished indexing, was created, or an empty Optional if this task is not currently indexing any documents
+     */
+    public Optional<Long> getOldestInFlightNanos() {
+        final long nanos = oldestInFlightNanos;
+        return nanos == NOTHING_IN_FLIGHT ? Optional.empty() : Optional.of(nanos);
+    }
+
     private void fetchDocuments(final List<StoredDocument> destination) throws InterruptedException {
         // We want to fetch up to INDEX_BUFFER_SIZE documents at a time. However, we don't want to continually
         // call #drainTo on the queue. So we call poll, blocking for up to 1 second. If we get any event, then
@@ -75,6 +86,8 @@ public class EventIndexTask implements Runnable {
             return;
         }
 
+        // The first document is the oldest, because documents are queued in the order that they are stored.
+        oldestInFlightNanos = firstDoc.getCreationNanos();
         destination.add(firstDoc);
         documentQueue.drainTo(destination, MAX_DOCUMENTS_PER_THREAD - 1);
     }
@@ -106,6 +119,8 @@ public class EventIndexTask implements Runnable {
             } catch (final Exception e) {
                 logger.error("Failed to index Provenance Events", e);
                 eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, "Failed to index Provenance Events. See logs for more information.");
+            } finally {
+                oldestInFlightNanos = NOTHING_IN_FLIGHT;
             }
         }
     }
@@ -65,6 +65,7 @@ import org.apache.nifi.provenance.search.Query;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
@@ -87,7 +88,7 @@ public class LuceneEventIndex implements EventIndex {
 
     private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
-    private final BlockingQueue<StoredDocument> documentQueue = new LinkedBlockingQueue<>(1000);
+    private final BlockingQueue<StoredDocument> documentQueue;
     private final List<EventIndexTask> indexTasks = Collections.synchronizedList(new ArrayList<>());
     private final ExecutorService queryExecutor;
     private final ExecutorService indexExecutor;
@@ -114,6 +115,7 @@ public class LuceneEventIndex implements EventIndex {
 
     public LuceneEventIndex(final RepositoryConfiguration config, final IndexManager indexManager, final int maxEventsPerCommit, final EventReporter eventReporter) {
         this.eventReporter = eventReporter;
+        documentQueue = new LinkedBlockingQueue<>(config.getIndexQueueSize());
         queryExecutor = Executors.newFixedThreadPool(config.getQueryThreadPoolSize(), new NamedThreadFactory("Provenance Query"));
         indexExecutor = Executors.newFixedThreadPool(config.getIndexThreadPoolSize(), new NamedThreadFactory("Index Provenance Events"));
         cacheWarmerExecutor = Executors.newScheduledThreadPool(config.getStorageDirectories().size(), new NamedThreadFactory("Warm Lucene Index", true));
@@ -335,8 +337,41 @@ public class LuceneEventIndex implements EventIndex {
         final long numEventsLast5 = eventsLast5.getValue();
 
         final long millis = TimeUnit.NANOSECONDS.toMillis(nanosLastFive.getValue());
-        logger.debug("In the last 5 minutes, have spent {} CPU-millis waiting to enqueue events for indexing and have indexed {} events ({} since NiFi started)",
-            millis, numEventsLast5, eventCount.get());
+        logger.debug("In the last 5 minutes, have spent {} CPU-millis waiting to enqueue events for indexing and have indexed {} events ({} since NiFi started); "
+            + "{} events are waiting to be indexed and indexing lags storage by {} millis",
+            millis, numEventsLast5, eventCount.get(), getQueuedEventCount(), getIndexingLag(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public long getIndexingLag(final TimeUnit timeUnit) {
+        // Documents are queued in the order that they are stored, so the oldest document that is not yet searchable
+        // is either at the head of the queue or is in a batch that one of the index tasks is currently indexing.
+        Long oldestNanos = null;
+
+        final StoredDocument head = documentQueue.peek();
+        if (head != null) {
+            oldestNanos = head.getCreationNanos();
+        }
+
+        synchronized (indexTasks) {
+            for (final EventIndexTask task : indexTasks) {
+                final Optional<Long> inFlightNanos = task.getOldestInFlightNanos();
+                if (inFlightNanos.isPresent() && (oldestNanos == null || inFlightNanos.get() - oldestNanos < 0)) {
+                    oldestNanos = inFlightNanos.get();
+                }
+            }
+        }
+
+        if (oldestNanos == null) {
+            return 0L;
+        }
+
+        return timeUnit.convert(Math.max(0L, System.nanoTime() - oldestNanos), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int getQueuedEventCount() {
+        return documentQueue.size();
     }
 
     @Override
@@ -431,32 +466,21 @@ public class LuceneEventIndex implements EventIndex {
         for (final CachedQuery cachedQuery : cachedQueries) {
             final Optional<List<Long>> eventIdListOption = cachedQuery.evaluate(query);
             if (eventIdListOption.isPresent()) {
-                final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
-                querySubmissionMap.put(query.getIdentifier(), submission);
-
-                final List<Long> eventIds = eventIdListOption.get();
-
-                queryExecutor.submit(() -> {
-                    List<ProvenanceEventRecord> events;
-                    try {
-                        events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
-                        submission.getResult().update(events, eventIds.size());
-                    } catch (final Exception e) {
-                        submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
-                        logger.error("Failed to retrieve Provenance Events from store", e);
-                    }
-                });
+                return submitQuery(query, eventIdListOption.get(), authorizer, userId);
+            }
+        }
 
-                // There are some queries that are optimized and will complete very quickly. As a result,
-                // we don't want to wait for the client to issue a second request, so we will give the query
-                // up to 500 milliseconds to complete before running.
-                try {
-                    submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
-                } catch (final InterruptedException e) {
-                    Thread.currentThread().interrupt();
+        // If the query only restricts fields that the Event Store keeps in columnar form, the Event Store can find
+        // the matching events without our having to search the index.
+        final Optional<ColumnarEventFilter> columnarFilter = ColumnarEventFilter.fromQuery(query);
+        if (columnarFilter.isPresent()) {
+            try {
+                final Optional<List<Long>> eventIdListOption = eventStore.findEventIds(columnarFilter.get(), query.getMaxResults());
+                if (eventIdListOption.isPresent()) {
+                    return submitQuery(query, eventIdListOption.get(), authorizer, userId);
                 }
-
-                return submission;
+            } catch (final IOException ioe) {
+                logger.warn("Failed to find events matching query {} using the Event Store; will search the index instead", query, ioe);
             }
         }
 
@@ -494,6 +518,33 @@ public class LuceneEventIndex implements EventIndex {
     }
 
 
+    private QuerySubmission submitQuery(final Query query, final List<Long> eventIds, final EventAuthorizer authorizer, final String userId) {
+        final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
+        querySubmissionMap.put(query.getIdentifier(), submission);
+
+        queryExecutor.submit(() -> {
+            List<ProvenanceEventRecord> events;
+            try {
+                events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
+                submission.getResult().update(events, eventIds.size());
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
+                logger.error("Failed to retrieve Provenance Events from store", e);
+            }
+        });
+
+        // There are some queries that are optimized and will complete very quickly. As a result,
+        // we don't want to wait for the client to issue a second request, so we will give the query
+        // up to 500 milliseconds to complete before running.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
     @Override
     public ComputeLineageSubmission submitLineageComputation(final String flowFileUuid, final NiFiUser user, final EventAuthorizer eventAuthorizer) {
         return submitLineageComputation(Collections.singleton(flowFileUuid), user, eventAuthorizer, LineageComputationType.FLOWFILE_LINEAGE, null, 0L, Long.MAX_VALUE);
@@ -23,6 +23,7 @@ import org.apache.nifi.provenance.serialization.StorageSummary;
 public class StoredDocument {
     private final Document document;
     private final StorageSummary storageSummary;
+    private final long creationNanos = System.nanoTime();
 
     public StoredDocument(final Document document, final StorageSummary summary) {
         this.document = document;
@@ -36,4 +37,11 @@ public class StoredDocument {
     public StorageSummary getStorageSummary() {
         return storageSummary;
     }
+
+    /**
+     * @return the value of {@link System#nanoTime()} when this document was created, which is shortly after the event was stored
+     */
+    public long getCreationNanos() {
+        return creationNanos;
+    }
 }
@@ -27,6 +27,7 @@ import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
 
 /**
  * <p>
@@ -114,6 +115,20 @@ public interface EventStore extends Closeable {
      */
     List<ProvenanceEventRecord> getEvents(List<Long> eventIds, EventAuthorizer authorizer, EventTransformer unauthorizedTransformer) throws IOException;
 
+    /**
+     * Finds the Event ID's of the most recent events that match the given filter by scanning the columnar event files
+     * that are written alongside the events, without reading the events themselves.
+     *
+     * @param filter the filter that determines which events match
+     * @param maxResults the maximum number of Event ID's to return
+     * @return the Event ID's of the most recent matching events, in ascending order, or an empty Optional if the store does not have
+     *         columnar event files for all of its events
+     * @throws IOException if unable to read the columnar event files
+     */
+    default Optional<List<Long>> findEventIds(ColumnarEventFilter filter, int maxResults) throws IOException {
+        return Optional.empty();
+    }
+
     /**
      * Causes the latest events in this store to be re-indexed by the given Event Index
      *
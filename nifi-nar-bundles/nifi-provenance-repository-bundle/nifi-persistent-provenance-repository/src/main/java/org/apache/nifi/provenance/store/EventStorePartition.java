@@ -25,6 +25,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
+import org.apache.nifi.provenance.store.columnar.MatchingEventIds;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 
 public interface EventStorePartition extends Closeable {
@@ -96,6 +98,18 @@ public interface EventStorePartition extends Closeable {
      */
     EventIterator createEventIterator(List<Long> eventIds);
 
+    /**
+     * Adds the Event ID's of the most recent events in the partition that match the given filter to the given results, by
+     * scanning the columnar event files that are written alongside the events
+     *
+     * @param filter the filter that determines which events match
+     * @param results the results to add to
+     * @return <code>true</code> if all of the events in the partition were scanned, <code>false</code> if the partition does not have
+     *         columnar event files for all of its events
+     * @throws IOException if unable to read the columnar event files
+     */
+    boolean findEventIds(ColumnarEventFilter filter, MatchingEventIds results) throws IOException;
+
     /**
      * Purges any events from the partition that are older than the given amount of time
      *
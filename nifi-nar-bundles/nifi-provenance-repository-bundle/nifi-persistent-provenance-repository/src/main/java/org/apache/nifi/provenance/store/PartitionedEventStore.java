@@ -37,6 +37,8 @@ import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
+import org.apache.nifi.provenance.store.columnar.MatchingEventIds;
 import org.apache.nifi.provenance.store.iterator.AuthorizingEventIterator;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.util.DirectoryUtils;
@@ -167,6 +169,18 @@ public abstract class PartitionedEventStore implements EventStore {
         return getEvents(eventIds.size(), authorizer, part -> part.createEventIterator(eventIds), transformer);
     }
 
+    @Override
+    public Optional<List<Long>> findEventIds(final ColumnarEventFilter filter, final int maxResults) throws IOException {
+        final MatchingEventIds results = new MatchingEventIds(maxResults);
+        for (final EventStorePartition partition : getPartitions()) {
+            if (!partition.findEventIds(filter, results)) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(results.getEventIds());
+    }
+
     private List<ProvenanceEventRecord> getEvents(final int maxRecords, final EventAuthorizer authorizer,
         final Function<EventStorePartition, EventIterator> eventIteratorFactory, final EventTransformer transformer) throws IOException {
 
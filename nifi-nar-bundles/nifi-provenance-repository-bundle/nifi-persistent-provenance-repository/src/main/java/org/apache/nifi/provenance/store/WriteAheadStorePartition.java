@@ -20,6 +20,7 @@ package org.apache.nifi.provenance.store;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,6 +33,8 @@ import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -51,9 +54,15 @@ import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFileReader;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFiles;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
+import org.apache.nifi.provenance.store.columnar.ColumnarRecordWriter;
+import org.apache.nifi.provenance.store.columnar.MatchingEventIds;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.store.iterator.SelectiveRecordReaderEventIterator;
 import org.apache.nifi.provenance.store.iterator.SequentialRecordReaderEventIterator;
+import org.apache.nifi.provenance.toc.StandardTocReader;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
@@ -79,6 +88,9 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
     private final SortedMap<Long, File> minEventIdToPathMap = new TreeMap<>();  // guarded by synchronizing on object
 
+    // Each columnar event file is mapped once and the reader reused until the file grows, rather than mapping it again for every query
+    private final ConcurrentMap<File, ColumnarEventFileReader> columnReaders = new ConcurrentHashMap<>();
+
     public WriteAheadStorePartition(final File storageDirectory, final String partitionName, final RepositoryConfiguration repoConfig, final RecordWriterFactory recordWriterFactory,
         final RecordReaderFactory recordReaderFactory, final BlockingQueue<File> filesToCompress, final AtomicLong idGenerator, final EventReporter eventReporter) {
 
@@ -94,6 +106,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
     @Override
     public void close() throws IOException {
         closed = true;
+        columnReaders.clear();
 
         final RecordWriterLease lease = eventWriterLeaseRef.get();
         if (lease != null) {
@@ -252,7 +265,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
         final long nextEventId = idGenerator.get();
         final File updatedEventFile = new File(partitionDirectory, nextEventId + ".prov");
-        final RecordWriter updatedWriter = recordWriterFactory.createWriter(updatedEventFile, idGenerator, false, true);
+        final RecordWriter updatedWriter = createWriter(updatedEventFile);
         final RecordWriterLease updatedLease = new RecordWriterLease(updatedWriter, config.getMaxEventFileCapacity(), config.getMaxEventFileCount());
         final boolean updated = eventWriterLeaseRef.compareAndSet(lease, updatedLease);
 
@@ -284,10 +297,25 @@ public class WriteAheadStorePartition implements EventStorePartition {
             }
 
             updatedEventFile.delete();
+            ColumnarEventFiles.getColumnFile(updatedEventFile).delete();
             return false;
         }
     }
 
+    private RecordWriter createWriter(final File eventFile) throws IOException {
+        final RecordWriter writer = recordWriterFactory.createWriter(eventFile, idGenerator, false, true);
+        if (!config.isWriteEventColumns()) {
+            return writer;
+        }
+
+        try {
+            return new ColumnarRecordWriter(writer, ColumnarEventFiles.getColumnFile(eventFile));
+        } catch (final IOException ioe) {
+            writer.close();
+            throw ioe;
+        }
+    }
+
     private Map<ProvenanceEventRecord, StorageSummary> addEvents(final Iterable<ProvenanceEventRecord> events, final RecordWriter writer) throws IOException {
         final Map<ProvenanceEventRecord, StorageSummary> locationMap = new HashMap<>();
 
@@ -444,6 +472,136 @@ public class WriteAheadStorePartition implements EventStorePartition {
         return new SelectiveRecordReaderEventIterator(allFiles, recordReaderFactory, eventIds, config.getMaxAttributeChars());
     }
 
+    @Override
+    public boolean findEventIds(final ColumnarEventFilter filter, final MatchingEventIds results) throws IOException {
+        if (!config.isWriteEventColumns()) {
+            return false;
+        }
+
+        // Every event up to this ID has already been written to the columnar event files
+        final long maxFlushedEventId = maxEventId.get();
+
+        final List<Map.Entry<Long, File>> eventFiles;
+        synchronized (minEventIdToPathMap) {
+            eventFiles = new ArrayList<>(minEventIdToPathMap.entrySet());
+        }
+
+        // Scan the most recent files first. Once we have as many results as were asked for, we can stop as soon as we reach
+        // a file whose events are all older than the results that we already have.
+        Long nextMinEventId = null;
+        for (int i = eventFiles.size() - 1; i >= 0; i--) {
+            if (nextMinEventId != null && !results.isCandidate(nextMinEventId - 1)) {
+                break;
+            }
+
+            final File eventFile = eventFiles.get(i).getValue();
+            nextMinEventId = eventFiles.get(i).getKey();
+
+            final ColumnarEventFileReader reader;
+            try {
+                reader = getColumnReader(eventFile, i == eventFiles.size() - 1, maxFlushedEventId);
+            } catch (final NoSuchFileException nsfe) {
+                if (!isEventFilePresent(eventFile)) {
+                    continue; // the event file was purged while we were scanning
+                }
+
+                logger.debug("{} has no columnar event file for {}; its events must be found using the index", this, eventFile);
+                return false;
+            }
+
+            if (reader == null) {
+                if (!isEventFilePresent(eventFile)) {
+                    continue;
+                }
+
+                return false;
+            }
+
+            reader.findEventIds(filter, results);
+        }
+
+        return true;
+    }
+
+    private boolean isEventFilePresent(final File eventFile) {
+        return eventFile.exists() || new File(eventFile.getPath() + ".gz").exists();
+    }
+
+    /**
+     * Returns a reader for the columnar event file that describes the given event file. A reader is verified against the event file's
+     * Table of Contents whenever it is opened, and on every call for the most recent event file, as that file may still be written to.
+     *
+     * @param eventFile the event file
+     * @param mostRecent whether or not the event file is the most recent event file in the partition
+     * @param maxFlushedEventId the largest Event ID that is known to have been written to the columnar event files
+     * @return a reader for the columnar event file, or <code>null</code> if the columnar event file does not describe every event in the event file
+     * @throws IOException if unable to open the columnar event file
+     */
+    private ColumnarEventFileReader getColumnReader(final File eventFile, final boolean mostRecent, final long maxFlushedEventId) throws IOException {
+        final File columnFile = ColumnarEventFiles.getColumnFile(eventFile);
+
+        ColumnarEventFileReader reader = columnReaders.get(columnFile);
+        final boolean reopen = reader == null || reader.getLength() != columnFile.length();
+        if (reopen) {
+            reader = ColumnarEventFileReader.open(columnFile);
+        }
+
+        if ((reopen || mostRecent) && !isCoveredByColumns(eventFile, reader, maxFlushedEventId)) {
+            columnReaders.remove(columnFile);
+            return null;
+        }
+
+        if (reopen) {
+            columnReaders.put(columnFile, reader);
+        }
+
+        return reader;
+    }
+
+    /**
+     * A columnar event file may be missing events if a block could not be written, or if a query runs while events are being
+     * added. In either case, the Table of Contents of the event file will list a block that begins with an event the columnar
+     * event file does not contain, so the events must be found using the index instead. Blocks that begin after the given
+     * Event ID are not considered, as the Table of Contents lists a block before any of its events have been written.
+     *
+     * @return <code>true</code> if the columnar event file contains the first event of every block in the event file's Table of Contents
+     *         that begins at or before the given Event ID
+     */
+    private boolean isCoveredByColumns(final File eventFile, final ColumnarEventFileReader reader, final long maxFlushedEventId) {
+        final File tocFile = TocUtil.getTocFile(eventFile);
+        final StandardTocReader tocReader;
+        try {
+            tocReader = new StandardTocReader(tocFile);
+        } catch (final IOException ioe) {
+            logger.debug("{} could not read Table of Contents {} to verify {}; events must be found using the index", this, tocFile, reader.getFile(), ioe);
+            return false;
+        }
+
+        try {
+            int lastBlockIndex = tocReader.getBlockIndex(tocReader.getLastBlockOffset());
+            while (lastBlockIndex >= 0 && tocReader.getFirstEventIdForBlock(lastBlockIndex) > maxFlushedEventId) {
+                lastBlockIndex--;
+            }
+
+            if (lastBlockIndex < 0) {
+                return true; // no events have been written to the event file yet
+            }
+
+            final long firstEventId = tocReader.getFirstEventIdForBlock(0);
+            final long lastBlockFirstEventId = tocReader.getFirstEventIdForBlock(lastBlockIndex);
+            if (firstEventId < 0 || reader.getEventCount() == 0 || reader.getMinEventId() > firstEventId || reader.getMaxEventId() < lastBlockFirstEventId) {
+                logger.debug("{} found that {} covers Event IDs {} through {}, but {} has blocks beginning with Event IDs {} through {}; "
+                    + "events must be found using the index", this, reader.getFile(), reader.getMinEventId(), reader.getMaxEventId(),
+                    eventFile, firstEventId, lastBlockFirstEventId);
+                return false;
+            }
+
+            return true;
+        } finally {
+            tocReader.close();
+        }
+    }
+
     private Optional<File> getPathForEventId(final long id) {
         File lastFile = null;
 
@@ -510,6 +668,12 @@ public class WriteAheadStorePartition implements EventStorePartition {
             logger.warn("Failed to remove Provenance Table-of-Contents file {}; this file should be cleaned up manually", tocFile);
         }
 
+        final File columnFile = ColumnarEventFiles.getColumnFile(file);
+        columnReaders.remove(columnFile);
+        if (columnFile.exists() && !columnFile.delete()) {
+            logger.warn("Failed to remove Provenance columnar event file {}; this file should be cleaned up manually", columnFile);
+        }
+
         return true;
     }
 
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Reads a columnar event file (see {@link ColumnarEventFiles}) by memory-mapping it. Each block records the range of
+ * Event ID's and Event Times that it contains, so blocks that cannot contain a matching event are skipped without
+ * reading any of their columns. Within a block, only the columns that are needed to evaluate the filter are read,
+ * and the values of dictionary-encoded columns are compared once per block rather than once per event.
+ * </p>
+ *
+ * <p>
+ * A reader sees the blocks that had been written when it was opened. Instances are thread-safe. The mapping is released
+ * once the reader is no longer referenced.
+ * </p>
+ */
+public class ColumnarEventFileReader {
+    private static final int COLUMN_EVENT_ID = 0;
+    private static final int COLUMN_EVENT_TIME = 1;
+    private static final int COLUMN_EVENT_TYPE = 2;
+    private static final int COLUMN_COMPONENT_ID = 3;
+    private static final int COLUMN_FLOWFILE_UUID = 4;
+    private static final int COLUMN_COUNT = 5;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final List<Integer> blockOffsets;
+
+    private ColumnarEventFileReader(final File file, final ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        if (buffer.limit() < ColumnarEventFiles.FILE_HEADER_LENGTH || buffer.getInt(0) != ColumnarEventFiles.MAGIC_HEADER) {
+            throw new IOException(file + " is not a columnar event file");
+        }
+
+        final int version = buffer.getInt(4);
+        if (version != ColumnarEventFiles.VERSION) {
+            throw new IOException("Cannot read " + file + " because it was written using version " + version + " of the columnar event file format, but "
+                + "only version " + ColumnarEventFiles.VERSION + " is supported");
+        }
+
+        // Find the start of each block. The last block may be incomplete if it is still being written, in which case it is ignored.
+        blockOffsets = new ArrayList<>();
+        int offset = ColumnarEventFiles.FILE_HEADER_LENGTH;
+        while (offset + ColumnarEventFiles.BLOCK_HEADER_LENGTH <= buffer.limit()) {
+            final int blockLength = buffer.getInt(offset);
+            if (blockLength < ColumnarEventFiles.BLOCK_HEADER_LENGTH - 4 || (long) offset + 4 + blockLength > buffer.limit()) {
+                break;
+            }
+
+            blockOffsets.add(offset);
+            offset += 4 + blockLength;
+        }
+    }
+
+    /**
+     * Memory-maps the given columnar event file
+     *
+     * @param file the file to read
+     * @return a reader for the file
+     * @throws IOException if unable to map the file, or if the file is not a columnar event file
+     */
+    public static ColumnarEventFileReader open(final File file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            return new ColumnarEventFileReader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of events in the file
+     */
+    public int getEventCount() {
+        int count = 0;
+        for (final int blockOffset : blockOffsets) {
+            count += buffer.getInt(blockOffset + 4);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of bytes of the file that were mapped when the reader was opened
+     */
+    public long getLength() {
+        return buffer.limit();
+    }
+
+    /**
+     * @return the smallest Event ID in the file, or -1 if the file contains no events
+     */
+    public long getMinEventId() {
+        long min = Long.MAX_VALUE;
+        for (final int blockOffset : blockOffsets) {
+            min = Math.min(min, buffer.getLong(blockOffset + 8));
+        }
+        return blockOffsets.isEmpty() ? -1L : min;
+    }
+
+    /**
+     * @return the largest Event ID in the file, or -1 if the file contains no events
+     */
+    public long getMaxEventId() {
+        long max = -1L;
+        for (final int blockOffset : blockOffsets) {
+            max = Math.max(max, buffer.getLong(blockOffset + 16));
+        }
+        return max;
+    }
+
+    /**
+     * Adds the Event ID of each event in the file that matches the given filter to the given results. Blocks are read
+     * from the most recent to the oldest, and blocks whose events are all older than the results already collected are skipped.
+     *
+     * @param filter the filter that determines which events match
+     * @param results the results to add to
+     */
+    public void findEventIds(final ColumnarEventFilter filter, final MatchingEventIds results) {
+        for (int i = blockOffsets.size() - 1; i >= 0; i--) {
+            scanBlock(blockOffsets.get(i), filter, results);
+        }
+    }
+
+    private void scanBlock(final int blockOffset, final ColumnarEventFilter filter, final MatchingEventIds results) {
+        final int eventCount = buffer.getInt(blockOffset + 4);
+        final long minEventId = buffer.getLong(blockOffset + 8);
+        final long maxEventId = buffer.getLong(blockOffset + 16);
+        final long minEventTime = buffer.getLong(blockOffset + 24);
+        final long maxEventTime = buffer.getLong(blockOffset + 32);
+
+        if (!results.isCandidate(maxEventId) || !filter.overlapsTimeRange(minEventTime, maxEventTime)) {
+            return;
+        }
+
+        final int[] columnOffsets = new int[COLUMN_COUNT];
+        int offset = blockOffset + ColumnarEventFiles.BLOCK_HEADER_LENGTH;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            final int columnLength = buffer.getInt(offset);
+            columnOffsets[column] = offset + 4;
+            offset += 4 + columnLength;
+        }
+
+        final boolean checkTime = !(filter.matchesEventTime(minEventTime) && filter.matchesEventTime(maxEventTime));
+        final DictionaryColumn eventTypes = filter.isEventTypeRestricted()
+            ? new DictionaryColumn(columnOffsets[COLUMN_EVENT_TYPE], filter::matchesEventType) : null;
+        final DictionaryColumn componentIds = filter.isComponentIdRestricted()
+            ? new DictionaryColumn(columnOffsets[COLUMN_COMPONENT_ID], filter::matchesComponentId) : null;
+        final UuidColumn flowFileUuids = filter.isFlowFileUuidRestricted()
+            ? new UuidColumn(columnOffsets[COLUMN_FLOWFILE_UUID], filter) : null;
+
+        if ((eventTypes != null && !eventTypes.anyMatch()) || (componentIds != null && !componentIds.anyMatch())
+            || (flowFileUuids != null && !flowFileUuids.anyMatch())) {
+            return;
+        }
+
+        final int eventIdOffset = columnOffsets[COLUMN_EVENT_ID];
+        final int eventTimeOffset = columnOffsets[COLUMN_EVENT_TIME];
+        for (int i = 0; i < eventCount; i++) {
+            if (checkTime && !filter.matchesEventTime(getNumber(eventTimeOffset, i, minEventTime))) {
+                continue;
+            }
+            if (eventTypes != null && !eventTypes.matches(i)) {
+                continue;
+            }
+            if (componentIds != null && !componentIds.matches(i)) {
+                continue;
+            }
+            if (flowFileUuids != null && !flowFileUuids.matches(i)) {
+                continue;
+            }
+
+            results.add(getNumber(eventIdOffset, i, minEventId));
+        }
+    }
+
+    private long getNumber(final int columnOffset, final int index, final long min) {
+        if (buffer.get(columnOffset) == ColumnarEventFiles.ENCODING_INT_OFFSETS) {
+            return min + buffer.getInt(columnOffset + 1 + index * 4);
+        } else {
+            return buffer.getLong(columnOffset + 1 + index * 8);
+        }
+    }
+
+    private String getString(final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * A dictionary-encoded column, along with which of the dictionary's values are of interest
+     */
+    private class DictionaryColumn {
+        private final boolean[] matchingValues;
+        private final int indexOffset;
+        private final int indexWidth;
+        private boolean anyMatch = false;
+
+        DictionaryColumn(final int columnOffset, final Predicate<String> filter) {
+            final int dictionarySize = buffer.getInt(columnOffset + 1);
+            matchingValues = new boolean[dictionarySize];
+
+            int offset = columnOffset + 5;
+            for (int i = 0; i < dictionarySize; i++) {
+                final int length = buffer.getInt(offset);
+                final boolean match = filter.test(getString(offset + 4, length));
+                matchingValues[i] = match;
+                anyMatch |= match;
+                offset += 4 + length;
+            }
+
+            indexOffset = offset;
+            indexWidth = ColumnarRecordWriter.getIndexWidth(dictionarySize);
+        }
+
+        boolean anyMatch() {
+            return anyMatch;
+        }
+
+        boolean matches(final int eventIndex) {
+            final int dictionaryIndex;
+            switch (indexWidth) {
+                case 1:
+                    dictionaryIndex = buffer.get(indexOffset + eventIndex) & 0xFF;
+                    break;
+                case 2:
+                    dictionaryIndex = buffer.getShort(indexOffset + eventIndex * 2) & 0xFFFF;
+                    break;
+                default:
+                    dictionaryIndex = buffer.getInt(indexOffset + eventIndex * 4);
+                    break;
+            }
+
+            return matchingValues[dictionaryIndex];
+        }
+    }
+
+    /**
+     * The FlowFile UUID column, which may be written either as pairs of longs or dictionary-encoded
+     */
+    private class UuidColumn {
+        private final DictionaryColumn dictionary;
+        private final int valueOffset;
+        private final long[] mostSignificantBits;
+        private final long[] leastSignificantBits;
+
+        UuidColumn(final int columnOffset, final ColumnarEventFilter filter) {
+            if (buffer.get(columnOffset) == ColumnarEventFiles.ENCODING_DICTIONARY) {
+                dictionary = new DictionaryColumn(columnOffset, filter::matchesFlowFileUuid);
+                valueOffset = -1;
+                mostSignificantBits = null;
+                leastSignificantBits = null;
+                return;
+            }
+
+            dictionary = null;
+            valueOffset = columnOffset + 1;
+
+            final List<UUID> uuids = new ArrayList<>();
+            for (final String candidate : filter.getFlowFileUuids()) {
+                final UUID uuid = ColumnarRecordWriter.toUuid(candidate);
+                if (uuid != null) {
+                    uuids.add(uuid);
+                }
+            }
+
+            mostSignificantBits = new long[uuids.size()];
+            leastSignificantBits = new long[uuids.size()];
+            for (int i = 0; i < uuids.size(); i++) {
+                mostSignificantBits[i] = uuids.get(i).getMostSignificantBits();
+                leastSignificantBits[i] = uuids.get(i).getLeastSignificantBits();
+            }
+        }
+
+        boolean anyMatch() {
+            return dictionary == null ? mostSignificantBits.length > 0 : dictionary.anyMatch();
+        }
+
+        boolean matches(final int eventIndex) {
+            if (dictionary != null) {
+                return dictionary.matches(eventIndex);
+            }
+
+            final long most = buffer.getLong(valueOffset + eventIndex * 16);
+            final long least = buffer.getLong(valueOffset + eventIndex * 16 + 8);
+            for (int i = 0; i < mostSignificantBits.length; i++) {
+                if (mostSignificantBits[i] == most && leastSignificantBits[i] == least) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarEventFileReader[file=" + file + "]";
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.File;
+
+import org.apache.nifi.provenance.lucene.LuceneUtil;
+
+/**
+ * <p>
+ * Constants and utility methods for the columnar event files that may be written alongside each Provenance
+ * event file. A columnar event file holds only the Event ID, Event Time, Event Type, Component ID and FlowFile UUID
+ * of each event, stored column-by-column, so that scans over those fields need neither decompress nor deserialize
+ * the events themselves.
+ * </p>
+ *
+ * <p>
+ * Format of a .cols file:
+ * </p>
+ *
+ * <pre>
+ * int: magic header
+ * int: version
+ * block*:
+ *   int: length of the block, in bytes, not including this field
+ *   int: number of events in the block
+ *   long: min Event ID, long: max Event ID
+ *   long: min Event Time, long: max Event Time
+ *   column: Event ID
+ *   column: Event Time
+ *   column: Event Type
+ *   column: Component ID
+ *   column: FlowFile UUID
+ * </pre>
+ *
+ * <p>
+ * Each column is written as an int length (not including the length field itself), a single byte indicating the
+ * encoding, and the encoded values. Numeric columns are written as int offsets from the block's minimum value if
+ * they fit, or as longs otherwise. String columns are dictionary-encoded: the distinct values of the block are
+ * written once and each event refers to its value by index. FlowFile UUID's are written as two longs each, unless
+ * any of them cannot be parsed as a UUID, in which case the column is dictionary-encoded.
+ * </p>
+ *
+ * <p>
+ * A block is written only after the events that it describes have been flushed to the event file, so every event
+ * in a columnar event file can be retrieved from the corresponding event file.
+ * </p>
+ */
+public class ColumnarEventFiles {
+    static final int MAGIC_HEADER = 0x4E43454C;
+    static final int VERSION = 1;
+    static final int FILE_HEADER_LENGTH = 8;
+    static final int BLOCK_HEADER_LENGTH = 40;
+
+    static final byte ENCODING_INT_OFFSETS = 0;
+    static final byte ENCODING_LONGS = 1;
+    static final byte ENCODING_DICTIONARY = 2;
+    static final byte ENCODING_UUID = 3;
+
+    /**
+     * Returns the columnar event file for the given event file. The file that is returned may not exist.
+     *
+     * @param eventFile the event file
+     * @return the columnar event file that describes the events in the given event file
+     */
+    public static File getColumnFile(final File eventFile) {
+        final File columnDir = new File(eventFile.getParentFile(), "cols");
+        final String basename = LuceneUtil.substringBefore(eventFile.getName(), ".prov");
+        return new File(columnDir, basename + ".cols");
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerm;
+import org.apache.nifi.provenance.search.SearchableField;
+
+/**
+ * Describes which events should be selected when scanning columnar event files. Events are selected if their
+ * Event Time falls within the (inclusive) time range and their Event Type, Component ID and FlowFile UUID are each
+ * one of the given values. A <code>null</code> bound or an empty collection of values matches any event. Values are
+ * compared without regard to case, as they are when searching the Lucene index.
+ */
+public class ColumnarEventFilter {
+    public static final ColumnarEventFilter ALL_EVENTS = new ColumnarEventFilter(null, null, null, null, null);
+
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final Set<String> eventTypes;
+    private final Set<String> componentIds;
+    private final Set<String> flowFileUuids;
+
+    public ColumnarEventFilter(final Long minEventTime, final Long maxEventTime, final Collection<String> eventTypes, final Collection<String> componentIds,
+        final Collection<String> flowFileUuids) {
+        this.minEventTime = minEventTime == null ? Long.MIN_VALUE : minEventTime;
+        this.maxEventTime = maxEventTime == null ? Long.MAX_VALUE : maxEventTime;
+        this.eventTypes = normalize(eventTypes);
+        this.componentIds = normalize(componentIds);
+        this.flowFileUuids = normalize(flowFileUuids);
+    }
+
+    private static Set<String> normalize(final Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        return values.stream()
+            .map(value -> value.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Creates a filter that selects the same events as the given query, if the query can be answered by scanning
+     * the columnar event files. This is the case only for queries that restrict the Event Time, Event Type and
+     * Component ID, without wildcards. The FlowFile UUID cannot be searched this way, because searching the index for a
+     * FlowFile UUID also finds the events of that FlowFile's parents and children.
+     *
+     * @param query the query
+     * @return a filter that selects the same events as the query, or an empty Optional if the query cannot be answered by scanning the columnar event files
+     */
+    public static Optional<ColumnarEventFilter> fromQuery(final Query query) {
+        if (query.getMinFileSize() != null || query.getMaxFileSize() != null) {
+            return Optional.empty();
+        }
+
+        String eventType = null;
+        String componentId = null;
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            final SearchableField field = searchTerm.getSearchableField();
+            final String value = searchTerm.getValue();
+            if (value == null || value.contains("*") || value.contains("?")) {
+                return Optional.empty();
+            }
+
+            if (SearchableFields.EventType.equals(field) && eventType == null) {
+                eventType = value;
+            } else if (SearchableFields.ComponentID.equals(field) && componentId == null) {
+                componentId = value;
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        final Long minEventTime = query.getStartDate() == null ? null : query.getStartDate().getTime();
+        final Long maxEventTime = query.getEndDate() == null ? null : query.getEndDate().getTime();
+        return Optional.of(new ColumnarEventFilter(minEventTime, maxEventTime, toSet(eventType), toSet(componentId), null));
+    }
+
+    private static Set<String> toSet(final String value) {
+        return value == null ? null : Collections.singleton(value);
+    }
+
+    boolean overlapsTimeRange(final long min, final long max) {
+        return max >= minEventTime && min <= maxEventTime;
+    }
+
+    boolean matchesEventTime(final long eventTime) {
+        return eventTime >= minEventTime && eventTime <= maxEventTime;
+    }
+
+    boolean isEventTypeRestricted() {
+        return !eventTypes.isEmpty();
+    }
+
+    boolean matchesEventType(final String eventType) {
+        return eventTypes.contains(eventType.toLowerCase(Locale.ROOT));
+    }
+
+    boolean isComponentIdRestricted() {
+        return !componentIds.isEmpty();
+    }
+
+    boolean matchesComponentId(final String componentId) {
+        return componentIds.contains(componentId.toLowerCase(Locale.ROOT));
+    }
+
+    boolean isFlowFileUuidRestricted() {
+        return !flowFileUuids.isEmpty();
+    }
+
+    Set<String> getFlowFileUuids() {
+        return flowFileUuids;
+    }
+
+    boolean matchesFlowFileUuid(final String flowFileUuid) {
+        return flowFileUuids.contains(flowFileUuid.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarEventFilter[minEventTime=" + minEventTime + ", maxEventTime=" + maxEventTime + ", eventTypes=" + eventTypes
+            + ", componentIds=" + componentIds + ", flowFileUuids=" + flowFileUuids + "]";
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.toc.TocWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link RecordWriter} that delegates to another RecordWriter and additionally writes a columnar summary of each
+ * event to a columnar event file. The events that are written are buffered in memory and appended to the columnar
+ * event file as a single block each time that the writer is flushed. See {@link ColumnarEventFiles} for the format.
+ */
+public class ColumnarRecordWriter implements RecordWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarRecordWriter.class);
+
+    private final RecordWriter delegate;
+    private final File columnFile;
+    private final FileChannel columnChannel;
+
+    // guarded by synchronizing on this
+    private final ColumnBuffer buffer = new ColumnBuffer();
+    private boolean columnsClosed = false;
+
+    public ColumnarRecordWriter(final RecordWriter delegate, final File columnFile) throws IOException {
+        this.delegate = delegate;
+        this.columnFile = columnFile;
+
+        final File columnDir = columnFile.getParentFile();
+        if (!columnDir.exists()) {
+            Files.createDirectories(columnDir.toPath());
+        }
+
+        columnChannel = FileChannel.open(columnFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(ColumnarEventFiles.FILE_HEADER_LENGTH);
+            header.putInt(ColumnarEventFiles.MAGIC_HEADER);
+            header.putInt(ColumnarEventFiles.VERSION);
+            header.flip();
+            writeFully(header);
+        } catch (final IOException ioe) {
+            columnChannel.close();
+            throw ioe;
+        }
+    }
+
+    @Override
+    public void writeHeader(final long firstEventId) throws IOException {
+        delegate.writeHeader(firstEventId);
+    }
+
+    @Override
+    public StorageSummary writeRecord(final ProvenanceEventRecord record) throws IOException {
+        final StorageSummary summary = delegate.writeRecord(record);
+
+        synchronized (this) {
+            if (columnsClosed) {
+                return summary;
+            }
+
+            buffer.add(summary.getEventId(), record.getEventTime(), record.getEventType().name(), record.getComponentId(), record.getFlowFileUuid());
+        }
+
+        return summary;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Flush the events before describing them, so that every event in the columnar file can be read from the event file.
+        delegate.flush();
+        writeBlock();
+    }
+
+    private synchronized void writeBlock() throws IOException {
+        if (buffer.size() == 0 || columnsClosed) {
+            return;
+        }
+
+        final ByteBuffer block = ByteBuffer.wrap(buffer.encode());
+        try {
+            writeFully(block);
+        } catch (final IOException ioe) {
+            // Part of the block may have been written, so nothing that follows it could be read. The events have already been
+            // written to the event file, so rather than failing the update, stop writing columns and remove the columnar event file.
+            // Queries over the event file then fall back to the index.
+            logger.warn("Failed to write to columnar event file {}; it will be removed, and the events in {} will be found using the index",
+                columnFile, delegate.getFile(), ioe);
+            abandonColumns();
+            return;
+        }
+
+        buffer.clear();
+    }
+
+    private void abandonColumns() {
+        columnsClosed = true;
+        buffer.clear();
+
+        try {
+            columnChannel.close();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to close columnar event file {}", columnFile, ioe);
+        }
+
+        if (columnFile.exists() && !columnFile.delete()) {
+            logger.warn("Failed to remove columnar event file {}; this file should be cleaned up manually", columnFile);
+        }
+    }
+
+    private void writeFully(final ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            columnChannel.write(data);
+        }
+    }
+
+    @Override
+    public int getRecordsWritten() {
+        return delegate.getRecordsWritten();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return delegate.getBytesWritten();
+    }
+
+    @Override
+    public File getFile() {
+        return delegate.getFile();
+    }
+
+    public File getColumnFile() {
+        return columnFile;
+    }
+
+    @Override
+    public void lock() {
+        delegate.lock();
+    }
+
+    @Override
+    public void unlock() {
+        delegate.unlock();
+    }
+
+    @Override
+    public boolean tryLock() {
+        return delegate.tryLock();
+    }
+
+    @Override
+    public void markDirty() {
+        delegate.markDirty();
+    }
+
+    @Override
+    public boolean isDirty() {
+        return delegate.isDirty();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        delegate.sync();
+
+        synchronized (this) {
+            if (!columnsClosed) {
+                columnChannel.force(false);
+            }
+        }
+    }
+
+    @Override
+    public TocWriter getTocWriter() {
+        return delegate.getTocWriter();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!delegate.isClosed() && !delegate.isDirty()) {
+                flush();
+            }
+        } finally {
+            synchronized (this) {
+                columnsClosed = true;
+                columnChannel.close();
+            }
+
+            delegate.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarRecordWriter[delegate=" + delegate + ", columnFile=" + columnFile + "]";
+    }
+
+
+    /**
+     * Holds the values of the events that have been written since the last block was written
+     */
+    private static class ColumnBuffer {
+        private long[] eventIds = new long[64];
+        private long[] eventTimes = new long[64];
+        private String[] eventTypes = new String[64];
+        private String[] componentIds = new String[64];
+        private String[] flowFileUuids = new String[64];
+        private int size = 0;
+
+        void add(final long eventId, final long eventTime, final String eventType, final String componentId, final String flowFileUuid) {
+            if (size == eventIds.length) {
+                final int capacity = size * 2;
+                eventIds = Arrays.copyOf(eventIds, capacity);
+                eventTimes = Arrays.copyOf(eventTimes, capacity);
+                eventTypes = Arrays.copyOf(eventTypes, capacity);
+                componentIds = Arrays.copyOf(componentIds, capacity);
+                flowFileUuids = Arrays.copyOf(flowFileUuids, capacity);
+            }
+
+            eventIds[size] = eventId;
+            eventTimes[size] = eventTime;
+            eventTypes[size] = eventType;
+            componentIds[size] = componentId == null ? "" : componentId;
+            flowFileUuids[size] = flowFileUuid == null ? "" : flowFileUuid;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            Arrays.fill(eventTypes, 0, size, null);
+            Arrays.fill(componentIds, 0, size, null);
+            Arrays.fill(flowFileUuids, 0, size, null);
+            size = 0;
+        }
+
+        byte[] encode() throws IOException {
+            final long minEventId = min(eventIds);
+            final long maxEventId = max(eventIds);
+            final long minEventTime = min(eventTimes);
+            final long maxEventTime = max(eventTimes);
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream(ColumnarEventFiles.BLOCK_HEADER_LENGTH + size * 32);
+            final DataOutputStream out = new DataOutputStream(baos);
+            out.writeInt(0); // placeholder for the block length
+            out.writeInt(size);
+            out.writeLong(minEventId);
+            out.writeLong(maxEventId);
+            out.writeLong(minEventTime);
+            out.writeLong(maxEventTime);
+
+            writeColumn(out, column -> writeNumbers(column, eventIds, minEventId, maxEventId));
+            writeColumn(out, column -> writeNumbers(column, eventTimes, minEventTime, maxEventTime));
+            writeColumn(out, column -> writeDictionary(column, eventTypes));
+            writeColumn(out, column -> writeDictionary(column, componentIds));
+            writeColumn(out, column -> writeUuids(column, flowFileUuids));
+
+            final byte[] block = baos.toByteArray();
+            ByteBuffer.wrap(block).putInt(0, block.length - 4);
+            return block;
+        }
+
+        private long min(final long[] values) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        }
+
+        private long max(final long[] values) {
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        }
+
+        private void writeColumn(final DataOutputStream out, final ColumnEncoder encoder) throws IOException {
+            final ByteArrayOutputStream column = new ByteArrayOutputStream();
+            encoder.encode(new DataOutputStream(column));
+            out.writeInt(column.size());
+            column.writeTo(out);
+        }
+
+        private void writeNumbers(final DataOutputStream out, final long[] values, final long min, final long max) throws IOException {
+            if (max - min >= 0 && max - min <= Integer.MAX_VALUE) {
+                out.writeByte(ColumnarEventFiles.ENCODING_INT_OFFSETS);
+                for (int i = 0; i < size; i++) {
+                    out.writeInt((int) (values[i] - min));
+                }
+            } else {
+                out.writeByte(ColumnarEventFiles.ENCODING_LONGS);
+                for (int i = 0; i < size; i++) {
+                    out.writeLong(values[i]);
+                }
+            }
+        }
+
+        private void writeDictionary(final DataOutputStream out, final String[] values) throws IOException {
+            final Map<String, Integer> dictionary = new HashMap<>();
+            final List<String> distinctValues = new ArrayList<>();
+            final int[] indices = new int[size];
+            for (int i = 0; i < size; i++) {
+                final String value = values[i];
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    index = distinctValues.size();
+                    dictionary.put(value, index);
+                    distinctValues.add(value);
+                }
+                indices[i] = index;
+            }
+
+            out.writeByte(ColumnarEventFiles.ENCODING_DICTIONARY);
+            out.writeInt(distinctValues.size());
+            for (final String value : distinctValues) {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            final int indexWidth = getIndexWidth(distinctValues.size());
+            for (int i = 0; i < size; i++) {
+                switch (indexWidth) {
+                    case 1:
+                        out.writeByte(indices[i]);
+                        break;
+                    case 2:
+                        out.writeShort(indices[i]);
+                        break;
+                    default:
+                        out.writeInt(indices[i]);
+                        break;
+                }
+            }
+        }
+
+        private void writeUuids(final DataOutputStream out, final String[] values) throws IOException {
+            final long[] bits = new long[size * 2];
+            for (int i = 0; i < size; i++) {
+                final UUID uuid = toUuid(values[i]);
+                if (uuid == null) {
+                    writeDictionary(out, values);
+                    return;
+                }
+
+                bits[i * 2] = uuid.getMostSignificantBits();
+                bits[i * 2 + 1] = uuid.getLeastSignificantBits();
+            }
+
+            out.writeByte(ColumnarEventFiles.ENCODING_UUID);
+            for (final long value : bits) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    static int getIndexWidth(final int dictionarySize) {
+        if (dictionarySize <= 256) {
+            return 1;
+        }
+        if (dictionarySize <= 65536) {
+            return 2;
+        }
+        return 4;
+    }
+
+    /**
+     * @param value the value to parse
+     * @return the UUID that the given value is the canonical representation of, or <code>null</code> if the value is not a UUID
+     */
+    static UUID toUuid(final String value) {
+        if (value.length() != 36) {
+            return null;
+        }
+
+        try {
+            final UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (final IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    private interface ColumnEncoder {
+        void encode(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the largest (i.e., most recent) Event ID's of the events that match a {@link ColumnarEventFilter}, up to
+ * some maximum number. This is not thread-safe.
+ */
+public class MatchingEventIds {
+    private final int maxResults;
+    private final PriorityQueue<Long> eventIds = new PriorityQueue<>();
+
+    public MatchingEventIds(final int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * @param maxEventId the largest Event ID of some group of events
+     * @return <code>true</code> if any event in a group of events with the given maximum Event ID could be among the results
+     */
+    public boolean isCandidate(final long maxEventId) {
+        return maxResults > 0 && (eventIds.size() < maxResults || maxEventId > eventIds.peek());
+    }
+
+    public void add(final long eventId) {
+        if (!isCandidate(eventId)) {
+            return;
+        }
+
+        eventIds.add(eventId);
+        if (eventIds.size() > maxResults) {
+            eventIds.poll();
+        }
+    }
+
+    public int size() {
+        return eventIds.size();
+    }
+
+    /**
+     * @return the Event ID's that have been collected, in ascending order
+     */
+    public List<Long> getEventIds() {
+        final List<Long> sorted = new ArrayList<>(eventIds);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
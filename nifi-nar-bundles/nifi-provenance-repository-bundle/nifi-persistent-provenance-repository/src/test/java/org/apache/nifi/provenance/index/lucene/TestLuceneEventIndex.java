@@ -29,6 +29,7 @@ import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lineage.LineageNode;
 import org.apache.nifi.provenance.lineage.LineageNodeType;
 import org.apache.nifi.provenance.lineage.ProvenanceEventLineageNode;
+import org.apache.nifi.provenance.index.EventIndexWriter;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.SimpleIndexManager;
 import org.apache.nifi.provenance.search.Query;
@@ -56,6 +57,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -107,6 +109,65 @@ public class TestLuceneEventIndex {
         assertTrue(id >= 30000L);
     }
 
+    @Test(timeout = 60000)
+    public void testIndexingLag() throws InterruptedException {
+        assumeFalse(isWindowsEnvironment());
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        repoConfig.setIndexQueueSize(1_000);
+
+        // hold up the index task until the lag has been observed
+        final CountDownLatch indexingAllowed = new CountDownLatch(1);
+        final IndexManager indexManager = new SimpleIndexManager(repoConfig) {
+            @Override
+            public EventIndexWriter borrowIndexWriter(final File indexDirectory) throws IOException {
+                try {
+                    indexingAllowed.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                return super.borrowIndexWriter(indexDirectory);
+            }
+        };
+
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 20_000, EventReporter.NO_OP);
+        assertEquals(0L, index.getIndexingLag(TimeUnit.MILLISECONDS));
+        assertEquals(0, index.getQueuedEventCount());
+
+        index.initialize(eventStore);
+
+        for (int i = 0; i < 500; i++) {
+            final ProvenanceEventRecord event = createEvent("1234");
+            final StorageResult storageResult = eventStore.addEvent(event);
+            index.addEvents(storageResult.getStorageLocations());
+        }
+
+        // the single index task takes at most one batch of events, and the rest wait in the queue
+        while (index.getQueuedEventCount() > 500 - EventIndexTask.MAX_DOCUMENTS_PER_THREAD) {
+            Thread.sleep(25);
+        }
+        assertTrue(index.getQueuedEventCount() > 0);
+
+        // the lag is the age of the oldest event that is not searchable, so it grows for as long as indexing is held up
+        Thread.sleep(50);
+        final long lag = index.getIndexingLag(TimeUnit.MILLISECONDS);
+        assertTrue(lag >= 50L);
+        Thread.sleep(100);
+        assertTrue(index.getIndexingLag(TimeUnit.MILLISECONDS) > lag);
+        assertEquals(400, index.getQueuedEventCount());
+
+        indexingAllowed.countDown();
+
+        while (index.getMaxEventId("1") < 499L) {
+            Thread.sleep(25);
+        }
+
+        while (index.getQueuedEventCount() > 0 || index.getIndexingLag(TimeUnit.NANOSECONDS) > 0) {
+            Thread.sleep(25);
+        }
+    }
+
     @Test(timeout = 60000)
     public void testUnauthorizedEventsGetPlaceholdersForLineage() throws InterruptedException {
         assumeFalse(isWindowsEnvironment());
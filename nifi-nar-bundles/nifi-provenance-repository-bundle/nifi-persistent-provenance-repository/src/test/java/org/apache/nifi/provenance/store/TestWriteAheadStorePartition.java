@@ -18,9 +18,12 @@
 package org.apache.nifi.provenance.store;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +32,7 @@ import java.util.UUID;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.EventIdFirstSchemaRecordWriter;
@@ -39,6 +43,9 @@ import org.apache.nifi.provenance.TestUtil;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFiles;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
+import org.apache.nifi.provenance.store.columnar.MatchingEventIds;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
@@ -97,6 +104,94 @@ public class TestWriteAheadStorePartition {
         }
     }
 
+    @Test
+    public void testFindEventIdsUsingColumnarEventFiles() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testFindEventIdsUsingColumnarEventFiles");
+        repoConfig.setMaxEventFileCount(10);
+        repoConfig.setWriteEventColumns(true);
+
+        final WriteAheadStorePartition partition = createPartition(repoConfig);
+        partition.initialize();
+
+        for (int i = 0; i < 100; i++) {
+            partition.addEvents(Collections.singleton(TestUtil.createEvent()));
+        }
+
+        final MatchingEventIds allEvents = new MatchingEventIds(1000);
+        assertTrue(partition.findEventIds(ColumnarEventFilter.ALL_EVENTS, allEvents));
+        assertEquals(LongStream.range(0, 100).boxed().collect(Collectors.toList()), allEvents.getEventIds());
+
+        final MatchingEventIds latestEvents = new MatchingEventIds(15);
+        assertTrue(partition.findEventIds(new ColumnarEventFilter(null, null, Collections.singleton("RECEIVE"), Collections.singleton("1234"), null), latestEvents));
+        assertEquals(LongStream.range(85, 100).boxed().collect(Collectors.toList()), latestEvents.getEventIds());
+
+        final MatchingEventIds noEvents = new MatchingEventIds(1000);
+        assertTrue(partition.findEventIds(new ColumnarEventFilter(null, null, Collections.singleton("SEND"), null, null), noEvents));
+        assertEquals(0, noEvents.size());
+
+        // once the oldest event file is purged, its events are no longer found
+        partition.purgeOldestEvents();
+        final MatchingEventIds remainingEvents = new MatchingEventIds(1000);
+        assertTrue(partition.findEventIds(ColumnarEventFilter.ALL_EVENTS, remainingEvents));
+        assertEquals(LongStream.range(10, 100).boxed().collect(Collectors.toList()), remainingEvents.getEventIds());
+
+        partition.close();
+    }
+
+    @Test
+    public void testFindEventIdsFallsBackWhenColumnarEventFileIsIncomplete() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testFindEventIdsFallsBackWhenColumnarEventFileIsIncomplete");
+        repoConfig.setMaxEventFileCount(10);
+        repoConfig.setWriteEventColumns(true);
+
+        final WriteAheadStorePartition partition = createPartition(repoConfig);
+        partition.initialize();
+
+        for (int i = 0; i < 100; i++) {
+            partition.addEvents(Collections.singleton(TestUtil.createEvent()));
+        }
+
+        assertTrue(partition.findEventIds(ColumnarEventFilter.ALL_EVENTS, new MatchingEventIds(1000)));
+
+        // lose the blocks of the oldest columnar event file, as if they could not be written
+        final File storageDirectory = repoConfig.getStorageDirectories().values().iterator().next();
+        final File columnFile = ColumnarEventFiles.getColumnFile(new File(storageDirectory, "0.prov"));
+        try (final RandomAccessFile raf = new RandomAccessFile(columnFile, "rw")) {
+            raf.setLength(8L); // keep only the file header
+        }
+
+        assertFalse(partition.findEventIds(ColumnarEventFilter.ALL_EVENTS, new MatchingEventIds(1000)));
+
+        partition.close();
+    }
+
+    @Test
+    public void testFindEventIdsWithoutColumnarEventFiles() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testFindEventIdsWithoutColumnarEventFiles");
+        final WriteAheadStorePartition partition = createPartition(repoConfig);
+        partition.initialize();
+
+        partition.addEvents(Collections.singleton(TestUtil.createEvent()));
+        assertFalse(partition.findEventIds(ColumnarEventFilter.ALL_EVENTS, new MatchingEventIds(1000)));
+
+        partition.close();
+    }
+
+    private WriteAheadStorePartition createPartition(final RepositoryConfiguration repoConfig) {
+        final String partitionName = repoConfig.getStorageDirectories().keySet().iterator().next();
+        final File storageDirectory = repoConfig.getStorageDirectories().values().iterator().next();
+
+        final RecordWriterFactory recordWriterFactory = (file, idGenerator, compressed, createToc) -> {
+            final TocWriter tocWriter = createToc ? new StandardTocWriter(TocUtil.getTocFile(file), false, false) : null;
+            return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, 32 * 1024, IdentifierLookup.EMPTY);
+        };
+
+        final RecordReaderFactory recordReaderFactory = (file, logs, maxChars) -> RecordReaders.newRecordReader(file, logs, maxChars);
+
+        return new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP);
+    }
+
     private RepositoryConfiguration createConfig(final int numStorageDirs, final String testName) {
         final RepositoryConfiguration config = new RepositoryConfiguration();
         final File storageDir = new File("target/storage/" + testName + "/" + UUID.randomUUID().toString());
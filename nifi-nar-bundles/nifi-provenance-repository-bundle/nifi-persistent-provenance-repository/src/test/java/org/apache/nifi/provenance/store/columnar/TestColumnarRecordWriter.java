@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.apache.nifi.provenance.EventIdFirstSchemaRecordWriter;
+import org.apache.nifi.provenance.IdentifierLookup;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.TestUtil;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerms;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.RecordReaders;
+import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.toc.StandardTocWriter;
+import org.apache.nifi.provenance.toc.TocUtil;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class TestColumnarRecordWriter {
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+    private File eventFile;
+
+    @Before
+    public void setup() {
+        eventFile = new File("target/storage/" + UUID.randomUUID().toString() + "/0.prov");
+        idGenerator.set(0L);
+    }
+
+    @Test
+    public void testFindEventIds() throws IOException {
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        final ProvenanceEventType[] eventTypes = ProvenanceEventType.values();
+        for (int i = 0; i < 1000; i++) {
+            events.add(createEvent(1000L + i, eventTypes[i % eventTypes.length], "component-" + (i % 300), UUID.randomUUID().toString()));
+        }
+
+        // write the events in several blocks
+        try (final RecordWriter writer = createWriter(false)) {
+            writer.writeHeader(0L);
+            for (int i = 0; i < events.size(); i++) {
+                writer.writeRecord(events.get(i));
+                if (i % 128 == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        final ColumnarEventFileReader reader = ColumnarEventFileReader.open(ColumnarEventFiles.getColumnFile(eventFile));
+        assertEquals(1000, reader.getEventCount());
+        assertEquals(999L, reader.getMaxEventId());
+
+        assertMatches(reader, events, ColumnarEventFilter.ALL_EVENTS, event -> true);
+        assertMatches(reader, events, new ColumnarEventFilter(1100L, 1199L, null, null, null),
+            event -> event.getEventTime() >= 1100L && event.getEventTime() <= 1199L);
+        assertMatches(reader, events, new ColumnarEventFilter(null, null, Collections.singleton("send"), null, null),
+            event -> event.getEventType() == ProvenanceEventType.SEND);
+        assertMatches(reader, events, new ColumnarEventFilter(null, null, null, Arrays.asList("COMPONENT-7", "component-299"), null),
+            event -> event.getComponentId().equals("component-7") || event.getComponentId().equals("component-299"));
+        assertMatches(reader, events, new ColumnarEventFilter(1500L, null, Collections.singleton("SEND"), Collections.singleton("component-7"), null),
+            event -> event.getEventTime() >= 1500L && event.getEventType() == ProvenanceEventType.SEND && event.getComponentId().equals("component-7"));
+        assertMatches(reader, events, new ColumnarEventFilter(null, null, null, null, Collections.singleton(events.get(42).getFlowFileUuid().toUpperCase())),
+            event -> event == events.get(42));
+        assertMatches(reader, events, new ColumnarEventFilter(null, null, null, Collections.singleton("no-such-component"), null), event -> false);
+
+        // only the most recent matches should be returned
+        final MatchingEventIds mostRecent = new MatchingEventIds(5);
+        reader.findEventIds(new ColumnarEventFilter(null, null, null, Collections.singleton("component-1"), null), mostRecent);
+        assertEquals(Arrays.asList(1L, 301L, 601L, 901L), mostRecent.getEventIds());
+
+        final MatchingEventIds lastTwo = new MatchingEventIds(2);
+        reader.findEventIds(ColumnarEventFilter.ALL_EVENTS, lastTwo);
+        assertEquals(Arrays.asList(998L, 999L), lastTwo.getEventIds());
+    }
+
+    @Test
+    public void testFlowFileUuidsThatAreNotUuids() throws IOException {
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(createEvent(1000L + i, ProvenanceEventType.CREATE, "component", i == 5 ? "not-a-uuid" : UUID.randomUUID().toString()));
+        }
+
+        try (final RecordWriter writer = createWriter(false)) {
+            writer.writeHeader(0L);
+            for (final ProvenanceEventRecord event : events) {
+                writer.writeRecord(event);
+            }
+        }
+
+        final ColumnarEventFileReader reader = ColumnarEventFileReader.open(ColumnarEventFiles.getColumnFile(eventFile));
+        assertMatches(reader, events, new ColumnarEventFilter(null, null, null, null, Collections.singleton("not-a-uuid")),
+            event -> event == events.get(5));
+        assertMatches(reader, events, new ColumnarEventFilter(null, null, null, null, Collections.singleton(events.get(3).getFlowFileUuid())),
+            event -> event == events.get(3));
+    }
+
+    @Test
+    public void testIncompleteBlockIgnored() throws IOException {
+        try (final RecordWriter writer = createWriter(false)) {
+            writer.writeHeader(0L);
+            writer.writeRecord(createEvent(1000L, ProvenanceEventType.CREATE, "component", UUID.randomUUID().toString()));
+            writer.flush();
+            writer.writeRecord(createEvent(1001L, ProvenanceEventType.CREATE, "component", UUID.randomUUID().toString()));
+        }
+
+        // truncate the file part of the way through the second block, as if it were still being written
+        final File columnFile = ColumnarEventFiles.getColumnFile(eventFile);
+        final ColumnarEventFileReader complete = ColumnarEventFileReader.open(columnFile);
+        assertEquals(2, complete.getEventCount());
+
+        try (final RandomAccessFile raf = new RandomAccessFile(columnFile, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        final ColumnarEventFileReader truncated = ColumnarEventFileReader.open(columnFile);
+        assertEquals(1, truncated.getEventCount());
+        assertEquals(0L, truncated.getMaxEventId());
+    }
+
+    @Test
+    public void testFilterFromQuery() {
+        final Query query = new Query("1");
+        query.setStartDate(new Date(1000L));
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-1"));
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.EventType, "SEND"));
+        final Optional<ColumnarEventFilter> filter = ColumnarEventFilter.fromQuery(query);
+        assertTrue(filter.isPresent());
+        assertTrue(filter.get().matchesComponentId("COMPONENT-1"));
+        assertTrue(filter.get().matchesEventType("send"));
+        assertFalse(filter.get().matchesEventTime(999L));
+
+        final Query wildcard = new Query("2");
+        wildcard.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-*"));
+        assertFalse(ColumnarEventFilter.fromQuery(wildcard).isPresent());
+
+        final Query flowFileUuid = new Query("3");
+        flowFileUuid.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, UUID.randomUUID().toString()));
+        assertFalse(ColumnarEventFilter.fromQuery(flowFileUuid).isPresent());
+
+        final Query fileSize = new Query("4");
+        fileSize.setMinFileSize("1 KB");
+        assertFalse(ColumnarEventFilter.fromQuery(fileSize).isPresent());
+    }
+
+    @Test
+    @Ignore("Intended for manual performance testing; compares scanning the columnar event file to scanning the event file")
+    public void testScanPerformance() throws IOException {
+        final int eventCount = 1_000_000;
+        final ProvenanceEventType[] eventTypes = ProvenanceEventType.values();
+        final long startTime = System.currentTimeMillis();
+
+        eventFile = new File(eventFile.getParentFile(), "0.prov.gz");
+        try (final RecordWriter writer = createWriter(true)) {
+            writer.writeHeader(0L);
+            for (int i = 0; i < eventCount; i++) {
+                writer.writeRecord(createEvent(startTime + i, eventTypes[i % eventTypes.length], "component-" + (i % 50), UUID.randomUUID().toString()));
+                if (i % 1000 == 999) {
+                    writer.flush();
+                }
+            }
+        }
+
+        final long minTime = startTime + eventCount / 2;
+        final ColumnarEventFilter filter = new ColumnarEventFilter(minTime, null, null, Collections.singleton("component-7"), null);
+        for (int iteration = 0; iteration < 5; iteration++) {
+            long start = System.nanoTime();
+            int rowMatches = 0;
+            try (final RecordReader reader = RecordReaders.newRecordReader(eventFile, Collections.emptyList(), 65536)) {
+                ProvenanceEventRecord event;
+                while ((event = reader.nextRecord()) != null) {
+                    if (event.getEventTime() >= minTime && event.getComponentId().equals("component-7")) {
+                        rowMatches++;
+                    }
+                }
+            }
+            final long rowMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final MatchingEventIds results = new MatchingEventIds(Integer.MAX_VALUE);
+            ColumnarEventFileReader.open(ColumnarEventFiles.getColumnFile(eventFile)).findEventIds(filter, results);
+            final long columnMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(rowMatches, results.size());
+            System.out.println("Found " + rowMatches + " of " + eventCount + " events: " + rowMillis + " millis using EventIdFirstSchemaRecordReader, "
+                + columnMillis + " millis using ColumnarEventFileReader");
+        }
+    }
+
+    private RecordWriter createWriter(final boolean compressed) throws IOException {
+        final RecordWriter writer = new EventIdFirstSchemaRecordWriter(eventFile, idGenerator, new StandardTocWriter(TocUtil.getTocFile(eventFile), compressed, false),
+            compressed, 32 * 1024, IdentifierLookup.EMPTY);
+        return new ColumnarRecordWriter(writer, ColumnarEventFiles.getColumnFile(eventFile));
+    }
+
+    private void assertMatches(final ColumnarEventFileReader reader, final List<ProvenanceEventRecord> events, final ColumnarEventFilter filter,
+        final Predicate<ProvenanceEventRecord> expectedMatch) {
+        final List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            if (expectedMatch.test(events.get(i))) {
+                expected.add((long) i);
+            }
+        }
+
+        final MatchingEventIds results = new MatchingEventIds(Integer.MAX_VALUE);
+        reader.findEventIds(filter, results);
+        assertEquals(expected, results.getEventIds());
+    }
+
+    private ProvenanceEventRecord createEvent(final long eventTime, final ProvenanceEventType eventType, final String componentId, final String flowFileUuid) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("filename", "1.txt");
+        attributes.put("uuid", flowFileUuid);
+
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(eventTime);
+        builder.setEventType(eventType);
+        builder.setTransitUri("nifi://unit-test");
+        builder.fromFlowFile(TestUtil.createFlowFile(3L, 3000L, attributes));
+        builder.setComponentId(componentId);
+        builder.setComponentType("dummy processor");
+        if (eventType == ProvenanceEventType.ROUTE) {
+            builder.setRelationship("success");
+        }
+        if (eventType == ProvenanceEventType.ADDINFO) {
+            builder.setAlternateIdentifierUri("alternate://unit-test");
+        }
+        if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.JOIN || eventType == ProvenanceEventType.CLONE) {
+            builder.addChildUuid(UUID.randomUUID().toString());
+        }
+        return builder.build();
+    }
+}
@@ -189,13 +189,21 @@ public class PutTCP extends AbstractPutEventProcessor {
         boolean closeSender = isConnectionPerFlowFile(context);
         try {
             // We might keep the connection open across invocations of the processor so don't auto-close this
-            final OutputStream out = ((SocketChannelSender)sender).getOutputStream();
+            final SocketChannelSender socketSender = (SocketChannelSender) sender;
+            final OutputStream out = socketSender.getOutputStream();
             final String delimiter = getOutgoingMessageDelimiter(context, flowFile);
 
             final StopWatch stopWatch = new StopWatch(true);
-            try (final InputStream rawIn = session.read(flowFile);
-                 final BufferedInputStream in = new BufferedInputStream(rawIn)) {
-                IOUtils.copy(in, out);
+            try {
+                // Send the content directly from the Content Repository's file if possible; otherwise, copy it through the heap.
+                final boolean transferred = session.read(flowFile, (channel, position, length) -> socketSender.transferFrom(channel, position, length));
+                if (!transferred) {
+                    try (final InputStream rawIn = session.read(flowFile);
+                         final BufferedInputStream in = new BufferedInputStream(rawIn)) {
+                        IOUtils.copy(in, out);
+                    }
+                }
+
                 if (delimiter != null) {
                     final Charset charSet = Charset.forName(context.getProperty(CHARSET).getValue());
                     out.write(delimiter.getBytes(charSet), 0, delimiter.length());
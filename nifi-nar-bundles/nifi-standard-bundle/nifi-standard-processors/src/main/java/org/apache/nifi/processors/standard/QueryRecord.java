@@ -25,12 +25,12 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -131,7 +131,8 @@ public class QueryRecord extends AbstractProcessor {
         .description("Parsing the SQL query and deriving the FlowFile's schema is relatively expensive. If this value is set to true, "
             + "the Processor will cache these values so that the Processor is much more efficient and much faster. However, if this is done, "
             + "then the schema that is derived for the first FlowFile processed must apply to all FlowFiles. If all FlowFiles will not have the exact "
-            + "same schema, or if the SQL SELECT statement uses the Expression Language, this value should be set to false.")
+            + "same schema, or if the SQL SELECT statement uses the Expression Language, this value should be set to false. In that case, the parsed "
+            + "query is still reused for FlowFiles that have the same schema and the same SQL SELECT statement.")
         .expressionLanguageSupported(false)
         .allowableValues("true", "false")
         .defaultValue("true")
@@ -152,7 +153,22 @@ public class QueryRecord extends AbstractProcessor {
     private List<PropertyDescriptor> properties;
     private final Set<Relationship> relationships = Collections.synchronizedSet(new HashSet<>());
 
+    private static final int MAX_SCHEMA_STATEMENT_QUEUES = 32;
+
     private final Map<String, BlockingQueue<CachedStatement>> statementQueues = new HashMap<>();
+    private final Map<SchemaQualifiedQuery, BlockingQueue<CachedStatement>> schemaStatementQueues =
+        new LinkedHashMap<SchemaQualifiedQuery, BlockingQueue<CachedStatement>>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<SchemaQualifiedQuery, BlockingQueue<CachedStatement>> eldest) {
+                if (size() <= MAX_SCHEMA_STATEMENT_QUEUES) {
+                    return false;
+                }
+
+                closeStatements(eldest.getValue());
+                return true;
+            }
+        };
+    private volatile int maxConcurrentTasks = 1;
 
     @Override
     protected void init(final ProcessorInitializationContext context) {
@@ -249,10 +265,11 @@ public class QueryRecord extends AbstractProcessor {
         final Set<FlowFile> createdFlowFiles = new HashSet<>();
 
         // Determine the schema for writing the data
+        final RecordSchema inputSchema;
         final RecordSchema recordSchema;
         try (final InputStream rawIn = session.read(original)) {
             final RecordReader reader = recordReaderFactory.createRecordReader(original, rawIn, getLogger());
-            final RecordSchema inputSchema = reader.getSchema();
+            inputSchema = reader.getSchema();
 
             recordSchema = recordSetWriterFactory.getSchema(original, inputSchema);
         } catch (final Exception e) {
@@ -284,7 +301,7 @@ public class QueryRecord extends AbstractProcessor {
                     if (context.getProperty(CACHE_SCHEMA).asBoolean()) {
                         queryResult = queryWithCache(session, original, sql, context, recordReaderFactory);
                     } else {
-                        queryResult = query(session, original, sql, context, recordReaderFactory);
+                        queryResult = queryWithSchemaCache(session, original, sql, inputSchema, recordReaderFactory);
                     }
 
                     final AtomicReference<String> mimeTypeRef = new AtomicReference<>();
@@ -364,10 +381,10 @@ public class QueryRecord extends AbstractProcessor {
     }
 
 
-    private synchronized CachedStatement getStatement(final String sql, final Supplier<CalciteConnection> connectionSupplier, final ProcessSession session,
-        final FlowFile flowFile, final RecordReaderFactory recordReaderFactory) throws SQLException {
+    private synchronized CachedStatement getStatement(final String sql, final RecordSchema schema, final Supplier<CalciteConnection> connectionSupplier,
+        final ProcessSession session, final FlowFile flowFile, final RecordReaderFactory recordReaderFactory) throws SQLException {
 
-        final BlockingQueue<CachedStatement> statementQueue = statementQueues.get(sql);
+        final BlockingQueue<CachedStatement> statementQueue = getStatementQueue(sql, schema);
         if (statementQueue == null) {
             return buildCachedStatement(sql, connectionSupplier, session, flowFile, recordReaderFactory);
         }
@@ -394,20 +411,47 @@ public class QueryRecord extends AbstractProcessor {
         return new CachedStatement(stmt, flowFileTable, connection);
     }
 
+    /**
+     * Returns the queue of statements that may be used to run the given SQL. If no schema is given, the statements
+     * are those that are used for all FlowFiles; otherwise, they are used only for FlowFiles that have the given schema.
+     */
+    private synchronized BlockingQueue<CachedStatement> getStatementQueue(final String sql, final RecordSchema schema) {
+        if (schema == null) {
+            return statementQueues.get(sql);
+        }
+
+        return schemaStatementQueues.computeIfAbsent(new SchemaQualifiedQuery(sql, schema), key -> new LinkedBlockingQueue<>(maxConcurrentTasks));
+    }
+
+    private synchronized boolean returnStatement(final String sql, final RecordSchema schema, final CachedStatement cachedStatement) {
+        final BlockingQueue<CachedStatement> statementQueue = schema == null ? statementQueues.get(sql) : schemaStatementQueues.get(new SchemaQualifiedQuery(sql, schema));
+        return statementQueue != null && statementQueue.offer(cachedStatement);
+    }
+
+    private void closeStatements(final BlockingQueue<CachedStatement> statementQueue) {
+        CachedStatement stmt;
+        while ((stmt = statementQueue.poll()) != null) {
+            closeQuietly(stmt.getStatement(), stmt.getConnection());
+        }
+    }
+
     @OnStopped
     public synchronized void cleanup() {
         for (final BlockingQueue<CachedStatement> statementQueue : statementQueues.values()) {
-            CachedStatement stmt;
-            while ((stmt = statementQueue.poll()) != null) {
-                closeQuietly(stmt.getStatement(), stmt.getConnection());
-            }
+            closeStatements(statementQueue);
+        }
+        for (final BlockingQueue<CachedStatement> statementQueue : schemaStatementQueues.values()) {
+            closeStatements(statementQueue);
         }
 
         statementQueues.clear();
+        schemaStatementQueues.clear();
     }
 
     @OnScheduled
     public synchronized void setupQueues(final ProcessContext context) {
+        maxConcurrentTasks = context.getMaxConcurrentTasks();
+
         // Create a Queue of PreparedStatements for each property that is user-defined. This allows us to easily poll the
         // queue and add as necessary, knowing that the queue already exists.
         for (final PropertyDescriptor descriptor : context.getProperties().keySet()) {
@@ -423,6 +467,20 @@ public class QueryRecord extends AbstractProcessor {
 
     protected QueryResult queryWithCache(final ProcessSession session, final FlowFile flowFile, final String sql, final ProcessContext context,
         final RecordReaderFactory recordParserFactory) throws SQLException {
+        return query(session, flowFile, sql, null, recordParserFactory);
+    }
+
+    /**
+     * Runs the given SQL using a statement that is reused only for FlowFiles that have the given schema, so that the query
+     * is parsed, planned, and compiled once per schema rather than once per FlowFile.
+     */
+    protected QueryResult queryWithSchemaCache(final ProcessSession session, final FlowFile flowFile, final String sql, final RecordSchema schema,
+        final RecordReaderFactory recordParserFactory) throws SQLException {
+        return query(session, flowFile, sql, schema, recordParserFactory);
+    }
+
+    private QueryResult query(final ProcessSession session, final FlowFile flowFile, final String sql, final RecordSchema schema,
+        final RecordReaderFactory recordParserFactory) throws SQLException {
 
         final Supplier<CalciteConnection> connectionSupplier = () -> {
             final Properties properties = new Properties();
@@ -437,7 +495,7 @@ public class QueryRecord extends AbstractProcessor {
             }
         };
 
-        final CachedStatement cachedStatement = getStatement(sql, connectionSupplier, session, flowFile, recordParserFactory);
+        final CachedStatement cachedStatement = getStatement(sql, schema, connectionSupplier, session, flowFile, recordParserFactory);
         final PreparedStatement stmt = cachedStatement.getStatement();
         final FlowFileTable<?, ?> table = cachedStatement.getTable();
         table.setFlowFile(session, flowFile);
@@ -447,8 +505,7 @@ public class QueryRecord extends AbstractProcessor {
         return new QueryResult() {
             @Override
             public void close() throws IOException {
-                final BlockingQueue<CachedStatement> statementQueue = statementQueues.get(sql);
-                if (statementQueue == null || !statementQueue.offer(cachedStatement)) {
+                if (!returnStatement(sql, schema, cachedStatement)) {
                     try {
                         cachedStatement.getConnection().close();
                     } catch (SQLException e) {
@@ -470,52 +527,6 @@ public class QueryRecord extends AbstractProcessor {
         };
     }
 
-    protected QueryResult query(final ProcessSession session, final FlowFile flowFile, final String sql, final ProcessContext context,
-        final RecordReaderFactory recordParserFactory) throws SQLException {
-
-        final Properties properties = new Properties();
-        properties.put(CalciteConnectionProperty.LEX.camelName(), Lex.MYSQL_ANSI.name());
-
-        Connection connection = null;
-        ResultSet resultSet = null;
-        Statement statement = null;
-        try {
-            connection = DriverManager.getConnection("jdbc:calcite:", properties);
-            final CalciteConnection calciteConnection = connection.unwrap(CalciteConnection.class);
-            final SchemaPlus rootSchema = calciteConnection.getRootSchema();
-
-            final FlowFileTable<?, ?> flowFileTable = new FlowFileTable<>(session, flowFile, recordParserFactory, getLogger());
-            rootSchema.add("FLOWFILE", flowFileTable);
-            rootSchema.setCacheEnabled(false);
-
-            statement = connection.createStatement();
-            resultSet = statement.executeQuery(sql);
-
-            final ResultSet rs = resultSet;
-            final Statement stmt = statement;
-            final Connection conn = connection;
-            return new QueryResult() {
-                @Override
-                public void close() throws IOException {
-                    closeQuietly(rs, stmt, conn);
-                }
-
-                @Override
-                public ResultSet getResultSet() {
-                    return rs;
-                }
-
-                @Override
-                public int getRecordsRead() {
-                    return flowFileTable.getRecordsRead();
-                }
-            };
-        } catch (final Exception e) {
-            closeQuietly(resultSet, statement, connection);
-            throw e;
-        }
-    }
-
     private void closeQuietly(final AutoCloseable... closeables) {
         if (closeables == null) {
             return;
@@ -577,6 +588,34 @@ public class QueryRecord extends AbstractProcessor {
         int getRecordsRead();
     }
 
+    private static class SchemaQualifiedQuery {
+        private final String sql;
+        private final RecordSchema schema;
+
+        public SchemaQualifiedQuery(final String sql, final RecordSchema schema) {
+            this.sql = sql;
+            this.schema = schema;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + schema.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof SchemaQualifiedQuery)) {
+                return false;
+            }
+
+            final SchemaQualifiedQuery other = (SchemaQualifiedQuery) obj;
+            return sql.equals(other.sql) && schema.equals(other.schema);
+        }
+    }
+
     private static class CachedStatement {
         private final FlowFileTable<?, ?> table;
         private final PreparedStatement statement;
@@ -26,6 +26,7 @@ import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
+import org.apache.nifi.serialization.record.ArrayRecord;
 import org.apache.nifi.serialization.record.Record;
 
 public class FlowFileEnumerator<InternalType> implements Enumerator<Object> {
@@ -34,6 +35,7 @@ public class FlowFileEnumerator<InternalType> implements Enumerator<Object> {
     private final ComponentLog logger;
     private final RecordReaderFactory recordParserFactory;
     private final int[] fields;
+    private final RecordFilter filter;
 
     private InputStream rawIn;
     private Object currentRow;
@@ -41,11 +43,17 @@ public class FlowFileEnumerator<InternalType> implements Enumerator<Object> {
     private int recordsRead = 0;
 
     public FlowFileEnumerator(final ProcessSession session, final FlowFile flowFile, final ComponentLog logger, final RecordReaderFactory parserFactory, final int[] fields) {
+        this(session, flowFile, logger, parserFactory, fields, null);
+    }
+
+    public FlowFileEnumerator(final ProcessSession session, final FlowFile flowFile, final ComponentLog logger, final RecordReaderFactory parserFactory, final int[] fields,
+        final RecordFilter filter) {
         this.session = session;
         this.flowFile = flowFile;
         this.recordParserFactory = parserFactory;
         this.logger = logger;
         this.fields = fields;
+        this.filter = filter;
         reset();
     }
 
@@ -57,16 +65,24 @@ public class FlowFileEnumerator<InternalType> implements Enumerator<Object> {
     @Override
     public boolean moveNext() {
         currentRow = null;
-        while (currentRow == null) {
+
+        Record record;
+        while (true) {
             try {
-                currentRow = filterColumns(recordParser.nextRecord());
-                break;
+                record = recordParser.nextRecord();
             } catch (final Exception e) {
                 throw new ProcessException("Failed to read next record in stream for " + flowFile, e);
             }
+
+            // Records that the filter rejects are never turned into rows, but they still count as having been read.
+            if (record == null || filter == null || filter.mayMatch(record)) {
+                break;
+            }
+
+            recordsRead++;
         }
 
-        if (currentRow == null) {
+        if (record == null) {
             // If we are out of data, close the InputStream. We do this because
             // Calcite does not necessarily call our close() method.
             close();
@@ -79,6 +95,7 @@ public class FlowFileEnumerator<InternalType> implements Enumerator<Object> {
             return false;
         }
 
+        currentRow = filterColumns(record);
         recordsRead++;
         return true;
     }
@@ -95,30 +112,43 @@ public class FlowFileEnumerator<InternalType> implements Enumerator<Object> {
             return null;
         }
 
-        final Object[] row = record.getValues();
-
-        // If we want no fields or if the row is null, just return null
-        if (fields == null || row == null) {
-            return row;
+        // If we want no fields, just return the full row
+        if (fields == null) {
+            return record.getValues();
         }
 
         // If we want only a single field, then Calcite is going to expect us to return
         // the actual value, NOT a 1-element array of values.
         if (fields.length == 1) {
-            final int desiredCellIndex = fields[0];
-            return row[desiredCellIndex];
+            return getFieldValue(record, fields[0]);
         }
 
-        // Create a new Object array that contains only the desired fields.
+        // Create a new Object array that contains only the desired fields, rather than
+        // obtaining all of the Record's values and then copying the desired ones.
         final Object[] filtered = new Object[fields.length];
         for (int i = 0; i < fields.length; i++) {
-            final int indexToKeep = fields[i];
-            filtered[i] = row[indexToKeep];
+            filtered[i] = getFieldValue(record, fields[i]);
         }
 
         return filtered;
     }
 
+    /**
+     * Returns the value of the field at the given index of the Record's schema. This is the same value that would be
+     * found at the given index of {@link Record#getValues()}, without creating an array that holds all of the values.
+     *
+     * @param record the Record
+     * @param index the index of the field in the Record's schema
+     * @return the value of the field
+     */
+    static Object getFieldValue(final Record record, final int index) {
+        if (record instanceof ArrayRecord) {
+            return ((ArrayRecord) record).getValue(index);
+        }
+
+        return record.getValue(record.getSchema().getField(index));
+    }
+
     @Override
     public void reset() {
         if (rawIn != null) {
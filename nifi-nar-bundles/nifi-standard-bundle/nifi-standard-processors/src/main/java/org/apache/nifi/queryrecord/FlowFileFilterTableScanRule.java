@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.queryrecord;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.logical.LogicalFilter;
+
+/**
+ * Planner rule that pushes a copy of a filter's condition down into a {@link FlowFileTableScan}, so that
+ * Records that cannot match the condition are discarded before they are converted into rows. Because the
+ * {@link RecordFilter} that is pushed down is conservative, the Filter itself is retained.
+ */
+public class FlowFileFilterTableScanRule extends RelOptRule {
+    public static final FlowFileFilterTableScanRule INSTANCE = new FlowFileFilterTableScanRule();
+
+    private FlowFileFilterTableScanRule() {
+        super(
+            operand(LogicalFilter.class,
+                operand(FlowFileTableScan.class, none())),
+            "FlowFileFilterTableScanRule");
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final LogicalFilter filter = call.rel(0);
+        final FlowFileTableScan scan = call.rel(1);
+        if (scan.filter != null) {
+            return;
+        }
+
+        final RecordFilter recordFilter = RecordFilter.create(filter.getCondition(), scan.fields);
+        if (recordFilter == null) {
+            // No part of the condition can be evaluated against the Records themselves.
+            return;
+        }
+
+        final FlowFileTableScan filteredScan = new FlowFileTableScan(
+            scan.getCluster(),
+            scan.getTable(),
+            scan.flowFileTable,
+            scan.fields,
+            recordFilter);
+
+        call.transformTo(filter.copy(filter.getTraitSet(), filteredScan, filter.getCondition()));
+    }
+}
@@ -55,7 +55,8 @@ public class FlowFileProjectTableScanRule extends RelOptRule {
                 scan.getCluster(),
                 scan.getTable(),
                 scan.flowFileTable,
-                fields));
+                fields,
+                scan.filter));
     }
 
     private int[] getProjectFields(List<RexNode> exps) {
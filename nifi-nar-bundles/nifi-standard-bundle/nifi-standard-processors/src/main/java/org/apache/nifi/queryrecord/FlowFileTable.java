@@ -21,6 +21,7 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.calcite.adapter.java.JavaTypeFactory;
 import org.apache.calcite.linq4j.AbstractEnumerable;
@@ -56,6 +57,8 @@ public class FlowFileTable<S, E> extends AbstractTable implements QueryableTable
     private final RecordReaderFactory recordParserFactory;
     private final ComponentLog logger;
 
+    private final List<RecordFilter> filters = new CopyOnWriteArrayList<>();
+
     private RecordSchema recordSchema;
     private RelDataType relDataType = null;
 
@@ -92,11 +95,37 @@ public class FlowFileTable<S, E> extends AbstractTable implements QueryableTable
      * Called from generated code.
      */
     public Enumerable<Object> project(final int[] fields) {
+        return project(fields, null);
+    }
+
+    /**
+     * Returns an enumerable over a given projection of the fields, skipping any Record
+     * that is rejected by the filter that was registered with the given index.
+     *
+     * <p>
+     * Called from generated code.
+     */
+    public Enumerable<Object> project(final int[] fields, final int filterIndex) {
+        return project(fields, filters.get(filterIndex));
+    }
+
+    /**
+     * Registers a filter so that generated code is able to refer to it by index.
+     *
+     * @param filter the filter to register
+     * @return the index that identifies the filter in a call to {@link #project(int[], int)}
+     */
+    public synchronized int addFilter(final RecordFilter filter) {
+        filters.add(filter);
+        return filters.size() - 1;
+    }
+
+    private Enumerable<Object> project(final int[] fields, final RecordFilter filter) {
         return new AbstractEnumerable<Object>() {
             @Override
             @SuppressWarnings({"unchecked", "rawtypes"})
             public Enumerator<Object> enumerator() {
-                return new FlowFileEnumerator(session, flowFile, logger, recordParserFactory, fields) {
+                return new FlowFileEnumerator(session, flowFile, logger, recordParserFactory, fields, filter) {
                     @Override
                     protected void onFinish() {
                         final int recordCount = getRecordsRead();
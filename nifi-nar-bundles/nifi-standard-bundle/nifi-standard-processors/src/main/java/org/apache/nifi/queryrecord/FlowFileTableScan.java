@@ -27,12 +27,14 @@ import org.apache.calcite.linq4j.tree.Blocks;
 import org.apache.calcite.linq4j.tree.Expressions;
 import org.apache.calcite.linq4j.tree.Primitive;
 import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelDataTypeField;
@@ -47,22 +49,38 @@ import org.apache.calcite.rel.type.RelDataTypeField;
 public class FlowFileTableScan extends TableScan implements EnumerableRel {
     final FlowFileTable<?, ?> flowFileTable;
     final int[] fields;
+    final RecordFilter filter;
 
     protected FlowFileTableScan(final RelOptCluster cluster, final RelOptTable table, final FlowFileTable<?, ?> flowFileTable, final int[] fields) {
+        this(cluster, table, flowFileTable, fields, null);
+    }
+
+    protected FlowFileTableScan(final RelOptCluster cluster, final RelOptTable table, final FlowFileTable<?, ?> flowFileTable, final int[] fields,
+        final RecordFilter filter) {
         super(cluster, cluster.traitSetOf(EnumerableConvention.INSTANCE), table);
 
         this.flowFileTable = flowFileTable;
         this.fields = fields;
+        this.filter = filter;
     }
 
     @Override
     public RelNode copy(final RelTraitSet traitSet, final List<RelNode> inputs) {
-        return new FlowFileTableScan(getCluster(), table, flowFileTable, fields);
+        return new FlowFileTableScan(getCluster(), table, flowFileTable, fields, filter);
     }
 
     @Override
     public RelWriter explainTerms(final RelWriter pw) {
-        return super.explainTerms(pw).item("fields", Primitive.asList(fields));
+        return super.explainTerms(pw)
+            .item("fields", Primitive.asList(fields))
+            .itemIf("filter", filter, filter != null);
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(final RelOptPlanner planner, final RelMetadataQuery mq) {
+        // Make the scan that discards Records up front cheaper than the one that does not, so that the planner prefers it.
+        final RelOptCost cost = super.computeSelfCost(planner, mq);
+        return filter == null ? cost : cost.multiplyBy(0.5D);
     }
 
     @Override
@@ -78,14 +96,22 @@ public class FlowFileTableScan extends TableScan implements EnumerableRel {
     @Override
     public void register(RelOptPlanner planner) {
         planner.addRule(FlowFileProjectTableScanRule.INSTANCE);
+        planner.addRule(FlowFileFilterTableScanRule.INSTANCE);
     }
 
     @Override
     public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
         PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), pref.preferArray());
 
+        if (filter == null) {
+            return implementor.result(physType, Blocks.toBlock(
+                Expressions.call(table.getExpression(FlowFileTable.class), "project", Expressions.constant(fields))));
+        }
+
+        // The filter cannot be embedded in the generated code, so register it with the table and refer to it by index.
+        final int filterIndex = flowFileTable.addFilter(filter);
         return implementor.result(physType, Blocks.toBlock(
-            Expressions.call(table.getExpression(FlowFileTable.class), "project", Expressions.constant(fields))));
+            Expressions.call(table.getExpression(FlowFileTable.class), "project", Expressions.constant(fields), Expressions.constant(filterIndex, int.class))));
     }
 
 }
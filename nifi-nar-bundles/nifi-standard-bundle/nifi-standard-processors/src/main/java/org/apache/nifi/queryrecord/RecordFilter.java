@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.queryrecord;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.util.NlsString;
+import org.apache.nifi.serialization.record.Record;
+
+/**
+ * <p>
+ * A filter that is evaluated against each Record as it is read from a FlowFile, before the Record is converted into a row
+ * that is handed to Calcite. This allows Records that cannot possibly be selected by the query's WHERE clause to be skipped
+ * without building a row for them.
+ * </p>
+ *
+ * <p>
+ * The filter is conservative: it rejects a Record only if the condition that it was created from cannot evaluate to TRUE for
+ * that Record. Any part of the condition that cannot be evaluated directly against the Record (for instance, because it calls
+ * a function or compares two columns) is assumed to be TRUE, as is any comparison against a value whose type is not the
+ * expected one. As a result, Calcite must still evaluate the original condition against the rows that are accepted.
+ * </p>
+ */
+public abstract class RecordFilter {
+
+    /**
+     * @param record the Record to evaluate
+     * @return <code>false</code> if the condition cannot evaluate to TRUE for the given Record, <code>true</code> otherwise
+     */
+    public abstract boolean mayMatch(Record record);
+
+    /**
+     * Creates a RecordFilter from the given condition, if any part of the condition can be evaluated directly against a Record.
+     *
+     * @param condition the condition of a Filter whose input is a FlowFileTableScan
+     * @param fields the indices of the fields that are returned by the FlowFileTableScan
+     * @return a RecordFilter for the given condition, or <code>null</code> if no part of the condition can be evaluated against a Record
+     */
+    public static RecordFilter create(final RexNode condition, final int[] fields) {
+        switch (condition.getKind()) {
+            case AND: {
+                // Any conjunct that cannot be converted may be TRUE, so it can simply be left out.
+                final List<RecordFilter> filters = new ArrayList<>();
+                for (final RexNode operand : ((RexCall) condition).getOperands()) {
+                    final RecordFilter filter = create(operand, fields);
+                    if (filter != null) {
+                        filters.add(filter);
+                    }
+                }
+
+                if (filters.isEmpty()) {
+                    return null;
+                }
+                return filters.size() == 1 ? filters.get(0) : new AndFilter(filters);
+            }
+            case OR: {
+                // If any disjunct cannot be converted, then the disjunction may always be TRUE.
+                final List<RecordFilter> filters = new ArrayList<>();
+                for (final RexNode operand : ((RexCall) condition).getOperands()) {
+                    final RecordFilter filter = create(operand, fields);
+                    if (filter == null) {
+                        return null;
+                    }
+                    filters.add(filter);
+                }
+                return new OrFilter(filters);
+            }
+            case IS_NULL:
+            case IS_NOT_NULL: {
+                final RexNode operand = ((RexCall) condition).getOperands().get(0);
+                if (!(operand instanceof RexInputRef)) {
+                    return null;
+                }
+                return new NullFilter(fields[((RexInputRef) operand).getIndex()], condition.getKind() == SqlKind.IS_NULL);
+            }
+            case INPUT_REF:
+                return new BooleanFilter(fields[((RexInputRef) condition).getIndex()]);
+            case EQUALS:
+            case NOT_EQUALS:
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                return createComparison((RexCall) condition, fields);
+            default:
+                return null;
+        }
+    }
+
+    private static RecordFilter createComparison(final RexCall comparison, final int[] fields) {
+        final List<RexNode> operands = comparison.getOperands();
+        if (operands.size() != 2) {
+            return null;
+        }
+
+        final RexNode left = operands.get(0);
+        final RexNode right = operands.get(1);
+
+        final RexInputRef inputRef;
+        final RexLiteral literal;
+        final SqlKind kind;
+        if (left instanceof RexInputRef && right instanceof RexLiteral) {
+            inputRef = (RexInputRef) left;
+            literal = (RexLiteral) right;
+            kind = comparison.getKind();
+        } else if (left instanceof RexLiteral && right instanceof RexInputRef) {
+            inputRef = (RexInputRef) right;
+            literal = (RexLiteral) left;
+            kind = reverse(comparison.getKind());
+        } else {
+            return null;
+        }
+
+        final Comparable<?> value = literal.getValue();
+        if (value instanceof BigDecimal) {
+            return new ComparisonFilter(fields[inputRef.getIndex()], kind, value);
+        }
+        if (value instanceof NlsString) {
+            return new ComparisonFilter(fields[inputRef.getIndex()], kind, ((NlsString) value).getValue());
+        }
+
+        return null;
+    }
+
+    private static SqlKind reverse(final SqlKind kind) {
+        switch (kind) {
+            case LESS_THAN:
+                return SqlKind.GREATER_THAN;
+            case LESS_THAN_OR_EQUAL:
+                return SqlKind.GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN:
+                return SqlKind.LESS_THAN;
+            case GREATER_THAN_OR_EQUAL:
+                return SqlKind.LESS_THAN_OR_EQUAL;
+            default:
+                return kind;
+        }
+    }
+
+
+    private static class AndFilter extends RecordFilter {
+        private final RecordFilter[] filters;
+
+        AndFilter(final List<RecordFilter> filters) {
+            this.filters = filters.toArray(new RecordFilter[filters.size()]);
+        }
+
+        @Override
+        public boolean mayMatch(final Record record) {
+            for (final RecordFilter filter : filters) {
+                if (!filter.mayMatch(record)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return toString("AND", filters);
+        }
+    }
+
+    private static class OrFilter extends RecordFilter {
+        private final RecordFilter[] filters;
+
+        OrFilter(final List<RecordFilter> filters) {
+            this.filters = filters.toArray(new RecordFilter[filters.size()]);
+        }
+
+        @Override
+        public boolean mayMatch(final Record record) {
+            for (final RecordFilter filter : filters) {
+                if (filter.mayMatch(record)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return toString("OR", filters);
+        }
+    }
+
+    private static String toString(final String operator, final RecordFilter[] filters) {
+        final StringBuilder sb = new StringBuilder(operator).append('(');
+        for (int i = 0; i < filters.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(filters[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    private static class NullFilter extends RecordFilter {
+        private final int field;
+        private final boolean isNull;
+
+        NullFilter(final int field, final boolean isNull) {
+            this.field = field;
+            this.isNull = isNull;
+        }
+
+        @Override
+        public boolean mayMatch(final Record record) {
+            final Object value = FlowFileEnumerator.getFieldValue(record, field);
+            return isNull == (value == null);
+        }
+
+        @Override
+        public String toString() {
+            return (isNull ? "IS NULL($" : "IS NOT NULL($") + field + ")";
+        }
+    }
+
+    private static class BooleanFilter extends RecordFilter {
+        private final int field;
+
+        BooleanFilter(final int field) {
+            this.field = field;
+        }
+
+        @Override
+        public boolean mayMatch(final Record record) {
+            final Object value = FlowFileEnumerator.getFieldValue(record, field);
+            if (value == null) {
+                return false;
+            }
+            return !(value instanceof Boolean) || (Boolean) value;
+        }
+
+        @Override
+        public String toString() {
+            return "$" + field;
+        }
+    }
+
+    private static class ComparisonFilter extends RecordFilter {
+        private final int field;
+        private final SqlKind kind;
+        private final Object literal;
+
+        ComparisonFilter(final int field, final SqlKind kind, final Object literal) {
+            this.field = field;
+            this.kind = kind;
+            this.literal = literal;
+        }
+
+        @Override
+        public boolean mayMatch(final Record record) {
+            final Object value = FlowFileEnumerator.getFieldValue(record, field);
+            if (value == null) {
+                return false;
+            }
+
+            if (literal instanceof String) {
+                if (!(value instanceof String)) {
+                    return true;
+                }
+                return matches(((String) value).compareTo((String) literal));
+            }
+
+            final BigDecimal decimal = (BigDecimal) literal;
+            if (value instanceof Double) {
+                // Compare as primitive doubles, as the generated code does, so that NaN is handled in the same way.
+                return matches(((Double) value).doubleValue(), decimal.doubleValue());
+            }
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return matches(BigDecimal.valueOf(((Number) value).longValue()).compareTo(decimal));
+            }
+            if (value instanceof BigInteger) {
+                return matches(new BigDecimal((BigInteger) value).compareTo(decimal));
+            }
+            if (value instanceof BigDecimal) {
+                return matches(((BigDecimal) value).compareTo(decimal));
+            }
+
+            return true;
+        }
+
+        private boolean matches(final int comparison) {
+            switch (kind) {
+                case EQUALS:
+                    return comparison == 0;
+                case NOT_EQUALS:
+                    return comparison != 0;
+                case LESS_THAN:
+                    return comparison < 0;
+                case LESS_THAN_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER_THAN:
+                    return comparison > 0;
+                case GREATER_THAN_OR_EQUAL:
+                    return comparison >= 0;
+                default:
+                    return true;
+            }
+        }
+
+        private boolean matches(final double value, final double literal) {
+            switch (kind) {
+                case EQUALS:
+                    return value == literal;
+                case NOT_EQUALS:
+                    return value != literal;
+                case LESS_THAN:
+                    return value < literal;
+                case LESS_THAN_OR_EQUAL:
+                    return value <= literal;
+                case GREATER_THAN:
+                    return value > literal;
+                case GREATER_THAN_OR_EQUAL:
+                    return value >= literal;
+                default:
+                    return true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return kind + "($" + field + ", " + (literal instanceof String ? "'" + literal + "'" : literal) + ")";
+        }
+    }
+}
@@ -218,6 +218,81 @@ public class TestQueryRecord {
         flowFileOut.assertContentEquals("\"name\",\"points\"\n\"Tom\",\"100\"\n\"Jerry\",\"2\"\n");
     }
 
+    @Test
+    public void testFilter() throws InitializationException, IOException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("points", RecordFieldType.INT);
+        parser.addSchemaField("score", RecordFieldType.DOUBLE);
+        parser.addRecord("Tom", 1, 1.5D);
+        parser.addRecord("Jerry", 2, 2.5D);
+        parser.addRecord("Tom", 99, 3.5D);
+        parser.addRecord(null, 100, 4.5D);
+        parser.addRecord("Tom", 100, Double.NaN);
+
+        final MockRecordWriter writer = new MockRecordWriter("\"name\",\"points\"");
+
+        final TestRunner runner = TestRunners.newTestRunner(QueryRecord.class);
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(REL_NAME, "select name, points from FLOWFILE WHERE (name = 'Tom' AND 2 <= points AND score > 1.0) OR name IS NULL OR name <> UPPER(name)");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertTransferCount(REL_NAME, 1);
+        final MockFlowFile flowFileOut = runner.getFlowFilesForRelationship(REL_NAME).get(0);
+        flowFileOut.assertContentEquals("\"name\",\"points\"\n\"Tom\",\"1\"\n\"Jerry\",\"2\"\n\"Tom\",\"99\"\n,\"100\"\n\"Tom\",\"100\"\n");
+
+        runner.clearTransferState();
+        runner.setProperty(REL_NAME, "select name, points from FLOWFILE WHERE name = 'Tom' AND 2 <= points AND score > 1.0");
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertTransferCount(REL_NAME, 1);
+        runner.getFlowFilesForRelationship(REL_NAME).get(0).assertContentEquals("\"name\",\"points\"\n\"Tom\",\"99\"\n");
+        Assert.assertEquals(10L, runner.getCounterValue("Records Read").longValue());
+    }
+
+    @Test
+    public void testSchemaNotCached() throws InitializationException, IOException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("points", RecordFieldType.INT);
+        parser.addRecord("Tom", 1);
+        parser.addRecord("Jerry", 2);
+
+        final MockRecordWriter writer = new MockRecordWriter("\"name\"");
+
+        final TestRunner runner = TestRunners.newTestRunner(QueryRecord.class);
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(REL_NAME, "select name from FLOWFILE WHERE points > ${min.points}");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+        runner.setProperty(QueryRecord.CACHE_SCHEMA, "false");
+
+        runner.enqueue("", Collections.singletonMap("min.points", "0"));
+        runner.enqueue("", Collections.singletonMap("min.points", "1"));
+        runner.enqueue("", Collections.singletonMap("min.points", "0"));
+        runner.run(3);
+
+        runner.assertTransferCount(REL_NAME, 3);
+        final List<MockFlowFile> flowFilesOut = runner.getFlowFilesForRelationship(REL_NAME);
+        flowFilesOut.get(0).assertContentEquals("\"name\"\n\"Tom\"\n\"Jerry\"\n");
+        flowFilesOut.get(1).assertContentEquals("\"name\"\n\"Jerry\"\n");
+        flowFilesOut.get(2).assertContentEquals("\"name\"\n\"Tom\"\n\"Jerry\"\n");
+    }
+
     @Test
     public void testColumnNames() throws InitializationException, IOException {
         final MockRecordParser parser = new MockRecordParser();
@@ -17,6 +17,9 @@
 package org.apache.nifi.distributed.cache.client;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
@@ -117,6 +120,71 @@ public interface DistributedMapCacheClient extends ControllerService {
      */
     <K, V> V get(K key, Serializer<K> keySerializer, Deserializer<V> valueDeserializer) throws IOException;
 
+    /**
+     * Returns the values in the cache for the given keys. Implementations may retrieve all of the values in
+     * a single exchange with the remote instance; the default implementation calls
+     * {@link #get(Object, Serializer, Deserializer)} for each key.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param keys the keys to lookup in the map
+     * @param keySerializer key serializer
+     * @param valueDeserializer value deserializer
+     *
+     * @return a Map of each of the given keys to the value in the cache for that key, or to <code>null</code>
+     * if the cache contains no value for it
+     * @throws IOException if unable to communicate with the remote instance
+     */
+    default <K, V> Map<K, V> getAll(Set<K> keys, Serializer<K> keySerializer, Deserializer<V> valueDeserializer) throws IOException {
+        final Map<K, V> values = new HashMap<>(keys.size());
+        for (final K key : keys) {
+            values.put(key, get(key, keySerializer, valueDeserializer));
+        }
+        return values;
+    }
+
+    /**
+     * Adds the specified keys and values to the cache, overwriting any values that are currently set.
+     * Implementations may send all of the entries in a single exchange with the remote instance; the default
+     * implementation calls {@link #put(Object, Object, Serializer, Serializer)} for each entry.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param entries the keys and values to set
+     * @param keySerializer the Serializer that will be used to serialize the keys into bytes
+     * @param valueSerializer the Serializer that will be used to serialize the values into bytes
+     *
+     * @throws IOException if unable to communicate with the remote instance
+     */
+    default <K, V> void putAll(Map<K, V> entries, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        for (final Map.Entry<K, V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue(), keySerializer, valueSerializer);
+        }
+    }
+
+    /**
+     * Adds each of the specified keys and values to the cache, if the key is not already present. Implementations
+     * may send all of the entries in a single exchange with the remote instance; the default implementation calls
+     * {@link #putIfAbsent(Object, Object, Serializer, Serializer)} for each entry.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param entries the keys and values to add
+     * @param keySerializer the Serializer that will be used to serialize the keys into bytes
+     * @param valueSerializer the Serializer that will be used to serialize the values into bytes
+     *
+     * @return a Map of each of the given keys to <code>true</code> if its value was added to the cache, or to
+     * <code>false</code> if the key already existed in the cache
+     * @throws IOException if unable to communicate with the remote instance
+     */
+    default <K, V> Map<K, Boolean> putAllIfAbsent(Map<K, V> entries, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        final Map<K, Boolean> results = new HashMap<>(entries.size());
+        for (final Map.Entry<K, V> entry : entries.entrySet()) {
+            results.put(entry.getKey(), putIfAbsent(entry.getKey(), entry.getValue(), keySerializer, valueSerializer));
+        }
+        return results;
+    }
+
     /**
      * Attempts to notify the server that we are finished communicating with it
      * and cleans up resources
@@ -21,7 +21,10 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -81,9 +84,32 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
         .defaultValue("30 secs")
         .build();
+    public static final PropertyDescriptor NEAR_CACHE_SIZE = new PropertyDescriptor.Builder()
+        .name("Near Cache Size")
+        .description("The maximum number of values to keep in a local cache of values that have been retrieved from the server, so that "
+                + "repeated lookups of the same key do not each require a request to the server. Values that are changed by other clients "
+                + "are not seen until they expire from the local cache. A value of 0 disables the local cache.")
+        .required(true)
+        .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+        .defaultValue("0")
+        .build();
+    public static final PropertyDescriptor NEAR_CACHE_TTL = new PropertyDescriptor.Builder()
+        .name("Near Cache TTL")
+        .description("How long a value that has been retrieved from the server may be served from the local cache before it must be "
+                + "retrieved again. Only applicable if the Near Cache Size is greater than 0.")
+        .required(true)
+        .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+        .defaultValue("10 secs")
+        .build();
+
+    // limits how far the client may get ahead of the server when pipelining requests, so that neither side blocks
+    // writing to a socket that the other is not reading from
+    private static final int MAX_PIPELINED_REQUESTS = 1000;
+    private static final int MAX_PIPELINED_BYTES = 64 * 1024;
 
     private final BlockingQueue<CommsSession> queue = new LinkedBlockingQueue<>();
     private volatile ConfigurationContext configContext;
+    private volatile NearCache nearCache;
     private volatile boolean closed = false;
 
     @Override
@@ -93,12 +119,22 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         descriptors.add(PORT);
         descriptors.add(SSL_CONTEXT_SERVICE);
         descriptors.add(COMMUNICATIONS_TIMEOUT);
+        descriptors.add(NEAR_CACHE_SIZE);
+        descriptors.add(NEAR_CACHE_TTL);
         return descriptors;
     }
 
     @OnEnabled
     public void cacheConfig(final ConfigurationContext context) {
         this.configContext = context;
+
+        final int nearCacheSize = context.getProperty(NEAR_CACHE_SIZE).asInteger();
+        if (nearCacheSize > 0) {
+            final long ttlNanos = context.getProperty(NEAR_CACHE_TTL).asTimePeriod(TimeUnit.NANOSECONDS);
+            this.nearCache = new NearCache(nearCacheSize, ttlNanos);
+        } else {
+            this.nearCache = null;
+        }
     }
 
     @OnStopped
@@ -108,13 +144,14 @@ public class DistributedMapCacheClientService extends AbstractControllerService
 
     @Override
     public <K, V> boolean putIfAbsent(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
-        return withCommsSession(new CommsAction<Boolean>() {
+        final byte[] keyBytes = serialize(key, keySerializer);
+        final boolean added = withCommsSession(new CommsAction<Boolean>() {
             @Override
             public Boolean execute(final CommsSession session) throws IOException {
                 final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
                 dos.writeUTF("putIfAbsent");
 
-                serialize(key, keySerializer, dos);
+                writeBytes(keyBytes, dos);
                 serialize(value, valueSerializer, dos);
 
                 dos.flush();
@@ -123,17 +160,21 @@ public class DistributedMapCacheClientService extends AbstractControllerService
                 return dis.readBoolean();
             }
         });
+
+        invalidate(keyBytes);
+        return added;
     }
 
     @Override
     public <K, V> void put(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
+        final byte[] keyBytes = serialize(key, keySerializer);
         withCommsSession(new CommsAction<Object>() {
             @Override
             public Object execute(final CommsSession session) throws IOException {
                 final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
                 dos.writeUTF("put");
 
-                serialize(key, keySerializer, dos);
+                writeBytes(keyBytes, dos);
                 serialize(value, valueSerializer, dos);
 
                 dos.flush();
@@ -146,73 +187,238 @@ public class DistributedMapCacheClientService extends AbstractControllerService
                 return null;
             }
         });
+
+        invalidate(keyBytes);
     }
 
     @Override
     public <K> boolean containsKey(final K key, final Serializer<K> keySerializer) throws IOException {
-        return withCommsSession(new CommsAction<Boolean>() {
+        final byte[] keyBytes = serialize(key, keySerializer);
+        final NearCache nearCache = this.nearCache;
+        if (nearCache != null) {
+            final byte[] cachedValue = nearCache.get(keyBytes);
+            if (cachedValue == NearCache.ABSENT) {
+                return false;
+            }
+            // an empty value may have been cached because the key is not present or because its value is empty, so only
+            // a non-empty value tells us that the key is present
+            if (cachedValue != null && cachedValue.length > 0) {
+                return true;
+            }
+        }
+
+        final long generation = nearCache == null ? 0L : nearCache.getGeneration();
+        final boolean contains = withCommsSession(new CommsAction<Boolean>() {
             @Override
             public Boolean execute(final CommsSession session) throws IOException {
                 final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
                 dos.writeUTF("containsKey");
 
-                serialize(key, keySerializer, dos);
+                writeBytes(keyBytes, dos);
                 dos.flush();
 
                 final DataInputStream dis = new DataInputStream(session.getInputStream());
                 return dis.readBoolean();
             }
         });
+
+        if (nearCache != null && !contains) {
+            nearCache.put(keyBytes, NearCache.ABSENT, generation);
+        }
+        return contains;
     }
 
     @Override
     public <K, V> V getAndPutIfAbsent(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer, final Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(new CommsAction<V>() {
+        final byte[] keyBytes = serialize(key, keySerializer);
+        final byte[] responseBuffer = withCommsSession(new CommsAction<byte[]>() {
             @Override
-            public V execute(final CommsSession session) throws IOException {
+            public byte[] execute(final CommsSession session) throws IOException {
                 final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
                 dos.writeUTF("getAndPutIfAbsent");
 
-                serialize(key, keySerializer, dos);
+                writeBytes(keyBytes, dos);
                 serialize(value, valueSerializer, dos);
                 dos.flush();
 
                 // read response
                 final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final byte[] responseBuffer = readLengthDelimitedResponse(dis);
-                return valueDeserializer.deserialize(responseBuffer);
+                return readLengthDelimitedResponse(dis);
             }
         });
+
+        invalidate(keyBytes);
+        return valueDeserializer.deserialize(responseBuffer);
     }
 
     @Override
     public <K, V> V get(final K key, final Serializer<K> keySerializer, final Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(new CommsAction<V>() {
+        final byte[] keyBytes = serialize(key, keySerializer);
+        final NearCache nearCache = this.nearCache;
+        if (nearCache != null) {
+            final byte[] cachedValue = nearCache.get(keyBytes);
+            if (cachedValue != null) {
+                return valueDeserializer.deserialize(cachedValue);
+            }
+        }
+
+        final long generation = nearCache == null ? 0L : nearCache.getGeneration();
+        final byte[] responseBuffer = withCommsSession(new CommsAction<byte[]>() {
             @Override
-            public V execute(final CommsSession session) throws IOException {
+            public byte[] execute(final CommsSession session) throws IOException {
                 final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
                 dos.writeUTF("get");
 
-                serialize(key, keySerializer, dos);
+                writeBytes(keyBytes, dos);
                 dos.flush();
 
                 // read response
                 final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final byte[] responseBuffer = readLengthDelimitedResponse(dis);
-                return valueDeserializer.deserialize(responseBuffer);
+                return readLengthDelimitedResponse(dis);
             }
         });
+
+        if (nearCache != null) {
+            nearCache.put(keyBytes, responseBuffer, generation);
+        }
+        return valueDeserializer.deserialize(responseBuffer);
+    }
+
+    @Override
+    public <K, V> Map<K, V> getAll(final Set<K> keys, final Serializer<K> keySerializer, final Deserializer<V> valueDeserializer) throws IOException {
+        final Map<K, V> values = new HashMap<>(keys.size());
+        final NearCache nearCache = this.nearCache;
+        final long generation = nearCache == null ? 0L : nearCache.getGeneration();
+
+        // serve whatever we can from the near cache and request the rest from the server
+        final List<K> keysToRequest = new ArrayList<>(keys.size());
+        final List<byte[]> keyBytesToRequest = new ArrayList<>(keys.size());
+        for (final K key : keys) {
+            final byte[] keyBytes = serialize(key, keySerializer);
+            final byte[] cachedValue = nearCache == null ? null : nearCache.get(keyBytes);
+            if (cachedValue == null) {
+                keysToRequest.add(key);
+                keyBytesToRequest.add(keyBytes);
+            } else {
+                values.put(key, valueDeserializer.deserialize(cachedValue));
+            }
+        }
+
+        if (keysToRequest.isEmpty()) {
+            return values;
+        }
+
+        final byte[][] responses = new byte[keysToRequest.size()][];
+        withCommsSession(session -> {
+            executePipelined(session, keysToRequest.size(), (dos, index) -> {
+                dos.writeUTF("get");
+                writeBytes(keyBytesToRequest.get(index), dos);
+            }, (dis, index) -> responses[index] = readLengthDelimitedResponse(dis));
+            return null;
+        });
+
+        for (int i = 0; i < responses.length; i++) {
+            if (nearCache != null) {
+                nearCache.put(keyBytesToRequest.get(i), responses[i], generation);
+            }
+            values.put(keysToRequest.get(i), valueDeserializer.deserialize(responses[i]));
+        }
+
+        return values;
+    }
+
+    @Override
+    public <K, V> void putAll(final Map<K, V> entries, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
+        final List<byte[]> keys = new ArrayList<>(entries.size());
+        final List<byte[]> values = new ArrayList<>(entries.size());
+        for (final Map.Entry<K, V> entry : entries.entrySet()) {
+            keys.add(serialize(entry.getKey(), keySerializer));
+            values.add(serialize(entry.getValue(), valueSerializer));
+        }
+
+        try {
+            withCommsSession(session -> {
+                executePipelined(session, keys.size(), (dos, index) -> {
+                    dos.writeUTF("put");
+                    writeBytes(keys.get(index), dos);
+                    writeBytes(values.get(index), dos);
+                }, (dis, index) -> {
+                    if (!dis.readBoolean()) {
+                        throw new IOException("Expected to receive confirmation of 'put' request but received unexpected response");
+                    }
+                });
+                return null;
+            });
+        } finally {
+            keys.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public <K, V> Map<K, Boolean> putAllIfAbsent(final Map<K, V> entries, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
+        final List<K> keys = new ArrayList<>(entries.size());
+        final List<byte[]> keyBytes = new ArrayList<>(entries.size());
+        final List<byte[]> values = new ArrayList<>(entries.size());
+        for (final Map.Entry<K, V> entry : entries.entrySet()) {
+            keys.add(entry.getKey());
+            keyBytes.add(serialize(entry.getKey(), keySerializer));
+            values.add(serialize(entry.getValue(), valueSerializer));
+        }
+
+        final Map<K, Boolean> results = new HashMap<>(entries.size());
+        try {
+            withCommsSession(session -> {
+                executePipelined(session, keys.size(), (dos, index) -> {
+                    dos.writeUTF("putIfAbsent");
+                    writeBytes(keyBytes.get(index), dos);
+                    writeBytes(values.get(index), dos);
+                }, (dis, index) -> results.put(keys.get(index), dis.readBoolean()));
+                return null;
+            });
+        } finally {
+            keyBytes.forEach(this::invalidate);
+        }
+
+        return results;
+    }
+
+    /**
+     * Sends the given number of requests over the given session and reads their responses. If the server supports it,
+     * requests are written in batches without waiting for the responses to the earlier requests in the batch, so that
+     * the batch costs a single round-trip rather than one round-trip per request.
+     */
+    private void executePipelined(final CommsSession session, final int requestCount, final RequestWriter requestWriter, final ResponseReader responseReader)
+        throws IOException {
+        final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
+        final DataInputStream dis = new DataInputStream(session.getInputStream());
+        final boolean pipelining = session.getProtocolVersion() >= 3;
+
+        int requestsSent = 0;
+        int responsesRead = 0;
+        while (requestsSent < requestCount) {
+            final int batchStart = dos.size();
+            do {
+                requestWriter.write(dos, requestsSent++);
+            } while (pipelining && requestsSent < requestCount
+                && requestsSent - responsesRead < MAX_PIPELINED_REQUESTS && dos.size() - batchStart < MAX_PIPELINED_BYTES);
+            dos.flush();
+
+            while (responsesRead < requestsSent) {
+                responseReader.read(dis, responsesRead++);
+            }
+        }
     }
 
     @Override
     public <K> boolean remove(final K key, final Serializer<K> serializer) throws IOException {
-        return withCommsSession(new CommsAction<Boolean>() {
+        final byte[] keyBytes = serialize(key, serializer);
+        final boolean removed = withCommsSession(new CommsAction<Boolean>() {
             @Override
             public Boolean execute(final CommsSession session) throws IOException {
                 final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
                 dos.writeUTF("remove");
 
-                serialize(key, serializer, dos);
+                writeBytes(keyBytes, dos);
                 dos.flush();
 
                 // read response
@@ -220,11 +426,14 @@ public class DistributedMapCacheClientService extends AbstractControllerService
                 return dis.readBoolean();
             }
         });
+
+        invalidate(keyBytes);
+        return removed;
     }
 
     @Override
     public long removeByPattern(String regex) throws IOException {
-        return withCommsSession(session -> {
+        final long removed = withCommsSession(session -> {
             final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
             dos.writeUTF("removeByPattern");
             dos.writeUTF(regex);
@@ -234,6 +443,12 @@ public class DistributedMapCacheClientService extends AbstractControllerService
             final DataInputStream dis = new DataInputStream(session.getInputStream());
             return dis.readLong();
         });
+
+        final NearCache nearCache = this.nearCache;
+        if (nearCache != null) {
+            nearCache.clear();
+        }
+        return removed;
     }
 
     @Override
@@ -270,13 +485,14 @@ public class DistributedMapCacheClientService extends AbstractControllerService
 
     @Override
     public <K, V> boolean replace(AtomicCacheEntry<K, V, Long> entry, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
-        return withCommsSession(session -> {
+        final byte[] keyBytes = serialize(entry.getKey(), keySerializer);
+        final boolean replaced = withCommsSession(session -> {
             validateProtocolVersion(session, 2);
 
             final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
             dos.writeUTF("replace");
 
-            serialize(entry.getKey(), keySerializer, dos);
+            writeBytes(keyBytes, dos);
             dos.writeLong(entry.getRevision().orElse(0L));
             serialize(entry.getValue(), valueSerializer, dos);
 
@@ -286,6 +502,9 @@ public class DistributedMapCacheClientService extends AbstractControllerService
             final DataInputStream dis = new DataInputStream(session.getInputStream());
             return dis.readBoolean();
         });
+
+        invalidate(keyBytes);
+        return replaced;
     }
 
     private byte[] readLengthDelimitedResponse(final DataInputStream dis) throws IOException {
@@ -319,7 +538,7 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         }
 
         session = createCommsSession(configContext);
-        final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(2, 1);
+        final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(3, 2, 1);
         try {
             ProtocolHandshake.initiateHandshake(session.getInputStream(), session.getOutputStream(), versionNegotiator);
             session.setProtocolVersion(versionNegotiator.getVersion());
@@ -368,6 +587,24 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         baos.writeTo(dos);
     }
 
+    private <T> byte[] serialize(final T value, final Serializer<T> serializer) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize(value, baos);
+        return baos.toByteArray();
+    }
+
+    private void writeBytes(final byte[] bytes, final DataOutputStream dos) throws IOException {
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    private void invalidate(final byte[] keyBytes) {
+        final NearCache nearCache = this.nearCache;
+        if (nearCache != null) {
+            nearCache.invalidate(keyBytes);
+        }
+    }
+
     private <T> T withCommsSession(final CommsAction<T> action) throws IOException {
         if (closed) {
             throw new IllegalStateException("Client is closed");
@@ -393,4 +630,14 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         T execute(CommsSession commsSession) throws IOException;
     }
 
+    private static interface RequestWriter {
+
+        void write(DataOutputStream dos, int requestIndex) throws IOException;
+    }
+
+    private static interface ResponseReader {
+
+        void read(DataInputStream dis, int requestIndex) throws IOException;
+    }
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.client;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded, local cache of the serialized values that a client has recently retrieved from the
+ * DistributedMapCacheServer, keyed by serialized key. Entries are evicted in least-recently-used order once
+ * the maximum size is reached, and are not returned once they are older than the configured time-to-live.
+ * </p>
+ *
+ * <p>
+ * Changes made by this client invalidate the affected entries, but changes made by other clients are not
+ * seen until the entry expires. To avoid caching a value that was retrieved concurrently with a change
+ * made by this client, a value is only cached if no entry has been invalidated since the request that
+ * retrieved it began; see {@link #getGeneration()}.
+ * </p>
+ */
+class NearCache {
+
+    /**
+     * Cached for a key that the server has reported it does not contain. The server returns an empty value both for a
+     * key that it does not contain and for a key whose value is empty, so an empty value that was returned by a get
+     * request says nothing about whether the key is present; only this instance, compared by identity, does.
+     */
+    static final byte[] ABSENT = new byte[0];
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<ByteBuffer, CachedValue> entries;
+    private long generation = 0L;
+
+    NearCache(final int maxSize, final long ttlNanos) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<ByteBuffer, CachedValue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ByteBuffer, CachedValue> eldest) {
+                return size() > NearCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return a value that changes whenever an entry is invalidated, to be passed to {@link #put(byte[], byte[], long)}
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param key the serialized key
+     * @return the serialized value that the server returned for the key, which is empty if the server holds no value
+     *         or an empty value for the key, {@link #ABSENT} if the server reported that it does not contain the key,
+     *         or <code>null</code> if the key is not cached
+     */
+    synchronized byte[] get(final byte[] key) {
+        final ByteBuffer wrappedKey = ByteBuffer.wrap(key);
+        final CachedValue cached = entries.get(wrappedKey);
+        if (cached == null) {
+            return null;
+        }
+
+        if (System.nanoTime() - cached.timestamp > ttlNanos) {
+            entries.remove(wrappedKey);
+            return null;
+        }
+
+        return cached.value;
+    }
+
+    /**
+     * Caches the given value, unless an entry has been invalidated since the given generation was obtained
+     *
+     * @param key the serialized key
+     * @param value the serialized value returned by the server, or {@link #ABSENT} if the server reported that it does not contain the key
+     * @param requestGeneration the generation that was obtained before the value was requested from the server
+     */
+    synchronized void put(final byte[] key, final byte[] value, final long requestGeneration) {
+        if (requestGeneration != generation) {
+            return;
+        }
+
+        entries.put(ByteBuffer.wrap(key), new CachedValue(value, System.nanoTime()));
+    }
+
+    synchronized void invalidate(final byte[] key) {
+        generation++;
+        entries.remove(ByteBuffer.wrap(key));
+    }
+
+    synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static class CachedValue {
+        private final byte[] value;
+        private final long timestamp;
+
+        CachedValue(final byte[] value, final long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
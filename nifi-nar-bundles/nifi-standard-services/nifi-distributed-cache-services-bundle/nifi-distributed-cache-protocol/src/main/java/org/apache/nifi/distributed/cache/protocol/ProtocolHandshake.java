@@ -38,6 +38,7 @@ public class ProtocolHandshake {
      * If the server doesn't support requested protocol version, HandshakeException will be thrown.</p>
      *
      * <p>DistributedMapCache version histories:<ul>
+     *     <li>3: Requests may be pipelined; a client may send further requests before the responses to earlier requests have been received.</li>
      *     <li>2: Added atomic update operations (fetch and replace) using optimistic lock with revision number.</li>
      *     <li>1: Initial version.</li>
      * </ul></p>
@@ -108,23 +109,42 @@ public class ProtocolHandshake {
 
     private static void receiveVersionNegotiation(final VersionNegotiator negotiator, final DataInputStream dis, final DataOutputStream dos) throws IOException, HandshakeException {
         final int version = dis.readInt();
+        if (!respondToVersion(version, negotiator, dos)) {
+            receiveVersionNegotiation(negotiator, dis, dos);
+        }
+    }
+
+    /**
+     * Responds to a single protocol version proposed by a client. This allows a server that does not dedicate a thread
+     * to each connection to perform the handshake as each proposal arrives, rather than blocking in
+     * {@link #receiveHandshake(InputStream, OutputStream, VersionNegotiator)}.
+     *
+     * @param version the version proposed by the client
+     * @param negotiator the server's version negotiator, which is updated with the version if it is accepted
+     * @param out the stream to write the response to
+     * @return <code>true</code> if the version was accepted, <code>false</code> if the client is expected to propose another version
+     * @throws IOException if unable to write the response
+     * @throws HandshakeException if there is no version that both the client and the server can support
+     */
+    public static boolean respondToVersion(final int version, final VersionNegotiator negotiator, final OutputStream out) throws IOException, HandshakeException {
+        final DataOutputStream dos = new DataOutputStream(out);
         if (negotiator.isVersionSupported(version)) {
             dos.write(RESOURCE_OK);
             dos.flush();
 
             negotiator.setVersion(version);
-        } else {
-            final Integer preferred = negotiator.getPreferredVersion(version);
-            if (preferred == null) {
-                dos.write(ABORT);
-                dos.flush();
-                throw new HandshakeException("Unable to negotiate an acceptable version of the Distributed Cache Protocol");
-            }
-            dos.write(DIFFERENT_RESOURCE_VERSION);
-            dos.writeInt(preferred);
-            dos.flush();
+            return true;
+        }
 
-            receiveVersionNegotiation(negotiator, dis, dos);
+        final Integer preferred = negotiator.getPreferredVersion(version);
+        if (preferred == null) {
+            dos.write(ABORT);
+            dos.flush();
+            throw new HandshakeException("Unable to negotiate an acceptable version of the Distributed Cache Protocol");
         }
+        dos.write(DIFFERENT_RESOURCE_VERSION);
+        dos.writeInt(preferred);
+        dos.flush();
+        return false;
     }
 }
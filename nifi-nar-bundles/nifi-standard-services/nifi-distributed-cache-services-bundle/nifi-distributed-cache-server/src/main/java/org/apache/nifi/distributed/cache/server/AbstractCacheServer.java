@@ -34,8 +34,6 @@ import org.apache.nifi.distributed.cache.protocol.ProtocolHandshake;
 import org.apache.nifi.distributed.cache.protocol.exception.HandshakeException;
 import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
-import org.apache.nifi.remote.io.socket.SocketChannelInputStream;
-import org.apache.nifi.remote.io.socket.SocketChannelOutputStream;
 import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannel;
 import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannelInputStream;
 import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannelOutputStream;
@@ -46,6 +44,7 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractCacheServer implements CacheServer {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractCacheServer.class);
+    private static final int WORKER_THREAD_COUNT = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
 
     private final String identifier;
     private final int port;
@@ -54,6 +53,7 @@ public abstract class AbstractCacheServer implements CacheServer {
     private final Set<Thread> processInputThreads = new CopyOnWriteArraySet<>();
 
     private volatile ServerSocketChannel serverSocketChannel;
+    private volatile CacheServerEventLoop eventLoop;
 
     public AbstractCacheServer(final String identifier, final SSLContext sslContext, final int port) {
         this.identifier = identifier;
@@ -69,9 +69,16 @@ public abstract class AbstractCacheServer implements CacheServer {
     @Override
     public void start() throws IOException {
         serverSocketChannel = ServerSocketChannel.open();
-        serverSocketChannel.configureBlocking(true);
         serverSocketChannel.bind(new InetSocketAddress(port));
 
+        // SSLSocketChannel can only be used in a blocking manner, so secure connections are each serviced by their own thread.
+        if (sslContext == null) {
+            eventLoop = new CacheServerEventLoop(this, identifier, serverSocketChannel, WORKER_THREAD_COUNT);
+            eventLoop.start();
+            return;
+        }
+
+        serverSocketChannel.configureBlocking(true);
         final Runnable runnable = new Runnable() {
 
             @Override
@@ -99,15 +106,10 @@ public abstract class AbstractCacheServer implements CacheServer {
                             final String peer = socketChannel.socket().getInetAddress().getHostName();
 
                             try {
-                                if (sslContext == null) {
-                                    rawInputStream = new SocketChannelInputStream(socketChannel);
-                                    rawOutputStream = new SocketChannelOutputStream(socketChannel);
-                                } else {
-                                    final SSLSocketChannel sslSocketChannel = new SSLSocketChannel(sslContext, socketChannel, false);
-                                    sslSocketChannel.connect();
-                                    rawInputStream = new SSLSocketChannelInputStream(sslSocketChannel);
-                                    rawOutputStream = new SSLSocketChannelOutputStream(sslSocketChannel);
-                                }
+                                final SSLSocketChannel sslSocketChannel = new SSLSocketChannel(sslContext, socketChannel, false);
+                                sslSocketChannel.connect();
+                                rawInputStream = new SSLSocketChannelInputStream(sslSocketChannel);
+                                rawOutputStream = new SSLSocketChannelOutputStream(sslSocketChannel);
                             } catch (IOException e) {
                                 logger.error("Cannot create input and/or output streams for {}", new Object[]{identifier}, e);
                                 if (logger.isDebugEnabled()) {
@@ -179,6 +181,9 @@ public abstract class AbstractCacheServer implements CacheServer {
         if (serverSocketChannel != null && serverSocketChannel.isOpen()) {
             serverSocketChannel.close();
         }
+        if (eventLoop != null) {
+            eventLoop.stop();
+        }
         // need to close out the created SocketChannels...this is done by interrupting
         // the created threads that loop on listen().
         for (Thread processInputThread : processInputThreads) {
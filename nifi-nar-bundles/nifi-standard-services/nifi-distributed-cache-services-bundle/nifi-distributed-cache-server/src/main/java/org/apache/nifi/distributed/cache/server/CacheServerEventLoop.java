@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.nifi.distributed.cache.protocol.ProtocolHandshake;
+import org.apache.nifi.distributed.cache.protocol.exception.HandshakeException;
+import org.apache.nifi.remote.VersionNegotiator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * Services the connections of a cache server with a single selector thread and a small pool of worker threads,
+ * rather than with a thread per connection.
+ * </p>
+ *
+ * <p>
+ * The selector thread reads whatever bytes are available from a connection into that connection's buffer and then
+ * hands the connection to a worker. The worker processes every complete request in the buffer, in order, and writes
+ * the responses. Because the protocol does not frame its requests, a request may be split across reads, and a client
+ * may send several requests without waiting for their responses. A worker that runs out of buffered bytes partway
+ * through a request discards whatever it produced for that request and waits for more bytes to arrive. This is safe
+ * because the cache servers read a request in its entirety before acting on it.
+ * </p>
+ *
+ * <p>
+ * When a worker runs out of bytes, the connection remembers how many bytes the request needs, as far as it was able to
+ * parse it, and is not handed to a worker again until that many bytes have arrived. A large value that arrives over
+ * many reads is therefore parsed once it is complete, rather than after every read. Buffers that grew to hold a large
+ * request or response are released once it has been processed.
+ * </p>
+ */
+class CacheServerEventLoop {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheServerEventLoop.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MAGIC_HEADER_LENGTH = ProtocolHandshake.MAGIC_HEADER.length;
+
+    private final AbstractCacheServer server;
+    private final String identifier;
+    private final ServerSocketChannel serverSocketChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped = false;
+
+    CacheServerEventLoop(final AbstractCacheServer server, final String identifier, final ServerSocketChannel serverSocketChannel, final int workerCount) throws IOException {
+        this.server = server;
+        this.identifier = identifier;
+        this.serverSocketChannel = serverSocketChannel;
+
+        serverSocketChannel.configureBlocking(false);
+        this.selector = Selector.open();
+        serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setName("Distributed Cache Server Communications Thread-" + threadCounter.incrementAndGet() + ": " + identifier);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        final Thread thread = new Thread(this::run);
+        thread.setDaemon(true);
+        thread.setName("Distributed Cache Server: " + identifier);
+        thread.start();
+    }
+
+    void stop() {
+        stopped = true;
+
+        try {
+            selector.close();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to close selector for {}", identifier, ioe);
+        }
+
+        for (final Connection connection : connections) {
+            connection.close();
+        }
+
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (!stopped) {
+            try {
+                selector.select();
+
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+
+                final Iterator<SelectionKey> itr = selector.selectedKeys().iterator();
+                while (itr.hasNext()) {
+                    final SelectionKey key = itr.next();
+                    itr.remove();
+
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            ((Connection) key.attachment()).onReadable();
+                        } else if (key.isWritable()) {
+                            ((Connection) key.attachment()).onWritable();
+                        }
+                    } catch (final CancelledKeyException cke) {
+                        // connection was closed; nothing to do
+                    }
+                }
+            } catch (final ClosedSelectorException cse) {
+                return;
+            } catch (final IOException e) {
+                if (!stopped) {
+                    logger.error("{} unable to accept connection from remote peer due to {}", server, e.toString());
+                    if (logger.isDebugEnabled()) {
+                        logger.error("", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel socketChannel = serverSocketChannel.accept();
+        if (socketChannel == null) {
+            return;
+        }
+
+        logger.debug("Connected to {}", socketChannel);
+        socketChannel.configureBlocking(false);
+        final Connection connection = new Connection(socketChannel);
+        connection.key = socketChannel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+    }
+
+    private void runOnSelector(final Runnable task) {
+        selectorTasks.offer(task);
+        selector.wakeup();
+    }
+
+    private enum ConnectionState {
+        AWAITING_HANDSHAKE,
+        AWAITING_VERSION,
+        AWAITING_REQUEST;
+    }
+
+    /**
+     * The state of a single client connection. A Connection is only ever accessed by one thread at a time: the selector
+     * thread while it is waiting to be read from or written to, and a worker thread while its requests are processed.
+     * While a worker owns the Connection, the selector is not interested in any of its events.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final String peer;
+        private final ResponseBuffer responses = new ResponseBuffer();
+        private final ReplayableInputStream replayableIn;
+        private final DataInputStream requestIn;
+
+        private SelectionKey key;
+        private ByteBuffer inbound = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private ByteBuffer outbound = ByteBuffer.allocate(0);
+        private ConnectionState state = ConnectionState.AWAITING_HANDSHAKE;
+        private VersionNegotiator versionNegotiator;
+        private boolean closeRequested = false;
+        private long requiredBytes = 0L;
+
+        Connection(final SocketChannel channel) {
+            this.channel = channel;
+            this.peer = String.valueOf(channel.socket().getInetAddress());
+            this.replayableIn = new ReplayableInputStream();
+            this.requestIn = new DataInputStream(replayableIn);
+        }
+
+        void onReadable() {
+            try {
+                if (!inbound.hasRemaining() || inbound.capacity() < requiredBytes) {
+                    // grow straight to the size of the incomplete request when it is known, rather than doubling repeatedly
+                    final long capacity = Math.max(inbound.capacity() * 2L, requiredBytes);
+                    final ByteBuffer expanded = ByteBuffer.allocate((int) Math.min(capacity, MAX_BUFFER_SIZE));
+                    inbound.flip();
+                    expanded.put(inbound);
+                    inbound = expanded;
+                }
+
+                final int bytesRead = channel.read(inbound);
+                if (bytesRead < 0) {
+                    logger.debug("Client closed connection {}", channel);
+                    close();
+                    return;
+                }
+                if (bytesRead == 0 || inbound.position() < requiredBytes) {
+                    // the incomplete request cannot be parsed any further until more of it has arrived
+                    return;
+                }
+
+                key.interestOps(0);
+                workers.execute(this::processRequests);
+            } catch (final IOException e) {
+                logCommunicationsFailure(e);
+                close();
+            }
+        }
+
+        void onWritable() {
+            try {
+                channel.write(outbound);
+                if (!outbound.hasRemaining()) {
+                    resume();
+                }
+            } catch (final IOException e) {
+                logCommunicationsFailure(e);
+                close();
+            }
+        }
+
+        private void processRequests() {
+            try {
+                inbound.flip();
+                responses.clear();
+                replayableIn.buffer = inbound;
+                requiredBytes = 0L;
+
+                while (!closeRequested && inbound.hasRemaining()) {
+                    final int requestStart = inbound.position();
+                    final int responseStart = responses.size();
+
+                    try {
+                        processRequest();
+                    } catch (final BufferUnderflowException bue) {
+                        // the rest of the request has not arrived yet
+                        inbound.position(requestStart);
+                        responses.truncate(responseStart);
+                        requiredBytes = replayableIn.requiredPosition - requestStart;
+                        break;
+                    }
+                }
+
+                inbound.compact();
+                if (inbound.capacity() > MAX_RETAINED_BUFFER_SIZE && inbound.position() <= INITIAL_BUFFER_SIZE && requiredBytes <= INITIAL_BUFFER_SIZE) {
+                    // release the memory that was needed to hold a large request
+                    final ByteBuffer shrunk = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+                    inbound.flip();
+                    shrunk.put(inbound);
+                    inbound = shrunk;
+                }
+                outbound = responses.toByteBuffer();
+                channel.write(outbound);
+            } catch (final IOException | HandshakeException e) {
+                logCommunicationsFailure(e);
+                closeRequested = true;
+                outbound = responses.toByteBuffer();
+            } catch (final Exception e) {
+                logger.error("{} failed to process request from {}", server, peer, e);
+                closeRequested = true;
+                outbound = ByteBuffer.allocate(0);
+            }
+
+            runOnSelector(this::resume);
+        }
+
+        private void processRequest() throws IOException, HandshakeException {
+            switch (state) {
+                case AWAITING_HANDSHAKE: {
+                    requestIn.readFully(new byte[MAGIC_HEADER_LENGTH]);
+                    versionNegotiator = server.getVersionNegotiator();
+                    state = ConnectionState.AWAITING_VERSION;
+                    respondToVersion();
+                    break;
+                }
+                case AWAITING_VERSION: {
+                    respondToVersion();
+                    break;
+                }
+                case AWAITING_REQUEST: {
+                    if (!server.listen(requestIn, responses, versionNegotiator.getVersion())) {
+                        // client has issued 'close'
+                        logger.debug("Client issued close on {}", channel);
+                        closeRequested = true;
+                    }
+                    break;
+                }
+            }
+        }
+
+        private void respondToVersion() throws IOException, HandshakeException {
+            final int proposedVersion = requestIn.readInt();
+            if (ProtocolHandshake.respondToVersion(proposedVersion, versionNegotiator, responses)) {
+                state = ConnectionState.AWAITING_REQUEST;
+            }
+        }
+
+        /**
+         * Called on the selector thread after the connection's requests have been processed or its responses written
+         */
+        private void resume() {
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            try {
+                if (outbound.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                } else if (closeRequested) {
+                    close();
+                } else {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } catch (final CancelledKeyException cke) {
+                close();
+            }
+        }
+
+        private void logCommunicationsFailure(final Exception e) {
+            if (!stopped) {
+                logger.error("{} unable to communicate with remote peer {} due to {}", server, peer, e.toString());
+                if (logger.isDebugEnabled()) {
+                    logger.error("", e);
+                }
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            if (key != null) {
+                key.cancel();
+            }
+
+            try {
+                channel.close();
+            } catch (final IOException swallow) {
+            }
+        }
+    }
+
+    /**
+     * Reads from a connection's buffer, failing with a {@link BufferUnderflowException} rather than reporting the end of
+     * the stream when the buffer has been exhausted, so that the caller can wait for the rest of the request to arrive.
+     * The position that the buffer would have had to extend to for the failed read to succeed is recorded, so that the
+     * caller knows how much more of the request to wait for.
+     */
+    private static class ReplayableInputStream extends InputStream {
+        private ByteBuffer buffer;
+        private long requiredPosition;
+
+        private BufferUnderflowException underflow(final int len) {
+            requiredPosition = (long) buffer.position() + len;
+            return BufferUnderflowException.INSTANCE;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                throw underflow(1);
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                throw underflow(len);
+            }
+
+            final int bytesRead = Math.min(len, buffer.remaining());
+            buffer.get(b, off, bytesRead);
+            return bytesRead;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static class BufferUnderflowException extends IOException {
+        private static final BufferUnderflowException INSTANCE = new BufferUnderflowException();
+
+        private BufferUnderflowException() {
+            super("Request is incomplete");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            // thrown whenever a request spans multiple reads, so avoid the cost of filling in the stack trace
+            return this;
+        }
+    }
+
+    /**
+     * A ByteArrayOutputStream whose contents can be truncated and then sent without being copied
+     */
+    private static class ResponseBuffer extends ByteArrayOutputStream {
+        ResponseBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        /**
+         * Discards the contents of the buffer, releasing the array if it grew to hold a large response. Must only be
+         * called once the buffer returned by {@link #toByteBuffer()} has been written.
+         */
+        void clear() {
+            if (buf.length > MAX_RETAINED_BUFFER_SIZE) {
+                buf = new byte[INITIAL_BUFFER_SIZE];
+            }
+            count = 0;
+        }
+
+        void truncate(final int size) {
+            count = size;
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -40,12 +40,12 @@ public class MapCacheServer extends AbstractCacheServer {
             final EvictionPolicy evictionPolicy, final File persistencePath) throws IOException {
         super(identifier, sslContext, port);
 
-        final MapCache simpleCache = new SimpleMapCache(identifier, maxSize, evictionPolicy);
+        final MapCache shardedCache = new ShardedMapCache(identifier, maxSize, evictionPolicy);
 
         if (persistencePath == null) {
-            this.cache = simpleCache;
+            this.cache = shardedCache;
         } else {
-            final PersistentMapCache persistentCache = new PersistentMapCache(identifier, persistencePath, simpleCache);
+            final PersistentMapCache persistentCache = new PersistentMapCache(identifier, persistencePath, shardedCache);
             persistentCache.restore();
             this.cache = persistentCache;
         }
@@ -56,7 +56,7 @@ public class MapCacheServer extends AbstractCacheServer {
      * for details of each version enhancements.
      */
     protected StandardVersionNegotiator getVersionNegotiator() {
-        return new StandardVersionNegotiator(2, 1);
+        return new StandardVersionNegotiator(3, 2, 1);
     }
 
     @Override
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+
+/**
+ * A MapCache that partitions its entries by the hash of their keys across several {@link SimpleMapCache} shards, each
+ * with its own lock and its own eviction order, so that updates to different keys do not contend with one another.
+ * Because eviction is performed per shard, the entry that is evicted is the one that the eviction policy would choose
+ * from the shard that the new entry belongs to, rather than from the entire cache. Caches that are too small to be
+ * divided meaningfully use a single shard, so that eviction follows the policy exactly.
+ */
+public class ShardedMapCache implements MapCache {
+
+    static final int MAX_SHARD_COUNT = 16;
+    static final int MIN_ENTRIES_PER_SHARD = 1000;
+
+    private final String serviceIdentifier;
+    private final MapCache[] shards;
+
+    public ShardedMapCache(final String serviceIdentifier, final int maxSize, final EvictionPolicy evictionPolicy) {
+        this(serviceIdentifier, maxSize, evictionPolicy, Math.max(1, Math.min(MAX_SHARD_COUNT, maxSize / MIN_ENTRIES_PER_SHARD)));
+    }
+
+    ShardedMapCache(final String serviceIdentifier, final int maxSize, final EvictionPolicy evictionPolicy, final int shardCount) {
+        this.serviceIdentifier = serviceIdentifier;
+        this.shards = new MapCache[shardCount];
+
+        // divide the capacity so that the shards add up to exactly the maximum size
+        for (int i = 0; i < shardCount; i++) {
+            final int shardSize = maxSize / shardCount + (i < maxSize % shardCount ? 1 : 0);
+            shards[i] = new SimpleMapCache(serviceIdentifier, shardSize, evictionPolicy);
+        }
+    }
+
+    int getShardCount() {
+        return shards.length;
+    }
+
+    private MapCache getShard(final ByteBuffer key) {
+        if (shards.length == 1) {
+            return shards[0];
+        }
+
+        final int hash = key.hashCode();
+        final int spread = hash ^ (hash >>> 16);
+        return shards[(spread & Integer.MAX_VALUE) % shards.length];
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedMapCache[service id=" + serviceIdentifier + ", shards=" + shards.length + "]";
+    }
+
+    @Override
+    public MapPutResult putIfAbsent(final ByteBuffer key, final ByteBuffer value) throws IOException {
+        return getShard(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public MapPutResult put(final ByteBuffer key, final ByteBuffer value) throws IOException {
+        return getShard(key).put(key, value);
+    }
+
+    @Override
+    public boolean containsKey(final ByteBuffer key) throws IOException {
+        return getShard(key).containsKey(key);
+    }
+
+    @Override
+    public ByteBuffer get(final ByteBuffer key) throws IOException {
+        return getShard(key).get(key);
+    }
+
+    @Override
+    public ByteBuffer remove(final ByteBuffer key) throws IOException {
+        return getShard(key).remove(key);
+    }
+
+    @Override
+    public Map<ByteBuffer, ByteBuffer> removeByPattern(final String regex) throws IOException {
+        final Map<ByteBuffer, ByteBuffer> removed = new HashMap<>();
+        for (final MapCache shard : shards) {
+            final Map<ByteBuffer, ByteBuffer> removedFromShard = shard.removeByPattern(regex);
+            if (removedFromShard != null) {
+                removed.putAll(removedFromShard);
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    public MapCacheRecord fetch(final ByteBuffer key) throws IOException {
+        return getShard(key).fetch(key);
+    }
+
+    @Override
+    public MapPutResult replace(final MapCacheRecord record) throws IOException {
+        return getShard(record.getKey()).replace(record);
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        for (final MapCache shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
@@ -22,14 +22,21 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.ConnectException;
+import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.SerializationException;
 import org.apache.commons.lang3.SystemUtils;
@@ -40,6 +47,7 @@ import org.apache.nifi.distributed.cache.client.DistributedMapCacheClientService
 import org.apache.nifi.distributed.cache.client.DistributedSetCacheClientService;
 import org.apache.nifi.distributed.cache.client.Serializer;
 import org.apache.nifi.distributed.cache.client.exception.DeserializationException;
+import org.apache.nifi.distributed.cache.protocol.ProtocolHandshake;
 import org.apache.nifi.distributed.cache.server.map.DistributedMapCacheServer;
 import org.apache.nifi.distributed.cache.server.map.MapCacheServer;
 import org.apache.nifi.processor.Processor;
@@ -692,6 +700,280 @@ public class TestServerAndClient {
     }
 
 
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final DistributedMapCacheServer server = new MapServer();
+        final TestRunner runner = TestRunners.newTestRunner(Mockito.mock(Processor.class));
+        runner.addControllerService("server", server);
+        runner.enableControllerService(server);
+
+        try (final Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(30000);
+            final DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+            final DataInputStream dis = new DataInputStream(socket.getInputStream());
+
+            // propose a version that is newer than the server supports, so that it has to respond before the handshake completes
+            dos.write(ProtocolHandshake.MAGIC_HEADER);
+            dos.writeInt(99);
+            dos.flush();
+            assertEquals(ProtocolHandshake.DIFFERENT_RESOURCE_VERSION, dis.read());
+            assertEquals(3, dis.readInt());
+            dos.writeInt(3);
+            dos.flush();
+            assertEquals(ProtocolHandshake.RESOURCE_OK, dis.read());
+
+            // send all of the requests before reading any of the responses
+            final ByteArrayOutputStream requests = new ByteArrayOutputStream();
+            final DataOutputStream requestOut = new DataOutputStream(requests);
+            final int requestCount = 1000;
+            for (int i = 0; i < requestCount; i++) {
+                writePut(requestOut, "key-" + i, "value-" + i);
+                writeGet(requestOut, "key-" + i);
+            }
+
+            final byte[] requestBytes = requests.toByteArray();
+            final Thread writer = new Thread(() -> {
+                try {
+                    // split the requests at arbitrary points so that they span multiple reads on the server
+                    for (int offset = 0; offset < requestBytes.length; offset += 777) {
+                        dos.write(requestBytes, offset, Math.min(777, requestBytes.length - offset));
+                        dos.flush();
+                    }
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+
+            for (int i = 0; i < requestCount; i++) {
+                assertTrue(dis.readBoolean());
+                final byte[] value = new byte[dis.readInt()];
+                dis.readFully(value);
+                assertEquals("value-" + i, new String(value, StandardCharsets.UTF_8));
+            }
+            writer.join();
+
+            dos.writeUTF("close");
+            dos.flush();
+            assertEquals(-1, dis.read());
+        }
+
+        server.shutdownServer();
+    }
+
+    @Test
+    public void testLargeValueSpanningManyReads() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final DistributedMapCacheServer server = new MapServer();
+        final TestRunner runner = TestRunners.newTestRunner(Mockito.mock(Processor.class));
+        runner.addControllerService("server", server);
+        runner.enableControllerService(server);
+
+        try (final Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(30000);
+            final DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+            final DataInputStream dis = new DataInputStream(socket.getInputStream());
+
+            dos.write(ProtocolHandshake.MAGIC_HEADER);
+            dos.writeInt(3);
+            dos.flush();
+            assertEquals(ProtocolHandshake.RESOURCE_OK, dis.read());
+
+            final char[] chars = new char[10 * 1024 * 1024];
+            Arrays.fill(chars, 'x');
+            final String largeValue = new String(chars);
+
+            final ByteArrayOutputStream requests = new ByteArrayOutputStream();
+            final DataOutputStream requestOut = new DataOutputStream(requests);
+            writePut(requestOut, "large", largeValue);
+            writeGet(requestOut, "large");
+            writePut(requestOut, "small", "value");
+            writeGet(requestOut, "small");
+
+            final byte[] requestBytes = requests.toByteArray();
+            final Thread writer = new Thread(() -> {
+                try {
+                    // send the large value in many small pieces so that the server has to wait for the rest of it
+                    for (int offset = 0; offset < requestBytes.length; offset += 65536) {
+                        dos.write(requestBytes, offset, Math.min(65536, requestBytes.length - offset));
+                        dos.flush();
+                    }
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+
+            assertTrue(dis.readBoolean());
+            final byte[] value = new byte[dis.readInt()];
+            dis.readFully(value);
+            assertEquals(largeValue, new String(value, StandardCharsets.UTF_8));
+
+            assertTrue(dis.readBoolean());
+            final byte[] smallValue = new byte[dis.readInt()];
+            dis.readFully(smallValue);
+            assertEquals("value", new String(smallValue, StandardCharsets.UTF_8));
+            writer.join();
+
+            dos.writeUTF("close");
+            dos.flush();
+            assertEquals(-1, dis.read());
+        }
+
+        server.shutdownServer();
+    }
+
+    @Test
+    public void testBatchOperations() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final DistributedMapCacheServer server = new MapServer();
+        final TestRunner runner = TestRunners.newTestRunner(Mockito.mock(Processor.class));
+        runner.addControllerService("server", server);
+        runner.enableControllerService(server);
+
+        final DistributedMapCacheClientService client = createMapClient(server.getPort());
+        final Serializer<String> serializer = new StringSerializer();
+        final Deserializer<String> deserializer = new StringDeserializer();
+
+        // enough entries that the requests do not fit in a single pipelined batch
+        final Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 2500; i++) {
+            entries.put("key-" + i, "value-" + i);
+        }
+        client.putAll(entries, serializer, serializer);
+
+        final Set<String> keys = new HashSet<>(entries.keySet());
+        keys.add("missing");
+        final Map<String, String> values = client.getAll(keys, serializer, deserializer);
+        assertEquals(keys.size(), values.size());
+        for (final Map.Entry<String, String> entry : entries.entrySet()) {
+            assertEquals(entry.getValue(), values.get(entry.getKey()));
+        }
+        assertTrue(values.containsKey("missing"));
+        assertNull(values.get("missing"));
+
+        final Map<String, String> moreEntries = new HashMap<>();
+        moreEntries.put("key-1", "other");
+        moreEntries.put("new-key", "new-value");
+        final Map<String, Boolean> added = client.putAllIfAbsent(moreEntries, serializer, serializer);
+        assertFalse(added.get("key-1"));
+        assertTrue(added.get("new-key"));
+        assertEquals("value-1", client.get("key-1", serializer, deserializer));
+        assertEquals("new-value", client.get("new-key", serializer, deserializer));
+
+        client.close();
+        server.shutdownServer();
+    }
+
+    @Test
+    public void testNearCache() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final DistributedMapCacheServer server = new MapServer();
+        final TestRunner runner = TestRunners.newTestRunner(Mockito.mock(Processor.class));
+        runner.addControllerService("server", server);
+        runner.enableControllerService(server);
+
+        final DistributedMapCacheClientService client = new DistributedMapCacheClientService();
+        final MockControllerServiceInitializationContext clientInitContext = new MockControllerServiceInitializationContext(client, "client");
+        client.initialize(clientInitContext);
+
+        final Map<PropertyDescriptor, String> clientProperties = new HashMap<>();
+        clientProperties.put(DistributedMapCacheClientService.HOSTNAME, "localhost");
+        clientProperties.put(DistributedMapCacheClientService.PORT, String.valueOf(server.getPort()));
+        clientProperties.put(DistributedMapCacheClientService.NEAR_CACHE_SIZE, "100");
+        clientProperties.put(DistributedMapCacheClientService.NEAR_CACHE_TTL, "1 hour");
+        final MockConfigurationContext clientContext = new MockConfigurationContext(clientProperties, clientInitContext.getControllerServiceLookup());
+        client.cacheConfig(clientContext);
+
+        final DistributedMapCacheClientService otherClient = createMapClient(server.getPort());
+        final Serializer<String> serializer = new StringSerializer();
+        final Deserializer<String> deserializer = new StringDeserializer();
+
+        client.put("key", "1", serializer, serializer);
+        assertEquals("1", client.get("key", serializer, deserializer));
+        assertNull(client.get("absent", serializer, deserializer));
+        assertFalse(client.containsKey("absent", serializer));
+
+        // changes made by other clients are not seen until the cached values expire
+        otherClient.put("key", "2", serializer, serializer);
+        otherClient.put("absent", "2", serializer, serializer);
+        assertEquals("1", client.get("key", serializer, deserializer));
+        assertFalse(client.containsKey("absent", serializer));
+
+        // but changes made by this client are seen immediately
+        client.put("key", "3", serializer, serializer);
+        assertEquals("3", client.get("key", serializer, deserializer));
+        assertTrue(client.remove("absent", serializer));
+        assertFalse(client.containsKey("absent", serializer));
+        assertEquals("3", client.getAll(new HashSet<>(Arrays.asList("key")), serializer, deserializer).get("key"));
+
+        client.close();
+        otherClient.close();
+        server.shutdownServer();
+    }
+
+    @Test
+    public void testNearCacheWithEmptyValue() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final DistributedMapCacheServer server = new MapServer();
+        final TestRunner runner = TestRunners.newTestRunner(Mockito.mock(Processor.class));
+        runner.addControllerService("server", server);
+        runner.enableControllerService(server);
+
+        final DistributedMapCacheClientService client = new DistributedMapCacheClientService();
+        final MockControllerServiceInitializationContext clientInitContext = new MockControllerServiceInitializationContext(client, "client");
+        client.initialize(clientInitContext);
+
+        final Map<PropertyDescriptor, String> clientProperties = new HashMap<>();
+        clientProperties.put(DistributedMapCacheClientService.HOSTNAME, "localhost");
+        clientProperties.put(DistributedMapCacheClientService.PORT, String.valueOf(server.getPort()));
+        clientProperties.put(DistributedMapCacheClientService.NEAR_CACHE_SIZE, "100");
+        clientProperties.put(DistributedMapCacheClientService.NEAR_CACHE_TTL, "1 hour");
+        final MockConfigurationContext clientContext = new MockConfigurationContext(clientProperties, clientInitContext.getControllerServiceLookup());
+        client.cacheConfig(clientContext);
+
+        final Serializer<String> serializer = new StringSerializer();
+        final Deserializer<String> deserializer = new StringDeserializer();
+
+        // the server returns an empty value for a key whose value is empty just as it does for a key that is not present,
+        // so caching the empty value must not make the key appear to be absent
+        client.put("empty", "", serializer, serializer);
+        assertNull(client.get("empty", serializer, deserializer));
+        assertTrue(client.containsKey("empty", serializer));
+        assertTrue(client.containsKey("empty", serializer));
+
+        assertNull(client.get("absent", serializer, deserializer));
+        assertFalse(client.containsKey("absent", serializer));
+        assertFalse(client.containsKey("absent", serializer));
+        assertNull(client.get("absent", serializer, deserializer));
+
+        client.close();
+        server.shutdownServer();
+    }
+
+    private void writePut(final DataOutputStream out, final String key, final String value) throws IOException {
+        out.writeUTF("put");
+        writeBytes(out, key);
+        writeBytes(out, value);
+    }
+
+    private void writeGet(final DataOutputStream out, final String key) throws IOException {
+        out.writeUTF("get");
+        writeBytes(out, key);
+    }
+
+    private void writeBytes(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
     private void waitABit() {
         try {
             Thread.sleep(10L);
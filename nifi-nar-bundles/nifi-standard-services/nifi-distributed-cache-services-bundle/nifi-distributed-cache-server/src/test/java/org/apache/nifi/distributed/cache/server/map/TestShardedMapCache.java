@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server.map;
+
+import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestShardedMapCache {
+
+    @Test
+    public void testShardCount() {
+        assertEquals(1, new ShardedMapCache("service-id", 10, EvictionPolicy.FIFO).getShardCount());
+        assertEquals(1, new ShardedMapCache("service-id", ShardedMapCache.MIN_ENTRIES_PER_SHARD * 2 - 1, EvictionPolicy.FIFO).getShardCount());
+        assertEquals(2, new ShardedMapCache("service-id", ShardedMapCache.MIN_ENTRIES_PER_SHARD * 2, EvictionPolicy.FIFO).getShardCount());
+        assertEquals(ShardedMapCache.MAX_SHARD_COUNT, new ShardedMapCache("service-id", 10_000_000, EvictionPolicy.FIFO).getShardCount());
+    }
+
+    @Test
+    public void testOperationsAcrossShards() throws Exception {
+        final ShardedMapCache cache = new ShardedMapCache("service-id", 1000, EvictionPolicy.LRU, 8);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.putIfAbsent(wrap("key-" + i), wrap("value-" + i)).isSuccessful());
+        }
+        assertFalse(cache.putIfAbsent(wrap("key-1"), wrap("other")).isSuccessful());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.containsKey(wrap("key-" + i)));
+            assertEquals("value-" + i, unwrap(cache.get(wrap("key-" + i))));
+        }
+
+        final MapCacheRecord record = cache.fetch(wrap("key-5"));
+        assertEquals(0L, record.getRevision());
+        assertTrue(cache.replace(new MapCacheRecord(wrap("key-5"), wrap("replaced"), 0L)).isSuccessful());
+        assertFalse(cache.replace(new MapCacheRecord(wrap("key-5"), wrap("stale"), 0L)).isSuccessful());
+        assertEquals("replaced", unwrap(cache.get(wrap("key-5"))));
+
+        assertEquals("value-6", unwrap(cache.remove(wrap("key-6"))));
+        assertNull(cache.get(wrap("key-6")));
+
+        // keys key-10 through key-19 and key-1 are spread across the shards
+        final Map<ByteBuffer, ByteBuffer> removed = cache.removeByPattern("key-1\\d?");
+        assertEquals(11, removed.size());
+        assertNull(cache.get(wrap("key-15")));
+        assertEquals("value-20", unwrap(cache.get(wrap("key-20"))));
+    }
+
+    @Test
+    public void testEvictionKeepsTotalSizeWithinMaximum() throws Exception {
+        final int maxSize = 100;
+        final ShardedMapCache cache = new ShardedMapCache("service-id", maxSize, EvictionPolicy.FIFO, 4);
+
+        int evictions = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (cache.put(wrap("key-" + i), wrap("value-" + i)).getEvicted() != null) {
+                evictions++;
+            }
+        }
+
+        int remaining = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (cache.containsKey(wrap("key-" + i))) {
+                remaining++;
+            }
+        }
+
+        assertTrue(remaining <= maxSize);
+        assertEquals(1000, remaining + evictions);
+    }
+
+    private static ByteBuffer wrap(final String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String unwrap(final ByteBuffer buffer) {
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.nifi.avro;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.ArrayRecordLayout;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordSchema;
@@ -28,6 +29,7 @@ import java.io.IOException;
 import java.util.Map;
 
 public abstract class AvroRecordReader implements RecordReader {
+    private ArrayRecordLayout layout;
 
     protected abstract GenericRecord nextAvroRecord() throws IOException;
 
@@ -39,8 +41,19 @@ public abstract class AvroRecordReader implements RecordReader {
         }
 
         final RecordSchema schema = getSchema();
+        if (coerceTypes && dropUnknownFields) {
+            return AvroTypeUtil.convertAvroRecord(record, getLayout(schema));
+        }
+
         final Map<String, Object> values = AvroTypeUtil.convertAvroRecordToMap(record, schema);
         return new MapRecord(schema, values);
     }
 
+    private ArrayRecordLayout getLayout(final RecordSchema schema) {
+        if (layout == null || layout.getSchema() != schema) {
+            layout = new ArrayRecordLayout(schema);
+        }
+        return layout;
+    }
+
 }
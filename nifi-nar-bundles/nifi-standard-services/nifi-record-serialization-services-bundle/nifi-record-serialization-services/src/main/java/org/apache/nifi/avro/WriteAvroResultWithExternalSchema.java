@@ -40,6 +40,7 @@ public class WriteAvroResultWithExternalSchema extends AbstractRecordSetWriter {
     private final BinaryEncoder encoder;
     private final OutputStream buffered;
     private final DatumWriter<GenericRecord> datumWriter;
+    private AvroRecordConverter converter;
 
     public WriteAvroResultWithExternalSchema(final Schema avroSchema, final RecordSchema recordSchema,
         final SchemaAccessWriter schemaAccessWriter, final OutputStream out) throws IOException {
@@ -73,7 +74,7 @@ public class WriteAvroResultWithExternalSchema extends AbstractRecordSetWriter {
             schemaAccessWriter.writeHeader(recordSchema, getOutputStream());
         }
 
-        final GenericRecord rec = AvroTypeUtil.createAvroRecord(record, avroSchema);
+        final GenericRecord rec = getConverter(record.getSchema()).convert(record);
         datumWriter.write(rec, encoder);
         return schemaAccessWriter.getAttributes(recordSchema);
     }
@@ -84,6 +85,13 @@ public class WriteAvroResultWithExternalSchema extends AbstractRecordSetWriter {
         buffered.flush();
     }
 
+    private AvroRecordConverter getConverter(final RecordSchema recordSchema) {
+        if (converter == null || converter.getRecordSchema() != recordSchema) {
+            converter = new AvroRecordConverter(recordSchema, avroSchema);
+        }
+        return converter;
+    }
+
     @Override
     public String getMimeType() {
         return "application/avro-binary";
@@ -29,11 +29,13 @@ import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.nifi.serialization.AbstractRecordSetWriter;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordSchema;
 
 public class WriteAvroResultWithSchema extends AbstractRecordSetWriter {
 
     private final DataFileWriter<GenericRecord> dataFileWriter;
     private final Schema schema;
+    private AvroRecordConverter converter;
 
     public WriteAvroResultWithSchema(final Schema schema, final OutputStream out, final CodecFactory codec) throws IOException {
         super(out);
@@ -57,11 +59,18 @@ public class WriteAvroResultWithSchema extends AbstractRecordSetWriter {
 
     @Override
     public Map<String, String> writeRecord(final Record record) throws IOException {
-        final GenericRecord rec = AvroTypeUtil.createAvroRecord(record, schema);
+        final GenericRecord rec = getConverter(record.getSchema()).convert(record);
         dataFileWriter.append(rec);
         return Collections.emptyMap();
     }
 
+    private AvroRecordConverter getConverter(final RecordSchema recordSchema) {
+        if (converter == null || converter.getRecordSchema() != recordSchema) {
+            converter = new AvroRecordConverter(recordSchema, schema);
+        }
+        return converter;
+    }
+
     @Override
     public String getMimeType() {
         return "application/avro-binary";
@@ -38,9 +38,12 @@ import org.apache.commons.io.input.BOMInputStream;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.ArrayRecordLayout;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
 
@@ -53,12 +56,16 @@ public class CSVRecordReader implements RecordReader {
     private final Supplier<DateFormat> LAZY_TIME_FORMAT;
     private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
 
+    private final ArrayRecordLayout layout;
+
     private List<String> rawFieldNames;
+    private int[] fieldIndices;
 
     public CSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
         final String dateFormat, final String timeFormat, final String timestampFormat) throws IOException {
 
         this.schema = schema;
+        this.layout = new ArrayRecordLayout(schema);
         final DateFormat df = dateFormat == null ? null : DataTypeUtils.getDateFormat(dateFormat);
         final DateFormat tf = timeFormat == null ? null : DataTypeUtils.getDateFormat(timeFormat);
         final DateFormat tsf = timestampFormat == null ? null : DataTypeUtils.getDateFormat(timestampFormat);
@@ -85,6 +92,10 @@ public class CSVRecordReader implements RecordReader {
 
     @Override
     public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        if (coerceTypes && dropUnknownFields) {
+            return nextArrayRecord();
+        }
+
         final RecordSchema schema = getSchema();
 
         final List<String> rawFieldNames = getRawFieldNames();
@@ -123,6 +134,46 @@ public class CSVRecordReader implements RecordReader {
         return null;
     }
 
+    private Record nextArrayRecord() {
+        final int[] fieldIndices = getFieldIndices();
+
+        for (final CSVRecord csvRecord : csvParser) {
+            final ArrayRecord record = new ArrayRecord(layout);
+            final int numValues = Math.min(csvRecord.size(), fieldIndices.length);
+            for (int i = 0; i < numValues; i++) {
+                final int fieldIndex = fieldIndices[i];
+                if (fieldIndex < 0) {
+                    continue;
+                }
+
+                final RecordField field = layout.getField(fieldIndex);
+                record.setValue(fieldIndex, convert(csvRecord.get(i), field.getDataType(), field.getFieldName()));
+            }
+
+            record.checkRequiredFields();
+            return record;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return for each column of the CSV, the index of the schema field that it holds, or -1 if the column is not part of the schema
+     */
+    private int[] getFieldIndices() {
+        if (this.fieldIndices != null) {
+            return this.fieldIndices;
+        }
+
+        final List<String> rawFieldNames = getRawFieldNames();
+        final int[] fieldIndices = new int[rawFieldNames.size()];
+        for (int i = 0; i < fieldIndices.length; i++) {
+            fieldIndices[i] = layout.getIndex(rawFieldNames.get(i));
+        }
+
+        this.fieldIndices = fieldIndices;
+        return fieldIndices;
+    }
 
     private List<String> getRawFieldNames() {
         if (this.rawFieldNames != null) {
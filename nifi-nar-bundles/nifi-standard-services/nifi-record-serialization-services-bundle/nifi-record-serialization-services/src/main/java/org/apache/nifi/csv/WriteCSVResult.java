@@ -36,6 +36,9 @@ import org.apache.nifi.serialization.record.RawRecordWriter;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.SchemaMapping;
+import org.apache.nifi.serialization.record.SchemaMappingCache;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
 
 public class WriteCSVResult extends AbstractRecordSetWriter implements RecordSetWriter, RawRecordWriter {
     private final RecordSchema recordSchema;
@@ -45,6 +48,8 @@ public class WriteCSVResult extends AbstractRecordSetWriter implements RecordSet
     private final String timestampFormat;
     private final CSVPrinter printer;
     private final Object[] fieldValues;
+    private final String[] fieldFormats;
+    private final SchemaMappingCache schemaMappings = new SchemaMappingCache();
     private final boolean includeHeaderLine;
     private boolean headerWritten = false;
     private String[] fieldNames;
@@ -65,6 +70,10 @@ public class WriteCSVResult extends AbstractRecordSetWriter implements RecordSet
         printer = new CSVPrinter(streamWriter, formatWithHeader);
 
         fieldValues = new Object[recordSchema.getFieldCount()];
+        fieldFormats = new String[recordSchema.getFieldCount()];
+        for (int i = 0; i < fieldFormats.length; i++) {
+            fieldFormats[i] = getFormat(recordSchema.getField(i));
+        }
     }
 
     private String getFormat(final RecordField field) {
@@ -139,9 +148,10 @@ public class WriteCSVResult extends AbstractRecordSetWriter implements RecordSet
 
         includeHeaderIfNecessary(record, true);
 
-        int i = 0;
-        for (final RecordField recordField : recordSchema.getFields()) {
-            fieldValues[i++] = record.getAsString(recordField, getFormat(recordField));
+        final SchemaMapping mapping = schemaMappings.getMapping(record.getSchema(), recordSchema);
+        for (int i = 0; i < fieldValues.length; i++) {
+            final Object value = mapping.getValue(record, i);
+            fieldValues[i] = value == null ? null : DataTypeUtils.toString(value, fieldFormats[i]);
         }
 
         printer.printRecord(fieldValues);
@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.ArrayRecordLayout;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * <p>
+ * Reads the same JSON as {@link JsonTreeRowRecordReader} and produces Records with the same values, but does so using
+ * Jackson's streaming {@link JsonParser} rather than first parsing each JSON Object into a tree of JsonNodes. Each value
+ * is converted into the data type of its field as soon as it is parsed, and the values of fields that are not in the
+ * schema are skipped without being materialized when unknown fields are to be dropped.
+ * </p>
+ *
+ * <p>
+ * Unlike the Records produced by {@link JsonTreeRowRecordReader}, the Records produced by this reader do not retain
+ * the JSON that they were read from as their SerializedForm.
+ * </p>
+ */
+public class JsonStreamingRowRecordReader implements RecordReader {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final ComponentLog logger;
+    private final RecordSchema schema;
+    private final JsonParser jsonParser;
+    private final boolean array;
+    private final Map<RecordSchema, ArrayRecordLayout> layouts = new IdentityHashMap<>();
+
+    private final Supplier<DateFormat> LAZY_DATE_FORMAT;
+    private final Supplier<DateFormat> LAZY_TIME_FORMAT;
+    private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
+
+    private boolean firstObjectConsumed = false;
+
+    public JsonStreamingRowRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema,
+        final String dateFormat, final String timeFormat, final String timestampFormat) throws IOException, MalformedRecordException {
+
+        this.logger = logger;
+        this.schema = schema;
+
+        final DateFormat df = dateFormat == null ? null : DataTypeUtils.getDateFormat(dateFormat);
+        final DateFormat tf = timeFormat == null ? null : DataTypeUtils.getDateFormat(timeFormat);
+        final DateFormat tsf = timestampFormat == null ? null : DataTypeUtils.getDateFormat(timestampFormat);
+
+        LAZY_DATE_FORMAT = () -> df;
+        LAZY_TIME_FORMAT = () -> tf;
+        LAZY_TIMESTAMP_FORMAT = () -> tsf;
+
+        try {
+            jsonParser = jsonFactory.createJsonParser(in);
+
+            JsonToken token = jsonParser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                jsonParser.nextToken(); // advance to START_OBJECT token
+            } else {
+                array = false;
+            }
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        if (firstObjectConsumed && !array) {
+            return null;
+        }
+
+        try {
+            if (!advanceToNextObject()) {
+                return null;
+            }
+
+            return readRecord(schema, coerceTypes, dropUnknownFields, null);
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        } catch (final MalformedRecordException mre) {
+            throw mre;
+        } catch (final IOException ioe) {
+            throw ioe;
+        } catch (final Exception e) {
+            logger.debug("Failed to convert JSON Element into a Record object using schema {} due to {}", new Object[] {schema, e.toString(), e});
+            throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
+        }
+    }
+
+    /**
+     * Positions the parser at the START_OBJECT token of the next JSON Object
+     *
+     * @return <code>true</code> if there is another JSON Object, <code>false</code> if there are no more
+     */
+    private boolean advanceToNextObject() throws IOException, MalformedRecordException {
+        if (!firstObjectConsumed) {
+            firstObjectConsumed = true;
+            return jsonParser.getCurrentToken() == JsonToken.START_OBJECT;
+        }
+
+        while (true) {
+            final JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                return false;
+            }
+
+            switch (token) {
+                case END_OBJECT:
+                    continue;
+                case START_OBJECT:
+                    return true;
+                case END_ARRAY:
+                case START_ARRAY:
+                    return false;
+                default:
+                    throw new MalformedRecordException("Expected to get a JSON Object but got a token of type " + token.name());
+            }
+        }
+    }
+
+    /**
+     * Reads the JSON Object at which the parser is positioned, leaving the parser at its END_OBJECT token
+     */
+    private Record readRecord(final RecordSchema schema, final boolean coerceTypes, final boolean dropUnknown, final String fieldNamePrefix)
+        throws IOException, MalformedRecordException {
+
+        if (coerceTypes && dropUnknown) {
+            final ArrayRecordLayout layout = getLayout(schema);
+            final ArrayRecord record = new ArrayRecord(layout);
+
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = jsonParser.getCurrentName();
+                jsonParser.nextToken();
+
+                final int index = layout.getIndex(fieldName);
+                if (index < 0) {
+                    jsonParser.skipChildren();
+                    continue;
+                }
+
+                final String fullFieldName = fieldNamePrefix == null ? fieldName : fieldNamePrefix + fieldName;
+                record.setValue(index, convertField(fullFieldName, layout.getField(index).getDataType(), dropUnknown));
+            }
+
+            return record;
+        }
+
+        final Map<String, Object> values = new LinkedHashMap<>();
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+
+            final RecordField recordField = schema.getField(fieldName).orElse(null);
+            if (recordField == null && dropUnknown) {
+                jsonParser.skipChildren();
+                continue;
+            }
+
+            final Object value;
+            if (coerceTypes && recordField != null) {
+                final String fullFieldName = fieldNamePrefix == null ? fieldName : fieldNamePrefix + fieldName;
+                value = convertField(fullFieldName, recordField.getDataType(), dropUnknown);
+            } else {
+                value = readRawValue(recordField == null ? null : recordField.getDataType());
+            }
+
+            values.put(fieldName, value);
+        }
+
+        return new MapRecord(schema, values, false, dropUnknown);
+    }
+
+    private ArrayRecordLayout getLayout(final RecordSchema schema) {
+        ArrayRecordLayout layout = layouts.get(schema);
+        if (layout == null) {
+            layout = new ArrayRecordLayout(schema);
+            layouts.put(schema, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Reads the value at which the parser is positioned and converts it into the given data type, in the same way
+     * that {@link JsonTreeRowRecordReader} converts the corresponding JsonNode
+     */
+    private Object convertField(final String fieldName, final DataType desiredType, final boolean dropUnknown) throws IOException, MalformedRecordException {
+        final JsonToken token = jsonParser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (desiredType.getFieldType()) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case LONG:
+            case SHORT:
+            case STRING:
+            case DATE:
+            case TIME:
+            case TIMESTAMP: {
+                final Object rawValue = readRawValue(null);
+                return DataTypeUtils.convertType(rawValue, desiredType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+            }
+            case MAP: {
+                final Map<String, Object> map = new HashMap<>();
+                if (token != JsonToken.START_OBJECT) {
+                    jsonParser.skipChildren();
+                    return map;
+                }
+
+                final DataType valueType = ((MapDataType) desiredType).getValueType();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childName = jsonParser.getCurrentName();
+                    jsonParser.nextToken();
+                    map.put(childName, convertField(fieldName, valueType, dropUnknown));
+                }
+
+                return map;
+            }
+            case ARRAY: {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new MalformedRecordException("Expected a JSON Array for field " + fieldName + " but got a token of type " + token.name());
+                }
+
+                final DataType elementType = ((ArrayDataType) desiredType).getElementType();
+                final List<Object> elements = new ArrayList<>();
+                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    elements.add(convertField(fieldName, elementType, dropUnknown));
+                }
+
+                return elements.toArray();
+            }
+            case RECORD: {
+                if (token != JsonToken.START_OBJECT || !(desiredType instanceof RecordDataType)) {
+                    jsonParser.skipChildren();
+                    return null;
+                }
+
+                final RecordSchema childSchema = ((RecordDataType) desiredType).getChildSchema();
+                if (childSchema == null) {
+                    return readRecordWithStringFields(fieldName + ".", dropUnknown);
+                }
+
+                return readRecord(childSchema, true, dropUnknown, fieldName + ".");
+            }
+            case CHOICE: {
+                return DataTypeUtils.convertType(readRawValue(null), desiredType, fieldName);
+            }
+        }
+
+        jsonParser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Reads a JSON Object for a Record field that has no child schema. As in {@link JsonTreeRowRecordReader}, the
+     * schema of the Record is made up of a String field for each field of the JSON Object.
+     */
+    private Record readRecordWithStringFields(final String fieldNamePrefix, final boolean dropUnknown) throws IOException {
+        final Map<String, Object> rawValues = new LinkedHashMap<>();
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+            rawValues.put(fieldName, readRawValue(null));
+        }
+
+        final List<RecordField> fields = new ArrayList<>(rawValues.size());
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (final Map.Entry<String, Object> entry : rawValues.entrySet()) {
+            final String fieldName = entry.getKey();
+            fields.add(new RecordField(fieldName, RecordFieldType.STRING.getDataType()));
+            values.put(fieldName, DataTypeUtils.convertType(entry.getValue(), RecordFieldType.STRING.getDataType(), LAZY_DATE_FORMAT, LAZY_TIME_FORMAT,
+                LAZY_TIMESTAMP_FORMAT, fieldNamePrefix + fieldName));
+        }
+
+        return new MapRecord(new SimpleRecordSchema(fields), values, false, dropUnknown);
+    }
+
+    /**
+     * Reads the value at which the parser is positioned without converting it, in the same way that
+     * {@link AbstractJsonRowRecordReader#getRawNodeValue(org.codehaus.jackson.JsonNode, DataType)} reads a JsonNode
+     */
+    private Object readRawValue(final DataType dataType) throws IOException {
+        final JsonToken token = jsonParser.getCurrentToken();
+        if (token == null) {
+            return null;
+        }
+
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return jsonParser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_STRING:
+                return jsonParser.getText();
+            case VALUE_EMBEDDED_OBJECT:
+                return jsonParser.getEmbeddedObject();
+            case START_ARRAY: {
+                final DataType elementDataType;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.ARRAY) {
+                    elementDataType = ((ArrayDataType) dataType).getElementType();
+                } else {
+                    elementDataType = null;
+                }
+
+                final List<Object> elements = new ArrayList<>();
+                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    elements.add(readRawValue(elementDataType));
+                }
+                return elements.toArray();
+            }
+            case START_OBJECT: {
+                RecordSchema childSchema = null;
+                if (dataType != null && RecordFieldType.RECORD == dataType.getFieldType()) {
+                    childSchema = ((RecordDataType) dataType).getChildSchema();
+                }
+                if (childSchema == null) {
+                    childSchema = new SimpleRecordSchema(Collections.emptyList());
+                }
+
+                final Map<String, Object> childValues = new HashMap<>();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childFieldName = jsonParser.getCurrentName();
+                    jsonParser.nextToken();
+                    childValues.put(childFieldName, readRawValue(dataType));
+                }
+
+                return new MapRecord(childSchema, childValues);
+            }
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonParser.close();
+    }
+}
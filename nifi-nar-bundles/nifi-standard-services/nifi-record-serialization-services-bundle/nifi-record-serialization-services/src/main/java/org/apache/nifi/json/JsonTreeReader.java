@@ -26,6 +26,7 @@ import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnEnabled;
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.flowfile.FlowFile;
@@ -36,6 +37,7 @@ import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.SchemaRegistryService;
+import org.apache.nifi.serialization.record.RecordSchema;
 
 @Tags({"json", "tree", "record", "reader", "parser"})
 @CapabilityDescription("Parses JSON into individual Record objects. The Record that is produced will contain all top-level "
@@ -48,9 +50,27 @@ import org.apache.nifi.serialization.SchemaRegistryService;
 @SeeAlso(JsonPathReader.class)
 public class JsonTreeReader extends SchemaRegistryService implements RecordReaderFactory {
 
+    static final AllowableValue TREE_PARSING = new AllowableValue("tree", "Tree",
+        "Each JSON Object is parsed into a tree of JSON nodes before it is converted into a Record. The Record retains the JSON that it was read from, "
+            + "so that a JSON Record Writer with the same schema can write it without serializing it again.");
+    static final AllowableValue STREAMING_PARSING = new AllowableValue("streaming", "Streaming",
+        "The fields of each JSON Object are converted into the Record as they are parsed, and fields that are not in the schema are skipped without "
+            + "being read into memory. This uses considerably less memory and CPU than Tree parsing, especially when the JSON contains many fields that "
+            + "are not in the schema, but the Record does not retain the JSON that it was read from.");
+
+    static final PropertyDescriptor PARSING_STRATEGY = new PropertyDescriptor.Builder()
+        .name("json-parsing-strategy")
+        .displayName("Parsing Strategy")
+        .description("Specifies how the JSON is parsed into Records. Both strategies produce Records with the same values.")
+        .allowableValues(TREE_PARSING, STREAMING_PARSING)
+        .defaultValue(TREE_PARSING.getValue())
+        .required(true)
+        .build();
+
     private volatile String dateFormat;
     private volatile String timeFormat;
     private volatile String timestampFormat;
+    private volatile boolean streaming;
 
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
@@ -58,6 +78,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
+        properties.add(PARSING_STRATEGY);
         return properties;
     }
 
@@ -66,10 +87,16 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         this.dateFormat = context.getProperty(DateTimeUtils.DATE_FORMAT).getValue();
         this.timeFormat = context.getProperty(DateTimeUtils.TIME_FORMAT).getValue();
         this.timestampFormat = context.getProperty(DateTimeUtils.TIMESTAMP_FORMAT).getValue();
+        this.streaming = STREAMING_PARSING.getValue().equals(context.getProperty(PARSING_STRATEGY).getValue());
     }
 
     @Override
     public RecordReader createRecordReader(final FlowFile flowFile, final InputStream in, final ComponentLog logger) throws IOException, MalformedRecordException, SchemaNotFoundException {
-        return new JsonTreeRowRecordReader(in, logger, getSchema(flowFile, in, null), dateFormat, timeFormat, timestampFormat);
+        final RecordSchema schema = getSchema(flowFile, in, null);
+        if (streaming) {
+            return new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+        }
+
+        return new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
     }
 }
@@ -33,9 +33,10 @@ import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.RawRecordWriter;
 import org.apache.nifi.serialization.record.Record;
-import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.SchemaMapping;
+import org.apache.nifi.serialization.record.SchemaMappingCache;
 import org.apache.nifi.serialization.record.SerializedForm;
 import org.apache.nifi.serialization.record.type.ArrayDataType;
 import org.apache.nifi.serialization.record.type.ChoiceDataType;
@@ -52,6 +53,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
     private final RecordSchema recordSchema;
     private final JsonFactory factory = new JsonFactory();
     private final JsonGenerator generator;
+    private final SchemaMappingCache schemaMappings = new SchemaMappingCache();
     private final Supplier<DateFormat> LAZY_DATE_FORMAT;
     private final Supplier<DateFormat> LAZY_TIME_FORMAT;
     private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
@@ -155,18 +157,17 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
             startTask.apply(generator);
 
             if (schemaAware) {
-                for (final RecordField field : writeSchema.getFields()) {
-                    final String fieldName = field.getFieldName();
-                    final Object value = record.getValue(field);
+                final SchemaMapping mapping = schemaMappings.getMapping(record.getSchema(), writeSchema);
+                for (int i = 0; i < mapping.getFieldCount(); i++) {
+                    final String fieldName = mapping.getOutputField(i).getFieldName();
+                    final Object value = mapping.getValue(record, i);
                     if (value == null) {
                         generator.writeNullField(fieldName);
                         continue;
                     }
 
                     generator.writeFieldName(fieldName);
-
-                    final DataType dataType = writeSchema.getDataType(fieldName).get();
-                    writeValue(generator, value, fieldName, dataType);
+                    writeValue(generator, value, fieldName, mapping.getOutputDataType(i), mapping.isConverted(i, value));
                 }
             } else {
                 for (final String fieldName : record.getRawFieldNames()) {
@@ -234,7 +235,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
     }
 
     @SuppressWarnings("unchecked")
-    private void writeValue(final JsonGenerator generator, final Object value, final String fieldName, final DataType dataType)
+    private void writeValue(final JsonGenerator generator, final Object value, final String fieldName, final DataType dataType, final boolean converted)
         throws JsonGenerationException, IOException {
         if (value == null) {
             generator.writeNull();
@@ -242,7 +243,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
         }
 
         final DataType chosenDataType = dataType.getFieldType() == RecordFieldType.CHOICE ? DataTypeUtils.chooseDataType(value, (ChoiceDataType) dataType) : dataType;
-        final Object coercedValue = DataTypeUtils.convertType(value, chosenDataType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+        final Object coercedValue = converted ? value : DataTypeUtils.convertType(value, chosenDataType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
         if (coercedValue == null) {
             generator.writeNull();
             return;
@@ -328,7 +329,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
                     final String mapKey = entry.getKey();
                     final Object mapValue = entry.getValue();
                     generator.writeFieldName(mapKey);
-                    writeValue(generator, mapValue, fieldName + "." + mapKey, valueDataType);
+                    writeValue(generator, mapValue, fieldName + "." + mapKey, valueDataType, false);
                 }
                 generator.writeEndObject();
                 break;
@@ -352,7 +353,7 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
         generator.writeStartArray();
         for (int i = 0; i < values.length; i++) {
             final Object element = values[i];
-            writeValue(generator, element, fieldName, elementType);
+            writeValue(generator, element, fieldName, elementType, false);
         }
         generator.writeEndArray();
     }
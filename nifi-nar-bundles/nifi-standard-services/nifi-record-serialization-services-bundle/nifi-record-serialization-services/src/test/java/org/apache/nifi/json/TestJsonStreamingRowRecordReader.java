@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestJsonStreamingRowRecordReader {
+    private final String dateFormat = RecordFieldType.DATE.getDefaultFormat();
+    private final String timeFormat = RecordFieldType.TIME.getDefaultFormat();
+    private final String timestampFormat = RecordFieldType.TIMESTAMP.getDefaultFormat();
+    private final ComponentLog logger = Mockito.mock(ComponentLog.class);
+
+    private List<RecordField> getDefaultFields() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("address", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("city", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("state", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("zipCode", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        return fields;
+    }
+
+    private RecordSchema getAccountSchema() {
+        final List<RecordField> accountFields = new ArrayList<>();
+        accountFields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        accountFields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        return new SimpleRecordSchema(accountFields);
+    }
+
+    private RecordSchema getNestedSchema() {
+        final DataType accountType = RecordFieldType.RECORD.getRecordDataType(getAccountSchema());
+        final List<RecordField> fields = getDefaultFields();
+        fields.add(new RecordField("account", accountType));
+        fields.add(new RecordField("accounts", RecordFieldType.ARRAY.getArrayDataType(accountType)));
+        fields.add(new RecordField("accountIds", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.LONG.getDataType())));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private List<Record> readAll(final RecordReader reader, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        final List<Record> records = new ArrayList<>();
+        Record record;
+        while ((record = reader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private void assertSameRecords(final String filename, final RecordSchema schema, final boolean coerceTypes, final boolean dropUnknownFields)
+        throws IOException, MalformedRecordException {
+
+        final byte[] json = Files.readAllBytes(Paths.get("src/test/resources/json", filename));
+
+        final List<Record> expected;
+        try (final JsonTreeRowRecordReader reader = new JsonTreeRowRecordReader(new ByteArrayInputStream(json), logger, schema, dateFormat, timeFormat, timestampFormat)) {
+            expected = readAll(reader, coerceTypes, dropUnknownFields);
+        }
+
+        final List<Record> actual;
+        try (final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(new ByteArrayInputStream(json), logger, schema,
+            dateFormat, timeFormat, timestampFormat)) {
+            actual = readAll(reader, coerceTypes, dropUnknownFields);
+        }
+
+        assertEquals(filename, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameValue(filename, expected.get(i), actual.get(i));
+        }
+    }
+
+    private void assertSameValue(final String description, final Object expected, final Object actual) {
+        if (expected instanceof Record) {
+            assertTrue(description, actual instanceof Record);
+            final Record expectedRecord = (Record) expected;
+            final Record actualRecord = (Record) actual;
+            assertEquals(description, expectedRecord.getSchema(), actualRecord.getSchema());
+            for (final String fieldName : expectedRecord.getRawFieldNames()) {
+                assertSameValue(description + "." + fieldName, expectedRecord.getValue(fieldName), actualRecord.getValue(fieldName));
+            }
+            assertSameValue(description, expectedRecord.getValues(), actualRecord.getValues());
+        } else if (expected instanceof Object[]) {
+            assertTrue(description, actual instanceof Object[]);
+            final Object[] expectedArray = (Object[]) expected;
+            final Object[] actualArray = (Object[]) actual;
+            assertEquals(description, expectedArray.length, actualArray.length);
+            for (int i = 0; i < expectedArray.length; i++) {
+                assertSameValue(description + "[" + i + "]", expectedArray[i], actualArray[i]);
+            }
+        } else {
+            assertEquals(description, expected, actual);
+        }
+    }
+
+    @Test
+    public void testSameValuesAsTreeReader() throws IOException, MalformedRecordException {
+        final String[] filenames = new String[] {"bank-account-array.json", "bank-account-array-different-schemas.json", "bank-account-array-optional-balance.json",
+            "json-with-unicode.json", "primitive-type-array.json", "single-bank-account.json", "single-element-nested.json", "single-element-nested-array.json"};
+
+        final RecordSchema[] schemas = new RecordSchema[] {new SimpleRecordSchema(getDefaultFields()), getNestedSchema()};
+        for (final String filename : filenames) {
+            for (final RecordSchema schema : schemas) {
+                assertSameRecords(filename, schema, true, true);
+                assertSameRecords(filename, schema, true, false);
+                assertSameRecords(filename, schema, false, false);
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownFieldsAreSkipped() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String json = "[{\"id\": 1, \"nested\": {\"a\": [1, {\"b\": 2}], \"c\": null}, \"list\": [[1], [2, 3]], \"country\": \"USA\"}, {\"id\": \"2\"}]";
+        try (final InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+            final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)) {
+
+            final Record first = reader.nextRecord();
+            Assert.assertArrayEquals(new Object[] {1, "USA"}, first.getValues());
+            assertNull(first.getValue("nested"));
+
+            final Record second = reader.nextRecord();
+            Assert.assertArrayEquals(new Object[] {2, null}, second.getValues());
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testIncorrectSchema() throws IOException, MalformedRecordException {
+        final DataType accountType = RecordFieldType.RECORD.getRecordDataType(getAccountSchema());
+        final List<RecordField> fields = getDefaultFields();
+        fields.add(new RecordField("account", accountType));
+        fields.remove(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        try (final InputStream in = Files.newInputStream(Paths.get("src/test/resources/json/single-bank-account-wrong-field-type.json"));
+            final JsonStreamingRowRecordReader reader = new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)) {
+
+            reader.nextRecord();
+            Assert.fail("Was able to read record with invalid schema.");
+        } catch (final MalformedRecordException mre) {
+            final String msg = mre.getCause().getMessage();
+            assertTrue(msg.contains("account.balance"));
+            assertTrue(msg.contains("Double"));
+        }
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to determine performance before/after modifications")
+    public void testPerformanceComparedToTreeReader() throws IOException, MalformedRecordException {
+        final int recordCount = 100_000;
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < recordCount; i++) {
+            if (i > 0) {
+                sb.append(",\n");
+            }
+            sb.append("{\"id\": ").append(i).append(", \"name\": \"John Doe ").append(i).append("\", \"balance\": ").append(i * 1.5D)
+                .append(", \"address\": \"123 My Street\", \"city\": \"My City\", \"state\": \"MS\", \"zipCode\": \"11111\", \"country\": \"USA\"")
+                .append(", \"tags\": [\"a\", \"b\", \"c\"], \"metadata\": {\"source\": \"generated\", \"index\": ").append(i)
+                .append(", \"details\": {\"x\": 1, \"y\": 2, \"z\": [1, 2, 3]}}}");
+        }
+        sb.append("]");
+
+        final byte[] json = sb.toString().getBytes(StandardCharsets.UTF_8);
+        final RecordSchema schema = new SimpleRecordSchema(getDefaultFields());
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        for (int j = 0; j < 5; j++) {
+            for (final boolean streaming : new boolean[] {false, true}) {
+                final long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+                final long start = System.nanoTime();
+
+                try (final InputStream in = new ByteArrayInputStream(json);
+                    final RecordReader reader = streaming ? new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)
+                        : new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)) {
+
+                    int count = 0;
+                    while (reader.nextRecord() != null) {
+                        count++;
+                    }
+                    assertEquals(recordCount, count);
+                }
+
+                final long nanos = System.nanoTime() - start;
+                final long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                System.out.println((streaming ? "Streaming" : "Tree") + ": " + (recordCount * TimeUnit.SECONDS.toNanos(1L) / nanos) + " records/sec, "
+                    + (json.length * TimeUnit.SECONDS.toNanos(1L) / nanos / 1024 / 1024) + " MB/sec, " + (allocated / recordCount) + " bytes allocated per record");
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.avro.AvroTypeUtil;
+import org.apache.nifi.avro.WriteAvroResultWithSchema;
+import org.apache.nifi.csv.CSVRecordReader;
+import org.apache.nifi.json.JsonTreeRowRecordReader;
+import org.apache.nifi.json.WriteJsonResult;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.schema.access.SchemaNameAsAttribute;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestRecordConversionPerformance {
+    private static final int RECORD_COUNT = 10_000;
+    private static final int ITERATIONS = 50;
+
+    private final String dateFormat = RecordFieldType.DATE.getDefaultFormat();
+    private final String timeFormat = RecordFieldType.TIME.getDefaultFormat();
+    private final String timestampFormat = RecordFieldType.TIMESTAMP.getDefaultFormat();
+    private final ComponentLog logger = Mockito.mock(ComponentLog.class);
+
+    private RecordSchema getSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("created", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("active", RecordFieldType.BOOLEAN.getDataType()));
+        fields.add(new RecordField("address", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("city", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("state", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("zipCode", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private byte[] createCsv() {
+        final StringBuilder sb = new StringBuilder("id,name,balance,created,active,address,city,state,zipCode,country\n");
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            sb.append(i).append(",John Doe ").append(i).append(',').append(i * 1.5D).append(',').append(1500000000000L + i).append(',').append(i % 2 == 0)
+                .append(",123 My Street,My City,MS,11111,USA\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<Record> readCsv(final byte[] csv, final RecordSchema schema) throws IOException, MalformedRecordException {
+        final List<Record> records = new ArrayList<>(RECORD_COUNT);
+        try (final InputStream in = new ByteArrayInputStream(csv);
+            final CSVRecordReader reader = new CSVRecordReader(in, logger, schema, CSVFormat.DEFAULT.withFirstRecordAsHeader(), true, false, dateFormat, timeFormat, timestampFormat)) {
+
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private List<Record> readJson(final byte[] json, final RecordSchema schema) throws IOException, MalformedRecordException {
+        final List<Record> records = new ArrayList<>(RECORD_COUNT);
+        try (final InputStream in = new ByteArrayInputStream(json);
+            final JsonTreeRowRecordReader reader = new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat)) {
+
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private byte[] writeJson(final List<Record> records, final RecordSchema schema) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(RECORD_COUNT * 256);
+        try (final WriteJsonResult writer = new WriteJsonResult(logger, schema, new SchemaNameAsAttribute(), baos, false, dateFormat, timeFormat, timestampFormat)) {
+            writer.beginRecordSet();
+            for (final Record record : records) {
+                writer.write(record);
+            }
+            writer.finishRecordSet();
+        }
+        return baos.toByteArray();
+    }
+
+    private void writeAvro(final List<Record> records, final RecordSchema schema) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(RECORD_COUNT * 128);
+        try (final WriteAvroResultWithSchema writer = new WriteAvroResultWithSchema(AvroTypeUtil.extractAvroSchema(schema), baos, CodecFactory.nullCodec())) {
+            writer.beginRecordSet();
+            for (final Record record : records) {
+                writer.write(record);
+            }
+            writer.finishRecordSet();
+        }
+    }
+
+    @Test
+    @Ignore("Intended only for manual testing to determine performance before/after modifications")
+    public void testCsvToJsonToAvroPerformance() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+        final byte[] csv = createCsv();
+        final byte[] json = writeJson(readCsv(csv, schema), schema);
+
+        for (int j = 0; j < 5; j++) {
+            long csvToJsonNanos = 0L;
+            long jsonWriteNanos = 0L;
+            long jsonToAvroNanos = 0L;
+            long avroWriteNanos = 0L;
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                final List<Record> csvRecords = readCsv(csv, schema);
+                final long written = System.nanoTime();
+                writeJson(csvRecords, schema);
+                final long end = System.nanoTime();
+                csvToJsonNanos += end - start;
+                jsonWriteNanos += end - written;
+
+                start = System.nanoTime();
+                final List<Record> jsonRecords = readJson(json, schema);
+                final long read = System.nanoTime();
+                writeAvro(jsonRecords, schema);
+                final long finished = System.nanoTime();
+                jsonToAvroNanos += finished - start;
+                avroWriteNanos += finished - read;
+            }
+
+            System.out.println("CSV to JSON: " + getRecordsPerSecond(csvToJsonNanos) + " records/sec (writing JSON: " + getRecordsPerSecond(jsonWriteNanos)
+                + " records/sec), JSON to Avro: " + getRecordsPerSecond(jsonToAvroNanos) + " records/sec (writing Avro: " + getRecordsPerSecond(avroWriteNanos) + " records/sec)");
+        }
+    }
+
+    private long getRecordsPerSecond(final long nanos) {
+        return (long) RECORD_COUNT * ITERATIONS * TimeUnit.SECONDS.toNanos(1L) / nanos;
+    }
+}